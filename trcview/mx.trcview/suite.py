@@ -119,6 +119,7 @@ suite = {
         "org.graalvm.vm.trcview.arch.riscv",
         "org.graalvm.vm.trcview.arch.ppc",
         "org.graalvm.vm.trcview.arch.x86",
+        "org.graalvm.vm.trcview.libtrc",
         "mx:JUNIT",
       ],
       "javaCompliance" : "11+",
@@ -3,17 +3,25 @@ package org.graalvm.vm.x86.trcview.arch.custom.test;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
 import org.graalvm.vm.trcview.arch.custom.CustomArchitecture;
 import org.graalvm.vm.trcview.arch.custom.analysis.CustomAnalyzer;
 import org.graalvm.vm.trcview.arch.custom.io.CustomStepEvent;
+import org.graalvm.vm.trcview.arch.custom.io.CustomTraceReader;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.io.Node;
 import org.graalvm.vm.x86.trcview.arch.custom.test.impl.MockStepEvent;
@@ -88,4 +96,81 @@ public class AnalyzerTest {
         byte[] machinecoderef = new byte[]{21};
         assertArrayEquals(machinecoderef, evt.getMachinecode());
     }
+
+    @Test
+    public void streaming() throws IOException {
+        CustomAnalyzer analyzer = new CustomAnalyzer(SCRIPT);
+        List<CustomTraceReader> readers = new ArrayList<>();
+        analyzer.setListener(readers::add);
+        analyzer.start(mem);
+        Event evt0 = new MockStepEvent(0, 0, 0xBEEE, new String[]{"salad"}, new byte[]{0x41});
+        Event evt1 = new MockStepEvent(0, 1, 0xBEEF, new String[]{"noodle"}, new byte[]{0x42}, "temp", 42L);
+        analyzer.process(evt0, evt0);
+        assertTrue(readers.isEmpty());
+        analyzer.process(evt1, evt1);
+        analyzer.finish();
+        assertEquals(1, readers.size());
+        assertTrue(analyzer.getEvents().isEmpty());
+
+        CustomTraceReader reader = readers.get(0);
+        CustomStepEvent evt = (CustomStepEvent) reader.read();
+        assertNotNull(evt);
+        assertEquals(0xBEEF, evt.getPC());
+        assertEquals(42, evt.getState().get("a"));
+        assertNull(reader.read());
+        assertNull(reader.read());
+    }
+
+    @Test(timeout = 10000)
+    public void abort() throws IOException {
+        CustomAnalyzer analyzer = new CustomAnalyzer(SCRIPT);
+        List<CustomTraceReader> readers = new ArrayList<>();
+        analyzer.setListener(readers::add);
+        analyzer.start(mem);
+        Event evt0 = new MockStepEvent(0, 1, 0xBEEF, new String[]{"noodle"}, new byte[]{0x42}, "temp", 42L);
+        analyzer.process(evt0, evt0);
+        // e.g. a truncated source trace
+        analyzer.abort(new EOFException());
+        assertEquals(1, readers.size());
+
+        CustomTraceReader reader = readers.get(0);
+        for (int i = 0; i < 2; i++) {
+            try {
+                reader.read();
+                fail("no error reported");
+            } catch (IOException e) {
+                assertTrue(e.getCause() instanceof EOFException);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void backpressure() throws Exception {
+        CustomAnalyzer analyzer = new CustomAnalyzer(SCRIPT);
+        CustomTraceReader reader = new CustomTraceReader(analyzer, 1, 3);
+        Event[] events = new Event[100];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new MockStepEvent(0, i, i, new String[]{"nop"}, new byte[]{0});
+        }
+        Thread producer = new Thread(() -> {
+            for (Event event : events) {
+                reader.put(event);
+            }
+            reader.close();
+        });
+        producer.start();
+        for (Event event : events) {
+            assertSame(event, reader.read());
+        }
+        assertNull(reader.read());
+        producer.join();
+
+        // a cancelled reader never blocks the producer
+        CustomTraceReader cancelled = new CustomTraceReader(analyzer, 1, 1);
+        cancelled.cancel();
+        for (Event event : events) {
+            cancelled.put(event);
+        }
+        cancelled.close();
+    }
 }
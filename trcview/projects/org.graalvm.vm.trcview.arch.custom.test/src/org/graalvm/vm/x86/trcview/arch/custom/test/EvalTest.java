@@ -391,4 +391,64 @@ public class EvalTest extends TestSupport {
         long result = main.execute(ctx);
         assertEquals(1, result);
     }
+
+    @Test(timeout = DEFAULT_TIMEOUT)
+    public void frames() {
+        String code = "int square(int n) {\n" +
+                        "    int r = n * n;\n" +
+                        "    return r;\n" +
+                        "}\n" +
+                        "int main(int x) {\n" +
+                        "    int r = square(x);\n" +
+                        "    int s = square(x + 1);\n" +
+                        "    return r * 1000 + s;\n" +
+                        "}\n";
+        Parser p = parse(code);
+
+        Context ctx = new Context();
+        Function main = p.symtab.getFunction("main");
+        assertNotNull(main);
+        long result = main.execute(ctx, 3L);
+        assertEquals(9016, result);
+    }
+
+    @Test(timeout = DEFAULT_TIMEOUT)
+    public void scopes() {
+        String code = "int main(int x) {\n" +
+                        "    int y = 1;\n" +
+                        "    if(x) {\n" +
+                        "        int y = 2;\n" +
+                        "        x = y;\n" +
+                        "    } else {\n" +
+                        "        int y = 3;\n" +
+                        "        x = y;\n" +
+                        "    }\n" +
+                        "    return x * 10 + y;\n" +
+                        "}\n";
+        Parser p = parse(code);
+
+        Context ctx = new Context();
+        Function main = p.symtab.getFunction("main");
+        assertNotNull(main);
+        assertEquals(21, main.execute(ctx, 1L));
+        assertEquals(31, main.execute(ctx, 0L));
+    }
+
+    @Test(timeout = DEFAULT_TIMEOUT)
+    public void narrowing() {
+        String code = "int main() {\n" +
+                        "    int8_t a = 255;\n" +
+                        "    uint8_t b = 257;\n" +
+                        "    int16_t c = 65535;\n" +
+                        "    uint32_t d = 4294967297;\n" +
+                        "    return a * 1000 + b * 100 + c * 10 + d;\n" +
+                        "}\n";
+        Parser p = parse(code);
+
+        Context ctx = new Context();
+        Function main = p.symtab.getFunction("main");
+        assertNotNull(main);
+        long result = main.execute(ctx);
+        assertEquals(-1000 + 100 - 10 + 1, result);
+    }
 }
@@ -0,0 +1,68 @@
+package org.graalvm.vm.x86.trcview.arch.custom.test;
+
+import org.graalvm.vm.trcview.arch.custom.Intrinsics;
+import org.graalvm.vm.trcview.script.Parser;
+import org.graalvm.vm.trcview.script.ast.Function;
+import org.graalvm.vm.trcview.script.rt.Context;
+
+/**
+ * Throughput of the script interpreter in calls per second. This is not a unit test, run it with
+ * {@code java InterpreterBenchmark [calls] [rounds]}. The script decodes a fake instruction word
+ * with local variables, arithmetic, comparisons and a call, which is what a typical custom
+ * architecture does for every step of the trace.
+ */
+public class InterpreterBenchmark {
+    private static final String SCRIPT = "int field(int insn, int shift, int mask) {\n" +
+                    "    return (insn >> shift) & mask;\n" +
+                    "}\n" +
+                    "\n" +
+                    "long step(long pc, int insn) {\n" +
+                    "    int opcode = field(insn, 26, 0x3F);\n" +
+                    "    int rd = (insn >> 21) & 0x1F;\n" +
+                    "    int rs = (insn >> 16) & 0x1F;\n" +
+                    "    int imm = insn & 0xFFFF;\n" +
+                    "    long next = pc + 4;\n" +
+                    "    if (opcode == 0x04 && rd != rs) {\n" +
+                    "        next = pc + 4 + imm * 4;\n" +
+                    "    } else if (opcode > 0x20 || opcode < 0x02) {\n" +
+                    "        next = (pc ^ imm) + rd * 8 - rs % 3;\n" +
+                    "    }\n" +
+                    "    return next;\n" +
+                    "}\n";
+
+    private static long run(Function step, Context ctx, long calls) {
+        long pc = 0x400000;
+        long insn = 0x12345678;
+        for (long i = 0; i < calls; i++) {
+            pc = step.execute(ctx, pc & 0xFFFFFFFFL, insn);
+            insn = insn * 1103515245 + 12345;
+        }
+        return pc;
+    }
+
+    public static void main(String[] args) {
+        long calls = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Parser p = new Parser(SCRIPT);
+        Intrinsics.register(p.symtab);
+        p.parse();
+        if (p.errors.numErrors() > 0) {
+            System.out.println(p.errors.dump());
+            return;
+        }
+        Function step = p.symtab.getFunction("step");
+        Context ctx = new Context();
+
+        // warmup
+        run(step, ctx, calls / 10);
+
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            long result = run(step, ctx, calls);
+            long time = System.nanoTime() - start;
+            double seconds = time / 1e9;
+            System.out.printf("round %d: %d calls in %.3f s, %.0f calls/s (result %x)%n", round, calls, seconds, calls / seconds, result);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.graalvm.vm.trcview.arch.custom.analysis;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import org.graalvm.vm.trcview.analysis.Analyzer;
@@ -10,6 +11,7 @@ import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
 import org.graalvm.vm.trcview.arch.custom.CustomArchitecture;
 import org.graalvm.vm.trcview.arch.custom.Intrinsics;
 import org.graalvm.vm.trcview.arch.custom.io.CustomStepEvent;
+import org.graalvm.vm.trcview.arch.custom.io.CustomTraceReader;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
@@ -28,6 +30,9 @@ import org.graalvm.vm.util.log.Trace;
 public class CustomAnalyzer implements Analyzer {
     private static final Logger log = Trace.create(CustomAnalyzer.class);
 
+    public static final int BATCH_SIZE = 256;
+    public static final int QUEUE_SIZE = 16;
+
     private final CustomArchitecture arch;
     private final Function start;
     private final Function finish;
@@ -40,6 +45,9 @@ public class CustomAnalyzer implements Analyzer {
     private Pointer globals;
 
     private List<Event> events;
+    private Consumer<CustomTraceReader> listener;
+    private CustomTraceReader output;
+    private long eventCount;
 
     private MemoryTrace memory;
     private long currentStep;
@@ -66,12 +74,25 @@ public class CustomAnalyzer implements Analyzer {
         return globals;
     }
 
+    /**
+     * Stream the created events instead of collecting them. When the script creates the first event
+     * of an analysis run, the listener is called with a new reader for the events of this run.
+     * Reading happens concurrently to the analysis of the source trace and the analysis blocks if
+     * the reader falls behind by more than {@link #QUEUE_SIZE} batches of {@link #BATCH_SIZE}
+     * events. A {@code null} listener collects the events for {@link #getEvents()}.
+     */
+    public void setListener(Consumer<CustomTraceReader> listener) {
+        this.listener = listener;
+    }
+
     @Override
     public void start(MemoryTrace mem) {
         memory = mem;
         currentStep = 0;
         ctx = new Context(arch.context);
-        events = new ArrayList<>();
+        events = listener == null ? new ArrayList<>() : null;
+        output = null;
+        eventCount = 0;
         if (start != null) {
             start.execute(ctx);
         }
@@ -90,7 +111,23 @@ public class CustomAnalyzer implements Analyzer {
         if (finish != null) {
             finish.execute(ctx);
         }
-        log.info("Created " + events.size() + " events");
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+        log.info("Created " + eventCount + " events");
+    }
+
+    /**
+     * Terminate the event stream with an error, so a reader which waits for events fails instead of
+     * waiting forever.
+     */
+    @Override
+    public void abort(Throwable cause) {
+        if (output != null) {
+            output.close(cause);
+            output = null;
+        }
     }
 
     public MemoryTrace getMemoryTrace() {
@@ -163,10 +200,22 @@ public class CustomAnalyzer implements Analyzer {
     }
 
     public void createEvent(Event event) {
-        events.add(event);
+        eventCount++;
+        if (events != null) {
+            events.add(event);
+            return;
+        }
+        if (output == null) {
+            output = new CustomTraceReader(this, QUEUE_SIZE, BATCH_SIZE);
+            listener.accept(output);
+        }
+        output.put(event);
     }
 
     public List<Event> getEvents() {
+        if (events == null) {
+            return Collections.emptyList();
+        }
         return Collections.unmodifiableList(events);
     }
 }
@@ -1,30 +1,170 @@
 package org.graalvm.vm.trcview.arch.custom.io;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.graalvm.vm.trcview.arch.custom.analysis.CustomAnalyzer;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.TraceReader;
 
+/**
+ * Reader for the events created by a {@link CustomAnalyzer}. In streaming mode the analyzer hands
+ * the events over in batches through a bounded queue while the source trace is still being
+ * analyzed; if the queue is full, the analyzer blocks until the reader caught up.
+ */
 public class CustomTraceReader extends TraceReader {
+    private static final Event[] END = new Event[0];
+    private static final Event[] ERROR = new Event[0];
+
     private final Iterator<Event> events;
     private long pos;
 
+    // streaming mode
+    private final BlockingQueue<Event[]> queue;
+    private final int batchSize;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private Event[] pending;
+    private int pendingSize;
+    private Event[] batch;
+    private int batchPos;
+    private boolean done;
+
+    /**
+     * Read the events which were collected by the analyzer.
+     */
     public CustomTraceReader(CustomAnalyzer analyzer) {
         setArchitecture(analyzer.getArchitecture());
         events = analyzer.getEvents().iterator();
+        queue = null;
+        batchSize = 0;
+        pos = 0;
+    }
+
+    /**
+     * Create a streaming reader which buffers at most {@code capacity} batches of
+     * {@code batchSize} events.
+     */
+    public CustomTraceReader(CustomAnalyzer analyzer, int capacity, int batchSize) {
+        setArchitecture(analyzer.getArchitecture());
+        events = null;
+        queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        pending = new Event[batchSize];
+        pendingSize = 0;
+        cancelled = false;
+        done = false;
         pos = 0;
     }
 
+    private void send(Event[] data) {
+        try {
+            while (!cancelled) {
+                if (queue.offer(data, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        if (pendingSize == 0) {
+            return;
+        }
+        Event[] data = pendingSize == batchSize ? pending : Arrays.copyOf(pending, pendingSize);
+        pending = new Event[batchSize];
+        pendingSize = 0;
+        send(data);
+    }
+
+    /**
+     * Append an event. Blocks if the queue is full. Only called by the producer.
+     */
+    public void put(Event event) {
+        if (cancelled) {
+            return;
+        }
+        pending[pendingSize++] = event;
+        if (pendingSize == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Signal the end of the event stream. Only called by the producer.
+     */
+    public void close() {
+        close(null);
+    }
+
+    /**
+     * Signal the end of the event stream. If {@code cause} is not null, the producer failed and
+     * {@link #read()} throws an {@link IOException} instead of returning the end of the stream. Only
+     * called by the producer.
+     */
+    public void close(Throwable cause) {
+        if (cause == null) {
+            flush();
+            send(END);
+        } else {
+            error = cause;
+            send(ERROR);
+        }
+    }
+
+    /**
+     * Stop reading. Events which are appended later are dropped, so the producer never blocks.
+     */
+    public void cancel() {
+        cancelled = true;
+        if (queue != null) {
+            queue.clear();
+        }
+    }
+
+    private Event end() throws IOException {
+        if (error != null) {
+            throw new IOException("Analysis of the source trace failed: " + error, error);
+        }
+        return null;
+    }
+
     @Override
     public Event read() throws IOException {
-        if (events.hasNext()) {
-            pos++;
-            return events.next();
-        } else {
-            return null;
+        if (queue == null) {
+            if (events.hasNext()) {
+                pos++;
+                return events.next();
+            } else {
+                return null;
+            }
+        }
+
+        if (done) {
+            return end();
+        }
+        while (batch == null || batchPos == batch.length) {
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted while waiting for events");
+            }
+            batchPos = 0;
+            if (batch == END || batch == ERROR) {
+                done = true;
+                batch = null;
+                return end();
+            }
         }
+        pos++;
+        return batch[batchPos++];
     }
 
     @Override
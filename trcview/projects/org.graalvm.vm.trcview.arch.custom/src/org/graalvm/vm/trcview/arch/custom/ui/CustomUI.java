@@ -1,5 +1,6 @@
 package org.graalvm.vm.trcview.arch.custom.ui;
 
+import java.awt.EventQueue;
 import java.awt.FileDialog;
 import java.io.File;
 import java.io.IOException;
@@ -19,8 +20,6 @@ import org.graalvm.vm.trcview.analysis.Analyzer;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.custom.analysis.CustomAnalyzer;
 import org.graalvm.vm.trcview.arch.custom.io.CustomTraceReader;
-import org.graalvm.vm.trcview.arch.io.TraceReader;
-import org.graalvm.vm.trcview.net.TraceAnalyzer;
 import org.graalvm.vm.trcview.ui.MainWindow;
 import org.graalvm.vm.trcview.ui.TraceView;
 import org.graalvm.vm.trcview.ui.plugin.UIPlugin;
@@ -103,43 +102,35 @@ public class CustomUI extends UIPlugin {
 
         List<Analyzer> result = new ArrayList<>();
         if (transform && analyzer != null) {
+            // the transformed trace is loaded while the source trace is analyzed
+            analyzer.setListener(this::transform);
             result.add(analyzer);
         }
         return result;
     }
 
-    @Override
-    public void traceLoaded(TraceAnalyzer trc) {
-        if (!transform || analyzer == null) {
-            return;
-        }
-
-        if (trc.getArchitecture() == analyzer.getArchitecture()) {
-            return;
-        }
-
-        if (analyzer.getEvents().isEmpty()) {
-            return;
-        }
-
-        MainWindow window = new MainWindow(master);
-        window.setVisible(true);
-        window.setStatus("Loading...");
-        TraceReader reader = new CustomTraceReader(analyzer);
-        long size = analyzer.getEvents().size();
+    private void transform(CustomTraceReader reader) {
         String file = "Transformed trace [" + analyzer.getArchitecture().getName() + "]";
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                try {
-                    window.load(reader, size, file);
-                } catch (IOException ex) {
-                    MessageBox.showError(window, ex);
-                    window.dispose();
+        EventQueue.invokeLater(() -> {
+            MainWindow window = new MainWindow(master);
+            window.setVisible(true);
+            window.setStatus("Loading...");
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    try {
+                        // the number of events is not known while the source trace is analyzed
+                        window.load(reader, 0, file);
+                    } catch (IOException ex) {
+                        MessageBox.showError(window, ex);
+                        window.dispose();
+                    } finally {
+                        reader.cancel();
+                    }
+                    return null;
                 }
-                return null;
-            }
-        };
-        worker.execute();
+            };
+            worker.execute();
+        });
     }
 }
@@ -429,7 +429,7 @@ public class Parser {
     }
 
     private Function func() {
-        symtab.enter();
+        symtab.enterFunction();
         Type rettype = type();
         check(ident);
         String name = t.str;
@@ -448,12 +448,14 @@ public class Parser {
                 }
             }
             check(rbrace);
-            symtab.leave();
-            return new Function(name, rettype, argtypes, argvars, body);
+            Function func = new Function(name, rettype, argtypes, argvars, body);
+            func.setFrameSize(symtab.leaveFunction());
+            return func;
         } else {
             check(semicolon);
-            symtab.leave();
-            return new Function(name, rettype, argtypes, argvars);
+            Function func = new Function(name, rettype, argtypes, argvars);
+            func.setFrameSize(symtab.leaveFunction());
+            return func;
         }
     }
 
@@ -781,27 +783,27 @@ public class Parser {
             switch (sym) {
                 case gt:
                     scan();
-                    result = new GtNode(result, rel());
+                    result = GtNode.create(result, rel());
                     break;
                 case lt:
                     scan();
-                    result = new LtNode(result, rel());
+                    result = LtNode.create(result, rel());
                     break;
                 case eql:
                     scan();
-                    result = new EqNode(result, rel());
+                    result = EqNode.create(result, rel());
                     break;
                 case neq:
                     scan();
-                    result = new NeNode(result, rel());
+                    result = NeNode.create(result, rel());
                     break;
                 case geq:
                     scan();
-                    result = new GeNode(result, rel());
+                    result = GeNode.create(result, rel());
                     break;
                 case leq:
                     scan();
-                    result = new LeNode(result, rel());
+                    result = LeNode.create(result, rel());
                     break;
                 default:
                     return result;
@@ -813,7 +815,7 @@ public class Parser {
         Expression result = or();
         while (sym == bitor) {
             scan();
-            result = new OrNode(result, or());
+            result = OrNode.create(result, or());
         }
         return result;
     }
@@ -822,7 +824,7 @@ public class Parser {
         Expression result = xor();
         while (sym == xor) {
             scan();
-            result = new XorNode(result, xor());
+            result = XorNode.create(result, xor());
         }
         return result;
     }
@@ -831,7 +833,7 @@ public class Parser {
         Expression result = and();
         while (sym == bitand) {
             scan();
-            result = new AndNode(result, and());
+            result = AndNode.create(result, and());
         }
         return result;
     }
@@ -841,9 +843,9 @@ public class Parser {
         while (sym == plus || sym == minus) {
             scan();
             if (t.type == plus) {
-                result = new AddNode(result, sum());
+                result = AddNode.create(result, sum());
             } else {
-                result = new SubNode(result, sum());
+                result = SubNode.create(result, sum());
             }
         }
         return result;
@@ -854,11 +856,11 @@ public class Parser {
         while (sym == times || sym == slash || sym == rem) {
             scan();
             if (t.type == times) {
-                result = new MulNode(result, shift());
+                result = MulNode.create(result, shift());
             } else if (t.type == slash) {
-                result = new DivNode(result, shift());
+                result = DivNode.create(result, shift());
             } else {
-                result = new RemNode(result, shift());
+                result = RemNode.create(result, shift());
             }
         }
         return result;
@@ -869,9 +871,9 @@ public class Parser {
         while (sym == shl || sym == shr) {
             scan();
             if (t.type == shl) {
-                result = new ShlNode(result, factor());
+                result = ShlNode.create(result, factor());
             } else {
-                result = new ShrNode(result, factor());
+                result = ShrNode.create(result, factor());
             }
         }
         return result;
@@ -24,9 +24,11 @@ public class SymbolTable {
     private final ErrorHandler errors;
     private final Map<String, Function> functions = new HashMap<>();
     private Scope scope = new Scope(null);
+    private int frameSize = 0;
 
     public SymbolTable(ErrorHandler errors) {
         this.errors = errors;
+        errorvar.setSlot(0);
     }
 
     public Function getFunction(String name) {
@@ -37,11 +39,31 @@ public class SymbolTable {
         if (functions.containsKey(function.getName())) {
             Function func = functions.get(function.getName());
             func.setArguments(function.getArguments());
+            func.setFrameSize(Math.max(func.getFrameSize(), function.getFrameSize()));
         } else {
             functions.put(function.getName(), function);
         }
     }
 
+    /**
+     * Start a new function. Every variable defined until the next call gets its own slot in the
+     * frame of this function.
+     */
+    public void enterFunction() {
+        enter();
+        frameSize = 0;
+    }
+
+    /**
+     * Leave the current function.
+     *
+     * @return the number of slots used by the function
+     */
+    public int leaveFunction() {
+        leave();
+        return frameSize;
+    }
+
     public void enter() {
         scope = new Scope(scope);
     }
@@ -60,6 +82,7 @@ public class SymbolTable {
             errors.error(Message.REDEFINE_SYMBOL, name);
             return errorvar;
         }
+        var.setSlot(frameSize++);
         scope.syms.put(name, var);
         return var;
     }
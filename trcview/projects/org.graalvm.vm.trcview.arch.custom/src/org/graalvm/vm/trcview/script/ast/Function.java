@@ -16,6 +16,7 @@ public class Function {
     private final Type returnType;
     private final List<Type> argTypes;
     private final boolean vararg;
+    private int frameSize = 0;
 
     public Function(String name, Type returnType, List<Type> argTypes, List<Variable> args, List<Statement> body) {
         this.name = name;
@@ -56,6 +57,14 @@ public class Function {
         return args;
     }
 
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public void setFrameSize(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
     public void setArguments(List<Variable> args) {
         if (args.size() != this.args.size() && !(vararg && args.size() >= this.args.size())) {
             throw new IllegalArgumentException(name + ": invalid number of arguments");
@@ -65,7 +74,7 @@ public class Function {
     }
 
     public long execute(Context ctx, Object... arguments) {
-        Context nctx = new Context(ctx);
+        Context nctx = new Context(ctx, frameSize);
         if (arguments.length != args.size()) {
             throw new IllegalArgumentException(name + ": invalid number of arguments");
         }
@@ -89,7 +98,7 @@ public class Function {
     }
 
     public Pointer executePointer(Context ctx, Object... arguments) {
-        Context nctx = new Context(ctx);
+        Context nctx = new Context(ctx, frameSize);
         if (arguments.length != args.size()) {
             throw new IllegalArgumentException(name + ": invalid number of arguments");
         }
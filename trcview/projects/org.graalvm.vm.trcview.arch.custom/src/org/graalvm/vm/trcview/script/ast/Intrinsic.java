@@ -21,7 +21,10 @@ public abstract class Intrinsic extends Function {
         List<Variable> vars = new ArrayList<>();
         int i = 1;
         for (Type type : argTypes) {
-            vars.add(new Variable("a" + i++, type));
+            Variable var = new Variable("a" + i, type);
+            var.setSlot(i - 1);
+            vars.add(var);
+            i++;
         }
         return vars;
     }
@@ -5,6 +5,7 @@ import org.graalvm.vm.trcview.script.type.Type;
 public class Variable {
     private final String name;
     private final Type type;
+    private int slot = -1;
 
     public Variable(String name, Type type) {
         this.name = name;
@@ -18,4 +19,16 @@ public class Variable {
     public Type getType() {
         return type;
     }
+
+    /**
+     * Index of the variable in the frame of its function, or -1 if the variable was not defined by
+     * the parser.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
@@ -10,6 +10,10 @@ public class ConstantNode extends Expression {
         this.value = value;
     }
 
+    public long getValue() {
+        return value;
+    }
+
     @Override
     public long execute(Context ctx) {
         return value;
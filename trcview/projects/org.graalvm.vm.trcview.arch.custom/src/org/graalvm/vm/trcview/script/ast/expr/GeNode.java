@@ -12,8 +12,36 @@ public class GeNode extends Expression {
         this.right = right;
     }
 
+    public static Expression create(Expression left, Expression right) {
+        if (right instanceof ConstantNode) {
+            long b = ((ConstantNode) right).getValue();
+            if (left instanceof ConstantNode) {
+                long a = ((ConstantNode) left).getValue();
+                return new ConstantNode(a >= b ? 1 : 0);
+            }
+            return new Constant(left, b);
+        }
+        return new GeNode(left, right);
+    }
+
     @Override
     public long execute(Context ctx) {
         return left.execute(ctx) >= right.execute(ctx) ? 1 : 0;
     }
+
+    private static final class Constant extends Expression {
+        private final Expression left;
+        private final long b;
+
+        Constant(Expression left, long b) {
+            this.left = left;
+            this.b = b;
+        }
+
+        @Override
+        public long execute(Context ctx) {
+            long a = left.execute(ctx);
+            return a >= b ? 1 : 0;
+        }
+    }
 }
@@ -12,6 +12,18 @@ public class ShlNode extends Expression {
         this.right = right;
     }
 
+    public static Expression create(Expression left, Expression right) {
+        if (right instanceof ConstantNode) {
+            long b = ((ConstantNode) right).getValue();
+            if (left instanceof ConstantNode) {
+                long a = ((ConstantNode) left).getValue();
+                return new ConstantNode(a << b);
+            }
+            return new Constant(left, b);
+        }
+        return new ShlNode(left, right);
+    }
+
     @Override
     public long execute(Context ctx) {
         long val = left.execute(ctx);
@@ -19,4 +31,19 @@ public class ShlNode extends Expression {
         return val << shift;
     }
 
+    private static final class Constant extends Expression {
+        private final Expression left;
+        private final long b;
+
+        Constant(Expression left, long b) {
+            this.left = left;
+            this.b = b;
+        }
+
+        @Override
+        public long execute(Context ctx) {
+            long a = left.execute(ctx);
+            return a << b;
+        }
+    }
 }
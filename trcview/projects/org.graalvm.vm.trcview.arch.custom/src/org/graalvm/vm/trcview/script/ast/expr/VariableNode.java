@@ -9,9 +9,34 @@ import org.graalvm.vm.trcview.script.type.Type;
 
 public class VariableNode extends Expression {
     private final Variable var;
+    // values are narrowed to the type of the variable by shifting them left and right again
+    private final int shift;
+    private final boolean unsigned;
 
     public VariableNode(Variable var) {
         this.var = var;
+        if (var.getType() instanceof PrimitiveType) {
+            PrimitiveType type = (PrimitiveType) var.getType();
+            unsigned = type.isUnsigned();
+            switch (type.getBasicType()) {
+                case CHAR:
+                    shift = 56;
+                    break;
+                case SHORT:
+                    shift = 48;
+                    break;
+                case INT:
+                    shift = 32;
+                    break;
+                case LONG:
+                default:
+                    shift = 0;
+                    break;
+            }
+        } else {
+            unsigned = false;
+            shift = 0;
+        }
     }
 
     public Type getType() {
@@ -20,30 +45,11 @@ public class VariableNode extends Expression {
 
     @Override
     public long execute(Context ctx) {
-        PrimitiveType type = (PrimitiveType) var.getType();
         long val = ctx.get(var);
-        switch (type.getBasicType()) {
-            case CHAR:
-                if (type.isUnsigned()) {
-                    return Byte.toUnsignedLong((byte) val);
-                } else {
-                    return (byte) val;
-                }
-            case SHORT:
-                if (type.isUnsigned()) {
-                    return Short.toUnsignedLong((short) val);
-                } else {
-                    return (short) val;
-                }
-            case INT:
-                if (type.isUnsigned()) {
-                    return Integer.toUnsignedLong((int) val);
-                } else {
-                    return (int) val;
-                }
-            case LONG:
-            default:
-                return val;
+        if (unsigned) {
+            return (val << shift) >>> shift;
+        } else {
+            return (val << shift) >> shift;
         }
     }
 
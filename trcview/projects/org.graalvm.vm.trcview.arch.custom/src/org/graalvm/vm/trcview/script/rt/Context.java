@@ -1,36 +1,63 @@
 package org.graalvm.vm.trcview.script.rt;
 
+import java.util.Arrays;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.graalvm.vm.trcview.script.SymbolTable;
 import org.graalvm.vm.trcview.script.ast.Variable;
 
+/**
+ * Frame of a function call. Variables are stored in arrays indexed by {@link Variable#getSlot()},
+ * the arrays grow on demand if the frame was created without knowing the number of slots.
+ */
 public class Context {
+    private static final long[] NO_VARS = new long[0];
+    private static final Pointer[] NO_POINTERS = new Pointer[0];
+
     private final Context parent;
     private final SymbolTable symtab;
-    private final Map<Variable, Long> vars = new IdentityHashMap<>();
-    private final Map<Variable, Pointer> structvars = new IdentityHashMap<>();
-    private final Map<Variable, Long> globals = new IdentityHashMap<>();
+    private long[] vars;
+    private Pointer[] structvars;
+    private Map<Variable, Long> globals;
 
     public Context() {
         parent = null;
         symtab = null;
+        vars = NO_VARS;
+        structvars = NO_POINTERS;
     }
 
     public Context(SymbolTable symtab) {
         this.parent = null;
         this.symtab = symtab;
+        vars = NO_VARS;
+        structvars = NO_POINTERS;
     }
 
     public Context(Context parent) {
+        this(parent, 0);
+    }
+
+    public Context(Context parent, int slots) {
         this.parent = parent;
         this.symtab = parent.symtab;
+        if (slots == 0) {
+            vars = NO_VARS;
+            structvars = NO_POINTERS;
+        } else {
+            vars = new long[slots];
+            structvars = new Pointer[slots];
+        }
     }
 
     public long getGlobal(Variable var) {
         if (parent == null) {
-            return globals.get(var);
+            if (globals == null) {
+                return 0;
+            }
+            Long value = globals.get(var);
+            return value == null ? 0 : value;
         } else {
             return parent.getGlobal(var);
         }
@@ -38,25 +65,50 @@ public class Context {
 
     public void setGlobal(Variable var, long value) {
         if (parent == null) {
+            if (globals == null) {
+                globals = new IdentityHashMap<>();
+            }
             globals.put(var, value);
         } else {
             parent.setGlobal(var, value);
         }
     }
 
+    private void grow(int slot) {
+        int size = Math.max(slot + 1, vars.length * 2);
+        vars = Arrays.copyOf(vars, size);
+        structvars = Arrays.copyOf(structvars, size);
+    }
+
     public long get(Variable var) {
-        return vars.get(var);
+        int slot = var.getSlot();
+        if (slot >= vars.length) {
+            return 0;
+        }
+        return vars[slot];
     }
 
     public Pointer getPointer(Variable var) {
-        return structvars.get(var);
+        int slot = var.getSlot();
+        if (slot >= structvars.length) {
+            return null;
+        }
+        return structvars[slot];
     }
 
     public void setPointer(Variable var, Pointer ptr) {
-        structvars.put(var, ptr);
+        int slot = var.getSlot();
+        if (slot >= structvars.length) {
+            grow(slot);
+        }
+        structvars[slot] = ptr;
     }
 
     public void set(Variable var, long value) {
-        vars.put(var, value);
+        int slot = var.getSlot();
+        if (slot >= vars.length) {
+            grow(slot);
+        }
+        vars[slot] = value;
     }
 }
@@ -2,5 +2,8 @@ package org.graalvm.vm.trcview.script.rt;
 
 @SuppressWarnings("serial")
 public class ControlFlowException extends RuntimeException {
-
+    public ControlFlowException() {
+        // thrown for every return statement, a stack trace is never used
+        super(null, null, false, false);
+    }
 }
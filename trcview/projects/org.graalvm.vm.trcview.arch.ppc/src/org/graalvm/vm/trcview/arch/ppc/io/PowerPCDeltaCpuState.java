@@ -2,200 +2,128 @@ package org.graalvm.vm.trcview.arch.ppc.io;
 
 import java.io.IOException;
 
-import org.graalvm.vm.trcview.arch.io.CpuDeltaState;
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
 import org.graalvm.vm.util.io.Endianess;
 import org.graalvm.vm.util.io.WordInputStream;
 
-public class PowerPCDeltaCpuState extends PowerPCCpuState implements CpuDeltaState<PowerPCCpuState> {
-    private final int MASK_LR = bit(0);
-    private final int MASK_CTR = bit(1);
-    private final int MASK_CR = bit(2);
-    private final int MASK_XER = bit(3);
-    private final int MASK_FPSCR = bit(4);
-    private final int MASK_SRR0 = bit(5);
-    private final int MASK_SRR1 = bit(6);
-    // private final int MASK_MSR = bit(5);
+public class PowerPCDeltaCpuState extends PowerPCCpuState {
+    private static final int ID_LR = 0;
+    private static final int ID_CTR = 1;
+    private static final int ID_CR = 2;
+    private static final int ID_XER = 3;
+    private static final int ID_FPSCR = 4;
+    private static final int ID_SRR0 = 5;
+    private static final int ID_SRR1 = 6;
+    private static final int ID_GPR0 = 7;
 
-    private final int regmask;
-    private final int gprmask;
-    private final int fprmask;
+    public static final int REGISTER_COUNT = ID_GPR0 + 32;
 
     private final int insn;
     private final int pc;
     private final long step;
 
-    private final byte[] data;
+    private final RegisterStore registers;
+    private final long index;
 
-    private final PowerPCCpuState last;
-
-    public PowerPCDeltaCpuState(WordInputStream in, int tid, PowerPCCpuState last) throws IOException {
+    public PowerPCDeltaCpuState(WordInputStream in, int tid, RegisterStore registers) throws IOException {
         super(tid);
-        this.last = last;
-        regmask = Byte.toUnsignedInt((byte) in.read8bit());
+        this.registers = registers;
+        int regmask = Byte.toUnsignedInt((byte) in.read8bit());
         insn = in.read32bit();
         step = in.read64bit();
         pc = in.read32bit();
-        gprmask = in.read32bit();
-        fprmask = in.read32bit();
+        int gprmask = in.read32bit();
+        int fprmask = in.read32bit();
 
         int size = Integer.bitCount(regmask) + Integer.bitCount(gprmask) + Integer.bitCount(fprmask) * 2;
-        data = new byte[size * 4];
+        byte[] data = new byte[size * 4];
         in.read(data);
-    }
 
-    private int getOffset(int bit, int regType) {
+        index = registers.add();
         int offset = 0;
-        int mask;
-        switch (regType) {
-            case 0:
-                mask = regmask;
-                break;
-            case 1:
-                mask = gprmask;
-                offset = Integer.bitCount(regmask) * 4;
-                break;
-            case 2:
-                mask = fprmask;
-                offset = (Integer.bitCount(regmask) + Integer.bitCount(gprmask)) * 4;
-                break;
-            default:
-                throw new IllegalArgumentException("invalid type: " + regType);
-        }
-
-        if ((mask & bit) != 0) {
-            for (int i = 0; i < 32; i++) {
-                int b = bit(i);
-                if (b == bit) {
-                    return offset;
-                } else if ((mask & b) != 0) {
-                    offset += 4;
+        // the special registers are numbered like the bits of the mask, bit 7 (MSR) is ignored
+        for (int i = 0; i < 8; i++) {
+            if ((regmask & (1 << i)) != 0) {
+                if (i < ID_GPR0) {
+                    registers.set(i, Endianess.get32bitBE(data, offset));
                 }
+                offset += 4;
             }
-            throw new AssertionError("this should be unreachable");
-        } else {
-            return -1;
-        }
-    }
-
-    private static int bit(int i) {
-        return 1 << i;
-    }
-
-    @Override
-    public int getInstruction() {
-        return insn;
-    }
-
-    public int getLR(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_LR, 0);
-        if (offset == -1) {
-            return lastState.getLR();
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
-    }
-
-    public int getCR(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_CR, 0);
-        if (offset == -1) {
-            return lastState.getCR();
-        } else {
-            return Endianess.get32bitBE(data, offset);
         }
-    }
-
-    public int getCTR(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_CTR, 0);
-        if (offset == -1) {
-            return lastState.getCTR();
-        } else {
-            return Endianess.get32bitBE(data, offset);
+        for (int i = 0; i < 32; i++) {
+            if ((gprmask & (1 << i)) != 0) {
+                registers.set(ID_GPR0 + i, Endianess.get32bitBE(data, offset));
+                offset += 4;
+            }
         }
     }
 
-    public int getXER(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_XER, 0);
-        if (offset == -1) {
-            return lastState.getXER();
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
+    /**
+     * Create a view of a state which is already in the register store.
+     */
+    public PowerPCDeltaCpuState(int tid, RegisterStore registers, long index, int insn, int pc, long step) {
+        super(tid);
+        this.registers = registers;
+        this.index = index;
+        this.insn = insn;
+        this.pc = pc;
+        this.step = step;
     }
 
-    public int getFPSCR(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_FPSCR, 0);
-        if (offset == -1) {
-            return lastState.getFPSCR();
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
+    /**
+     * Get the index of the state in the register store.
+     */
+    public long getIndex() {
+        return index;
     }
 
-    public int getGPR(int reg, PowerPCCpuState lastState) {
-        int offset = getOffset(1 << reg, 1);
-        if (offset == -1) {
-            return lastState.getGPR(reg);
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
+    private int get(int id) {
+        return (int) registers.get(id, index);
     }
 
-    public int getSRR0(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_SRR0, 0);
-        if (offset == -1) {
-            return lastState.getSRR0();
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
-    }
-
-    public int getSRR1(PowerPCCpuState lastState) {
-        int offset = getOffset(MASK_SRR1, 0);
-        if (offset == -1) {
-            return lastState.getSRR1();
-        } else {
-            return Endianess.get32bitBE(data, offset);
-        }
+    @Override
+    public int getInstruction() {
+        return insn;
     }
 
     @Override
     public int getLR() {
-        return getLR(last);
+        return get(ID_LR);
     }
 
     @Override
     public int getCR() {
-        return getCR(last);
+        return get(ID_CR);
     }
 
     @Override
     public int getCTR() {
-        return getCTR(last);
+        return get(ID_CTR);
     }
 
     @Override
     public int getXER() {
-        return getXER(last);
+        return get(ID_XER);
     }
 
     @Override
     public int getFPSCR() {
-        return getFPSCR(last);
+        return get(ID_FPSCR);
     }
 
     @Override
     public int getGPR(int reg) {
-        return getGPR(reg, last);
+        return get(ID_GPR0 + reg);
     }
 
     @Override
     public int getSRR0() {
-        return getSRR0(last);
+        return get(ID_SRR0);
     }
 
     @Override
     public int getSRR1() {
-        return getSRR1(last);
+        return get(ID_SRR1);
     }
 
     @Override
@@ -207,9 +135,4 @@ public class PowerPCDeltaCpuState extends PowerPCCpuState implements CpuDeltaSta
     public long getPC() {
         return Integer.toUnsignedLong(pc);
     }
-
-    @Override
-    public PowerPCCpuState resolve(PowerPCCpuState lastState) {
-        return new PowerPCFullCpuState(this, lastState);
-    }
 }
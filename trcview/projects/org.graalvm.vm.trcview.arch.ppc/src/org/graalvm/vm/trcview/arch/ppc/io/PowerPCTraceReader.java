@@ -16,12 +16,16 @@ import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
 import org.graalvm.vm.trcview.arch.io.MmapEvent;
 import org.graalvm.vm.trcview.arch.io.MprotectEvent;
 import org.graalvm.vm.trcview.arch.io.MunmapEvent;
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepMaterializer;
 import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
 import org.graalvm.vm.trcview.arch.ppc.disasm.InstructionFormat;
 import org.graalvm.vm.trcview.arch.ppc.disasm.Opcode;
 import org.graalvm.vm.trcview.io.StandardSymbolTable;
 import org.graalvm.vm.trcview.net.protocol.IO;
 import org.graalvm.vm.util.io.BEInputStream;
+import org.graalvm.vm.util.io.Endianess;
 import org.graalvm.vm.util.io.WordInputStream;
 
 public class PowerPCTraceReader extends ArchTraceReader {
@@ -68,14 +72,35 @@ public class PowerPCTraceReader extends ArchTraceReader {
     private static final byte TYPE_TRAP = 40;
 
     private final WordInputStream in;
+    private final RegisterStore registers = new RegisterStore(PowerPCDeltaCpuState.REGISTER_COUNT);
     private PowerPCStepEvent lastStep;
 
+    // delta states are views into the register store and can be recreated from their index
+    private class Materializer implements StepMaterializer {
+        @Override
+        public long getStateReference(StepEvent step) {
+            if (step instanceof PowerPCDeltaCpuState) {
+                return ((PowerPCDeltaCpuState) step).getIndex();
+            } else {
+                return NONE;
+            }
+        }
+
+        @Override
+        public StepEvent materialize(int tid, long step, long pc, InstructionType type, byte[] machinecode, long state) {
+            PowerPCDeltaCpuState evt = new PowerPCDeltaCpuState(tid, registers, state, Endianess.get32bitBE(machinecode), (int) pc, step);
+            // the type of branches is refined by the reader
+            evt.type = type;
+            return evt;
+        }
+    }
+
+    private final Materializer materializer = new Materializer();
+
     // used to detect mtsrr0/rfi/mtsrr0/rfi sequences
     private static final InstructionFormat insn = new InstructionFormat();
     private Deque<Integer> trapstack = new ArrayDeque<>();
 
-    private int fullstate = 0;
-
     public PowerPCTraceReader(InputStream in) {
         this(new BEInputStream(in));
     }
@@ -129,6 +154,11 @@ public class PowerPCTraceReader extends ArchTraceReader {
         }
     }
 
+    @Override
+    public StepMaterializer getStepMaterializer() {
+        return materializer;
+    }
+
     @Override
     public Event read() throws IOException {
         int type;
@@ -139,15 +169,7 @@ public class PowerPCTraceReader extends ArchTraceReader {
         }
         switch (type) {
             case TYPE_STEP:
-                PowerPCCpuState lastState = lastStep == null ? new PowerPCZeroCpuState(0) : lastStep.getState();
-                PowerPCCpuState cpu = new PowerPCDeltaCpuState(in, 0, lastState);
-                if ((fullstate % 500) == 0) {
-                    lastStep = new PowerPCFullCpuState(cpu);
-                } else {
-                    lastStep = cpu;
-                }
-                fullstate++;
-                fullstate %= 500;
+                lastStep = new PowerPCDeltaCpuState(in, 0, registers);
                 checkTrap(lastStep);
                 return lastStep;
             case TYPE_TRAP:
@@ -2,56 +2,40 @@ package org.graalvm.vm.trcview.arch.riscv.io;
 
 import java.io.IOException;
 
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
 import org.graalvm.vm.util.io.Endianess;
 import org.graalvm.vm.util.io.WordInputStream;
 
 public class RiscVDeltaCpuState64 extends RiscVCpuState {
-    private final int gprmask;
-
     private final int insn;
     private final long pc;
     private final long step;
 
-    private final byte[] data;
-
-    private final RiscVCpuState last;
+    private final RegisterStore registers;
+    private final long index;
 
-    public RiscVDeltaCpuState64(WordInputStream in, int tid, RiscVCpuState last) throws IOException {
+    public RiscVDeltaCpuState64(WordInputStream in, int tid, RegisterStore registers) throws IOException {
         super(tid);
-        this.last = last;
+        this.registers = registers;
         insn = in.read32bit();
-        gprmask = in.read32bit();
+        int gprmask = in.read32bit();
         step = in.read64bit();
         pc = in.read64bit();
 
         int size = Integer.bitCount(gprmask);
-        data = new byte[size * 8];
+        byte[] data = new byte[size * 8];
         in.read(data);
-    }
 
-    private int getOffset(int bit) {
+        index = registers.add();
         int offset = 0;
-        int mask = gprmask;
-
-        if ((mask & bit) != 0) {
-            for (int i = 0; i < 32; i++) {
-                int b = bit(i);
-                if (b == bit) {
-                    return offset;
-                } else if ((mask & b) != 0) {
-                    offset += 8;
-                }
+        for (int i = 0; i < 32; i++) {
+            if ((gprmask & (1 << i)) != 0) {
+                registers.set(i, Endianess.get64bitLE(data, offset));
+                offset += 8;
             }
-            throw new AssertionError("this should be unreachable");
-        } else {
-            return -1;
         }
     }
 
-    private static int bit(int i) {
-        return 1 << i;
-    }
-
     @Override
     public int getInstruction() {
         return insn;
@@ -59,12 +43,7 @@ public class RiscVDeltaCpuState64 extends RiscVCpuState {
 
     @Override
     public long getGPR(int reg) {
-        int offset = getOffset(1 << reg);
-        if (offset == -1) {
-            return last.getGPR(reg);
-        } else {
-            return Endianess.get64bitLE(data, offset);
-        }
+        return registers.get(reg, index);
     }
 
     @Override
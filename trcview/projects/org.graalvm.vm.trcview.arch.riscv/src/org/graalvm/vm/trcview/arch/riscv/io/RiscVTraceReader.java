@@ -14,6 +14,7 @@ import org.graalvm.vm.trcview.arch.io.MemoryEventI16;
 import org.graalvm.vm.trcview.arch.io.MemoryEventI32;
 import org.graalvm.vm.trcview.arch.io.MemoryEventI8;
 import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
 import org.graalvm.vm.trcview.net.protocol.IO;
 import org.graalvm.vm.util.HexFormatter;
 import org.graalvm.vm.util.io.LEInputStream;
@@ -37,16 +38,13 @@ public class RiscVTraceReader extends ArchTraceReader {
     public static final int TYPE_DUMP = 0xD;
     public static final int TYPE_MMAP = 0x0E;
 
-    private static final int FULL_STEPS = 1000;
-
     private static final Logger log = Trace.create(RiscVTraceReader.class);
 
     private final WordInputStream in;
+    private final RegisterStore registers = new RegisterStore(32);
     private RiscVStepEvent lastStep;
     private int tid = 0;
 
-    private int fullstate = 0;
-
     public RiscVTraceReader(InputStream in) {
         this(new LEInputStream(in));
     }
@@ -73,27 +71,11 @@ public class RiscVTraceReader extends ArchTraceReader {
         }
         switch (magic) {
             case TYPE_STEP32: {
-                RiscVCpuState lastState = lastStep == null ? new RiscVZeroCpuState(0) : lastStep.getState();
-                RiscVCpuState cpu = new RiscVDeltaCpuState32(in, tid, lastState);
-                if ((fullstate % FULL_STEPS) == 0) {
-                    lastStep = new RiscVFullCpuState(cpu);
-                } else {
-                    lastStep = cpu;
-                }
-                fullstate++;
-                fullstate %= FULL_STEPS;
+                lastStep = new RiscVDeltaCpuState32(in, tid, registers);
                 return lastStep;
             }
             case TYPE_STEP64: {
-                RiscVCpuState lastState = lastStep == null ? new RiscVZeroCpuState(0) : lastStep.getState();
-                RiscVCpuState cpu = new RiscVDeltaCpuState64(in, tid, lastState);
-                if ((fullstate % FULL_STEPS) == 0) {
-                    lastStep = new RiscVFullCpuState(cpu);
-                } else {
-                    lastStep = cpu;
-                }
-                fullstate++;
-                fullstate %= FULL_STEPS;
+                lastStep = new RiscVDeltaCpuState64(in, tid, registers);
                 return lastStep;
             }
             case TYPE_TRAP:
@@ -11,6 +11,7 @@ import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.trcview.arch.x86.decode.AMD64Disassembler;
 import org.graalvm.vm.trcview.arch.x86.decode.AMD64SyscallDecoder;
+import org.graalvm.vm.trcview.arch.x86.decode.isa.Register;
 import org.graalvm.vm.trcview.arch.x86.io.AMD64TraceReader;
 import org.graalvm.vm.trcview.decode.ABI;
 import org.graalvm.vm.trcview.decode.CallDecoder;
@@ -91,6 +92,28 @@ public class AMD64 extends Architecture {
         return ArchitectureTypeInfo.LP64;
     }
 
+    @Override
+    public String[] getRegisterNames() {
+        return new String[]{"rax", "rbx", "rcx", "rdx", "rbp", "rsp", "rsi", "rdi", "r8", "r9", "r10", "r11", "r12", "r13", "r14", "r15", "rflags"};
+    }
+
+    @Override
+    public int getRegisterId(String name) {
+        // registers are numbered like in the instruction encoding, only full registers have an id
+        String reg = name.toLowerCase();
+        for (Register r : Register.REGISTERS) {
+            if (r.toString().equals(reg)) {
+                return r.getID();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getRegisterCount() {
+        return Register.REGISTERS.length;
+    }
+
     @Override
     public Disassembler getDisassembler(TraceAnalyzer trc) {
         return new AMD64Disassembler(trc);
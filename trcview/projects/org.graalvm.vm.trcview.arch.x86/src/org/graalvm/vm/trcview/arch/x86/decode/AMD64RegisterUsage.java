@@ -0,0 +1,57 @@
+package org.graalvm.vm.trcview.arch.x86.decode;
+
+import org.graalvm.vm.trcview.arch.x86.decode.isa.AMD64Instruction;
+import org.graalvm.vm.trcview.arch.x86.decode.isa.Register;
+
+/**
+ * Maps the general purpose registers used by a decoded instruction to the register ids of
+ * {@link org.graalvm.vm.trcview.arch.x86.AMD64#getRegisterId(String)}.
+ */
+public class AMD64RegisterUsage {
+    private static final int GPR_COUNT = Register.REGISTERS.length;
+
+    /**
+     * Get the registers read by the instruction, including the registers used for address
+     * computation. A write to an 8 or 16 bit register keeps the other bits of the full register, so
+     * it is also a read of the full register.
+     */
+    public static int[] getRegisterReads(AMD64Instruction insn) {
+        int mask = 0;
+        for (Register reg : insn.getUsedGPRRead()) {
+            mask |= bit(reg);
+        }
+        for (Register reg : insn.getPartialGPRWrite()) {
+            mask |= bit(reg);
+        }
+        return ids(mask);
+    }
+
+    public static int[] getRegisterWrites(AMD64Instruction insn) {
+        int mask = 0;
+        for (Register reg : insn.getUsedGPRWrite()) {
+            mask |= bit(reg);
+        }
+        return ids(mask);
+    }
+
+    private static int bit(Register reg) {
+        int id = reg.getID();
+        if (id < GPR_COUNT) {
+            return 1 << id;
+        } else {
+            // instruction pointer
+            return 0;
+        }
+    }
+
+    private static int[] ids(int mask) {
+        int[] result = new int[Integer.bitCount(mask)];
+        int n = 0;
+        for (int id = 0; id < GPR_COUNT; id++) {
+            if ((mask & (1 << id)) != 0) {
+                result[n++] = id;
+            }
+        }
+        return result;
+    }
+}
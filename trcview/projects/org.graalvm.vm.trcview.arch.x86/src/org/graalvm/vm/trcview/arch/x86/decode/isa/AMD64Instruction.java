@@ -107,6 +107,23 @@ public abstract class AMD64Instruction {
         return regs.toArray(new Register[regs.size()]);
     }
 
+    /**
+     * Get the 8 and 16 bit registers written by this instruction. A write to such a register keeps
+     * the remaining bits of the full register.
+     */
+    public Register[] getPartialGPRWrite() {
+        Set<Register> regs = new HashSet<>();
+        for (Operand operand : gprWriteOperands) {
+            if (operand instanceof RegisterOperand) {
+                Register reg = ((RegisterOperand) operand).getRegister();
+                if (reg != null && reg.getSize() < 4) {
+                    regs.add(reg.getRegister());
+                }
+            }
+        }
+        return regs.toArray(new Register[regs.size()]);
+    }
+
     public boolean isControlFlow() {
         return false;
     }
@@ -40,11 +40,15 @@
  */
 package org.graalvm.vm.trcview.arch.x86.decode.isa.instruction;
 
+import java.util.Arrays;
+
 import org.graalvm.vm.trcview.arch.x86.decode.isa.AMD64Instruction;
+import org.graalvm.vm.trcview.arch.x86.decode.isa.Register;
 import org.graalvm.vm.trcview.disasm.AssemblerInstruction;
 
 public class Rep extends AMD64Instruction {
     private final AssemblerInstruction disasm;
+    private final AMD64Instruction insn;
 
     public Rep(long pc, byte[] instruction, AMD64Instruction insn) {
         this(pc, instruction, "rep", insn);
@@ -52,6 +56,7 @@ public class Rep extends AMD64Instruction {
 
     protected Rep(long pc, byte[] instruction, String name, AMD64Instruction insn) {
         super(pc, instruction);
+        this.insn = insn;
         AssemblerInstruction asm = insn.getAssemblerInstruction();
         disasm = new AssemblerInstruction(name + " " + asm.getMnemonic(), asm.getOperands());
     }
@@ -68,6 +73,33 @@ public class Rep extends AMD64Instruction {
         }
     }
 
+    private static Register[] withCount(Register[] regs) {
+        // the prefixed string instruction uses rcx as counter
+        for (Register reg : regs) {
+            if (reg == Register.RCX) {
+                return regs;
+            }
+        }
+        Register[] result = Arrays.copyOf(regs, regs.length + 1);
+        result[regs.length] = Register.RCX;
+        return result;
+    }
+
+    @Override
+    public Register[] getUsedGPRRead() {
+        return withCount(insn.getUsedGPRRead());
+    }
+
+    @Override
+    public Register[] getUsedGPRWrite() {
+        return withCount(insn.getUsedGPRWrite());
+    }
+
+    @Override
+    public Register[] getPartialGPRWrite() {
+        return insn.getPartialGPRWrite();
+    }
+
     @Override
     protected AssemblerInstruction disassemble() {
         return disasm;
@@ -281,6 +281,46 @@ public abstract class AMD64CpuState extends AMD64StepEvent implements CpuState {
         }
     }
 
+    @Override
+    public long getRegisterById(int id) {
+        switch (id) {
+            case ID_RAX:
+                return getRAX();
+            case ID_RCX:
+                return getRCX();
+            case ID_RDX:
+                return getRDX();
+            case ID_RBX:
+                return getRBX();
+            case ID_RSP:
+                return getRSP();
+            case ID_RBP:
+                return getRBP();
+            case ID_RSI:
+                return getRSI();
+            case ID_RDI:
+                return getRDI();
+            case ID_R8:
+                return getR8();
+            case ID_R9:
+                return getR9();
+            case ID_R10:
+                return getR10();
+            case ID_R11:
+                return getR11();
+            case ID_R12:
+                return getR12();
+            case ID_R13:
+                return getR13();
+            case ID_R14:
+                return getR14();
+            case ID_R15:
+                return getR15();
+            default:
+                throw new IllegalArgumentException("unknown register " + id);
+        }
+    }
+
     private static StringBuilder formatRegLine(StringBuilder buf, String[] names, long[] values) {
         for (int i = 0; i < names.length; i++) {
             if (i > 0) {
@@ -2,9 +2,14 @@ package org.graalvm.vm.trcview.arch.x86.io;
 
 import java.io.IOException;
 
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
 import org.graalvm.vm.util.Vector128;
 import org.graalvm.vm.util.io.WordInputStream;
 
+/**
+ * A CPU state which only stores RIP; all other registers are read from the {@link RegisterStore}
+ * of the trace reader.
+ */
 public class AMD64DeltaCpuState extends AMD64CpuState {
     public static final int ID_RAX = 0;
     public static final int ID_RCX = 1;
@@ -25,74 +30,104 @@ public class AMD64DeltaCpuState extends AMD64CpuState {
     public static final int ID_FS = 16;
     public static final int ID_GS = 17;
     public static final int ID_RFL = 18;
+    public static final int ID_XMM0 = 19;
 
-    private final AMD64CpuState previous;
-    private final long regMask;
+    public static final int REGISTER_COUNT = ID_XMM0 + 16 * 2;
+
+    private final RegisterStore registers;
+    private final long index;
     private final long rip;
-    private final long[] values;
 
-    public AMD64DeltaCpuState(WordInputStream in, int tid, byte[] machinecode, AMD64StepEvent last) throws IOException {
+    protected AMD64DeltaCpuState(int tid, byte[] machinecode, RegisterStore registers, long rip, long step) {
+        this(tid, machinecode, registers, rip, step, registers.add());
+    }
+
+    /**
+     * Create a view of a state which is already in the register store.
+     */
+    public AMD64DeltaCpuState(int tid, byte[] machinecode, RegisterStore registers, long rip, long step, long index) {
         super(tid, machinecode);
-        previous = last.getState();
+        this.registers = registers;
+        this.rip = rip;
+        this.step = step;
+        this.index = index;
+    }
 
-        rip = in.read64bit();
-        step = in.read64bit();
+    public AMD64DeltaCpuState(WordInputStream in, int tid, byte[] machinecode, RegisterStore registers) throws IOException {
+        this(tid, machinecode, registers, in.read64bit(), in.read64bit());
         int cnt = in.read8bit();
-        values = new long[cnt];
-        long mask = 0;
         for (int i = 0; i < cnt; i++) {
-            mask |= 1L << in.read8bit();
-            values[i] = in.read64bit();
+            int reg = in.read8bit();
+            registers.set(reg, in.read64bit());
         }
-        regMask = mask;
     }
 
-    private boolean has(int i) {
-        return (regMask & (1L << i)) != 0;
-    }
-
-    private int getIdx(int i) {
-        int off = 0;
-        for (int n = 0; n < i; n++) {
-            if ((regMask & (1L << n)) != 0) {
-                off++;
-            }
+    /**
+     * Append all registers of a full state to the register store.
+     */
+    public static void store(RegisterStore registers, AMD64CpuState state) {
+        registers.add();
+        registers.set(ID_RAX, state.getRAX());
+        registers.set(ID_RCX, state.getRCX());
+        registers.set(ID_RDX, state.getRDX());
+        registers.set(ID_RBX, state.getRBX());
+        registers.set(ID_RSP, state.getRSP());
+        registers.set(ID_RBP, state.getRBP());
+        registers.set(ID_RSI, state.getRSI());
+        registers.set(ID_RDI, state.getRDI());
+        registers.set(ID_R8, state.getR8());
+        registers.set(ID_R9, state.getR9());
+        registers.set(ID_R10, state.getR10());
+        registers.set(ID_R11, state.getR11());
+        registers.set(ID_R12, state.getR12());
+        registers.set(ID_R13, state.getR13());
+        registers.set(ID_R14, state.getR14());
+        registers.set(ID_R15, state.getR15());
+        registers.set(ID_FS, state.getFS());
+        registers.set(ID_GS, state.getGS());
+        registers.set(ID_RFL, state.getRFL());
+        for (int i = 0; i < 16; i++) {
+            Vector128 xmm = state.getXMM(i);
+            registers.set(ID_XMM0 + i * 2, xmm.getI64(0));
+            registers.set(ID_XMM0 + i * 2 + 1, xmm.getI64(1));
         }
-        return off;
     }
 
-    private long get(int i) {
-        return values[getIdx(i)];
+    /**
+     * Get the index of the state in the register store.
+     */
+    public long getIndex() {
+        return index;
     }
 
     @Override
     public long getRAX() {
-        return has(ID_RAX) ? get(ID_RAX) : previous.getRAX();
+        return registers.get(ID_RAX, index);
     }
 
     @Override
     public long getRBX() {
-        return has(ID_RBX) ? get(ID_RBX) : previous.getRBX();
+        return registers.get(ID_RBX, index);
     }
 
     @Override
     public long getRCX() {
-        return has(ID_RCX) ? get(ID_RCX) : previous.getRCX();
+        return registers.get(ID_RCX, index);
     }
 
     @Override
     public long getRDX() {
-        return has(ID_RDX) ? get(ID_RDX) : previous.getRDX();
+        return registers.get(ID_RDX, index);
     }
 
     @Override
     public long getRBP() {
-        return has(ID_RBP) ? get(ID_RBP) : previous.getRBP();
+        return registers.get(ID_RBP, index);
     }
 
     @Override
     public long getRSP() {
-        return has(ID_RSP) ? get(ID_RSP) : previous.getRSP();
+        return registers.get(ID_RSP, index);
     }
 
     @Override
@@ -102,78 +137,72 @@ public class AMD64DeltaCpuState extends AMD64CpuState {
 
     @Override
     public long getRSI() {
-        return has(ID_RSI) ? get(ID_RSI) : previous.getRSI();
+        return registers.get(ID_RSI, index);
     }
 
     @Override
     public long getRDI() {
-        return has(ID_RDI) ? get(ID_RDI) : previous.getRDI();
+        return registers.get(ID_RDI, index);
     }
 
     @Override
     public long getR8() {
-        return has(ID_R8) ? get(ID_R8) : previous.getR8();
+        return registers.get(ID_R8, index);
     }
 
     @Override
     public long getR9() {
-        return has(ID_R9) ? get(ID_R9) : previous.getR9();
+        return registers.get(ID_R9, index);
     }
 
     @Override
     public long getR10() {
-        return has(ID_R10) ? get(ID_R10) : previous.getR10();
+        return registers.get(ID_R10, index);
     }
 
     @Override
     public long getR11() {
-        return has(ID_R11) ? get(ID_R11) : previous.getR11();
+        return registers.get(ID_R11, index);
     }
 
     @Override
     public long getR12() {
-        return has(ID_R12) ? get(ID_R12) : previous.getR12();
+        return registers.get(ID_R12, index);
     }
 
     @Override
     public long getR13() {
-        return has(ID_R13) ? get(ID_R13) : previous.getR13();
+        return registers.get(ID_R13, index);
     }
 
     @Override
     public long getR14() {
-        return has(ID_R14) ? get(ID_R14) : previous.getR14();
+        return registers.get(ID_R14, index);
     }
 
     @Override
     public long getR15() {
-        return has(ID_R15) ? get(ID_R15) : previous.getR15();
+        return registers.get(ID_R15, index);
     }
 
     @Override
     public long getRFL() {
-        return has(ID_RFL) ? get(ID_RFL) : previous.getRFL();
+        return registers.get(ID_RFL, index);
     }
 
     @Override
     public long getFS() {
-        return has(ID_FS) ? get(ID_FS) : previous.getFS();
+        return registers.get(ID_FS, index);
     }
 
     @Override
     public long getGS() {
-        return has(ID_GS) ? get(ID_GS) : previous.getGS();
+        return registers.get(ID_GS, index);
     }
 
     @Override
     public Vector128 getXMM(int i) {
-        int id = 19 + i * 2;
-        if (has(id)) {
-            long hi = get(id + 0);
-            long lo = get(id + 1);
-            return new Vector128(hi, lo);
-        } else {
-            return previous.getXMM(i);
-        }
+        int id = ID_XMM0 + i * 2;
+        return new Vector128(registers.get(id, index), registers.get(id + 1, index));
     }
 }
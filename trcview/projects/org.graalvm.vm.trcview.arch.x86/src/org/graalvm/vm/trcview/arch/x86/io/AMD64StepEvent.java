@@ -6,6 +6,7 @@ import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.trcview.arch.x86.AMD64;
 import org.graalvm.vm.trcview.arch.x86.decode.AMD64Disassembler;
+import org.graalvm.vm.trcview.arch.x86.decode.AMD64RegisterUsage;
 import org.graalvm.vm.trcview.arch.x86.decode.isa.AMD64Instruction;
 import org.graalvm.vm.trcview.arch.x86.decode.isa.AMD64InstructionDecoder;
 import org.graalvm.vm.trcview.arch.x86.decode.isa.AMD64InstructionQuickInfo;
@@ -77,6 +78,36 @@ public abstract class AMD64StepEvent extends StepEvent {
         }
     }
 
+    @Override
+    public int[] getRegisterReads() {
+        if (machinecode != null) {
+            try {
+                AMD64Instruction insn = getInstruction();
+                if (insn != null) {
+                    return AMD64RegisterUsage.getRegisterReads(insn);
+                }
+            } catch (Throwable t) {
+                // unknown instruction
+            }
+        }
+        return new int[0];
+    }
+
+    @Override
+    public int[] getRegisterWrites() {
+        if (machinecode != null) {
+            try {
+                AMD64Instruction insn = getInstruction();
+                if (insn != null) {
+                    return AMD64RegisterUsage.getRegisterWrites(insn);
+                }
+            } catch (Throwable t) {
+                // unknown instruction
+            }
+        }
+        return new int[0];
+    }
+
     private String code() {
         StringBuilder buf = new StringBuilder(machinecode.length * 4);
         for (byte b : machinecode) {
@@ -3,6 +3,8 @@ package org.graalvm.vm.trcview.arch.x86.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.TreeMap;
 
@@ -15,6 +17,7 @@ import org.graalvm.vm.trcview.arch.io.BrkEvent;
 import org.graalvm.vm.trcview.arch.io.EofEvent;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.GenericMemoryEvent;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
 import org.graalvm.vm.trcview.arch.io.IoEvent;
 import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
 import org.graalvm.vm.trcview.arch.io.MemoryEventI128;
@@ -25,6 +28,9 @@ import org.graalvm.vm.trcview.arch.io.MemoryEventI8;
 import org.graalvm.vm.trcview.arch.io.MmapEvent;
 import org.graalvm.vm.trcview.arch.io.MprotectEvent;
 import org.graalvm.vm.trcview.arch.io.MunmapEvent;
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepMaterializer;
 import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
 import org.graalvm.vm.trcview.arch.io.TraceSymbol;
 import org.graalvm.vm.trcview.arch.x86.decode.Syscalls;
@@ -54,16 +60,32 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
 
     private static final int MAX_STR_SIZE = 16 * 1024 * 1024; // 16MiB
 
-    private static final int MAX_DELTA_LENGTH = 1000;
-
     private WordInputStream in;
 
     private MemoryTrace mem;
     private AMD64StepEvent last;
     private AMD64StepEvent stored;
 
-    private long steps;
-    private AMD64StepEvent lastStep;
+    private final RegisterStore registers = new RegisterStore(AMD64DeltaCpuState.REGISTER_COUNT);
+
+    // delta states are views into the register store and can be recreated from their index
+    private class Materializer implements StepMaterializer {
+        @Override
+        public long getStateReference(StepEvent step) {
+            if (step instanceof AMD64DeltaCpuState) {
+                return ((AMD64DeltaCpuState) step).getIndex();
+            } else {
+                return NONE;
+            }
+        }
+
+        @Override
+        public StepEvent materialize(int tid, long step, long pc, InstructionType type, byte[] machinecode, long state) {
+            return new AMD64DeltaCpuState(tid, machinecode, registers, pc, step, state);
+        }
+    }
+
+    private final Materializer materializer = new Materializer();
 
     public AMD64TraceReader(InputStream in) {
         this(new BEInputStream(in));
@@ -78,6 +100,11 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
         return this;
     }
 
+    @Override
+    public StepMaterializer getStepMaterializer() {
+        return materializer;
+    }
+
     private String str(long addr, long sz, long step) {
         if (sz > 0) {
             int size = (int) sz;
@@ -128,13 +155,7 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
     }
 
     private Event step(AMD64StepEvent record) {
-        steps++;
-        if (steps % MAX_DELTA_LENGTH == 0) {
-            stored = new AMD64FullCpuState(record.getState());
-        } else {
-            stored = record;
-        }
-        lastStep = stored;
+        stored = record;
 
         if (mem != null && last != null) {
             AMD64CpuState state = last.getState();
@@ -150,7 +171,7 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
                         String s = str(addr, size, step);
                         if (s != null) {
                             int ch = file == 2 ? 1 : 0;
-                            return new IoEvent(state.getTid(), step, ch, true, s);
+                            return new IoEvent(state.getTid(), step, ch, true, s, new long[]{addr, size});
                         }
                     }
                 }
@@ -176,6 +197,7 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
                     long size = stored.getState().getRAX();
                     if (size > 0) {
                         StringBuilder buf = new StringBuilder();
+                        List<Long> buffers = new ArrayList<>();
                         for (long sz = 0, i = 0; sz < size; i += 16) {
                             try {
                                 long base = mem.getWord(iov + i, step);
@@ -186,6 +208,8 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
                                     break;
                                 } else {
                                     buf.append(s);
+                                    buffers.add(base);
+                                    buffers.add(remaining < len ? remaining : len);
                                     sz += len;
                                 }
                             } catch (MemoryNotMappedException e) {
@@ -194,7 +218,7 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
                         }
                         if (buf.length() > 0) {
                             int ch = file == 2 ? 1 : 0;
-                            return new IoEvent(state.getTid(), step, ch, true, buf.toString());
+                            return new IoEvent(state.getTid(), step, ch, true, buf.toString(), buffers.stream().mapToLong(Long::longValue).toArray());
                         }
                     }
                 }
@@ -254,21 +278,22 @@ public class AMD64TraceReader extends ArchTraceReader implements Analyzer {
             case TYPE_FULL_STATE: {
                 byte[] machinecode = readMachinecode();
                 AMD64FullCpuState record = new AMD64FullCpuState(in, tid, machinecode);
+                AMD64DeltaCpuState.store(registers, record);
                 return step(record);
             }
             case TYPE_DELTA_STATE: {
                 byte[] machinecode = readMachinecode();
-                AMD64DeltaCpuState record = new AMD64DeltaCpuState(in, tid, machinecode, lastStep);
+                AMD64DeltaCpuState record = new AMD64DeltaCpuState(in, tid, machinecode, registers);
                 return step(record);
             }
             case TYPE_SMALL_DELTA_STATE: {
                 byte[] machinecode = readMachinecode();
-                AMD64SmallDeltaCpuState record = new AMD64SmallDeltaCpuState(in, tid, machinecode, lastStep);
+                AMD64SmallDeltaCpuState record = new AMD64SmallDeltaCpuState(in, tid, machinecode, registers);
                 return step(record);
             }
             case TYPE_TINY_DELTA_STATE: {
                 byte[] machinecode = readMachinecode();
-                AMD64TinyDeltaCpuState record = new AMD64TinyDeltaCpuState(in, tid, machinecode, lastStep);
+                AMD64TinyDeltaCpuState record = new AMD64TinyDeltaCpuState(in, tid, machinecode, registers);
                 return step(record);
             }
             case TYPE_MEMORY: {
@@ -0,0 +1,187 @@
+package org.graalvm.vm.trcview.libtrc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generic trace which is written by several threads at the same time, e.g. by the cores of a
+ * multi-core emulator. Every thread id gets its own {@link GenericTrace} writer with its own delta
+ * state and buffer. The writers submit their records in batches of about {@link #BATCH_SIZE} bytes
+ * to a background thread which appends the batches to the output stream in the order in which they
+ * were submitted. At most {@link #QUEUE_SIZE} batches are queued; if the output stream cannot keep
+ * up, the writers block.
+ * <p>
+ * The command string table is shared by all writers. New strings are written as
+ * {@link GenericTrace#RECORD_STRING} records in front of the first batch which uses them.
+ * <p>
+ * Ordering guarantees:
+ * <ul>
+ * <li>The records of one thread appear in the trace in the order in which they were written, the
+ * records of different threads are interleaved batch by batch.</li>
+ * <li>Every batch starts at a step boundary with a full step, so delta steps are always decoded
+ * against the previous step of the same thread and memory accesses always follow the step they
+ * belong to.</li>
+ * <li>Step numbers have to be ascending within every thread and unique across all threads, e.g.
+ * taken from one global counter. They are not ascending in the file: the batches of different
+ * threads overlap, so the steps of the file jump back, usually by a few batches. The memory trace
+ * of the analysis inserts accesses in step order, the def-use and taint analyses reorder the steps
+ * within a window of recent steps (system property {@code trcview.analysis.window}). A thread which
+ * holds back a partly filled batch for a long time can exceed that window.</li>
+ * </ul>
+ * A writer returned by {@link #getWriter(int)} must only be used by one thread at a time and must
+ * only be flushed between two steps. The trace owns the output stream and has to be closed when it
+ * is complete; like {@link GenericTrace} it is closed with a warning at JVM exit otherwise.
+ */
+public class ConcurrentGenericTrace<T> implements Closeable {
+    public static final int BATCH_SIZE = 64 * 1024;
+    public static final int QUEUE_SIZE = 64;
+
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream out;
+    private final StateSerializer<T> serializer;
+    private final Map<Integer, GenericTrace<T>> writers = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> strings = new ConcurrentHashMap<>();
+    private final AtomicInteger nextString = new AtomicInteger(1);
+    private final Queue<StringDefinition> definitions = new ConcurrentLinkedQueue<>();
+
+    private final BlockingQueue<byte[]> batches = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Thread merger;
+    private volatile IOException error = null;
+    private volatile boolean closed = false;
+
+    private static class StringDefinition {
+        final int id;
+        final String value;
+
+        StringDefinition(int id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    public ConcurrentGenericTrace(OutputStream out, Class<T> state) throws IOException {
+        this.out = out;
+        serializer = new StateSerializer<>(state);
+        GenericTrace<T> header = new GenericTrace<>(out, serializer);
+        header.writeHeader();
+        header.flush();
+        merger = new Thread(this::merge, "libtrc-merger");
+        merger.setDaemon(true);
+        merger.start();
+        OpenTraces.add(this);
+    }
+
+    /**
+     * Get the writer for the thread {@code tid}. The writer is created on first use.
+     */
+    public GenericTrace<T> getWriter(int tid) {
+        if (closed) {
+            throw new IllegalStateException("trace is closed");
+        }
+        return writers.computeIfAbsent(tid, t -> new GenericTrace<>(this, serializer));
+    }
+
+    int getString(String s) {
+        return strings.computeIfAbsent(s, str -> {
+            int id = nextString.getAndIncrement();
+            // queued before the id is used, so the merger writes it before the first use
+            definitions.add(new StringDefinition(id, str));
+            return id;
+        });
+    }
+
+    void submit(byte[] batch) throws IOException {
+        checkError();
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while submitting a batch");
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw new IOException("Error while writing trace: " + error.getMessage(), error);
+        }
+    }
+
+    private void writeDefinitions() throws IOException {
+        StringDefinition def;
+        while ((def = definitions.poll()) != null) {
+            byte[] data = def.value.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buf = ByteBuffer.allocate(11 + data.length);
+            buf.put(GenericTrace.RECORD_STRING);
+            buf.putInt(0);
+            buf.putInt(def.id);
+            buf.putShort((short) data.length);
+            buf.put(data);
+            out.write(buf.array());
+        }
+    }
+
+    private void merge() {
+        while (true) {
+            byte[] batch;
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (batch == END) {
+                return;
+            }
+            // keep draining after an error so that no writer blocks forever
+            if (error == null) {
+                try {
+                    writeDefinitions();
+                    out.write(batch);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submit the remaining records of all writers and close the output stream. No writer may be
+     * in use while the trace is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        OpenTraces.remove(this);
+        try {
+            for (GenericTrace<T> writer : writers.values()) {
+                writer.submit();
+            }
+        } finally {
+            try {
+                batches.put(END);
+                merger.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while closing the trace");
+            } finally {
+                out.close();
+            }
+        }
+        checkError();
+    }
+}
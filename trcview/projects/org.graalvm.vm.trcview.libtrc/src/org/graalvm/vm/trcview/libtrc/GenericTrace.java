@@ -1,7 +1,11 @@
 package org.graalvm.vm.trcview.libtrc;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
@@ -9,10 +13,21 @@ import java.util.List;
 import java.util.Map;
 
 import org.graalvm.vm.posix.elf.Symbol;
-import org.graalvm.vm.util.io.BEOutputStream;
-import org.graalvm.vm.util.io.WordOutputStream;
 
-public class GenericTrace<T> {
+/**
+ * Writer for generic traces. Records are assembled in a reusable buffer of {@link #BUFFER_SIZE}
+ * bytes which is written to the output stream when it is full. The writer owns the output stream:
+ * {@link #close()} has to be called when the trace is complete, otherwise the buffered records are
+ * lost. Writers which are still open when the JVM exits are closed by a shutdown hook which logs a
+ * warning. States are serialized into reusable arrays and delta steps compare the state with the
+ * previous state one 64bit word at a time.
+ * <p>
+ * A writer is not thread safe. Use {@link ConcurrentGenericTrace} to write one trace from several
+ * threads.
+ */
+public class GenericTrace<T> implements Flushable, Closeable {
+    public static final int BUFFER_SIZE = 256 * 1024;
+
     public static final int NUMBERFMT_HEX = 0;
     public static final int NUMBERFMT_OCT = 1;
 
@@ -35,6 +50,7 @@ public class GenericTrace<T> {
     public static final byte RECORD_TRAP = 16;
     public static final byte RECORD_SYMBOLS = 17;
     public static final byte RECORD_ENDIANESS = 18;
+    public static final byte RECORD_STRING = 19;
 
     public static final byte LITTLE_ENDIAN = 0;
     public static final byte BIG_ENDIAN = 1;
@@ -48,16 +64,27 @@ public class GenericTrace<T> {
     public static final byte TYPE_SYSCALL = 6;
     public static final byte TYPE_RTI = 7;
 
-    private final WordOutputStream out;
+    private final OutputStream out;
+    private final ByteBuffer buf;
     private final Map<String, Integer> strings = new HashMap<>();
 
+    // set if this is one of the per thread writers of a concurrent trace
+    private final ConcurrentGenericTrace<T> owner;
+    private final ByteArrayOutputStream pending;
+    private boolean needKeyframe = false;
+
     private final StateSerializer<T> serializer;
+    private final int statesz;
     private final int masklen;
 
     private boolean isBE = true;
 
     private T lastState = null;
-    private byte[] lastSerializedState = null;
+    private byte[] currentSerializedState;
+    private byte[] lastSerializedState;
+    private ByteBuffer currentWords;
+    private ByteBuffer lastWords;
+    private boolean hasSerializedState = false;
 
     private int numberfmt = NUMBERFMT_HEX;
     private int addrwidth = 16;
@@ -65,14 +92,43 @@ public class GenericTrace<T> {
     private int machinecodesz = 1;
 
     public GenericTrace(OutputStream out, Class<T> state) throws IOException {
-        this.out = new BEOutputStream(out);
-        serializer = new StateSerializer<>(state);
-        int mask = serializer.getSize() / 8;
-        if ((serializer.getSize() % 8) != 0) {
+        this(out, new StateSerializer<>(state));
+        writeHeader();
+        OpenTraces.add(this);
+    }
+
+    // header of a concurrent trace
+    GenericTrace(OutputStream out, StateSerializer<T> serializer) {
+        this(out, serializer, null, BUFFER_SIZE);
+    }
+
+    // per thread writer of a concurrent trace
+    GenericTrace(ConcurrentGenericTrace<T> owner, StateSerializer<T> serializer) {
+        this(new ByteArrayOutputStream(), serializer, owner, 2 * ConcurrentGenericTrace.BATCH_SIZE);
+    }
+
+    private GenericTrace(OutputStream out, StateSerializer<T> serializer, ConcurrentGenericTrace<T> owner, int bufsize) {
+        this.out = out;
+        this.serializer = serializer;
+        this.owner = owner;
+        // records which do not fit into the buffer are collected here until the batch is submitted
+        pending = owner != null ? (ByteArrayOutputStream) out : null;
+        buf = ByteBuffer.allocate(bufsize);
+        statesz = serializer.getSize();
+        masklen = getMaskLength(statesz);
+        currentSerializedState = new byte[masklen * 8];
+        lastSerializedState = new byte[masklen * 8];
+        currentWords = ByteBuffer.wrap(currentSerializedState);
+        lastWords = ByteBuffer.wrap(lastSerializedState);
+    }
+
+    // serialized states are padded to full words for the delta computation
+    private static int getMaskLength(int statesz) {
+        int mask = statesz / 8;
+        if ((statesz % 8) != 0) {
             mask++;
         }
-        masklen = mask;
-        writeHeader();
+        return mask;
     }
 
     public void setNumberFormat(int fmt) {
@@ -91,42 +147,73 @@ public class GenericTrace<T> {
         machinecodesz = sz;
     }
 
+    private void flushBuffer() throws IOException {
+        if (buf.position() > 0) {
+            out.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.remaining() < n) {
+            flushBuffer();
+        }
+    }
+
+    private void put(byte[] data) throws IOException {
+        put(data, 0, data.length);
+    }
+
+    private void put(byte[] data, int off, int len) throws IOException {
+        if (buf.remaining() < len) {
+            flushBuffer();
+            if (len > buf.capacity()) {
+                out.write(data, off, len);
+                return;
+            }
+        }
+        buf.put(data, off, len);
+    }
+
     private void write(String s) throws IOException {
+        ensure(2);
         if (s == null) {
-            out.write16bit((short) 0xFFFF);
+            buf.putShort((short) 0xFFFF);
         } else {
             byte[] data = s.getBytes(StandardCharsets.UTF_8);
-            out.write16bit((short) data.length);
-            out.write(data);
+            buf.putShort((short) data.length);
+            put(data);
         }
     }
 
     private void write8(String s) throws IOException {
+        ensure(1);
         if (s == null) {
-            out.write8bit((byte) 0);
+            buf.put((byte) 0);
         } else {
             byte[] data = s.getBytes(StandardCharsets.UTF_8);
-            out.write8bit((byte) data.length);
-            out.write(data);
+            buf.put((byte) data.length);
+            put(data);
         }
     }
 
-    private void writeHeader() throws IOException {
+    void writeHeader() throws IOException {
         byte[] magic = {(byte) 'X', (byte) 'T', (byte) 'R', (byte) 'C', 0, 0};
-        out.write(magic);
+        ensure(14);
+        buf.put(magic);
 
-        out.write8bit((byte) (numberfmt | (isBE ? 0x80 : 0)));
-        out.write8bit((byte) addrwidth);
-        out.write8bit((byte) wordwidth);
-        out.write8bit((byte) machinecodesz);
+        buf.put((byte) (numberfmt | (isBE ? 0x80 : 0)));
+        buf.put((byte) addrwidth);
+        buf.put((byte) wordwidth);
+        buf.put((byte) machinecodesz);
 
-        int statesz = serializer.getSize();
-        out.write16bit((short) statesz);
+        buf.putShort((short) statesz);
         List<StateField> fields = serializer.getLayout();
-        out.write16bit((short) fields.size());
+        buf.putShort((short) fields.size());
         for (StateField field : fields) {
-            out.write16bit((short) field.getOffset());
-            out.write8bit((byte) (field.getType() | (field.getFormat() << 4) | 0x80));
+            ensure(3);
+            buf.putShort((short) field.getOffset());
+            buf.put((byte) (field.getType() | (field.getFormat() << 4) | 0x80));
             write8(field.getName());
         }
 
@@ -143,8 +230,15 @@ public class GenericTrace<T> {
     }
 
     private void writeCmdPart(String s) throws IOException {
+        if (owner != null) {
+            // the owner writes the definition before the batch which uses it
+            ensure(4);
+            buf.putInt(owner.getString(s));
+            return;
+        }
         int id = getString(s);
-        out.write32bit(id);
+        ensure(4);
+        buf.putInt(id);
         if (id == -1) {
             write(s);
         }
@@ -158,6 +252,29 @@ public class GenericTrace<T> {
         isBE = false;
     }
 
+    /**
+     * Submit the current batch to the owner if it is large enough. Every batch has to start with a
+     * full step since the reader computes deltas against the previous step in the file, which is
+     * the step of another thread if batches of different threads are interleaved.
+     *
+     * @return true if the next step has to be a full step
+     */
+    private boolean beginStep() throws IOException {
+        if (owner != null && pending.size() + buf.position() >= ConcurrentGenericTrace.BATCH_SIZE) {
+            submit();
+        }
+        return needKeyframe;
+    }
+
+    void submit() throws IOException {
+        flushBuffer();
+        if (pending.size() > 0) {
+            owner.submit(pending.toByteArray());
+            pending.reset();
+            needKeyframe = true;
+        }
+    }
+
     public void step(int tid, long step, T state, String[] asm, byte[] machinecode, byte type) throws IOException {
         if (lastState == null) {
             fullStep(tid, step, state, asm, machinecode, type);
@@ -167,127 +284,153 @@ public class GenericTrace<T> {
         lastState = state;
     }
 
-    public void fullStep(int tid, long step, T state, String[] asm, byte[] machinecode, byte type) throws IOException {
+    private void writeStepHeader(byte record, int tid, long step, T state) throws IOException {
         long pc;
         try {
             pc = serializer.getPC(state);
-        } catch (IllegalAccessException | IllegalArgumentException e) {
+        } catch (IllegalArgumentException e) {
             throw new IOException("Error while serializing state: " + e, e);
         }
-        out.write8bit(RECORD_STEP);
-        out.write32bit(tid);
-        out.write64bit(step);
-        out.write64bit(pc);
-        try {
-            lastSerializedState = serializer.serialize(state);
-            out.write(lastSerializedState);
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            throw new IOException("Error while serializing state: " + e, e);
-        }
-        out.write((byte) asm.length);
+        serializer.serialize(state, currentSerializedState, 0);
+        ensure(21 + masklen + statesz);
+        buf.put(record);
+        buf.putInt(tid);
+        buf.putLong(step);
+        buf.putLong(pc);
+    }
+
+    private void writeStepTrailer(String[] asm, byte[] machinecode, byte type) throws IOException {
+        ensure(1);
+        buf.put((byte) asm.length);
         for (String s : asm) {
             writeCmdPart(s);
         }
-        out.write8bit((byte) machinecode.length);
-        out.write(machinecode);
-        out.write8bit(type);
+        ensure(2 + machinecode.length);
+        buf.put((byte) machinecode.length);
+        buf.put(machinecode);
+        buf.put(type);
+    }
+
+    private void swapStates() {
+        byte[] tmp = lastSerializedState;
+        lastSerializedState = currentSerializedState;
+        currentSerializedState = tmp;
+        ByteBuffer words = lastWords;
+        lastWords = currentWords;
+        currentWords = words;
+        hasSerializedState = true;
+    }
+
+    public void fullStep(int tid, long step, T state, String[] asm, byte[] machinecode, byte type) throws IOException {
+        beginStep();
+        writeFullStep(tid, step, state, asm, machinecode, type);
+    }
+
+    private void writeFullStep(int tid, long step, T state, String[] asm, byte[] machinecode, byte type) throws IOException {
+        writeStepHeader(RECORD_STEP, tid, step, state);
+        buf.put(currentSerializedState, 0, statesz);
+        swapStates();
+        writeStepTrailer(asm, machinecode, type);
+        needKeyframe = false;
     }
 
     public void deltaStep(int tid, long step, T state, String[] asm, byte[] machinecode, byte type) throws IOException {
-        long pc;
-        try {
-            pc = serializer.getPC(state);
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            throw new IOException("Error while serializing state: " + e, e);
+        if (!hasSerializedState) {
+            throw new IllegalStateException("no previous state");
         }
-        out.write8bit(RECORD_DELTA_STEP);
-        out.write32bit(tid);
-        out.write64bit(step);
-        out.write64bit(pc);
-        try {
-            byte[] current = serializer.serialize(state);
-            byte[] mask = new byte[masklen];
-            int deltalen = 0;
-            for (int i = 0; i < current.length; i++) {
-                if (current[i] != lastSerializedState[i]) {
-                    mask[i / 8] |= 1 << (i % 8);
-                    deltalen++;
-                }
+        if (beginStep()) {
+            writeFullStep(tid, step, state, asm, machinecode, type);
+            return;
+        }
+        writeStepHeader(RECORD_DELTA_STEP, tid, step, state);
+        // the mask is filled in after the changed bytes are written
+        int maskpos = buf.position();
+        buf.position(maskpos + masklen);
+        byte[] current = currentSerializedState;
+        byte[] last = lastSerializedState;
+        for (int i = 0; i < masklen; i++) {
+            int off = i * 8;
+            if (currentWords.getLong(off) == lastWords.getLong(off)) {
+                buf.put(maskpos + i, (byte) 0);
+                continue;
             }
-            byte[] delta = new byte[deltalen];
-            for (int i = 0, j = 0; i < current.length; i++) {
-                if (current[i] != lastSerializedState[i]) {
-                    delta[j++] = current[i];
+            int mask = 0;
+            int end = Math.min(off + 8, statesz);
+            for (int j = off; j < end; j++) {
+                if (current[j] != last[j]) {
+                    mask |= 1 << (j - off);
+                    buf.put(current[j]);
                 }
             }
-            out.write(mask);
-            out.write(delta);
-            lastSerializedState = current;
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            throw new IOException("Error while serializing state: " + e, e);
+            buf.put(maskpos + i, (byte) mask);
         }
-        out.write((byte) asm.length);
-        for (String s : asm) {
-            writeCmdPart(s);
-        }
-        out.write8bit((byte) machinecode.length);
-        out.write(machinecode);
-        out.write8bit(type);
+        swapStates();
+        writeStepTrailer(asm, machinecode, type);
     }
 
     public void mmap(int tid, long addr, long len, int prot, int flags, long off, int fd, long result, String filename) throws IOException {
-        out.write8bit(RECORD_MMAP);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(len);
-        out.write64bit(off);
-        out.write64bit(result);
-        out.write32bit(prot);
-        out.write32bit(flags);
-        out.write32bit(fd);
+        ensure(53);
+        buf.put(RECORD_MMAP);
+        buf.putInt(tid);
+        buf.putLong(addr);
+        buf.putLong(len);
+        buf.putLong(off);
+        buf.putLong(result);
+        buf.putInt(prot);
+        buf.putInt(flags);
+        buf.putInt(fd);
         write(filename);
     }
 
     public void munmap(int tid, long addr, long len, int result) throws IOException {
-        out.write8bit(RECORD_MUNMAP);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(len);
-        out.write32bit(result);
+        ensure(25);
+        buf.put(RECORD_MUNMAP);
+        buf.putInt(tid);
+        buf.putLong(addr);
+        buf.putLong(len);
+        buf.putInt(result);
     }
 
     public void read(int tid, long addr, long val, byte size, boolean be) throws IOException {
-        out.write8bit(RECORD_READ);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(val);
-        out.write8bit(size);
-        out.write8bit((byte) (be ? 3 : 2));
+        ensure(23);
+        buf.put(RECORD_READ);
+        buf.putInt(tid);
+        buf.putLong(addr);
+        buf.putLong(val);
+        buf.put(size);
+        buf.put((byte) (be ? 3 : 2));
     }
 
     public void read(int tid, long addr, byte size, boolean be) throws IOException {
-        out.write8bit(RECORD_READ);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(0);
-        out.write8bit(size);
-        out.write8bit((byte) (be ? 1 : 0));
+        ensure(23);
+        buf.put(RECORD_READ);
+        buf.putInt(tid);
+        buf.putLong(addr);
+        buf.putLong(0);
+        buf.put(size);
+        buf.put((byte) (be ? 1 : 0));
     }
 
     public void write(int tid, long addr, long val, byte size, boolean be) throws IOException {
-        out.write8bit(RECORD_WRITE);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(val);
-        out.write8bit(size);
-        out.write8bit((byte) (be ? 3 : 2));
+        ensure(23);
+        buf.put(RECORD_WRITE);
+        buf.putInt(tid);
+        buf.putLong(addr);
+        buf.putLong(val);
+        buf.put(size);
+        buf.put((byte) (be ? 3 : 2));
+    }
+
+    private void access(byte record, int tid, long addr) throws IOException {
+        ensure(21);
+        buf.put(record);
+        buf.putInt(tid);
+        buf.putLong(addr);
     }
 
     public void readI8(int tid, long addr, byte val) throws IOException {
-        out.write8bit(RECORD_READ_8);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write8bit(val);
+        access(RECORD_READ_8, tid, addr);
+        buf.put(val);
     }
 
     public void readI8(int tid, long addr) throws IOException {
@@ -295,10 +438,8 @@ public class GenericTrace<T> {
     }
 
     public void readI16(int tid, long addr, short val) throws IOException {
-        out.write8bit(RECORD_READ_16);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write16bit(val);
+        access(RECORD_READ_16, tid, addr);
+        buf.putShort(val);
     }
 
     public void readI16(int tid, long addr) throws IOException {
@@ -306,10 +447,8 @@ public class GenericTrace<T> {
     }
 
     public void readI32(int tid, long addr, int val) throws IOException {
-        out.write8bit(RECORD_READ_32);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write32bit(val);
+        access(RECORD_READ_32, tid, addr);
+        buf.putInt(val);
     }
 
     public void readI32(int tid, long addr) throws IOException {
@@ -317,10 +456,8 @@ public class GenericTrace<T> {
     }
 
     public void readI64(int tid, long addr, long val) throws IOException {
-        out.write8bit(RECORD_READ_64);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(val);
+        access(RECORD_READ_64, tid, addr);
+        buf.putLong(val);
     }
 
     public void readI64(int tid, long addr) throws IOException {
@@ -328,56 +465,80 @@ public class GenericTrace<T> {
     }
 
     public void writeI8(int tid, long addr, byte val) throws IOException {
-        out.write8bit(RECORD_WRITE_8);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write8bit(val);
+        access(RECORD_WRITE_8, tid, addr);
+        buf.put(val);
     }
 
     public void writeI16(int tid, long addr, short val) throws IOException {
-        out.write8bit(RECORD_WRITE_16);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write16bit(val);
+        access(RECORD_WRITE_16, tid, addr);
+        buf.putShort(val);
     }
 
     public void writeI32(int tid, long addr, int val) throws IOException {
-        out.write8bit(RECORD_WRITE_32);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write32bit(val);
+        access(RECORD_WRITE_32, tid, addr);
+        buf.putInt(val);
     }
 
     public void writeI64(int tid, long addr, long val) throws IOException {
-        out.write8bit(RECORD_WRITE_64);
-        out.write32bit(tid);
-        out.write64bit(addr);
-        out.write64bit(val);
+        access(RECORD_WRITE_64, tid, addr);
+        buf.putLong(val);
     }
 
     public void symbols(int tid, long loadbias, long address, long size, String filename, Collection<Symbol> symbols) throws IOException {
-        out.write8bit(RECORD_SYMBOLS);
-        out.write32bit(tid);
-        out.write64bit(loadbias);
-        out.write64bit(address);
-        out.write64bit(size);
+        ensure(29);
+        buf.put(RECORD_SYMBOLS);
+        buf.putInt(tid);
+        buf.putLong(loadbias);
+        buf.putLong(address);
+        buf.putLong(size);
         write(filename);
-        out.write32bit(symbols.size());
+        ensure(4);
+        buf.putInt(symbols.size());
         for (Symbol sym : symbols) {
-            out.write64bit(sym.getValue());
-            out.write64bit(sym.getSize());
-            out.write8bit((byte) (sym.getType() | (sym.getBind() << 4)));
-            out.write8bit((byte) sym.getVisibility());
-            out.write16bit(sym.getSectionIndex());
+            ensure(20);
+            buf.putLong(sym.getValue());
+            buf.putLong(sym.getSize());
+            buf.put((byte) (sym.getType() | (sym.getBind() << 4)));
+            buf.put((byte) sym.getVisibility());
+            buf.putShort(sym.getSectionIndex());
             write(sym.getName());
         }
     }
 
     public void dump(int tid, long address, byte[] data) throws IOException {
-        out.write8bit(RECORD_DUMP);
-        out.write32bit(tid);
-        out.write64bit(address);
-        out.write32bit(data.length);
-        out.write(data);
+        ensure(17);
+        buf.put(RECORD_DUMP);
+        buf.putInt(tid);
+        buf.putLong(address);
+        buf.putInt(data.length);
+        put(data);
+    }
+
+    /**
+     * Write the buffered records. The per thread writers of a {@link ConcurrentGenericTrace} submit
+     * their records to the merger instead, so they must only be flushed between two steps.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (owner != null) {
+            submit();
+            return;
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (owner != null) {
+            submit();
+            return;
+        }
+        OpenTraces.remove(this);
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
     }
 }
@@ -0,0 +1,57 @@
+package org.graalvm.vm.trcview.libtrc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Trace writers which were not closed yet. Writers buffer their records, so a writer which is never
+ * closed would lose the end of the trace. The writers which are still open when the JVM exits are
+ * closed by a shutdown hook with a warning. This is only a safety net: the hook runs while other
+ * threads may still write to the trace, and an open writer is not garbage collected.
+ */
+final class OpenTraces {
+    private static final Logger log = Trace.create(OpenTraces.class);
+
+    private static final Set<Closeable> open = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static boolean hook = false;
+
+    private OpenTraces() {
+    }
+
+    static synchronized void add(Closeable trace) {
+        if (!hook) {
+            Runtime.getRuntime().addShutdownHook(new Thread(OpenTraces::closeAll, "libtrc-shutdown"));
+            hook = true;
+        }
+        open.add(trace);
+    }
+
+    static synchronized void remove(Closeable trace) {
+        open.remove(trace);
+    }
+
+    private static void closeAll() {
+        List<Closeable> traces;
+        synchronized (OpenTraces.class) {
+            traces = new ArrayList<>(open);
+            open.clear();
+        }
+        for (Closeable trace : traces) {
+            log.log(Levels.WARNING, "Trace writer was not closed, closing it at exit; the trace may be incomplete");
+            try {
+                trace.close();
+            } catch (IOException | RuntimeException e) {
+                log.log(Levels.WARNING, "Error while closing trace: " + e.getMessage(), e);
+            }
+        }
+    }
+}
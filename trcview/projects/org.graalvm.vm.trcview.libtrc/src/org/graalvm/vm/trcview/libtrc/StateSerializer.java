@@ -1,6 +1,12 @@
 package org.graalvm.vm.trcview.libtrc;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -9,6 +15,12 @@ import java.util.logging.Logger;
 import org.graalvm.vm.util.log.Levels;
 import org.graalvm.vm.util.log.Trace;
 
+/**
+ * Serializes the {@link Register} fields of a state class. The fields are resolved once per class
+ * and combined into a single method handle which reads every field and writes it in big endian byte
+ * order at its offset. Serializing a state is one call of this handle; it neither uses reflection
+ * nor loops over the fields, so the JIT can inline the whole serializer.
+ */
 public class StateSerializer<T> {
     private static final Logger log = Trace.create(StateSerializer.class);
 
@@ -19,10 +31,36 @@ public class StateSerializer<T> {
     public static final byte TYPE_F32 = 4;
     public static final byte TYPE_F64 = 5;
 
+    private static final MethodType GETTER_TYPE = MethodType.methodType(long.class, Object.class);
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, byte[].class, int.class);
+    private static final MethodHandle FLOAT_BITS;
+    private static final MethodHandle DOUBLE_BITS;
+    private static final MethodHandle ADD;
+    private static final MethodHandle PUT8 = MethodHandles.arrayElementSetter(byte[].class);
+    private static final MethodHandle PUT16 = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN).toMethodHandle(VarHandle.AccessMode.SET);
+    private static final MethodHandle PUT32 = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN).toMethodHandle(VarHandle.AccessMode.SET);
+    private static final MethodHandle PUT64 = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN).toMethodHandle(VarHandle.AccessMode.SET);
+
+    static {
+        try {
+            FLOAT_BITS = MethodHandles.lookup().findStatic(Float.class, "floatToRawIntBits", MethodType.methodType(int.class, float.class));
+            DOUBLE_BITS = MethodHandles.lookup().findStatic(Double.class, "doubleToRawLongBits", MethodType.methodType(long.class, double.class));
+            ADD = MethodHandles.lookup().findStatic(Math.class, "addExact", MethodType.methodType(int.class, int.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private final Class<T> clazz;
     private List<Field> stateFields = new ArrayList<>();
 
     private Field pc;
 
+    // (Object state, byte[] buf, int off)void, writes all fields
+    private final MethodHandle writer;
+    private final MethodHandle pcGetter;
+    private final int pcType;
+
     private String format;
     private List<StateField> layout;
 
@@ -78,16 +116,62 @@ public class StateSerializer<T> {
         return new StateField(name, getType(field), fmt, offset);
     }
 
+    // getter of type (Object)X which returns the raw bits of the field, X is byte/short/int/long
+    private static MethodHandle getRawGetter(Field field) {
+        MethodHandle getter;
+        try {
+            field.setAccessible(true);
+            getter = MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("cannot access field " + field.getName() + ": " + e.getMessage(), e);
+        }
+        if (field.getType() == float.class) {
+            getter = MethodHandles.filterReturnValue(getter, FLOAT_BITS);
+        } else if (field.getType() == double.class) {
+            getter = MethodHandles.filterReturnValue(getter, DOUBLE_BITS);
+        }
+        return getter.asType(getter.type().changeParameterType(0, Object.class));
+    }
+
+    // (Object state, byte[] buf, int off)void which writes the field at off + offset
+    private static MethodHandle getFieldWriter(Field field, int offset) {
+        MethodHandle put;
+        switch (getSize(field)) {
+            case 1:
+                put = PUT8;
+                break;
+            case 2:
+                put = PUT16;
+                break;
+            case 4:
+                put = PUT32;
+                break;
+            default:
+                put = PUT64;
+                break;
+        }
+        // (byte[] buf, int off, Object state)
+        MethodHandle writer = MethodHandles.collectArguments(put, 2, getRawGetter(field));
+        if (offset != 0) {
+            writer = MethodHandles.filterArguments(writer, 1, MethodHandles.insertArguments(ADD, 1, offset));
+        }
+        return MethodHandles.permuteArguments(writer, WRITER_TYPE, 1, 2, 0);
+    }
+
     private static boolean checkType(Class<?> type) {
         return type == byte.class || type == short.class || type == int.class || type == long.class || type == float.class || type == double.class;
     }
 
     public StateSerializer(Class<T> clazz) {
+        this.clazz = clazz;
+
         // collect all relevant fields
         Field[] fields = clazz.getDeclaredFields();
         for (Field field : fields) {
             if (field.isAnnotationPresent(Register.class)) {
-                if (checkType(field.getType())) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    log.log(Levels.WARNING, "Ignoring static field " + field.getName());
+                } else if (checkType(field.getType())) {
                     stateFields.add(field);
                 } else {
                     log.log(Levels.WARNING, "Invalid type " + field.getType().getSimpleName() + " in field " + field.getName());
@@ -123,7 +207,19 @@ public class StateSerializer<T> {
         }
         if (pc == null) {
             log.log(Levels.WARNING, "No program counter defined in " + clazz.getSimpleName());
+            pcGetter = null;
+            pcType = -1;
+        } else {
+            pcGetter = getRawGetter(pc).asType(GETTER_TYPE);
+            pcType = getType(pc);
+        }
+
+        // the writers run in layout order: fold them from the last one to the first one
+        MethodHandle all = MethodHandles.empty(WRITER_TYPE);
+        for (int i = stateFields.size() - 1; i >= 0; i--) {
+            all = MethodHandles.foldArguments(all, getFieldWriter(stateFields.get(i), layout.get(i).getOffset()));
         }
+        writer = all;
 
         // compute total size
         size = 0;
@@ -146,75 +242,52 @@ public class StateSerializer<T> {
         return size;
     }
 
-    public long getPC(T state) throws IllegalArgumentException, IllegalAccessException {
+    public long getPC(T state) {
         if (pc == null) {
             throw new IllegalStateException("no pc defined");
         }
-        Class<?> type = pc.getType();
-        if (type == byte.class) {
-            return Byte.toUnsignedLong(pc.getByte(state));
-        } else if (type == short.class) {
-            return Short.toUnsignedLong(pc.getShort(state));
-        } else if (type == int.class) {
-            return Integer.toUnsignedLong(pc.getInt(state));
-        } else if (type == long.class) {
-            return pc.getLong(state);
-        } else if (type == float.class) {
-            return Integer.toUnsignedLong(Float.floatToRawIntBits(pc.getFloat(state)));
-        } else if (type == double.class) {
-            return Double.doubleToRawLongBits(pc.getDouble(state));
-        } else {
-            throw new IllegalArgumentException("invalid field type");
+        if (!clazz.isInstance(state)) {
+            throw new IllegalArgumentException("invalid state object");
+        }
+        long value;
+        try {
+            value = (long) pcGetter.invokeExact((Object) state);
+        } catch (Throwable t) {
+            throw new IllegalStateException("cannot read state field: " + t.getMessage(), t);
+        }
+        switch (pcType) {
+            case TYPE_I8:
+                return value & 0xFF;
+            case TYPE_I16:
+                return value & 0xFFFF;
+            case TYPE_I32:
+            case TYPE_F32:
+                return value & 0xFFFFFFFFL;
+            default:
+                return value;
         }
     }
 
-    public byte[] serialize(T state) throws IllegalArgumentException, IllegalAccessException {
+    public byte[] serialize(T state) {
         byte[] result = new byte[size];
-        int off = 0;
-        for (Field field : stateFields) {
-            Class<?> type = field.getType();
-            if (type == byte.class) {
-                byte val = field.getByte(state);
-                result[off++] = val;
-            } else if (type == short.class) {
-                short val = field.getShort(state);
-                result[off++] = (byte) (val >> 8);
-                result[off++] = (byte) val;
-            } else if (type == int.class) {
-                int val = field.getInt(state);
-                result[off++] = (byte) (val >> 24);
-                result[off++] = (byte) (val >> 16);
-                result[off++] = (byte) (val >> 8);
-                result[off++] = (byte) val;
-            } else if (type == long.class) {
-                long val = field.getLong(state);
-                result[off++] = (byte) (val >> 56);
-                result[off++] = (byte) (val >> 48);
-                result[off++] = (byte) (val >> 40);
-                result[off++] = (byte) (val >> 32);
-                result[off++] = (byte) (val >> 24);
-                result[off++] = (byte) (val >> 16);
-                result[off++] = (byte) (val >> 8);
-                result[off++] = (byte) val;
-            } else if (type == float.class) {
-                int val = Float.floatToRawIntBits(field.getFloat(state));
-                result[off++] = (byte) (val >> 24);
-                result[off++] = (byte) (val >> 16);
-                result[off++] = (byte) (val >> 8);
-                result[off++] = (byte) val;
-            } else if (type == double.class) {
-                long val = Double.doubleToRawLongBits(field.getDouble(state));
-                result[off++] = (byte) (val >> 56);
-                result[off++] = (byte) (val >> 48);
-                result[off++] = (byte) (val >> 40);
-                result[off++] = (byte) (val >> 32);
-                result[off++] = (byte) (val >> 24);
-                result[off++] = (byte) (val >> 16);
-                result[off++] = (byte) (val >> 8);
-                result[off++] = (byte) val;
-            }
-        }
-        assert off == size;
+        serialize(state, result, 0);
         return result;
     }
+
+    /**
+     * Serialize the state in big endian byte order to {@code buf} at offset {@code off}.
+     */
+    public void serialize(T state, byte[] buf, int off) {
+        if (!clazz.isInstance(state)) {
+            throw new IllegalArgumentException("invalid state object");
+        }
+        if (buf.length - off < size) {
+            throw new IndexOutOfBoundsException("buffer too small");
+        }
+        try {
+            writer.invokeExact((Object) state, buf, off);
+        } catch (Throwable t) {
+            throw new IllegalStateException("cannot read state field: " + t.getMessage(), t);
+        }
+    }
 }
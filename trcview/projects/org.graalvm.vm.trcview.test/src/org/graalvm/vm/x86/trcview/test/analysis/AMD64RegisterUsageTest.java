@@ -0,0 +1,73 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.vm.trcview.arch.x86.AMD64;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64CpuState;
+import org.graalvm.vm.x86.trcview.test.mock.AMD64Steps;
+import org.junit.Test;
+
+public class AMD64RegisterUsageTest {
+    private static final int RAX = 0;
+    private static final int RCX = 1;
+    private static final int RBX = 3;
+    private static final int RSI = 6;
+    private static final int RDI = 7;
+
+    private static void check(int[] reads, int[] writes, int... code) {
+        AMD64CpuState step = AMD64Steps.step(1, 1, 0x1000, code);
+        assertArrayEquals(reads, step.getRegisterReads());
+        assertArrayEquals(writes, step.getRegisterWrites());
+    }
+
+    @Test
+    public void testIds() {
+        AMD64 arch = new AMD64();
+        assertEquals(16, arch.getRegisterCount());
+        assertEquals(RAX, arch.getRegisterId("rax"));
+        assertEquals(RDI, arch.getRegisterId("RDI"));
+        assertEquals(15, arch.getRegisterId("r15"));
+        assertEquals(-1, arch.getRegisterId("eax"));
+        assertEquals(-1, arch.getRegisterId("rip"));
+    }
+
+    @Test
+    public void testLoad() {
+        // mov rax,[rdi]
+        check(new int[]{RDI}, new int[]{RAX}, 0x48, 0x8b, 0x07);
+    }
+
+    @Test
+    public void testStore() {
+        // mov [rsi],rax
+        check(new int[]{RAX, RSI}, new int[0], 0x48, 0x89, 0x06);
+    }
+
+    @Test
+    public void testPartialWrite() {
+        // add al,bl
+        check(new int[]{RAX, RBX}, new int[]{RAX}, 0x00, 0xd8);
+        // mov al,bl keeps the upper bits of rax
+        check(new int[]{RAX, RBX}, new int[]{RAX}, 0x88, 0xd8);
+        // mov eax,ebx clears the upper bits of rax
+        check(new int[]{RBX}, new int[]{RAX}, 0x89, 0xd8);
+    }
+
+    @Test
+    public void testZeroIdiom() {
+        // xor eax,eax
+        check(new int[0], new int[]{RAX}, 0x31, 0xc0);
+    }
+
+    @Test
+    public void testRep() {
+        // rep movsb
+        check(new int[]{RCX, RSI, RDI}, new int[]{RCX, RSI, RDI}, 0xf3, 0xa4);
+    }
+
+    @Test
+    public void testUnknown() {
+        check(new int[0], new int[0], 0x0f, 0xff);
+    }
+}
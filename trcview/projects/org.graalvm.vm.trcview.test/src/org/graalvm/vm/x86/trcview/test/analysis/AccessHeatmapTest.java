@@ -0,0 +1,122 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap.Level;
+import org.junit.Test;
+
+public class AccessHeatmapTest {
+    private static long sum(Level level, boolean write) {
+        long sum = 0;
+        for (int row = 0; row < level.getRows(); row++) {
+            for (int column = 0; column < level.getColumns(); column++) {
+                sum += write ? level.getWrites(row, column) : level.getReads(row, column);
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void testCells() {
+        AccessHeatmap heatmap = new AccessHeatmap(2);
+        heatmap.write(0x7fff0010L, 0);
+        heatmap.write(0x7fff0020L, 1);
+        heatmap.read(0x1000, 2);
+        heatmap.read(0xFFFFFFFFFFFFF000L, 3);
+
+        Level base = heatmap.getBaseLevel();
+        assertEquals(2, heatmap.getBucketSize());
+        assertEquals(3, base.getRows());
+        assertEquals(2, base.getColumns());
+        // pages in unsigned address order
+        assertEquals(0x1000, base.getStartAddress(0));
+        assertEquals(0x7fff0000L, base.getStartAddress(1));
+        assertEquals(0x7fff0fffL, base.getEndAddress(1));
+        assertEquals(0xFFFFFFFFFFFFF000L, base.getStartAddress(2));
+        assertEquals(2, base.getWrites(1, 0));
+        assertEquals(1, base.getReads(0, 1));
+        assertEquals(1, base.getReads(2, 1));
+        assertEquals(2, base.getStartStep(1));
+        assertEquals(3, base.getEndStep(1));
+
+        // the bucket size does not change for long traces
+        heatmap.write(0x1008, 1000);
+        base = heatmap.getBaseLevel();
+        assertEquals(2, heatmap.getBucketSize());
+        assertEquals(501, base.getColumns());
+        assertEquals(1, base.getWrites(0, 500));
+        assertEquals(2, base.getWrites(1, 0));
+
+        // rows and columns are combined independently
+        Level level = heatmap.getLevel(1, 0);
+        assertEquals(2, level.getRows());
+        assertEquals(501, level.getColumns());
+        assertEquals(2, level.getWrites(0, 0));
+        assertEquals(1, level.getReads(0, 1));
+        assertEquals(2, level.getPageCount(0));
+        assertEquals(1, level.getPageCount(1));
+        assertEquals(0x1000, level.getStartAddress(0));
+        assertEquals(0x7fff0fffL, level.getEndAddress(0));
+        assertEquals(0xFFFFFFFFFFFFFFFFL, level.getEndAddress(1));
+
+        level = heatmap.getLevel(0, 9);
+        assertEquals(3, level.getRows());
+        assertEquals(1, level.getColumns());
+        assertEquals(3, level.getWrites(1, 0) + level.getWrites(0, 0));
+        assertEquals(0, level.getStartStep(0));
+        assertEquals(1023, level.getEndStep(0));
+
+        // cached levels are reused until new accesses arrive
+        assertSame(level, heatmap.getLevel(0, 9));
+        heatmap.read(0x1000, 4);
+        assertEquals(2, heatmap.getLevel(0, 9).getReads(0, 0));
+    }
+
+    @Test
+    public void testPyramid() {
+        Random rnd = new Random(7);
+        AccessHeatmap heatmap = new AccessHeatmap(64);
+        long reads = 0;
+        long writes = 0;
+        for (long step = 0; step < 100000; step++) {
+            long addr = 0x400000 + rnd.nextInt(200) * 4096 + rnd.nextInt(4096);
+            if (rnd.nextBoolean()) {
+                heatmap.write(addr, step);
+                writes++;
+            } else {
+                heatmap.read(addr, step);
+                reads++;
+            }
+        }
+
+        Level base = heatmap.getBaseLevel();
+        assertEquals(200, base.getRows());
+        assertEquals(1563, base.getColumns());
+        int rowShifts = AccessHeatmap.fit(base.getRows(), 1);
+        int columnShifts = AccessHeatmap.fit(base.getColumns(), 1);
+        assertEquals(8, rowShifts);
+        assertEquals(11, columnShifts);
+        // levels are derived from different cached levels, all of them have to add up
+        for (int r = rowShifts; r >= 0; r -= 3) {
+            for (int c = 0; c <= columnShifts; c += 2) {
+                Level level = heatmap.getLevel(r, c);
+                assertEquals(reads, sum(level, false));
+                assertEquals(writes, sum(level, true));
+            }
+        }
+        Level top = heatmap.getLevel(rowShifts, columnShifts);
+        assertEquals(1, top.getRows());
+        assertEquals(1, top.getColumns());
+        assertEquals(reads + writes, top.getMaximum());
+
+        Level level = heatmap.getFittingLevel(50, 400);
+        assertEquals(2, level.getRowShift());
+        assertEquals(2, level.getColumnShift());
+        assertEquals(50, level.getRows());
+        assertEquals(391, level.getColumns());
+    }
+}
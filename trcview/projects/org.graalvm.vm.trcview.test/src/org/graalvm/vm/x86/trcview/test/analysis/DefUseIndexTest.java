@@ -0,0 +1,191 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI32;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI64;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.x86.AMD64;
+import org.graalvm.vm.x86.trcview.test.mock.AMD64Steps;
+import org.graalvm.vm.x86.trcview.test.mock.MockArchitecture;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefUseIndexTest {
+    private static final int TID = 1;
+
+    private DefUseIndex index;
+
+    private static class Architecture extends MockArchitecture {
+        Architecture() {
+            super(false, false);
+        }
+
+        @Override
+        public int getRegisterCount() {
+            return 4;
+        }
+    }
+
+    private static class Step extends MockStepEvent {
+        private final int[] reads;
+        private final int[] writes;
+
+        Step(long step, int[] reads, int[] writes) {
+            super(TID, new byte[0], InstructionType.OTHER);
+            this.step = step;
+            this.pc = 0x1000 + step;
+            this.reads = reads;
+            this.writes = writes;
+        }
+
+        @Override
+        public int[] getRegisterReads() {
+            return reads;
+        }
+
+        @Override
+        public int[] getRegisterWrites() {
+            return writes;
+        }
+    }
+
+    private void step(long step, int[] reads, int[] writes) {
+        Step evt = new Step(step, reads, writes);
+        index.process(evt, evt);
+    }
+
+    private void read(long addr) {
+        MemoryEventI64 evt = new MemoryEventI64(false, TID, addr, false);
+        index.process(evt, evt);
+    }
+
+    private void write(long addr) {
+        MemoryEventI64 evt = new MemoryEventI64(false, TID, addr, true);
+        index.process(evt, evt);
+    }
+
+    private static long ref(long step) {
+        return DefUseIndex.ref(TID, step);
+    }
+
+    @Before
+    public void setup() {
+        index = new DefUseIndex(new Architecture(), 0);
+        index.start(null);
+    }
+
+    @After
+    public void teardown() {
+        index.close();
+    }
+
+    @Test
+    public void testRegisters() {
+        step(1, new int[0], new int[]{0});          // r0 = 1
+        step(2, new int[0], new int[]{1});          // r1 = 2
+        step(3, new int[]{0, 1}, new int[]{2});     // r2 = r0 + r1
+        step(4, new int[0], new int[]{0});          // r0 = 3
+        step(5, new int[]{2, 0}, new int[]{3});     // r3 = r2 + r0
+        index.finish();
+
+        assertArrayEquals(new long[]{ref(1), ref(2)}, index.getProducers(ref(3)));
+        assertArrayEquals(new long[]{ref(3), ref(4)}, index.getProducers(ref(5)));
+        assertArrayEquals(new long[0], index.getProducers(ref(4)));
+
+        assertEquals(ref(5), index.getRegisterDefinition(TID, 3, 5));
+        assertEquals(ref(4), index.getRegisterDefinition(TID, 0, 7));
+        assertEquals(ref(1), index.getRegisterDefinition(TID, 0, 3));
+        assertEquals(DefUseIndex.NONE, index.getRegisterDefinition(TID, 3, 4));
+
+        assertArrayEquals(new long[]{ref(1), ref(2), ref(3), ref(4), ref(5)}, index.slice(ref(5)));
+        assertArrayEquals(new long[]{ref(1), ref(2), ref(3)}, index.slice(index.getRegisterDefinition(TID, 2, 5)));
+        assertArrayEquals(new long[]{ref(4)}, index.slice(index.getRegisterDefinition(TID, 0, 5)));
+    }
+
+    @Test
+    public void testMemory() {
+        step(1, new int[0], new int[]{0});          // r0 = 1
+        step(2, new int[]{0}, new int[0]);          // [0x100] = r0
+        write(0x100);
+        step(3, new int[0], new int[0]);            // [0x104] = 0
+        index.process(new MemoryEventI32(false, TID, 0x104, true), null);
+        step(4, new int[0], new int[]{1});          // r1 = [0x100]
+        read(0x100);
+        step(5, new int[0], new int[]{2});          // r2 = [0x0FC]
+        read(0x0FC);
+        index.finish();
+
+        assertArrayEquals(new long[]{ref(2), ref(3)}, index.getProducers(ref(4)));
+        assertArrayEquals(new long[]{ref(2)}, index.getProducers(ref(5)));
+        assertArrayEquals(new long[]{ref(1), ref(2), ref(3), ref(4)}, index.slice(index.getRegisterDefinition(TID, 1, 5)));
+    }
+
+    @Test
+    public void testSliceOrder() {
+        // step numbers use all 40 bits of a reference
+        long big = 1L << 39;
+        step(3, new int[0], new int[]{0});          // r0 = 1
+        step(big, new int[0], new int[]{1});        // r1 = 2
+        step(big + 1, new int[]{0, 1}, new int[]{2}); // r2 = r0 + r1
+        step(big + 2, new int[]{2}, new int[]{3});  // r3 = r2
+        index.finish();
+
+        assertArrayEquals(new long[]{ref(3), ref(big), ref(big + 1), ref(big + 2)}, index.slice(ref(big + 2)));
+        assertArrayEquals(new long[]{ref(3), ref(big), ref(big + 1)}, index.slice(ref(big + 1), ref(3), DefUseIndex.NONE));
+    }
+
+    @Test
+    public void testSpill() {
+        // the heap limit is 0, so every full chunk ends up in the spill file
+        int n = 200000;
+        step(0, new int[0], new int[]{0});
+        for (int i = 1; i < n; i++) {
+            step(i, new int[]{0}, new int[]{0});
+        }
+        index.finish();
+
+        assertEquals(n - 1, index.getEdgeCount());
+        assertArrayEquals(new long[]{ref(12344)}, index.getProducers(ref(12345)));
+        assertArrayEquals(new long[]{ref(n - 2)}, index.getProducers(ref(n - 1)));
+        assertEquals(ref(150000), index.getRegisterDefinition(TID, 0, 150000));
+        assertEquals(n, index.slice(ref(n - 1)).length);
+    }
+
+    private void amd64(long step, int... code) {
+        StepEvent evt = AMD64Steps.step(TID, step, 0x1000 + step * 4, code);
+        index.process(evt, evt);
+    }
+
+    @Test
+    public void testAMD64() {
+        index.close();
+        AMD64 arch = new AMD64();
+        index = new DefUseIndex(arch, 0);
+        index.start(null);
+
+        amd64(1, 0x48, 0x89, 0x06);                 // mov [rsi],rax
+        write(0x200);
+        amd64(2, 0x48, 0x8b, 0x07);                 // mov rax,[rdi]
+        read(0x200);
+        amd64(3, 0x88, 0xd8);                       // mov al,bl
+        amd64(4, 0x31, 0xc9);                       // xor ecx,ecx
+        amd64(5, 0x48, 0x89, 0x0e);                 // mov [rsi],rcx
+        write(0x200);
+        index.finish();
+
+        int rax = arch.getRegisterId("rax");
+        int rcx = arch.getRegisterId("rcx");
+        assertEquals(ref(3), index.getRegisterDefinition(TID, rax, 5));
+        assertEquals(ref(4), index.getRegisterDefinition(TID, rcx, 5));
+        assertArrayEquals(new long[]{ref(1)}, index.getProducers(ref(2)));
+        assertArrayEquals(new long[]{ref(2)}, index.getProducers(ref(3)));
+        assertArrayEquals(new long[]{ref(1), ref(2), ref(3)}, index.slice(index.getRegisterDefinition(TID, rax, 5)));
+        assertArrayEquals(new long[]{ref(4), ref(5)}, index.slice(ref(5)));
+    }
+}
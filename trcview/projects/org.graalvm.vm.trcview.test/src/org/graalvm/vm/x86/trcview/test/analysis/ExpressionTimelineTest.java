@@ -0,0 +1,150 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graalvm.vm.trcview.analysis.timeline.ExpressionTimeline;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionContext;
+import org.graalvm.vm.trcview.expression.Parser;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.Server;
+import org.graalvm.vm.x86.trcview.test.data.LSIRunner;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.graalvm.vm.x86.trcview.test.mock.MockTraceAnalyzer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpressionTimelineTest {
+    private Local trc;
+
+    @Before
+    public void setup() throws IOException {
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            trc = Server.load(in);
+        }
+    }
+
+    private void check(String expression, long start, long end, int buckets, long segmentSteps) throws ParseException, EvaluationException {
+        Expression expr = new Parser(expression).parseExpression();
+        StepEvent first = (StepEvent) trc.getInstruction(0);
+        ExpressionTimeline timeline = new ExpressionTimeline(start, end, buckets, segmentSteps);
+        timeline.compute(trc, first, expr, ForkJoinPool.commonPool(), () -> false);
+
+        long[] count = new long[timeline.getBuckets()];
+        long[] min = new long[timeline.getBuckets()];
+        long[] max = new long[timeline.getBuckets()];
+        long[] last = new long[timeline.getBuckets()];
+        for (long i = start; i <= end; i++) {
+            StepEvent step = (StepEvent) trc.getInstruction(i);
+            if (step.getTid() != first.getTid()) {
+                continue;
+            }
+            long value = expr.evaluate(new ExpressionContext(step.getState(), trc));
+            int bucket = timeline.getBucket(i);
+            assertTrue(timeline.getBucketStart(bucket) <= i);
+            assertTrue(timeline.getBucketStart(bucket + 1) > i);
+            if (count[bucket] == 0 || value < min[bucket]) {
+                min[bucket] = value;
+            }
+            if (count[bucket] == 0 || value > max[bucket]) {
+                max[bucket] = value;
+            }
+            last[bucket] = value;
+            count[bucket]++;
+        }
+
+        long total = 0;
+        for (int i = 0; i < timeline.getBuckets(); i++) {
+            assertEquals(count[i], timeline.getCount(i));
+            if (count[i] > 0) {
+                assertEquals(min[i], timeline.getMin(i));
+                assertEquals(max[i], timeline.getMax(i));
+                assertEquals(last[i], timeline.getLast(i));
+                assertEquals(min[i], expr.evaluate(new ExpressionContext(((StepEvent) trc.getInstruction(timeline.getMinStep(i))).getState(), trc)));
+                assertEquals(max[i], expr.evaluate(new ExpressionContext(((StepEvent) trc.getInstruction(timeline.getMaxStep(i))).getState(), trc)));
+            }
+            total += count[i];
+        }
+        assertTrue(total > 0);
+        assertEquals(total, timeline.getProgress());
+    }
+
+    @Test
+    public void testWholeTrace() throws ParseException, EvaluationException {
+        long n = trc.getInstructionCount();
+        check("r0", 0, n - 1, 100, ExpressionTimeline.SEGMENT_STEPS);
+    }
+
+    @Test
+    public void testSegments() throws ParseException, EvaluationException {
+        long n = trc.getInstructionCount();
+        check("r0 + r1", 0, n - 1, 37, 3);
+        check("r2", n / 3, n - 1, 7, 5);
+        check("r0", 1, n / 2, 1000, 1);
+    }
+
+    private long steps;
+
+    private MockStepEvent step() {
+        MockStepEvent step = new MockStepEvent(0, new byte[0], InstructionType.OTHER);
+        step.step = steps++;
+        return step;
+    }
+
+    // a call tree with nested and empty calls, steps are numbered in tree order
+    private List<Node> children(Random rnd, int depth) {
+        List<Node> children = new ArrayList<>();
+        int count = rnd.nextInt(50);
+        for (int i = 0; i < count; i++) {
+            if (depth < 4 && rnd.nextInt(8) == 0) {
+                StepEvent head = step();
+                children.add(new BlockNode(head, children(rnd, depth + 1)));
+            } else {
+                children.add(step());
+            }
+        }
+        return children;
+    }
+
+    @Test
+    public void testNestedCalls() throws ParseException {
+        Random rnd = new Random(42);
+        steps = 0;
+        List<Node> children = new ArrayList<>();
+        while (steps < 20000) {
+            children.add(step());
+            children.addAll(children(rnd, 0));
+        }
+        BlockNode root = new BlockNode(null, children);
+        Expression expr = new Parser("1").parseExpression();
+        long[][] ranges = {{0, steps - 1}, {123, steps / 2}, {steps - 100, steps - 1}};
+        for (long[] range : ranges) {
+            for (long segmentSteps : new long[]{1, 17, 1000, ExpressionTimeline.SEGMENT_STEPS}) {
+                ExpressionTimeline timeline = new ExpressionTimeline(range[0], range[1], 64, segmentSteps);
+                timeline.compute(new MockTraceAnalyzer(), root, expr, ForkJoinPool.commonPool(), () -> false);
+                for (int i = 0; i < timeline.getBuckets(); i++) {
+                    long first = timeline.getBucketStart(i);
+                    long next = timeline.getBucketStart(i + 1);
+                    assertEquals(next - first, timeline.getCount(i));
+                    assertEquals(first, timeline.getMinStep(i));
+                    assertEquals(next - 1, timeline.getLastStep(i));
+                }
+                assertEquals(range[1] - range[0] + 1, timeline.getProgress());
+            }
+        }
+    }
+}
@@ -5,8 +5,10 @@ import static org.junit.Assert.assertEquals;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
 import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
 import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
 import org.graalvm.vm.trcview.analysis.memory.Protection;
 import org.junit.Before;
 import org.junit.Test;
@@ -67,4 +69,42 @@ public class MemoryTraceTest {
         String act = segments.stream().map(Object::toString).collect(Collectors.joining("\n"));
         assertEquals(ref, act);
     }
+
+    private static String steps(List<?> accesses) {
+        return accesses.stream().map(a -> {
+            if (a instanceof MemoryRead) {
+                return Long.toHexString(((MemoryRead) a).address) + "@" + ((MemoryRead) a).instructionCount;
+            } else {
+                return Long.toHexString(((MemoryUpdate) a).address) + "@" + ((MemoryUpdate) a).instructionCount;
+            }
+        }).collect(Collectors.joining(" "));
+    }
+
+    @Test
+    public void rangeTest() {
+        MemoryTrace trace = new MemoryTrace();
+        trace.mmap(0x10000, 0x3000, new Protection(true, true, false), "data", 0, 0, null, null);
+        trace.write(0x10000, (byte) 4, 1, 5, null, null, false);
+        trace.write(0x10ffc, (byte) 4, 2, 7, null, null, false);
+        trace.read(0x10800, (byte) 8, 6, null, null);
+        trace.write(0x11000, (byte) 8, 3, 8, null, null, false);
+        trace.write(0x12010, (byte) 2, 4, 9, null, null, false);
+
+        assertEquals("10000@5 10ffc@7", steps(trace.getWrites(0x10000, 0x10fff, 0, 100)));
+        assertEquals("10ffc@7 11000@8", steps(trace.getWrites(0x10000, 0x11fff, 6, 8)));
+        assertEquals("11000@8", steps(trace.getWrites(0x10ffd, 0x11000, 0, 100)));
+        assertEquals("10800@6", steps(trace.getReads(0x10000, 0x12fff, 6, 6)));
+        assertEquals("", steps(trace.getReads(0x10000, 0x12fff, 7, 100)));
+
+        // enough accesses turn the page into a fine page which stores every access once per byte
+        for (int i = 0; i < 50000; i++) {
+            trace.write(0x12000 + (i % 512) * 8, (byte) 8, i, 100 + i, null, null, false);
+            trace.read(0x12000 + (i % 512) * 8, (byte) 8, 100 + i, null, null);
+        }
+        assertEquals("12010@9", steps(trace.getWrites(0x12000, 0x12fff, 0, 9)));
+        assertEquals("12ff8@1123 12000@1124", steps(trace.getWrites(0x12000, 0x12fff, 1123, 1124)));
+        assertEquals(500, trace.getReads(0x12000, 0x12fff, 1000, 1499).size());
+        assertEquals(50000, trace.getWrites(0x12000, 0x12fff, 100, 50099).size());
+        assertEquals(50000, trace.getWrites(0x12000, 0x12fff, 100, 50099).stream().mapToLong(u -> u.instructionCount).distinct().count());
+    }
 }
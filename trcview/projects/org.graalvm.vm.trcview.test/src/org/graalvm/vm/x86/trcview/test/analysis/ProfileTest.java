@@ -0,0 +1,147 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProfileTest {
+    private static final int TID = 1;
+
+    private Profile profile;
+    private Deque<BlockNode> stack;
+    private long steps;
+
+    private MockStepEvent step(long pc) {
+        MockStepEvent step = new MockStepEvent(TID, new byte[0], InstructionType.OTHER);
+        step.step = ++steps;
+        step.pc = pc;
+        profile.step(step);
+        return step;
+    }
+
+    private void call(long pc) {
+        BlockNode block = new BlockNode(step(pc));
+        stack.push(block);
+        profile.call(TID, block);
+    }
+
+    private void ret(long pc) {
+        step(pc);
+        profile.ret(TID, stack.pop());
+    }
+
+    @Before
+    public void setup() {
+        profile = new Profile();
+        stack = new ArrayDeque<>();
+        steps = 0;
+    }
+
+    private static String name(long pc) {
+        switch ((int) pc >> 8) {
+            case 1:
+                return "main";
+            case 2:
+                return "f";
+            case 3:
+                return "g";
+            default:
+                return "?";
+        }
+    }
+
+    @Test
+    public void testCalls() {
+        step(0x100);
+        call(0x104);
+        step(0x200);
+        call(0x204);
+        step(0x300);
+        ret(0x304);
+        ret(0x208);
+        call(0x108);
+        ret(0x300);
+        step(0x10C);
+        profile.finish();
+
+        assertEquals(10, profile.getSteps());
+        assertArrayEquals(new long[]{0x100, 0x200, 0x300}, profile.getFunctions());
+
+        assertEquals(1, profile.getCallCount(0x100));
+        assertEquals(1, profile.getCallCount(0x200));
+        assertEquals(2, profile.getCallCount(0x300));
+
+        assertEquals(4, profile.getExclusiveSteps(0x100));
+        assertEquals(3, profile.getExclusiveSteps(0x200));
+        assertEquals(3, profile.getExclusiveSteps(0x300));
+
+        assertEquals(10, profile.getInclusiveSteps(0x100));
+        assertEquals(5, profile.getInclusiveSteps(0x200));
+        assertEquals(3, profile.getInclusiveSteps(0x300));
+
+        assertEquals(1, profile.getEdgeCount(0x100, 0x200));
+        assertEquals(1, profile.getEdgeCount(0x100, 0x300));
+        assertEquals(1, profile.getEdgeCount(0x200, 0x300));
+        assertEquals(0, profile.getEdgeCount(0x300, 0x100));
+        assertArrayEquals(new long[]{0x200, 0x300}, profile.getCallees(0x100));
+        assertArrayEquals(new long[]{0x100, 0x200}, profile.getCallers(0x300));
+
+        StringWriter out = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(out)) {
+            profile.writeCollapsedStacks(pw, ProfileTest::name);
+        }
+        String expected = String.format("main 4%n" +
+                        "main;f 3%n" +
+                        "main;f;g 2%n" +
+                        "main;g 1%n");
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void testRecursion() {
+        step(0x100);
+        call(0x104);    // main: call f(2)
+        call(0x200);    // f(2): call f(1)
+        call(0x200);    // f(1): call f(0)
+        ret(0x200);     // f(0): return
+        ret(0x204);
+        ret(0x204);
+        step(0x108);
+        profile.finish();
+
+        assertEquals(3, profile.getCallCount(0x200));
+        assertEquals(5, profile.getExclusiveSteps(0x200));
+        // recursive invocations are not counted twice
+        assertEquals(5, profile.getInclusiveSteps(0x200));
+        assertEquals(2, profile.getEdgeCount(0x200, 0x200));
+    }
+
+    @Test
+    public void testUnwind() {
+        // a return from an outer block also closes all inner blocks
+        step(0x100);
+        call(0x104);
+        BlockNode outer = stack.peek();
+        call(0x200);
+        step(0x300);
+        step(0x304);
+        profile.ret(TID, outer);
+        step(0x108);
+        profile.finish();
+
+        assertEquals(2, profile.getInclusiveSteps(0x300));
+        assertEquals(3, profile.getInclusiveSteps(0x200));
+        assertEquals(3, profile.getExclusiveSteps(0x100));
+    }
+}
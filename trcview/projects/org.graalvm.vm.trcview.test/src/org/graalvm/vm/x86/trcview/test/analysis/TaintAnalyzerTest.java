@@ -0,0 +1,256 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.analysis.taint.LabelSets;
+import org.graalvm.vm.trcview.analysis.taint.TaintAnalyzer;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI32;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI64;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.x86.AMD64;
+import org.graalvm.vm.trcview.arch.x86.decode.Syscalls;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64TraceReader;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.graalvm.vm.x86.trcview.test.mock.AMD64Steps;
+import org.graalvm.vm.x86.trcview.test.mock.MockArchitecture;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaintAnalyzerTest {
+    private static final int TID = 1;
+
+    private TaintAnalyzer taint;
+
+    private static class Architecture extends MockArchitecture {
+        Architecture() {
+            super(false, false);
+        }
+
+        @Override
+        public int getRegisterCount() {
+            return 4;
+        }
+    }
+
+    private static class Step extends MockStepEvent {
+        private final int[] reads;
+        private final int[] writes;
+
+        Step(long step, int[] reads, int[] writes) {
+            super(TID, new byte[0], InstructionType.OTHER);
+            this.step = step;
+            this.pc = 0x1000 + step;
+            this.reads = reads;
+            this.writes = writes;
+        }
+
+        @Override
+        public int[] getRegisterReads() {
+            return reads;
+        }
+
+        @Override
+        public int[] getRegisterWrites() {
+            return writes;
+        }
+    }
+
+    private void step(long step, int[] reads, int[] writes) {
+        Step evt = new Step(step, reads, writes);
+        taint.process(evt, evt);
+    }
+
+    private void read(long addr) {
+        MemoryEventI64 evt = new MemoryEventI64(false, TID, addr, false);
+        taint.process(evt, evt);
+    }
+
+    private void write(long addr) {
+        MemoryEventI64 evt = new MemoryEventI64(false, TID, addr, true);
+        taint.process(evt, evt);
+    }
+
+    private void input(long step, long addr, long size) {
+        IoEvent evt = new IoEvent(TID, step, 0, true, "x", new long[]{addr, size});
+        taint.process(evt, null);
+    }
+
+    @Before
+    public void setup() {
+        taint = new TaintAnalyzer(new Architecture(), 0);
+        taint.start(null);
+    }
+
+    @After
+    public void teardown() {
+        taint.close();
+    }
+
+    @Test
+    public void testLabelSets() {
+        LabelSets sets = new LabelSets();
+        int a = sets.singleton(3);
+        int b = sets.singleton(1);
+        int ab = sets.union(a, b);
+        assertArrayEquals(new int[]{1, 3}, sets.get(ab));
+        assertEquals(ab, sets.union(b, a));
+        assertEquals(ab, sets.union(ab, a));
+        assertEquals(a, sets.union(a, LabelSets.CLEAN));
+        assertEquals(a, sets.singleton(3));
+        assertArrayEquals(new int[0], sets.get(LabelSets.CLEAN));
+    }
+
+    @Test
+    public void testPropagation() {
+        step(1, new int[0], new int[0]);            // read(0, 0x100, 8)
+        input(2, 0x100, 8);
+        step(2, new int[0], new int[]{0});          // r0 = [0x100]
+        read(0x100);
+        step(3, new int[0], new int[]{1});          // r1 = 42
+        step(4, new int[]{0, 1}, new int[]{2});     // r2 = r0 + r1
+        step(5, new int[]{2}, new int[0]);          // [0x200] = r2
+        write(0x200);
+        step(6, new int[0], new int[]{0});          // r0 = 0
+        step(7, new int[0], new int[]{3});          // r3 = [0x200]
+        read(0x200);
+        step(8, new int[0], new int[0]);            // [0x204] = 0
+        taint.process(new MemoryEventI32(false, TID, 0x204, true), null);
+        taint.finish();
+
+        int[] in0 = {0};
+        int[] clean = {};
+        assertArrayEquals(in0, taint.getRegisterTaint(TID, 0, 2));
+        assertArrayEquals(in0, taint.getRegisterTaint(TID, 0, 5));
+        assertArrayEquals(clean, taint.getRegisterTaint(TID, 0, 6));
+        assertArrayEquals(clean, taint.getRegisterTaint(TID, 0, 1));
+        assertArrayEquals(clean, taint.getRegisterTaint(TID, 1, 8));
+        assertArrayEquals(in0, taint.getRegisterTaint(TID, 2, 4));
+        assertArrayEquals(clean, taint.getRegisterTaint(TID, 3, 6));
+        assertArrayEquals(in0, taint.getRegisterTaint(TID, 3, 7));
+
+        assertArrayEquals(in0, taint.getStepTaint(TID, 4));
+        assertArrayEquals(clean, taint.getStepTaint(TID, 3));
+        assertArrayEquals(clean, taint.getStepTaint(TID, 6));
+
+        assertArrayEquals(in0, taint.getMemoryTaint(0x203));
+        assertArrayEquals(clean, taint.getMemoryTaint(0x204));
+
+        assertEquals(4, taint.getTaintedStepCount());
+        NavigableMap<Long, int[]> pcs = taint.getTaintedPCs();
+        assertEquals(4, pcs.size());
+        assertArrayEquals(new Long[]{0x1002L, 0x1004L, 0x1005L, 0x1007L}, pcs.keySet().toArray(new Long[0]));
+    }
+
+    @Test
+    public void testMultipleInputs() {
+        step(1, new int[0], new int[0]);
+        input(2, 0x100, 4);
+        step(2, new int[0], new int[0]);
+        input(3, 0x104, 4);
+        step(3, new int[0], new int[]{0});          // r0 = [0x100]
+        read(0x100);
+        step(4, new int[0], new int[]{1});          // r1 = [0x104]
+        taint.process(new MemoryEventI32(false, TID, 0x104, false), null);
+        step(5, new int[]{0, 1}, new int[]{0});     // r0 = r0 + r1
+        taint.finish();
+
+        assertArrayEquals(new int[]{0, 1}, taint.getRegisterTaint(TID, 0, 3));
+        assertArrayEquals(new int[]{1}, taint.getRegisterTaint(TID, 1, 4));
+        assertArrayEquals(new int[]{0, 1}, taint.getRegisterTaint(TID, 0, 5));
+        assertEquals(2, taint.getInputs().size());
+        assertEquals(3, taint.getInput(1).getStep());
+
+        StringWriter out = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(out)) {
+            taint.writeTaintedPCs(pw);
+        }
+        String expected = "# inputs\n" +
+                        "# 0: step 2, tid 1, channel 0, 4 bytes\n" +
+                        "# 1: step 3, tid 1, channel 0, 4 bytes\n" +
+                        "# tainted PCs\n" +
+                        "0x0000000000001003 0,1\n" +
+                        "0x0000000000001004 1\n" +
+                        "0x0000000000001005 0,1\n";
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void testAMD64() throws Exception {
+        long buf = 0x10000;
+        long dst = 0x10100;
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        WordOutputStream out = new BEOutputStream(data);
+        out.write32bit(0x58545243);
+        out.write16bit(AMD64.ID);
+        // rax rcx rdx rbx rsp rbp rsi rdi
+        AMD64Steps.writeStep(out, TID, 1, 0x1000, new long[]{Syscalls.SYS_mmap}, 0x0f, 0x05);
+        AMD64Steps.writeMmap(out, TID, buf, 4096, Mman.PROT_READ | Mman.PROT_WRITE, Mman.MAP_PRIVATE | Mman.MAP_ANONYMOUS);
+        // read(0, buf, 4)
+        AMD64Steps.writeStep(out, TID, 2, 0x1002, new long[]{Syscalls.SYS_read, 0, 4, 0, 0, 0, buf, 0}, 0x0f, 0x05);
+        AMD64Steps.writeMemory(out, TID, buf, true, 0x44434241L);
+        // mov rax,[rsi]
+        AMD64Steps.writeStep(out, TID, 3, 0x1004, new long[]{4, 0, 4, 0, 0, 0, buf, dst}, 0x48, 0x8b, 0x06);
+        AMD64Steps.writeMemory(out, TID, buf, false, 0x44434241L);
+        // mov rbx,rax
+        AMD64Steps.writeStep(out, TID, 4, 0x1007, new long[]{0x44434241L, 0, 4, 0, 0, 0, buf, dst}, 0x48, 0x89, 0xc3);
+        // mov [rdi],rbx
+        AMD64Steps.writeStep(out, TID, 5, 0x100a, new long[]{0x44434241L, 0, 4, 0x44434241L, 0, 0, buf, dst}, 0x48, 0x89, 0x1f);
+        AMD64Steps.writeMemory(out, TID, dst, true, 0x44434241L);
+        // xor eax,eax
+        AMD64Steps.writeStep(out, TID, 6, 0x100d, new long[]{0x44434241L, 0, 4, 0x44434241L, 0, 0, buf, dst}, 0x31, 0xc0);
+        // nop
+        AMD64Steps.writeStep(out, TID, 7, 0x100f, new long[]{0, 0, 4, 0x44434241L, 0, 0, buf, dst}, 0x90);
+        out.write8bit(AMD64TraceReader.TYPE_EOF);
+        out.write32bit(TID);
+        out.flush();
+
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(data.toByteArray()));
+        Analysis analysis = new Analysis(reader.getArchitecture(), Collections.singletonList(reader.getAnalyzer()), false, false, false, true);
+        analysis.start();
+        Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, null);
+        analysis.finish(threads.get(TID));
+        TaintAnalyzer trc = analysis.getTaintAnalyzer();
+
+        AMD64 arch = new AMD64();
+        int rax = arch.getRegisterId("rax");
+        int rbx = arch.getRegisterId("rbx");
+        int[] in0 = {0};
+        int[] clean = {};
+
+        assertEquals(1, trc.getInputs().size());
+        assertEquals("ABCD", trc.getInput(0).getValue());
+        assertArrayEquals(in0, trc.getMemoryTaint(buf + 3));
+        assertArrayEquals(clean, trc.getMemoryTaint(buf + 4));
+
+        // input buffer -> rax -> rbx -> memory
+        assertArrayEquals(clean, trc.getRegisterTaint(TID, rax, 2));
+        assertArrayEquals(in0, trc.getRegisterTaint(TID, rax, 3));
+        assertArrayEquals(in0, trc.getRegisterTaint(TID, rbx, 4));
+        assertArrayEquals(in0, trc.getMemoryTaint(dst));
+        assertArrayEquals(in0, trc.getMemoryTaint(dst + 7));
+        assertArrayEquals(clean, trc.getMemoryTaint(dst + 8));
+        assertArrayEquals(clean, trc.getRegisterTaint(TID, rax, 6));
+        assertArrayEquals(in0, trc.getRegisterTaint(TID, rbx, 7));
+
+        assertArrayEquals(new Long[]{0x1004L, 0x1007L, 0x100aL}, trc.getTaintedPCs().keySet().toArray(new Long[0]));
+        trc.close();
+    }
+}
@@ -0,0 +1,183 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.vm.trcview.analysis.diff.Divergence;
+import org.graalvm.vm.trcview.analysis.diff.Divergence.Kind;
+import org.graalvm.vm.trcview.analysis.diff.StepStream;
+import org.graalvm.vm.trcview.analysis.diff.TraceDiff;
+import org.graalvm.vm.trcview.arch.io.CpuDeltaState;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI32;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI64;
+import org.graalvm.vm.x86.trcview.test.mock.MockArchitecture;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.graalvm.vm.x86.trcview.test.mock.MockTraceReader;
+import org.junit.Test;
+
+public class TraceDiffTest {
+    private static final int TID = 1;
+    private static final int STEPS = 1000;
+    private static final int INTERVAL = 16;
+
+    private static final MockArchitecture ARCH = new MockArchitecture(false, false) {
+        @Override
+        public int getRegisterCount() {
+            return 2;
+        }
+    };
+
+    private static class Step extends MockStepEvent {
+        private final long[] regs;
+
+        Step(long step, long pc, long r0, long r1) {
+            super(TID, new byte[0], InstructionType.OTHER);
+            this.step = step;
+            this.pc = pc;
+            regs = new long[]{r0, r1};
+        }
+
+        @Override
+        public long getRegisterById(int id) {
+            return regs[id];
+        }
+    }
+
+    private static class ThreadStep extends MockStepEvent {
+        private final long r0;
+
+        ThreadStep(int tid, long step, long r0) {
+            super(tid, new byte[0], InstructionType.OTHER);
+            this.step = step;
+            this.pc = 0x1000 + step;
+            this.r0 = r0;
+        }
+
+        @Override
+        public long getRegisterById(int id) {
+            return id == 0 ? r0 : 0;
+        }
+    }
+
+    // increments r0 of the previous step of the same thread
+    private static class DeltaStep extends MockStepEvent implements CpuDeltaState<CpuState> {
+        DeltaStep(int tid, long step) {
+            super(tid, new byte[0], InstructionType.OTHER);
+            this.step = step;
+            this.pc = 0x1000 + step;
+        }
+
+        @Override
+        public CpuState resolve(CpuState last) {
+            return new ThreadStep(getTid(), step, last.getRegisterById(0) + 1);
+        }
+    }
+
+    private static List<Event> trace(int steps) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < steps; i++) {
+            events.add(new Step(i, 0x1000 + 4 * (i % 32), i, i * 3));
+            if (i % 4 == 0) {
+                events.add(new MemoryEventI64(false, TID, 0x8000 + 8 * (i % 16), true, i * 0x0101010101L));
+            }
+        }
+        return events;
+    }
+
+    private static int index(List<Event> events, long step) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i) instanceof Step && ((Step) events.get(i)).getStep() == step) {
+                return i;
+            }
+        }
+        throw new AssertionError("step not found");
+    }
+
+    private static Divergence diff(List<Event> a, List<Event> b) throws IOException {
+        return new TraceDiff(() -> new StepStream(new MockTraceReader(a, ARCH)), () -> new StepStream(new MockTraceReader(b, ARCH)), INTERVAL).compare();
+    }
+
+    @Test
+    public void testIdentical() throws IOException {
+        assertNull(diff(trace(STEPS), trace(STEPS)));
+    }
+
+    @Test
+    public void testRegister() throws IOException {
+        List<Event> b = trace(STEPS);
+        b.set(index(b, 517), new Step(517, 0x1000 + 4 * (517 % 32), 517, 42));
+        Divergence d = diff(trace(STEPS), b);
+        assertEquals(Kind.REGISTER, d.getKind());
+        assertEquals(517, d.getOrdinal());
+        assertEquals("r1", d.getRegister());
+        assertEquals(517 * 3, d.getValueA());
+        assertEquals(42, d.getValueB());
+    }
+
+    @Test
+    public void testPC() throws IOException {
+        List<Event> b = trace(STEPS);
+        b.set(index(b, 3), new Step(3, 0x2000, 3, 9));
+        Divergence d = diff(trace(STEPS), b);
+        assertEquals(Kind.PC, d.getKind());
+        assertEquals(3, d.getOrdinal());
+        assertEquals(0x2000, d.getValueB());
+    }
+
+    @Test
+    public void testMemoryByte() throws IOException {
+        List<Event> b = trace(STEPS);
+        // step 800 writes 800 * 0x0101010101 = 0x32323232320 to 0x8000
+        b.set(index(b, 800) + 1, new MemoryEventI64(false, TID, 0x8000, true, 0x32324232320L));
+        Divergence d = diff(trace(STEPS), b);
+        assertEquals(Kind.MEMORY, d.getKind());
+        assertEquals(800, d.getOrdinal());
+        assertEquals(0x8003, d.getAddress());
+        assertEquals(0x23, d.getValueA());
+        assertEquals(0x24, d.getValueB());
+    }
+
+    @Test
+    public void testMissingWrite() throws IOException {
+        List<Event> b = trace(STEPS);
+        b.add(index(b, 801) + 1, new MemoryEventI32(false, TID, 0x9000, true, 0));
+        Divergence d = diff(trace(STEPS), b);
+        assertEquals(Kind.MEMORY, d.getKind());
+        assertEquals(801, d.getOrdinal());
+        assertEquals(0x9000, d.getAddress());
+        assertEquals(-1, d.getValueA());
+        assertEquals(0, d.getValueB());
+    }
+
+    @Test
+    public void testEnd() throws IOException {
+        Divergence d = diff(trace(STEPS), trace(STEPS - 5));
+        assertEquals(Kind.END, d.getKind());
+        assertEquals(STEPS - 5, d.getOrdinal());
+        assertEquals(STEPS - 5, d.getStepA());
+        assertEquals(-1, d.getStepB());
+    }
+
+    @Test
+    public void testDeltaThreads() throws IOException {
+        List<Event> events = Arrays.asList(new ThreadStep(1, 0, 100), new ThreadStep(2, 1, 200), new DeltaStep(1, 2), new DeltaStep(2, 3), new DeltaStep(2, 4), new DeltaStep(1, 5));
+        long[] expected = {100, 200, 101, 201, 202, 102};
+        StepStream stream = new StepStream(new MockTraceReader(events, ARCH));
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(stream.next());
+            assertEquals(i, stream.getStep());
+            assertEquals(expected[i], stream.getRegister(0));
+        }
+        assertFalse(stream.next());
+    }
+}
@@ -0,0 +1,164 @@
+package org.graalvm.vm.x86.trcview.test.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.memory.Protection;
+import org.graalvm.vm.trcview.analysis.memory.ValueIndex;
+import org.graalvm.vm.trcview.analysis.memory.ValueQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValueIndexTest {
+    private static final long BASE = 0x10000;
+    private static final int[] SIZES = {1, 2, 4, 8};
+
+    private ValueIndex index;
+    private MemoryTrace mem;
+
+    // reference: address, size, normalized value, step
+    private List<long[]> writes;
+
+    @Before
+    public void setup() {
+        index = new ValueIndex(16);
+        mem = new MemoryTrace(index);
+        mem.mmap(BASE, 4 * 4096, new Protection(true, true, false), "data", 0, 0, null, null);
+        writes = new ArrayList<>();
+    }
+
+    private void write(long addr, int size, long value, long step) {
+        mem.write(addr, (byte) size, value, step, null, null, false);
+        if ((addr & ~0xFFFL) != ((addr + size - 1) & ~0xFFFL)) {
+            long val = value;
+            for (int i = 0; i < size; i++) {
+                writes.add(new long[]{addr + i, 1, val & 0xFF, step});
+                val >>= 8;
+            }
+        } else {
+            writes.add(new long[]{addr, size, ValueIndex.normalize(value, size), step});
+        }
+    }
+
+    private List<long[]> expected(long value, long mask, int size, long from, long to) {
+        List<long[]> result = new ArrayList<>();
+        for (long[] w : writes) {
+            if (w[3] < from || w[3] > to) {
+                continue;
+            }
+            if (size != 0 && w[1] != size) {
+                continue;
+            }
+            if ((w[2] & mask) == (ValueIndex.normalize(value, size) & mask)) {
+                result.add(w);
+            }
+        }
+        result.sort((a, b) -> {
+            int cmp = Long.compare(a[3], b[3]);
+            return cmp != 0 ? cmp : Long.compare(a[0], b[0]);
+        });
+        return result;
+    }
+
+    private void check(long value, long mask, int size, long from, long to) {
+        List<long[]> ref = expected(value, mask, size, from, to);
+        List<MemoryUpdate> act = mem.findWrites(value, mask, size, from, to, Integer.MAX_VALUE);
+        assertEquals(ref.size(), act.size());
+        for (int i = 0; i < ref.size(); i++) {
+            assertEquals(ref.get(i)[0], act.get(i).address);
+            assertEquals(ref.get(i)[1], act.get(i).size);
+            assertEquals(ref.get(i)[3], act.get(i).instructionCount);
+        }
+    }
+
+    @Test
+    public void testExact() {
+        write(BASE + 8, 4, 0xdeadbeefL, 3);
+        write(BASE + 0x1010, 8, 0xdeadbeefL, 40);
+        write(BASE + 0x20, 2, 0xbeef, 41);
+
+        List<MemoryUpdate> result = mem.findWrites(0xdeadbeefL, -1, 0, 0, Long.MAX_VALUE, 10);
+        assertEquals(2, result.size());
+        assertEquals(BASE + 8, result.get(0).address);
+        assertEquals(BASE + 0x1010, result.get(1).address);
+
+        assertEquals(1, mem.findWrites(0xdeadbeefL, -1, 8, 0, Long.MAX_VALUE, 10).size());
+        assertEquals(1, mem.findWrites(0xdeadbeefL, -1, 0, 4, Long.MAX_VALUE, 10).size());
+        assertEquals(0, mem.findWrites(0xdeadbeefL, -1, 0, 4, 39, 10).size());
+        assertEquals(1, mem.findWrites(0xdeadbeefL, -1, 0, 0, Long.MAX_VALUE, 1).size());
+        assertEquals(0, mem.findWrites(0x12345678L, -1, 0, 0, Long.MAX_VALUE, 10).size());
+
+        MemoryUpdate first = mem.findFirstWrite(0xbeef, 0xFFFF, 0, 5);
+        assertNotNull(first);
+        assertEquals(40, first.instructionCount);
+        assertNull(mem.findFirstWrite(0xbeef, 0xFFFF, 0, 42));
+    }
+
+    @Test
+    public void testNormalized() {
+        // byte writes are passed sign extended
+        write(BASE, 1, (byte) 0xF0, 1);
+        assertEquals(1, mem.findWrites(0xF0, -1, 1, 0, Long.MAX_VALUE, 10).size());
+        assertEquals(1, mem.findWrites(0xF0, -1, 0, 0, Long.MAX_VALUE, 10).size());
+        assertEquals(0, mem.findWrites(0xF0, -1, 2, 0, Long.MAX_VALUE, 10).size());
+    }
+
+    @Test
+    public void testWindows() {
+        write(BASE, 8, 0x1122334455667788L, 5);
+        write(BASE, 8, 0x42, 100);
+        assertTrue(index.contains(index.getWindow(5), 0x1122334455667788L, -1, 0));
+        assertFalse(index.contains(index.getWindow(100), 0x1122334455667788L, -1, 0));
+        assertFalse(index.contains(index.getWindow(50), 0x42, -1, 0));
+        assertTrue(index.contains(index.getWindow(100), 0x42, -1, 8));
+        assertFalse(index.contains(index.getWindow(100), 0x42, -1, 4));
+        assertTrue(index.contains(index.getWindow(5), 0x7788, 0xFFFF, 0));
+    }
+
+    @Test
+    public void testRandom() {
+        Random rnd = new Random(42);
+        long[] pool = {0, 1, 0x41, 0xFF, 0x1234, 0xdeadbeefL, -1, 0x7fff0000L};
+        for (long step = 0; step < 2000; step++) {
+            int size = SIZES[rnd.nextInt(SIZES.length)];
+            long addr = BASE + rnd.nextInt(3 * 4096);
+            long value = pool[rnd.nextInt(pool.length)];
+            if (rnd.nextInt(4) == 0) {
+                value = rnd.nextLong();
+            }
+            write(addr, size, value, step);
+        }
+        index.trim();
+
+        for (long value : pool) {
+            for (int size : new int[]{0, 1, 2, 4, 8}) {
+                check(value, -1, size, 0, Long.MAX_VALUE);
+                check(value, -1, size, 100, 1500);
+                check(value, 0xFF, size, 33, 700);
+            }
+        }
+    }
+
+    @Test
+    public void testQuery() {
+        ValueQuery query = ValueQuery.parse("0xdeadbeef/ffff0000:4");
+        assertEquals(0xdeadbeefL, query.value);
+        assertEquals(0xffff0000L, query.mask);
+        assertEquals(4, query.size);
+        assertEquals("deadbeef/ffff0000:4", query.toString());
+
+        query = ValueQuery.parse("41");
+        assertEquals(0x41, query.value);
+        assertEquals(-1, query.mask);
+        assertEquals(0, query.size);
+    }
+}
@@ -0,0 +1,129 @@
+package org.graalvm.vm.x86.trcview.test.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.vm.trcview.batch.Batch;
+import org.graalvm.vm.trcview.batch.BatchReport;
+import org.graalvm.vm.trcview.batch.BatchTask;
+import org.graalvm.vm.x86.trcview.test.data.LSIRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchTest {
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("trcview-batch").toFile();
+    }
+
+    @After
+    public void cleanup() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private File copy(String name) throws IOException {
+        File file = new File(dir, name);
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    private static List<String[]> parse(StringWriter buf) {
+        List<String[]> result = new ArrayList<>();
+        for (String line : buf.toString().split("\n")) {
+            if (!line.startsWith("#")) {
+                result.add(line.split("\t", -1));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testTasks() throws Exception {
+        Batch batch = new Batch();
+        batch.setOutputDirectory(dir);
+        batch.setWorkers(2);
+        batch.addTask(BatchTask.SYMBOLS);
+        batch.addTask(BatchTask.MAP);
+        batch.addTask(BatchTask.PROFILE);
+        batch.addTask(BatchTask.SYSCALLS);
+
+        List<File> traces = Arrays.asList(copy("a.trc"), copy("b.trc"));
+        StringWriter buf = new StringWriter();
+        try (BatchReport report = new BatchReport(new PrintWriter(buf))) {
+            assertTrue(batch.run(traces, report));
+        }
+
+        for (String name : new String[]{"a", "b"}) {
+            assertTrue(new File(dir, name + ".sym").isFile());
+            assertTrue(new File(dir, name + ".map").isFile());
+            assertTrue(new File(dir, name + ".strace").isFile());
+            List<String> profile = Files.readAllLines(new File(dir, name + ".profile").toPath());
+            assertTrue(profile.get(0).startsWith("# "));
+        }
+
+        int total = 0;
+        for (String[] line : parse(buf)) {
+            assertEquals(5, line.length);
+            assertFalse(line[2].equals(BatchReport.FAILED));
+            if (line[1].equals("total")) {
+                total++;
+            }
+        }
+        assertEquals(2, total);
+    }
+
+    @Test
+    public void testMemory() throws Exception {
+        Batch batch = new Batch();
+        batch.setOutputDirectory(dir);
+        batch.addTask(BatchTask.MEMORY);
+        batch.setMemoryRange(0x1000, 0x1100);
+        batch.setIgnoreUnmapped(true);
+
+        StringWriter buf = new StringWriter();
+        try (BatchReport report = new BatchReport(new PrintWriter(buf))) {
+            assertTrue(batch.run(Arrays.asList(copy("a.trc")), report));
+        }
+        assertEquals(0x100, new File(dir, "a.bin").length());
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        Batch batch = new Batch();
+        batch.setOutputDirectory(dir);
+        batch.addTask(BatchTask.SYMBOLS);
+
+        StringWriter buf = new StringWriter();
+        try (BatchReport report = new BatchReport(new PrintWriter(buf))) {
+            assertFalse(batch.run(Arrays.asList(new File(dir, "missing.trc")), report));
+        }
+        List<String[]> lines = parse(buf);
+        assertEquals("load", lines.get(0)[1]);
+        assertEquals(BatchReport.FAILED, lines.get(0)[2]);
+        assertEquals("total", lines.get(1)[1]);
+        assertEquals(BatchReport.FAILED, lines.get(1)[2]);
+    }
+}
@@ -0,0 +1,176 @@
+package org.graalvm.vm.x86.trcview.test.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.pdp11.io.PDP11TraceReader;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.trcview.net.Local;
+
+/**
+ * Load time and heap usage of a trace with and without type recovery. This is not a unit test, run
+ * it with {@code java TypeRecoveryBenchmark [trace file | repetitions] [rounds]}. Without a trace
+ * file, the reference trace is resources/straightline.trc with its steps repeated as a loop, so the
+ * trace is large enough to measure. Peak heap is the sum of the peaks of all heap pools during the
+ * load, retained heap is the heap used after a GC while the loaded trace is still reachable.
+ */
+public class TypeRecoveryBenchmark {
+    private static final int MAGIC_XTRC = 0x58545243;
+
+    // size of a record of the PDP-11 trace format without the magic
+    private static int getRecordSize(ByteBuffer buf, int magic) throws IOException {
+        switch (magic) {
+            case PDP11TraceReader.MAGIC_CPU0:
+                return 8 * 2 + 2 + 3 * 2 + 4 + 8;
+            case PDP11TraceReader.MAGIC_CPUZ: {
+                short mask = buf.getShort(buf.position() + 2);
+                int size = 4 + (mask < 0 ? 8 : 4) + ((mask >> 8) & 3) * 2;
+                return size + Integer.bitCount(mask & 0xFF) * 2;
+            }
+            case PDP11TraceReader.MAGIC_CPU1:
+            case PDP11TraceReader.MAGIC_TRAP:
+            case PDP11TraceReader.MAGIC_IRQ0:
+            case PDP11TraceReader.MAGIC_DLV1:
+            case PDP11TraceReader.MAGIC_RX2C:
+            case PDP11TraceReader.MAGIC_RX2S:
+            case PDP11TraceReader.MAGIC_RX2E:
+                return 4;
+            case PDP11TraceReader.MAGIC_BUS0:
+            case PDP11TraceReader.MAGIC_RX2D:
+            case PDP11TraceReader.MAGIC_RX2A:
+                return 8;
+            case PDP11TraceReader.MAGIC_BUS1:
+                return 4 + Short.toUnsignedInt(buf.getShort(buf.position() + 2));
+            default:
+                throw new IOException("unsupported record " + Integer.toHexString(magic));
+        }
+    }
+
+    /**
+     * Repeat everything after the first full CPU state {@code repetitions} times. The step numbers
+     * of the delta states are rewritten so that they keep increasing.
+     */
+    private static byte[] repeat(byte[] trace, int repetitions) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(trace);
+        if (buf.getInt() != MAGIC_XTRC) {
+            throw new IOException("not a trace file");
+        }
+        buf.getShort();
+        int body = -1;
+        while (body == -1) {
+            int magic = buf.getInt();
+            buf.position(buf.position() + getRecordSize(buf, magic));
+            if (magic == PDP11TraceReader.MAGIC_CPU0) {
+                body = buf.position();
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(trace, 0, body);
+        long step = 0;
+        for (int i = 0; i < repetitions; i++) {
+            buf.position(body);
+            while (buf.hasRemaining()) {
+                int start = buf.position();
+                int magic = buf.getInt();
+                int size = getRecordSize(buf, magic);
+                byte[] record = new byte[size + 4];
+                System.arraycopy(trace, start, record, 0, record.length);
+                if (magic == PDP11TraceReader.MAGIC_CPUZ) {
+                    ByteBuffer rec = ByteBuffer.wrap(record);
+                    if (rec.getShort(6) < 0) {
+                        rec.putLong(8, ++step);
+                    } else {
+                        rec.putInt(8, (int) ++step);
+                    }
+                }
+                out.write(record);
+                buf.position(start + record.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Local load(byte[] trace, boolean typeRecovery) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(trace)) {
+            TraceFileReader reader = new TraceFileReader(in);
+            Analysis analysis = new Analysis(reader.getArchitecture(), Collections.emptyList(), typeRecovery, false);
+            analysis.start();
+            Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, null);
+            BlockNode root = null;
+            for (BlockNode block : threads.values()) {
+                if (root == null || block.getStep() < root.getStep()) {
+                    root = block;
+                }
+            }
+            analysis.finish(root);
+            // type recovery results are transferred when the analyzer is created
+            return new Local(reader.getArchitecture(), root, threads, analysis);
+        }
+    }
+
+    private static long getPeakHeap() {
+        long sum = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                sum += pool.getPeakUsage().getUsed();
+            }
+        }
+        return sum;
+    }
+
+    private static long getUsedHeap() {
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static void run(byte[] trace, boolean typeRecovery, int round) throws IOException {
+        long before = getUsedHeap();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        Local trc = load(trace, typeRecovery);
+        long time = System.nanoTime() - start;
+        long peak = getPeakHeap();
+        long retained = getUsedHeap() - before;
+        System.out.printf("round %d, type recovery %-3s: %d steps in %.3f s, peak heap %d MB, retained heap %d MB%n", round, typeRecovery ? "on" : "off", trc.getInstructionCount(), time / 1e9,
+                        peak >> 20, retained >> 20);
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[] trace;
+        if (args.length > 0 && !args[0].matches("[0-9]+")) {
+            trace = Files.readAllBytes(Paths.get(args[0]));
+        } else {
+            int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+            try (InputStream in = TypeRecoveryBenchmark.class.getResourceAsStream("resources/straightline.trc")) {
+                trace = repeat(in.readAllBytes(), repetitions);
+            }
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // warmup
+        load(trace, false);
+        load(trace, true);
+
+        for (int round = 0; round < rounds; round++) {
+            run(trace, false, round);
+            run(trace, true, round);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.graalvm.vm.x86.trcview.test.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.expression.CompiledExpression;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionCompiler;
+import org.graalvm.vm.trcview.expression.ExpressionContext;
+import org.graalvm.vm.trcview.expression.Parser;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.junit.Test;
+
+public class ExpressionCompilerTest {
+    private static class State implements CpuState {
+        @Override
+        public long getStep() {
+            return 0;
+        }
+
+        @Override
+        public long getPC() {
+            return 0x1000;
+        }
+
+        @Override
+        public long get(String name) {
+            switch (name) {
+                case "rax":
+                    return 42;
+                case "rbx":
+                    return -7;
+                case "rcx":
+                    return 3;
+                default:
+                    throw new IllegalArgumentException("unknown register " + name);
+            }
+        }
+
+        @Override
+        public int getTid() {
+            return 0;
+        }
+    }
+
+    private static void check(String str) throws ParseException, EvaluationException {
+        Map<String, Long> constants = new HashMap<>();
+        constants.put("$", 0x10L);
+        CpuState state = new State();
+        Expression expr = new Parser(str).parseExpression();
+        long expected = expr.evaluate(new ExpressionContext(state, null, constants));
+        CompiledExpression compiled = new ExpressionCompiler(null, constants).compile(expr);
+        assertEquals(expected, compiled.evaluate(state));
+        // second evaluation uses the cached variable kind
+        assertEquals(expected, compiled.evaluate(state));
+    }
+
+    @Test
+    public void testArithmetic() throws ParseException, EvaluationException {
+        check("(rax + 4) * 2 - rbx / rcx");
+        check("-rax + ~rbx");
+        check("rax & 0xF0 | rcx ^ 1");
+        check("rbx >> 1");
+        check("rbx >>> 1");
+        check("rcx << 4");
+    }
+
+    @Test
+    public void testLogic() throws ParseException, EvaluationException {
+        check("rax == 42 && rbx < 0");
+        check("rax != 42 || rcx >= 3");
+        check("!(rax <= 41) && rcx > 2");
+    }
+
+    @Test
+    public void testCalls() throws ParseException, EvaluationException {
+        check("if(rax == 42, rcx, rbx)");
+        check("ite(rax, 1, 2)");
+        check("bswap16(rax)");
+        check("bswap32(rbx)");
+        check("bswap64(rcx)");
+    }
+
+    @Test
+    public void testConstant() throws ParseException, EvaluationException {
+        check("$ + rax");
+    }
+
+    @Test
+    public void testArity() throws ParseException {
+        Expression expr = new Parser("if(rax, 1)").parseExpression();
+        try {
+            new ExpressionCompiler(null).compile(expr);
+            fail();
+        } catch (EvaluationException e) {
+            assertEquals("Expected 3 arguments, got 2", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.none.io.GenericStepEvent;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.trcview.libtrc.ConcurrentGenericTrace;
+import org.graalvm.vm.trcview.libtrc.GenericTrace;
+import org.graalvm.vm.trcview.libtrc.ProgramCounter;
+import org.graalvm.vm.trcview.libtrc.Register;
+import org.graalvm.vm.trcview.libtrc.StateFormat;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.Server;
+import org.junit.Test;
+
+public class ConcurrentGenericTraceTest {
+    private static final int THREADS = 4;
+    private static final int STEPS = 20000;
+
+    @StateFormat("PC=${pc} A=${a} B=${b}")
+    public static class State {
+        @Register @ProgramCounter public long pc;
+        @Register public long a;
+        @Register public int b;
+    }
+
+    private static String mnemonic(int tid, int i) {
+        // some strings are shared by all threads, some are private to one thread
+        return i % 2 == 0 ? "op" + (i % 64) : "t" + tid + "op" + (i % 32);
+    }
+
+    private static long[] run(GenericTrace<State> trc, int tid, AtomicLong counter) throws IOException {
+        Random rnd = new Random(tid);
+        long[] a = new long[STEPS];
+        State state = new State();
+        state.b = tid;
+        for (int i = 0; i < STEPS; i++) {
+            state.pc = 0x1000 * (tid + 1) + i * 2;
+            if (rnd.nextInt(3) == 0) {
+                state.a = rnd.nextLong();
+            }
+            a[i] = state.a;
+            trc.step(tid, counter.getAndIncrement(), state, new String[]{mnemonic(tid, i)}, new byte[]{(byte) i}, GenericTrace.TYPE_OTHER);
+            trc.writeI32(tid, 0x8000 + i * 4, i);
+        }
+        return a;
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicLong counter = new AtomicLong();
+        long[][] a = new long[THREADS][];
+        Throwable[] errors = new Throwable[THREADS];
+        try (ConcurrentGenericTrace<State> trc = new ConcurrentGenericTrace<>(out, State.class)) {
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int tid = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        a[tid] = run(trc.getWriter(tid), tid, counter);
+                    } catch (Throwable e) {
+                        errors[tid] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        for (Throwable e : errors) {
+            if (e != null) {
+                throw new AssertionError(e);
+            }
+        }
+
+        List<List<GenericStepEvent>> steps = new ArrayList<>();
+        int[] writes = new int[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            steps.add(new ArrayList<>());
+        }
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(out.toByteArray()));
+        Event evt;
+        while ((evt = reader.read()) != null) {
+            int tid = evt.getTid();
+            if (evt instanceof GenericStepEvent) {
+                steps.get(tid).add((GenericStepEvent) evt);
+            } else if (evt instanceof MemoryEvent) {
+                // every write follows the step of its own thread
+                MemoryEvent write = (MemoryEvent) evt;
+                int i = steps.get(tid).size() - 1;
+                assertEquals(i, writes[tid]);
+                assertEquals(0x8000 + i * 4, write.getAddress());
+                assertEquals(i, write.getValue());
+                writes[tid]++;
+            }
+        }
+
+        for (int t = 0; t < THREADS; t++) {
+            List<GenericStepEvent> thread = steps.get(t);
+            assertEquals(STEPS, thread.size());
+            assertEquals(STEPS, writes[t]);
+            long last = -1;
+            for (int i = 0; i < STEPS; i++) {
+                GenericStepEvent step = thread.get(i);
+                assertTrue(step.getStep() > last);
+                last = step.getStep();
+                assertEquals(0x1000 * (t + 1) + i * 2, step.get("pc"));
+                assertEquals(a[t][i], step.get("a"));
+                assertEquals(t, step.get("b"));
+                assertArrayEquals(new String[]{mnemonic(t, i)}, step.getDisassemblyComponents());
+                assertArrayEquals(new byte[]{(byte) i}, step.getMachinecode());
+            }
+        }
+    }
+
+    @Test
+    public void testAnalysis() throws Exception {
+        long shared = 0x10000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicLong counter = new AtomicLong(1);
+        Throwable[] errors = new Throwable[THREADS];
+        try (ConcurrentGenericTrace<State> trc = new ConcurrentGenericTrace<>(out, State.class)) {
+            GenericTrace<State> main = trc.getWriter(0);
+            main.mmap(0, shared, 4096, Mman.PROT_READ | Mman.PROT_WRITE, Mman.MAP_PRIVATE | Mman.MAP_ANONYMOUS, 0, -1, shared, null);
+            main.flush();
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int tid = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        GenericTrace<State> writer = trc.getWriter(tid);
+                        State state = new State();
+                        for (int i = 0; i < STEPS; i++) {
+                            state.pc = 0x1000 * (tid + 1) + i * 2;
+                            long step = counter.getAndIncrement();
+                            writer.step(tid, step, state, new String[]{"st"}, new byte[]{0}, GenericTrace.TYPE_OTHER);
+                            // all threads write their step number to the same address
+                            writer.writeI64(tid, shared, step);
+                            writer.writeI64(tid, shared + 8 * (tid + 1), i);
+                        }
+                    } catch (Throwable e) {
+                        errors[tid] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        for (Throwable e : errors) {
+            if (e != null) {
+                throw new AssertionError(e);
+            }
+        }
+
+        // the batches of the threads overlap, so the writes are not in step order in the file
+        Local trc = Server.load(new ByteArrayInputStream(out.toByteArray()));
+        Random rnd = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            long step = 1 + rnd.nextInt(THREADS * STEPS);
+            assertEquals(step, trc.getI64(shared, step));
+        }
+        long last = THREADS * STEPS;
+        assertEquals(last, trc.getI64(shared, last));
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(STEPS - 1, trc.getI64(shared + 8 * (t + 1), last));
+        }
+    }
+
+    @Test
+    public void testDefUse() throws Exception {
+        long shared = 0x10000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicLong counter = new AtomicLong(1);
+        int[] owner = new int[THREADS * STEPS + 1];
+        Throwable[] errors = new Throwable[THREADS];
+        try (ConcurrentGenericTrace<State> trc = new ConcurrentGenericTrace<>(out, State.class)) {
+            GenericTrace<State> main = trc.getWriter(0);
+            main.mmap(0, shared, 4096, Mman.PROT_READ | Mman.PROT_WRITE, Mman.MAP_PRIVATE | Mman.MAP_ANONYMOUS, 0, -1, shared, null);
+            main.flush();
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int tid = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        GenericTrace<State> writer = trc.getWriter(tid);
+                        State state = new State();
+                        for (int i = 0; i < STEPS; i++) {
+                            state.pc = 0x1000 * (tid + 1) + i * 2;
+                            long step = counter.getAndIncrement();
+                            owner[(int) step] = tid;
+                            writer.step(tid, step, state, new String[]{"xchg"}, new byte[]{0}, GenericTrace.TYPE_OTHER);
+                            // in step order, every step reads the value of the previous step
+                            writer.readI64(tid, shared);
+                            writer.writeI64(tid, shared, step);
+                        }
+                    } catch (Throwable e) {
+                        errors[tid] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        for (Throwable e : errors) {
+            if (e != null) {
+                throw new AssertionError(e);
+            }
+        }
+
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(out.toByteArray()));
+        Analysis analysis = new Analysis(reader.getArchitecture(), Collections.emptyList(), false, false, true, true);
+        analysis.start();
+        Map<Integer, BlockNode> parsed = TraceParser.parse(reader, analysis, null);
+        BlockNode root = null;
+        for (BlockNode block : parsed.values()) {
+            if (root == null || block.getStep() < root.getStep()) {
+                root = block;
+            }
+        }
+        analysis.finish(root);
+
+        DefUseIndex defuse = analysis.getDefUseIndex();
+        for (long step = 2; step <= THREADS * STEPS; step++) {
+            long producer = DefUseIndex.ref(owner[(int) step - 1], step - 1);
+            long[] producers = defuse.getProducers(DefUseIndex.ref(owner[(int) step], step));
+            boolean found = false;
+            for (long ref : producers) {
+                found |= ref == producer;
+                // never a write which comes later in step order
+                assertTrue(DefUseIndex.getStep(ref) < step);
+            }
+            assertTrue("producer of step " + step, found);
+        }
+
+        // the heatmap only counts accesses per bucket and does not depend on the order
+        AccessHeatmap.Level level = analysis.getMemoryTrace().getHeatmap().getBaseLevel();
+        assertEquals(1, level.getRows());
+        long reads = 0;
+        long writes = 0;
+        for (int column = 0; column < level.getColumns(); column++) {
+            reads += level.getReads(0, column);
+            writes += level.getWrites(0, column);
+        }
+        assertEquals(THREADS * STEPS, reads);
+        assertEquals(THREADS * STEPS, writes);
+    }
+}
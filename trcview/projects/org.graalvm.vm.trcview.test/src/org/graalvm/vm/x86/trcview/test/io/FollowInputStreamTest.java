@@ -0,0 +1,85 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import org.graalvm.vm.trcview.io.FollowInputStream;
+import org.junit.Test;
+
+public class FollowInputStreamTest {
+    private static class GrowingInputStream extends InputStream {
+        private final byte[] data;
+        private int available;
+        private int pos;
+
+        GrowingInputStream(byte[] data) {
+            this.data = data;
+            available = 0;
+            pos = 0;
+        }
+
+        void grow(int n) {
+            available = Math.min(data.length, available + n);
+        }
+
+        @Override
+        public int read() {
+            if (pos == available) {
+                return -1;
+            }
+            return data[pos++] & 0xFF;
+        }
+    }
+
+    @Test
+    public void testStop() throws IOException {
+        int[] calls = {0};
+        FollowInputStream[] in = {null};
+        in[0] = new FollowInputStream(new ByteArrayInputStream(new byte[]{1, 2}), () -> {
+            calls[0]++;
+            in[0].stop();
+        });
+        assertEquals(1, in[0].read());
+        assertEquals(2, in[0].read());
+        assertEquals(0, calls[0]);
+        assertEquals(-1, in[0].read());
+        assertEquals(1, calls[0]);
+        assertEquals(-1, in[0].read());
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void testGrow() throws IOException {
+        GrowingInputStream data = new GrowingInputStream(new byte[]{1, 2, 3, 4});
+        int[] calls = {0};
+        try (FollowInputStream in = new FollowInputStream(data, () -> {
+            calls[0]++;
+            data.grow(1);
+        })) {
+            byte[] buf = new byte[4];
+            int n = 0;
+            while (n < buf.length) {
+                n += in.read(buf, n, buf.length - n);
+            }
+            assertEquals(4, calls[0]);
+            assertEquals(1, buf[0]);
+            assertEquals(4, buf[3]);
+        }
+    }
+
+    @Test
+    public void testPartialRead() throws IOException {
+        InputStream data = new SequenceInputStream(new ByteArrayInputStream(new byte[]{1, 2}), new ByteArrayInputStream(new byte[]{3}));
+        FollowInputStream in = new FollowInputStream(data, () -> {
+            throw new AssertionError("unexpected idle call");
+        });
+        byte[] buf = new byte[3];
+        assertEquals(2, in.read(buf, 0, 3));
+        assertEquals(1, in.read(buf, 2, 1));
+        assertEquals(3, buf[2]);
+    }
+}
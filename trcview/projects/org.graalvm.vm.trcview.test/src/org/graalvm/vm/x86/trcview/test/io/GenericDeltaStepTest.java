@@ -0,0 +1,132 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.none.io.GenericDeltaStepEvent;
+import org.graalvm.vm.trcview.arch.none.io.GenericStepEvent;
+import org.graalvm.vm.trcview.libtrc.GenericTrace;
+import org.graalvm.vm.trcview.libtrc.ProgramCounter;
+import org.graalvm.vm.trcview.libtrc.Register;
+import org.graalvm.vm.trcview.libtrc.StateFormat;
+import org.junit.Test;
+
+public class GenericDeltaStepTest {
+    private static final int STEPS = 12000;
+
+    @StateFormat("PC=${pc} A=${a} B=${b}")
+    public static class State {
+        @Register @ProgramCounter public long pc;
+        @Register public long a;
+        @Register public int b;
+    }
+
+    @StateFormat("PC=${pc} X=${x} Y=${y}")
+    public static class SmallState {
+        @Register @ProgramCounter public short pc;
+        @Register public byte x;
+        @Register public short y;
+    }
+
+    private static List<GenericStepEvent> read(long[] a, int[] b) throws IOException {
+        Random rnd = new Random(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GenericTrace<State> trc = new GenericTrace<>(out, State.class);
+        State state = new State();
+        for (int i = 0; i < STEPS; i++) {
+            state.pc = 0x1000 + i * 2;
+            if (rnd.nextInt(3) == 0) {
+                state.a = rnd.nextLong();
+            }
+            if (rnd.nextInt(100) == 0) {
+                state.b = rnd.nextInt();
+            }
+            a[i] = state.a;
+            b[i] = state.b;
+            trc.step(0, i, state, new String[]{"nop"}, new byte[]{0}, GenericTrace.TYPE_OTHER);
+        }
+        trc.flush();
+
+        List<GenericStepEvent> steps = new ArrayList<>();
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(out.toByteArray()));
+        Event evt;
+        while ((evt = reader.read()) != null) {
+            if (evt instanceof GenericStepEvent) {
+                steps.add((GenericStepEvent) evt);
+            }
+        }
+        return steps;
+    }
+
+    @Test
+    public void testSequential() throws IOException {
+        long[] a = new long[STEPS];
+        int[] b = new int[STEPS];
+        List<GenericStepEvent> steps = read(a, b);
+        assertEquals(STEPS, steps.size());
+        assertTrue(steps.get(1) instanceof GenericDeltaStepEvent);
+        for (int i = 0; i < STEPS; i++) {
+            GenericStepEvent step = steps.get(i);
+            assertEquals(0x1000 + i * 2, step.get("pc"));
+            assertEquals(a[i], step.get("a"));
+            assertEquals(b[i], step.get("b"));
+        }
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        long[] a = new long[STEPS];
+        int[] b = new int[STEPS];
+        List<GenericStepEvent> steps = read(a, b);
+        Random rnd = new Random(2);
+        for (int n = 0; n < 1000; n++) {
+            int i = rnd.nextInt(STEPS);
+            GenericStepEvent step = steps.get(i);
+            assertEquals(a[i], step.get("a"));
+            assertEquals(b[i], step.get("b"));
+        }
+        // backwards, every state is reconstructed from the previous keyframe
+        for (int i = STEPS - 1; i >= 0; i -= 7) {
+            assertEquals(a[i], steps.get(i).get("a"));
+        }
+    }
+
+    @Test
+    public void testSmallState() throws IOException {
+        // more steps than fit into the buffer of the writer
+        int steps = GenericTrace.BUFFER_SIZE / 16;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GenericTrace<SmallState> trc = new GenericTrace<>(out, SmallState.class);
+        SmallState state = new SmallState();
+        for (int i = 0; i < steps; i++) {
+            state.pc = (short) (0xF000 + i);
+            state.x = (byte) (i / 3);
+            state.y = (short) (i / 1000);
+            trc.step(0, i, state, new String[]{"nop", "x"}, new byte[]{0}, GenericTrace.TYPE_OTHER);
+        }
+        trc.close();
+
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(out.toByteArray()));
+        Event evt;
+        int i = 0;
+        while ((evt = reader.read()) != null) {
+            if (evt instanceof GenericStepEvent) {
+                GenericStepEvent step = (GenericStepEvent) evt;
+                assertEquals((short) (0xF000 + i) & 0xFFFF, step.getPC());
+                assertEquals((byte) (i / 3) & 0xFF, step.get("x"));
+                assertEquals(i / 1000, step.get("y"));
+                i++;
+            }
+        }
+        assertEquals(steps, i);
+    }
+}
@@ -0,0 +1,92 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.graalvm.vm.trcview.libtrc.GenericTrace;
+import org.graalvm.vm.trcview.libtrc.ProgramCounter;
+import org.graalvm.vm.trcview.libtrc.Register;
+import org.graalvm.vm.trcview.libtrc.StateFormat;
+
+/**
+ * Throughput of {@link GenericTrace} in steps per second. This is not a unit test, run it with
+ * {@code java GenericTraceBenchmark [steps] [rounds]}. Every step changes the PC and one or two
+ * registers of a 16 register state, every fourth step writes memory. The trace is written to a
+ * stream which only counts the bytes, so the numbers do not include any I/O.
+ */
+public class GenericTraceBenchmark {
+    @StateFormat("PC=${pc} R0=${r0} R1=${r1} R2=${r2} R3=${r3} FLAGS=${flags}")
+    public static class State {
+        @Register @ProgramCounter public long pc;
+        @Register public long r0;
+        @Register public long r1;
+        @Register public long r2;
+        @Register public long r3;
+        @Register public long r4;
+        @Register public long r5;
+        @Register public long r6;
+        @Register public long r7;
+        @Register public long r8;
+        @Register public long r9;
+        @Register public long r10;
+        @Register public long r11;
+        @Register public long r12;
+        @Register public long r13;
+        @Register public long r14;
+        @Register public int flags;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static final String[][] ASM = {{"add", "r0", "r1"}, {"mov", "r2", "r0"}, {"st", "r2", "[r3]"}, {"cmp", "r0", "r4"}};
+    private static final byte[][] CODE = {{0x01, 0x02}, {0x03, 0x04}, {0x05, 0x06}, {0x07, 0x08}};
+
+    private static long run(long steps) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        State state = new State();
+        try (GenericTrace<State> trc = new GenericTrace<>(out, State.class)) {
+            for (long i = 0; i < steps; i++) {
+                int n = (int) (i & 3);
+                state.pc += 2;
+                state.r0 += i;
+                if (n == 1) {
+                    state.r2 = state.r0;
+                } else if (n == 2) {
+                    trc.writeI64(0, 0x10000 + (i & 0xFFF) * 8, state.r2);
+                } else if (n == 3) {
+                    state.flags = (int) i;
+                }
+                trc.step(0, i, state, ASM[n], CODE[n], GenericTrace.TYPE_OTHER);
+            }
+        }
+        return out.count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long steps = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        // warmup
+        run(steps / 10);
+
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            long bytes = run(steps);
+            long time = System.nanoTime() - start;
+            double seconds = time / 1e9;
+            System.out.printf("round %d: %d steps in %.3f s, %.0f steps/s, %.1f bytes/step%n", round, steps, seconds, steps / seconds, (double) bytes / steps);
+        }
+    }
+}
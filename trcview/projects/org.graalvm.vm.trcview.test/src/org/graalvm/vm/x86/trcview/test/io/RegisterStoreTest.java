@@ -0,0 +1,76 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.graalvm.vm.trcview.arch.io.RegisterStore;
+import org.junit.Test;
+
+public class RegisterStoreTest {
+    @Test
+    public void testSimple() {
+        RegisterStore store = new RegisterStore(4);
+        assertEquals(0, store.add());
+        store.set(0, 42);
+        store.set(1, 0);
+        assertEquals(1, store.add());
+        store.set(1, 7);
+        assertEquals(2, store.add());
+        store.set(0, 42);
+        store.set(0, 43);
+
+        assertEquals(3, store.size());
+        assertEquals(42, store.get(0, 0));
+        assertEquals(42, store.get(0, 1));
+        assertEquals(43, store.get(0, 2));
+        assertEquals(0, store.get(1, 0));
+        assertEquals(7, store.get(1, 1));
+        assertEquals(7, store.get(1, 2));
+        assertEquals(0, store.get(3, 2));
+
+        assertTrue(store.isChanged(0, 0));
+        assertFalse(store.isChanged(0, 1));
+        assertTrue(store.isChanged(0, 2));
+        assertFalse(store.isChanged(1, 0));
+        assertTrue(store.isChanged(1, 1));
+    }
+
+    @Test
+    public void testRandom() {
+        Random rnd = new Random(3);
+        int registers = 8;
+        int states = 100000;
+        long[][] expected = new long[states][registers];
+        RegisterStore store = new RegisterStore(registers);
+        long[] current = new long[registers];
+        for (int i = 0; i < states; i++) {
+            store.add();
+            // sparse updates with long runs of unchanged registers
+            int changes = rnd.nextInt(10) == 0 ? registers : rnd.nextInt(3);
+            for (int n = 0; n < changes; n++) {
+                int reg = rnd.nextInt(registers);
+                if (reg == registers - 1 && rnd.nextInt(1000) != 0) {
+                    continue;
+                }
+                long value = rnd.nextInt(4) == 0 ? current[reg] : rnd.nextLong();
+                current[reg] = value;
+                store.set(reg, value);
+            }
+            System.arraycopy(current, 0, expected[i], 0, registers);
+        }
+
+        for (int i = 0; i < states; i++) {
+            for (int reg = 0; reg < registers; reg++) {
+                assertEquals(expected[i][reg], store.get(reg, i));
+            }
+        }
+        for (int n = 0; n < 1000; n++) {
+            int i = rnd.nextInt(states);
+            int reg = rnd.nextInt(registers);
+            assertEquals(expected[i][reg], store.get(reg, i));
+        }
+    }
+}
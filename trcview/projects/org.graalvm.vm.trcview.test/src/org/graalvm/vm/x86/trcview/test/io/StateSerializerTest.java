@@ -0,0 +1,69 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.graalvm.vm.trcview.libtrc.ProgramCounter;
+import org.graalvm.vm.trcview.libtrc.Register;
+import org.graalvm.vm.trcview.libtrc.StateField;
+import org.graalvm.vm.trcview.libtrc.StateFormat;
+import org.graalvm.vm.trcview.libtrc.StateSerializer;
+import org.junit.Test;
+
+public class StateSerializerTest {
+    @StateFormat("PC=${pc}")
+    public static class State {
+        @Register public byte i8 = (byte) 0x81;
+        @Register @ProgramCounter public short pc = (short) 0xFFFE;
+        @Register private int i32 = 0x12345678;
+        @Register public long i64 = 0x0102030405060708L;
+        @Register public float f32 = 1.5f;
+        @Register public double f64 = -2.25;
+        public long ignored = 42;
+    }
+
+    private static StateField field(StateSerializer<?> serializer, String name) {
+        for (StateField field : serializer.getLayout()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new AssertionError("no field " + name);
+    }
+
+    @Test
+    public void testLayout() {
+        StateSerializer<State> serializer = new StateSerializer<>(State.class);
+        assertEquals(6, serializer.getLayout().size());
+        assertEquals(1 + 2 + 4 + 8 + 4 + 8, serializer.getSize());
+        // larger fields first
+        assertTrue(field(serializer, "i64").getOffset() < 16 && field(serializer, "f64").getOffset() < 16);
+        assertTrue(field(serializer, "i32").getOffset() < 24 && field(serializer, "f32").getOffset() < 24);
+        assertEquals(24, field(serializer, "pc").getOffset());
+        assertEquals(26, field(serializer, "i8").getOffset());
+        assertEquals(StateSerializer.TYPE_I16, field(serializer, "pc").getType());
+        assertEquals(0xFFFE, serializer.getPC(new State()));
+    }
+
+    @Test
+    public void testSerialize() {
+        StateSerializer<State> serializer = new StateSerializer<>(State.class);
+        State state = new State();
+        byte[] buf = new byte[serializer.getSize() + 3];
+        serializer.serialize(state, buf, 3);
+
+        ByteBuffer data = ByteBuffer.wrap(buf, 3, serializer.getSize()).slice();
+        assertEquals((byte) 0x81, data.get(field(serializer, "i8").getOffset()));
+        assertEquals((short) 0xFFFE, data.getShort(field(serializer, "pc").getOffset()));
+        assertEquals(0x12345678, data.getInt(field(serializer, "i32").getOffset()));
+        assertEquals(0x0102030405060708L, data.getLong(field(serializer, "i64").getOffset()));
+        assertEquals(Float.floatToRawIntBits(1.5f), data.getInt(field(serializer, "f32").getOffset()));
+        assertEquals(Double.doubleToRawLongBits(-2.25), data.getLong(field(serializer, "f64").getOffset()));
+        assertEquals(0, buf[0]);
+
+        state.i64 = -1;
+        assertEquals(-1L, ByteBuffer.wrap(serializer.serialize(state)).getLong(field(serializer, "i64").getOffset()));
+    }
+}
@@ -0,0 +1,237 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.analysis.Search;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepMaterializer;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.x86.AMD64;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64CpuState;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64DeltaCpuState;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64TraceReader;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.io.StepStore;
+import org.graalvm.vm.trcview.io.StoredNodeList;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.x86.trcview.test.mock.AMD64Steps;
+import org.graalvm.vm.x86.trcview.test.mock.MockStepEvent;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.junit.Test;
+
+public class StepStoreTest {
+    private static final int TID = 1;
+
+    private static class MockMaterializer implements StepMaterializer {
+        @Override
+        public long getStateReference(StepEvent step) {
+            return step.getStep() * 7;
+        }
+
+        @Override
+        public StepEvent materialize(int tid, long step, long pc, InstructionType type, byte[] machinecode, long state) {
+            assertEquals(step * 7, state);
+            MockStepEvent evt = new MockStepEvent(tid, machinecode, type);
+            evt.step = step;
+            evt.pc = pc;
+            return evt;
+        }
+    }
+
+    private static MockStepEvent step(int tid, long step, long pc, InstructionType type, byte[] code, long id) {
+        MockStepEvent evt = new MockStepEvent(tid, code, type);
+        evt.step = step;
+        evt.pc = pc;
+        evt.setId(id);
+        return evt;
+    }
+
+    private static byte[] code(long pc, int version) {
+        byte[] code = new byte[(int) (pc % 13) + 1];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = (byte) (pc + i + version);
+        }
+        return code;
+    }
+
+    @Test
+    public void testRecords() {
+        int count = 200000;
+        InstructionType[] types = InstructionType.values();
+        Random rnd = new Random(4);
+        long[] pcs = new long[count];
+        int[] versions = new int[count];
+        // heap limit 0: all chunks are memory mapped
+        try (StepStore store = new StepStore(new MockMaterializer(), 0, 16)) {
+            BlockNode[] blocks = {new BlockNode((StepEvent) null), new BlockNode((StepEvent) null)};
+            assertEquals(0, store.addBlock(blocks[0]));
+            assertEquals(1, store.addBlock(blocks[1]));
+            for (int i = 0; i < count; i++) {
+                pcs[i] = 0x1000 + rnd.nextInt(500);
+                versions[i] = rnd.nextInt(1000) == 0 ? 1 : 0;
+                byte[] code = i % 1000 == 999 ? null : code(pcs[i], versions[i]);
+                MockStepEvent evt = step(i % 3, i * 2, pcs[i], types[i % types.length], code, i * 3 + 1);
+                assertEquals(i, store.add(evt, i % 2, i * 14));
+            }
+            assertEquals(count, store.size());
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(i * 2, store.getStep(i));
+                assertEquals(pcs[i], store.getPC(i));
+                assertEquals(i % 3, store.getTid(i));
+                assertEquals(types[i % types.length], store.getType(i));
+                assertSame(blocks[i % 2], store.getParent(i));
+                assertEquals(i * 14, store.getState(i));
+                assertEquals(i * 3 + 1, store.getId(i));
+                if (i % 1000 == 999) {
+                    assertNull(store.getMachinecode(i));
+                } else {
+                    assertArrayEquals(code(pcs[i], versions[i]), store.getMachinecode(i));
+                }
+            }
+
+            StepEvent evt = store.get(42);
+            assertEquals(84, evt.getStep());
+            assertEquals(pcs[42], evt.getPC());
+            assertEquals(42 * 3 + 1, evt.getId());
+            assertSame(blocks[0], evt.getParent());
+            assertSame(evt, store.get(42));
+            // evicted from the cache
+            for (int i = 0; i < 32; i++) {
+                store.get(i);
+            }
+            assertNotSame(evt, store.get(42));
+            assertEquals(evt, store.get(42));
+        }
+    }
+
+    @Test
+    public void testNodeList() {
+        try (StepStore store = new StepStore(new MockMaterializer(), 0, 4)) {
+            BlockNode block = new BlockNode(step(0, 0, 0x1000, InstructionType.CALL, new byte[]{0}, 0));
+            BlockNode nested = new BlockNode(step(0, 10, 0x100a, InstructionType.CALL, new byte[]{10}, 10));
+            StoredNodeList children = new StoredNodeList(store, block);
+            block.setLazyChildren(children);
+            for (int i = 1; i < 10; i++) {
+                children.addStep(step(0, i, 0x1000 + i, InstructionType.OTHER, new byte[]{(byte) i}, i), i * 7);
+            }
+            block.add(nested);
+            for (int i = 20; i < 100; i++) {
+                children.addStep(step(0, i, 0x1000 + i, InstructionType.OTHER, new byte[]{(byte) i}, i), i * 7);
+            }
+            block.trim();
+
+            assertEquals(3, children.getRunCount());
+            assertEquals(90, block.size());
+            for (int i = 0; i < 90; i++) {
+                Node node = block.get(i);
+                assertSame(block, node.getParent());
+                if (i < 9) {
+                    assertEquals(i + 1, ((StepEvent) node).getStep());
+                } else if (i == 9) {
+                    assertSame(nested, node);
+                } else {
+                    assertEquals(i + 10, ((StepEvent) node).getStep());
+                }
+                assertEquals(i, block.indexOf(node));
+            }
+
+            // steps are found even if they were materialized again
+            Node first = block.get(0);
+            for (int i = 10; i < 20; i++) {
+                block.get(i);
+            }
+            assertNotSame(first, block.get(0));
+            assertEquals(0, block.indexOf(first));
+            assertEquals(-1, block.indexOf(step(0, 15, 0x100f, InstructionType.OTHER, null, 15)));
+            assertEquals(-1, block.indexOf(step(0, 21, 0x2000, InstructionType.OTHER, null, 21)));
+
+            assertSame(nested, Search.nextStep(block.get(8)));
+            assertSame(block, Search.previousStep(block.get(0)));
+            assertEquals(98, ((StepEvent) Search.previousStep(block.get(89))).getStep());
+            assertNull(Search.nextStep(block.get(89)));
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        WordOutputStream out = new BEOutputStream(data);
+        out.write32bit(0x58545243);
+        out.write16bit(AMD64.ID);
+        // nop
+        AMD64Steps.writeStep(out, TID, 1, 0x1000, new long[]{1}, 0x90);
+        AMD64Steps.writeDeltaStep(out, TID, 2, 0x1001, new long[]{AMD64DeltaCpuState.ID_RAX, 2}, 0x90);
+        // call 0x100c
+        AMD64Steps.writeDeltaStep(out, TID, 3, 0x1002, new long[0], 0xe8, 0x05, 0x00, 0x00, 0x00);
+        AMD64Steps.writeDeltaStep(out, TID, 4, 0x100c, new long[]{AMD64DeltaCpuState.ID_RBX, 4}, 0x90);
+        // ret
+        AMD64Steps.writeDeltaStep(out, TID, 5, 0x100d, new long[0], 0xc3);
+        AMD64Steps.writeDeltaStep(out, TID, 6, 0x1007, new long[0], 0x90);
+        AMD64Steps.writeDeltaStep(out, TID, 7, 0x1008, new long[]{AMD64DeltaCpuState.ID_RAX, 7}, 0x90);
+        out.write8bit(AMD64TraceReader.TYPE_EOF);
+        out.write32bit(TID);
+        out.flush();
+
+        TraceFileReader reader = new TraceFileReader(new ByteArrayInputStream(data.toByteArray()));
+        Analysis analysis = new Analysis(reader.getArchitecture(), Collections.singletonList(reader.getAnalyzer()), false, false);
+        analysis.start();
+        Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, null);
+        BlockNode root = threads.get(TID);
+        analysis.finish(root);
+
+        // the full state and the call are objects, all other steps are records
+        StepStore store = analysis.getStepStore();
+        assertEquals(5, store.size());
+
+        try (Local trc = new Local(reader.getArchitecture(), root, threads, analysis)) {
+            assertEquals(5, root.size());
+            assertEquals(1, ((StepEvent) root.get(0)).getStep());
+            assertEquals(2, ((StepEvent) root.get(1)).getStep());
+            BlockNode call = (BlockNode) root.get(2);
+            assertEquals(3, call.getHead().getStep());
+            assertEquals(2, call.size());
+            assertEquals(6, ((StepEvent) root.get(3)).getStep());
+            assertEquals(7, ((AMD64CpuState) root.get(4)).getRAX());
+
+            AMD64CpuState step2 = (AMD64CpuState) root.get(1);
+            assertSame(root, step2.getParent());
+            assertEquals(2, step2.getRAX());
+            assertEquals(0x1001, step2.getPC());
+            assertEquals(InstructionType.OTHER, step2.getType());
+
+            AMD64CpuState step4 = (AMD64CpuState) call.get(0);
+            assertSame(call, step4.getParent());
+            assertEquals(2, step4.getRAX());
+            assertEquals(4, step4.getRBX());
+            assertEquals(InstructionType.RET, ((StepEvent) call.get(1)).getType());
+
+            AMD64CpuState step6 = (AMD64CpuState) trc.getInstruction(6);
+            assertSame(root, step6.getParent());
+            assertEquals(4, step6.getRBX());
+            assertEquals(0x90, step6.getMachinecode()[0] & 0xFF);
+
+            assertSame(call, trc.getNextStep(step2));
+            assertSame(step4, trc.getNextStep(call));
+            assertSame(call, trc.getPreviousStep(step4));
+            assertSame(call, trc.getPreviousStep(step6));
+            assertTrue(step6.getId() > step4.getId());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package org.graalvm.vm.x86.trcview.test.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.io.BrkEvent;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
+import org.graalvm.vm.trcview.arch.io.SystemLogEvent;
+import org.graalvm.vm.trcview.arch.io.TraceSymbol;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.none.None;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.LocalDatabase;
+import org.graalvm.vm.trcview.net.Server;
+import org.graalvm.vm.trcview.storage.MemoryAccess;
+import org.graalvm.vm.trcview.storage.Step;
+import org.graalvm.vm.trcview.storage.StoredEvent;
+import org.graalvm.vm.trcview.storage.TraceDatabase;
+import org.graalvm.vm.trcview.storage.TraceDatabaseWriter;
+import org.graalvm.vm.trcview.storage.TraceLoader;
+import org.graalvm.vm.trcview.storage.TraceMetadata;
+import org.graalvm.vm.x86.trcview.test.data.LSIRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TraceDatabaseTest {
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("trcview-db").toFile();
+    }
+
+    @After
+    public void cleanup() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static byte[] state(long i) {
+        byte[] data = new byte[16];
+        data[0] = (byte) i;
+        data[8] = (byte) (i / 100);
+        return data;
+    }
+
+    @Test
+    public void testWriter() throws IOException {
+        int count = 3 * TraceDatabaseWriter.STEP_SEGMENT_SIZE + 17;
+        try (TraceDatabaseWriter out = new TraceDatabaseWriter(dir, "id", "test", (short) 0, new String[]{"a", "b"})) {
+            for (int i = 0; i < count; i++) {
+                long pc = i == 10000 ? 0x9000 : 0x1000 + (i % 64) * 2;
+                out.add(new Step(1, i * 2, -1, pc, i % 8, new byte[]{(byte) i}, state(i)));
+                // every step writes to its own address, every 4th step reads from 0x100
+                out.add(1, i * 2, 0x10000 + i * 8, 8, (i & 0xFF) * 0x0101010101010101L, true);
+                if (i % 4 == 0) {
+                    out.add(1, i * 2, 0x100, 2, i, false);
+                }
+            }
+        }
+
+        try (TraceDatabase db = TraceDatabase.open(dir)) {
+            TraceMetadata metadata = db.getMetadata();
+            assertEquals("id", metadata.id);
+            assertEquals("test", metadata.name);
+            assertEquals(count, db.getStepCount());
+            assertEquals(count + (count + 3) / 4, db.getMemoryAccessCount());
+            assertArrayEquals(new String[]{"a", "b"}, db.getRegisterNames());
+
+            for (int i = 0; i < count; i++) {
+                Step step = db.getStep(i * 2);
+                assertNotNull(step);
+                assertEquals(i * 2, step.step);
+                assertEquals(i % 8, step.type);
+                assertArrayEquals(new byte[]{(byte) i}, step.machinecode);
+                assertArrayEquals(state(i), step.cpustate);
+                CpuState state = db.getState(step);
+                assertEquals((byte) i & 0xFF, state.get("a"));
+                assertEquals((byte) (i / 100) & 0xFF, state.getRegisterById(1));
+            }
+            assertNull(db.getStep(3));
+            assertNull(db.getStep(count * 2));
+
+            List<Step> steps = db.getSteps(8190, 8200);
+            assertEquals(6, steps.size());
+            assertEquals(8190, steps.get(0).step);
+            assertEquals(8200, steps.get(5).step);
+
+            assertEquals(20000, db.getNextPC(0x9000, 0).step);
+            assertNull(db.getNextPC(0x9000, 20001));
+            assertEquals(130, db.getNextPC(0x1002, 3).step);
+
+            MemoryAccess write = db.getLastWrite(0x10000 + 5000 * 8 + 3, 1000000);
+            assertTrue(write.write);
+            assertEquals(10000, write.step);
+            assertEquals(0x10000 + 5000 * 8, write.base);
+            assertEquals((byte) 5000, write.value);
+            assertNull(db.getLastWrite(0x10000 + 5000 * 8, 9999));
+            assertEquals(10000, db.getNextWrite(0x10000 + 5000 * 8, 9999).step);
+            assertNull(db.getNextWrite(0x10000 + 5000 * 8, 10000));
+
+            MemoryAccess read = db.getLastRead(0x101, 10005);
+            assertFalse(read.write);
+            assertEquals(10000, read.step);
+            assertEquals((byte) (5000 >> 8), read.value);
+            assertEquals(10008, db.getNextRead(0x100, 10000).step);
+            assertNull(db.getNextRead(0x102, 0));
+        }
+    }
+
+    @Test
+    public void testLoader() throws IOException {
+        Local trc;
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            trc = Server.load(in);
+        }
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            TraceMetadata metadata = TraceLoader.load(new TraceFileReader(in), dir, "straightline");
+            // the trace parser does not count the last step
+            assertEquals(trc.getInstructionCount() + 1, metadata.steps);
+        }
+
+        try (TraceDatabase db = TraceDatabase.open(dir)) {
+            assertEquals(trc.getInstructionCount() + 1, db.getStepCount());
+            assertEquals(trc.getArchitecture().getId(), db.getMetadata().arch);
+            for (long i = 0; i < trc.getInstructionCount(); i++) {
+                StepEvent expected = (StepEvent) trc.getInstruction(i);
+                Step step = db.getStep(expected.getStep());
+                assertNotNull(step);
+                assertEquals(expected.getPC(), step.pc);
+                assertEquals(expected.getTid(), step.tid);
+                assertEquals(expected.getType().ordinal(), step.type);
+                assertArrayEquals(expected.getMachinecode(), step.machinecode);
+                assertEquals(expected.getMnemonic(), step.mnemonic);
+                assertArrayEquals(expected.getDisassemblyComponents(), step.disassembly);
+                CpuState state = db.getState(step);
+                for (int r = 0; r < db.getRegisterNames().length; r++) {
+                    assertEquals(expected.getState().getRegisterById(r), state.getRegisterById(r));
+                }
+            }
+        }
+    }
+
+    private static StepEvent step(Node node) {
+        if (node instanceof BlockNode) {
+            return ((BlockNode) node).getHead();
+        } else {
+            return (StepEvent) node;
+        }
+    }
+
+    @Test
+    public void testAnalyzer() throws IOException {
+        Local trc;
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            trc = Server.load(in);
+        }
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            TraceLoader.load(new TraceFileReader(in), dir, "straightline");
+        }
+
+        try (LocalDatabase db = LocalDatabase.open(dir)) {
+            assertEquals(trc.getArchitecture(), db.getArchitecture());
+            assertEquals(trc.getThreadStarts(), db.getThreadStarts());
+            Node expected = trc.getInstruction(0);
+            Node actual = db.getInstruction(0);
+            for (long i = 0; i < trc.getInstructionCount(); i++) {
+                assertEquals(step(expected).getStep(), step(actual).getStep());
+                assertSame(actual, db.getInstruction(i));
+                StepEvent evt = step(expected);
+                assertEquals(evt.getPC(), step(actual).getPC());
+                assertEquals(evt.getDisassembly(), step(actual).getDisassembly());
+                for (String name : db.getArchitecture().getRegisterNames()) {
+                    assertEquals(evt.getState().get(name), step(actual).getState().get(name));
+                }
+                expected = trc.getNextStep(expected);
+                actual = db.getNextStep(actual);
+            }
+
+            // the profile and the heatmap are collected by the loader
+            Profile profile = db.getProfile();
+            assertNotNull(profile);
+            assertArrayEquals(trc.getProfile().getFunctions(), profile.getFunctions());
+            for (long pc : profile.getFunctions()) {
+                assertEquals(trc.getProfile().getCallCount(pc), profile.getCallCount(pc));
+            }
+            assertNotNull(db.getHeatmapTile(0, 0, 0, 0, 0, 0));
+            assertEquals(trc.getSyscalls().size(), db.getSyscalls().size());
+            // analyses which are not stored are reported as not available
+            assertFalse(db.hasDefUseIndex());
+            assertFalse(db.hasTaintAnalysis());
+            assertFalse(db.hasTypeRecovery());
+            try {
+                db.getBackwardSlice(0);
+                fail();
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            assertNull(db.getDevices());
+        }
+    }
+
+    private static void add(TraceDatabaseWriter out, int tid, long step, long parent, InstructionType type) throws IOException {
+        out.add(new Step(tid, step, parent, 0x1000 + step, type.ordinal(), new byte[]{0}, "op", new String[]{"op", "r" + step}, new byte[8]));
+    }
+
+    @Test
+    public void testCallTree() throws IOException, MemoryNotMappedException {
+        int inner = 2 * TraceDatabaseWriter.STEP_SEGMENT_SIZE;
+        long ret = inner + 6;
+        long last = inner + 7;
+        try (TraceDatabaseWriter out = new TraceDatabaseWriter(dir, "id", "calls", None.ID, new String[]{"a"})) {
+            // thread 1: 0, call 1 { 2, call 3 { 4 ... }, ret }, ...; thread 2 runs at the same time
+            add(out, 1, 0, -1, InstructionType.OTHER);
+            add(out, 1, 1, -1, InstructionType.CALL);
+            add(out, 2, 2, -1, InstructionType.OTHER);
+            add(out, 1, 3, 1, InstructionType.OTHER);
+            add(out, 1, 4, 1, InstructionType.CALL);
+            for (int i = 0; i < inner; i++) {
+                add(out, 1, 5 + i, 4, InstructionType.OTHER);
+            }
+            out.add(1, 10, 0x100, 8, 0x0807060504030201L, true);
+            out.add(1, 20, 0x104, 4, 0x0C0B0A09L, false);
+            add(out, 1, ret - 1, 4, InstructionType.RET);
+            add(out, 1, ret, 1, InstructionType.RET);
+            add(out, 1, last, -1, InstructionType.OTHER);
+            add(out, 2, last + 1, -1, InstructionType.OTHER);
+        }
+
+        try (TraceDatabase db = TraceDatabase.open(dir)) {
+            assertArrayEquals(new long[]{0, 1, last}, db.getChildren(1, -1));
+            assertArrayEquals(new long[]{3, 4, ret}, db.getChildren(1, 1));
+            assertEquals(inner + 1, db.getChildren(1, 4).length);
+            assertArrayEquals(new long[]{2, last + 1}, db.getChildren(2, -1));
+        }
+
+        try (LocalDatabase trc = LocalDatabase.open(dir)) {
+            assertEquals(2, trc.getThreadIds().size());
+            assertEquals(Long.valueOf(2), trc.getThreadStarts().get(2));
+            BlockNode root = trc.getRoot();
+            assertEquals(3, root.getNodes().size());
+            BlockNode call = (BlockNode) root.get(1);
+            assertEquals(1, call.getHead().getStep());
+            assertSame(call, trc.getInstruction(1));
+            assertArrayEquals(new String[]{"op", "r1"}, call.getHead().getDisassemblyComponents());
+
+            Node node = trc.getInstruction(5);
+            BlockNode parent = trc.getParent(node);
+            assertEquals(4, parent.getHead().getStep());
+            assertSame(call, trc.getParent(parent));
+            assertSame(root, trc.getParent(call));
+            assertSame(node, parent.get(0));
+
+            // navigation enters calls and skips them at the top level
+            Node next = trc.getNextStep(trc.getInstruction(3));
+            assertSame(parent, next);
+            assertSame(node, trc.getNextStep(next));
+            assertNull(trc.getNextStep(trc.getInstruction(ret)));
+            assertSame(call, trc.getPreviousStep(trc.getInstruction(last)));
+            assertEquals(100, step(trc.getNextPC(trc.getInstruction(0), 0x1000 + 100)).getStep());
+            assertNull(trc.getNextPC(trc.getInstruction(0), 0x1000 + 2));
+
+            // memory is reconstructed from reads and writes
+            assertEquals(0x0807060504030201L, trc.getI64(0x100, 10));
+            assertEquals(0x0C0B0A09, trc.getI32(0x104, 20));
+            assertEquals(0x08070605, trc.getI32(0x104, 19));
+            assertEquals(0x0403, trc.getI16(0x102, 20));
+            assertEquals(10, trc.getLastWrite(0x103, 20).instructionCount);
+            assertEquals(20, trc.getNextRead(0x105, 10).instructionCount);
+            assertEquals(1, trc.getWriteXrefs(0x100).size());
+            try {
+                trc.getI8(0x100, 9);
+                fail();
+            } catch (MemoryNotMappedException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testEvents() throws IOException, MemoryNotMappedException {
+        int count = 3 * TraceDatabaseWriter.MEMORY_SEGMENT_SIZE;
+        NavigableMap<Long, Symbol> symbols = new TreeMap<>();
+        symbols.put(0x1000L, new TraceSymbol("main", 0x1000, 0x100, Symbol.GLOBAL, Symbol.FUNC, Symbol.DEFAULT, (short) 1));
+        try (TraceDatabaseWriter out = new TraceDatabaseWriter(dir, "id", "events", None.ID, new String[]{"a"})) {
+            add(out, 1, 0, -1, InstructionType.SYSCALL);
+            assertTrue(out.add(0, new MmapEvent(1, 0, 0x3000, Mman.PROT_READ | Mman.PROT_WRITE, 0, -1, 0, "data", 0x10000, null)));
+            assertTrue(out.add(0, new SymbolTableEvent(1, symbols, "main", 0, 0x1000, 0x100)));
+            assertTrue(out.add(0, new IoEvent(1, 0, 1, false, "hello")));
+            for (int i = 1; i < count; i++) {
+                add(out, 1, i, -1, i == 100 ? InstructionType.SYSCALL : InstructionType.OTHER);
+                out.add(1, i, 0x10000 + (i % 0x1000) * 2, 2, i & 0xFFFF, true);
+            }
+            assertTrue(out.add(count - 1, new BrkEvent(1, 0, 0x20000)));
+            // other events are not stored
+            assertFalse(out.add(count - 1, new SystemLogEvent(1) {
+            }));
+        }
+
+        try (TraceDatabase db = TraceDatabase.open(dir)) {
+            List<StoredEvent> events = db.getEvents();
+            assertEquals(4, events.size());
+            assertEquals(count - 1, events.get(3).step);
+            assertArrayEquals(new long[]{0, 100}, db.getSyscalls());
+            assertNull(db.getProfile());
+
+            // the first write of a value is in the last segment
+            List<MemoryAccess> writes = db.findWrites(0, Long.MAX_VALUE, 1, (size, value) -> value == count - 1);
+            assertEquals(1, writes.size());
+            assertEquals(count - 1, writes.get(0).step);
+        }
+
+        try (LocalDatabase trc = LocalDatabase.open(dir)) {
+            assertEquals("main", trc.getSymbol(0x1010).getName());
+            assertNull(trc.getSymbol(0x2000));
+            assertEquals(0x1000, trc.getTraceSymbols().firstKey().longValue());
+
+            assertEquals(2, trc.getSyscalls().size());
+            assertEquals(100, step(trc.getSyscalls().get(1)).getStep());
+            assertEquals("hello", trc.getIo().get(1).get(0).getValue());
+
+            assertTrue(trc.getMapNode(0x10010, 5) instanceof MmapEvent);
+            List<MemorySegment> segments = trc.getMemorySegments(5);
+            assertEquals(1, segments.size());
+            assertEquals(0x10000, segments.get(0).getStart());
+            assertEquals(0x12FFF, segments.get(0).getEnd());
+            assertEquals("data", segments.get(0).getName());
+            assertTrue(trc.getMemorySegments(count - 1).size() > 1);
+            try {
+                trc.getMapNode(0x30000, 5);
+                fail();
+            } catch (MemoryNotMappedException e) {
+                // expected
+            }
+
+            // every 0x1000th step writes the same address, the values differ
+            List<MemoryUpdate> found = trc.findWrites(0x1234, 0xFFFF, 2, 0, Long.MAX_VALUE, 10);
+            assertEquals(1, found.size());
+            assertEquals(0x1234, found.get(0).instructionCount);
+            assertEquals(0x10000 + 0x234 * 2, found.get(0).address);
+            assertEquals(0x34, trc.findFirstWrite(0x34, 0xFF, 0, 0).instructionCount);
+            assertEquals(0x134, trc.findFirstWrite(0x34, 0xFF, 0, 0x35).instructionCount);
+            assertNull(trc.findFirstWrite(0x34, 0xFF, 1, 0));
+            assertEquals(3, trc.findWrites(0x0F, 0x0F, 2, 0, 0x2F, 10).size());
+
+            AccessHeatmap.Level heatmap = trc.getHeatmapTile(0, 0, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            assertEquals(count - 1, sumWrites(heatmap));
+            assertNull(trc.getProfile());
+            assertNull(trc.getDevices());
+        }
+    }
+
+    private static long sumWrites(AccessHeatmap.Level level) {
+        long sum = 0;
+        for (int row = 0; row < level.getRows(); row++) {
+            for (int column = 0; column < level.getColumns(); column++) {
+                sum += level.getWrites(row, column);
+            }
+        }
+        return sum;
+    }
+}
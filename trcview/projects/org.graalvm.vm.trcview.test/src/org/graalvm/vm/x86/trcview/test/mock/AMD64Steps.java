@@ -0,0 +1,108 @@
+package org.graalvm.vm.x86.trcview.test.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.graalvm.vm.trcview.arch.x86.io.AMD64CpuState;
+import org.graalvm.vm.trcview.arch.x86.io.AMD64TraceReader;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.util.io.BEInputStream;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+public class AMD64Steps {
+    private static byte[] code(int[] code) {
+        byte[] machinecode = new byte[code.length];
+        for (int i = 0; i < code.length; i++) {
+            machinecode[i] = (byte) code[i];
+        }
+        return machinecode;
+    }
+
+    private static void writeState(WordOutputStream out, long step, long pc, long[] gpr) throws IOException {
+        // rax to r15, in instruction encoding order
+        for (int i = 0; i < 16; i++) {
+            out.write64bit(i < gpr.length ? gpr[i] : 0);
+        }
+        out.write64bit(pc); // rip
+        out.write64bit(0L); // fs
+        out.write64bit(0L); // gs
+        out.write64bit(0L); // rflags
+        out.write64bit(step);
+        // xmm0 to xmm15
+        for (int i = 0; i < 32; i++) {
+            out.write64bit(0L);
+        }
+    }
+
+    /**
+     * Create a full AMD64 step with all registers set to zero.
+     */
+    public static AMD64CpuState step(int tid, long step, long pc, int... code) {
+        try {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            WordOutputStream out = new BEOutputStream(buf);
+            IO.writeArray(out, code(code));
+            writeState(out, step, pc, new long[0]);
+            out.flush();
+            return AMD64CpuState.readRecord(new BEInputStream(new ByteArrayInputStream(buf.toByteArray())), tid);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Write a full state record of an AMD64 trace. {@code gpr} contains the values of rax to r15.
+     */
+    public static void writeStep(WordOutputStream out, int tid, long step, long pc, long[] gpr, int... code) throws IOException {
+        byte[] machinecode = code(code);
+        out.write8bit(AMD64TraceReader.TYPE_FULL_STATE);
+        out.write32bit(tid);
+        out.write8bit((byte) machinecode.length);
+        out.write(machinecode);
+        writeState(out, step, pc, gpr);
+    }
+
+    /**
+     * Write a delta state record of an AMD64 trace. {@code changes} contains pairs of register id
+     * and value.
+     */
+    public static void writeDeltaStep(WordOutputStream out, int tid, long step, long pc, long[] changes, int... code) throws IOException {
+        byte[] machinecode = code(code);
+        out.write8bit(AMD64TraceReader.TYPE_DELTA_STATE);
+        out.write32bit(tid);
+        out.write8bit((byte) machinecode.length);
+        out.write(machinecode);
+        out.write64bit(pc);
+        out.write64bit(step);
+        out.write8bit((byte) (changes.length / 2));
+        for (int i = 0; i < changes.length; i += 2) {
+            out.write8bit((byte) changes[i]);
+            out.write64bit(changes[i + 1]);
+        }
+    }
+
+    public static void writeMemory(WordOutputStream out, int tid, long addr, boolean write, long value) throws IOException {
+        out.write8bit(AMD64TraceReader.TYPE_MEMORY);
+        out.write32bit(tid);
+        out.write8bit((byte) (write ? 3 : 1)); // data | write
+        out.write8bit((byte) 8);
+        out.write64bit(addr);
+        out.write64bit(value);
+    }
+
+    public static void writeMmap(WordOutputStream out, int tid, long addr, long len, int prot, int flags) throws IOException {
+        out.write8bit(AMD64TraceReader.TYPE_MMAP);
+        out.write32bit(tid);
+        out.write64bit(addr);
+        out.write64bit(len);
+        out.write32bit(prot);
+        out.write32bit(flags);
+        out.write32bit(-1); // fildes
+        out.write64bit(0L); // offset
+        out.write64bit(addr); // result
+        out.write16bit((short) 0); // no filename
+        out.write32bit(0); // no data
+    }
+}
@@ -12,19 +12,24 @@ import org.graalvm.vm.posix.elf.Symbol;
 import org.graalvm.vm.trcview.analysis.ComputedSymbol;
 import org.graalvm.vm.trcview.analysis.SymbolRenameListener;
 import org.graalvm.vm.trcview.analysis.device.Device;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
 import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
 import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
 import org.graalvm.vm.trcview.analysis.type.Prototype;
 import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.io.CpuState;
 import org.graalvm.vm.trcview.arch.io.IoEvent;
-import org.graalvm.vm.trcview.data.DynamicTypePropagation;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.data.ChainTarget;
 import org.graalvm.vm.trcview.data.TypedMemory;
 import org.graalvm.vm.trcview.decode.ABI;
 import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionSymbols;
+import org.graalvm.vm.trcview.expression.ast.Expression;
 import org.graalvm.vm.trcview.io.BlockNode;
 import org.graalvm.vm.trcview.io.Node;
 import org.graalvm.vm.trcview.net.TraceAnalyzer;
@@ -181,6 +186,11 @@ public class MockTraceAnalyzer implements TraceAnalyzer {
         return null;
     }
 
+    @Override
+    public Node getNextStep(Node node, Expression condition) {
+        return null;
+    }
+
     @Override
     public byte getI8(long address, long insn) throws MemoryNotMappedException {
         return 0;
@@ -226,6 +236,16 @@ public class MockTraceAnalyzer implements TraceAnalyzer {
         return null;
     }
 
+    @Override
+    public List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit) {
+        return null;
+    }
+
+    @Override
+    public MemoryUpdate findFirstWrite(long value, long mask, int size, long from) {
+        return null;
+    }
+
     @Override
     public Node getMapNode(long address, long insn) throws MemoryNotMappedException {
         return null;
@@ -362,7 +382,102 @@ public class MockTraceAnalyzer implements TraceAnalyzer {
     }
 
     @Override
-    public DynamicTypePropagation getTypeRecovery() {
+    public ExpressionSymbols getExpressionSymbols() {
+        return null;
+    }
+
+    @Override
+    public Profile getProfile() {
+        return null;
+    }
+
+    @Override
+    public AccessHeatmap.Level getHeatmapTile(int rowShift, int columnShift, int row, int column, int rows, int columns) {
+        return null;
+    }
+
+    @Override
+    public boolean hasTypeRecovery() {
+        return false;
+    }
+
+    @Override
+    public long getRegisterType(long pc, int reg) {
+        return 0;
+    }
+
+    @Override
+    public long getRegisterDataType(long pc, int reg) {
+        return 0;
+    }
+
+    @Override
+    public boolean isRegisterLive(long pc, int reg) {
+        return false;
+    }
+
+    @Override
+    public List<ChainTarget> getRegisterTypeChain(long pc, int reg) {
+        return null;
+    }
+
+    @Override
+    public long getMemoryType(long addr, long step) {
+        return 0;
+    }
+
+    @Override
+    public StepEvent getCodeStep(long pc) {
+        return null;
+    }
+
+    @Override
+    public boolean hasDefUseIndex() {
+        return false;
+    }
+
+    @Override
+    public long getRegisterDefinition(int tid, int reg, long step) {
+        return 0;
+    }
+
+    @Override
+    public long[] getProducers(long ref) {
+        return null;
+    }
+
+    @Override
+    public long[] getBackwardSlice(long... roots) {
+        return null;
+    }
+
+    @Override
+    public boolean hasTaintAnalysis() {
+        return false;
+    }
+
+    @Override
+    public List<IoEvent> getTaintInputs() {
+        return null;
+    }
+
+    @Override
+    public int[] getRegisterTaint(int tid, int reg, long step) {
+        return null;
+    }
+
+    @Override
+    public int[] getStepTaint(int tid, long step) {
+        return null;
+    }
+
+    @Override
+    public int[] getMemoryTaint(long addr) {
+        return null;
+    }
+
+    @Override
+    public NavigableMap<Long, int[]> getTaintedPCs() {
         return null;
     }
 
@@ -376,6 +491,16 @@ public class MockTraceAnalyzer implements TraceAnalyzer {
         return null;
     }
 
+    @Override
+    public List<MemoryRead> getReadXrefs(long start, long end, long from, long to) {
+        return null;
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long start, long end, long from, long to) {
+        return null;
+    }
+
     @Override
     public void setSymbolize(boolean symbolize) {
 
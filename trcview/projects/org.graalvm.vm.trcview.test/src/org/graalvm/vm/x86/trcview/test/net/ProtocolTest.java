@@ -0,0 +1,74 @@
+package org.graalvm.vm.x86.trcview.test.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.junit.Test;
+
+public class ProtocolTest {
+    private static WordInputStream frame(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Protocol.writeFrame(out, payload, payload.length);
+        return Protocol.readFrame(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        WordOutputStream out = new BEOutputStream(buf);
+        Protocol.writeBytes(out, new byte[]{1, 2, 3});
+        Protocol.writeLongArray(out, new long[]{4, 5});
+        out.flush();
+        WordInputStream in = frame(buf.toByteArray());
+        assertArrayEquals(new byte[]{1, 2, 3}, Protocol.readBytes(in));
+        assertArrayEquals(new long[]{4, 5}, Protocol.readLongArray(in));
+    }
+
+    @Test
+    public void testFrameTooLarge() throws IOException {
+        int length = Protocol.MAX_FRAME_SIZE + 1;
+        byte[] header = {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+        try {
+            Protocol.readFrame(new ByteArrayInputStream(header));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLengthBeyondFrame() throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        WordOutputStream out = new BEOutputStream(buf);
+        out.write32bit(Integer.MAX_VALUE);
+        out.write32bit(0);
+        out.flush();
+        byte[] payload = buf.toByteArray();
+        try {
+            Protocol.readBytes(frame(payload));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            Protocol.readLongArray(frame(payload));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            Protocol.readStrings(frame(payload));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
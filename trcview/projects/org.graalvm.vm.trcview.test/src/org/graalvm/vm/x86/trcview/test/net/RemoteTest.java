@@ -0,0 +1,281 @@
+package org.graalvm.vm.x86.trcview.test.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.util.List;
+
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.Remote;
+import org.graalvm.vm.trcview.net.Server;
+import org.graalvm.vm.x86.trcview.test.data.LSIRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemoteTest {
+    private Local local;
+    private Server server;
+    private Remote remote;
+
+    @Before
+    public void setup() throws IOException {
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            local = Server.load(in);
+        }
+        server = new Server(local, 0, InetAddress.getLoopbackAddress());
+        server.start();
+        remote = new Remote(InetAddress.getLoopbackAddress().getHostAddress(), server.getPort());
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        remote.close();
+        server.close();
+    }
+
+    private static void checkStep(StepEvent expected, StepEvent actual) {
+        assertEquals(expected.getStep(), actual.getStep());
+        assertEquals(expected.getPC(), actual.getPC());
+        assertEquals(expected.getTid(), actual.getTid());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getDisassembly(), actual.getDisassembly());
+        assertArrayEquals(expected.getMachinecode(), actual.getMachinecode());
+        assertEquals(expected.getState().toString(), actual.getState().toString());
+        assertEquals(expected.getDataReads().size(), actual.getDataReads().size());
+        assertEquals(expected.getDataWrites().size(), actual.getDataWrites().size());
+    }
+
+    private static void checkBlock(BlockNode expected, BlockNode actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Node e = expected.get(i);
+            Node a = actual.get(i);
+            assertSame(actual, a.getParent());
+            if (e instanceof StepEvent) {
+                checkStep((StepEvent) e, (StepEvent) a);
+            } else {
+                BlockNode eb = (BlockNode) e;
+                BlockNode ab = (BlockNode) a;
+                if (eb.getHead() == null) {
+                    assertNull(ab.getHead());
+                } else {
+                    checkStep(eb.getHead(), ab.getHead());
+                }
+                checkBlock(eb, ab);
+            }
+        }
+    }
+
+    @Test
+    public void testNodes() {
+        assertEquals(local.getInstructionCount(), remote.getInstructionCount());
+        assertEquals(local.getThreadStarts(), remote.getThreadStarts());
+        checkBlock(local.getRoot(), remote.getRoot());
+    }
+
+    @Test
+    public void testInstructions() {
+        for (long insn = 0; insn < local.getInstructionCount(); insn++) {
+            Node expected = local.getInstruction(insn);
+            Node actual = remote.getInstruction(insn);
+            assertNotNull(actual);
+            assertSame(actual, remote.getInstruction(insn));
+            StepEvent step = (StepEvent) actual;
+            checkStep((StepEvent) expected, step);
+
+            Node next = remote.getNextStep(actual);
+            Node expectedNext = local.getNextStep(expected);
+            if (expectedNext == null) {
+                assertNull(next);
+            } else {
+                assertEquals(((StepEvent) expectedNext).getStep(), ((StepEvent) next).getStep());
+            }
+            assertEquals(local.getParent(expected).getId(), remote.getParent(actual).getId());
+        }
+    }
+
+    @Test
+    public void testMemory() {
+        long last = local.getInstructionCount() - 1;
+        List<MemorySegment> segments = local.getMemorySegments(last);
+        assertEquals(segments.size(), remote.getMemorySegments(last).size());
+        for (long insn : new long[]{0, last / 2, last}) {
+            for (MemorySegment segment : segments) {
+                // include unmapped memory after the segment
+                long end = Math.min(segment.getEnd(), segment.getStart() + 2 * 4096) + 16;
+                for (long addr = segment.getStart(); addr < end; addr++) {
+                    byte value;
+                    try {
+                        value = local.getI8(addr, insn);
+                    } catch (MemoryNotMappedException e) {
+                        try {
+                            remote.getI8(addr, insn);
+                            fail("memory at " + addr + " is not mapped");
+                        } catch (MemoryNotMappedException ex) {
+                            // expected
+                        }
+                        continue;
+                    }
+                    try {
+                        assertEquals(value, remote.getI8(addr, insn));
+                        if ((addr & 7) == 0) {
+                            assertEquals(local.getI16(addr, insn), remote.getI16(addr, insn));
+                            assertEquals(local.getI32(addr, insn), remote.getI32(addr, insn));
+                            assertEquals(local.getI64(addr, insn), remote.getI64(addr, insn));
+                        }
+                    } catch (MemoryNotMappedException e) {
+                        // word crosses the end of the mapping
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindWrites() {
+        // mask 0 matches every write
+        List<MemoryUpdate> all = local.findWrites(0, 0, 0, 0, Long.MAX_VALUE, 10);
+        assertFalse(all.isEmpty());
+        assertEquals(all.size(), remote.findWrites(0, 0, 0, 0, Long.MAX_VALUE, 10).size());
+        for (MemoryUpdate write : all) {
+            List<MemoryUpdate> expected = local.findWrites(write.value, -1, write.size, 0, Long.MAX_VALUE, 100);
+            List<MemoryUpdate> actual = remote.findWrites(write.value, -1, write.size, 0, Long.MAX_VALUE, 100);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).address, actual.get(i).address);
+                assertEquals(expected.get(i).instructionCount, actual.get(i).instructionCount);
+            }
+            MemoryUpdate first = remote.findFirstWrite(write.value, -1, write.size, write.instructionCount);
+            assertNotNull(first);
+            assertEquals(local.findFirstWrite(write.value, -1, write.size, write.instructionCount).instructionCount, first.instructionCount);
+        }
+    }
+
+    @Test
+    public void testSymbols() {
+        assertEquals(local.getSymbols().size(), remote.getSymbols().size());
+        for (ComputedSymbol expected : local.getSymbols()) {
+            ComputedSymbol actual = remote.getComputedSymbol(expected.address);
+            assertNotNull(actual);
+            assertEquals(expected.name, actual.name);
+            assertEquals(expected.type, actual.type);
+            assertEquals(expected.getVisitCount(), actual.getVisitCount());
+            assertArrayEquals(expected.getVisits(), actual.getVisits());
+        }
+
+        long pc = ((StepEvent) local.getInstruction(0)).getPC();
+        remote.addSubroutine(pc, "added", null);
+        ComputedSymbol added = remote.getComputedSymbol(pc);
+        assertNotNull(local.getComputedSymbol(pc));
+        assertEquals(local.getComputedSymbol(pc).name, added.name);
+        remote.reanalyze();
+        assertSame(added, remote.getComputedSymbol(pc));
+        assertEquals(local.getComputedSymbol(pc).getVisitCount(), added.getVisitCount());
+
+        remote.renameSymbol(added, "renamed");
+        assertEquals("renamed", added.name);
+        assertEquals("renamed", local.getComputedSymbol(pc).name);
+    }
+
+    @Test
+    public void testUnavailableAnalyses() {
+        assertFalse(remote.hasTypeRecovery());
+        assertFalse(remote.hasDefUseIndex());
+        assertFalse(remote.hasTaintAnalysis());
+        try {
+            remote.getBackwardSlice(0);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAnalyses() throws IOException {
+        Local full;
+        try (InputStream in = LSIRunner.class.getResourceAsStream("resources/straightline.trc")) {
+            full = Server.load(in, true, true, true);
+        }
+        try (Server fullServer = new Server(full, 0, InetAddress.getLoopbackAddress());
+                        Remote trc = startRemote(fullServer)) {
+            assertTrue(trc.hasTypeRecovery());
+            assertTrue(trc.hasDefUseIndex());
+            assertTrue(trc.hasTaintAnalysis());
+
+            Profile expectedProfile = full.getProfile();
+            Profile profile = trc.getProfile();
+            assertArrayEquals(expectedProfile.getFunctions(), profile.getFunctions());
+            for (long pc : profile.getFunctions()) {
+                assertEquals(expectedProfile.getCallCount(pc), profile.getCallCount(pc));
+                assertEquals(expectedProfile.getInclusiveSteps(pc), profile.getInclusiveSteps(pc));
+            }
+
+            AccessHeatmap.Level expectedTile = full.getHeatmapTile(0, 0, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            AccessHeatmap.Level tile = trc.getHeatmapTile(0, 0, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            assertEquals(expectedTile.getRows(), tile.getRows());
+            assertEquals(expectedTile.getColumns(), tile.getColumns());
+            assertEquals(expectedTile.getStartAddress(0), tile.getStartAddress(0));
+            for (int row = 0; row < tile.getRows(); row++) {
+                for (int column = 0; column < tile.getColumns(); column++) {
+                    assertEquals(expectedTile.getReads(row, column), tile.getReads(row, column));
+                    assertEquals(expectedTile.getWrites(row, column), tile.getWrites(row, column));
+                }
+            }
+
+            int registers = full.getArchitecture().getRegisterNames().length;
+            for (long insn = 0; insn < full.getInstructionCount(); insn++) {
+                StepEvent step = (StepEvent) full.getInstruction(insn);
+                long pc = step.getPC();
+                assertEquals(full.getCodeStep(pc).getStep(), trc.getCodeStep(pc).getStep());
+                for (int reg = 0; reg < registers; reg++) {
+                    assertEquals(full.getRegisterType(pc, reg), trc.getRegisterType(pc, reg));
+                    assertEquals(full.getRegisterDataType(pc, reg), trc.getRegisterDataType(pc, reg));
+                    assertEquals(full.isRegisterLive(pc, reg), trc.isRegisterLive(pc, reg));
+                    assertEquals(full.getRegisterTypeChain(pc, reg).size(), trc.getRegisterTypeChain(pc, reg).size());
+                    assertEquals(full.getRegisterDefinition(step.getTid(), reg, step.getStep()), trc.getRegisterDefinition(step.getTid(), reg, step.getStep()));
+                    assertArrayEquals(full.getRegisterTaint(step.getTid(), reg, step.getStep()), trc.getRegisterTaint(step.getTid(), reg, step.getStep()));
+                }
+                assertArrayEquals(full.getStepTaint(step.getTid(), step.getStep()), trc.getStepTaint(step.getTid(), step.getStep()));
+                assertArrayEquals(full.getBackwardSlice(step.getStep()), trc.getBackwardSlice(step.getStep()));
+            }
+
+            for (MemorySegment segment : full.getMemorySegments(full.getInstructionCount() - 1)) {
+                long end = Math.min(segment.getEnd(), segment.getStart() + 256);
+                for (long addr = segment.getStart(); addr < end; addr += 8) {
+                    assertEquals(full.getMemoryType(addr, full.getInstructionCount() - 1), trc.getMemoryType(addr, full.getInstructionCount() - 1));
+                    assertArrayEquals(full.getMemoryTaint(addr), trc.getMemoryTaint(addr));
+                }
+            }
+
+            assertEquals(full.getTaintInputs().size(), trc.getTaintInputs().size());
+            assertEquals(full.getTaintedPCs().keySet(), trc.getTaintedPCs().keySet());
+        } finally {
+            full.close();
+        }
+    }
+
+    private static Remote startRemote(Server srv) throws IOException {
+        srv.start();
+        return new Remote(InetAddress.getLoopbackAddress().getHostAddress(), srv.getPort());
+    }
+}
@@ -0,0 +1,80 @@
+package org.graalvm.vm.x86.trcview.test.storage.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.vm.trcview.storage.sql.IntervalTree;
+import org.junit.Test;
+
+public class IntervalTreeTest {
+    @Test
+    public void testSimple() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put(0x1000, 0x1fff, "outer");
+        tree.put(0x1100, 0x11ff, "inner");
+        tree.put(0x1100, 0x1100, "point");
+        tree.put(0x3000, 0x3010, "other");
+
+        assertEquals(4, tree.size());
+        assertEquals("outer", tree.getSmallest(0x1000));
+        assertEquals("point", tree.getSmallest(0x1100));
+        assertEquals("inner", tree.getSmallest(0x1101));
+        assertEquals("outer", tree.getSmallest(0x1fff));
+        assertEquals("other", tree.getSmallest(0x3010));
+        assertNull(tree.getSmallest(0x2000));
+        assertEquals(3, tree.getAll(0x1100).size());
+
+        assertFalse(tree.remove(0x1100, 0x11ff, "outer"));
+        assertTrue(tree.remove(0x1100, 0x1100, "point"));
+        assertEquals("inner", tree.getSmallest(0x1100));
+        assertEquals(3, tree.size());
+    }
+
+    @Test
+    public void testRandom() {
+        Random rnd = new Random(5);
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        List<long[]> intervals = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long start = rnd.nextInt(100000);
+            long end = start + (rnd.nextInt(10) == 0 ? rnd.nextInt(10000) : rnd.nextInt(50));
+            tree.put(start, end, i);
+            intervals.add(new long[]{start, end});
+            values.add(i);
+        }
+        // remove some of them again, including duplicates of the same interval
+        for (int i = 0; i < 1000; i++) {
+            int n = rnd.nextInt(values.size());
+            long[] interval = intervals.remove(n);
+            assertTrue(tree.remove(interval[0], interval[1], values.remove(n)));
+        }
+        assertEquals(values.size(), tree.size());
+
+        for (int i = 0; i < 2000; i++) {
+            long point = rnd.nextInt(110000);
+            long best = Long.MAX_VALUE;
+            int count = 0;
+            for (long[] interval : intervals) {
+                if (interval[0] <= point && interval[1] >= point) {
+                    best = Math.min(best, interval[1] - interval[0]);
+                    count++;
+                }
+            }
+            assertEquals(count, tree.getAll(point).size());
+            Integer result = tree.getSmallest(point);
+            if (count == 0) {
+                assertNull(result);
+            } else {
+                long[] interval = intervals.get(values.indexOf(result));
+                assertEquals(best, interval[1] - interval[0]);
+            }
+        }
+    }
+}
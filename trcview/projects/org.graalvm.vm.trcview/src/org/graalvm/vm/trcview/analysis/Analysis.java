@@ -60,6 +60,9 @@ import org.graalvm.vm.trcview.analysis.device.Device;
 import org.graalvm.vm.trcview.analysis.device.RegisterValue;
 import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
 import org.graalvm.vm.trcview.analysis.memory.Protection;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.analysis.taint.TaintAnalyzer;
 import org.graalvm.vm.trcview.analysis.type.ArchitectureTypeInfo;
 import org.graalvm.vm.trcview.analysis.type.DataType;
 import org.graalvm.vm.trcview.analysis.type.Prototype;
@@ -72,6 +75,7 @@ import org.graalvm.vm.trcview.arch.io.DeviceEvent;
 import org.graalvm.vm.trcview.arch.io.DeviceRegisterEvent;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.InterruptEvent;
 import org.graalvm.vm.trcview.arch.io.IoEvent;
 import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
 import org.graalvm.vm.trcview.arch.io.MemoryEvent;
@@ -82,7 +86,9 @@ import org.graalvm.vm.trcview.data.CodeAnalyzer;
 import org.graalvm.vm.trcview.data.DynamicTypePropagation;
 import org.graalvm.vm.trcview.io.BlockNode;
 import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.io.StepStore;
 import org.graalvm.vm.util.BitTest;
+import org.graalvm.vm.util.LongLongMap;
 import org.graalvm.vm.util.Vector128;
 import org.graalvm.vm.util.io.Endianess;
 import org.graalvm.vm.util.log.Levels;
@@ -91,6 +97,8 @@ import org.graalvm.vm.util.log.Trace;
 public class Analysis {
     private static final Logger log = Trace.create(Analysis.class);
 
+    private static final int MAX_THUNK_TARGETS = 8;
+
     private final SymbolTable symbols;
     private StepEvent lastStep;
 
@@ -116,6 +124,14 @@ public class Analysis {
 
     private DynamicTypePropagation typeRecovery;
     private CodeAnalyzer codeAnalyzer;
+    private DefUseIndex defuse;
+    private TaintAnalyzer taint;
+    private StepOrderBuffer ordered;
+    private final Profile profile;
+    private StepStore stepStore;
+
+    // subroutine address -> (jump target -> order of appearance) for subroutines starting with a jump
+    private final Map<Long, LongLongMap> thunks;
 
     private List<Analyzer> analyzers;
 
@@ -129,6 +145,14 @@ public class Analysis {
     }
 
     public Analysis(Architecture arch, List<Analyzer> analyzers, boolean typeAnalysis, boolean codeAnalysis) {
+        this(arch, analyzers, typeAnalysis, codeAnalysis, false);
+    }
+
+    public Analysis(Architecture arch, List<Analyzer> analyzers, boolean typeAnalysis, boolean codeAnalysis, boolean defUseAnalysis) {
+        this(arch, analyzers, typeAnalysis, codeAnalysis, defUseAnalysis, false);
+    }
+
+    public Analysis(Architecture arch, List<Analyzer> analyzers, boolean typeAnalysis, boolean codeAnalysis, boolean defUseAnalysis, boolean taintAnalysis) {
         this.analyzers = analyzers;
         this.arch = arch;
         symbolTable = new TreeMap<>();
@@ -141,6 +165,8 @@ public class Analysis {
         devices = new HashMap<>();
         memory = new MemoryTrace();
         nodes = new ArrayList<>();
+        profile = new Profile();
+        thunks = new HashMap<>();
         system = arch.isSystemLevel();
         info = arch.getTypeInfo();
         if (typeAnalysis) {
@@ -154,6 +180,23 @@ public class Analysis {
         if (codeAnalysis) {
             codeAnalyzer = new CodeAnalyzer();
         }
+        if (defUseAnalysis) {
+            defuse = new DefUseIndex(arch);
+        }
+        if (taintAnalysis) {
+            taint = new TaintAnalyzer(arch);
+        }
+        // these analyzers shadow memory and need all threads in step order
+        List<Analyzer> shadow = new ArrayList<>();
+        if (defuse != null) {
+            shadow.add(defuse);
+        }
+        if (taint != null) {
+            shadow.add(taint);
+        }
+        if (!shadow.isEmpty()) {
+            ordered = new StepOrderBuffer(shadow);
+        }
     }
 
     public void start() {
@@ -163,6 +206,9 @@ public class Analysis {
         for (Analyzer analyzer : analyzers) {
             analyzer.start(memory);
         }
+        if (ordered != null) {
+            ordered.start(memory);
+        }
     }
 
     private void add(Node node) {
@@ -181,10 +227,17 @@ public class Analysis {
         for (Analyzer analyzer : analyzers) {
             analyzer.process(event, node);
         }
+        if (ordered != null) {
+            ordered.process(event, node);
+        }
 
         if (event instanceof StepEvent) {
             steps++;
             StepEvent step = (StepEvent) event;
+            profile.step(step);
+            if (node instanceof BlockNode) {
+                profile.call(step.getTid(), (BlockNode) node);
+            }
 
             if (lastCall != null) {
                 processCallRet(lastCall, lastRet, state);
@@ -204,6 +257,9 @@ public class Analysis {
             if (lastStep != null) {
                 long pc = state.getPC();
                 Symbol sym;
+                if (lastStep.getTid() == step.getTid() && (lastStep.getType() == InstructionType.JMP || lastStep.getType() == InstructionType.JMP_INDIRECT)) {
+                    recordThunk(lastStep.getPC(), pc);
+                }
                 switch (lastStep.getType()) {
                     case JMP:
                     case JCC:
@@ -236,6 +292,10 @@ public class Analysis {
                 symbols.visit(node);
             }
             lastStep = step;
+        } else if (event instanceof InterruptEvent) {
+            if (node instanceof BlockNode) {
+                profile.call(event.getTid(), (BlockNode) node);
+            }
         } else if (event instanceof SymbolTableEvent) {
             SymbolTableEvent symtab = (SymbolTableEvent) event;
             symbolTable.putAll(symtab.getSymbols());
@@ -384,7 +444,23 @@ public class Analysis {
         }
     }
 
+    private void recordThunk(long from, long to) {
+        // the symbol might only become a subroutine later, so record jumps from every symbol
+        if (symbols.get(from) == null) {
+            return;
+        }
+        LongLongMap targets = thunks.get(from);
+        if (targets == null) {
+            targets = new LongLongMap();
+            thunks.put(from, targets);
+        }
+        if (targets.size() < MAX_THUNK_TARGETS && !targets.containsKey(to)) {
+            targets.put(to, targets.size());
+        }
+    }
+
     public void processBlock(StepEvent ret, BlockNode block) {
+        profile.ret(ret.getTid(), block);
         if (regcnt != 0) {
             lastCall = block;
             lastRet = ret;
@@ -480,6 +556,22 @@ public class Analysis {
         return buf.append('}').toString();
     }
 
+    /**
+     * Tell the analyzers that the trace could not be analyzed, e.g. because it is truncated.
+     */
+    public void abort(Throwable cause) {
+        for (Analyzer analyzer : analyzers) {
+            try {
+                analyzer.abort(cause);
+            } catch (Throwable t) {
+                log.log(Levels.WARNING, "Cannot abort analyzer: " + t, t);
+            }
+        }
+        if (ordered != null) {
+            ordered.abort(cause);
+        }
+    }
+
     public void finish(BlockNode root) {
         add(root);
 
@@ -488,6 +580,9 @@ public class Analysis {
         for (Analyzer analyzer : analyzers) {
             analyzer.finish();
         }
+        if (ordered != null) {
+            ordered.finish();
+        }
 
         StepEvent first = root.getFirstStep();
         if (first == null) {
@@ -520,32 +615,12 @@ public class Analysis {
                 System.out.println("Subroutine " + sym.name + ": " + list(sym.getUnusedRegisters(), arch.getRegisterCount()));
             }
 
-            for (Node visit : sym.visits) {
-                InstructionType type;
-                if (visit instanceof BlockNode) {
-                    BlockNode block = (BlockNode) visit;
-                    type = block.getFirstStep().getType();
-                } else if (visit instanceof StepEvent) {
-                    StepEvent step = (StepEvent) visit;
-                    type = step.getType();
-                } else {
-                    continue;
-                }
-
-                // TODO: improve heuristic
-                if (type == InstructionType.JMP || type == InstructionType.JMP_INDIRECT) {
-                    Node node = Search.next(visit);
-                    long pc;
-                    if (node instanceof StepEvent) {
-                        StepEvent step = (StepEvent) node;
-                        pc = step.getPC();
-                    } else if (node instanceof BlockNode) {
-                        BlockNode b = (BlockNode) node;
-                        pc = b.isInterrupt() ? b.getFirstStep().getPC() : b.getHead().getPC();
-                    } else {
-                        break;
-                    }
-
+            // TODO: improve heuristic
+            LongLongMap targets = thunks.get(sym.address);
+            if (targets != null) {
+                long[] order = new long[targets.size()];
+                targets.forEach((pc, idx) -> order[(int) idx] = pc);
+                for (long pc : order) {
                     Symbol s = augmentedResolver.getSymbol(pc);
                     if (s != null) {
                         sym.name = "j_" + s.getName();
@@ -559,6 +634,8 @@ public class Analysis {
             typeRecovery.finish();
         }
 
+        profile.finish();
+
         log.log(Levels.INFO, "The trace contains " + steps + " step events");
         memory.printStats();
     }
@@ -616,4 +693,27 @@ public class Analysis {
     public CodeAnalyzer getCodeAnalyzer() {
         return codeAnalyzer;
     }
+
+    public DefUseIndex getDefUseIndex() {
+        return defuse;
+    }
+
+    public TaintAnalyzer getTaintAnalyzer() {
+        return taint;
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Set the store which keeps the steps of the call tree as records. Set by the trace parser.
+     */
+    public void setStepStore(StepStore stepStore) {
+        this.stepStore = stepStore;
+    }
+
+    public StepStore getStepStore() {
+        return stepStore;
+    }
 }
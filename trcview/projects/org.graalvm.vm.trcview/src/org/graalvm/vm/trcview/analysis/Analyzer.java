@@ -10,4 +10,12 @@ public interface Analyzer {
     void process(Event event, Node node);
 
     void finish();
+
+    /**
+     * Called if the analysis of the trace fails. {@link #finish()} may or may not have been called
+     * before.
+     */
+    default void abort(@SuppressWarnings("unused") Throwable cause) {
+        // nothing
+    }
 }
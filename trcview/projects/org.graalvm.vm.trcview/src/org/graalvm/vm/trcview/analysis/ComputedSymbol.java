@@ -40,12 +40,10 @@
  */
 package org.graalvm.vm.trcview.analysis;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.List;
 
 import org.graalvm.vm.trcview.analysis.type.Prototype;
-import org.graalvm.vm.trcview.io.Node;
 import org.graalvm.vm.util.HexFormatter;
 
 public class ComputedSymbol {
@@ -59,7 +57,10 @@ public class ComputedSymbol {
     public String name;
     public final long address;
     public Type type;
-    public final List<Node> visits;
+
+    // step numbers of all visits, in trace order
+    private long[] visits;
+    private int visitCount;
 
     public Prototype prototype;
 
@@ -75,15 +76,39 @@ public class ComputedSymbol {
         this.name = name;
         this.address = address;
         this.type = type;
-        visits = new ArrayList<>();
+        visits = new long[0];
+        visitCount = 0;
     }
 
-    public void addVisit(Node node) {
-        visits.add(node);
+    public void addVisit(long step) {
+        if (visitCount == visits.length) {
+            visits = Arrays.copyOf(visits, visits.length == 0 ? 4 : visits.length * 2);
+        }
+        visits[visitCount++] = step;
     }
 
     public void resetVisits() {
-        visits.clear();
+        visits = new long[0];
+        visitCount = 0;
+    }
+
+    public int getVisitCount() {
+        return visitCount;
+    }
+
+    public boolean hasVisits() {
+        return visitCount > 0;
+    }
+
+    public long getVisit(int i) {
+        if (i < 0 || i >= visitCount) {
+            throw new IndexOutOfBoundsException(Integer.toString(i));
+        }
+        return visits[i];
+    }
+
+    public long[] getVisits() {
+        return Arrays.copyOf(visits, visitCount);
     }
 
     public void computeUnusedRegisters(int regcount) {
@@ -94,6 +119,10 @@ public class ComputedSymbol {
         unusedRegisters.and(inverse);
     }
 
+    public boolean hasUnusedRegisters() {
+        return unusedRegisters != null;
+    }
+
     public boolean isRegisterUnused(int r) {
         if (unusedRegisters == null) {
             throw new IllegalStateException("register set not yet computed");
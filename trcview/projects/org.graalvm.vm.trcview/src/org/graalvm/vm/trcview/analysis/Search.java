@@ -41,6 +41,7 @@
 package org.graalvm.vm.trcview.analysis;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
@@ -53,16 +54,7 @@ public class Search {
             BlockNode block = (BlockNode) node;
             return block.getFirstNode();
         } else if (node instanceof StepEvent) {
-            BlockNode block = node.getParent();
-            boolean start = false;
-            for (Node n : block.getNodes()) {
-                if (n == node) {
-                    start = true;
-                } else if (start && (n instanceof BlockNode || n instanceof StepEvent)) {
-                    return n;
-                }
-            }
-            return null;
+            return nextSibling(node);
         } else {
             throw new IllegalArgumentException("Not a BlockNode/RecordNode");
         }
@@ -73,16 +65,7 @@ public class Search {
             BlockNode block = (BlockNode) node;
             return block.getFirstNode();
         } else if (node instanceof Event) {
-            BlockNode block = node.getParent();
-            boolean start = false;
-            for (Node n : block.getNodes()) {
-                if (n == node) {
-                    start = true;
-                } else if (start && (n instanceof BlockNode || n instanceof StepEvent)) {
-                    return n;
-                }
-            }
-            return null;
+            return nextSibling(node);
         } else {
             throw new IllegalArgumentException("Not a BlockNode/RecordNode");
         }
@@ -93,19 +76,29 @@ public class Search {
         if (block == null) {
             return null;
         }
-        if (node == block.getFirstNode()) {
-            return block;
+        int index = block.indexOf(node);
+        if (index < 0) {
+            return null;
         }
-        Node last = null;
-        for (Node n : block.getNodes()) {
-            if (n == node) {
-                if (last != null) {
-                    return last;
-                } else {
-                    return block;
-                }
-            } else if (n instanceof BlockNode || n instanceof StepEvent) {
-                last = n;
+        for (int i = index - 1; i >= 0; i--) {
+            Node n = block.get(i);
+            if (n instanceof BlockNode || n instanceof StepEvent) {
+                return n;
+            }
+        }
+        return block;
+    }
+
+    private static Node nextSibling(Node node) {
+        BlockNode block = node.getParent();
+        int index = block.indexOf(node);
+        if (index < 0) {
+            return null;
+        }
+        for (int i = index + 1; i < block.size(); i++) {
+            Node n = block.get(i);
+            if (n instanceof BlockNode || n instanceof StepEvent) {
+                return n;
             }
         }
         return null;
@@ -118,14 +111,24 @@ public class Search {
     }
 
     public static Node nextPC(Node startNode, long pc, long insn, boolean up) {
+        return nextStep(startNode, step -> step.getPC() == pc, insn, up);
+    }
+
+    public static Node nextStep(Node startNode, Predicate<StepEvent> predicate) {
+        // start at next instruction
+        long insn = getInstruction(startNode);
+        return nextStep(startNode, predicate, insn, true);
+    }
+
+    public static Node nextStep(Node startNode, Predicate<StepEvent> predicate, long insn, boolean up) {
         BlockNode block = startNode instanceof BlockNode ? (BlockNode) startNode : startNode.getParent();
         long search = getInstruction(block);
 
         while (block != null) {
             // step 1: check block head
-            if (block.getHead() != null && block.getHead().getStep() > insn && block.getHead().getPC() == pc) {
+            if (block.getHead() != null && block.getHead().getStep() > insn && predicate.test(block.getHead())) {
                 return block.getHead();
-            } else if (block.getInterrupt() != null && block.getInterrupt().getStep().getStep() > insn && block.getInterrupt().getStep().getPC() == pc) {
+            } else if (block.getInterrupt() != null && block.getInterrupt().getStep().getStep() > insn && predicate.test(block.getInterrupt().getStep())) {
                 return block.getInterrupt().getStep();
             }
 
@@ -134,15 +137,15 @@ public class Search {
                 if (n instanceof StepEvent) {
                     // is a StepEvent
                     StepEvent e = (StepEvent) n;
-                    if (e.getStep() > insn && e.getPC() == pc) {
+                    if (e.getStep() > insn && predicate.test(e)) {
                         return e;
                     }
                 } else if (n instanceof BlockNode) {
                     // is a BlockNode, check head
                     BlockNode b = (BlockNode) n;
-                    if (b.getHead() != null && b.getHead().getStep() > insn && b.getHead().getPC() == pc) {
+                    if (b.getHead() != null && b.getHead().getStep() > insn && predicate.test(b.getHead())) {
                         return b.getHead();
-                    } else if (b.isInterrupt() && b.getInterrupt().getStep().getStep() > insn && b.getInterrupt().getStep().getPC() == pc) {
+                    } else if (b.isInterrupt() && b.getInterrupt().getStep().getStep() > insn && predicate.test(b.getInterrupt().getStep())) {
                         return b.getInterrupt().getStep();
                     } else {
                         // recurse?
@@ -151,7 +154,7 @@ public class Search {
                         // first instruction in this block is after search value
                         if (first > search || (b.isInterrupt() && first >= search)) {
                             // recurse
-                            Node next = nextPC(b, pc, insn, false);
+                            Node next = nextStep(b, predicate, insn, false);
                             if (next != null) {
                                 return next;
                             }
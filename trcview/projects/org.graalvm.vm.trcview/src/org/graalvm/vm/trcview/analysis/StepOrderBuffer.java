@@ -0,0 +1,205 @@
+package org.graalvm.vm.trcview.analysis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Delivers the events of a trace to analyzers in step order. Traces written by several threads at
+ * once (e.g. with the ConcurrentGenericTrace of libtrc) interleave the steps of the threads batch by
+ * batch, so the steps in the file are not ascending. Analyzers which shadow memory, like the def-use
+ * index and the taint analysis, need the accesses of all threads in step order though.
+ *
+ * A step and all events which follow it up to the next step form a group. The last
+ * {@code window} groups are kept in a priority queue and released in step order. A group which
+ * arrives after a group with a larger step was already released cannot be put in order anymore;
+ * it is delivered immediately and counted, and a warning is logged at the end of the trace.
+ */
+public class StepOrderBuffer implements Analyzer {
+    private static final Logger log = Trace.create(StepOrderBuffer.class);
+
+    public static final int DEFAULT_WINDOW = 1 << 18;
+
+    private final List<Analyzer> analyzers;
+    private final int window;
+    private final PriorityQueue<Group> queue;
+
+    private Group current;
+    private long sequence;
+    private long maxStep;
+    private long released;
+    private boolean hasReleased;
+
+    private long reordered;
+    private long late;
+
+    private static class Group implements Comparable<Group> {
+        final long step;
+        final long seq;
+        final boolean late;
+        Event[] events = new Event[2];
+        Node[] nodes = new Node[2];
+        int count;
+
+        Group(long step, long seq, boolean late) {
+            this.step = step;
+            this.seq = seq;
+            this.late = late;
+        }
+
+        void add(Event event, Node node) {
+            if (count == events.length) {
+                events = Arrays.copyOf(events, count * 2);
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+            events[count] = event;
+            nodes[count] = node;
+            count++;
+        }
+
+        @Override
+        public int compareTo(Group o) {
+            int cmp = Long.compareUnsigned(step, o.step);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    public StepOrderBuffer(List<Analyzer> analyzers) {
+        this(analyzers, getWindow());
+    }
+
+    public StepOrderBuffer(List<Analyzer> analyzers, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("invalid window " + window);
+        }
+        this.analyzers = analyzers;
+        this.window = window;
+        queue = new PriorityQueue<>();
+    }
+
+    private static int getWindow() {
+        String value = System.getProperty("trcview.analysis.window");
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                log.log(Levels.WARNING, "Invalid step order window: " + value);
+            }
+        }
+        return DEFAULT_WINDOW;
+    }
+
+    @Override
+    public void start(MemoryTrace mem) {
+        queue.clear();
+        current = null;
+        sequence = 0;
+        maxStep = 0;
+        released = 0;
+        hasReleased = false;
+        reordered = 0;
+        late = 0;
+        for (Analyzer analyzer : analyzers) {
+            analyzer.start(mem);
+        }
+    }
+
+    private void deliver(Event event, Node node) {
+        for (Analyzer analyzer : analyzers) {
+            analyzer.process(event, node);
+        }
+    }
+
+    private void release(Group group) {
+        released = group.step;
+        hasReleased = true;
+        for (int i = 0; i < group.count; i++) {
+            deliver(group.events[i], group.nodes[i]);
+        }
+    }
+
+    private void enqueue() {
+        if (current != null && !current.late) {
+            queue.add(current);
+            while (queue.size() > window) {
+                release(queue.poll());
+            }
+        }
+        current = null;
+    }
+
+    @Override
+    public void process(Event event, Node node) {
+        if (event instanceof StepEvent) {
+            enqueue();
+            long step = ((StepEvent) event).getStep();
+            if (sequence > 0 && Long.compareUnsigned(step, maxStep) < 0) {
+                reordered++;
+            } else {
+                maxStep = step;
+            }
+            boolean isLate = hasReleased && Long.compareUnsigned(step, released) < 0;
+            current = new Group(step, sequence++, isLate);
+            if (isLate) {
+                late++;
+            }
+        }
+        if (current == null || current.late) {
+            // events before the first step and groups which are too late to be sorted
+            deliver(event, node);
+        } else {
+            current.add(event, node);
+        }
+    }
+
+    @Override
+    public void finish() {
+        enqueue();
+        while (!queue.isEmpty()) {
+            release(queue.poll());
+        }
+        if (reordered > 0) {
+            log.log(Levels.INFO, "Trace is not in step order: " + reordered + " steps were reordered for analysis");
+        }
+        if (late > 0) {
+            log.log(Levels.WARNING, late + " steps arrived too late to be put in step order (window: " + window + " steps), def-use and taint results for them may be wrong");
+        }
+        for (Analyzer analyzer : analyzers) {
+            analyzer.finish();
+        }
+    }
+
+    @Override
+    public void abort(Throwable cause) {
+        queue.clear();
+        current = null;
+        for (Analyzer analyzer : analyzers) {
+            analyzer.abort(cause);
+        }
+    }
+
+    /**
+     * Get the number of steps which appeared in the trace after a step with a larger step number.
+     */
+    public long getReorderedCount() {
+        return reordered;
+    }
+
+    /**
+     * Get the number of steps which could not be put in order because they were too late.
+     */
+    public long getLateCount() {
+        return late;
+    }
+}
@@ -161,14 +161,14 @@ public class SymbolTable {
             long pc = step.getPC();
             ComputedSymbol sym = symbols.get(pc);
             if (sym != null) {
-                sym.addVisit(node);
+                sym.addVisit(step.getStep());
             }
         } else if (node instanceof BlockNode) {
             BlockNode block = (BlockNode) node;
             long pc = block.getHead().getPC();
             ComputedSymbol sym = symbols.get(pc);
             if (sym != null) {
-                sym.addVisit(node);
+                sym.addVisit(block.getHead().getStep());
             }
         }
     }
@@ -239,7 +239,7 @@ public class SymbolTable {
     }
 
     public void cleanup() {
-        List<ComputedSymbol> unused = symbols.values().stream().filter(s -> s.type == ComputedSymbol.Type.SUBROUTINE).filter(s -> s.visits.size() == 0).collect(Collectors.toList());
+        List<ComputedSymbol> unused = symbols.values().stream().filter(s -> s.type == ComputedSymbol.Type.SUBROUTINE).filter(s -> !s.hasVisits()).collect(Collectors.toList());
         unused.forEach(s -> {
             log.info("Unused symbol " + s.name + " @ " + names.addr(s.address));
         });
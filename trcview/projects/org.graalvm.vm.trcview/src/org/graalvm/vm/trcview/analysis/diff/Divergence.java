@@ -0,0 +1,97 @@
+package org.graalvm.vm.trcview.analysis.diff;
+
+import org.graalvm.vm.util.HexFormatter;
+
+/**
+ * The first difference between two traces.
+ */
+public class Divergence {
+    public static enum Kind {
+        THREAD,
+        PC,
+        REGISTER,
+        MEMORY,
+        END
+    }
+
+    private final Kind kind;
+    private final long ordinal;
+    private final long stepA;
+    private final long stepB;
+    private final String register;
+    private final long address;
+    private final long valueA;
+    private final long valueB;
+
+    public Divergence(Kind kind, long ordinal, long stepA, long stepB, String register, long address, long valueA, long valueB) {
+        this.kind = kind;
+        this.ordinal = ordinal;
+        this.stepA = stepA;
+        this.stepB = stepB;
+        this.register = register;
+        this.address = address;
+        this.valueA = valueA;
+        this.valueB = valueB;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the position of the divergent step in both step sequences, starting at 0.
+     */
+    public long getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Get the step number in the first trace, or -1 if the first trace ended.
+     */
+    public long getStepA() {
+        return stepA;
+    }
+
+    /**
+     * Get the step number in the second trace, or -1 if the second trace ended.
+     */
+    public long getStepB() {
+        return stepB;
+    }
+
+    public String getRegister() {
+        return register;
+    }
+
+    public long getAddress() {
+        return address;
+    }
+
+    public long getValueA() {
+        return valueA;
+    }
+
+    public long getValueB() {
+        return valueB;
+    }
+
+    @Override
+    public String toString() {
+        String where = "step #" + ordinal + " (" + stepA + " / " + stepB + ")";
+        switch (kind) {
+            case THREAD:
+                return where + ": thread " + valueA + " != " + valueB;
+            case PC:
+                return where + ": pc 0x" + HexFormatter.tohex(valueA, 16) + " != 0x" + HexFormatter.tohex(valueB, 16);
+            case REGISTER:
+                return where + ": " + register + " 0x" + HexFormatter.tohex(valueA, 16) + " != 0x" + HexFormatter.tohex(valueB, 16);
+            case MEMORY:
+                return where + ": memory at 0x" + HexFormatter.tohex(address, 16) + " " + (valueA == -1 ? "--" : HexFormatter.tohex(valueA, 2)) + " != " +
+                                (valueB == -1 ? "--" : HexFormatter.tohex(valueB, 2));
+            case END:
+                return where + ": " + (stepA == -1 ? "first" : "second") + " trace ended";
+            default:
+                return where;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.graalvm.vm.trcview.analysis.diff;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.CpuDeltaState;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.io.TraceReader;
+import org.graalvm.vm.util.Vector128;
+
+/**
+ * Reads a trace as a sequence of steps. For every step the register file after the step and the
+ * memory writes of the step are decoded into primitive arrays, so that two traces can be compared
+ * without building the node tree.
+ */
+public class StepStream implements Closeable {
+    private final TraceReader in;
+    private final Closeable file;
+    private final String[] names;
+    private final int regcnt;
+    private final long[] regs;
+
+    // delta states are relative to the previous step of the same thread
+    private final Map<Integer, CpuState> lastStates;
+    private Event lookahead;
+    private boolean eof;
+
+    private long ordinal;
+    private long step;
+    private long pc;
+    private int tid;
+
+    // memory writes as (address, size, value) triples, byte i of the value is at address + i
+    private long[] writes;
+    private int writeCount;
+
+    public StepStream(TraceReader in) {
+        this(in, null);
+    }
+
+    private StepStream(TraceReader in, Closeable file) {
+        this.in = in;
+        this.file = file;
+        Architecture arch = in.getArchitecture();
+        names = arch.getRegisterNames();
+        regcnt = names.length > 0 ? 0 : arch.getRegisterCount();
+        regs = new long[getRegisterCount()];
+        writes = new long[3 * 8];
+        lastStates = new HashMap<>();
+        ordinal = -1;
+    }
+
+    public static StepStream open(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return new StepStream(new TraceFileReader(in), in);
+        } catch (Throwable t) {
+            in.close();
+            throw t;
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private CpuState getState(StepEvent event) {
+        CpuState state = event.getState();
+        if (state instanceof CpuDeltaState) {
+            CpuDeltaState delta = (CpuDeltaState) state;
+            state = delta.resolve(lastStates.get(event.getTid()));
+        }
+        lastStates.put(event.getTid(), state);
+        return state;
+    }
+
+    private Event read() throws IOException {
+        if (lookahead != null) {
+            Event evt = lookahead;
+            lookahead = null;
+            return evt;
+        }
+        if (eof) {
+            return null;
+        }
+        Event evt = in.read();
+        if (evt == null) {
+            eof = true;
+        }
+        return evt;
+    }
+
+    private void addWrite(long addr, long size, long value) {
+        if (writeCount + 3 > writes.length) {
+            writes = Arrays.copyOf(writes, writes.length * 2);
+        }
+        writes[writeCount++] = addr;
+        writes[writeCount++] = size;
+        writes[writeCount++] = value;
+    }
+
+    private static long swap(long value, int size) {
+        return Long.reverseBytes(value) >>> (64 - 8 * size);
+    }
+
+    private void addWrite(MemoryEvent evt) {
+        long addr = evt.getAddress();
+        int size = evt.getSize();
+        boolean be = evt.isBigEndian();
+        if (!evt.hasData()) {
+            addWrite(addr, size, 0);
+        } else if (size == 16) {
+            Vector128 value = evt.getVector();
+            if (be) {
+                addWrite(addr, 8, swap(value.getI64(0), 8));
+                addWrite(addr + 8, 8, swap(value.getI64(1), 8));
+            } else {
+                addWrite(addr, 8, value.getI64(1));
+                addWrite(addr + 8, 8, value.getI64(0));
+            }
+        } else {
+            addWrite(addr, size, be ? swap(evt.getValue(), size) : evt.getValue());
+        }
+    }
+
+    /**
+     * Advance to the next step.
+     *
+     * @return false if the end of the trace was reached
+     */
+    public boolean next() throws IOException {
+        Event evt;
+        while ((evt = read()) != null && !(evt instanceof StepEvent)) {
+            // skip everything before the first step
+        }
+        if (evt == null) {
+            return false;
+        }
+
+        StepEvent event = (StepEvent) evt;
+        CpuState state = getState(event);
+        ordinal++;
+        step = event.getStep();
+        pc = event.getPC();
+        tid = event.getTid();
+        if (state != null) {
+            for (int i = 0; i < names.length; i++) {
+                regs[i] = state.get(names[i]);
+            }
+            for (int i = 0; i < regcnt; i++) {
+                regs[i] = state.getRegisterById(i);
+            }
+        }
+
+        writeCount = 0;
+        while ((evt = read()) != null) {
+            if (evt instanceof StepEvent) {
+                lookahead = evt;
+                break;
+            } else if (evt instanceof MemoryEvent && ((MemoryEvent) evt).isWrite()) {
+                addWrite((MemoryEvent) evt);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip {@code n} steps without looking at them.
+     *
+     * @return false if the end of the trace was reached
+     */
+    public boolean skip(long n) throws IOException {
+        for (long i = 0; i < n; i++) {
+            if (!next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the position of the current step in the stream, starting at 0.
+     */
+    public long getOrdinal() {
+        return ordinal;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public long getPC() {
+        return pc;
+    }
+
+    public int getTid() {
+        return tid;
+    }
+
+    public int getRegisterCount() {
+        return names.length + regcnt;
+    }
+
+    public String getRegisterName(int i) {
+        if (i < names.length) {
+            return names[i];
+        } else {
+            return "r" + i;
+        }
+    }
+
+    public long getRegister(int i) {
+        return regs[i];
+    }
+
+    public int getWriteCount() {
+        return writeCount / 3;
+    }
+
+    public long getWriteAddress(int i) {
+        return writes[3 * i];
+    }
+
+    public int getWriteSize(int i) {
+        return (int) writes[3 * i + 1];
+    }
+
+    public long getWriteValue(int i) {
+        return writes[3 * i + 2];
+    }
+
+    private static long mix(long h, long v) {
+        long x = (h ^ v) * 0x9E3779B97F4A7C15L;
+        return x ^ (x >>> 29);
+    }
+
+    /**
+     * Fold the current step into the rolling hash {@code h}.
+     */
+    public long hash(long h) {
+        long x = mix(h, tid);
+        x = mix(x, pc);
+        for (int i = 0; i < regs.length; i++) {
+            x = mix(x, regs[i]);
+        }
+        for (int i = 0; i < writeCount; i++) {
+            x = mix(x, writes[i]);
+        }
+        return x;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
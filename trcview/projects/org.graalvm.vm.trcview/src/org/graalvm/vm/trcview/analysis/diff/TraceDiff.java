@@ -0,0 +1,256 @@
+package org.graalvm.vm.trcview.analysis.diff;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.diff.Divergence.Kind;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Finds the first divergence between two traces of the same program.
+ *
+ * Both traces are first read independently while a rolling hash over thread, PC, register file
+ * and memory writes of every step is recorded every {@code interval} steps. Since the hash is
+ * cumulative, all checkpoints after the first divergence differ as well, so the first divergent
+ * window is found with a binary search over the checkpoints. Only this window is then compared
+ * step by step to locate the exact step, register or memory byte.
+ *
+ * The traces are compared as one step sequence each; for multithreaded traces this includes the
+ * thread interleaving.
+ */
+public class TraceDiff {
+    private static final Logger log = Trace.create(TraceDiff.class);
+
+    public static final int DEFAULT_INTERVAL = 4096;
+
+    public static interface Source {
+        StepStream open() throws IOException;
+    }
+
+    public static class Checkpoints {
+        private long[] hashes;
+        private int count;
+        private long steps;
+
+        Checkpoints() {
+            hashes = new long[64];
+            count = 0;
+            steps = 0;
+        }
+
+        void add(long hash) {
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            hashes[count++] = hash;
+        }
+
+        /**
+         * Get the rolling hash after {@code (i + 1) * interval} steps.
+         */
+        public long get(int i) {
+            return hashes[i];
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+    }
+
+    private final Source a;
+    private final Source b;
+    private final int interval;
+
+    public TraceDiff(Source a, Source b) {
+        this(a, b, DEFAULT_INTERVAL);
+    }
+
+    public TraceDiff(Source a, Source b, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("invalid interval " + interval);
+        }
+        this.a = a;
+        this.b = b;
+        this.interval = interval;
+    }
+
+    public static Checkpoints record(StepStream in, int interval) throws IOException {
+        Checkpoints result = new Checkpoints();
+        long hash = 0;
+        int n = 0;
+        while (in.next()) {
+            hash = in.hash(hash);
+            result.steps++;
+            if (++n == interval) {
+                result.add(hash);
+                n = 0;
+            }
+        }
+        return result;
+    }
+
+    private Checkpoints record(Source src) throws IOException {
+        try (StepStream in = src.open()) {
+            return record(in, interval);
+        }
+    }
+
+    /**
+     * Find the first checkpoint which differs.
+     *
+     * @return the index of the first divergent checkpoint, or the number of common checkpoints
+     */
+    public static int search(Checkpoints ca, Checkpoints cb) {
+        int lo = 0;
+        int hi = Math.min(ca.size(), cb.size());
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ca.get(mid) == cb.get(mid)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Compare both traces.
+     *
+     * @return the first divergence, or null if both traces are equal
+     */
+    public Divergence compare() throws IOException {
+        log.log(Levels.INFO, "Recording checkpoints...");
+        Checkpoints ca = record(a);
+        Checkpoints cb = record(b);
+        log.log(Levels.INFO, "Traces have " + ca.getSteps() + " / " + cb.getSteps() + " steps");
+
+        int window = search(ca, cb);
+        long start = (long) window * interval;
+        log.log(Levels.INFO, "First divergent window starts at step #" + start);
+
+        try (StepStream sa = a.open(); StepStream sb = b.open()) {
+            sa.skip(start);
+            sb.skip(start);
+            return compare(sa, sb);
+        }
+    }
+
+    /**
+     * Compare two step streams step by step from their current position.
+     *
+     * @return the first divergence, or null if both streams are equal
+     */
+    public static Divergence compare(StepStream sa, StepStream sb) throws IOException {
+        while (true) {
+            boolean hasA = sa.next();
+            boolean hasB = sb.next();
+            if (!hasA && !hasB) {
+                return null;
+            } else if (!hasA || !hasB) {
+                long ordinal = hasA ? sa.getOrdinal() : sb.getOrdinal();
+                return new Divergence(Kind.END, ordinal, hasA ? sa.getStep() : -1, hasB ? sb.getStep() : -1, null, 0, 0, 0);
+            }
+
+            Divergence result = compareStep(sa, sb);
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    private static Divergence compareStep(StepStream sa, StepStream sb) {
+        long ordinal = sa.getOrdinal();
+        long stepA = sa.getStep();
+        long stepB = sb.getStep();
+        if (sa.getTid() != sb.getTid()) {
+            return new Divergence(Kind.THREAD, ordinal, stepA, stepB, null, 0, sa.getTid(), sb.getTid());
+        }
+        if (sa.getPC() != sb.getPC()) {
+            return new Divergence(Kind.PC, ordinal, stepA, stepB, null, 0, sa.getPC(), sb.getPC());
+        }
+        int regcnt = Math.min(sa.getRegisterCount(), sb.getRegisterCount());
+        for (int i = 0; i < regcnt; i++) {
+            if (sa.getRegister(i) != sb.getRegister(i)) {
+                return new Divergence(Kind.REGISTER, ordinal, stepA, stepB, sa.getRegisterName(i), 0, sa.getRegister(i), sb.getRegister(i));
+            }
+        }
+
+        Map<Long, Integer> ma = getWrittenBytes(sa);
+        Map<Long, Integer> mb = getWrittenBytes(sb);
+        if (!ma.equals(mb)) {
+            TreeMap<Long, Integer> bytes = new TreeMap<>(Long::compareUnsigned);
+            bytes.putAll(ma);
+            bytes.putAll(mb);
+            for (long addr : bytes.keySet()) {
+                Integer va = ma.get(addr);
+                Integer vb = mb.get(addr);
+                if (va == null || !va.equals(vb)) {
+                    return new Divergence(Kind.MEMORY, ordinal, stepA, stepB, null, addr, va == null ? -1 : va, vb == null ? -1 : vb);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Map<Long, Integer> getWrittenBytes(StepStream s) {
+        Map<Long, Integer> result = new TreeMap<>();
+        for (int i = 0; i < s.getWriteCount(); i++) {
+            long addr = s.getWriteAddress(i);
+            long value = s.getWriteValue(i);
+            for (int j = 0; j < s.getWriteSize(i); j++) {
+                result.put(addr + j, (int) (value >>> (8 * j)) & 0xFF);
+            }
+        }
+        return result;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: TraceDiff [-interval N] a.trc b.trc");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) {
+        Trace.setup();
+
+        int interval = DEFAULT_INTERVAL;
+        int i = 0;
+        if (args.length > 1 && args[0].equals("-interval")) {
+            try {
+                interval = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                usage();
+            }
+            i = 2;
+        }
+        if (args.length - i != 2) {
+            usage();
+        }
+
+        File fa = new File(args[i]);
+        File fb = new File(args[i + 1]);
+        try {
+            Divergence result = new TraceDiff(() -> StepStream.open(fa), () -> StepStream.open(fb), interval).compare();
+            if (result == null) {
+                System.out.println("Traces are identical");
+                System.exit(0);
+            } else {
+                System.out.println("Traces diverge at " + result);
+                System.exit(1);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+            log.log(Levels.ERROR, "Comparing traces failed: " + e, e);
+            System.exit(2);
+        }
+    }
+}
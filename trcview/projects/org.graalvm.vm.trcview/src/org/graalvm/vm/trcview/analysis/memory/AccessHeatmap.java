@@ -0,0 +1,441 @@
+package org.graalvm.vm.trcview.analysis.memory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.graalvm.vm.util.LongLongMap;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+/**
+ * Histogram of memory reads and writes over pages and steps which is collected while the trace is
+ * parsed.
+ *
+ * The accesses are counted per page and bucket of {@code bucketSize} steps. The bucket size is
+ * fixed, so the resolution does not degrade for long traces, and the counts are stored sparsely
+ * per page. The address axis consists of the pages which were accessed at all, in address order,
+ * so unmapped gaps in the address space take no room.
+ *
+ * For display the histogram is turned into a pyramid: the level with row shift r and column shift c
+ * combines 2^r pages and 2^c buckets into one cell. A view picks the level which fits the part it
+ * shows, so zooming in goes down to single pages and buckets while the whole trace never needs more
+ * cells than the view has pixels. Levels are computed on demand from the finest cached level which
+ * is at least as fine in both directions; the last few levels are kept until new accesses arrive.
+ *
+ * The counts can be stored with {@link #write(WordOutputStream)}, e.g. in a trace database, and
+ * loaded again with {@link #read(WordInputStream)}; the pyramid is rebuilt when it is used.
+ */
+public class AccessHeatmap {
+    public static final int DEFAULT_BUCKET_SIZE = 1024;
+
+    private static final int MAX_CACHED_LEVELS = 16;
+    private static final long PAGE_MASK = ~(long) (Page.SIZE - 1);
+
+    private final int bucketShift;
+    private long lastBucket = 0;
+
+    // page address -> counts per bucket
+    private final Map<Long, Row> rows = new HashMap<>();
+    private Row lastRow = null;
+
+    // pyramid, rebuilt on demand after new accesses were recorded
+    private boolean dirty = true;
+    private Level base;
+    @SuppressWarnings("serial") private final Map<Integer, Level> levels = new LinkedHashMap<Integer, Level>(MAX_CACHED_LEVELS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Level> eldest) {
+            return size() > MAX_CACHED_LEVELS;
+        }
+    };
+
+    private static class Row {
+        final long address;
+        final LongLongMap reads = new LongLongMap();
+        final LongLongMap writes = new LongLongMap();
+
+        Row(long address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * One level of the pyramid. A level is a snapshot: it does not change if new accesses are
+     * recorded.
+     *
+     * A tile of a level (see {@link #getTile(int, int, int, int)}) has the geometry and the maximum
+     * of the whole level, but only the cells and page addresses of its rows and columns. Tiles are
+     * what a {@link org.graalvm.vm.trcview.net.TraceAnalyzer} serves, so that a view only transfers
+     * the part it shows.
+     */
+    public static class Level {
+        // addresses of the pages firstPage to firstPage + pages.length - 1 of the level
+        private final long[] pages;
+        private final int firstPage;
+        private final int pageCount;
+        private final int bucketShift;
+        private final int rowShift;
+        private final int columnShift;
+        private final int rows;
+        private final int columns;
+        private final LongLongMap reads;
+        private final LongLongMap writes;
+        private long max;
+
+        Level(long[] pages, int bucketShift, int rowShift, int columnShift, long baseColumns) {
+            this(pages, 0, pages.length, bucketShift, rowShift, columnShift, (int) ((baseColumns + (1L << columnShift) - 1) >> columnShift));
+        }
+
+        private Level(long[] pages, int firstPage, int pageCount, int bucketShift, int rowShift, int columnShift, int columns) {
+            this.pages = pages;
+            this.firstPage = firstPage;
+            this.pageCount = pageCount;
+            this.bucketShift = bucketShift;
+            this.rowShift = rowShift;
+            this.columnShift = columnShift;
+            this.columns = columns;
+            rows = (int) ((pageCount + (1L << rowShift) - 1) >> rowShift);
+            reads = new LongLongMap();
+            writes = new LongLongMap();
+        }
+
+        public int getRowShift() {
+            return rowShift;
+        }
+
+        public int getColumnShift() {
+            return columnShift;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public long getReads(int row, int column) {
+            return reads.get(cell(row, column), 0);
+        }
+
+        public long getWrites(int row, int column) {
+            return writes.get(cell(row, column), 0);
+        }
+
+        /**
+         * Get the maximum number of accesses in one cell of the level.
+         */
+        public long getMaximum() {
+            return max;
+        }
+
+        /**
+         * Get the number of accessed pages which are combined in a row.
+         */
+        public int getPageCount(int row) {
+            int first = row << rowShift;
+            return Math.min(pageCount - first, 1 << rowShift);
+        }
+
+        /**
+         * Get the address of the first page of a row.
+         */
+        public long getStartAddress(int row) {
+            return pages[(row << rowShift) - firstPage];
+        }
+
+        /**
+         * Get the last address of the last page of a row.
+         */
+        public long getEndAddress(int row) {
+            int last = (row << rowShift) + getPageCount(row) - 1;
+            return pages[last - firstPage] + Page.SIZE - 1;
+        }
+
+        /**
+         * Get the number of steps per bucket of the finest level.
+         */
+        public long getBucketSize() {
+            return 1L << bucketShift;
+        }
+
+        public long getStartStep(int column) {
+            return ((long) column << columnShift) << bucketShift;
+        }
+
+        public long getEndStep(int column) {
+            return (((long) (column + 1) << columnShift) << bucketShift) - 1;
+        }
+
+        /**
+         * Get the tile with {@code rowCount} rows starting at {@code row} and {@code columnCount}
+         * columns starting at {@code column}. Rows and columns outside of the level are ignored.
+         */
+        public Level getTile(int row, int column, int rowCount, int columnCount) {
+            int r0 = Math.max(0, Math.min(row, rows));
+            int r1 = (int) Math.max(r0, Math.min((long) row + rowCount, rows));
+            long c0 = Math.max(0, column);
+            long c1 = (long) column + columnCount;
+            int p0 = (int) Math.min((long) r0 << rowShift, pageCount);
+            int p1 = (int) Math.min((long) r1 << rowShift, pageCount);
+            Level tile = new Level(Arrays.copyOfRange(pages, p0 - firstPage, p1 - firstPage), p0, pageCount, bucketShift, rowShift, columnShift, columns);
+            tile.max = max;
+            reads.forEach((c, value) -> {
+                if (isInside(c, r0, r1, c0, c1)) {
+                    tile.reads.put(c, value);
+                }
+            });
+            writes.forEach((c, value) -> {
+                if (isInside(c, r0, r1, c0, c1)) {
+                    tile.writes.put(c, value);
+                }
+            });
+            return tile;
+        }
+
+        private static boolean isInside(long c, long r0, long r1, long c0, long c1) {
+            long row = c >>> 32;
+            long column = c & 0xFFFFFFFFL;
+            return row >= r0 && row < r1 && column >= c0 && column < c1;
+        }
+
+        public void write(WordOutputStream out) throws IOException {
+            out.write8bit((byte) bucketShift);
+            out.write8bit((byte) rowShift);
+            out.write8bit((byte) columnShift);
+            out.write32bit(firstPage);
+            out.write32bit(pageCount);
+            out.write32bit(columns);
+            out.write64bit(max);
+            out.write32bit(pages.length);
+            for (long page : pages) {
+                out.write64bit(page);
+            }
+            writeCounts(out, reads);
+            writeCounts(out, writes);
+        }
+
+        public static Level read(WordInputStream in) throws IOException {
+            int bucketShift = in.read8bit();
+            int rowShift = in.read8bit();
+            int columnShift = in.read8bit();
+            int firstPage = in.read32bit();
+            int pageCount = in.read32bit();
+            int columns = in.read32bit();
+            long max = in.read64bit();
+            long[] pages = new long[in.read32bit()];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = in.read64bit();
+            }
+            Level level = new Level(pages, firstPage, pageCount, bucketShift, rowShift, columnShift, columns);
+            level.max = max;
+            readCounts(in, level.reads);
+            readCounts(in, level.writes);
+            return level;
+        }
+
+        private void updateMax() {
+            long[] result = {0};
+            reads.forEach((key, value) -> result[0] = Math.max(result[0], value + writes.get(key, 0)));
+            writes.forEach((key, value) -> result[0] = Math.max(result[0], value + reads.get(key, 0)));
+            max = result[0];
+        }
+    }
+
+    public AccessHeatmap() {
+        this(DEFAULT_BUCKET_SIZE);
+    }
+
+    public AccessHeatmap(int bucketSize) {
+        if (bucketSize < 1 || Integer.bitCount(bucketSize) != 1) {
+            throw new IllegalArgumentException("invalid bucket size " + bucketSize);
+        }
+        bucketShift = Integer.numberOfTrailingZeros(bucketSize);
+    }
+
+    public void read(long addr, long step) {
+        long bucket = bucket(step);
+        getRow(addr).reads.add(bucket, 1);
+    }
+
+    public void write(long addr, long step) {
+        long bucket = bucket(step);
+        getRow(addr).writes.add(bucket, 1);
+    }
+
+    private long bucket(long step) {
+        long bucket = step >>> bucketShift;
+        if (bucket > lastBucket) {
+            lastBucket = bucket;
+        }
+        dirty = true;
+        return bucket;
+    }
+
+    private Row getRow(long addr) {
+        long page = addr & PAGE_MASK;
+        // accesses are usually local, avoid the map lookup
+        if (lastRow != null && lastRow.address == page) {
+            return lastRow;
+        }
+        Row row = rows.get(page);
+        if (row == null) {
+            row = new Row(page);
+            rows.put(page, row);
+        }
+        lastRow = row;
+        return row;
+    }
+
+    /**
+     * Get the number of steps per bucket, i.e. per column of the finest level.
+     */
+    public long getBucketSize() {
+        return 1L << bucketShift;
+    }
+
+    private static long cell(long row, long column) {
+        return (row << 32) | column;
+    }
+
+    private static int key(int rowShift, int columnShift) {
+        return (rowShift << 8) | columnShift;
+    }
+
+    private void build() {
+        if (!dirty) {
+            return;
+        }
+
+        long[] pages = new long[rows.size()];
+        int n = 0;
+        for (long page : rows.keySet()) {
+            // unsigned order
+            pages[n++] = page ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(pages);
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] ^= Long.MIN_VALUE;
+        }
+
+        Level level = new Level(pages, bucketShift, 0, 0, lastBucket + 1);
+        for (int i = 0; i < pages.length; i++) {
+            long row = i;
+            Row data = rows.get(pages[i]);
+            data.reads.forEach((bucket, value) -> level.reads.put(cell(row, bucket), value));
+            data.writes.forEach((bucket, value) -> level.writes.put(cell(row, bucket), value));
+        }
+        level.updateMax();
+
+        base = level;
+        levels.clear();
+        dirty = false;
+    }
+
+    /**
+     * Get the level which combines 2^{@code rowShift} pages and 2^{@code columnShift} buckets into
+     * one cell.
+     */
+    public Level getLevel(int rowShift, int columnShift) {
+        if (rowShift < 0 || rowShift > 31 || columnShift < 0 || columnShift > 31) {
+            throw new IllegalArgumentException("invalid level " + rowShift + "/" + columnShift);
+        }
+        build();
+        if (rowShift == 0 && columnShift == 0) {
+            return base;
+        }
+        int key = key(rowShift, columnShift);
+        Level level = levels.get(key);
+        if (level != null) {
+            return level;
+        }
+
+        // start from the coarsest cached level which is at least as fine in both directions
+        Level source = base;
+        for (Level cached : levels.values()) {
+            if (cached.rowShift <= rowShift && cached.columnShift <= columnShift && cached.rowShift + cached.columnShift > source.rowShift + source.columnShift) {
+                source = cached;
+            }
+        }
+        int dr = rowShift - source.rowShift;
+        int dc = columnShift - source.columnShift;
+        Level result = new Level(base.pages, bucketShift, rowShift, columnShift, base.columns);
+        source.reads.forEach((c, value) -> result.reads.add(cell((c >>> 32) >> dr, (c & 0xFFFFFFFFL) >> dc), value));
+        source.writes.forEach((c, value) -> result.writes.add(cell((c >>> 32) >> dr, (c & 0xFFFFFFFFL) >> dc), value));
+        result.updateMax();
+        levels.put(key, result);
+        return result;
+    }
+
+    /**
+     * Get the smallest shift which maps {@code cells} cells to at most {@code pixels} pixels.
+     */
+    public static int fit(long cells, int pixels) {
+        int shift = 0;
+        while (shift < 31 && ((cells + (1L << shift) - 1) >> shift) > Math.max(1, pixels)) {
+            shift++;
+        }
+        return shift;
+    }
+
+    /**
+     * Get the finest level which shows all accesses with at most {@code rows} rows and
+     * {@code columns} columns.
+     */
+    public Level getFittingLevel(int rows, int columns) {
+        build();
+        return getLevel(fit(base.rows, rows), fit(base.columns, columns));
+    }
+
+    /**
+     * Get the finest level: one row per page and one column per bucket.
+     */
+    public Level getBaseLevel() {
+        build();
+        return base;
+    }
+
+    private static void writeCounts(WordOutputStream out, LongLongMap counts) throws IOException {
+        long[] buckets = counts.keys();
+        out.write32bit(buckets.length);
+        for (long bucket : buckets) {
+            out.write64bit(bucket);
+            out.write64bit(counts.get(bucket, 0));
+        }
+    }
+
+    private static void readCounts(WordInputStream in, LongLongMap counts) throws IOException {
+        int count = in.read32bit();
+        for (int i = 0; i < count; i++) {
+            long bucket = in.read64bit();
+            counts.put(bucket, in.read64bit());
+        }
+    }
+
+    public void write(WordOutputStream out) throws IOException {
+        out.write8bit((byte) bucketShift);
+        out.write64bit(lastBucket);
+        out.write32bit(rows.size());
+        for (Row row : rows.values()) {
+            out.write64bit(row.address);
+            writeCounts(out, row.reads);
+            writeCounts(out, row.writes);
+        }
+    }
+
+    public static AccessHeatmap read(WordInputStream in) throws IOException {
+        AccessHeatmap heatmap = new AccessHeatmap(1 << in.read8bit());
+        heatmap.lastBucket = in.read64bit();
+        int count = in.read32bit();
+        for (int i = 0; i < count; i++) {
+            Row row = new Row(in.read64bit());
+            readCounts(in, row.reads);
+            readCounts(in, row.writes);
+            heatmap.rows.put(row.address, row);
+        }
+        return heatmap;
+    }
+}
@@ -32,14 +32,14 @@ public class CoarsePage extends Page {
     public void addUpdate(long addr, byte size, long value, long instructionCount, Node node, StepEvent step, boolean be) {
         assert addr >= address && addr < (address + data.length);
         assert addr + size <= (address + data.length);
-        updates.add(new MemoryUpdate(be, addr, size, value, instructionCount, node, step));
+        insertUpdate(updates, new MemoryUpdate(be, addr, size, value, instructionCount, node, step));
     }
 
     @Override
     public void addRead(long addr, byte size, long instructionCount, Node node, StepEvent step) {
         assert addr >= address && addr < (address + data.length);
         assert addr + size <= (address + data.length);
-        reads.add(new MemoryRead(addr, size, instructionCount, node, step));
+        insertRead(reads, new MemoryRead(addr, size, instructionCount, node, step));
     }
 
     @Override
@@ -414,6 +414,32 @@ public class CoarsePage extends Page {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<MemoryRead> getReads(long from, long to) {
+        List<MemoryRead> result = new ArrayList<>();
+        for (int i = lowerBound(reads, r -> r.instructionCount, from); i < reads.size(); i++) {
+            MemoryRead read = reads.get(i);
+            if (Long.compareUnsigned(read.instructionCount, to) > 0) {
+                break;
+            }
+            result.add(read);
+        }
+        return result;
+    }
+
+    @Override
+    public List<MemoryUpdate> getUpdates(long from, long to) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        for (int i = lowerBound(updates, u -> u.instructionCount, from); i < updates.size(); i++) {
+            MemoryUpdate update = updates.get(i);
+            if (Long.compareUnsigned(update.instructionCount, to) > 0) {
+                break;
+            }
+            result.add(update);
+        }
+        return result;
+    }
+
     public int getSize() {
         return (updates.size() + reads.size()) / 2;
     }
@@ -52,7 +52,7 @@ public class FinePage extends Page {
             if (updates[off + i] == null) {
                 updates[off + i] = new ArrayList<>();
             }
-            updates[off + i].add(update);
+            insertUpdate(updates[off + i], update);
         }
         // does this event correspond to a step event?
         if (update.step != null && update.node != null && update.node instanceof MemoryEvent) {
@@ -72,7 +72,7 @@ public class FinePage extends Page {
             if (reads[off + i] == null) {
                 reads[off + i] = new ArrayList<>();
             }
-            reads[off + i].add(read);
+            insertRead(reads[off + i], read);
         }
         // does this event correspond to a step event?
         if (read.step != null && read.node != null && read.node instanceof MemoryEvent) {
@@ -381,6 +381,52 @@ public class FinePage extends Page {
         return Collections.unmodifiableList(updates[off]);
     }
 
+    @Override
+    public List<MemoryRead> getReads(long from, long to) {
+        List<MemoryRead> result = new ArrayList<>();
+        for (int off = 0; off < reads.length; off++) {
+            List<MemoryRead> list = reads[off];
+            if (list == null) {
+                continue;
+            }
+            for (int i = lowerBound(list, r -> r.instructionCount, from); i < list.size(); i++) {
+                MemoryRead read = list.get(i);
+                if (Long.compareUnsigned(read.instructionCount, to) > 0) {
+                    break;
+                }
+                // a read is stored once per byte, report it only at its first byte
+                if (read.address == address + off) {
+                    result.add(read);
+                }
+            }
+        }
+        result.sort((a, b) -> Long.compareUnsigned(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
+    @Override
+    public List<MemoryUpdate> getUpdates(long from, long to) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        for (int off = 0; off < updates.length; off++) {
+            List<MemoryUpdate> list = updates[off];
+            if (list == null) {
+                continue;
+            }
+            for (int i = lowerBound(list, u -> u.instructionCount, from); i < list.size(); i++) {
+                MemoryUpdate update = list.get(i);
+                if (Long.compareUnsigned(update.instructionCount, to) > 0) {
+                    break;
+                }
+                // an update is stored once per byte, report it only at its first byte
+                if (update.address == address + off) {
+                    result.add(update);
+                }
+            }
+        }
+        result.sort((a, b) -> Long.compareUnsigned(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
     @Override
     public long getWord(long addr, long instructionCount) throws MemoryNotMappedException {
         // TODO: this could be implemented more efficiently
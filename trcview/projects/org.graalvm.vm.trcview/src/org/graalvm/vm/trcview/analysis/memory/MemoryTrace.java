@@ -1,6 +1,7 @@
 package org.graalvm.vm.trcview.analysis.memory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map.Entry;
@@ -21,9 +22,19 @@ public class MemoryTrace {
     private static final Protection PROT_RW = new Protection(true, true, false);
 
     private final NavigableMap<Long, Page> pages = new TreeMap<>();
+    private final ValueIndex values;
+    private final AccessHeatmap heatmap = new AccessHeatmap();
 
     private long brk = -1;
 
+    public MemoryTrace() {
+        this(new ValueIndex());
+    }
+
+    public MemoryTrace(ValueIndex values) {
+        this.values = values;
+    }
+
     private static long getPageAddress(long address) {
         return address & 0xFFFFFFFFFFFFF000L;
     }
@@ -159,6 +170,7 @@ public class MemoryTrace {
             // segfault
             return;
         }
+        heatmap.write(addr, instructionCount);
         if (getPageAddress(addr) != getPageAddress(addr + size - 1)) {
             // write across page boundary
             long val = value;
@@ -170,6 +182,7 @@ public class MemoryTrace {
                         pages.put(page.getAddress(), page);
                     }
                     page.addUpdate(a, (byte) 1, (byte) val, instructionCount, node, step, be);
+                    values.add(a, 1, val, instructionCount);
                 } else {
                     long oldaddr = page.getAddress();
                     page = pages.get(page.getAddress() + 4096);
@@ -181,6 +194,7 @@ public class MemoryTrace {
                         pages.put(page.getAddress(), page);
                     }
                     page.addUpdate(a, (byte) 1, (byte) val, instructionCount, node, step, be);
+                    values.add(a, 1, val, instructionCount);
                 }
                 val >>= 8;
             }
@@ -190,6 +204,7 @@ public class MemoryTrace {
                 pages.put(page.getAddress(), page);
             }
             page.addUpdate(addr, size, value, instructionCount, node, step, be);
+            values.add(addr, size, value, instructionCount);
         }
     }
 
@@ -199,6 +214,7 @@ public class MemoryTrace {
             // segfault
             return;
         }
+        heatmap.read(addr, instructionCount);
         if (getPageAddress(addr) != getPageAddress(addr + size - 1)) {
             // write across page boundary
             for (int i = 0; i < size; i++) {
@@ -357,6 +373,54 @@ public class MemoryTrace {
         return page.getReads(addr);
     }
 
+    // pages between start and end in unsigned address order
+    private Collection<Page> getPages(long start, long end) {
+        long first = getPageAddress(start);
+        long last = getPageAddress(end);
+        if (first <= last) {
+            return pages.subMap(first, true, last, true).values();
+        } else {
+            // the range crosses the sign bit
+            List<Page> result = new ArrayList<>(pages.tailMap(first, true).values());
+            result.addAll(pages.headMap(last, true).values());
+            return result;
+        }
+    }
+
+    /**
+     * Get the reads which start between the addresses {@code start} and {@code end} and happened
+     * in the steps {@code from} to {@code to}, ordered by step.
+     */
+    public List<MemoryRead> getReads(long start, long end, long from, long to) {
+        List<MemoryRead> result = new ArrayList<>();
+        for (Page page : getPages(start, end)) {
+            for (MemoryRead read : page.getReads(from, to)) {
+                if (Long.compareUnsigned(read.address - start, end - start) <= 0) {
+                    result.add(read);
+                }
+            }
+        }
+        result.sort((a, b) -> Long.compareUnsigned(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
+    /**
+     * Get the writes which start between the addresses {@code start} and {@code end} and happened
+     * in the steps {@code from} to {@code to}, ordered by step.
+     */
+    public List<MemoryUpdate> getWrites(long start, long end, long from, long to) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        for (Page page : getPages(start, end)) {
+            for (MemoryUpdate update : page.getUpdates(from, to)) {
+                if (Long.compareUnsigned(update.address - start, end - start) <= 0) {
+                    result.add(update);
+                }
+            }
+        }
+        result.sort((a, b) -> Long.compareUnsigned(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
     // TODO: use instructionCount to find *last* map time
     public Node getMapNode(long addr, @SuppressWarnings("unused") long instructionCount) throws MemoryNotMappedException {
         Page page = pages.get(getPageAddress(addr));
@@ -451,9 +515,99 @@ public class MemoryTrace {
         return result;
     }
 
+    /**
+     * Find the writes of {@code value} in the steps {@code from} to {@code to} (inclusive). Only
+     * the bits selected by {@code mask} are compared; a {@code size} of 0 matches writes of any
+     * size. Writes which cross a page boundary are recorded byte by byte and therefore only match
+     * 1 byte values. The result is ordered by step and address and contains at most {@code limit}
+     * writes.
+     */
+    public List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        if (limit <= 0 || from > to) {
+            return result;
+        }
+        long expected = ValueIndex.normalize(value, size) & mask;
+        int last = Math.min(values.getWindow(to), values.getWindowCount() - 1);
+        for (int id = values.getWindow(Math.max(from, 0)); id <= last; id++) {
+            if (!values.contains(id, value, mask, size)) {
+                continue;
+            }
+            long start = Math.max(from, values.getWindowStart(id));
+            long end = Math.min(to, values.getWindowEnd(id));
+            List<MemoryUpdate> found = new ArrayList<>();
+            for (long addr : values.getPages(id)) {
+                Page page = pages.get(addr);
+                if (page == null) {
+                    continue;
+                }
+                for (int off = 0; off < Page.SIZE; off++) {
+                    List<MemoryUpdate> updates;
+                    try {
+                        updates = page.getUpdates(addr + off);
+                    } catch (MemoryNotMappedException e) {
+                        continue;
+                    }
+                    for (int i = lowerBound(updates, start); i < updates.size(); i++) {
+                        MemoryUpdate update = updates.get(i);
+                        if (update.instructionCount > end) {
+                            break;
+                        }
+                        // updates are listed for every byte they cover, only report them once
+                        if (update.address != addr + off || (size != 0 && update.size != size)) {
+                            continue;
+                        }
+                        if ((ValueIndex.normalize(update.value, update.size) & mask) == expected) {
+                            found.add(update);
+                        }
+                    }
+                }
+            }
+            found.sort((a, b) -> {
+                int cmp = Long.compare(a.instructionCount, b.instructionCount);
+                return cmp != 0 ? cmp : Long.compareUnsigned(a.address, b.address);
+            });
+            for (MemoryUpdate update : found) {
+                result.add(update);
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public MemoryUpdate findFirstWrite(long value, long mask, int size, long from) {
+        List<MemoryUpdate> result = findWrites(value, mask, size, from, Long.MAX_VALUE, 1);
+        if (result.isEmpty()) {
+            return null;
+        } else {
+            return result.get(0);
+        }
+    }
+
+    private static int lowerBound(List<MemoryUpdate> updates, long instructionCount) {
+        int low = 0;
+        int high = updates.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (updates.get(mid).instructionCount < instructionCount) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public AccessHeatmap getHeatmap() {
+        return heatmap;
+    }
+
     public void trim() {
         for (Page page : pages.values()) {
             page.trim();
         }
+        values.trim();
     }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.function.ToLongFunction;
 
 import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.io.Node;
@@ -82,6 +83,64 @@ public abstract class Page {
         }
     }
 
+    /**
+     * Insert an update after all updates with the same or an earlier timestamp. Updates usually
+     * arrive in order, but traces written by several threads at once interleave the steps of the
+     * threads batch by batch.
+     */
+    protected static void insertUpdate(List<MemoryUpdate> updates, MemoryUpdate update) {
+        int high = updates.size();
+        if (high == 0 || Long.compareUnsigned(updates.get(high - 1).instructionCount, update.instructionCount) <= 0) {
+            updates.add(update);
+            return;
+        }
+        int low = 0;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(updates.get(mid).instructionCount, update.instructionCount) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        updates.add(low, update);
+    }
+
+    protected static void insertRead(List<MemoryRead> reads, MemoryRead read) {
+        int high = reads.size();
+        if (high == 0 || Long.compareUnsigned(reads.get(high - 1).instructionCount, read.instructionCount) <= 0) {
+            reads.add(read);
+            return;
+        }
+        int low = 0;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(reads.get(mid).instructionCount, read.instructionCount) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        reads.add(low, read);
+    }
+
+    /**
+     * Find the first entry of a list ordered by step which is not before {@code instructionCount}.
+     */
+    protected static <T> int lowerBound(List<T> list, ToLongFunction<T> step, long instructionCount) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(step.applyAsLong(list.get(mid)), instructionCount) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     public abstract byte[] getData();
 
     public abstract void addUpdate(long addr, byte size, long value, long instructionCount, Node node, StepEvent step, boolean be);
@@ -112,6 +171,18 @@ public abstract class Page {
 
     public abstract List<MemoryUpdate> getUpdates(long addr) throws MemoryNotMappedException;
 
+    /**
+     * Get the reads which start in this page and happened in the steps {@code from} to {@code to},
+     * ordered by step.
+     */
+    public abstract List<MemoryRead> getReads(long from, long to);
+
+    /**
+     * Get the updates which start in this page and happened in the steps {@code from} to
+     * {@code to}, ordered by step.
+     */
+    public abstract List<MemoryUpdate> getUpdates(long from, long to);
+
     public void trim() {
         // nothing
     }
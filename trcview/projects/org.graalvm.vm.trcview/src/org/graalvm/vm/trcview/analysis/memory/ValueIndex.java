@@ -0,0 +1,165 @@
+package org.graalvm.vm.trcview.analysis.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.graalvm.vm.util.LongLongMap;
+
+/**
+ * Index of the values written to memory. The trace is split into windows of a fixed number of
+ * steps; for every window the distinct written values and the pages which were written are kept
+ * as sorted arrays. A value search then only has to look at the pages of the windows which
+ * contain the value instead of at every write in the trace.
+ *
+ * Values are stored normalized to the size of the write, i.e. a 1 byte write of 0xFF is indexed
+ * as 0xFF and not as the sign extended value.
+ */
+public class ValueIndex {
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+
+    private final int windowSize;
+    private final ArrayList<Window> windows = new ArrayList<>();
+
+    public ValueIndex() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public ValueIndex(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("invalid window size " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    public static long normalize(long value, int size) {
+        if (size <= 0 || size >= 8) {
+            return value;
+        } else {
+            return value & ((1L << (size * 8)) - 1);
+        }
+    }
+
+    public void add(long address, int size, long value, long instructionCount) {
+        int id = (int) (instructionCount / windowSize);
+        while (windows.size() <= id) {
+            if (!windows.isEmpty()) {
+                windows.get(windows.size() - 1).compact();
+            }
+            windows.add(new Window());
+        }
+        windows.get(id).add(address & ~(Page.SIZE - 1), size, normalize(value, size));
+    }
+
+    public int getWindowCount() {
+        return windows.size();
+    }
+
+    public long getWindowStart(int id) {
+        return (long) id * windowSize;
+    }
+
+    public long getWindowEnd(int id) {
+        return (long) (id + 1) * windowSize - 1;
+    }
+
+    public int getWindow(long instructionCount) {
+        return (int) Math.min(instructionCount / windowSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check if window {@code id} may contain a write of {@code value}. A {@code size} of 0 matches
+     * writes of any size, {@code mask} selects the bits which are compared.
+     */
+    public boolean contains(int id, long value, long mask, int size) {
+        if (id < 0 || id >= windows.size()) {
+            return false;
+        }
+        return windows.get(id).contains(value, mask, size);
+    }
+
+    public long[] getPages(int id) {
+        return windows.get(id).getPages();
+    }
+
+    public void trim() {
+        if (!windows.isEmpty()) {
+            windows.get(windows.size() - 1).compact();
+        }
+        windows.trimToSize();
+    }
+
+    private static class Window {
+        // sizes of the writes as bit set
+        private long sizes;
+
+        // only used while the window is filled
+        private LongLongMap valueSet = new LongLongMap();
+        private LongLongMap pageSet = new LongLongMap();
+
+        // sorted distinct values after compaction
+        private long[] values;
+        private long[] pages;
+
+        void add(long page, int size, long value) {
+            if (valueSet == null) {
+                // write to an already compacted window; this only happens with out of order steps
+                valueSet = new LongLongMap(values.length);
+                pageSet = new LongLongMap(pages.length);
+                for (long v : values) {
+                    valueSet.put(v, 1);
+                }
+                for (long p : pages) {
+                    pageSet.put(p, 1);
+                }
+                values = null;
+                pages = null;
+            }
+            sizes |= 1L << (size & 0x3F);
+            valueSet.put(value, 1);
+            pageSet.put(page, 1);
+        }
+
+        void compact() {
+            if (valueSet == null) {
+                return;
+            }
+            values = valueSet.keys();
+            pages = pageSet.keys();
+            Arrays.sort(values);
+            Arrays.sort(pages);
+            valueSet = null;
+            pageSet = null;
+        }
+
+        long[] getPages() {
+            if (pages == null) {
+                long[] result = pageSet.keys();
+                Arrays.sort(result);
+                return result;
+            }
+            return pages;
+        }
+
+        boolean contains(long value, long mask, int size) {
+            if (size != 0 && (sizes & (1L << (size & 0x3F))) == 0) {
+                return false;
+            }
+            long v = normalize(value, size);
+            if (mask == -1) {
+                if (valueSet != null) {
+                    return valueSet.containsKey(v);
+                } else {
+                    return Arrays.binarySearch(values, v) >= 0;
+                }
+            }
+            long expected = v & mask;
+            long[] candidates = values != null ? values : valueSet.keys();
+            for (long candidate : candidates) {
+                if ((candidate & mask) == expected) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
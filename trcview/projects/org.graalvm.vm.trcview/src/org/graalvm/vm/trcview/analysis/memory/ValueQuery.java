@@ -0,0 +1,61 @@
+package org.graalvm.vm.trcview.analysis.memory;
+
+/**
+ * A value search for {@link MemoryTrace#findWrites}. The textual form is
+ * {@code VALUE[/MASK][:SIZE]} with value and mask in hex and the size in bytes, e.g.
+ * {@code deadbeef:4} or {@code 1000/fffff000}.
+ */
+public class ValueQuery {
+    public final long value;
+    public final long mask;
+    public final int size;
+
+    public ValueQuery(long value, long mask, int size) {
+        if (size < 0 || size > 8) {
+            throw new IllegalArgumentException("invalid size " + size);
+        }
+        this.value = value;
+        this.mask = mask;
+        this.size = size;
+    }
+
+    public static ValueQuery parse(String s) {
+        String query = s.trim();
+        int size = 0;
+        long mask = -1;
+        int colon = query.indexOf(':');
+        if (colon != -1) {
+            size = Integer.parseInt(query.substring(colon + 1).trim());
+            query = query.substring(0, colon).trim();
+        }
+        int slash = query.indexOf('/');
+        if (slash != -1) {
+            mask = Long.parseUnsignedLong(strip(query.substring(slash + 1)), 16);
+            query = query.substring(0, slash).trim();
+        }
+        long value = Long.parseUnsignedLong(strip(query), 16);
+        return new ValueQuery(value, mask, size);
+    }
+
+    private static String strip(String s) {
+        String hex = s.trim();
+        if (hex.startsWith("0x") || hex.startsWith("0X")) {
+            return hex.substring(2);
+        } else {
+            return hex;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append(Long.toHexString(value));
+        if (mask != -1) {
+            buf.append('/').append(Long.toHexString(mask));
+        }
+        if (size != 0) {
+            buf.append(':').append(size);
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,351 @@
+package org.graalvm.vm.trcview.analysis.profile;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.util.LongLongMap;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+/**
+ * Per-function profile which is aggregated while the trace is parsed. Calls are recorded in a
+ * calling context tree (CCT) stored in primitive arrays; every step increments the exclusive
+ * counter of the CCT node on top of the per-thread shadow stack. Functions are identified by their
+ * entry PC, names are only resolved when the profile is displayed or exported, so renaming a
+ * symbol never invalidates the profile.
+ *
+ * A finished profile can be stored with {@link #write(WordOutputStream)} and loaded again with
+ * {@link #read(WordInputStream)}.
+ */
+public class Profile {
+    private static final int NONE = -1;
+
+    // calling context tree
+    private int[] parent;
+    private long[] pcs;
+    private long[] self;
+    private long[] calls;
+    private int nodes;
+    private final LongLongMap children;
+    private final LongLongMap pcIndex;
+
+    // per function aggregates
+    private final LongLongMap callCount;
+    private final LongLongMap inclusive;
+    private final Map<Long, LongLongMap> edges;
+    private LongLongMap exclusive;
+
+    private final Map<Integer, ThreadProfile> threads;
+    private long steps;
+
+    private static class ThreadProfile {
+        int[] node = new int[16];
+        long[] entry = new long[16];
+        BlockNode[] blocks = new BlockNode[16];
+        int depth = 0;
+        long steps = 0;
+        final LongLongMap active = new LongLongMap();
+
+        void push(int n, BlockNode block) {
+            if (depth == node.length) {
+                node = Arrays.copyOf(node, depth * 2);
+                entry = Arrays.copyOf(entry, depth * 2);
+                blocks = Arrays.copyOf(blocks, depth * 2);
+            }
+            node[depth] = n;
+            entry[depth] = steps;
+            blocks[depth] = block;
+            depth++;
+        }
+    }
+
+    public Profile() {
+        parent = new int[256];
+        pcs = new long[256];
+        self = new long[256];
+        calls = new long[256];
+        nodes = 0;
+        children = new LongLongMap();
+        pcIndex = new LongLongMap();
+        callCount = new LongLongMap();
+        inclusive = new LongLongMap();
+        edges = new HashMap<>();
+        threads = new HashMap<>();
+    }
+
+    private int getNode(int parentNode, long pc) {
+        long idx = pcIndex.get(pc, -1);
+        if (idx == -1) {
+            idx = pcIndex.size();
+            pcIndex.put(pc, idx);
+        }
+        long key = ((long) parentNode << 32) | idx;
+        long n = children.get(key, -1);
+        if (n != -1) {
+            return (int) n;
+        }
+
+        if (nodes == parent.length) {
+            int size = nodes * 2;
+            parent = Arrays.copyOf(parent, size);
+            pcs = Arrays.copyOf(pcs, size);
+            self = Arrays.copyOf(self, size);
+            calls = Arrays.copyOf(calls, size);
+        }
+        int result = nodes++;
+        parent[result] = parentNode;
+        pcs[result] = pc;
+        children.put(key, result);
+        return result;
+    }
+
+    private ThreadProfile getThread(int tid) {
+        ThreadProfile thread = threads.get(tid);
+        if (thread == null) {
+            thread = new ThreadProfile();
+            threads.put(tid, thread);
+        }
+        return thread;
+    }
+
+    private void enter(ThreadProfile thread, int idx, long pc) {
+        int parentNode = idx > 0 ? thread.node[idx - 1] : NONE;
+        int n = getNode(parentNode, pc);
+        thread.node[idx] = n;
+        thread.entry[idx] = thread.steps;
+        calls[n]++;
+        callCount.add(pc, 1);
+        thread.active.add(pc, 1);
+        if (parentNode != NONE) {
+            long caller = pcs[parentNode];
+            LongLongMap callees = edges.get(caller);
+            if (callees == null) {
+                callees = new LongLongMap();
+                edges.put(caller, callees);
+            }
+            callees.add(pc, 1);
+        }
+    }
+
+    private void leave(ThreadProfile thread) {
+        thread.depth--;
+        int n = thread.node[thread.depth];
+        thread.blocks[thread.depth] = null;
+        if (n == NONE) {
+            // the callee never executed a step
+            return;
+        }
+        long pc = pcs[n];
+        // recursive calls are only counted once for the inclusive step count
+        if (thread.active.add(pc, -1) == 0) {
+            inclusive.add(pc, thread.steps - thread.entry[thread.depth]);
+        }
+    }
+
+    public void step(StepEvent step) {
+        ThreadProfile thread = getThread(step.getTid());
+        if (thread.depth == 0) {
+            thread.push(NONE, null);
+        }
+        int top = thread.depth - 1;
+        if (thread.node[top] == NONE) {
+            enter(thread, top, step.getPC());
+        }
+        self[thread.node[top]]++;
+        thread.steps++;
+        steps++;
+        exclusive = null;
+    }
+
+    /**
+     * A call, syscall or interrupt opened {@code block}; the callee is known with the next step
+     * of this thread.
+     */
+    public void call(int tid, BlockNode block) {
+        getThread(tid).push(NONE, block);
+    }
+
+    /**
+     * The block {@code block} was left. All frames above it are closed as well.
+     */
+    public void ret(int tid, BlockNode block) {
+        ThreadProfile thread = threads.get(tid);
+        if (thread == null) {
+            return;
+        }
+        for (int i = thread.depth - 1; i > 0; i--) {
+            if (thread.blocks[i] == block) {
+                while (thread.depth > i) {
+                    leave(thread);
+                }
+                return;
+            }
+        }
+    }
+
+    public void finish() {
+        for (ThreadProfile thread : threads.values()) {
+            while (thread.depth > 0) {
+                leave(thread);
+            }
+        }
+    }
+
+    private LongLongMap getExclusive() {
+        if (exclusive == null) {
+            LongLongMap result = new LongLongMap(pcIndex.size());
+            for (int i = 0; i < nodes; i++) {
+                if (self[i] != 0) {
+                    result.add(pcs[i], self[i]);
+                }
+            }
+            exclusive = result;
+        }
+        return exclusive;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Get the entry PCs of all functions which executed at least one step.
+     */
+    public long[] getFunctions() {
+        long[] result = callCount.keys();
+        Arrays.sort(result);
+        return result;
+    }
+
+    public long getCallCount(long pc) {
+        return callCount.get(pc, 0);
+    }
+
+    public long getInclusiveSteps(long pc) {
+        return inclusive.get(pc, 0);
+    }
+
+    public long getExclusiveSteps(long pc) {
+        return getExclusive().get(pc, 0);
+    }
+
+    /**
+     * Get the number of calls from {@code caller} to {@code callee}.
+     */
+    public long getEdgeCount(long caller, long callee) {
+        LongLongMap callees = edges.get(caller);
+        return callees == null ? 0 : callees.get(callee, 0);
+    }
+
+    public long[] getCallees(long caller) {
+        LongLongMap callees = edges.get(caller);
+        if (callees == null) {
+            return new long[0];
+        }
+        long[] result = callees.keys();
+        Arrays.sort(result);
+        return result;
+    }
+
+    public long[] getCallers(long callee) {
+        return edges.entrySet().stream().filter(e -> e.getValue().containsKey(callee)).mapToLong(Map.Entry::getKey).sorted().toArray();
+    }
+
+    /**
+     * Write the exclusive step counts per call stack in the collapsed stack format used by
+     * flamegraph tools: one line per stack, frames separated by ';' and followed by the count.
+     */
+    public void writeCollapsedStacks(PrintWriter out, LongFunction<String> names) {
+        Map<Long, String> cache = new HashMap<>();
+        Deque<String> frames = new ArrayDeque<>();
+        for (int i = 0; i < nodes; i++) {
+            if (self[i] == 0) {
+                continue;
+            }
+            frames.clear();
+            for (int n = i; n != NONE; n = parent[n]) {
+                long pc = pcs[n];
+                String name = cache.get(pc);
+                if (name == null) {
+                    name = names.apply(pc).replace(';', ':').replace(' ', '_');
+                    cache.put(pc, name);
+                }
+                frames.addFirst(name);
+            }
+            out.print(String.join(";", frames));
+            out.print(' ');
+            out.println(self[i]);
+        }
+    }
+
+    private static void writeMap(WordOutputStream out, LongLongMap map) throws IOException {
+        long[] keys = map.keys();
+        out.write32bit(keys.length);
+        for (long key : keys) {
+            out.write64bit(key);
+            out.write64bit(map.get(key, 0));
+        }
+    }
+
+    private static void readMap(WordInputStream in, LongLongMap map) throws IOException {
+        int count = in.read32bit();
+        for (int i = 0; i < count; i++) {
+            long key = in.read64bit();
+            map.put(key, in.read64bit());
+        }
+    }
+
+    /**
+     * Write the calling context tree and the per function aggregates. Threads which are still
+     * active are not stored, so this should only be called after {@link #finish()}.
+     */
+    public void write(WordOutputStream out) throws IOException {
+        out.write64bit(steps);
+        out.write32bit(nodes);
+        for (int i = 0; i < nodes; i++) {
+            out.write32bit(parent[i]);
+            out.write64bit(pcs[i]);
+            out.write64bit(self[i]);
+            out.write64bit(calls[i]);
+        }
+        writeMap(out, callCount);
+        writeMap(out, inclusive);
+        out.write32bit(edges.size());
+        for (Map.Entry<Long, LongLongMap> edge : edges.entrySet()) {
+            out.write64bit(edge.getKey());
+            writeMap(out, edge.getValue());
+        }
+    }
+
+    public static Profile read(WordInputStream in) throws IOException {
+        Profile profile = new Profile();
+        profile.steps = in.read64bit();
+        int count = in.read32bit();
+        for (int i = 0; i < count; i++) {
+            int parentNode = in.read32bit();
+            long pc = in.read64bit();
+            // nodes are stored in the order of creation, so the parent always exists already
+            int n = profile.getNode(parentNode, pc);
+            profile.self[n] = in.read64bit();
+            profile.calls[n] = in.read64bit();
+        }
+        readMap(in, profile.callCount);
+        readMap(in, profile.inclusive);
+        int callers = in.read32bit();
+        for (int i = 0; i < callers; i++) {
+            long caller = in.read64bit();
+            LongLongMap callees = new LongLongMap();
+            readMap(in, callees);
+            profile.edges.put(caller, callees);
+        }
+        return profile;
+    }
+}
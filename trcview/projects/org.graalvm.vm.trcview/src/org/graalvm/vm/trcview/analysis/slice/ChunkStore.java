@@ -0,0 +1,153 @@
+package org.graalvm.vm.trcview.analysis.slice;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Backing store for full {@link LongColumn} chunks and mutable shadow pages. Both stay on the heap
+ * until the configured heap budget is used up, afterwards they are written to a temporary file and
+ * memory mapped.
+ */
+public class ChunkStore implements AutoCloseable {
+    private static final Logger log = Trace.create(ChunkStore.class);
+
+    private static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+    private final long heapLimit;
+    private long heapSize;
+
+    private File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long fileSize;
+
+    private MappedByteBuffer slab;
+    private int slabOffset;
+
+    public ChunkStore(long heapLimit) {
+        this.heapLimit = heapLimit;
+    }
+
+    /**
+     * Read a heap budget in MB from the system property {@code name}.
+     */
+    public static long getHeapLimit(String name, long defaultMB) {
+        String limit = System.getProperty(name);
+        long mb = defaultMB;
+        if (limit != null) {
+            try {
+                mb = Long.parseLong(limit);
+            } catch (NumberFormatException e) {
+                log.log(Levels.WARNING, "Invalid heap limit for " + name + ": " + limit);
+            }
+        }
+        return mb * 1024 * 1024;
+    }
+
+    public LongBuffer store(long[] chunk) {
+        long bytes = chunk.length * 8L;
+        if (heapSize + bytes <= heapLimit || !open()) {
+            heapSize += bytes;
+            return LongBuffer.wrap(chunk);
+        }
+
+        try {
+            ByteBuffer buf = ByteBuffer.allocate((int) bytes).order(ByteOrder.nativeOrder());
+            buf.asLongBuffer().put(chunk);
+            long pos = fileSize;
+            while (buf.hasRemaining()) {
+                channel.write(buf, pos + buf.position());
+            }
+            fileSize += bytes;
+            MappedByteBuffer map = channel.map(MapMode.READ_ONLY, pos, bytes);
+            map.order(ByteOrder.nativeOrder());
+            return map.asLongBuffer();
+        } catch (IOException e) {
+            log.log(Levels.WARNING, "Cannot spill chunk to disk: " + e.getMessage(), e);
+            heapSize += bytes;
+            return LongBuffer.wrap(chunk);
+        }
+    }
+
+    /**
+     * Allocate a zero initialized, writable buffer of {@code size} longs. Outside of the heap budget
+     * the buffers are carved out of memory mapped slabs of the temporary file, so the number of
+     * mappings stays small.
+     */
+    public LongBuffer allocate(int size) {
+        int bytes = size * 8;
+        if (heapSize + bytes <= heapLimit || bytes > SLAB_SIZE || !open()) {
+            heapSize += bytes;
+            return LongBuffer.allocate(size);
+        }
+
+        try {
+            if (slab == null || slabOffset + bytes > SLAB_SIZE) {
+                // mapping a region behind the end of the file grows the file
+                slab = channel.map(MapMode.READ_WRITE, fileSize, SLAB_SIZE);
+                fileSize += SLAB_SIZE;
+                slabOffset = 0;
+            }
+            ByteBuffer buf = slab.duplicate();
+            buf.position(slabOffset);
+            buf.limit(slabOffset + bytes);
+            slabOffset += bytes;
+            return buf.slice().order(ByteOrder.nativeOrder()).asLongBuffer();
+        } catch (IOException e) {
+            log.log(Levels.WARNING, "Cannot spill buffer to disk: " + e.getMessage(), e);
+            heapSize += bytes;
+            return LongBuffer.allocate(size);
+        }
+    }
+
+    private boolean open() {
+        if (channel != null) {
+            return true;
+        }
+        try {
+            file = File.createTempFile("trcview-chunks", ".bin");
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            log.log(Levels.INFO, "Heap budget exhausted, spilling chunks to " + file);
+            return true;
+        } catch (IOException e) {
+            log.log(Levels.WARNING, "Cannot create spill file: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public long getHeapSize() {
+        return heapSize;
+    }
+
+    public long getDiskSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                log.log(Levels.WARNING, "Cannot close spill file: " + e.getMessage(), e);
+            }
+            raf = null;
+            channel = null;
+            slab = null;
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package org.graalvm.vm.trcview.analysis.slice;
+
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.Analyzer;
+import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.util.LongSet;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Def-use index over the whole trace. For every step it records the distinct steps which produced
+ * the registers and memory bytes read by this step. Steps are identified by a reference which packs
+ * the thread id and the step number into a single long, so the index itself only consists of
+ * primitive columns.
+ *
+ * The index is built during ingestion while the last writer of every register and memory byte is
+ * known, which makes each backward hop a binary search in the per-thread columns instead of a
+ * search in the memory trace. The last writer of every memory byte is kept in shadow pages which
+ * are allocated from the {@link ChunkStore}, so they are spilled to disk like the columns.
+ */
+public class DefUseIndex implements Analyzer {
+    private static final Logger log = Trace.create(DefUseIndex.class);
+
+    public static final long NONE = -1;
+
+    private static final int TID_SHIFT = 40;
+    private static final long STEP_MASK = (1L << TID_SHIFT) - 1;
+    private static final int TID_MASK = 0xFFFFFF;
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final long DEFAULT_HEAP_LIMIT = 512;
+
+    private final int regcnt;
+    private final ChunkStore store;
+    private final Map<Integer, ThreadIndex> threads;
+    private final Map<Long, LongBuffer> pages;
+    private final Deque<LongBuffer> freePages;
+
+    private long lastPageAddr;
+    private LongBuffer lastPage;
+
+    private ThreadIndex current;
+    private long currentStep;
+    private long currentRef;
+    private long[] pending;
+    private int pendingCount;
+
+    private long edges;
+
+    private class ThreadIndex {
+        final long[] regs;
+        final LongColumn[] regWrites;
+        final LongColumn consumers;
+        final LongColumn producers;
+
+        ThreadIndex() {
+            regs = new long[regcnt];
+            Arrays.fill(regs, NONE);
+            regWrites = new LongColumn[regcnt];
+            for (int i = 0; i < regcnt; i++) {
+                regWrites[i] = new LongColumn(store);
+            }
+            consumers = new LongColumn(store);
+            producers = new LongColumn(store);
+        }
+    }
+
+    public DefUseIndex(Architecture arch) {
+        this(arch, ChunkStore.getHeapLimit("trcview.defuse.heap", DEFAULT_HEAP_LIMIT));
+    }
+
+    public DefUseIndex(Architecture arch, long heapLimit) {
+        regcnt = arch.getRegisterCount();
+        store = new ChunkStore(heapLimit);
+        threads = new HashMap<>();
+        pages = new HashMap<>();
+        freePages = new ArrayDeque<>();
+        pending = new long[16];
+    }
+
+    public static long ref(int tid, long step) {
+        return ((long) (tid & TID_MASK) << TID_SHIFT) | (step & STEP_MASK);
+    }
+
+    public static int getTid(long ref) {
+        return (int) (ref >>> TID_SHIFT);
+    }
+
+    public static long getStep(long ref) {
+        return ref & STEP_MASK;
+    }
+
+    @Override
+    public void start(MemoryTrace mem) {
+        current = null;
+        currentStep = NONE;
+        currentRef = NONE;
+        pendingCount = 0;
+        lastPageAddr = -1;
+        lastPage = null;
+        edges = 0;
+    }
+
+    @Override
+    public void process(Event event, Node node) {
+        if (event instanceof StepEvent) {
+            StepEvent step = (StepEvent) event;
+            flush();
+
+            int tid = step.getTid() & TID_MASK;
+            current = threads.get(tid);
+            if (current == null) {
+                current = new ThreadIndex();
+                threads.put(tid, current);
+            }
+            currentStep = step.getStep();
+            currentRef = ref(tid, currentStep);
+
+            if (regcnt > 0) {
+                for (int reg : step.getRegisterReads()) {
+                    if (reg >= 0 && reg < regcnt && current.regs[reg] != NONE) {
+                        use(current.regs[reg]);
+                    }
+                }
+                for (int reg : step.getRegisterWrites()) {
+                    if (reg >= 0 && reg < regcnt) {
+                        current.regs[reg] = currentRef;
+                        current.regWrites[reg].add(currentStep);
+                    }
+                }
+            }
+        } else if (event instanceof MemoryEvent) {
+            if (current == null) {
+                return;
+            }
+            MemoryEvent evt = (MemoryEvent) event;
+            long addr = evt.getAddress();
+            int size = evt.getSize();
+            if (evt.isWrite()) {
+                define(addr, size, currentRef);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    long producer = getProducer(addr + i);
+                    if (producer != NONE && producer != currentRef) {
+                        use(producer);
+                    }
+                }
+            }
+        } else if (event instanceof MemoryDumpEvent) {
+            MemoryDumpEvent dump = (MemoryDumpEvent) event;
+            define(dump.getAddress(), dump.getData().length, currentRef);
+        } else if (event instanceof MmapEvent) {
+            MmapEvent mmap = (MmapEvent) event;
+            if (mmap.getResult() >= 0) {
+                if (mmap.getData() != null) {
+                    define(mmap.getResult(), mmap.getData().length, currentRef);
+                } else {
+                    clear(mmap.getResult(), mmap.getLength());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void finish() {
+        flush();
+        current = null;
+        pages.clear();
+        freePages.clear();
+        lastPage = null;
+        lastPageAddr = -1;
+        log.log(Levels.INFO, "Def-use index: " + edges + " edges, " + store.getHeapSize() / 1024 + "KB heap, " + store.getDiskSize() / 1024 + "KB disk");
+    }
+
+    private void use(long producer) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = producer;
+    }
+
+    private void flush() {
+        if (pendingCount == 0) {
+            return;
+        }
+        Arrays.sort(pending, 0, pendingCount);
+        long last = NONE;
+        for (int i = 0; i < pendingCount; i++) {
+            long producer = pending[i];
+            if (producer != last) {
+                current.consumers.add(currentStep);
+                current.producers.add(producer);
+                edges++;
+                last = producer;
+            }
+        }
+        pendingCount = 0;
+    }
+
+    private LongBuffer getPage(long addr, boolean create) {
+        long pageAddr = addr & ~PAGE_MASK;
+        if (pageAddr == lastPageAddr) {
+            return lastPage;
+        }
+        LongBuffer page = pages.get(pageAddr);
+        if (page == null) {
+            if (!create) {
+                return null;
+            }
+            page = freePages.poll();
+            if (page == null) {
+                page = store.allocate(PAGE_SIZE);
+            } else {
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    page.put(i, 0);
+                }
+            }
+            pages.put(pageAddr, page);
+        }
+        lastPageAddr = pageAddr;
+        lastPage = page;
+        return page;
+    }
+
+    // the shadow pages store ref + 1, so that a zero initialized page means "no producer"
+    private long getProducer(long addr) {
+        LongBuffer page = getPage(addr, false);
+        if (page == null) {
+            return NONE;
+        } else {
+            return page.get((int) (addr & PAGE_MASK)) - 1;
+        }
+    }
+
+    private void define(long addr, long size, long producer) {
+        for (long i = 0; i < size; i++) {
+            LongBuffer page = getPage(addr + i, true);
+            page.put((int) ((addr + i) & PAGE_MASK), producer + 1);
+        }
+    }
+
+    private void clear(long addr, long size) {
+        long start = addr & ~PAGE_MASK;
+        long end = addr + size;
+        if ((size >>> PAGE_BITS) > pages.size()) {
+            // sparse: only look at pages which actually exist
+            for (Iterator<Map.Entry<Long, LongBuffer>> it = pages.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Long, LongBuffer> entry = it.next();
+                long page = entry.getKey();
+                if (Long.compareUnsigned(page, start) >= 0 && Long.compareUnsigned(page, end) < 0) {
+                    freePages.add(entry.getValue());
+                    it.remove();
+                }
+            }
+        } else {
+            for (long page = start; Long.compareUnsigned(page, end) < 0; page += PAGE_SIZE) {
+                LongBuffer buf = pages.remove(page);
+                if (buf != null) {
+                    freePages.add(buf);
+                }
+            }
+        }
+        lastPageAddr = -1;
+        lastPage = null;
+    }
+
+    public boolean hasRegisters() {
+        return regcnt > 0;
+    }
+
+    /**
+     * Get the step which last wrote register {@code reg} in thread {@code tid} at or before
+     * {@code step}.
+     */
+    public long getRegisterDefinition(int tid, int reg, long step) {
+        ThreadIndex thread = threads.get(tid & TID_MASK);
+        if (thread == null || reg < 0 || reg >= regcnt) {
+            return NONE;
+        }
+        LongColumn writes = thread.regWrites[reg];
+        long idx = writes.lowerBound(step + 1) - 1;
+        if (idx < 0) {
+            return NONE;
+        } else {
+            return ref(tid, writes.get(idx));
+        }
+    }
+
+    /**
+     * Get the steps which produced the values read by the step {@code ref}.
+     */
+    public long[] getProducers(long ref) {
+        ThreadIndex thread = threads.get(getTid(ref));
+        if (thread == null) {
+            return new long[0];
+        }
+        long step = getStep(ref);
+        long start = thread.consumers.lowerBound(step);
+        long end = start;
+        long size = thread.consumers.size();
+        while (end < size && thread.consumers.get(end) == step) {
+            end++;
+        }
+        long[] result = new long[(int) (end - start)];
+        for (long i = start; i < end; i++) {
+            result[(int) (i - start)] = thread.producers.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the backward slice of the given steps, i.e. all steps which transitively contributed
+     * a value to one of them. The runtime depends on the size of the slice, not on the size of the
+     * trace. The result is sorted by step number.
+     */
+    public long[] slice(long... roots) {
+        LongSet visited = new LongSet();
+        long[] worklist = new long[Math.max(16, roots.length)];
+        int count = 0;
+        for (long root : roots) {
+            if (root != NONE && visited.add(root)) {
+                worklist[count++] = root;
+            }
+        }
+
+        while (count > 0) {
+            long ref = worklist[--count];
+            for (long producer : getProducers(ref)) {
+                if (visited.add(producer)) {
+                    if (count == worklist.length) {
+                        worklist = Arrays.copyOf(worklist, worklist.length * 2);
+                    }
+                    worklist[count++] = producer;
+                }
+            }
+        }
+
+        // sort by step: swap step and tid, the step has the upper 40 bits then
+        long[] result = visited.toArray();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((getStep(result[i]) << (64 - TID_SHIFT)) | getTid(result[i])) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(result);
+        for (int i = 0; i < result.length; i++) {
+            long key = result[i] ^ Long.MIN_VALUE;
+            result[i] = ref((int) (key & TID_MASK), key >>> (64 - TID_SHIFT));
+        }
+        return result;
+    }
+
+    public long getEdgeCount() {
+        return edges;
+    }
+
+    public void close() {
+        store.close();
+    }
+}
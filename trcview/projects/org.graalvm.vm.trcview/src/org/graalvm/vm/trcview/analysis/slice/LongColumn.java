@@ -0,0 +1,81 @@
+package org.graalvm.vm.trcview.analysis.slice;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only column of primitive longs. Values are collected in fixed size chunks which are
+ * handed to a {@link ChunkStore} once they are full.
+ */
+public class LongColumn {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ChunkStore store;
+    private final List<LongBuffer> chunks;
+    private long[] tail;
+    private int tailSize;
+
+    public LongColumn(ChunkStore store) {
+        this.store = store;
+        chunks = new ArrayList<>();
+        tail = new long[16];
+        tailSize = 0;
+    }
+
+    public void add(long value) {
+        if (tailSize == tail.length) {
+            if (tail.length < CHUNK_SIZE) {
+                long[] data = new long[tail.length * 2];
+                System.arraycopy(tail, 0, data, 0, tailSize);
+                tail = data;
+            } else {
+                chunks.add(store.store(tail));
+                tail = new long[CHUNK_SIZE];
+                tailSize = 0;
+            }
+        }
+        tail[tailSize++] = value;
+    }
+
+    public long size() {
+        return ((long) chunks.size() << CHUNK_BITS) + tailSize;
+    }
+
+    public long get(long index) {
+        int chunk = (int) (index >>> CHUNK_BITS);
+        int offset = (int) (index & CHUNK_MASK);
+        if (chunk == chunks.size()) {
+            if (offset >= tailSize) {
+                throw new IndexOutOfBoundsException(Long.toString(index));
+            }
+            return tail[offset];
+        } else {
+            return chunks.get(chunk).get(offset);
+        }
+    }
+
+    public long last() {
+        return get(size() - 1);
+    }
+
+    /**
+     * Find the first index whose value is greater than or equal to {@code value}. The column has to
+     * be sorted in ascending order.
+     */
+    public long lowerBound(long value) {
+        long lo = 0;
+        long hi = size();
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (get(mid) < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
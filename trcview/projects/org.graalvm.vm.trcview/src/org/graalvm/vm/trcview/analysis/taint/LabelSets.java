@@ -0,0 +1,124 @@
+package org.graalvm.vm.trcview.analysis.taint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned sets of taint labels. Every distinct set is assigned a small integer id, so shadow
+ * memory and registers only have to store a single int per byte/register. The id 0 always denotes
+ * the empty set.
+ */
+public class LabelSets {
+    public static final int CLEAN = 0;
+
+    private static final int MAX_UNION_CACHE = 1 << 20;
+
+    private final List<int[]> sets;
+    private final Map<Key, Integer> ids;
+    private final Map<Long, Integer> unions;
+
+    private static class Key {
+        private final int[] labels;
+        private final int hash;
+
+        Key(int[] labels) {
+            this.labels = labels;
+            this.hash = Arrays.hashCode(labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            return Arrays.equals(labels, ((Key) o).labels);
+        }
+    }
+
+    public LabelSets() {
+        sets = new ArrayList<>();
+        ids = new HashMap<>();
+        unions = new HashMap<>();
+        intern(new int[0]);
+    }
+
+    private int intern(int[] labels) {
+        Key key = new Key(labels);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int result = sets.size();
+        sets.add(labels);
+        ids.put(key, result);
+        return result;
+    }
+
+    public int singleton(int label) {
+        return intern(new int[]{label});
+    }
+
+    public int union(int a, int b) {
+        if (a == b || b == CLEAN) {
+            return a;
+        } else if (a == CLEAN) {
+            return b;
+        }
+
+        long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        Integer cached = unions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int[] x = sets.get(a);
+        int[] y = sets.get(b);
+        int[] merged = new int[x.length + y.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < x.length && j < y.length) {
+            if (x[i] < y[j]) {
+                merged[n++] = x[i++];
+            } else if (x[i] > y[j]) {
+                merged[n++] = y[j++];
+            } else {
+                merged[n++] = x[i++];
+                j++;
+            }
+        }
+        while (i < x.length) {
+            merged[n++] = x[i++];
+        }
+        while (j < y.length) {
+            merged[n++] = y[j++];
+        }
+
+        int result = intern(n == merged.length ? merged : Arrays.copyOf(merged, n));
+        if (unions.size() >= MAX_UNION_CACHE) {
+            unions.clear();
+        }
+        unions.put(key, result);
+        return result;
+    }
+
+    /**
+     * Get the labels of the set {@code id} in ascending order. The returned array must not be
+     * modified.
+     */
+    public int[] get(int id) {
+        return sets.get(id);
+    }
+
+    public int size() {
+        return sets.size();
+    }
+}
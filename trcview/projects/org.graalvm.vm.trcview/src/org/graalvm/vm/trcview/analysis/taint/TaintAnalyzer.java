@@ -0,0 +1,381 @@
+package org.graalvm.vm.trcview.analysis.taint;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.Analyzer;
+import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.analysis.slice.ChunkStore;
+import org.graalvm.vm.trcview.analysis.slice.LongColumn;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Forward taint tracking. Every input {@link IoEvent} which knows its guest buffers introduces a
+ * new label; labels are propagated from the registers and memory bytes read by a step to the
+ * registers and memory bytes written by the same step.
+ *
+ * Memory is shadowed with one interned label set id per byte, paged like the {@link MemoryTrace}.
+ * For registers only the changes are recorded, so the taint of a register can be queried for
+ * every step after the trace was loaded.
+ */
+public class TaintAnalyzer implements Analyzer {
+    private static final Logger log = Trace.create(TaintAnalyzer.class);
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final long DEFAULT_HEAP_LIMIT = 256;
+
+    private final int regcnt;
+    private final ChunkStore store;
+    private final LabelSets labels;
+    private final List<IoEvent> inputs;
+    private final Map<Integer, ThreadState> threads;
+    private final Map<Long, int[]> pages;
+    private final Map<Long, Integer> pcs;
+
+    private long lastPageAddr;
+    private int[] lastPage;
+
+    private ThreadState current;
+    private long currentStep;
+    private long currentPC;
+    private int[] currentWrites;
+    private int taint;
+    private long[] pending;
+    private int pendingCount;
+
+    private long taintedSteps;
+
+    private class ThreadState {
+        final int[] regs;
+        final LongColumn[] regSteps;
+        final LongColumn[] regTaint;
+        final LongColumn steps;
+        final LongColumn stepTaint;
+
+        ThreadState() {
+            regs = new int[regcnt];
+            regSteps = new LongColumn[regcnt];
+            regTaint = new LongColumn[regcnt];
+            for (int i = 0; i < regcnt; i++) {
+                regSteps[i] = new LongColumn(store);
+                regTaint[i] = new LongColumn(store);
+            }
+            steps = new LongColumn(store);
+            stepTaint = new LongColumn(store);
+        }
+    }
+
+    public TaintAnalyzer(Architecture arch) {
+        this(arch, ChunkStore.getHeapLimit("trcview.taint.heap", DEFAULT_HEAP_LIMIT));
+    }
+
+    public TaintAnalyzer(Architecture arch, long heapLimit) {
+        regcnt = arch.getRegisterCount();
+        store = new ChunkStore(heapLimit);
+        labels = new LabelSets();
+        inputs = new ArrayList<>();
+        threads = new HashMap<>();
+        pages = new HashMap<>();
+        pcs = new HashMap<>();
+        pending = new long[8];
+    }
+
+    @Override
+    public void start(MemoryTrace mem) {
+        current = null;
+        currentWrites = null;
+        taint = LabelSets.CLEAN;
+        pendingCount = 0;
+        lastPageAddr = -1;
+        lastPage = null;
+        taintedSteps = 0;
+    }
+
+    @Override
+    public void process(Event event, Node node) {
+        if (event instanceof StepEvent) {
+            StepEvent step = (StepEvent) event;
+            flush();
+
+            int tid = step.getTid();
+            current = threads.get(tid);
+            if (current == null) {
+                current = new ThreadState();
+                threads.put(tid, current);
+            }
+            currentStep = step.getStep();
+            currentPC = step.getPC();
+            currentWrites = null;
+
+            if (regcnt > 0) {
+                for (int reg : step.getRegisterReads()) {
+                    if (reg >= 0 && reg < regcnt) {
+                        taint = labels.union(taint, current.regs[reg]);
+                    }
+                }
+                currentWrites = step.getRegisterWrites();
+            }
+        } else if (event instanceof MemoryEvent) {
+            if (current == null) {
+                return;
+            }
+            MemoryEvent evt = (MemoryEvent) event;
+            long addr = evt.getAddress();
+            int size = evt.getSize();
+            if (evt.isWrite()) {
+                if (pendingCount + 2 > pending.length) {
+                    long[] data = new long[pending.length * 2];
+                    System.arraycopy(pending, 0, data, 0, pendingCount);
+                    pending = data;
+                }
+                pending[pendingCount++] = addr;
+                pending[pendingCount++] = size;
+            } else {
+                for (int i = 0; i < size; i++) {
+                    taint = labels.union(taint, getTaint(addr + i));
+                }
+            }
+        } else if (event instanceof MemoryDumpEvent) {
+            MemoryDumpEvent dump = (MemoryDumpEvent) event;
+            define(dump.getAddress(), dump.getData().length, LabelSets.CLEAN);
+        } else if (event instanceof MmapEvent) {
+            MmapEvent mmap = (MmapEvent) event;
+            if (mmap.getResult() >= 0) {
+                clear(mmap.getResult(), mmap.getLength());
+            }
+        } else if (event instanceof IoEvent) {
+            IoEvent evt = (IoEvent) event;
+            long[] buffers = evt.getBuffers();
+            if (evt.isInput() && buffers.length > 0) {
+                // the guest buffers are written by the kernel, after the syscall step
+                flush();
+                current = null;
+                int label = labels.singleton(inputs.size());
+                inputs.add(evt);
+                for (int i = 0; i < buffers.length - 1; i += 2) {
+                    define(buffers[i], buffers[i + 1], label);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void finish() {
+        flush();
+        current = null;
+        log.log(Levels.INFO, "Taint analysis: " + inputs.size() + " inputs, " + taintedSteps + " tainted steps, " + pcs.size() + " tainted PCs, " + labels.size() + " label sets");
+    }
+
+    private void flush() {
+        if (current == null) {
+            return;
+        }
+
+        if (currentWrites != null) {
+            for (int reg : currentWrites) {
+                if (reg >= 0 && reg < regcnt && current.regs[reg] != taint) {
+                    current.regs[reg] = taint;
+                    current.regSteps[reg].add(currentStep);
+                    current.regTaint[reg].add(taint);
+                }
+            }
+        }
+
+        for (int i = 0; i < pendingCount; i += 2) {
+            define(pending[i], pending[i + 1], taint);
+        }
+
+        if (taint != LabelSets.CLEAN) {
+            current.steps.add(currentStep);
+            current.stepTaint.add(taint);
+            Integer pcTaint = pcs.get(currentPC);
+            pcs.put(currentPC, pcTaint == null ? taint : labels.union(pcTaint, taint));
+            taintedSteps++;
+        }
+
+        currentWrites = null;
+        pendingCount = 0;
+        taint = LabelSets.CLEAN;
+    }
+
+    private int[] getPage(long addr, boolean create) {
+        long pageAddr = addr & ~PAGE_MASK;
+        if (pageAddr == lastPageAddr) {
+            return lastPage;
+        }
+        int[] page = pages.get(pageAddr);
+        if (page == null) {
+            if (!create) {
+                return null;
+            }
+            page = new int[PAGE_SIZE];
+            pages.put(pageAddr, page);
+        }
+        lastPageAddr = pageAddr;
+        lastPage = page;
+        return page;
+    }
+
+    private int getTaint(long addr) {
+        int[] page = getPage(addr, false);
+        if (page == null) {
+            return LabelSets.CLEAN;
+        } else {
+            return page[(int) (addr & PAGE_MASK)];
+        }
+    }
+
+    private void define(long addr, long size, int set) {
+        for (long i = 0; i < size; i++) {
+            // clean bytes do not need a shadow page
+            int[] page = getPage(addr + i, set != LabelSets.CLEAN);
+            if (page != null) {
+                page[(int) ((addr + i) & PAGE_MASK)] = set;
+            }
+        }
+    }
+
+    private void clear(long addr, long size) {
+        long start = addr & ~PAGE_MASK;
+        long end = addr + size;
+        if ((size >>> PAGE_BITS) > pages.size()) {
+            for (Iterator<Map.Entry<Long, int[]>> it = pages.entrySet().iterator(); it.hasNext();) {
+                long page = it.next().getKey();
+                if (Long.compareUnsigned(page, start) >= 0 && Long.compareUnsigned(page, end) < 0) {
+                    it.remove();
+                }
+            }
+        } else {
+            for (long page = start; Long.compareUnsigned(page, end) < 0; page += PAGE_SIZE) {
+                pages.remove(page);
+            }
+        }
+        lastPageAddr = -1;
+        lastPage = null;
+    }
+
+    public boolean hasRegisters() {
+        return regcnt > 0;
+    }
+
+    public List<IoEvent> getInputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    /**
+     * Get the input which introduced {@code label}.
+     */
+    public IoEvent getInput(int label) {
+        return inputs.get(label);
+    }
+
+    /**
+     * Get the labels of register {@code reg} in thread {@code tid} after executing {@code step}.
+     */
+    public int[] getRegisterTaint(int tid, int reg, long step) {
+        ThreadState thread = threads.get(tid);
+        if (thread == null || reg < 0 || reg >= regcnt) {
+            return labels.get(LabelSets.CLEAN);
+        }
+        long idx = thread.regSteps[reg].lowerBound(step + 1) - 1;
+        if (idx < 0) {
+            return labels.get(LabelSets.CLEAN);
+        } else {
+            return labels.get((int) thread.regTaint[reg].get(idx));
+        }
+    }
+
+    /**
+     * Get the labels of the values read and produced by {@code step} in thread {@code tid}.
+     */
+    public int[] getStepTaint(int tid, long step) {
+        ThreadState thread = threads.get(tid);
+        if (thread == null) {
+            return labels.get(LabelSets.CLEAN);
+        }
+        long idx = thread.steps.lowerBound(step);
+        if (idx < thread.steps.size() && thread.steps.get(idx) == step) {
+            return labels.get((int) thread.stepTaint.get(idx));
+        } else {
+            return labels.get(LabelSets.CLEAN);
+        }
+    }
+
+    /**
+     * Get the labels of the memory byte at {@code addr} at the end of the trace.
+     */
+    public int[] getMemoryTaint(long addr) {
+        return labels.get(getTaint(addr));
+    }
+
+    public long getTaintedStepCount() {
+        return taintedSteps;
+    }
+
+    /**
+     * Get all PCs which processed tainted data together with the union of their labels.
+     */
+    public NavigableMap<Long, int[]> getTaintedPCs() {
+        NavigableMap<Long, int[]> result = new TreeMap<>(Long::compareUnsigned);
+        for (Map.Entry<Long, Integer> entry : pcs.entrySet()) {
+            result.put(entry.getKey(), labels.get(entry.getValue()));
+        }
+        return result;
+    }
+
+    public void writeTaintedPCs(PrintWriter out) {
+        writeTaintedPCs(out, inputs, getTaintedPCs());
+    }
+
+    /**
+     * Write the inputs and the tainted PCs of a taint analysis, e.g. as returned by a
+     * {@link org.graalvm.vm.trcview.net.TraceAnalyzer}.
+     */
+    public static void writeTaintedPCs(PrintWriter out, List<IoEvent> inputs, NavigableMap<Long, int[]> pcs) {
+        out.println("# inputs");
+        for (int i = 0; i < inputs.size(); i++) {
+            IoEvent evt = inputs.get(i);
+            long size = 0;
+            long[] buffers = evt.getBuffers();
+            for (int j = 1; j < buffers.length; j += 2) {
+                size += buffers[j];
+            }
+            out.printf("# %d: step %d, tid %d, channel %d, %d bytes\n", i, evt.getStep(), evt.getTid(), evt.getChannel(), size);
+        }
+        out.println("# tainted PCs");
+        for (Map.Entry<Long, int[]> entry : pcs.entrySet()) {
+            StringBuilder buf = new StringBuilder();
+            for (int label : entry.getValue()) {
+                if (buf.length() > 0) {
+                    buf.append(',');
+                }
+                buf.append(label);
+            }
+            out.printf("0x%016x %s\n", entry.getKey(), buf);
+        }
+    }
+
+    public void close() {
+        store.close();
+    }
+}
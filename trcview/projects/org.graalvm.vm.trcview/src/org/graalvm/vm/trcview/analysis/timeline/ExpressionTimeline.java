@@ -0,0 +1,278 @@
+package org.graalvm.vm.trcview.analysis.timeline;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionContext;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+
+/**
+ * Values of an expression over a range of steps of one thread, downsampled to a fixed number of
+ * buckets. Every bucket keeps the minimum, the maximum and the last value together with the steps
+ * where they occurred, which is enough to draw one pixel column of a plot.
+ *
+ * The step range is split into segments of whole buckets which are evaluated in parallel. Every
+ * segment looks up its first step in the call tree by a binary search over the children on every
+ * level and then walks the tree until the end of the segment; since states are only read, the
+ * segments do not interfere.
+ */
+public class ExpressionTimeline {
+    /** Segments with fewer steps are not split any further. */
+    public static final long SEGMENT_STEPS = 1 << 16;
+
+    private final long segmentSteps;
+    private final long start;
+    private final long end;
+    private final int buckets;
+
+    private final long[] count;
+    private final long[] min;
+    private final long[] max;
+    private final long[] last;
+    private final long[] minStep;
+    private final long[] maxStep;
+    private final long[] lastStep;
+
+    private final AtomicLong progress = new AtomicLong();
+
+    public ExpressionTimeline(long start, long end, int buckets) {
+        this(start, end, buckets, SEGMENT_STEPS);
+    }
+
+    public ExpressionTimeline(long start, long end, int buckets, long segmentSteps) {
+        if (end < start || buckets < 1 || segmentSteps < 1) {
+            throw new IllegalArgumentException("invalid range");
+        }
+        this.segmentSteps = segmentSteps;
+        this.start = start;
+        this.end = end;
+        this.buckets = (int) Math.min(buckets, end - start + 1);
+        count = new long[this.buckets];
+        min = new long[this.buckets];
+        max = new long[this.buckets];
+        last = new long[this.buckets];
+        minStep = new long[this.buckets];
+        maxStep = new long[this.buckets];
+        lastStep = new long[this.buckets];
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Get the first step of a bucket; {@code bucket == getBuckets()} gives the end of the range + 1.
+     */
+    public long getBucketStart(int bucket) {
+        return start + (long) ((double) bucket * (end - start + 1) / buckets);
+    }
+
+    public int getBucket(long step) {
+        int bucket = (int) ((double) (step - start) * buckets / (end - start + 1));
+        // rounding of large step counts
+        while (bucket > 0 && getBucketStart(bucket) > step) {
+            bucket--;
+        }
+        while (bucket < buckets - 1 && getBucketStart(bucket + 1) <= step) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public long getCount(int bucket) {
+        return count[bucket];
+    }
+
+    public long getMin(int bucket) {
+        return min[bucket];
+    }
+
+    public long getMax(int bucket) {
+        return max[bucket];
+    }
+
+    public long getLast(int bucket) {
+        return last[bucket];
+    }
+
+    public long getMinStep(int bucket) {
+        return minStep[bucket];
+    }
+
+    public long getMaxStep(int bucket) {
+        return maxStep[bucket];
+    }
+
+    public long getLastStep(int bucket) {
+        return lastStep[bucket];
+    }
+
+    /**
+     * Get the number of steps which were evaluated so far.
+     */
+    public long getProgress() {
+        return progress.get();
+    }
+
+    /**
+     * Evaluate {@code expr} for all steps of the thread which contains {@code node}.
+     */
+    public void compute(TraceAnalyzer trc, Node node, Expression expr, ForkJoinPool pool, BooleanSupplier cancelled) {
+        Node root = node;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        BlockNode thread = root instanceof BlockNode ? (BlockNode) root : node.getParent();
+        pool.invoke(new Segment(trc, thread, expr, cancelled, 0, buckets - 1));
+    }
+
+    private class Segment extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TraceAnalyzer trc;
+        private final BlockNode root;
+        private final Expression expr;
+        private final BooleanSupplier cancelled;
+        private final int first;
+        private final int lastBucket;
+
+        private long steps;
+
+        Segment(TraceAnalyzer trc, BlockNode root, Expression expr, BooleanSupplier cancelled, int first, int last) {
+            this.trc = trc;
+            this.root = root;
+            this.expr = expr;
+            this.cancelled = cancelled;
+            this.first = first;
+            this.lastBucket = last;
+        }
+
+        @Override
+        protected void compute() {
+            long from = getBucketStart(first);
+            long to = getBucketStart(lastBucket + 1);
+            if (first < lastBucket && to - from > segmentSteps) {
+                int mid = (first + lastBucket) / 2;
+                invokeAll(new Segment(trc, root, expr, cancelled, first, mid), new Segment(trc, root, expr, cancelled, mid + 1, lastBucket));
+            } else {
+                walk(root, from, to);
+                progress.addAndGet(steps % 4096);
+            }
+        }
+
+        // visit the steps of the block in [from, to); returns true once a step >= to was seen
+        private boolean walk(BlockNode block, long from, long to) {
+            StepEvent head = block.getHead();
+            if (head != null) {
+                if (head.getStep() >= to) {
+                    return true;
+                } else if (head.getStep() >= from) {
+                    visit(head);
+                }
+            }
+            List<Node> children = block.getNodes();
+            int size = children.size();
+            for (int i = seek(children, from); i < size; i++) {
+                if (cancelled.getAsBoolean()) {
+                    return true;
+                }
+                Node n = children.get(i);
+                if (n instanceof StepEvent) {
+                    long step = ((StepEvent) n).getStep();
+                    if (step >= to) {
+                        return true;
+                    } else if (step >= from) {
+                        visit((StepEvent) n);
+                    }
+                } else if (n instanceof BlockNode) {
+                    if (walk((BlockNode) n, from, to)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // index of the last child which starts at or before from; all children before it end
+        // before from since the steps are ascending in tree order
+        private int seek(List<Node> children, long from) {
+            int lo = 0;
+            int hi = children.size() - 1;
+            int result = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                // empty blocks have no step, use the next child which has one
+                int i = mid;
+                long step = -1;
+                while (i <= hi && (step = firstStep(children.get(i))) == -1) {
+                    i++;
+                }
+                if (step != -1 && step <= from) {
+                    result = i;
+                    lo = i + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return result;
+        }
+
+        private long firstStep(Node n) {
+            if (n instanceof StepEvent) {
+                return ((StepEvent) n).getStep();
+            } else if (n instanceof BlockNode) {
+                BlockNode b = (BlockNode) n;
+                if (b.getHead() != null) {
+                    return b.getHead().getStep();
+                } else if (!b.getNodes().isEmpty()) {
+                    StepEvent step = b.getFirstStep();
+                    return step != null ? step.getStep() : -1;
+                }
+            }
+            return -1;
+        }
+
+        private void visit(StepEvent step) {
+            steps++;
+            if ((steps % 4096) == 0) {
+                progress.addAndGet(4096);
+            }
+            long value;
+            try {
+                value = expr.evaluate(new ExpressionContext(step.getState(), trc));
+            } catch (EvaluationException e) {
+                return;
+            }
+            long insn = step.getStep();
+            // buckets are only written by the segment which contains them
+            int bucket = getBucket(insn);
+            if (count[bucket] == 0 || value < min[bucket]) {
+                min[bucket] = value;
+                minStep[bucket] = insn;
+            }
+            if (count[bucket] == 0 || value > max[bucket]) {
+                max[bucket] = value;
+                maxStep[bucket] = insn;
+            }
+            last[bucket] = value;
+            lastStep[bucket] = insn;
+            count[bucket]++;
+        }
+    }
+}
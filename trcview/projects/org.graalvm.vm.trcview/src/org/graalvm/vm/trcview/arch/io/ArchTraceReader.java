@@ -9,6 +9,10 @@ public abstract class ArchTraceReader {
         return null;
     }
 
+    public StepMaterializer getStepMaterializer() {
+        return null;
+    }
+
     public abstract Event read() throws IOException;
 
     public abstract long tell();
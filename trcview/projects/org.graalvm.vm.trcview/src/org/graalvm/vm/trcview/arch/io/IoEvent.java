@@ -3,17 +3,29 @@ package org.graalvm.vm.trcview.arch.io;
 import org.graalvm.vm.trcview.decode.DecoderUtils;
 
 public class IoEvent extends Event {
+    private static final long[] NO_BUFFERS = new long[0];
+
     private final int channel;
     private final boolean input;
     private final String value;
     private final long step;
+    private final long[] buffers;
 
     public IoEvent(int tid, long step, int channel, boolean input, String value) {
+        this(tid, step, channel, input, value, NO_BUFFERS);
+    }
+
+    /**
+     * Create an I/O event which also knows the guest buffers that were transferred.
+     * {@code buffers} consists of (address, length) pairs.
+     */
+    public IoEvent(int tid, long step, int channel, boolean input, String value, long[] buffers) {
         super(tid);
         this.step = step;
         this.channel = channel;
         this.input = input;
         this.value = value;
+        this.buffers = buffers;
     }
 
     public long getStep() {
@@ -36,6 +48,10 @@ public class IoEvent extends Event {
         return value;
     }
 
+    public long[] getBuffers() {
+        return buffers;
+    }
+
     @Override
     public String toString() {
         return "IoEvent[channel=" + channel + ";" + (input ? "input" : "output") + ";value=" + DecoderUtils.str(value) + "]";
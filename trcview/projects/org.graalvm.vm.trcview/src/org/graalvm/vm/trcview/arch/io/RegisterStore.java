@@ -0,0 +1,155 @@
+package org.graalvm.vm.trcview.arch.io;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage for the register values of a sequence of CPU states.
+ *
+ * Every register has its own column which only stores the values of the states where the register
+ * changed. The states are grouped into blocks of 64; per block and register there is a bitmap of
+ * the states where the register changed and the number of changes before the block, so the value
+ * of any register at any state is found with one population count instead of walking a chain of
+ * delta states. All arrays are allocated in fixed size chunks, a growing trace therefore never
+ * copies the columns.
+ *
+ * Registers which were never set read as 0.
+ */
+public class RegisterStore {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Column[] columns;
+    private long size = 0;
+
+    private static class Column {
+        // per block: states where the register changed
+        long[][] changes = new long[0][];
+        // per block: number of values before the block
+        long[][] offsets = new long[0][];
+        long[][] values = new long[0][];
+        long count = 0;
+        long lastBlock = -1;
+        long last = 0;
+
+        private static long get(long[][] chunks, long index) {
+            return chunks[(int) (index >>> CHUNK_SHIFT)][(int) (index & CHUNK_MASK)];
+        }
+
+        private static long[][] set(long[][] chunks, long index, long value) {
+            int chunk = (int) (index >>> CHUNK_SHIFT);
+            long[][] result = chunks;
+            if (chunk >= result.length) {
+                result = Arrays.copyOf(result, Math.max(chunk + 1, result.length * 2));
+            }
+            if (result[chunk] == null) {
+                result[chunk] = new long[CHUNK_SIZE];
+            }
+            result[chunk][(int) (index & CHUNK_MASK)] = value;
+            return result;
+        }
+
+        boolean isChanged(long index) {
+            long block = index >>> BLOCK_SHIFT;
+            if (block > lastBlock) {
+                return false;
+            }
+            return (get(changes, block) & (1L << (index & BLOCK_MASK))) != 0;
+        }
+
+        long get(long index) {
+            long block = index >>> BLOCK_SHIFT;
+            if (block > lastBlock) {
+                return last;
+            }
+            long mask = -1L >>> (BLOCK_MASK - (index & BLOCK_MASK));
+            long n = get(offsets, block) + Long.bitCount(get(changes, block) & mask);
+            return n == 0 ? 0 : get(values, n - 1);
+        }
+
+        void set(long index, long value) {
+            if (isChanged(index)) {
+                // the register was already set for this state
+                values = set(values, count - 1, value);
+                last = value;
+                return;
+            }
+            if (value == last) {
+                return;
+            }
+            long block = index >>> BLOCK_SHIFT;
+            for (long b = lastBlock + 1; b <= block; b++) {
+                offsets = set(offsets, b, count);
+                changes = set(changes, b, 0);
+            }
+            lastBlock = block;
+            changes = set(changes, block, get(changes, block) | (1L << (index & BLOCK_MASK)));
+            values = set(values, count, value);
+            count++;
+            last = value;
+        }
+    }
+
+    public RegisterStore(int registers) {
+        columns = new Column[registers];
+    }
+
+    public int getRegisterCount() {
+        return columns.length;
+    }
+
+    /**
+     * Get the number of states.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Add a new state which starts with the register values of the previous state.
+     *
+     * @return the index of the new state
+     */
+    public long add() {
+        return size++;
+    }
+
+    /**
+     * Set a register of the last state.
+     */
+    public void set(int reg, long value) {
+        if (size == 0) {
+            throw new IllegalStateException("no state");
+        }
+        Column column = columns[reg];
+        if (column == null) {
+            if (value == 0) {
+                return;
+            }
+            column = new Column();
+            columns[reg] = column;
+        }
+        column.set(size - 1, value);
+    }
+
+    public long get(int reg, long index) {
+        Column column = columns[reg];
+        if (column == null) {
+            return 0;
+        }
+        return column.get(index);
+    }
+
+    /**
+     * Check if the value of a register is different from the previous state.
+     */
+    public boolean isChanged(int reg, long index) {
+        Column column = columns[reg];
+        if (column == null) {
+            return false;
+        }
+        return column.isChanged(index);
+    }
+}
@@ -0,0 +1,21 @@
+package org.graalvm.vm.trcview.arch.io;
+
+/**
+ * Recreates the step events of an architecture from the fields of a step record. Architectures
+ * whose states are views into a {@link RegisterStore} provide one, so the trace parser can keep
+ * their steps as records of a {@link org.graalvm.vm.trcview.io.StepStore} instead of objects.
+ */
+public interface StepMaterializer {
+    long NONE = -1;
+
+    /**
+     * Get the reference to the state of a step, usually the index of the state in a
+     * {@link RegisterStore}.
+     *
+     * @return the reference or {@link #NONE} if the step cannot be recreated and has to be kept as
+     *         object
+     */
+    long getStateReference(StepEvent step);
+
+    StepEvent materialize(int tid, long step, long pc, InstructionType type, byte[] machinecode, long state);
+}
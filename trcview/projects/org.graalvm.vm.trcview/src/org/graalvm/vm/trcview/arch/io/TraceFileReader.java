@@ -43,6 +43,11 @@ public class TraceFileReader extends TraceReader {
         return reader.getAnalyzer();
     }
 
+    @Override
+    public StepMaterializer getStepMaterializer() {
+        return reader.getStepMaterializer();
+    }
+
     @Override
     public Event read() throws IOException {
         try {
@@ -19,6 +19,14 @@ public abstract class TraceReader {
         return null;
     }
 
+    /**
+     * Get the materializer for steps which are stored as records, or null if all steps have to be
+     * kept as objects.
+     */
+    public StepMaterializer getStepMaterializer() {
+        return null;
+    }
+
     public abstract Event read() throws IOException;
 
     public abstract long tell();
@@ -1,40 +1,75 @@
 package org.graalvm.vm.trcview.arch.none.io;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.graalvm.vm.util.io.WordInputStream;
 
+/**
+ * Step which only stores the bytes of the state that changed since the previous step. The full
+ * state is reconstructed on demand from the last full step or the last cached state.
+ */
 public class GenericDeltaStepEvent extends GenericStepEvent {
     private final byte[] mask;
     private final byte[] data;
     private final GenericStepEvent last;
+    private final GenericStateCache cache;
 
     protected GenericDeltaStepEvent(GenericStateDescription description, int tid, long step, long pc, byte type, byte[] machinecode, String[] disassembly, byte[] mask, byte[] data,
-                    GenericStepEvent last) {
+                    GenericStepEvent last, GenericStateCache cache) {
         super(description, tid, step, pc, type, machinecode, disassembly);
         this.mask = mask;
         this.data = data;
         this.last = last;
+        this.cache = cache;
     }
 
-    @Override
-    public byte[] getData() {
-        byte[] previous = last.getData();
-        byte[] current = Arrays.copyOf(previous, previous.length);
+    private void apply(byte[] state) {
         int off = 0;
         for (int i = 0; i < mask.length; i++) {
-            for (int j = 0; j < 8; j++) {
-                if ((mask[i] & (1 << j)) != 0) {
-                    int pos = i * 8 + j;
-                    current[pos] = data[off++];
-                }
+            int bits = Byte.toUnsignedInt(mask[i]);
+            while (bits != 0) {
+                int j = Integer.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                state[i * 8 + j] = data[off++];
             }
         }
+    }
+
+    @Override
+    public byte[] getData() {
+        byte[] cached = cache.get(this);
+        if (cached != null) {
+            return cached;
+        }
+
+        // find the closest state which is available without applying deltas
+        List<GenericDeltaStepEvent> deltas = new ArrayList<>();
+        deltas.add(this);
+        GenericStepEvent base = last;
+        byte[] previous = null;
+        while (base instanceof GenericDeltaStepEvent) {
+            previous = cache.get(base);
+            if (previous != null) {
+                break;
+            }
+            deltas.add((GenericDeltaStepEvent) base);
+            base = ((GenericDeltaStepEvent) base).last;
+        }
+        if (previous == null) {
+            previous = base.getData();
+        }
+
+        byte[] current = previous.clone();
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            deltas.get(i).apply(current);
+        }
+        cache.put(this, current);
         return current;
     }
 
-    public static GenericDeltaStepEvent parse(WordInputStream in, int tid, GenericStateDescription description, GenericStepEvent last) throws IOException {
+    public static GenericDeltaStepEvent parse(WordInputStream in, int tid, GenericStateDescription description, GenericStepEvent last, GenericStateCache cache) throws IOException {
         long step = in.read64bit();
         long pc = in.read64bit();
 
@@ -55,6 +90,6 @@ public class GenericDeltaStepEvent extends GenericStepEvent {
         byte[] machinecode = read8(in);
         byte type = (byte) in.read8bit();
 
-        return new GenericDeltaStepEvent(description, tid, step, pc, type, machinecode, disassembly, mask, data, last);
+        return new GenericDeltaStepEvent(description, tid, step, pc, type, machinecode, disassembly, mask, data, last, cache);
     }
 }
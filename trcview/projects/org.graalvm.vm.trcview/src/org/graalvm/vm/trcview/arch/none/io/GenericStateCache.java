@@ -0,0 +1,42 @@
+package org.graalvm.vm.trcview.arch.none.io;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.net.protocol.LRUCache;
+
+/**
+ * Recently materialized states of delta steps, per thread. Scrolling through the trace or evaluating
+ * an expression on consecutive steps then only has to apply one delta per step.
+ */
+public class GenericStateCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final Map<Integer, LRUCache<Long, byte[]>> threads = new HashMap<>();
+
+    public GenericStateCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GenericStateCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized byte[] get(GenericStepEvent step) {
+        LRUCache<Long, byte[]> cache = threads.get(step.getTid());
+        if (cache == null) {
+            return null;
+        }
+        return cache.get(step.getStep());
+    }
+
+    public synchronized void put(GenericStepEvent step, byte[] data) {
+        LRUCache<Long, byte[]> cache = threads.get(step.getTid());
+        if (cache == null) {
+            cache = new LRUCache<>(capacity);
+            threads.put(step.getTid(), cache);
+        }
+        cache.put(step.getStep(), data);
+    }
+}
@@ -127,4 +127,8 @@ public class GenericStateDescription {
     public String[] readStrings(WordInputStream in) throws IOException {
         return strings.read(in);
     }
+
+    public void defineString(int id, String s) {
+        strings.define(id, s);
+    }
 }
@@ -47,6 +47,7 @@ public class GenericTraceReader extends ArchTraceReader {
     public static final byte RECORD_TRAP = 16;
     public static final byte RECORD_SYMBOLS = 17;
     public static final byte RECORD_ENDIANESS = 18;
+    public static final byte RECORD_STRING = 19;
 
     private final WordInputStream in;
 
@@ -54,6 +55,7 @@ public class GenericTraceReader extends ArchTraceReader {
 
     private boolean be = true;
 
+    private final GenericStateCache cache = new GenericStateCache();
     private GenericStepEvent last = null;
     private long stepcnt = 0;
 
@@ -91,7 +93,7 @@ public class GenericTraceReader extends ArchTraceReader {
                 stepcnt = 0;
                 return last;
             case RECORD_DELTA_STEP:
-                last = GenericDeltaStepEvent.parse(in, tid, description, last);
+                last = GenericDeltaStepEvent.parse(in, tid, description, last, cache);
                 stepcnt++;
                 if (stepcnt >= STEP_THRESHOLD) {
                     last = new GenericFullStepEvent(last);
@@ -151,6 +153,13 @@ public class GenericTraceReader extends ArchTraceReader {
             case RECORD_ENDIANESS:
                 be = in.read8bit() != 0;
                 return read();
+            case RECORD_STRING: {
+                // string table entry of a concurrent writer
+                int id = in.read32bit();
+                String s = IO.readString(in);
+                description.defineString(id, s);
+                return read();
+            }
             case RECORD_READ_8: {
                 long address = in.read64bit();
                 byte value = (byte) in.read8bit();
@@ -14,6 +14,17 @@ public class Strings {
         strings.add("");
     }
 
+    /**
+     * Define a string with an explicit id. Concurrent writers define strings before the first
+     * record which uses them, but not necessarily in the order of their ids.
+     */
+    public void define(int id, String s) {
+        while (strings.size() <= id) {
+            strings.add(null);
+        }
+        strings.set(id, s);
+    }
+
     public String[] read(WordInputStream in) throws IOException {
         int idcnt = in.read8bit();
         String[] asm = new String[idcnt];
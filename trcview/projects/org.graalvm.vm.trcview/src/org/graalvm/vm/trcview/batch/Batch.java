@@ -0,0 +1,337 @@
+package org.graalvm.vm.trcview.batch;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.memory.ValueQuery;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Headless batch processing of traces.
+ *
+ * Every trace is loaded into its own {@link org.graalvm.vm.trcview.net.Local} trace analyzer and
+ * the selected tasks write their results to the output directory. Traces are processed
+ * concurrently by a fixed number of workers. Since the memory needed to analyze a trace grows with
+ * the trace size, a trace is only started once its estimated heap usage fits into the heap budget
+ * next to the traces which are already running.
+ */
+public class Batch {
+    private static final Logger log = Trace.create(Batch.class);
+
+    public static final int DEFAULT_HEAP_FACTOR = 4;
+
+    private static final long MB = 1024 * 1024;
+
+    private final Set<BatchTask> tasks = new LinkedHashSet<>();
+    private File outputDirectory = new File(".");
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private long heap = Runtime.getRuntime().maxMemory() / 4 * 3;
+    private int heapFactor = DEFAULT_HEAP_FACTOR;
+    private boolean typeRecovery = false;
+    private long memoryStart = 0;
+    private long memoryEnd = 0;
+    private long memoryStep = -1;
+    private boolean ignoreUnmapped = false;
+    private ValueQuery valueQuery = null;
+
+    public Set<BatchTask> getTasks() {
+        return tasks;
+    }
+
+    public void addTask(BatchTask task) {
+        tasks.add(task);
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("invalid number of workers: " + workers);
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Get the total heap budget in bytes which is shared by all running traces.
+     */
+    public long getHeap() {
+        return heap;
+    }
+
+    public void setHeap(long heap) {
+        if (heap < MB) {
+            throw new IllegalArgumentException("heap budget too small");
+        }
+        this.heap = heap;
+    }
+
+    /**
+     * Get the estimated heap usage per byte of trace file.
+     */
+    public int getHeapFactor() {
+        return heapFactor;
+    }
+
+    public void setHeapFactor(int heapFactor) {
+        if (heapFactor < 1) {
+            throw new IllegalArgumentException("invalid heap factor: " + heapFactor);
+        }
+        this.heapFactor = heapFactor;
+    }
+
+    public boolean isTypeRecovery() {
+        return typeRecovery;
+    }
+
+    public void setTypeRecovery(boolean typeRecovery) {
+        this.typeRecovery = typeRecovery;
+    }
+
+    public long getMemoryStart() {
+        return memoryStart;
+    }
+
+    public long getMemoryEnd() {
+        return memoryEnd;
+    }
+
+    public void setMemoryRange(long start, long end) {
+        memoryStart = start;
+        memoryEnd = end;
+    }
+
+    /**
+     * Get the step at which memory is exported, or -1 for the end of the trace.
+     */
+    public long getMemoryStep() {
+        return memoryStep;
+    }
+
+    public void setMemoryStep(long memoryStep) {
+        this.memoryStep = memoryStep;
+    }
+
+    public boolean isIgnoreUnmapped() {
+        return ignoreUnmapped;
+    }
+
+    public void setIgnoreUnmapped(boolean ignoreUnmapped) {
+        this.ignoreUnmapped = ignoreUnmapped;
+    }
+
+    public ValueQuery getValueQuery() {
+        return valueQuery;
+    }
+
+    public void setValueQuery(ValueQuery valueQuery) {
+        this.valueQuery = valueQuery;
+    }
+
+    // estimated heap usage of a trace in MB, never more than the whole budget
+    int getCost(File file) {
+        long budget = heap / MB;
+        long cost = (file.length() * heapFactor + MB - 1) / MB;
+        return (int) Math.max(1, Math.min(cost, budget));
+    }
+
+    /**
+     * Process all traces.
+     *
+     * @return true if all tasks succeeded on all traces
+     */
+    public boolean run(List<File> files, BatchReport report) throws InterruptedException {
+        Semaphore budget = new Semaphore((int) (heap / MB));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (File file : files) {
+                int cost = getCost(file);
+                budget.acquire(cost);
+                BatchJob job = new BatchJob(this, file, report);
+                results.add(pool.submit(() -> {
+                    try {
+                        return job.call();
+                    } finally {
+                        budget.release(cost);
+                    }
+                }));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        boolean ok = true;
+        for (Future<Boolean> result : results) {
+            try {
+                ok &= result.get();
+            } catch (ExecutionException e) {
+                log.log(Levels.ERROR, "Batch job failed: " + e.getCause(), e.getCause());
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private static void collect(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles((dir, name) -> name.endsWith(".trc"));
+            if (children != null) {
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            }
+        } else {
+            files.add(file);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: Batch [options] -tasks task[,task...] trace|directory...");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  -o DIR              output directory (default: current directory)");
+        System.out.println("  -report FILE        progress and timing report (default: DIR/report.tsv)");
+        System.out.println("  -j N                number of traces processed in parallel");
+        System.out.println("  -heap MB            total heap budget for all running traces");
+        System.out.println("  -factor N           estimated heap usage per byte of trace file (default: " + DEFAULT_HEAP_FACTOR + ")");
+        System.out.println("  -types              perform type recovery");
+        System.out.println("  -memory START:END   memory range for the memory task (hex)");
+        System.out.println("  -step N             step for the memory task (default: end of trace)");
+        System.out.println("  -ignore-unmapped    write unmapped memory as 0");
+        System.out.println("  -value V[/M][:S]    value (hex), mask (hex), and size for the values task");
+        System.out.println();
+        StringBuilder buf = new StringBuilder();
+        for (BatchTask task : BatchTask.values()) {
+            if (buf.length() > 0) {
+                buf.append(", ");
+            }
+            buf.append(task.getName());
+        }
+        System.out.println("Tasks: " + buf);
+        System.exit(2);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Trace.setup();
+
+        Batch batch = new Batch();
+        File reportFile = null;
+        List<File> files = new ArrayList<>();
+        try {
+            int i;
+            for (i = 0; i < args.length && args[i].startsWith("-"); i++) {
+                switch (args[i]) {
+                    case "-tasks":
+                        for (String name : args[++i].split(",")) {
+                            BatchTask task = BatchTask.get(name.trim());
+                            if (task == null) {
+                                System.out.println("Unknown task: " + name);
+                                usage();
+                            }
+                            batch.addTask(task);
+                        }
+                        break;
+                    case "-o":
+                        batch.setOutputDirectory(new File(args[++i]));
+                        break;
+                    case "-report":
+                        reportFile = new File(args[++i]);
+                        break;
+                    case "-j":
+                        batch.setWorkers(Integer.parseInt(args[++i]));
+                        break;
+                    case "-heap":
+                        batch.setHeap(Long.parseLong(args[++i]) * MB);
+                        break;
+                    case "-factor":
+                        batch.setHeapFactor(Integer.parseInt(args[++i]));
+                        break;
+                    case "-types":
+                        batch.setTypeRecovery(true);
+                        break;
+                    case "-memory": {
+                        String[] range = args[++i].split(":");
+                        if (range.length != 2) {
+                            usage();
+                        }
+                        batch.setMemoryRange(Long.parseUnsignedLong(range[0], 16), Long.parseUnsignedLong(range[1], 16));
+                        break;
+                    }
+                    case "-step":
+                        batch.setMemoryStep(Long.parseLong(args[++i]));
+                        break;
+                    case "-ignore-unmapped":
+                        batch.setIgnoreUnmapped(true);
+                        break;
+                    case "-value":
+                        batch.setValueQuery(ValueQuery.parse(args[++i]));
+                        break;
+                    default:
+                        System.out.println("Unknown option: " + args[i]);
+                        usage();
+                }
+            }
+            for (; i < args.length; i++) {
+                collect(new File(args[i]), files);
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            usage();
+        }
+
+        if (batch.getTasks().isEmpty() || files.isEmpty()) {
+            usage();
+        }
+        if (batch.getTasks().contains(BatchTask.MEMORY) && batch.getMemoryEnd() <= batch.getMemoryStart()) {
+            System.out.println("The memory task needs a memory range");
+            usage();
+        }
+        if (batch.getTasks().contains(BatchTask.VALUES) && batch.getValueQuery() == null) {
+            System.out.println("The values task needs a value");
+            usage();
+        }
+
+        File outdir = batch.getOutputDirectory();
+        if (!outdir.isDirectory() && !outdir.mkdirs()) {
+            System.out.println("Cannot create output directory " + outdir);
+            System.exit(2);
+        }
+        if (reportFile == null) {
+            reportFile = new File(outdir, "report.tsv");
+        }
+
+        log.log(Levels.INFO, "Processing " + files.size() + " traces with " + batch.getWorkers() + " workers and " + batch.getHeap() / MB + " MB heap budget");
+        try (BatchReport report = new BatchReport(new PrintWriter(new BufferedWriter(new FileWriter(reportFile))))) {
+            boolean ok = batch.run(files, report);
+            System.exit(ok ? 0 : 1);
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Error: " + e.getMessage());
+            log.log(Levels.ERROR, "Batch processing failed: " + e, e);
+            System.exit(2);
+        }
+    }
+}
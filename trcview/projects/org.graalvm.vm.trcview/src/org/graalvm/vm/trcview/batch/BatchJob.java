@@ -0,0 +1,160 @@
+package org.graalvm.vm.trcview.batch;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.analysis.Analyzer;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.io.TraceReader;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Loads one trace without user interface and runs all tasks of the batch on it.
+ */
+public class BatchJob implements Callable<Boolean> {
+    private static final Logger log = Trace.create(BatchJob.class);
+
+    private static final int PROGRESS_STEP = 10;
+
+    private final Batch batch;
+    private final File file;
+    private final String name;
+    private final BatchReport report;
+
+    private long phaseStart;
+    private int lastProgress;
+
+    public BatchJob(Batch batch, File file, BatchReport report) {
+        this.batch = batch;
+        this.file = file;
+        this.report = report;
+        String basename = file.getName();
+        if (basename.endsWith(".trc")) {
+            basename = basename.substring(0, basename.length() - 4);
+        }
+        name = basename;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public File getOutputFile(BatchTask task) {
+        return new File(batch.getOutputDirectory(), name + "." + task.getExtension());
+    }
+
+    private void begin() {
+        phaseStart = System.currentTimeMillis();
+    }
+
+    private void end(String phase) {
+        report.log(file.toString(), phase, BatchReport.OK, System.currentTimeMillis() - phaseStart, null);
+    }
+
+    private void fail(String phase, Throwable t) {
+        report.log(file.toString(), phase, BatchReport.FAILED, System.currentTimeMillis() - phaseStart, t.toString());
+    }
+
+    private void progress(long pos, long size) {
+        int percent = size == 0 ? 100 : (int) (pos * 100 / size);
+        if (percent >= lastProgress + PROGRESS_STEP) {
+            lastProgress = percent - percent % PROGRESS_STEP;
+            report.log(file.toString(), "load", BatchReport.PROGRESS, System.currentTimeMillis() - phaseStart, Integer.toString(lastProgress));
+        }
+    }
+
+    private Analysis createAnalysis(TraceReader reader) {
+        List<Analyzer> analyzers = new ArrayList<>();
+        Analyzer analyzer = reader.getAnalyzer();
+        if (analyzer != null) {
+            analyzers.add(analyzer);
+        }
+        return new Analysis(reader.getArchitecture(), analyzers, batch.isTypeRecovery(), true, false, batch.getTasks().contains(BatchTask.TAINT));
+    }
+
+    private TraceAnalyzer load() throws IOException {
+        String phase = "load";
+        begin();
+        lastProgress = 0;
+        long size = file.length();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            TraceReader reader = new TraceFileReader(in);
+            Analysis analysis = createAnalysis(reader);
+            analysis.start();
+            Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, pos -> progress(pos, size));
+            end(phase);
+
+            phase = "analyze";
+            begin();
+            BlockNode root = null;
+            for (BlockNode block : threads.values()) {
+                if (root == null) {
+                    root = block;
+                } else if (block.getStep() < root.getStep()) {
+                    root = block;
+                }
+            }
+            analysis.finish(root);
+            if (root == null || root.getFirstStep() == null) {
+                throw new IOException("trace contains no steps");
+            }
+            TraceAnalyzer trc = new Local(reader.getArchitecture(), root, threads, analysis);
+            end(phase);
+            return trc;
+        } catch (IOException | RuntimeException e) {
+            fail(phase, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Run the job.
+     *
+     * @return true if all tasks succeeded
+     */
+    @Override
+    public Boolean call() {
+        log.log(Levels.INFO, "Processing " + file + "...");
+        long start = System.currentTimeMillis();
+        boolean ok = true;
+        TraceAnalyzer trc;
+        try {
+            trc = load();
+        } catch (Throwable t) {
+            log.log(Levels.WARNING, "Loading " + file + " failed: " + t, t);
+            report.log(file.toString(), "total", BatchReport.FAILED, System.currentTimeMillis() - start, t.toString());
+            return false;
+        }
+
+        for (BatchTask task : batch.getTasks()) {
+            begin();
+            try {
+                task.run(trc, batch, getOutputFile(task));
+                end(task.getName());
+            } catch (Throwable t) {
+                log.log(Levels.WARNING, "Task " + task.getName() + " failed on " + file + ": " + t, t);
+                fail(task.getName(), t);
+                ok = false;
+            }
+        }
+
+        long time = System.currentTimeMillis() - start;
+        log.log(Levels.INFO, "Finished " + file + " [" + time + " ms]");
+        report.log(file.toString(), "total", ok ? BatchReport.OK : BatchReport.FAILED, time, null);
+        return ok;
+    }
+}
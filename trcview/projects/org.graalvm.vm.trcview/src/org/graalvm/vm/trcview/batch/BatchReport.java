@@ -0,0 +1,45 @@
+package org.graalvm.vm.trcview.batch;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+
+/**
+ * Machine readable progress and timing report of a batch run.
+ *
+ * The report is a tab separated file with one line per event and the columns trace, phase,
+ * status, elapsed time of the phase in milliseconds, and detail. The status is one of
+ * {@code progress}, {@code ok}, {@code failed} and {@code skipped}; for {@code progress} the
+ * detail is the percentage of the trace file which was read, for {@code failed} it is the error
+ * message. Lines are flushed immediately, so the report can be followed while the batch runs.
+ */
+public class BatchReport implements Closeable {
+    public static final String PROGRESS = "progress";
+    public static final String OK = "ok";
+    public static final String FAILED = "failed";
+    public static final String SKIPPED = "skipped";
+
+    private final PrintWriter out;
+
+    public BatchReport(PrintWriter out) {
+        this.out = out;
+        out.println("# trace\tphase\tstatus\ttime\tdetail");
+        out.flush();
+    }
+
+    private static String clean(String s) {
+        if (s == null) {
+            return "";
+        }
+        return s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    public synchronized void log(String trace, String phase, String status, long time, String detail) {
+        out.printf("%s\t%s\t%s\t%d\t%s\n", clean(trace), phase, status, time, clean(detail));
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+}
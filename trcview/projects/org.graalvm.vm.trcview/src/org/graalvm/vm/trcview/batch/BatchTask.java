@@ -0,0 +1,127 @@
+package org.graalvm.vm.trcview.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Consumer;
+
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.VirtualMemorySnapshot;
+import org.graalvm.vm.trcview.analysis.taint.TaintAnalyzer;
+import org.graalvm.vm.trcview.io.TraceExporter;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+
+/**
+ * Named analyses which can be run by {@link Batch}. Each task writes one output file per trace.
+ */
+public enum BatchTask {
+    SYMBOLS("symbols", "sym") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeSymbols(trc, w));
+        }
+    },
+    MAP("map", "map") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeMap(trc, w));
+        }
+    },
+    IDC("idc", "idc") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeIDC(trc, w));
+        }
+    },
+    SYSCALLS("syscalls", "strace") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeSyscalls(trc, w));
+        }
+    },
+    PROFILE("profile", "profile") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeProfile(trc, w));
+        }
+    },
+    STACKS("stacks", "stacks") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeCollapsedStacks(trc, w));
+        }
+    },
+    TAINT("taint", "taint") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TaintAnalyzer.writeTaintedPCs(w, trc.getTaintInputs(), trc.getTaintedPCs()));
+        }
+    },
+    VALUES("values", "values") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            print(out, w -> TraceExporter.writeValueWrites(trc, batch.getValueQuery(), w));
+        }
+    },
+    MEMORY("memory", "bin") {
+        @Override
+        void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException {
+            long step = batch.getMemoryStep() == -1 ? trc.getInstructionCount() : batch.getMemoryStep();
+            VirtualMemorySnapshot memory = new VirtualMemorySnapshot(trc, step);
+            try {
+                TraceExporter.writeMemory(memory, batch.getMemoryStart(), batch.getMemoryEnd(), batch.isIgnoreUnmapped(), out);
+            } catch (MemoryNotMappedException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    };
+
+    private final String name;
+    private final String extension;
+
+    BatchTask(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Run the task and write the result to {@code file}.
+     */
+    public void run(TraceAnalyzer trc, Batch batch, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(trc, batch, out);
+        }
+    }
+
+    abstract void write(TraceAnalyzer trc, Batch batch, OutputStream out) throws IOException;
+
+    private static void print(OutputStream out, Consumer<PrintWriter> task) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out));
+        task.accept(writer);
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("error while writing output");
+        }
+    }
+
+    public static BatchTask get(String name) {
+        for (BatchTask task : values()) {
+            if (task.name.equals(name)) {
+                return task;
+            }
+        }
+        return null;
+    }
+}
@@ -1,9 +1,9 @@
 package org.graalvm.vm.trcview.data;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -23,6 +23,7 @@ import org.graalvm.vm.trcview.data.ir.Operand;
 import org.graalvm.vm.trcview.data.ir.RegisterOperand;
 import org.graalvm.vm.trcview.data.type.VariableType;
 import org.graalvm.vm.util.BitTest;
+import org.graalvm.vm.util.LongSet;
 import org.graalvm.vm.util.log.Trace;
 
 public class CodeSemantics extends Semantics {
@@ -36,11 +37,10 @@ public class CodeSemantics extends Semantics {
     private final MemoryTrace memtrc;
     private final int addrsize;
 
-    private Set<Long>[] pcs;
+    private LongSet[] pcs;
 
     private long maxlen = 0;
 
-    @SuppressWarnings("unchecked")
     public CodeSemantics(CodeTypeMap codeMap, MemoryTypeMap memoryMap, SymbolTable symbols, MemoryAccessMap memory, MemoryTrace memtrc, Architecture arch) {
         this.codeMap = codeMap;
         this.memoryMap = memoryMap;
@@ -50,9 +50,9 @@ public class CodeSemantics extends Semantics {
         this.addrsize = arch.getTypeInfo().getPointerSize();
 
         // register live range tracking
-        pcs = new HashSet[arch.getRegisterCount()];
+        pcs = new LongSet[arch.getRegisterCount()];
         for (int i = 0; i < pcs.length; i++) {
-            pcs[i] = new HashSet<>();
+            pcs[i] = new LongSet();
         }
     }
 
@@ -75,7 +75,7 @@ public class CodeSemantics extends Semantics {
     public void setPC(long pc) {
         super.setPC(pc);
 
-        for (Set<Long> trail : pcs) {
+        for (LongSet trail : pcs) {
             trail.add(pc);
         }
     }
@@ -83,29 +83,27 @@ public class CodeSemantics extends Semantics {
     @Override
     public void read(int reg) {
         // everything in pcs is "live"
-        if (maxlen < pcs[reg].size()) {
-            maxlen = pcs[reg].size();
+        LongSet trail = pcs[reg];
+        if (maxlen < trail.size()) {
+            maxlen = trail.size();
         }
-        if (!pcs[reg].isEmpty()) {
-            for (long addr : pcs[reg]) {
-                codeMap.setLive(addr, reg, true);
-            }
+        if (!trail.isEmpty()) {
+            trail.forEach(addr -> codeMap.setLive(addr, reg, true));
+            trail.clear();
         }
-        pcs[reg].clear();
     }
 
     @Override
     public void write(int reg) {
         // everything in pcs is "dead"
-        if (maxlen < pcs[reg].size()) {
-            maxlen = pcs[reg].size();
+        LongSet trail = pcs[reg];
+        if (maxlen < trail.size()) {
+            maxlen = trail.size();
         }
-        if (!pcs[reg].isEmpty()) {
-            for (long addr : pcs[reg]) {
-                codeMap.setLive(addr, reg, false);
-            }
+        if (!trail.isEmpty()) {
+            trail.forEach(addr -> codeMap.setLive(addr, reg, false));
+            trail.clear();
         }
-        pcs[reg].clear();
     }
 
     @Override
@@ -483,22 +481,20 @@ public class CodeSemantics extends Semantics {
         long bits = 0;
 
         Set<ChainTarget> visited = new HashSet<>();
-        Set<ChainTarget> todo = new HashSet<>();
+        // targets can be queued more than once, duplicates are skipped when they are visited
+        Deque<ChainTarget> todo = new ArrayDeque<>();
 
         // all back links
         todo.add(start);
 
         while (!todo.isEmpty()) {
             // fetch next target
-            ChainTarget target = todo.iterator().next();
-            todo.remove(target);
+            ChainTarget target = todo.remove();
 
-            if (visited.contains(target)) {
+            if (!visited.add(target)) {
                 continue;
             }
 
-            visited.add(target);
-
             if (result != null) {
                 result.add(target);
             }
@@ -588,7 +584,7 @@ public class CodeSemantics extends Semantics {
         long bits = 0;
 
         Set<ChainTarget> visited = new HashSet<>();
-        Deque<ChainTarget> todo = new LinkedList<>();
+        Deque<ChainTarget> todo = new ArrayDeque<>();
 
         // all back links
         todo.add(new RegisterChainTarget(get(pc), op.getRegister()));
@@ -665,7 +661,7 @@ public class CodeSemantics extends Semantics {
     }
 
     @Override
-    public Set<Long> getUsedAddresses() {
+    public long[] getUsedAddresses() {
         return memoryMap.getUsedAddresses();
     }
 }
@@ -96,8 +96,9 @@ public class DynamicTypePropagation {
         long start = System.currentTimeMillis();
 
         // transfer final data types in memory
-        log.info(semantics.getUsedAddresses().size() + " accesed memory locations");
-        for (long addr : semantics.getUsedAddresses()) {
+        long[] used = semantics.getUsedAddresses();
+        log.info(used.length + " accesed memory locations");
+        for (long addr : used) {
             long bits = semantics.resolveMemory(addr, laststep);
             VariableType vartype = VariableType.resolve(bits, info.getPointerSize());
             if (vartype != null && !VariableType.UNKNOWN.equals(vartype) && !VariableType.CONFLICT.equals(vartype)) {
@@ -235,7 +236,8 @@ public class DynamicTypePropagation {
                 }
 
                 // process first step
-                for (Node n : sym.visits) {
+                for (int i = 0; i < sym.getVisitCount(); i++) {
+                    Node n = trc.getInstruction(sym.getVisit(i));
                     if (n instanceof StepEvent) {
                         StepEvent step = (StepEvent) n;
                         setPrototype(sym, cc, step, trc);
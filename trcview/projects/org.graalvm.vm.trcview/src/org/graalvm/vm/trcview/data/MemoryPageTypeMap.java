@@ -1,7 +1,6 @@
 package org.graalvm.vm.trcview.data;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -10,17 +9,25 @@ import org.graalvm.vm.trcview.data.type.VariableType;
 
 public class MemoryPageTypeMap {
     private final List<TypedMemoryCell>[] memory;
+    // bitmap of the offsets which have at least one cell; cells are never removed
+    private final long[] used;
 
     @SuppressWarnings("unchecked")
     public MemoryPageTypeMap(int size) {
         memory = new ArrayList[size];
+        used = new long[(size + 63) / 64];
     }
 
-    public void step(int offset, long step) {
+    private void add(int offset, TypedMemoryCell cell) {
         if (memory[offset] == null) {
             memory[offset] = new ArrayList<>();
         }
-        memory[offset].add(new TypedMemoryCell(step));
+        memory[offset].add(cell);
+        used[offset >> 6] |= 1L << offset;
+    }
+
+    public void step(int offset, long step) {
+        add(offset, new TypedMemoryCell(step));
     }
 
     public long getStep(int offset) {
@@ -28,12 +35,9 @@ public class MemoryPageTypeMap {
     }
 
     private TypedMemoryCell last(int offset) {
-        if (memory[offset] == null) {
-            memory[offset] = new ArrayList<>();
-        }
-        if (memory[offset].isEmpty()) {
+        if (memory[offset] == null || memory[offset].isEmpty()) {
             TypedMemoryCell cell = new TypedMemoryCell(0);
-            memory[offset].add(cell);
+            add(offset, cell);
             return cell;
         } else {
             return memory[offset].get(memory[offset].size() - 1);
@@ -44,11 +48,7 @@ public class MemoryPageTypeMap {
         if (memory[offset] == null || memory[offset].isEmpty()) {
             if (write) {
                 // allocate memory cell if it doesn't exist already
-                if (memory[offset] == null) {
-                    memory[offset] = new ArrayList<>();
-                }
-                TypedMemoryCell cell = new TypedMemoryCell(0);
-                memory[offset].add(cell);
+                add(offset, new TypedMemoryCell(0));
             } else {
                 return new TypedMemoryCell(0);
             }
@@ -123,18 +123,19 @@ public class MemoryPageTypeMap {
 
     public int[] getUsedOffsets() {
         int n = 0;
-        int[] used = new int[memory.length];
-
-        for (int i = 0; i < memory.length; i++) {
-            if (memory[i] != null && !memory[i].isEmpty()) {
-                used[n++] = i;
-            }
+        for (long word : used) {
+            n += Long.bitCount(word);
         }
 
-        if (n == 0) {
-            return new int[0];
-        } else {
-            return Arrays.copyOf(used, n);
+        int[] result = new int[n];
+        int idx = 0;
+        for (int i = 0; i < used.length; i++) {
+            long word = used[i];
+            while (word != 0) {
+                result[idx++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
         }
+        return result;
     }
 }
@@ -1,6 +1,6 @@
 package org.graalvm.vm.trcview.data;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Set;
@@ -12,6 +12,10 @@ import org.graalvm.vm.trcview.data.type.VariableType;
 public class MemoryTypeMap {
     private final NavigableMap<Long, MemoryPageTypeMap> pages = new TreeMap<>();
 
+    // most accesses hit the same page as the previous access
+    private long lastBase = -1;
+    private MemoryPageTypeMap lastPage = null;
+
     private MemoryPageTypeMap getPage(long pc) {
         long addr = getBase(pc);
         return pages.get(addr);
@@ -26,11 +30,17 @@ public class MemoryTypeMap {
     }
 
     private MemoryPageTypeMap getMap(long addr) {
+        long base = getBase(addr);
+        if (lastPage != null && base == lastBase) {
+            return lastPage;
+        }
         MemoryPageTypeMap map = getPage(addr);
         if (map == null) {
             map = new MemoryPageTypeMap(4096);
-            pages.put(getBase(addr), map);
+            pages.put(base, map);
         }
+        lastBase = base;
+        lastPage = map;
         return map;
     }
 
@@ -110,15 +120,22 @@ public class MemoryTypeMap {
         getMap(addr).setBit(getOffset(addr), bit);
     }
 
-    public Set<Long> getUsedAddresses() {
-        Set<Long> result = new HashSet<>();
+    /**
+     * Get all addresses which have type information, in ascending order.
+     */
+    public long[] getUsedAddresses() {
+        long[] result = new long[64];
+        int n = 0;
         for (Entry<Long, MemoryPageTypeMap> entry : pages.entrySet()) {
             int[] offsets = entry.getValue().getUsedOffsets();
             long base = entry.getKey();
+            if (n + offsets.length > result.length) {
+                result = Arrays.copyOf(result, Math.max(result.length * 2, n + offsets.length));
+            }
             for (int offset : offsets) {
-                result.add(base + offset);
+                result[n++] = base + offset;
             }
         }
-        return result;
+        return Arrays.copyOf(result, n);
     }
 }
@@ -259,7 +259,7 @@ public class SemanticInfo extends Semantics {
     }
 
     @Override
-    public Set<Long> getUsedAddresses() {
+    public long[] getUsedAddresses() {
         return null;
     }
 
@@ -83,5 +83,5 @@ public abstract class Semantics {
 
     public abstract long[] getDataWrites(long addr);
 
-    public abstract Set<Long> getUsedAddresses();
+    public abstract long[] getUsedAddresses();
 }
@@ -230,7 +230,11 @@ public class StaticTypePropagation {
         Set<Long> steps = new HashSet<>();
         for (ComputedSymbol sym : trc.getSymbols()) {
             if (sym.prototype != null) {
-                for (Node visit : sym.visits) {
+                for (long insn : sym.getVisits()) {
+                    Node visit = trc.getInstruction(insn);
+                    if (visit == null) {
+                        continue;
+                    }
                     StepEvent step = getStep(visit);
                     steps.add(step.getStep());
                     propagate(sym.prototype, step.getState());
@@ -0,0 +1,8 @@
+package org.graalvm.vm.trcview.expression;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+
+@FunctionalInterface
+public interface CompiledExpression {
+    long evaluate(CpuState state) throws EvaluationException;
+}
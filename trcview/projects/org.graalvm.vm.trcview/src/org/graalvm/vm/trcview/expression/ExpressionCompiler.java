@@ -0,0 +1,425 @@
+package org.graalvm.vm.trcview.expression;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.expression.ast.AddNode;
+import org.graalvm.vm.trcview.expression.ast.AndNode;
+import org.graalvm.vm.trcview.expression.ast.CallNode;
+import org.graalvm.vm.trcview.expression.ast.DivNode;
+import org.graalvm.vm.trcview.expression.ast.EqNode;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.expression.ast.GeNode;
+import org.graalvm.vm.trcview.expression.ast.GtNode;
+import org.graalvm.vm.trcview.expression.ast.InvNode;
+import org.graalvm.vm.trcview.expression.ast.LeNode;
+import org.graalvm.vm.trcview.expression.ast.LogicAndNode;
+import org.graalvm.vm.trcview.expression.ast.LogicOrNode;
+import org.graalvm.vm.trcview.expression.ast.LtNode;
+import org.graalvm.vm.trcview.expression.ast.MulNode;
+import org.graalvm.vm.trcview.expression.ast.NeNode;
+import org.graalvm.vm.trcview.expression.ast.NegNode;
+import org.graalvm.vm.trcview.expression.ast.NotNode;
+import org.graalvm.vm.trcview.expression.ast.OrNode;
+import org.graalvm.vm.trcview.expression.ast.SarNode;
+import org.graalvm.vm.trcview.expression.ast.ShlNode;
+import org.graalvm.vm.trcview.expression.ast.ShrNode;
+import org.graalvm.vm.trcview.expression.ast.SubNode;
+import org.graalvm.vm.trcview.expression.ast.ValueNode;
+import org.graalvm.vm.trcview.expression.ast.VariableNode;
+import org.graalvm.vm.trcview.expression.ast.XorNode;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.util.HexFormatter;
+
+/**
+ * Translates an expression AST into a tree of closures. Everything that only depends on the trace
+ * (constants, register ids, byte order, the called function) is resolved once at compile time, so
+ * evaluating the result on many steps only does the actual arithmetic and memory reads.
+ */
+public class ExpressionCompiler {
+    private final TraceAnalyzer trc;
+    private final Architecture arch;
+    private final Map<String, Long> constants;
+    private final boolean be;
+
+    public ExpressionCompiler(TraceAnalyzer trc) {
+        this(trc, Collections.emptyMap());
+    }
+
+    public ExpressionCompiler(TraceAnalyzer trc, Map<String, Long> constants) {
+        this.trc = trc;
+        this.arch = trc != null ? trc.getArchitecture() : null;
+        this.constants = constants;
+        this.be = arch != null && arch.getFormat().be;
+    }
+
+    public CompiledExpression compile(Expression expr) throws EvaluationException {
+        if (expr instanceof ValueNode) {
+            long value = ((ValueNode) expr).value;
+            return s -> value;
+        } else if (expr instanceof VariableNode) {
+            return compileVariable(((VariableNode) expr).name);
+        } else if (expr instanceof CallNode) {
+            CallNode call = (CallNode) expr;
+            return compileCall(call.name, call.args);
+        } else if (expr instanceof NegNode) {
+            CompiledExpression c = compile(((NegNode) expr).child);
+            return s -> -c.evaluate(s);
+        } else if (expr instanceof NotNode) {
+            CompiledExpression c = compile(((NotNode) expr).child);
+            return s -> c.evaluate(s) == 0 ? 1 : 0;
+        } else if (expr instanceof InvNode) {
+            CompiledExpression c = compile(((InvNode) expr).child);
+            return s -> ~c.evaluate(s);
+        } else if (expr instanceof AddNode) {
+            AddNode n = (AddNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) + r.evaluate(s);
+        } else if (expr instanceof SubNode) {
+            SubNode n = (SubNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) - r.evaluate(s);
+        } else if (expr instanceof MulNode) {
+            MulNode n = (MulNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) * r.evaluate(s);
+        } else if (expr instanceof DivNode) {
+            DivNode n = (DivNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) / r.evaluate(s);
+        } else if (expr instanceof AndNode) {
+            AndNode n = (AndNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) & r.evaluate(s);
+        } else if (expr instanceof OrNode) {
+            OrNode n = (OrNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) | r.evaluate(s);
+        } else if (expr instanceof XorNode) {
+            XorNode n = (XorNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) ^ r.evaluate(s);
+        } else if (expr instanceof ShlNode) {
+            ShlNode n = (ShlNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) << r.evaluate(s);
+        } else if (expr instanceof ShrNode) {
+            ShrNode n = (ShrNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) >>> r.evaluate(s);
+        } else if (expr instanceof SarNode) {
+            SarNode n = (SarNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) >> r.evaluate(s);
+        } else if (expr instanceof EqNode) {
+            EqNode n = (EqNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) == r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof NeNode) {
+            NeNode n = (NeNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) != r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof LtNode) {
+            LtNode n = (LtNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) < r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof LeNode) {
+            LeNode n = (LeNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) <= r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof GtNode) {
+            GtNode n = (GtNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) > r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof GeNode) {
+            GeNode n = (GeNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) >= r.evaluate(s) ? 1 : 0;
+        } else if (expr instanceof LogicAndNode) {
+            LogicAndNode n = (LogicAndNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) != 0 && r.evaluate(s) != 0 ? 1 : 0;
+        } else if (expr instanceof LogicOrNode) {
+            LogicOrNode n = (LogicOrNode) expr;
+            CompiledExpression l = compile(n.left);
+            CompiledExpression r = compile(n.right);
+            return s -> l.evaluate(s) != 0 || r.evaluate(s) != 0 ? 1 : 0;
+        } else {
+            throw new EvaluationException("cannot compile " + expr);
+        }
+    }
+
+    private CompiledExpression compileVariable(String name) {
+        Long val = constants.get(name);
+        if (val != null) {
+            long value = val;
+            return s -> value;
+        }
+
+        if (arch != null) {
+            int id = arch.getRegisterId(name);
+            if (id >= 0) {
+                return s -> s.getRegisterById(id);
+            }
+        }
+
+        return new VariableAccess(name);
+    }
+
+    private CompiledExpression compileCall(String name, List<Expression> args) throws EvaluationException {
+        switch (name) {
+            case "if":
+            case "ite": {
+                checkArity(3, args);
+                CompiledExpression cond = compile(args.get(0));
+                CompiledExpression t = compile(args.get(1));
+                CompiledExpression f = compile(args.get(2));
+                return s -> cond.evaluate(s) != 0 ? t.evaluate(s) : f.evaluate(s);
+            }
+            case "getI8":
+                return load(args, 1, true, false);
+            case "getU8":
+                return load(args, 1, false, false);
+            case "getI16L":
+            case "getI16LE":
+                return load(args, 2, true, false);
+            case "getU16L":
+            case "getU16LE":
+                return load(args, 2, false, false);
+            case "getI32L":
+            case "getI32LE":
+                return load(args, 4, true, false);
+            case "getU32L":
+            case "getU32LE":
+                return load(args, 4, false, false);
+            case "getI64L":
+            case "getU64L":
+            case "getI64LE":
+            case "getU64LE":
+                return load(args, 8, true, false);
+            case "getI16B":
+            case "getI16BE":
+                return load(args, 2, true, true);
+            case "getU16B":
+            case "getU16BE":
+                return load(args, 2, false, true);
+            case "getI32B":
+            case "getI32BE":
+                return load(args, 4, true, true);
+            case "getU32B":
+            case "getU32BE":
+                return load(args, 4, false, true);
+            case "getI64B":
+            case "getU64B":
+            case "getI64BE":
+            case "getU64BE":
+                return load(args, 8, true, true);
+            case "getI16":
+                return load(args, 2, true, be);
+            case "getU16":
+                return load(args, 2, false, be);
+            case "getI32":
+                return load(args, 4, true, be);
+            case "getU32":
+                return load(args, 4, false, be);
+            case "getI64":
+            case "getU64":
+                return load(args, 8, true, be);
+            case "bswap16": {
+                checkArity(1, args);
+                CompiledExpression c = compile(args.get(0));
+                return s -> Short.toUnsignedLong(Short.reverseBytes((short) c.evaluate(s)));
+            }
+            case "bswap32": {
+                checkArity(1, args);
+                CompiledExpression c = compile(args.get(0));
+                return s -> Integer.toUnsignedLong(Integer.reverseBytes((int) c.evaluate(s)));
+            }
+            case "bswap64": {
+                checkArity(1, args);
+                CompiledExpression c = compile(args.get(0));
+                return s -> Long.reverseBytes(c.evaluate(s));
+            }
+            case "getMem":
+            case "getUMem": {
+                checkArity(2, args);
+                CompiledExpression addr = compile(args.get(0));
+                if (args.get(1) instanceof ValueNode) {
+                    long size = ((ValueNode) args.get(1)).value;
+                    if (size != 1 && size != 2 && size != 4 && size != 8) {
+                        throw new EvaluationException("invalid data size: " + size);
+                    }
+                    return load(addr, (int) size, false, be);
+                }
+                CompiledExpression size = compile(args.get(1));
+                CompiledExpression u8 = load(addr, 1, false, be);
+                CompiledExpression u16 = load(addr, 2, false, be);
+                CompiledExpression u32 = load(addr, 4, false, be);
+                CompiledExpression u64 = load(addr, 8, false, be);
+                return s -> {
+                    long sz = size.evaluate(s);
+                    if (sz < 1 || sz > 8) {
+                        throw new EvaluationException("invalid data size: " + sz);
+                    }
+                    switch ((int) sz) {
+                        case 1:
+                            return u8.evaluate(s);
+                        case 2:
+                            return u16.evaluate(s);
+                        case 4:
+                            return u32.evaluate(s);
+                        case 8:
+                            return u64.evaluate(s);
+                        default:
+                            throw new EvaluationException("invalid data size: " + sz);
+                    }
+                };
+            }
+            default:
+                throw new EvaluationException("not implemented: " + name);
+        }
+    }
+
+    private static void checkArity(int expected, List<Expression> args) throws ArityException {
+        if (args.size() != expected) {
+            throw new ArityException(expected, args.size());
+        }
+    }
+
+    private CompiledExpression load(List<Expression> args, int size, boolean signed, boolean swap) throws EvaluationException {
+        checkArity(1, args);
+        return load(compile(args.get(0)), size, signed, swap);
+    }
+
+    private CompiledExpression load(CompiledExpression addr, int size, boolean signed, boolean swap) {
+        switch (size) {
+            case 1:
+                if (signed) {
+                    return s -> getI8(addr.evaluate(s), s);
+                } else {
+                    return s -> Byte.toUnsignedLong(getI8(addr.evaluate(s), s));
+                }
+            case 2:
+                if (swap) {
+                    if (signed) {
+                        return s -> Short.reverseBytes((short) getI64(addr.evaluate(s), s));
+                    } else {
+                        return s -> Short.toUnsignedLong(Short.reverseBytes((short) getI64(addr.evaluate(s), s)));
+                    }
+                } else {
+                    if (signed) {
+                        return s -> (short) getI64(addr.evaluate(s), s);
+                    } else {
+                        return s -> Short.toUnsignedLong((short) getI64(addr.evaluate(s), s));
+                    }
+                }
+            case 4:
+                if (swap) {
+                    if (signed) {
+                        return s -> Integer.reverseBytes((int) getI64(addr.evaluate(s), s));
+                    } else {
+                        return s -> Integer.toUnsignedLong(Integer.reverseBytes((int) getI64(addr.evaluate(s), s)));
+                    }
+                } else {
+                    if (signed) {
+                        return s -> (int) getI64(addr.evaluate(s), s);
+                    } else {
+                        return s -> Integer.toUnsignedLong((int) getI64(addr.evaluate(s), s));
+                    }
+                }
+            case 8:
+                if (swap) {
+                    return s -> Long.reverseBytes(getI64(addr.evaluate(s), s));
+                } else {
+                    return s -> getI64(addr.evaluate(s), s);
+                }
+            default:
+                throw new IllegalArgumentException("invalid data size: " + size);
+        }
+    }
+
+    private byte getI8(long address, CpuState state) throws EvaluationException {
+        try {
+            return trc.getI8(address, state.getStep());
+        } catch (MemoryNotMappedException e) {
+            throw new EvaluationException("memory not mapped at 0x" + HexFormatter.tohex(address, 16));
+        }
+    }
+
+    private long getI64(long address, CpuState state) throws EvaluationException {
+        try {
+            return trc.getI64(address, state.getStep());
+        } catch (MemoryNotMappedException e) {
+            throw new EvaluationException("memory not mapped at 0x" + HexFormatter.tohex(address, 16));
+        }
+    }
+
+    /**
+     * Variable which is neither a constant nor a register with a known id. Whether it names a
+     * register of the CPU state or a symbol is decided on the first evaluation and then reused, since
+     * the set of register names does not change within a trace.
+     */
+    private class VariableAccess implements CompiledExpression {
+        private static final int UNKNOWN = 0;
+        private static final int REGISTER = 1;
+        private static final int SYMBOL = 2;
+
+        private final String name;
+        private int kind = UNKNOWN;
+
+        VariableAccess(String name) {
+            this.name = name;
+        }
+
+        private long symbol() throws EvaluationException {
+            if (trc == null) {
+                throw new UnknownVariableException(name);
+            }
+            Long addr = trc.getExpressionSymbols().get(name);
+            if (addr == null) {
+                throw new UnknownVariableException(name);
+            }
+            return addr;
+        }
+
+        @Override
+        public long evaluate(CpuState state) throws EvaluationException {
+            switch (kind) {
+                case REGISTER:
+                    return state.get(name);
+                case SYMBOL:
+                    return symbol();
+                default:
+                    try {
+                        long value = state.get(name);
+                        kind = REGISTER;
+                        return value;
+                    } catch (IllegalArgumentException e) {
+                        kind = SYMBOL;
+                        return symbol();
+                    }
+            }
+        }
+    }
+}
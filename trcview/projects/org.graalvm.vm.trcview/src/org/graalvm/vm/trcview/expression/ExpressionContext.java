@@ -1,14 +1,10 @@
 package org.graalvm.vm.trcview.expression;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
-import org.graalvm.vm.posix.elf.Symbol;
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.arch.io.CpuState;
-import org.graalvm.vm.trcview.arch.io.StepFormat;
-import org.graalvm.vm.trcview.data.Variable;
 import org.graalvm.vm.trcview.net.TraceAnalyzer;
 
 public class ExpressionContext {
@@ -16,7 +12,7 @@ public class ExpressionContext {
     public final TraceAnalyzer trc;
     public final Map<String, Long> constants;
 
-    private Map<String, Long> symbols;
+    private ExpressionSymbols symbols;
 
     public ExpressionContext(CpuState state, TraceAnalyzer trc) {
         this.state = state;
@@ -32,26 +28,9 @@ public class ExpressionContext {
 
     public long resolve(String name) {
         if (symbols == null) {
-            // TODO: use some more global caching to avoid costly rebuilds of
-            // the symbol map
-            symbols = new HashMap<>();
-
-            for (Symbol sym : trc.getTraceSymbols().values()) {
-                symbols.put(sym.getName(), sym.getValue());
-            }
-
-            StepFormat fmt = trc.getArchitecture().getFormat();
-            for (Variable var : trc.getTypedMemory().getAllTypes()) {
-                symbols.put(var.getName(fmt), var.getAddress());
-            }
+            symbols = trc.getExpressionSymbols();
         }
-
-        Long addr = symbols.get(name);
-        if (addr != null) {
-            return addr;
-        }
-
-        throw new IllegalArgumentException("unknown symbol " + name);
+        return symbols.resolve(name);
     }
 
     public byte getI8(long address) throws MemoryNotMappedException {
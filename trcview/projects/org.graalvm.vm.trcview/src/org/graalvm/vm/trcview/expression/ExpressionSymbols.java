@@ -0,0 +1,63 @@
+package org.graalvm.vm.trcview.expression;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+import org.graalvm.vm.trcview.data.Variable;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+
+/**
+ * Symbol name to address map shared by all expressions evaluated on the same trace. The map is
+ * built lazily and dropped whenever a symbol or a typed memory name changes. Every trace owns one
+ * instance, see {@link TraceAnalyzer#getExpressionSymbols()}.
+ */
+public class ExpressionSymbols {
+    private final TraceAnalyzer trc;
+    private volatile Map<String, Long> symbols;
+
+    public ExpressionSymbols(TraceAnalyzer trc) {
+        this.trc = trc;
+        trc.addSymbolChangeListener(this::invalidate);
+        trc.addSymbolRenameListener(sym -> invalidate());
+        trc.getTypedMemory().addNameChangeListener(this::invalidate);
+    }
+
+    public void invalidate() {
+        symbols = null;
+    }
+
+    private Map<String, Long> build() {
+        Map<String, Long> result = new HashMap<>();
+
+        for (Symbol sym : trc.getTraceSymbols().values()) {
+            result.put(sym.getName(), sym.getValue());
+        }
+
+        StepFormat fmt = trc.getArchitecture().getFormat();
+        for (Variable var : trc.getTypedMemory().getAllTypes()) {
+            result.put(var.getName(fmt), var.getAddress());
+        }
+
+        return result;
+    }
+
+    public Long get(String name) {
+        Map<String, Long> map = symbols;
+        if (map == null) {
+            map = build();
+            symbols = map;
+        }
+        return map.get(name);
+    }
+
+    public long resolve(String name) {
+        Long addr = get(name);
+        if (addr != null) {
+            return addr;
+        }
+
+        throw new IllegalArgumentException("unknown symbol " + name);
+    }
+}
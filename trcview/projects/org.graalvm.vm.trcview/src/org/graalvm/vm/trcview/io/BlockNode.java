@@ -104,15 +104,49 @@ public class BlockNode extends Node implements Block {
         }
     }
 
+    /**
+     * Set the children without visiting them. The list is responsible for setting the parent of
+     * its elements, which allows lists that only load their elements on demand.
+     */
+    public void setLazyChildren(List<Node> children) {
+        this.children = children;
+    }
+
     public void add(Node child) {
         children.add(child);
         child.setParent(this);
     }
 
     public void trim() {
-        if (children != null && children instanceof ArrayList) {
+        if (children instanceof ArrayList) {
             ((ArrayList<?>) children).trimToSize();
+        } else if (children instanceof StoredNodeList) {
+            ((StoredNodeList) children).trim();
+        }
+    }
+
+    StoredNodeList getStoredNodes() {
+        if (children instanceof StoredNodeList) {
+            return (StoredNodeList) children;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Get the position of a child, or -1 if it is not a child of this block. Steps of a
+     * {@link StepStore} are found even if they were materialized again since they were obtained.
+     */
+    public int indexOf(Node node) {
+        if (children instanceof StoredNodeList) {
+            return children.indexOf(node);
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) == node) {
+                return i;
+            }
         }
+        return -1;
     }
 
     public boolean isInterrupt() {
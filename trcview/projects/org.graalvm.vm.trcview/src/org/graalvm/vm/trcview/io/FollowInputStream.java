@@ -0,0 +1,88 @@
+package org.graalvm.vm.trcview.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream over a file which is still being written. At the end of the file, the stream calls
+ * the idle handler and retries instead of returning EOF, until it is stopped. Partial records at
+ * the end of the file therefore simply block the reader until the writer completed them.
+ */
+public class FollowInputStream extends InputStream {
+    public static final long POLL_INTERVAL = 250;
+
+    private final InputStream in;
+    private final Runnable idle;
+    private volatile boolean stopped;
+
+    public FollowInputStream(InputStream in) {
+        this(in, FollowInputStream::sleep);
+    }
+
+    public FollowInputStream(InputStream in, Runnable idle) {
+        this.in = in;
+        this.idle = idle;
+        stopped = false;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop waiting for new data; the next read at the end of the file returns EOF.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            int b = in.read();
+            if (b != -1 || stopped) {
+                return b;
+            }
+            idle.run();
+            if (Thread.currentThread().isInterrupted()) {
+                stopped = true;
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            int n = in.read(b, off, len);
+            if (n > 0 || stopped) {
+                return n;
+            }
+            idle.run();
+            if (Thread.currentThread().isInterrupted()) {
+                stopped = true;
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopped = true;
+        in.close();
+    }
+}
@@ -0,0 +1,229 @@
+package org.graalvm.vm.trcview.io;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.vm.trcview.analysis.slice.ChunkStore;
+import org.graalvm.vm.trcview.analysis.slice.LongColumn;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepMaterializer;
+import org.graalvm.vm.trcview.net.protocol.LRUCache;
+import org.graalvm.vm.util.LongLongMap;
+
+/**
+ * Storage for the steps of a trace without one object per step. Every step is a fixed width record
+ * of {@link #RECORD_SIZE} longs: step, pc, tid and type, parent block, machine code reference, state
+ * reference and node id. The records are kept in chunks of a {@link ChunkStore}, so they are memory
+ * mapped from a temporary file once the heap budget ({@code trcview.steps.heap}, in MB) is used up.
+ * The machine code of an address is only stored again if it changed.
+ *
+ * {@link StepEvent} objects are created on demand by the {@link StepMaterializer} of the
+ * architecture and get the id and parent of the record. The most recently used ones are cached, as
+ * long as a step is cached the same object is returned.
+ */
+public class StepStore implements AutoCloseable {
+    public static final long DEFAULT_HEAP_LIMIT = 256; // MB
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    public static final long NONE = -1;
+
+    public static final int RECORD_SIZE = 7;
+
+    private static final int STEP = 0;
+    private static final int PC = 1;
+    private static final int INFO = 2;
+    private static final int PARENT = 3;
+    private static final int CODE = 4;
+    private static final int STATE = 5;
+    private static final int ID = 6;
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private static final InstructionType[] TYPES = InstructionType.values();
+
+    private final ChunkStore store;
+    private final StepMaterializer materializer;
+
+    private LongBuffer[] chunks;
+    private long size;
+
+    // machine code: length followed by the bytes, 8 per word
+    private final LongColumn codeHeap;
+    private final LongLongMap codeIndex;
+
+    private final List<BlockNode> blocks;
+
+    private final LRUCache<Long, StepEvent> cache;
+
+    public StepStore(StepMaterializer materializer) {
+        this(materializer, ChunkStore.getHeapLimit("trcview.steps.heap", DEFAULT_HEAP_LIMIT), DEFAULT_CACHE_SIZE);
+    }
+
+    public StepStore(StepMaterializer materializer, long heapLimit, int cacheSize) {
+        this.materializer = materializer;
+        store = new ChunkStore(heapLimit);
+        chunks = new LongBuffer[16];
+        size = 0;
+        codeHeap = new LongColumn(store);
+        codeIndex = new LongLongMap();
+        blocks = new ArrayList<>();
+        cache = new LRUCache<>(cacheSize);
+    }
+
+    public StepMaterializer getMaterializer() {
+        return materializer;
+    }
+
+    /**
+     * Register a block which is the parent of stored steps.
+     *
+     * @return the reference of the block for {@link #add}
+     */
+    public synchronized int addBlock(BlockNode block) {
+        blocks.add(block);
+        return blocks.size() - 1;
+    }
+
+    /**
+     * Add a step. The id of the step has to be assigned already.
+     *
+     * @return the index of the record
+     */
+    public synchronized long add(StepEvent step, int parent, long state) {
+        long index = size;
+        int chunk = (int) (index >>> CHUNK_SHIFT);
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = store.allocate(CHUNK_RECORDS * RECORD_SIZE);
+        }
+        LongBuffer buf = chunks[chunk];
+        int offset = (int) (index & CHUNK_MASK) * RECORD_SIZE;
+        buf.put(offset + STEP, step.getStep());
+        buf.put(offset + PC, step.getPC());
+        buf.put(offset + INFO, ((long) step.getTid() << 32) | step.getType().ordinal());
+        buf.put(offset + PARENT, parent);
+        buf.put(offset + CODE, storeCode(step.getPC(), step.getMachinecode()));
+        buf.put(offset + STATE, state);
+        buf.put(offset + ID, step.getId());
+        size++;
+        return index;
+    }
+
+    private long get(long index, int field) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(Long.toString(index));
+        }
+        LongBuffer buf = chunks[(int) (index >>> CHUNK_SHIFT)];
+        return buf.get((int) (index & CHUNK_MASK) * RECORD_SIZE + field);
+    }
+
+    private long storeCode(long pc, byte[] machinecode) {
+        if (machinecode == null) {
+            return NONE;
+        }
+        long ref = codeIndex.get(pc, NONE);
+        if (ref != NONE && equals(ref, machinecode)) {
+            return ref;
+        }
+        long offset = codeHeap.size();
+        codeHeap.add(machinecode.length);
+        for (int i = 0; i < machinecode.length; i += 8) {
+            long word = 0;
+            for (int j = 0; j < 8 && i + j < machinecode.length; j++) {
+                word |= (machinecode[i + j] & 0xFFL) << (j * 8);
+            }
+            codeHeap.add(word);
+        }
+        codeIndex.put(pc, offset);
+        return offset;
+    }
+
+    private boolean equals(long ref, byte[] machinecode) {
+        if (codeHeap.get(ref) != machinecode.length) {
+            return false;
+        }
+        for (int i = 0; i < machinecode.length; i++) {
+            if (getCodeByte(ref, i) != machinecode[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte getCodeByte(long ref, int i) {
+        return (byte) (codeHeap.get(ref + 1 + i / 8) >>> ((i % 8) * 8));
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long getStep(long index) {
+        return get(index, STEP);
+    }
+
+    public synchronized long getPC(long index) {
+        return get(index, PC);
+    }
+
+    public synchronized int getTid(long index) {
+        return (int) (get(index, INFO) >>> 32);
+    }
+
+    public synchronized InstructionType getType(long index) {
+        return TYPES[(int) (get(index, INFO) & 0xFF)];
+    }
+
+    public synchronized BlockNode getParent(long index) {
+        return blocks.get((int) get(index, PARENT));
+    }
+
+    public synchronized long getState(long index) {
+        return get(index, STATE);
+    }
+
+    public synchronized long getId(long index) {
+        return get(index, ID);
+    }
+
+    public synchronized byte[] getMachinecode(long index) {
+        long ref = get(index, CODE);
+        if (ref == NONE) {
+            return null;
+        }
+        byte[] result = new byte[(int) codeHeap.get(ref)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getCodeByte(ref, i);
+        }
+        return result;
+    }
+
+    /**
+     * Get the step event of a record.
+     */
+    public synchronized StepEvent get(long index) {
+        StepEvent evt = cache.get(index);
+        if (evt == null) {
+            evt = materializer.materialize(getTid(index), getStep(index), getPC(index), getType(index), getMachinecode(index), getState(index));
+            evt.setId(getId(index));
+            evt.setParent(getParent(index));
+            cache.put(index, evt);
+        }
+        return evt;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            cache.clear();
+        }
+        store.close();
+    }
+}
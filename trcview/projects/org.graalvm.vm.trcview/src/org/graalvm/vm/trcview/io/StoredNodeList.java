@@ -0,0 +1,149 @@
+package org.graalvm.vm.trcview.io;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+
+/**
+ * Children of a block whose steps are kept in a {@link StepStore}. Consecutive steps are stored as
+ * one range of record indices, only nodes which are not in the store (nested blocks, steps which
+ * cannot be materialized, ...) are kept as objects. Steps are materialized when they are accessed.
+ */
+public class StoredNodeList extends AbstractList<Node> {
+    private final StepStore store;
+    private final BlockNode block;
+    private final int ref;
+
+    // run i covers the positions [ends[i - 1], ends[i]) of the list; it is either the node nodes[i]
+    // or the records starting at starts[i]
+    private long[] starts = new long[4];
+    private int[] ends = new int[4];
+    private Node[] nodes = new Node[4];
+    private int runs = 0;
+
+    public StoredNodeList(StepStore store, BlockNode block) {
+        this.store = store;
+        this.block = block;
+        ref = store.addBlock(block);
+    }
+
+    private int getStart(int run) {
+        return run == 0 ? 0 : ends[run - 1];
+    }
+
+    private int getLength(int run) {
+        return ends[run] - getStart(run);
+    }
+
+    private void addRun(long start, Node node) {
+        if (runs == ends.length) {
+            int n = Math.max(runs * 2, 4);
+            starts = Arrays.copyOf(starts, n);
+            ends = Arrays.copyOf(ends, n);
+            nodes = Arrays.copyOf(nodes, n);
+        }
+        ends[runs] = getStart(runs) + 1;
+        starts[runs] = start;
+        nodes[runs] = node;
+        runs++;
+    }
+
+    /**
+     * Append a step as record of the store. The id of the step has to be assigned already.
+     */
+    public void addStep(StepEvent step, long state) {
+        long index = store.add(step, ref, state);
+        int last = runs - 1;
+        if (runs > 0 && nodes[last] == null && starts[last] + getLength(last) == index) {
+            ends[last]++;
+        } else {
+            addRun(index, null);
+        }
+    }
+
+    /**
+     * Append a node which is not in the store.
+     */
+    @Override
+    public boolean add(Node node) {
+        node.setParent(block);
+        addRun(StepStore.NONE, node);
+        return true;
+    }
+
+    /**
+     * Release unused capacity once the block is complete.
+     */
+    public void trim() {
+        starts = Arrays.copyOf(starts, runs);
+        ends = Arrays.copyOf(ends, runs);
+        nodes = Arrays.copyOf(nodes, runs);
+    }
+
+    /**
+     * Get the number of runs, i.e. the number of objects which are needed for the list.
+     */
+    public int getRunCount() {
+        return runs;
+    }
+
+    private int getRun(int index) {
+        int run = Arrays.binarySearch(ends, 0, runs, index);
+        return run < 0 ? -run - 1 : run + 1;
+    }
+
+    @Override
+    public Node get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        int run = getRun(index);
+        if (nodes[run] != null) {
+            return nodes[run];
+        }
+        return store.get(starts[run] + index - getStart(run));
+    }
+
+    /**
+     * Find a node without materializing the steps of the list. Stored steps are found by their
+     * step number, which ascends within a run.
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Node)) {
+            return -1;
+        }
+        for (int run = 0; run < runs; run++) {
+            if (nodes[run] != null) {
+                if (nodes[run] == o) {
+                    return getStart(run);
+                }
+            } else if (o instanceof StepEvent) {
+                StepEvent step = (StepEvent) o;
+                long lo = starts[run];
+                long hi = lo + getLength(run) - 1;
+                if (Long.compareUnsigned(step.getStep(), store.getStep(lo)) < 0 || Long.compareUnsigned(step.getStep(), store.getStep(hi)) > 0) {
+                    continue;
+                }
+                while (lo <= hi) {
+                    long mid = (lo + hi) >>> 1;
+                    int cmp = Long.compareUnsigned(store.getStep(mid), step.getStep());
+                    if (cmp < 0) {
+                        lo = mid + 1;
+                    } else if (cmp > 0) {
+                        hi = mid - 1;
+                    } else {
+                        return store.getPC(mid) == step.getPC() ? getStart(run) + (int) (mid - starts[run]) : -1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return runs == 0 ? 0 : ends[runs - 1];
+    }
+}
@@ -0,0 +1,306 @@
+package org.graalvm.vm.trcview.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.memory.ValueQuery;
+import org.graalvm.vm.trcview.analysis.memory.VirtualMemorySnapshot;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.type.DataType;
+import org.graalvm.vm.trcview.analysis.type.Field;
+import org.graalvm.vm.trcview.analysis.type.Struct;
+import org.graalvm.vm.trcview.analysis.type.UserDefinedType;
+import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+import org.graalvm.vm.trcview.data.TypedMemory;
+import org.graalvm.vm.trcview.data.Variable;
+import org.graalvm.vm.trcview.decode.DecoderUtils;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+
+/**
+ * Text and binary exports of an analyzed trace which do not need a user interface.
+ */
+public class TraceExporter {
+    /**
+     * Write the subroutines in the symbol file format which is read by "Load symbols".
+     */
+    public static void writeSymbols(TraceAnalyzer trc, PrintWriter out) {
+        Set<ComputedSymbol> symbols = trc.getSubroutines();
+        symbols.stream().sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(sym -> {
+            if (sym.prototype != null) {
+                out.printf("%x=%s\n", sym.address,
+                                TextSerializer.encode(sym.name, sym.prototype.returnType.toString(), String.join(", ", sym.prototype.getArgumentsAsString())));
+            } else {
+                out.printf("%x=%s\n", sym.address, TextSerializer.encode(sym.name));
+            }
+        });
+    }
+
+    /**
+     * Write the subroutines as binutils map ({@code nm} output) which can be loaded again.
+     */
+    public static void writeMap(TraceAnalyzer trc, PrintWriter out) {
+        Set<ComputedSymbol> symbols = trc.getSubroutines();
+        symbols.stream().sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(sym -> {
+            out.printf("%016x T %s\n", sym.address, sym.name);
+        });
+    }
+
+    /**
+     * Write an IDC script which defines functions, comments, data types and variables in IDA.
+     */
+    public static void writeIDC(TraceAnalyzer trc, PrintWriter out) {
+        out.println("// This file was generated by TRCView");
+        out.println();
+        out.println("#include <idc.idc>\n\n" +
+                        "static main(void) {");
+        out.println("\t// functions");
+        Set<ComputedSymbol> symbols = trc.getSubroutines();
+        symbols.stream().sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(sym -> {
+            out.printf("\tadd_func(0x%x);\n", sym.address);
+            if (!sym.name.startsWith("sub_") && !sym.name.startsWith("j_sub_")) {
+                out.printf("\tset_name(0x%x, %s, SN_NOWARN);\n", sym.address, DecoderUtils.str(sym.name));
+            }
+            if (sym.prototype != null) {
+                out.printf("\tSetType(0x%x, \"%s __fastcall %s(%s);\");\n", sym.address, sym.prototype.returnType.toCType(), sym.name,
+                                sym.prototype.args.stream().map(x -> x.toCType()).collect(Collectors.joining(", ")));
+            }
+        });
+        out.println();
+
+        out.println("\t// comments");
+        Map<Long, String> commentsPC = trc.getCommentsForPCs();
+        commentsPC.entrySet().stream().sorted((x, y) -> Long.compareUnsigned(x.getKey(), y.getKey())).forEach(comment -> {
+            out.printf("\tset_cmt(0x%x, %s, 0);\n", comment.getKey(), DecoderUtils.str(comment.getValue()));
+        });
+
+        out.println();
+        out.println("\t// data types");
+        UserTypeDatabase types = trc.getTypeDatabase();
+        if (!types.getTypes().isEmpty()) {
+            out.println("\tauto id;");
+            out.println("\tbegin_type_updating(UTP_STRUCT);");
+        }
+        for (UserDefinedType type : types.getTypes()) {
+            String name = type.getName();
+            if (type instanceof Struct) {
+                Struct struct = (Struct) type;
+                out.printf("\tid = add_struc(-1, %s, 0);\n", DecoderUtils.str(name));
+                for (Field field : struct.getFields()) {
+                    String fieldname = field.getName();
+                    long offset = field.getOffset();
+                    long size = field.getSize();
+                    List<String> flagConstants = new ArrayList<>();
+                    String typeid = "-1";
+                    switch (field.getType().getType()) {
+                        case S8:
+                        case U8:
+                            flagConstants.add("FF_BYTE");
+                            break;
+                        case S16:
+                        case U16:
+                        case FX16:
+                            flagConstants.add("FF_WORD");
+                            break;
+                        case S32:
+                        case U32:
+                        case FX32:
+                            flagConstants.add("FF_DWORD");
+                            break;
+                        case S64:
+                        case U64:
+                            flagConstants.add("FF_QWORD");
+                            break;
+                        case F32:
+                            flagConstants.add("FF_FLOAT");
+                            break;
+                        case F64:
+                            flagConstants.add("FF_DOUBLE");
+                            break;
+                        case STRUCT:
+                            flagConstants.add("FF_STRUCT");
+                            typeid = "get_struc_id(" + DecoderUtils.str(field.getType().getStruct().getName()) + ")";
+                            break;
+                    }
+                    switch (field.getType().getRepresentation()) {
+                        case CHAR:
+                            flagConstants.add("FF_0CHAR");
+                            break;
+                        case DEC:
+                            flagConstants.add("FF_0NUMD");
+                            break;
+                        case HEX:
+                        case FX16:
+                        case FX32:
+                            flagConstants.add("FF_0NUMH");
+                            break;
+                        case OCT:
+                            flagConstants.add("FF_0NUMO");
+                            break;
+                        case FLOAT:
+                            flagConstants.add("FF_0FLT");
+                            break;
+                    }
+                    flagConstants.add("FF_DATA");
+                    String flags = String.join("|", flagConstants);
+                    out.printf("\tadd_struc_member(id, %s, 0x%x, %s, %s, %s);\n", DecoderUtils.str(fieldname), offset, flags, typeid, size);
+                }
+            }
+        }
+        if (!types.getTypes().isEmpty()) {
+            out.println("\tend_type_updating(UTP_STRUCT);");
+
+            out.println();
+            out.println("\t// struct field types");
+            for (UserDefinedType type : types.getTypes()) {
+                String name = type.getName();
+                if (type instanceof Struct) {
+                    out.printf("\tid = get_struc_id(%s);\n", DecoderUtils.str(name));
+                    Struct struct = (Struct) type;
+                    for (Field field : struct.getFields()) {
+                        if (field.getType() != null && field.getType().getType() != DataType.CODE) {
+                            out.printf("\tSetType(get_member_id(id, 0x%x), %s);\n", field.getOffset(), DecoderUtils.str(field.getType().toCType()));
+                        }
+                    }
+                }
+            }
+        }
+
+        out.println();
+        out.println("\t// variables");
+        TypedMemory mem = trc.getTypedMemory();
+        for (Variable var : mem.getAllTypes()) {
+            String name = var.getRawName();
+            if (name != null) {
+                out.printf("\tset_name(0x%x, %s, SN_NOWARN);\n", var.getAddress(), DecoderUtils.str(name));
+            }
+
+            if (var.getType() != null && var.getType().getType() != DataType.CODE) {
+                out.printf("\tSetType(0x%x, %s);\n", var.getAddress(), DecoderUtils.str(var.getType().toCType()));
+            } else if (var.getType() != null && var.getType().getType() == DataType.CODE) {
+                out.printf("\tcreate_insn(0x%x);\n", var.getAddress());
+            }
+        }
+
+        out.println("}");
+    }
+
+    /**
+     * Write all system calls with step number, thread, PC and the decoded call.
+     */
+    public static void writeSyscalls(TraceAnalyzer trc, PrintWriter out) {
+        StepFormat format = trc.getArchitecture().getFormat();
+        for (Node node : trc.getSyscalls()) {
+            StepEvent step = getStep(node);
+            Node nn = trc.getNextStep(node);
+            StepEvent next = null;
+            if (nn instanceof StepEvent) {
+                next = (StepEvent) nn;
+            } else if (nn instanceof BlockNode) {
+                next = ((BlockNode) nn).getHead();
+                if (next == null) {
+                    next = ((BlockNode) nn).getFirstStep();
+                }
+            }
+            CpuState ns = next == null ? null : next.getState();
+            String decoded = trc.getArchitecture().getSyscallDecoder().decode(step.getState(), ns, trc);
+            if (decoded == null) {
+                decoded = step.getDisassembly().replace('\t', ' ');
+            }
+            out.printf("%d\t%d\t%s\t%s\n", step.getStep(), step.getTid(), format.formatAddress(step.getPC()), decoded);
+        }
+    }
+
+    private static StepEvent getStep(Node node) {
+        if (node instanceof StepEvent) {
+            return (StepEvent) node;
+        } else if (node instanceof BlockNode) {
+            BlockNode block = (BlockNode) node;
+            if (block.isInterrupt()) {
+                return block.getFirstStep();
+            } else {
+                return block.getHead();
+            }
+        } else {
+            throw new IllegalArgumentException("not a StepEvent/BlockNode");
+        }
+    }
+
+    /**
+     * Write the flat profile with the columns of the profile window, sorted by exclusive steps.
+     */
+    public static void writeProfile(TraceAnalyzer trc, PrintWriter out) {
+        Profile profile = trc.getProfile();
+        StepFormat format = trc.getArchitecture().getFormat();
+        long total = profile.getSteps();
+        out.printf("# %d functions, %d steps\n", profile.getFunctions().length, total);
+        out.println("# address\tfunction\tcalls\tinclusive\texclusive\texclusive %");
+        long[] functions = profile.getFunctions();
+        List<Long> sorted = new ArrayList<>(functions.length);
+        for (long pc : functions) {
+            sorted.add(pc);
+        }
+        sorted.sort((a, b) -> Long.compare(profile.getExclusiveSteps(b), profile.getExclusiveSteps(a)));
+        for (long pc : sorted) {
+            ComputedSymbol sym = trc.getComputedSymbol(pc);
+            double percent = total == 0 ? 0.0 : Math.round(profile.getExclusiveSteps(pc) * 10000.0 / total) / 100.0;
+            out.printf("%s\t%s\t%d\t%d\t%d\t%.2f\n", format.formatAddress(pc), sym != null ? sym.name : "", profile.getCallCount(pc), profile.getInclusiveSteps(pc),
+                            profile.getExclusiveSteps(pc), percent);
+        }
+    }
+
+    /**
+     * Write the profile as collapsed stacks, using symbol names where available.
+     */
+    public static void writeCollapsedStacks(TraceAnalyzer trc, PrintWriter out) {
+        StepFormat format = trc.getArchitecture().getFormat();
+        trc.getProfile().writeCollapsedStacks(out, pc -> {
+            ComputedSymbol sym = trc.getComputedSymbol(pc);
+            return sym != null ? sym.name : format.formatAddress(pc);
+        });
+    }
+
+    /**
+     * Write all writes which match {@code query} in step order.
+     */
+    public static void writeValueWrites(TraceAnalyzer trc, ValueQuery query, PrintWriter out) {
+        StepFormat format = trc.getArchitecture().getFormat();
+        List<MemoryUpdate> writes = trc.findWrites(query.value, query.mask, query.size, 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+        out.printf("# %d writes of %s\n", writes.size(), query);
+        out.println("# step\ttid\tpc\taddress\tsize\tvalue");
+        for (MemoryUpdate write : writes) {
+            int tid = write.node != null ? write.node.getTid() : 0;
+            String pc = write.step != null ? format.formatAddress(write.step.getPC()) : "-";
+            out.printf("%d\t%d\t%s\t%s\t%d\t%x\n", write.instructionCount, tid, pc, format.formatAddress(write.address), write.size, write.value);
+        }
+    }
+
+    /**
+     * Write the memory range {@code [start, end)} as raw bytes. Unmapped bytes are written as 0 if
+     * {@code ignoreUnmapped} is set.
+     */
+    public static void writeMemory(VirtualMemorySnapshot memory, long start, long end, boolean ignoreUnmapped, OutputStream out) throws IOException, MemoryNotMappedException {
+        for (long ptr = start; ptr < end; ptr++) {
+            byte b = 0;
+            try {
+                b = memory.getI8(ptr);
+            } catch (MemoryNotMappedException e) {
+                if (!ignoreUnmapped) {
+                    throw e;
+                }
+            }
+            out.write(b);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.graalvm.vm.trcview.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.EofEvent;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.io.TraceReader;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Parses a trace file while it is still being written.
+ *
+ * Reading and parsing happen on a worker thread which only runs while the owner thread (usually
+ * the event dispatch thread) is blocked in {@link #step()}. The call tree and the analysis results
+ * are therefore never modified while the owner looks at them, but the owner is never blocked
+ * longer than one time slice, also not if the worker waits for new data in the middle of a
+ * record.
+ */
+public class TraceFollower {
+    private static final Logger log = Trace.create(TraceFollower.class);
+
+    public static final long DEFAULT_SLICE = 50;
+
+    private static final int CHECK_INTERVAL = 256;
+
+    private final File file;
+    private final FollowInputStream stream;
+    private final Semaphore worker;
+    private final Semaphore owner;
+    private final long slice;
+
+    private Thread thread;
+    private TraceReader reader;
+    private Analysis analysis;
+    private TraceParser parser;
+    private Map<Integer, BlockNode> threads;
+
+    private long deadline;
+    private long events;
+    private volatile boolean finished;
+    private Throwable error;
+
+    public TraceFollower(File file) throws IOException {
+        this(file, DEFAULT_SLICE);
+    }
+
+    public TraceFollower(File file, long slice) throws IOException {
+        this.file = file;
+        this.slice = slice * 1_000_000L;
+        worker = new Semaphore(0);
+        owner = new Semaphore(0);
+        stream = new FollowInputStream(new FileInputStream(file), this::pause);
+        events = 0;
+        finished = false;
+    }
+
+    // called on the worker thread: give control back to the owner and wait for the next slice
+    private void pause() {
+        owner.release();
+        worker.acquireUninterruptibly();
+    }
+
+    /**
+     * Start the worker thread. The analysis is created by {@code factory} on the worker thread as
+     * soon as the trace header is available.
+     */
+    public void start(Function<TraceReader, Analysis> factory) {
+        thread = new Thread(() -> run(factory), "trace-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(Function<TraceReader, Analysis> factory) {
+        worker.acquireUninterruptibly();
+        try (InputStream in = new BufferedInputStream(stream)) {
+            reader = new TraceFileReader(in);
+            analysis = factory.apply(reader);
+            analysis.start();
+            parser = TraceParser.create(reader, analysis, null);
+
+            Event evt;
+            int cnt = 0;
+            while ((evt = reader.read()) != null) {
+                parser.process(evt);
+                events++;
+                if (evt instanceof EofEvent) {
+                    log.log(Levels.INFO, "End of trace reached");
+                    stream.stop();
+                }
+                if (++cnt == CHECK_INTERVAL) {
+                    cnt = 0;
+                    if (System.nanoTime() - deadline > 0) {
+                        pause();
+                    }
+                }
+            }
+
+            threads = parser.finish();
+            BlockNode root = getRoot(threads);
+            if (root != null) {
+                analysis.finish(root);
+            }
+        } catch (Throwable t) {
+            log.log(Levels.WARNING, "Following " + file + " failed: " + t, t);
+            error = t;
+        } finally {
+            finished = true;
+            owner.release();
+        }
+    }
+
+    /**
+     * Let the worker run for one time slice. Must always be called from the same thread.
+     *
+     * @return true if new events were processed
+     */
+    public boolean step() {
+        if (finished) {
+            return false;
+        }
+        long before = events;
+        deadline = System.nanoTime() + slice;
+        worker.release();
+        owner.acquireUninterruptibly();
+        return events != before || finished;
+    }
+
+    /**
+     * Stop waiting for new data. The trace is finished with the next {@link #step()} which hits
+     * the end of the file.
+     */
+    public void stop() {
+        stream.stop();
+    }
+
+    public boolean isStopped() {
+        return stream.isStopped();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getEventCount() {
+        return events;
+    }
+
+    /**
+     * Get the architecture of the trace, or null if the trace header was not read yet.
+     */
+    public Architecture getArchitecture() {
+        return reader == null ? null : reader.getArchitecture();
+    }
+
+    public Analysis getAnalysis() {
+        return analysis;
+    }
+
+    /**
+     * Get the root blocks of all threads seen so far.
+     */
+    public Map<Integer, BlockNode> getThreads() {
+        if (threads != null) {
+            return threads;
+        } else if (parser != null) {
+            return parser.getRoots();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Get the root block of the thread which executed the first step, or null if there is no step
+     * yet.
+     */
+    public BlockNode getRoot() {
+        Map<Integer, BlockNode> roots = getThreads();
+        return roots == null ? null : getRoot(roots);
+    }
+
+    private static BlockNode getRoot(Map<Integer, BlockNode> threads) {
+        BlockNode root = null;
+        for (BlockNode block : threads.values()) {
+            if (block.getFirstStep() == null) {
+                continue;
+            }
+            if (root == null || block.getStep() < root.getStep()) {
+                root = block;
+            }
+        }
+        return root;
+    }
+}
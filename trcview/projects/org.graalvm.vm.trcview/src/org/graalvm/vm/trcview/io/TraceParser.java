@@ -2,6 +2,7 @@ package org.graalvm.vm.trcview.io;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -16,6 +17,7 @@ import org.graalvm.vm.trcview.arch.io.IncompleteTraceStep;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
 import org.graalvm.vm.trcview.arch.io.InterruptEvent;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepMaterializer;
 import org.graalvm.vm.trcview.arch.io.TraceReader;
 import org.graalvm.vm.util.log.Levels;
 import org.graalvm.vm.util.log.Trace;
@@ -32,10 +34,14 @@ public class TraceParser {
     private final boolean system;
     private final boolean stackedTraps;
 
+    private final StepMaterializer materializer;
+    private final StepStore store;
+
     private final ThreadContext[] threads;
     private long threadBits;
 
     private final Map<Integer, ThreadContext> threadsHigh;
+    private final Map<Integer, BlockNode> roots;
 
     private long cnt = 0;
 
@@ -50,6 +56,14 @@ public class TraceParser {
         system = in.getArchitecture().isSystemLevel();
         stackedTraps = in.getArchitecture().isStackedTraps();
 
+        materializer = in.getStepMaterializer();
+        if (materializer != null) {
+            store = new StepStore(materializer);
+            analysis.setStepStore(store);
+        } else {
+            store = null;
+        }
+
         threads = new ThreadContext[64];
         for (int i = 0; i < 64; i++) {
             threads[i] = new ThreadContext(i);
@@ -57,6 +71,7 @@ public class TraceParser {
         threadBits = 0;
 
         threadsHigh = new HashMap<>();
+        roots = new HashMap<>();
     }
 
     private Event readEvent() throws IOException {
@@ -72,12 +87,30 @@ public class TraceParser {
         private final int tid;
 
         private StepEvent lastStep = null;
-        private BlockNode parent = new BlockNode((StepEvent) null);
+        private BlockNode parent = stored(new BlockNode((StepEvent) null));
+        private final BlockNode root = parent;
+        private boolean visible = false;
 
         ThreadContext(int tid) {
             this.tid = tid;
         }
 
+        /**
+         * Add a step to the current block. Steps which the architecture can materialize again are
+         * only kept as record of the step store, the event itself is dropped after the analysis.
+         */
+        private void add(StepEvent step, CpuState state) {
+            long ref = store != null ? materializer.getStateReference(step) : StepMaterializer.NONE;
+            if (ref == StepMaterializer.NONE) {
+                parent.add(step);
+                analysis.process(step, step, state);
+            } else {
+                step.setParent(parent);
+                analysis.process(step, step, state);
+                parent.getStoredNodes().addStep(step, ref);
+            }
+        }
+
         private void ret() {
             parent.trim();
             if (parent.getNodes().isEmpty()) {
@@ -125,15 +158,14 @@ public class TraceParser {
                 CpuState state = getState(step);
                 if (step.getMachinecode() != null && (step.isCall() || (system && step.isSyscall()))) {
                     // call or syscall
-                    BlockNode block = new BlockNode(step);
+                    BlockNode block = stored(new BlockNode(step));
                     block.setHeadState(state);
                     parent.add(block);
                     parent = block;
                     analysis.process(step, block, state);
                 } else if (step.isReturn()) {
                     // return
-                    parent.add(step);
-                    analysis.process(step, step, state);
+                    add(step, state);
 
                     if (!system || stackedTraps || !parent.isInterrupt()) {
                         // RET can only return from traps if stacked traps are enabled
@@ -141,8 +173,7 @@ public class TraceParser {
                         ret();
                     }
                 } else if (system && step.isReturnFromSyscall()) {
-                    parent.add(step);
-                    analysis.process(step, step, state);
+                    add(step, state);
 
                     if (stackedTraps) {
                         analysis.processBlock(step, parent);
@@ -164,14 +195,13 @@ public class TraceParser {
                     }
                 } else {
                     // normal step event
-                    parent.add(step);
-                    analysis.process(step, step, state);
+                    add(step, state);
                 }
                 lastStep = step;
             } else if (evt instanceof InterruptEvent) {
                 InterruptEvent trap = (InterruptEvent) evt;
                 if (lastStep != null && lastStep.getType() != InstructionType.SYSCALL) {
-                    BlockNode block = new BlockNode(trap);
+                    BlockNode block = stored(new BlockNode(trap));
                     block.setHeadState(lastState);
                     parent.add(block);
                     parent = block;
@@ -184,6 +214,11 @@ public class TraceParser {
             } else { // memory events, device register events, ...
                 analysis.process(evt, evt, lastState);
             }
+
+            if (!visible && root.getFirstNode() != null) {
+                visible = true;
+                roots.put(tid, root);
+            }
         }
 
         private BlockNode get() {
@@ -194,6 +229,13 @@ public class TraceParser {
         }
     }
 
+    private BlockNode stored(BlockNode block) {
+        if (store != null) {
+            block.setLazyChildren(new StoredNodeList(store, block));
+        }
+        return block;
+    }
+
     private void read() throws IOException {
         Event evt;
         while ((evt = readEvent()) != null) {
@@ -201,7 +243,10 @@ public class TraceParser {
         }
     }
 
-    private void process(Event evt) {
+    /**
+     * Add a single event to the call tree. Used to parse a trace incrementally.
+     */
+    public void process(Event evt) {
         int tid = evt.getTid();
         if (tid >= 0 && tid < 64) {
             threadBits |= 1L << tid;
@@ -239,6 +284,27 @@ public class TraceParser {
         return result;
     }
 
+    /**
+     * Get the root blocks of all threads seen so far. The map is updated while events are
+     * processed, blocks which are still open are not modified.
+     */
+    public Map<Integer, BlockNode> getRoots() {
+        return Collections.unmodifiableMap(roots);
+    }
+
+    /**
+     * Finish an incremental parse.
+     *
+     * @return the root blocks of all threads
+     */
+    public Map<Integer, BlockNode> finish() {
+        return getThreads();
+    }
+
+    public static TraceParser create(TraceReader in, Analysis analysis, ProgressListener progress) {
+        return new TraceParser(in, analysis, progress);
+    }
+
     public static Map<Integer, BlockNode> parse(TraceReader in, Analysis analysis, ProgressListener progress) throws IOException {
         TraceParser parser = new TraceParser(in, analysis, progress);
         parser.read();
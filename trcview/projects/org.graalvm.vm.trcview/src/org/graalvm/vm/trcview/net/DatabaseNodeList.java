@@ -0,0 +1,68 @@
+package org.graalvm.vm.trcview.net;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+
+/**
+ * Children of a block of a {@link LocalDatabase}. Only the step numbers of the children are loaded
+ * when the list is used first; nodes are created when they are accessed and then kept, so that the
+ * same step is always represented by the same node.
+ */
+class DatabaseNodeList extends AbstractList<Node> {
+    private final LocalDatabase trc;
+    private final BlockNode block;
+    private final int tid;
+    private final long call;
+
+    private long[] steps;
+    private Node[] nodes;
+
+    DatabaseNodeList(LocalDatabase trc, BlockNode block, int tid, long call) {
+        this.trc = trc;
+        this.block = block;
+        this.tid = tid;
+        this.call = call;
+    }
+
+    private void load() {
+        if (steps == null) {
+            try {
+                steps = trc.getDatabase().getChildren(tid, call);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            nodes = new Node[steps.length];
+        }
+    }
+
+    /**
+     * Get the index of the child with step number {@code step}, or a negative value if there is no
+     * such child.
+     */
+    synchronized int indexOf(long step) {
+        load();
+        return Arrays.binarySearch(steps, step);
+    }
+
+    @Override
+    public synchronized Node get(int index) {
+        load();
+        if (nodes[index] == null) {
+            Node node = trc.createNode(steps[index]);
+            node.setParent(block);
+            nodes[index] = node;
+        }
+        return nodes[index];
+    }
+
+    @Override
+    public synchronized int size() {
+        load();
+        return steps.length;
+    }
+}
@@ -1,10 +1,12 @@
 package org.graalvm.vm.trcview.net;
 
 import java.awt.Color;
+import java.io.Closeable;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -21,32 +23,46 @@ import org.graalvm.vm.trcview.analysis.Search;
 import org.graalvm.vm.trcview.analysis.SymbolRenameListener;
 import org.graalvm.vm.trcview.analysis.SymbolTable;
 import org.graalvm.vm.trcview.analysis.device.Device;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
 import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
 import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
 import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.analysis.taint.TaintAnalyzer;
 import org.graalvm.vm.trcview.analysis.type.DefaultTypes;
 import org.graalvm.vm.trcview.analysis.type.Prototype;
 import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.io.CpuState;
 import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.data.ChainTarget;
 import org.graalvm.vm.trcview.data.CodeAnalyzer;
 import org.graalvm.vm.trcview.data.DynamicTypePropagation;
+import org.graalvm.vm.trcview.data.Semantics;
 import org.graalvm.vm.trcview.data.TypedMemory;
+import org.graalvm.vm.trcview.data.ir.RegisterOperand;
 import org.graalvm.vm.trcview.decode.ABI;
+import org.graalvm.vm.trcview.expression.CompiledExpression;
 import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionSymbols;
+import org.graalvm.vm.trcview.expression.ExpressionCompiler;
+import org.graalvm.vm.trcview.expression.ast.Expression;
 import org.graalvm.vm.trcview.info.Comments;
 import org.graalvm.vm.trcview.info.Expressions;
 import org.graalvm.vm.trcview.info.FormattedExpression;
 import org.graalvm.vm.trcview.info.Highlighter;
 import org.graalvm.vm.trcview.io.BlockNode;
 import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.io.StepStore;
 import org.graalvm.vm.trcview.ui.event.ChangeListener;
+import org.graalvm.vm.util.LongLongMap;
 import org.graalvm.vm.util.log.Trace;
 
-public class Local implements TraceAnalyzer {
+public class Local implements TraceAnalyzer, Closeable {
     private static final Logger log = Trace.create(TraceAnalyzer.class);
 
     private Architecture arch;
@@ -68,10 +84,25 @@ public class Local implements TraceAnalyzer {
     private ABI abi;
     private UserTypeDatabase types;
     private TypedMemory typedMemory;
+    private ExpressionSymbols expressionSymbols;
     private DynamicTypePropagation typeRecovery;
+    private DefUseIndex defuse;
+    private TaintAnalyzer taint;
+    private Profile profile;
+    private StepStore stepStore;
+    private LongLongMap unvisited;
     private boolean symbolize;
 
     public Local(Architecture arch, BlockNode root, Map<Integer, BlockNode> threads, Analysis analysis) {
+        this(arch, root, threads, analysis, true);
+    }
+
+    /**
+     * Create a trace analyzer. If {@code complete} is false, the trace is still being parsed; the
+     * results of the analyses which need the whole trace are transferred by
+     * {@link #finish(Analysis)}.
+     */
+    public Local(Architecture arch, BlockNode root, Map<Integer, BlockNode> threads, Analysis analysis, boolean complete) {
         this.arch = arch;
         this.root = root;
         this.threads = threads;
@@ -92,21 +123,64 @@ public class Local implements TraceAnalyzer {
         types = new UserTypeDatabase(arch.getTypeInfo());
         typedMemory = new TypedMemory();
         typeRecovery = analysis.getTypeRecovery();
+        defuse = analysis.getDefUseIndex();
+        taint = analysis.getTaintAnalyzer();
+        profile = analysis.getProfile();
+        stepStore = analysis.getStepStore();
+        unvisited = new LongLongMap();
+
+        // populate default types
+        DefaultTypes.populate(types, arch.getTypeInfo());
+        arch.addStandardTypes(types);
+
+        if (complete) {
+            transfer(analysis);
+        }
 
+        symbolize = false;
+    }
+
+    private void transfer(Analysis analysis) {
         CodeAnalyzer code = analysis.getCodeAnalyzer();
         if (code != null) {
             code.transfer(this);
         }
 
-        // populate default types
-        DefaultTypes.populate(types, arch.getTypeInfo());
-        arch.addStandardTypes(types);
-
         if (typeRecovery != null) {
             typeRecovery.transfer(this);
         }
+    }
 
-        symbolize = false;
+    /**
+     * Update the state which is not shared with the analysis of a trace which is still being
+     * parsed.
+     */
+    public void update(Analysis analysis) {
+        steps = analysis.getStepCount();
+    }
+
+    /**
+     * Called after a trace which was still being parsed is complete.
+     */
+    public void finish(Analysis analysis) {
+        update(analysis);
+        transfer(analysis);
+    }
+
+    /**
+     * Release the files of the step store, the def-use index and the taint analysis.
+     */
+    @Override
+    public void close() {
+        if (stepStore != null) {
+            stepStore.close();
+        }
+        if (defuse != null) {
+            defuse.close();
+        }
+        if (taint != null) {
+            taint.close();
+        }
     }
 
     @Override
@@ -179,21 +253,36 @@ public class Local implements TraceAnalyzer {
         symbols.addSubroutine(pc, name);
         ComputedSymbol sym = symbols.get(pc);
         sym.prototype = prototype;
+        if (!sym.hasVisits()) {
+            // visits of new symbols are collected by the next reanalyze()
+            unvisited.put(pc, 1);
+        }
     }
 
     private void analyzeBlock(BlockNode block) {
         for (Node node : block.getNodes()) {
-            symbols.visit(node);
             if (node instanceof BlockNode) {
-                analyzeBlock((BlockNode) node);
+                BlockNode child = (BlockNode) node;
+                if (child.getHead() != null && unvisited.containsKey(child.getHead().getPC())) {
+                    symbols.visit(node);
+                }
+                analyzeBlock(child);
+            } else if (node instanceof StepEvent && unvisited.containsKey(((StepEvent) node).getPC())) {
+                symbols.visit(node);
             }
         }
     }
 
     @Override
     public void reanalyze() {
-        getSymbols().forEach(ComputedSymbol::resetVisits);
-        analyzeBlock(root);
+        // visits of existing symbols never change, and renames do not affect visits at all. Only
+        // symbols which were added after the trace was loaded need a walk over the trace.
+        if (!unvisited.isEmpty()) {
+            for (BlockNode thread : threads.values()) {
+                analyzeBlock(thread);
+            }
+            unvisited.clear();
+        }
         symbols.cleanup();
         for (ChangeListener l : symbolChangeListeners) {
             try {
@@ -288,6 +377,19 @@ public class Local implements TraceAnalyzer {
         return Search.nextPC(node, pc);
     }
 
+    @Override
+    public Node getNextStep(Node node, Expression condition) throws EvaluationException {
+        CompiledExpression expr = new ExpressionCompiler(this).compile(condition);
+        return Search.nextStep(node, step -> {
+            try {
+                return expr.evaluate(step.getState()) != 0;
+            } catch (EvaluationException e) {
+                // steps where the condition cannot be evaluated do not match
+                return false;
+            }
+        });
+    }
+
     @Override
     public byte getI8(long address, long insn) throws MemoryNotMappedException {
         return memory.getByte(address, insn);
@@ -351,6 +453,16 @@ public class Local implements TraceAnalyzer {
         return memory.getPreviousWrites(address, insn, count);
     }
 
+    @Override
+    public List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit) {
+        return memory.findWrites(value, mask, size, from, to, limit);
+    }
+
+    @Override
+    public MemoryUpdate findFirstWrite(long value, long mask, int size, long from) {
+        return memory.findFirstWrite(value, mask, size, from);
+    }
+
     @Override
     public Node getMapNode(long address, long insn) throws MemoryNotMappedException {
         return memory.getMapNode(address, insn);
@@ -508,10 +620,140 @@ public class Local implements TraceAnalyzer {
     }
 
     @Override
+    public synchronized ExpressionSymbols getExpressionSymbols() {
+        if (expressionSymbols == null) {
+            expressionSymbols = new ExpressionSymbols(this);
+        }
+        return expressionSymbols;
+    }
+
+    @Override
+    public Profile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public AccessHeatmap.Level getHeatmapTile(int rowShift, int columnShift, int row, int column, int rows, int columns) {
+        return memory.getHeatmap().getLevel(rowShift, columnShift).getTile(row, column, rows, columns);
+    }
+
+    /**
+     * Get the type recovery itself, e.g. to inspect its internal state. Clients which may browse a
+     * remote trace use the type queries instead.
+     */
     public DynamicTypePropagation getTypeRecovery() {
         return typeRecovery;
     }
 
+    private Semantics getTypeSemantics() {
+        if (typeRecovery == null) {
+            throw new UnsupportedOperationException("type recovery is not available");
+        }
+        return typeRecovery.getSemantics();
+    }
+
+    @Override
+    public boolean hasTypeRecovery() {
+        return typeRecovery != null;
+    }
+
+    @Override
+    public long getRegisterType(long pc, int reg) {
+        return getTypeSemantics().resolve(pc, new RegisterOperand(reg));
+    }
+
+    @Override
+    public long getRegisterDataType(long pc, int reg) {
+        return getTypeSemantics().resolveData(pc, new RegisterOperand(reg));
+    }
+
+    @Override
+    public boolean isRegisterLive(long pc, int reg) {
+        return getTypeSemantics().isLive(pc, reg);
+    }
+
+    @Override
+    public List<ChainTarget> getRegisterTypeChain(long pc, int reg) {
+        List<ChainTarget> result = new ArrayList<>();
+        getTypeSemantics().resolve(pc, new RegisterOperand(reg), result);
+        return result;
+    }
+
+    @Override
+    public long getMemoryType(long addr, long step) {
+        return getTypeSemantics().resolveMemory(addr, step);
+    }
+
+    @Override
+    public StepEvent getCodeStep(long pc) {
+        Iterator<StepEvent> steps = getTypeSemantics().getSteps(pc).iterator();
+        return steps.hasNext() ? steps.next() : null;
+    }
+
+    private DefUseIndex getDefUse() {
+        if (defuse == null) {
+            throw new UnsupportedOperationException("def-use index is not available");
+        }
+        return defuse;
+    }
+
+    @Override
+    public boolean hasDefUseIndex() {
+        return defuse != null;
+    }
+
+    @Override
+    public long getRegisterDefinition(int tid, int reg, long step) {
+        return getDefUse().getRegisterDefinition(tid, reg, step);
+    }
+
+    @Override
+    public long[] getProducers(long ref) {
+        return getDefUse().getProducers(ref);
+    }
+
+    @Override
+    public long[] getBackwardSlice(long... roots) {
+        return getDefUse().slice(roots);
+    }
+
+    private TaintAnalyzer getTaint() {
+        if (taint == null) {
+            throw new UnsupportedOperationException("taint analysis is not available");
+        }
+        return taint;
+    }
+
+    @Override
+    public boolean hasTaintAnalysis() {
+        return taint != null;
+    }
+
+    @Override
+    public List<IoEvent> getTaintInputs() {
+        return getTaint().getInputs();
+    }
+
+    @Override
+    public int[] getRegisterTaint(int tid, int reg, long step) {
+        return getTaint().getRegisterTaint(tid, reg, step);
+    }
+
+    @Override
+    public int[] getStepTaint(int tid, long step) {
+        return getTaint().getStepTaint(tid, step);
+    }
+
+    @Override
+    public int[] getMemoryTaint(long addr) {
+        return getTaint().getMemoryTaint(addr);
+    }
+
+    @Override
+    public NavigableMap<Long, int[]> getTaintedPCs() {
+        return getTaint().getTaintedPCs();
+    }
+
     @Override
     public List<MemoryRead> getReadXrefs(long addr) throws MemoryNotMappedException {
         return memory.getReads(addr);
@@ -522,6 +764,16 @@ public class Local implements TraceAnalyzer {
         return memory.getWrites(addr);
     }
 
+    @Override
+    public List<MemoryRead> getReadXrefs(long start, long end, long from, long to) {
+        return memory.getReads(start, end, from, to);
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long start, long end, long from, long to) {
+        return memory.getWrites(start, end, from, to);
+    }
+
     @Override
     public void setSymbolize(boolean symbolize) {
         this.symbolize = symbolize;
@@ -0,0 +1,995 @@
+package org.graalvm.vm.trcview.net;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.posix.elf.DefaultSymbolResolver;
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.posix.elf.SymbolResolver;
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.MappedFile;
+import org.graalvm.vm.trcview.analysis.MappedFiles;
+import org.graalvm.vm.trcview.analysis.Search;
+import org.graalvm.vm.trcview.analysis.SymbolRenameListener;
+import org.graalvm.vm.trcview.analysis.SymbolTable;
+import org.graalvm.vm.trcview.analysis.device.Device;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
+import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
+import org.graalvm.vm.trcview.analysis.memory.MemoryTrace;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.memory.Protection;
+import org.graalvm.vm.trcview.analysis.memory.ValueIndex;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.type.DefaultTypes;
+import org.graalvm.vm.trcview.analysis.type.Prototype;
+import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.BrkEvent;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
+import org.graalvm.vm.trcview.data.ChainTarget;
+import org.graalvm.vm.trcview.data.TypedMemory;
+import org.graalvm.vm.trcview.decode.ABI;
+import org.graalvm.vm.trcview.expression.CompiledExpression;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionCompiler;
+import org.graalvm.vm.trcview.expression.ExpressionSymbols;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.info.Comments;
+import org.graalvm.vm.trcview.info.Expressions;
+import org.graalvm.vm.trcview.info.FormattedExpression;
+import org.graalvm.vm.trcview.info.Highlighter;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.storage.MemoryAccess;
+import org.graalvm.vm.trcview.storage.Step;
+import org.graalvm.vm.trcview.storage.StoredEvent;
+import org.graalvm.vm.trcview.storage.StoredStepEvent;
+import org.graalvm.vm.trcview.storage.TraceDatabase;
+import org.graalvm.vm.trcview.ui.event.ChangeListener;
+import org.graalvm.vm.util.BitTest;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Trace analyzer which browses a {@link TraceDatabase} without loading the trace into memory.
+ *
+ * The call tree is built on demand from the parents of the stored steps: the children of a block
+ * are only read when the block is opened. Memory contents are reconstructed from the stored reads
+ * and writes, so memory which was never accessed is reported as not mapped. The stored memory maps,
+ * symbol tables and I/O events are replayed when the database is opened, the access heatmap and the
+ * profile are the ones collected by the loader. Comments, expressions, highlighting and types are
+ * kept in memory like in {@link Local}.
+ *
+ * Type recovery, def-use and taint analysis need the CPU state of every step in order and are not
+ * stored: they are reported as not available and their queries throw an
+ * {@link UnsupportedOperationException}. Devices are not stored either, their getter returns null.
+ */
+public class LocalDatabase implements TraceAnalyzer, Closeable {
+    private static final Logger log = Trace.create(LocalDatabase.class);
+
+    private final TraceDatabase db;
+    private final Architecture arch;
+    private final StepFormat format;
+    private final BlockNode root;
+    private final Map<Integer, BlockNode> threads;
+    private final SymbolResolver resolver;
+    private final SymbolTable symbols;
+    private final MappedFiles files;
+    private final MemoryTrace memory;
+    private final List<Node> syscalls;
+    private final Map<Integer, List<IoEvent>> io;
+
+    private final List<ChangeListener> symbolChangeListeners = new ArrayList<>();
+    private final List<ChangeListener> commentChangeListeners = new ArrayList<>();
+    private final Comments comments;
+    private final Expressions expressions;
+    private final Highlighter highlighter;
+    private final ABI abi;
+    private final UserTypeDatabase types;
+    private final TypedMemory typedMemory;
+    private ExpressionSymbols expressionSymbols;
+    private boolean symbolize;
+
+    private static class DatabaseBlockNode extends BlockNode {
+        final DatabaseNodeList children;
+
+        DatabaseBlockNode(LocalDatabase trc, StepEvent head, int tid, long call) {
+            super(head);
+            children = new DatabaseNodeList(trc, this, tid, call);
+            setLazyChildren(children);
+        }
+    }
+
+    public LocalDatabase(TraceDatabase db) throws IOException {
+        this.db = db;
+        arch = Architecture.getArchitecture(db.getMetadata().arch);
+        if (arch == null) {
+            throw new IOException("unknown architecture " + db.getMetadata().arch);
+        }
+        format = arch.getFormat();
+
+        Map<Integer, BlockNode> roots = new HashMap<>();
+        BlockNode first = null;
+        long firstStep = 0;
+        for (Entry<Integer, Long> thread : db.getThreadStarts().entrySet()) {
+            BlockNode block = new DatabaseBlockNode(this, null, thread.getKey(), -1);
+            roots.put(thread.getKey(), block);
+            if (first == null || thread.getValue() < firstStep) {
+                first = block;
+                firstStep = thread.getValue();
+            }
+        }
+        if (first == null) {
+            throw new IOException("trace is empty");
+        }
+        root = first;
+        threads = Collections.unmodifiableMap(roots);
+
+        NavigableMap<Long, Symbol> symbolTable = new TreeMap<>();
+        NavigableMap<Long, MappedFile> mappedFiles = new TreeMap<>();
+        memory = new MemoryTrace();
+        Map<Integer, List<IoEvent>> channels = new HashMap<>();
+        for (StoredEvent stored : db.getEvents()) {
+            replay(stored.step, stored.event, symbolTable, mappedFiles, channels);
+        }
+        resolver = new DefaultSymbolResolver(symbolTable);
+        symbols = new SymbolTable(format, symbolTable);
+        files = new MappedFiles(mappedFiles);
+        io = channels;
+        syscalls = new SyscallList(db.getSyscalls());
+
+        abi = arch.createABI();
+        comments = new Comments();
+        expressions = new Expressions();
+        highlighter = new Highlighter();
+        types = new UserTypeDatabase(arch.getTypeInfo());
+        typedMemory = new TypedMemory();
+
+        // populate default types
+        DefaultTypes.populate(types, arch.getTypeInfo());
+        arch.addStandardTypes(types);
+
+        symbolize = false;
+    }
+
+    // same as the processing of these events in Analysis
+    private void replay(long step, Event event, NavigableMap<Long, Symbol> symbolTable, NavigableMap<Long, MappedFile> mappedFiles, Map<Integer, List<IoEvent>> channels) {
+        if (event instanceof SymbolTableEvent) {
+            SymbolTableEvent symtab = (SymbolTableEvent) event;
+            symbolTable.putAll(symtab.getSymbols());
+            long addr = symtab.getLoadBias();
+            long end = addr + symtab.getSize();
+            while (addr < end) {
+                Entry<Long, MappedFile> file = mappedFiles.ceilingEntry(addr);
+                if (file != null && file.getValue().getFilename() != null && file.getValue().getFilename().equals(symtab.getFilename())) {
+                    file.getValue().setLoadBias(symtab.getLoadBias());
+                    addr = file.getKey() + 1;
+                } else {
+                    break;
+                }
+            }
+        } else if (event instanceof MmapEvent) {
+            MmapEvent mmap = (MmapEvent) event;
+            if (mmap.getResult() >= 0) {
+                int rawprot = mmap.getProtection();
+                Protection prot = new Protection(BitTest.test(rawprot, Mman.PROT_READ), BitTest.test(rawprot, Mman.PROT_WRITE), BitTest.test(rawprot, Mman.PROT_EXEC));
+                mappedFiles.put(mmap.getResult(), new MappedFile(mmap.getFileDescriptor(), mmap.getResult(), mmap.getLength(), mmap.getOffset(), mmap.getFilename(), -1));
+                // the event itself is the map node, like in the call tree of a parsed trace
+                memory.mmap(mmap.getResult(), mmap.getLength(), prot, mmap.getFilename(), 0, step, mmap, null);
+            }
+        } else if (event instanceof BrkEvent) {
+            memory.brk(((BrkEvent) event).getResult(), 0, step, event, null);
+        } else if (event instanceof IoEvent) {
+            IoEvent evt = (IoEvent) event;
+            channels.computeIfAbsent(evt.getChannel(), channel -> new ArrayList<>()).add(evt);
+        }
+    }
+
+    // syscall steps are only turned into nodes when they are used
+    private class SyscallList extends AbstractList<Node> {
+        private final long[] steps;
+
+        SyscallList(long[] steps) {
+            this.steps = steps;
+        }
+
+        @Override
+        public Node get(int index) {
+            return getInstruction(steps[index]);
+        }
+
+        @Override
+        public int size() {
+            return steps.length;
+        }
+    }
+
+    /**
+     * Open the database in {@code dir}.
+     */
+    public static LocalDatabase open(File dir) throws IOException {
+        TraceDatabase db = TraceDatabase.open(dir);
+        try {
+            LocalDatabase trc = new LocalDatabase(db);
+            log.log(Levels.INFO, "Opened " + db.getMetadata());
+            return trc;
+        } catch (IOException | RuntimeException e) {
+            db.close();
+            throw e;
+        }
+    }
+
+    TraceDatabase getDatabase() {
+        return db;
+    }
+
+    @Override
+    public void close() throws IOException {
+        db.close();
+    }
+
+    private Step getStep(long step) {
+        try {
+            return db.getStep(step);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // calls are blocks whose children are loaded when they are used first
+    Node createNode(long step) {
+        Step s = getStep(step);
+        if (s == null) {
+            throw new IllegalStateException("step " + step + " is missing");
+        }
+        StoredStepEvent evt = new StoredStepEvent(s, db.getState(s), format);
+        if (evt.isCall()) {
+            BlockNode block = new DatabaseBlockNode(this, evt, s.tid, s.step);
+            block.setHeadState(evt.getState());
+            return block;
+        } else {
+            return evt;
+        }
+    }
+
+    private DatabaseBlockNode getBlock(int tid, long call) {
+        if (call == -1) {
+            return (DatabaseBlockNode) threads.get(tid);
+        }
+        Node node = getInstruction(call);
+        if (!(node instanceof DatabaseBlockNode)) {
+            throw new IllegalStateException("step " + call + " is not a call");
+        }
+        return (DatabaseBlockNode) node;
+    }
+
+    private StepEvent getStepEvent(long step) {
+        Node node = getInstruction(step);
+        if (node instanceof BlockNode) {
+            return ((BlockNode) node).getHead();
+        } else {
+            return (StepEvent) node;
+        }
+    }
+
+    @Override
+    public Symbol getSymbol(long pc) {
+        return resolver.getSymbol(pc);
+    }
+
+    @Override
+    public NavigableMap<Long, Symbol> getTraceSymbols() {
+        return symbols.getTraceSymbols();
+    }
+
+    @Override
+    public ComputedSymbol getComputedSymbol(long pc) {
+        return symbols.get(pc);
+    }
+
+    @Override
+    public void renameSymbol(ComputedSymbol sym, String name) {
+        symbols.renameSubroutine(sym, name);
+    }
+
+    @Override
+    public void setPrototype(ComputedSymbol sym, Prototype prototype) {
+        symbols.setPrototype(sym, prototype);
+    }
+
+    @Override
+    public Set<ComputedSymbol> getSubroutines() {
+        return symbols.getSubroutines();
+    }
+
+    @Override
+    public Set<ComputedSymbol> getLocations() {
+        return symbols.getLocations();
+    }
+
+    @Override
+    public Collection<ComputedSymbol> getSymbols() {
+        return symbols.getSymbols();
+    }
+
+    @Override
+    public Map<String, List<ComputedSymbol>> getNamedSymbols() {
+        return symbols.getNamedSymbols();
+    }
+
+    @Override
+    public void addSymbolRenameListener(SymbolRenameListener listener) {
+        symbols.addSymbolRenameListener(listener);
+    }
+
+    @Override
+    public void removeSymbolRenameListener(SymbolRenameListener listener) {
+        symbols.removeSymbolRenameListener(listener);
+    }
+
+    @Override
+    public void addSymbolChangeListener(ChangeListener listener) {
+        symbolChangeListeners.add(listener);
+    }
+
+    @Override
+    public void removeSymbolChangeListener(ChangeListener listener) {
+        symbolChangeListeners.remove(listener);
+    }
+
+    @Override
+    public void addSubroutine(long pc, String name, Prototype prototype) {
+        symbols.addSubroutine(pc, name);
+        symbols.get(pc).prototype = prototype;
+    }
+
+    @Override
+    public void reanalyze() {
+        // visits are not collected, this would need a walk over the whole trace
+        symbols.cleanup();
+        for (ChangeListener l : symbolChangeListeners) {
+            try {
+                l.valueChanged();
+            } catch (Throwable t) {
+                log.warning("Error while executing listener: " + l);
+            }
+        }
+    }
+
+    @Override
+    public void refresh() {
+        // nothing
+    }
+
+    @Override
+    public long getInstructionCount() {
+        return db.getStepCount();
+    }
+
+    @Override
+    public Set<Integer> getThreadIds() {
+        return threads.keySet();
+    }
+
+    @Override
+    public Map<Integer, Long> getThreadStarts() {
+        return db.getThreadStarts();
+    }
+
+    @Override
+    public BlockNode getRoot() {
+        return root;
+    }
+
+    @Override
+    public BlockNode getParent(Node node) {
+        return node.getParent();
+    }
+
+    @Override
+    public BlockNode getChildren(BlockNode node) {
+        return node;
+    }
+
+    @Override
+    public Node getNode(Node node) {
+        return node;
+    }
+
+    @Override
+    public List<Node> getSyscalls() {
+        return syscalls;
+    }
+
+    @Override
+    public Map<Integer, List<IoEvent>> getIo() {
+        return io;
+    }
+
+    // device events are not stored
+    @Override
+    public Map<Integer, Device> getDevices() {
+        return null;
+    }
+
+    @Override
+    public Node getInstruction(long insn) {
+        Step step = getStep(insn);
+        if (step == null) {
+            return null;
+        }
+        DatabaseBlockNode block = getBlock(step.tid, step.parent);
+        int index = block.children.indexOf(insn);
+        if (index < 0) {
+            return null;
+        }
+        return block.children.get(index);
+    }
+
+    @Override
+    public Node getNextStep(Node node) {
+        return Search.nextStep(node);
+    }
+
+    @Override
+    public Node getPreviousStep(Node node) {
+        return Search.previousStep(node);
+    }
+
+    @Override
+    public Node getNextPC(Node node, long pc) {
+        StepEvent start = node instanceof BlockNode ? ((BlockNode) node).getHead() : (StepEvent) node;
+        if (start == null) {
+            start = ((BlockNode) node).getFirstStep();
+        }
+        int tid = start.getTid();
+        long from = start.getStep() + 1;
+        try {
+            // the zone maps skip all segments which do not contain the PC
+            Step step;
+            while ((step = db.getNextPC(pc, from)) != null) {
+                if (step.tid == tid) {
+                    return getStepEvent(step.step);
+                }
+                from = step.step + 1;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Node getNextStep(Node node, Expression condition) throws EvaluationException {
+        CompiledExpression expr = new ExpressionCompiler(this).compile(condition);
+        return Search.nextStep(node, step -> {
+            try {
+                return expr.evaluate(step.getState()) != 0;
+            } catch (EvaluationException e) {
+                // steps where the condition cannot be evaluated do not match
+                return false;
+            }
+        });
+    }
+
+    // the byte is known from the last read or write of it
+    private MemoryAccess getLastAccess(long address, long insn) throws MemoryNotMappedException {
+        try {
+            MemoryAccess write = db.getLastWrite(address, insn);
+            MemoryAccess read = db.getLastRead(address, insn);
+            if (write == null) {
+                if (read == null) {
+                    throw new MemoryNotMappedException(String.format("no access to 0x%x", address));
+                }
+                return read;
+            } else if (read != null && read.step > write.step) {
+                return read;
+            } else {
+                return write;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long getWord(long address, long insn, int size) throws MemoryNotMappedException {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value |= Byte.toUnsignedLong(getLastAccess(address + i, insn).value) << (8 * i);
+        }
+        return value;
+    }
+
+    @Override
+    public byte getI8(long address, long insn) throws MemoryNotMappedException {
+        return getLastAccess(address, insn).value;
+    }
+
+    @Override
+    public short getI16(long address, long insn) throws MemoryNotMappedException {
+        short word = (short) getWord(address, insn, 2);
+        if (format.be) {
+            return Short.reverseBytes(word);
+        } else {
+            return word;
+        }
+    }
+
+    @Override
+    public int getI32(long address, long insn) throws MemoryNotMappedException {
+        int word = (int) getWord(address, insn, 4);
+        if (format.be) {
+            return Integer.reverseBytes(word);
+        } else {
+            return word;
+        }
+    }
+
+    @Override
+    public long getI64(long address, long insn) throws MemoryNotMappedException {
+        long word = getWord(address, insn, 8);
+        if (format.be) {
+            return Long.reverseBytes(word);
+        } else {
+            return word;
+        }
+    }
+
+    private MemoryRead getRead(MemoryAccess access) {
+        if (access == null) {
+            return null;
+        }
+        StepEvent step = getStepEvent(access.step);
+        return new MemoryRead(access.base, (byte) access.size, access.step, step, step);
+    }
+
+    private MemoryUpdate getUpdate(MemoryAccess access) {
+        if (access == null) {
+            return null;
+        }
+        StepEvent step = getStepEvent(access.step);
+        long value = getValue(access.word, access.size);
+        return new MemoryUpdate(format.be, access.base, (byte) access.size, value, access.step, step, step);
+    }
+
+    @Override
+    public MemoryRead getLastRead(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return getRead(db.getLastRead(address, insn));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryRead getNextRead(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return getRead(db.getNextRead(address, insn));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryUpdate getLastWrite(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return getUpdate(db.getLastWrite(address, insn));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryUpdate getNextWrite(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return getUpdate(db.getNextWrite(address, insn));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemoryUpdate> getPreviousWrites(long address, long insn, long count) throws MemoryNotMappedException {
+        List<MemoryUpdate> result = new ArrayList<>();
+        try {
+            long step = insn;
+            MemoryAccess write;
+            while (result.size() < count && (write = db.getLastWrite(address, step)) != null) {
+                result.add(getUpdate(write));
+                step = write.step - 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    // the database stores the bytes of an access in address order
+    private long getValue(long word, int size) {
+        if (format.be) {
+            return Long.reverseBytes(word) >>> (64 - 8 * size);
+        } else {
+            return word;
+        }
+    }
+
+    @Override
+    public List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit) {
+        long expected = ValueIndex.normalize(value, size) & mask;
+        List<MemoryUpdate> result = new ArrayList<>();
+        try {
+            List<MemoryAccess> writes = db.findWrites(Math.max(from, 0), to, limit, (sz, word) -> (size == 0 || sz == size) && (ValueIndex.normalize(getValue(word, sz), sz) & mask) == expected);
+            for (MemoryAccess write : writes) {
+                result.add(getUpdate(write));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public MemoryUpdate findFirstWrite(long value, long mask, int size, long from) {
+        List<MemoryUpdate> result = findWrites(value, mask, size, from, Long.MAX_VALUE, 1);
+        if (result.isEmpty()) {
+            return null;
+        } else {
+            return result.get(0);
+        }
+    }
+
+    @Override
+    public Node getMapNode(long address, long insn) throws MemoryNotMappedException {
+        return memory.getMapNode(address, insn);
+    }
+
+    @Override
+    public List<MemorySegment> getMemorySegments(long insn) {
+        return memory.getRegions(insn);
+    }
+
+    @Override
+    public long getBase(long pc) {
+        return files.getBase(pc);
+    }
+
+    @Override
+    public long getLoadBias(long pc) {
+        return files.getLoadBias(pc);
+    }
+
+    @Override
+    public long getOffset(long pc) {
+        return files.getOffset(pc);
+    }
+
+    @Override
+    public long getFileOffset(long pc) {
+        return files.getFileOffset(pc);
+    }
+
+    @Override
+    public String getFilename(long pc) {
+        return files.getFilename(pc);
+    }
+
+    @Override
+    public Architecture getArchitecture() {
+        return arch;
+    }
+
+    @Override
+    public void addCommentChangeListener(ChangeListener l) {
+        commentChangeListeners.add(l);
+    }
+
+    @Override
+    public void removeCommentChangeListener(ChangeListener l) {
+        commentChangeListeners.remove(l);
+    }
+
+    protected void fireCommentChanged() {
+        for (ChangeListener l : commentChangeListeners) {
+            try {
+                l.valueChanged();
+            } catch (Throwable t) {
+                log.warning("Error while executing listener: " + l);
+            }
+        }
+    }
+
+    @Override
+    public void setCommentForPC(long pc, String comment) {
+        comments.setCommentForPC(pc, comment);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getCommentForPC(long pc) {
+        return comments.getCommentForPC(pc);
+    }
+
+    @Override
+    public void setCommentForInsn(long insn, String comment) {
+        comments.setCommentForInsn(insn, comment);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getCommentForInsn(long insn) {
+        return comments.getCommentForInsn(insn);
+    }
+
+    @Override
+    public Map<Long, String> getCommentsForInsns() {
+        return comments.getCommentsForInsns();
+    }
+
+    @Override
+    public Map<Long, String> getCommentsForPCs() {
+        return comments.getCommentsForPCs();
+    }
+
+    @Override
+    public void setExpression(long pc, String expression) throws ParseException {
+        expressions.setExpression(pc, format, expression);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getExpression(long pc) {
+        FormattedExpression expr = expressions.getExpression(pc);
+        if (expr == null) {
+            return null;
+        } else {
+            return expr.getExpression();
+        }
+    }
+
+    @Override
+    public String evaluateExpression(CpuState state) throws EvaluationException {
+        return expressions.evaluate(state, this);
+    }
+
+    @Override
+    public Map<Long, String> getExpressions() {
+        return expressions.getExpressions();
+    }
+
+    @Override
+    public void setColor(long pc, Color color) {
+        highlighter.setColor(pc, color);
+        fireCommentChanged();
+    }
+
+    @Override
+    public Color getColor(CpuState state) {
+        return highlighter.getColor(state, this);
+    }
+
+    @Override
+    public Map<Long, Color> getColors() {
+        return highlighter.getColors();
+    }
+
+    @Override
+    public ABI getABI() {
+        return abi;
+    }
+
+    @Override
+    public void addABIChangeListener(ChangeListener l) {
+        if (abi != null) {
+            abi.addChangeListener(l);
+        }
+    }
+
+    @Override
+    public UserTypeDatabase getTypeDatabase() {
+        return types;
+    }
+
+    @Override
+    public TypedMemory getTypedMemory() {
+        return typedMemory;
+    }
+
+    @Override
+    public synchronized ExpressionSymbols getExpressionSymbols() {
+        if (expressionSymbols == null) {
+            expressionSymbols = new ExpressionSymbols(this);
+        }
+        return expressionSymbols;
+    }
+
+    @Override
+    public Profile getProfile() {
+        return db.getProfile();
+    }
+
+    @Override
+    public AccessHeatmap.Level getHeatmapTile(int rowShift, int columnShift, int row, int column, int rows, int columns) {
+        AccessHeatmap heatmap = db.getHeatmap();
+        if (heatmap == null) {
+            return null;
+        }
+        return heatmap.getLevel(rowShift, columnShift).getTile(row, column, rows, columns);
+    }
+
+    // these analyses are not stored in the database
+    private static UnsupportedOperationException notStored(String analysis) {
+        return new UnsupportedOperationException(analysis + " is not stored in the trace database");
+    }
+
+    @Override
+    public boolean hasTypeRecovery() {
+        return false;
+    }
+
+    @Override
+    public long getRegisterType(long pc, int reg) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public long getRegisterDataType(long pc, int reg) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public boolean isRegisterLive(long pc, int reg) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public List<ChainTarget> getRegisterTypeChain(long pc, int reg) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public long getMemoryType(long addr, long step) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public StepEvent getCodeStep(long pc) {
+        throw notStored("type recovery");
+    }
+
+    @Override
+    public boolean hasDefUseIndex() {
+        return false;
+    }
+
+    @Override
+    public long getRegisterDefinition(int tid, int reg, long step) {
+        throw notStored("def-use index");
+    }
+
+    @Override
+    public long[] getProducers(long ref) {
+        throw notStored("def-use index");
+    }
+
+    @Override
+    public long[] getBackwardSlice(long... roots) {
+        throw notStored("def-use index");
+    }
+
+    @Override
+    public boolean hasTaintAnalysis() {
+        return false;
+    }
+
+    @Override
+    public List<IoEvent> getTaintInputs() {
+        throw notStored("taint analysis");
+    }
+
+    @Override
+    public int[] getRegisterTaint(int tid, int reg, long step) {
+        throw notStored("taint analysis");
+    }
+
+    @Override
+    public int[] getStepTaint(int tid, long step) {
+        throw notStored("taint analysis");
+    }
+
+    @Override
+    public int[] getMemoryTaint(long addr) {
+        throw notStored("taint analysis");
+    }
+
+    @Override
+    public NavigableMap<Long, int[]> getTaintedPCs() {
+        throw notStored("taint analysis");
+    }
+
+    @Override
+    public List<MemoryRead> getReadXrefs(long addr) throws MemoryNotMappedException {
+        List<MemoryRead> result = new ArrayList<>();
+        try {
+            for (MemoryAccess access : db.getAccesses(addr, false)) {
+                result.add(getRead(access));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long addr) throws MemoryNotMappedException {
+        List<MemoryUpdate> result = new ArrayList<>();
+        try {
+            for (MemoryAccess access : db.getAccesses(addr, true)) {
+                result.add(getUpdate(access));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public List<MemoryRead> getReadXrefs(long start, long end, long from, long to) {
+        List<MemoryRead> result = new ArrayList<>();
+        try {
+            for (MemoryAccess access : db.getAccesses(start, end, from, to, false)) {
+                result.add(getRead(access));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long start, long end, long from, long to) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        try {
+            for (MemoryAccess access : db.getAccesses(start, end, from, to, true)) {
+                result.add(getUpdate(access));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void setSymbolize(boolean symbolize) {
+        this.symbolize = symbolize;
+    }
+
+    @Override
+    public boolean isSymbolize() {
+        return symbolize;
+    }
+}
@@ -0,0 +1,1684 @@
+package org.graalvm.vm.trcview.net;
+
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.SymbolRenameListener;
+import org.graalvm.vm.trcview.analysis.device.Device;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
+import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.type.DefaultTypes;
+import org.graalvm.vm.trcview.analysis.type.Prototype;
+import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.GenericMemoryEvent;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.data.ChainTarget;
+import org.graalvm.vm.trcview.data.MemoryChainTarget;
+import org.graalvm.vm.trcview.data.RegisterChainTarget;
+import org.graalvm.vm.trcview.data.RegisterTypeMap;
+import org.graalvm.vm.trcview.data.TypedMemory;
+import org.graalvm.vm.trcview.data.ir.RegisterOperand;
+import org.graalvm.vm.trcview.decode.ABI;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionSymbols;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.info.Comments;
+import org.graalvm.vm.trcview.info.Expressions;
+import org.graalvm.vm.trcview.info.FormattedExpression;
+import org.graalvm.vm.trcview.info.Highlighter;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.trcview.net.protocol.LRUCache;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.trcview.ui.event.ChangeListener;
+import org.graalvm.vm.util.Vector128;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Trace analyzer which browses a trace hosted by a {@link Server}.
+ *
+ * Requests are pipelined: every request is sent immediately and the responses are matched by their
+ * request id, so independent requests do not wait for each other. Results which never change, like
+ * nodes or the memory at a given step, are cached. Comments, expressions, highlighting and types
+ * are kept on the client.
+ */
+public class Remote implements TraceAnalyzer, Closeable {
+    private static final Logger log = Trace.create(Remote.class);
+
+    private static final int NODE_CACHE_SIZE = 100000;
+    private static final int INSTRUCTION_CACHE_SIZE = 1000;
+    private static final int PAGE_CACHE_SIZE = 256;
+    private static final int SYMBOL_CACHE_SIZE = 10000;
+
+    private static final long PAGE_MASK = ~(long) (Protocol.PAGE_SIZE - 1);
+
+    @FunctionalInterface
+    private interface Arguments {
+        void write(WordOutputStream out) throws IOException;
+    }
+
+    private static class RemoteException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final byte status;
+
+        RemoteException(byte status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static class PageKey {
+        final long address;
+        final long insn;
+
+        PageKey(long address, long insn) {
+            this.address = address;
+            this.insn = insn;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PageKey)) {
+                return false;
+            }
+            PageKey k = (PageKey) o;
+            return k.address == address && k.insn == insn;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = address ^ (insn * 31);
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private static class Page {
+        final byte[] data;
+        final long[] unmapped;
+
+        Page(byte[] data, long[] unmapped) {
+            this.data = data;
+            this.unmapped = unmapped;
+        }
+
+        boolean isMapped(int offset) {
+            return (unmapped[offset / 64] & (1L << (offset % 64))) == 0;
+        }
+    }
+
+    private static class MappedFile {
+        final long base;
+        final long loadBias;
+        final long offset;
+        final long fileOffset;
+        final String filename;
+
+        MappedFile(long base, long loadBias, long offset, long fileOffset, String filename) {
+            this.base = base;
+            this.loadBias = loadBias;
+            this.offset = offset;
+            this.fileOffset = fileOffset;
+            this.filename = filename;
+        }
+    }
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final Map<Integer, CompletableFuture<WordInputStream>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private volatile IOException failure;
+
+    private final Architecture arch;
+    private final long steps;
+    private final BlockNode root;
+    private final Map<Integer, Long> threads;
+
+    // caches of immutable results
+    private final Map<Integer, Node> nodes = new LRUCache<>(NODE_CACHE_SIZE);
+    private final Map<Long, Node> instructions = new LRUCache<>(INSTRUCTION_CACHE_SIZE);
+    private final Map<PageKey, Page> pages = new LRUCache<>(PAGE_CACHE_SIZE);
+    private final Map<PageKey, CompletableFuture<WordInputStream>> pendingPages = new HashMap<>();
+    private final Map<Long, MappedFile> files = new LRUCache<>(SYMBOL_CACHE_SIZE);
+    private final Map<Long, Symbol> elfSymbols = new LRUCache<>(SYMBOL_CACHE_SIZE);
+    private NavigableMap<Long, Symbol> traceSymbols;
+    private List<Node> syscalls;
+    private Map<Integer, List<IoEvent>> io;
+    private int analyses = -1;
+    private Profile profile;
+    private boolean profileLoaded;
+    private List<IoEvent> taintInputs;
+
+    private final Map<Long, RemoteSymbol> symbols = new HashMap<>();
+
+    private final List<SymbolRenameListener> symbolRenameListeners = new ArrayList<>();
+    private final List<ChangeListener> symbolChangeListeners = new ArrayList<>();
+    private final List<ChangeListener> commentChangeListeners = new ArrayList<>();
+    private final Comments comments;
+    private final Expressions expressions;
+    private final Highlighter highlighter;
+    private final ABI abi;
+    private final UserTypeDatabase types;
+    private final TypedMemory typedMemory;
+    private ExpressionSymbols expressionSymbols;
+    private boolean symbolize;
+
+    public Remote(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+
+        Thread thread = new Thread(this::receive, "trace-client-" + host + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+
+        try {
+            // the initial requests are pipelined
+            CompletableFuture<WordInputStream> hello = send(Protocol.HELLO, o -> o.write32bit(Protocol.VERSION));
+            CompletableFuture<WordInputStream> rootRequest = send(Protocol.GET_ROOT, null);
+            CompletableFuture<WordInputStream> threadsRequest = send(Protocol.GET_THREADS, null);
+            CompletableFuture<WordInputStream> symbolsRequest = send(Protocol.GET_SYMBOLS, null);
+
+            WordInputStream result = await(hello);
+            int version = result.read32bit();
+            if (version != Protocol.VERSION) {
+                throw new IOException("unsupported protocol version " + version);
+            }
+            short id = result.read16bit();
+            arch = Architecture.getArchitecture(id);
+            if (arch == null) {
+                throw new IOException("unknown architecture " + id);
+            }
+            steps = result.read64bit();
+
+            root = (BlockNode) readNode(await(rootRequest));
+
+            result = await(threadsRequest);
+            int count = result.read32bit();
+            Map<Integer, Long> threadStarts = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                int tid = result.read32bit();
+                threadStarts.put(tid, result.read64bit());
+            }
+            threads = Collections.unmodifiableMap(threadStarts);
+
+            readSymbols(await(symbolsRequest));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        abi = arch.createABI();
+        comments = new Comments();
+        expressions = new Expressions();
+        highlighter = new Highlighter();
+        types = new UserTypeDatabase(arch.getTypeInfo());
+        typedMemory = new TypedMemory();
+
+        // populate default types
+        DefaultTypes.populate(types, arch.getTypeInfo());
+        arch.addStandardTypes(types);
+
+        symbolize = false;
+
+        log.log(Levels.INFO, "Connected to " + host + ":" + port + " [" + arch.getName() + ", " + steps + " steps]");
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void receive() {
+        try {
+            WordInputStream frame;
+            while ((frame = Protocol.readFrame(in)) != null) {
+                int id = frame.read32bit();
+                CompletableFuture<WordInputStream> future = pending.remove(id);
+                if (future == null) {
+                    log.log(Levels.WARNING, "Response to unknown request " + id);
+                    continue;
+                }
+                byte status = (byte) frame.read8bit();
+                if (status == Protocol.OK) {
+                    future.complete(frame);
+                } else {
+                    future.completeExceptionally(new RemoteException(status, IO.readString(frame)));
+                }
+            }
+            fail(new EOFException("connection closed"));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        failure = e;
+        for (Integer id : new ArrayList<>(pending.keySet())) {
+            CompletableFuture<WordInputStream> future = pending.remove(id);
+            if (future != null) {
+                future.completeExceptionally(new UncheckedIOException(e));
+            }
+        }
+    }
+
+    private CompletableFuture<WordInputStream> send(byte method, Arguments args) {
+        int id = ids.getAndIncrement();
+        CompletableFuture<WordInputStream> future = new CompletableFuture<>();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            WordOutputStream request = new BEOutputStream(buf);
+            request.write32bit(id);
+            request.write8bit(method);
+            if (args != null) {
+                args.write(request);
+            }
+            pending.put(id, future);
+            synchronized (out) {
+                Protocol.writeFrame(out, buf.toByteArray(), buf.size());
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            future.completeExceptionally(new UncheckedIOException(e));
+        }
+        IOException e = failure;
+        if (e != null && pending.remove(id) != null) {
+            future.completeExceptionally(new UncheckedIOException(e));
+        }
+        return future;
+    }
+
+    private static RemoteException get(CompletableFuture<WordInputStream> future, WordInputStream[] result) {
+        try {
+            result[0] = future.get();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException) {
+                return (RemoteException) cause;
+            } else if (cause instanceof UncheckedIOException) {
+                throw new UncheckedIOException(cause.getMessage(), ((UncheckedIOException) cause).getCause());
+            } else {
+                throw new IllegalStateException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private static RuntimeException unchecked(RemoteException e) {
+        switch (e.status) {
+            case Protocol.UNSUPPORTED:
+                return new UnsupportedOperationException(e.getMessage());
+            case Protocol.ILLEGAL_ARGUMENT:
+                return new IllegalArgumentException(e.getMessage());
+            default:
+                return new IllegalStateException("remote error: " + e.getMessage());
+        }
+    }
+
+    private static WordInputStream await(CompletableFuture<WordInputStream> future) {
+        WordInputStream[] result = new WordInputStream[1];
+        RemoteException e = get(future, result);
+        if (e != null) {
+            throw unchecked(e);
+        }
+        return result[0];
+    }
+
+    private static WordInputStream awaitMemory(CompletableFuture<WordInputStream> future) throws MemoryNotMappedException {
+        WordInputStream[] result = new WordInputStream[1];
+        RemoteException e = get(future, result);
+        if (e != null) {
+            if (e.status == Protocol.NOT_MAPPED) {
+                throw new MemoryNotMappedException(e.getMessage());
+            }
+            throw unchecked(e);
+        }
+        return result[0];
+    }
+
+    private static WordInputStream awaitEvaluation(CompletableFuture<WordInputStream> future) throws EvaluationException {
+        WordInputStream[] result = new WordInputStream[1];
+        RemoteException e = get(future, result);
+        if (e != null) {
+            if (e.status == Protocol.EVALUATION_FAILED) {
+                throw new EvaluationException(e.getMessage());
+            }
+            throw unchecked(e);
+        }
+        return result[0];
+    }
+
+    private WordInputStream call(byte method, Arguments args) {
+        return await(send(method, args));
+    }
+
+    private WordInputStream callMemory(byte method, Arguments args) throws MemoryNotMappedException {
+        return awaitMemory(send(method, args));
+    }
+
+    private Node callNode(byte method, Arguments args) {
+        try {
+            return readNode(call(method, args));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int handle(Node node) {
+        if (node instanceof RemoteStepEvent) {
+            return ((RemoteStepEvent) node).getHandle();
+        } else if (node instanceof RemoteBlockNode) {
+            return ((RemoteBlockNode) node).getHandle();
+        } else {
+            throw new IllegalArgumentException("not a remote node: " + node);
+        }
+    }
+
+    // nodes
+    private Node readNode(WordInputStream in) throws IOException {
+        byte kind = (byte) in.read8bit();
+        switch (kind) {
+            case Protocol.NODE_NULL:
+                return null;
+            case Protocol.NODE_STEP:
+                return readStep(in);
+            case Protocol.NODE_BLOCK: {
+                int handle = in.read32bit();
+                long id = in.read64bit();
+                boolean interrupt = in.read8bit() != 0;
+                int interruptTid = interrupt ? in.read32bit() : 0;
+                StepEvent head = (StepEvent) readNode(in);
+                int size = in.read32bit();
+                synchronized (nodes) {
+                    Node cached = nodes.get(handle);
+                    if (cached != null) {
+                        return cached;
+                    }
+                    RemoteBlockNode block;
+                    if (interrupt) {
+                        block = new RemoteBlockNode(handle, new RemoteInterruptEvent(interruptTid, head));
+                    } else {
+                        block = new RemoteBlockNode(handle, head);
+                    }
+                    block.setId(id);
+                    block.setLazyChildren(new RemoteNodeList(this, start -> requestChildren(handle, start), block, size));
+                    nodes.put(handle, block);
+                    return block;
+                }
+            }
+            default:
+                throw new IOException("invalid node kind " + kind);
+        }
+    }
+
+    private StepEvent readStep(WordInputStream in) throws IOException {
+        int handle = in.read32bit();
+        long id = in.read64bit();
+        int tid = in.read32bit();
+        long step = in.read64bit();
+        long pc = in.read64bit();
+        InstructionType type = InstructionType.values()[in.read8bit()];
+        int flags = in.read8bit();
+        byte[] machinecode = Protocol.readBytes(in);
+        String mnemonic = IO.readString(in);
+        String[] disassembly = Protocol.readStrings(in);
+        String[] symbolizedDisassembly = Protocol.readStrings(in);
+
+        long stateStep = in.read64bit();
+        long statePC = in.read64bit();
+        int stateTid = in.read32bit();
+        String stateText = Protocol.readLongString(in);
+
+        int[] registerReads = Protocol.readIntArray(in);
+        int[] registerWrites = Protocol.readIntArray(in);
+        List<MemoryEvent> reads = readMemoryEvents(in);
+        List<MemoryEvent> writes = readMemoryEvents(in);
+
+        synchronized (nodes) {
+            Node cached = nodes.get(handle);
+            if (cached != null) {
+                return (StepEvent) cached;
+            }
+            RemoteStepEvent result = new RemoteStepEvent(handle, tid, step, pc, type, flags, machinecode, mnemonic, disassembly, symbolizedDisassembly, arch.getFormat(), registerReads,
+                            registerWrites);
+            result.setId(id);
+            result.setState(new RemoteCpuState(this, handle, stateStep, statePC, stateTid, stateText));
+            // memory events are prepended, so add them in reverse order
+            for (int i = reads.size() - 1; i >= 0; i--) {
+                result.addRead(reads.get(i));
+            }
+            for (int i = writes.size() - 1; i >= 0; i--) {
+                result.addWrite(writes.get(i));
+            }
+            nodes.put(handle, result);
+            return result;
+        }
+    }
+
+    private static List<MemoryEvent> readMemoryEvents(WordInputStream in) throws IOException {
+        int count = in.read32bit();
+        List<MemoryEvent> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int tid = in.read32bit();
+            long address = in.read64bit();
+            byte size = (byte) in.read8bit();
+            int flags = in.read8bit();
+            boolean be = (flags & 1) != 0;
+            boolean write = (flags & 2) != 0;
+            boolean data = (flags & 4) != 0;
+            if (!data) {
+                result.add(new GenericMemoryEvent(be, tid, address, size, write));
+            } else if (size == 16) {
+                long hi = in.read64bit();
+                long lo = in.read64bit();
+                result.add(new GenericMemoryEvent(be, tid, address, size, write, new Vector128(hi, lo)));
+            } else {
+                result.add(new GenericMemoryEvent(be, tid, address, size, write, in.read64bit()));
+            }
+        }
+        return result;
+    }
+
+    CompletableFuture<WordInputStream> requestChildren(int handle, int start) {
+        return send(Protocol.GET_CHILDREN, o -> {
+            o.write32bit(handle);
+            o.write32bit(start);
+            o.write32bit(Protocol.MAX_NODES);
+        });
+    }
+
+    List<Node> readNodes(CompletableFuture<WordInputStream> future) {
+        WordInputStream in = await(future);
+        try {
+            in.read32bit(); // total number of nodes
+            int count = in.read32bit();
+            List<Node> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(readNode(in));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getRegister(int handle, String name) {
+        try {
+            return call(Protocol.GET_REGISTER, o -> {
+                o.write32bit(handle);
+                IO.writeString(o, name);
+            }).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getRegisterById(int handle, int id) {
+        try {
+            return call(Protocol.GET_REGISTER_BY_ID, o -> {
+                o.write32bit(handle);
+                o.write32bit(id);
+            }).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // symbols
+    private RemoteSymbol readComputedSymbol(WordInputStream in) throws IOException {
+        long address = in.read64bit();
+        String name = IO.readString(in);
+        ComputedSymbol.Type type = ComputedSymbol.Type.values()[in.read8bit()];
+        Prototype prototype = IO.readPrototype(in);
+        int visitCount = in.read32bit();
+        long[] saved = Protocol.readLongArray(in);
+        long[] destroyed = Protocol.readLongArray(in);
+        boolean unused = in.read8bit() != 0;
+
+        synchronized (symbols) {
+            RemoteSymbol sym = symbols.get(address);
+            if (sym == null) {
+                sym = new RemoteSymbol(this, name, address, type);
+                symbols.put(address, sym);
+            } else {
+                sym.name = name;
+                sym.type = type;
+            }
+            sym.prototype = prototype;
+            sym.setVisitCount(visitCount);
+            sym.savedRegisters.clear();
+            sym.savedRegisters.or(BitSet.valueOf(saved));
+            sym.destroyedRegisters.clear();
+            sym.destroyedRegisters.or(BitSet.valueOf(destroyed));
+            if (unused) {
+                sym.computeUnusedRegisters(arch.getRegisterCount());
+            }
+            return sym;
+        }
+    }
+
+    // symbols are updated in place, so that existing references stay valid
+    private void readSymbols(WordInputStream in) throws IOException {
+        int count = in.read32bit();
+        Set<Long> addresses = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            addresses.add(readComputedSymbol(in).address);
+        }
+        synchronized (symbols) {
+            symbols.keySet().retainAll(addresses);
+        }
+    }
+
+    private void loadSymbols() {
+        try {
+            readSymbols(call(Protocol.GET_SYMBOLS, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long[] getVisits(long address) {
+        try {
+            return Protocol.readLongArray(call(Protocol.GET_VISITS, o -> o.write64bit(address)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void fireSymbolRenamed(ComputedSymbol sym) {
+        for (SymbolRenameListener l : symbolRenameListeners) {
+            try {
+                l.symbolRenamed(sym);
+            } catch (Throwable t) {
+                log.log(Levels.WARNING, "SymbolRenameListener failed: " + t, t);
+            }
+        }
+    }
+
+    private void fireSymbolChanged() {
+        for (ChangeListener l : symbolChangeListeners) {
+            try {
+                l.valueChanged();
+            } catch (Throwable t) {
+                log.warning("Error while executing listener: " + l);
+            }
+        }
+    }
+
+    @Override
+    public Symbol getSymbol(long pc) {
+        synchronized (elfSymbols) {
+            if (elfSymbols.containsKey(pc)) {
+                return elfSymbols.get(pc);
+            }
+        }
+        try {
+            Symbol sym = Protocol.readSymbol(call(Protocol.GET_SYMBOL, o -> o.write64bit(pc)));
+            synchronized (elfSymbols) {
+                elfSymbols.put(pc, sym);
+            }
+            return sym;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized NavigableMap<Long, Symbol> getTraceSymbols() {
+        if (traceSymbols == null) {
+            try {
+                WordInputStream in = call(Protocol.GET_TRACE_SYMBOLS, null);
+                int count = in.read32bit();
+                NavigableMap<Long, Symbol> result = new TreeMap<>();
+                for (int i = 0; i < count; i++) {
+                    long address = in.read64bit();
+                    result.put(address, Protocol.readSymbol(in));
+                }
+                traceSymbols = Collections.unmodifiableNavigableMap(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return traceSymbols;
+    }
+
+    @Override
+    public ComputedSymbol getComputedSymbol(long pc) {
+        synchronized (symbols) {
+            return symbols.get(pc);
+        }
+    }
+
+    @Override
+    public void renameSymbol(ComputedSymbol sym, String name) {
+        if (sym.name.equals(name)) {
+            return;
+        }
+        call(Protocol.RENAME_SYMBOL, o -> {
+            o.write64bit(sym.address);
+            IO.writeString(o, name);
+        });
+        sym.name = name;
+        fireSymbolRenamed(sym);
+    }
+
+    @Override
+    public void setPrototype(ComputedSymbol sym, Prototype prototype) {
+        call(Protocol.SET_PROTOTYPE, o -> {
+            o.write64bit(sym.address);
+            IO.writePrototype(o, prototype);
+        });
+        sym.prototype = prototype;
+        fireSymbolRenamed(sym);
+    }
+
+    @Override
+    public Set<ComputedSymbol> getSubroutines() {
+        synchronized (symbols) {
+            return symbols.values().stream().filter(s -> s.type == ComputedSymbol.Type.SUBROUTINE).collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public Set<ComputedSymbol> getLocations() {
+        synchronized (symbols) {
+            return symbols.values().stream().filter(s -> s.type == ComputedSymbol.Type.LOCATION).collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public Collection<ComputedSymbol> getSymbols() {
+        synchronized (symbols) {
+            return Collections.unmodifiableCollection(new ArrayList<>(symbols.values()));
+        }
+    }
+
+    @Override
+    public Map<String, List<ComputedSymbol>> getNamedSymbols() {
+        synchronized (symbols) {
+            Map<String, List<ComputedSymbol>> map = new HashMap<>();
+            for (ComputedSymbol sym : symbols.values()) {
+                map.computeIfAbsent(sym.name, x -> new ArrayList<>()).add(sym);
+            }
+            return map;
+        }
+    }
+
+    @Override
+    public void addSymbolRenameListener(SymbolRenameListener listener) {
+        symbolRenameListeners.add(listener);
+    }
+
+    @Override
+    public void removeSymbolRenameListener(SymbolRenameListener listener) {
+        symbolRenameListeners.remove(listener);
+    }
+
+    @Override
+    public void addSymbolChangeListener(ChangeListener listener) {
+        symbolChangeListeners.add(listener);
+    }
+
+    @Override
+    public void removeSymbolChangeListener(ChangeListener listener) {
+        symbolChangeListeners.remove(listener);
+    }
+
+    @Override
+    public void addSubroutine(long pc, String name, Prototype prototype) {
+        WordInputStream in = call(Protocol.ADD_SUBROUTINE, o -> {
+            o.write64bit(pc);
+            IO.writeString(o, name);
+            IO.writePrototype(o, prototype);
+        });
+        try {
+            readComputedSymbol(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void reanalyze() {
+        call(Protocol.REANALYZE, null);
+        loadSymbols();
+        fireSymbolChanged();
+    }
+
+    /**
+     * Drop all cached results which may change on the server and reload the symbols.
+     */
+    @Override
+    public void refresh() {
+        synchronized (instructions) {
+            instructions.clear();
+        }
+        synchronized (pages) {
+            pages.clear();
+            pendingPages.clear();
+        }
+        synchronized (files) {
+            files.clear();
+        }
+        synchronized (elfSymbols) {
+            elfSymbols.clear();
+        }
+        loadSymbols();
+        fireSymbolChanged();
+    }
+
+    // misc
+    @Override
+    public long getInstructionCount() {
+        return steps;
+    }
+
+    // threading
+    @Override
+    public Set<Integer> getThreadIds() {
+        return threads.keySet();
+    }
+
+    @Override
+    public Map<Integer, Long> getThreadStarts() {
+        return threads;
+    }
+
+    // node
+    @Override
+    public BlockNode getRoot() {
+        return root;
+    }
+
+    @Override
+    public BlockNode getParent(Node node) {
+        BlockNode parent = node.getParent();
+        if (parent == null && node != root) {
+            parent = (BlockNode) callNode(Protocol.GET_PARENT, o -> o.write32bit(handle(node)));
+            node.setParent(parent);
+        }
+        return parent;
+    }
+
+    @Override
+    public BlockNode getChildren(BlockNode node) {
+        return node;
+    }
+
+    @Override
+    public Node getNode(Node node) {
+        return node;
+    }
+
+    @Override
+    public synchronized List<Node> getSyscalls() {
+        if (syscalls == null) {
+            WordInputStream in = call(Protocol.GET_SYSCALLS, o -> {
+                o.write32bit(0);
+                o.write32bit(0);
+            });
+            try {
+                int size = in.read32bit();
+                syscalls = new RemoteNodeList(this, start -> send(Protocol.GET_SYSCALLS, o -> {
+                    o.write32bit(start);
+                    o.write32bit(Protocol.MAX_NODES);
+                }), null, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return syscalls;
+    }
+
+    @Override
+    public synchronized Map<Integer, List<IoEvent>> getIo() {
+        if (io == null) {
+            try {
+                WordInputStream in = call(Protocol.GET_IO, null);
+                int count = in.read32bit();
+                Map<Integer, List<IoEvent>> result = new HashMap<>();
+                for (int i = 0; i < count; i++) {
+                    int channel = in.read32bit();
+                    int n = in.read32bit();
+                    List<IoEvent> events = new ArrayList<>(n);
+                    for (int j = 0; j < n; j++) {
+                        events.add(Protocol.readIoEvent(in));
+                    }
+                    result.put(channel, events);
+                }
+                io = result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return io;
+    }
+
+    // devices are not transferred
+    @Override
+    public Map<Integer, Device> getDevices() {
+        return null;
+    }
+
+    // search
+    @Override
+    public Node getInstruction(long insn) {
+        synchronized (instructions) {
+            Node node = instructions.get(insn);
+            if (node != null) {
+                return node;
+            }
+        }
+        Node node = callNode(Protocol.GET_INSTRUCTION, o -> o.write64bit(insn));
+        if (node != null) {
+            synchronized (instructions) {
+                instructions.put(insn, node);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public Node getNextStep(Node node) {
+        return callNode(Protocol.GET_NEXT_STEP, o -> o.write32bit(handle(node)));
+    }
+
+    @Override
+    public Node getPreviousStep(Node node) {
+        return callNode(Protocol.GET_PREVIOUS_STEP, o -> o.write32bit(handle(node)));
+    }
+
+    @Override
+    public Node getNextPC(Node node, long pc) {
+        return callNode(Protocol.GET_NEXT_PC, o -> {
+            o.write32bit(handle(node));
+            o.write64bit(pc);
+        });
+    }
+
+    @Override
+    public Node getNextStep(Node node, Expression condition) throws EvaluationException {
+        WordInputStream in = awaitEvaluation(send(Protocol.GET_NEXT_STEP_WHERE, o -> {
+            o.write32bit(handle(node));
+            Protocol.writeLongString(o, condition.toString());
+        }));
+        try {
+            return readNode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // memory
+    private CompletableFuture<WordInputStream> requestPage(PageKey key) {
+        return send(Protocol.GET_PAGE, o -> {
+            o.write64bit(key.address);
+            o.write64bit(key.insn);
+        });
+    }
+
+    private Page getPage(long address, long insn) {
+        PageKey key = new PageKey(address & PAGE_MASK, insn);
+        CompletableFuture<WordInputStream> future;
+        synchronized (pages) {
+            Page page = pages.get(key);
+            if (page != null) {
+                return page;
+            }
+            future = pendingPages.remove(key);
+            if (future == null) {
+                future = requestPage(key);
+            }
+            // memory is usually read sequentially, so fetch the next page in the background
+            PageKey next = new PageKey(key.address + Protocol.PAGE_SIZE, insn);
+            if (pendingPages.size() >= PAGE_CACHE_SIZE) {
+                // prefetched pages which were never used
+                pendingPages.clear();
+            }
+            if (!pages.containsKey(next) && !pendingPages.containsKey(next)) {
+                pendingPages.put(next, requestPage(next));
+            }
+        }
+        try {
+            WordInputStream in = await(future);
+            byte[] data = new byte[Protocol.PAGE_SIZE];
+            in.read(data);
+            long[] unmapped = Protocol.readLongArray(in);
+            Page page = new Page(data, unmapped);
+            synchronized (pages) {
+                pages.put(key, page);
+            }
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte getI8(long address, long insn) throws MemoryNotMappedException {
+        Page page = getPage(address, insn);
+        int offset = (int) (address & ~PAGE_MASK);
+        if (!page.isMapped(offset)) {
+            throw new MemoryNotMappedException(String.format("no memory mapped to 0x%x", address));
+        }
+        return page.data[offset];
+    }
+
+    private long getWord(long address, long insn, int size) throws MemoryNotMappedException {
+        boolean be = arch.getFormat().be;
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            long b = Byte.toUnsignedLong(getI8(address + i, insn));
+            if (be) {
+                value = (value << 8) | b;
+            } else {
+                value |= b << (8 * i);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public short getI16(long address, long insn) throws MemoryNotMappedException {
+        return (short) getWord(address, insn, 2);
+    }
+
+    @Override
+    public int getI32(long address, long insn) throws MemoryNotMappedException {
+        return (int) getWord(address, insn, 4);
+    }
+
+    @Override
+    public long getI64(long address, long insn) throws MemoryNotMappedException {
+        return getWord(address, insn, 8);
+    }
+
+    private MemoryRead readRead(WordInputStream in) throws IOException {
+        if (in.read8bit() == 0) {
+            return null;
+        }
+        long address = in.read64bit();
+        byte size = (byte) in.read8bit();
+        long instructionCount = in.read64bit();
+        Node node = readNode(in);
+        StepEvent step = (StepEvent) readNode(in);
+        return new MemoryRead(address, size, instructionCount, node, step);
+    }
+
+    private MemoryUpdate readUpdate(WordInputStream in) throws IOException {
+        if (in.read8bit() == 0) {
+            return null;
+        }
+        boolean be = in.read8bit() != 0;
+        long address = in.read64bit();
+        byte size = (byte) in.read8bit();
+        long value = in.read64bit();
+        long instructionCount = in.read64bit();
+        Node node = readNode(in);
+        StepEvent step = (StepEvent) readNode(in);
+        return new MemoryUpdate(be, address, size, value, instructionCount, node, step);
+    }
+
+    private List<MemoryRead> readReads(WordInputStream in) throws IOException {
+        int count = in.read32bit();
+        List<MemoryRead> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readRead(in));
+        }
+        return result;
+    }
+
+    private List<MemoryUpdate> readUpdates(WordInputStream in) throws IOException {
+        int count = in.read32bit();
+        List<MemoryUpdate> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readUpdate(in));
+        }
+        return result;
+    }
+
+    private static Arguments memoryArgs(long address, long insn) {
+        return o -> {
+            o.write64bit(address);
+            o.write64bit(insn);
+        };
+    }
+
+    @Override
+    public MemoryRead getLastRead(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return readRead(callMemory(Protocol.GET_LAST_READ, memoryArgs(address, insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryRead getNextRead(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return readRead(callMemory(Protocol.GET_NEXT_READ, memoryArgs(address, insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryUpdate getLastWrite(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return readUpdate(callMemory(Protocol.GET_LAST_WRITE, memoryArgs(address, insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryUpdate getNextWrite(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return readUpdate(callMemory(Protocol.GET_NEXT_WRITE, memoryArgs(address, insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemoryUpdate> getPreviousWrites(long address, long insn, long count) throws MemoryNotMappedException {
+        try {
+            return readUpdates(callMemory(Protocol.GET_PREVIOUS_WRITES, o -> {
+                o.write64bit(address);
+                o.write64bit(insn);
+                o.write64bit(count);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit) {
+        try {
+            return readUpdates(call(Protocol.FIND_WRITES, o -> {
+                o.write64bit(value);
+                o.write64bit(mask);
+                o.write32bit(size);
+                o.write64bit(from);
+                o.write64bit(to);
+                o.write32bit(limit);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MemoryUpdate findFirstWrite(long value, long mask, int size, long from) {
+        try {
+            return readUpdate(call(Protocol.FIND_FIRST_WRITE, o -> {
+                o.write64bit(value);
+                o.write64bit(mask);
+                o.write32bit(size);
+                o.write64bit(from);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Node getMapNode(long address, long insn) throws MemoryNotMappedException {
+        try {
+            return readNode(callMemory(Protocol.GET_MAP_NODE, memoryArgs(address, insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemorySegment> getMemorySegments(long insn) {
+        try {
+            return Protocol.readSegments(call(Protocol.GET_SEGMENTS, o -> o.write64bit(insn)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // files
+    private MappedFile getMappedFile(long pc) {
+        synchronized (files) {
+            MappedFile file = files.get(pc);
+            if (file != null) {
+                return file;
+            }
+        }
+        try {
+            WordInputStream in = call(Protocol.GET_MAPPED_FILE, o -> o.write64bit(pc));
+            long base = in.read64bit();
+            long loadBias = in.read64bit();
+            long offset = in.read64bit();
+            long fileOffset = in.read64bit();
+            String filename = IO.readString(in);
+            MappedFile file = new MappedFile(base, loadBias, offset, fileOffset, filename);
+            synchronized (files) {
+                files.put(pc, file);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getBase(long pc) {
+        return getMappedFile(pc).base;
+    }
+
+    @Override
+    public long getLoadBias(long pc) {
+        return getMappedFile(pc).loadBias;
+    }
+
+    @Override
+    public long getOffset(long pc) {
+        return getMappedFile(pc).offset;
+    }
+
+    @Override
+    public long getFileOffset(long pc) {
+        return getMappedFile(pc).fileOffset;
+    }
+
+    @Override
+    public String getFilename(long pc) {
+        return getMappedFile(pc).filename;
+    }
+
+    // misc
+    @Override
+    public Architecture getArchitecture() {
+        return arch;
+    }
+
+    @Override
+    public void addCommentChangeListener(ChangeListener l) {
+        commentChangeListeners.add(l);
+    }
+
+    @Override
+    public void removeCommentChangeListener(ChangeListener l) {
+        commentChangeListeners.remove(l);
+    }
+
+    protected void fireCommentChanged() {
+        for (ChangeListener l : commentChangeListeners) {
+            try {
+                l.valueChanged();
+            } catch (Throwable t) {
+                log.warning("Error while executing listener: " + l);
+            }
+        }
+    }
+
+    @Override
+    public void setCommentForPC(long pc, String comment) {
+        comments.setCommentForPC(pc, comment);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getCommentForPC(long pc) {
+        return comments.getCommentForPC(pc);
+    }
+
+    @Override
+    public void setCommentForInsn(long insn, String comment) {
+        comments.setCommentForInsn(insn, comment);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getCommentForInsn(long insn) {
+        return comments.getCommentForInsn(insn);
+    }
+
+    @Override
+    public Map<Long, String> getCommentsForInsns() {
+        return comments.getCommentsForInsns();
+    }
+
+    @Override
+    public Map<Long, String> getCommentsForPCs() {
+        return comments.getCommentsForPCs();
+    }
+
+    @Override
+    public void setExpression(long pc, String expression) throws ParseException {
+        expressions.setExpression(pc, arch.getFormat(), expression);
+        fireCommentChanged();
+    }
+
+    @Override
+    public String getExpression(long pc) {
+        FormattedExpression expr = expressions.getExpression(pc);
+        if (expr == null) {
+            return null;
+        } else {
+            return expr.getExpression();
+        }
+    }
+
+    @Override
+    public String evaluateExpression(CpuState state) throws EvaluationException {
+        return expressions.evaluate(state, this);
+    }
+
+    @Override
+    public Map<Long, String> getExpressions() {
+        return expressions.getExpressions();
+    }
+
+    @Override
+    public void setColor(long pc, Color color) {
+        highlighter.setColor(pc, color);
+        fireCommentChanged();
+    }
+
+    @Override
+    public Color getColor(CpuState state) {
+        return highlighter.getColor(state, this);
+    }
+
+    @Override
+    public Map<Long, Color> getColors() {
+        return highlighter.getColors();
+    }
+
+    @Override
+    public ABI getABI() {
+        return abi;
+    }
+
+    @Override
+    public void addABIChangeListener(ChangeListener l) {
+        if (abi != null) {
+            abi.addChangeListener(l);
+        }
+    }
+
+    @Override
+    public UserTypeDatabase getTypeDatabase() {
+        return types;
+    }
+
+    @Override
+    public TypedMemory getTypedMemory() {
+        return typedMemory;
+    }
+
+    @Override
+    public synchronized ExpressionSymbols getExpressionSymbols() {
+        if (expressionSymbols == null) {
+            expressionSymbols = new ExpressionSymbols(this);
+        }
+        return expressionSymbols;
+    }
+
+    // analyses; the results of the whole trace never change, so the smaller ones are cached
+    private synchronized int getAnalyses() {
+        if (analyses == -1) {
+            try {
+                analyses = call(Protocol.GET_ANALYSES, null).read32bit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return analyses;
+    }
+
+    @Override
+    public synchronized Profile getProfile() {
+        if (!profileLoaded) {
+            try {
+                WordInputStream in = call(Protocol.GET_PROFILE, null);
+                profile = in.read8bit() != 0 ? Profile.read(in) : null;
+                profileLoaded = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return profile;
+    }
+
+    @Override
+    public AccessHeatmap.Level getHeatmapTile(int rowShift, int columnShift, int row, int column, int rows, int columns) {
+        try {
+            WordInputStream in = call(Protocol.GET_HEATMAP_TILE, o -> {
+                o.write32bit(rowShift);
+                o.write32bit(columnShift);
+                o.write32bit(row);
+                o.write32bit(column);
+                o.write32bit(rows);
+                o.write32bit(columns);
+            });
+            return in.read8bit() != 0 ? AccessHeatmap.Level.read(in) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Arguments registerArgs(long pc, int reg) {
+        return o -> {
+            o.write64bit(pc);
+            o.write32bit(reg);
+        };
+    }
+
+    @Override
+    public boolean hasTypeRecovery() {
+        return (getAnalyses() & Protocol.ANALYSIS_TYPE_RECOVERY) != 0;
+    }
+
+    @Override
+    public long getRegisterType(long pc, int reg) {
+        try {
+            return call(Protocol.GET_REGISTER_TYPE, registerArgs(pc, reg)).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getRegisterDataType(long pc, int reg) {
+        try {
+            return call(Protocol.GET_REGISTER_DATA_TYPE, registerArgs(pc, reg)).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isRegisterLive(long pc, int reg) {
+        try {
+            return call(Protocol.IS_REGISTER_LIVE, registerArgs(pc, reg)).read8bit() != 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // register targets only carry the type of their register
+    @Override
+    public List<ChainTarget> getRegisterTypeChain(long pc, int reg) {
+        try {
+            WordInputStream in = call(Protocol.GET_REGISTER_TYPE_CHAIN, registerArgs(pc, reg));
+            int count = in.read32bit();
+            List<ChainTarget> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte kind = (byte) in.read8bit();
+                switch (kind) {
+                    case Protocol.CHAIN_REGISTER: {
+                        int r = in.read32bit();
+                        RegisterTypeMap map = new RegisterTypeMap(r + 1, in.read64bit());
+                        map.set(new RegisterOperand(r), in.read64bit());
+                        result.add(new RegisterChainTarget(map, r));
+                        break;
+                    }
+                    case Protocol.CHAIN_MEMORY: {
+                        long address = in.read64bit();
+                        result.add(new MemoryChainTarget(address, in.read64bit()));
+                        break;
+                    }
+                    default:
+                        result.add(new ChainTarget());
+                        break;
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getMemoryType(long addr, long step) {
+        try {
+            return call(Protocol.GET_MEMORY_TYPE, o -> {
+                o.write64bit(addr);
+                o.write64bit(step);
+            }).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public StepEvent getCodeStep(long pc) {
+        return (StepEvent) callNode(Protocol.GET_CODE_STEP, o -> o.write64bit(pc));
+    }
+
+    @Override
+    public boolean hasDefUseIndex() {
+        return (getAnalyses() & Protocol.ANALYSIS_DEF_USE) != 0;
+    }
+
+    @Override
+    public long getRegisterDefinition(int tid, int reg, long step) {
+        try {
+            return call(Protocol.GET_REGISTER_DEFINITION, o -> {
+                o.write32bit(tid);
+                o.write32bit(reg);
+                o.write64bit(step);
+            }).read64bit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long[] getProducers(long ref) {
+        try {
+            return Protocol.readLongArray(call(Protocol.GET_PRODUCERS, o -> o.write64bit(ref)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long[] getBackwardSlice(long... roots) {
+        try {
+            return Protocol.readLongArray(call(Protocol.GET_BACKWARD_SLICE, o -> Protocol.writeLongArray(o, roots)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTaintAnalysis() {
+        return (getAnalyses() & Protocol.ANALYSIS_TAINT) != 0;
+    }
+
+    @Override
+    public synchronized List<IoEvent> getTaintInputs() {
+        if (taintInputs == null) {
+            try {
+                WordInputStream in = call(Protocol.GET_TAINT_INPUTS, null);
+                int count = in.read32bit();
+                List<IoEvent> result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(Protocol.readIoEvent(in));
+                }
+                taintInputs = Collections.unmodifiableList(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return taintInputs;
+    }
+
+    @Override
+    public int[] getRegisterTaint(int tid, int reg, long step) {
+        try {
+            return Protocol.readIntArray(call(Protocol.GET_REGISTER_TAINT, o -> {
+                o.write32bit(tid);
+                o.write32bit(reg);
+                o.write64bit(step);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int[] getStepTaint(int tid, long step) {
+        try {
+            return Protocol.readIntArray(call(Protocol.GET_STEP_TAINT, o -> {
+                o.write32bit(tid);
+                o.write64bit(step);
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int[] getMemoryTaint(long addr) {
+        try {
+            return Protocol.readIntArray(call(Protocol.GET_MEMORY_TAINT, o -> o.write64bit(addr)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public NavigableMap<Long, int[]> getTaintedPCs() {
+        try {
+            WordInputStream in = call(Protocol.GET_TAINTED_PCS, null);
+            int count = in.read32bit();
+            NavigableMap<Long, int[]> result = new TreeMap<>(Long::compareUnsigned);
+            for (int i = 0; i < count; i++) {
+                long pc = in.read64bit();
+                result.put(pc, Protocol.readIntArray(in));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemoryRead> getReadXrefs(long addr) throws MemoryNotMappedException {
+        try {
+            return readReads(callMemory(Protocol.GET_READ_XREFS, o -> o.write64bit(addr)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long addr) throws MemoryNotMappedException {
+        try {
+            return readUpdates(callMemory(Protocol.GET_WRITE_XREFS, o -> o.write64bit(addr)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the protocol has no range query, this is only meant for small ranges
+    @Override
+    public List<MemoryRead> getReadXrefs(long start, long end, long from, long to) {
+        List<MemoryRead> result = new ArrayList<>();
+        for (long addr = start; Long.compareUnsigned(addr, end) <= 0; addr++) {
+            try {
+                for (MemoryRead read : getReadXrefs(addr)) {
+                    if (read.address == addr && read.instructionCount >= from && read.instructionCount <= to) {
+                        result.add(read);
+                    }
+                }
+            } catch (MemoryNotMappedException e) {
+                // skip
+            }
+            if (addr == end) {
+                break;
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
+    @Override
+    public List<MemoryUpdate> getWriteXrefs(long start, long end, long from, long to) {
+        List<MemoryUpdate> result = new ArrayList<>();
+        for (long addr = start; Long.compareUnsigned(addr, end) <= 0; addr++) {
+            try {
+                for (MemoryUpdate write : getWriteXrefs(addr)) {
+                    if (write.address == addr && write.instructionCount >= from && write.instructionCount <= to) {
+                        result.add(write);
+                    }
+                }
+            } catch (MemoryNotMappedException e) {
+                // skip
+            }
+            if (addr == end) {
+                break;
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.instructionCount, b.instructionCount));
+        return result;
+    }
+
+    @Override
+    public void setSymbolize(boolean symbolize) {
+        this.symbolize = symbolize;
+    }
+
+    @Override
+    public boolean isSymbolize() {
+        return symbolize;
+    }
+}
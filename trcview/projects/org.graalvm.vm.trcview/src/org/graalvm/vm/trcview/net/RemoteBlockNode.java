@@ -0,0 +1,26 @@
+package org.graalvm.vm.trcview.net;
+
+import org.graalvm.vm.trcview.arch.io.InterruptEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.BlockNode;
+
+/**
+ * Block which was transferred from a {@link Server}. The children are fetched on demand.
+ */
+class RemoteBlockNode extends BlockNode {
+    private final int handle;
+
+    RemoteBlockNode(int handle, StepEvent head) {
+        super(head);
+        this.handle = handle;
+    }
+
+    RemoteBlockNode(int handle, InterruptEvent interrupt) {
+        super(interrupt);
+        this.handle = handle;
+    }
+
+    int getHandle() {
+        return handle;
+    }
+}
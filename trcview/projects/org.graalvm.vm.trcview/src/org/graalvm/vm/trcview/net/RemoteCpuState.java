@@ -0,0 +1,71 @@
+package org.graalvm.vm.trcview.net;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+
+/**
+ * CPU state of a {@link RemoteStepEvent}. Registers are fetched on demand and cached, since the
+ * state of a step never changes.
+ */
+class RemoteCpuState implements CpuState {
+    private final Remote remote;
+    private final int handle;
+    private final long step;
+    private final long pc;
+    private final int tid;
+    private final String text;
+
+    private final Map<String, Long> registers = new HashMap<>();
+    private final Map<Integer, Long> registersById = new HashMap<>();
+
+    RemoteCpuState(Remote remote, int handle, long step, long pc, int tid, String text) {
+        this.remote = remote;
+        this.handle = handle;
+        this.step = step;
+        this.pc = pc;
+        this.tid = tid;
+        this.text = text;
+    }
+
+    @Override
+    public long getStep() {
+        return step;
+    }
+
+    @Override
+    public long getPC() {
+        return pc;
+    }
+
+    @Override
+    public int getTid() {
+        return tid;
+    }
+
+    @Override
+    public synchronized long get(String name) {
+        Long value = registers.get(name);
+        if (value == null) {
+            value = remote.getRegister(handle, name);
+            registers.put(name, value);
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized long getRegisterById(int id) {
+        Long value = registersById.get(id);
+        if (value == null) {
+            value = remote.getRegisterById(handle, id);
+            registersById.put(id, value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
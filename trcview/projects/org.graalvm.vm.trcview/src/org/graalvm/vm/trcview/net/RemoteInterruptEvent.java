@@ -0,0 +1,21 @@
+package org.graalvm.vm.trcview.net;
+
+import org.graalvm.vm.trcview.arch.io.InterruptEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+
+/**
+ * Interrupt of an interrupt block which was transferred from a {@link Server}.
+ */
+class RemoteInterruptEvent extends InterruptEvent {
+    private final StepEvent step;
+
+    RemoteInterruptEvent(int tid, StepEvent step) {
+        super(tid);
+        this.step = step;
+    }
+
+    @Override
+    public StepEvent getStep() {
+        return step;
+    }
+}
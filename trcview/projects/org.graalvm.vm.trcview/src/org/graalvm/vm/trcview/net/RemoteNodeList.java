@@ -0,0 +1,83 @@
+package org.graalvm.vm.trcview.net;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.util.io.WordInputStream;
+
+/**
+ * Children of a block which was transferred from a {@link Server}. The children are fetched in
+ * pages of {@link Protocol#MAX_NODES} nodes; whenever a page is fetched, the next page is requested
+ * as well, so that sequential access does not wait for the server.
+ */
+class RemoteNodeList extends AbstractList<Node> {
+    private static final int PAGE_SIZE = Protocol.MAX_NODES;
+
+    private final Remote remote;
+    private final IntFunction<CompletableFuture<WordInputStream>> requester;
+    private final BlockNode block;
+    private final int size;
+
+    private final Node[][] pages;
+    private final CompletableFuture<?>[] pending;
+
+    /**
+     * Create a list which fetches its elements with {@code requester}. The requester is called with
+     * the index of the first node of a page. If {@code block} is not null, it is set as parent of all
+     * elements.
+     */
+    RemoteNodeList(Remote remote, IntFunction<CompletableFuture<WordInputStream>> requester, BlockNode block, int size) {
+        this.remote = remote;
+        this.requester = requester;
+        this.block = block;
+        this.size = size;
+        int count = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        pages = new Node[count][];
+        pending = new CompletableFuture<?>[count];
+    }
+
+    private void request(int page) {
+        if (page < pages.length && pages[page] == null && pending[page] == null) {
+            pending[page] = requester.apply(page * PAGE_SIZE);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node[] getPage(int page) {
+        if (pages[page] == null) {
+            request(page);
+            CompletableFuture<WordInputStream> future = (CompletableFuture<WordInputStream>) pending[page];
+            pending[page] = null;
+            List<Node> nodes = remote.readNodes(future);
+            Node[] result = nodes.toArray(new Node[nodes.size()]);
+            if (block != null) {
+                for (Node node : result) {
+                    if (node != null) {
+                        node.setParent(block);
+                    }
+                }
+            }
+            pages[page] = result;
+            request(page + 1);
+        }
+        return pages[page];
+    }
+
+    @Override
+    public synchronized Node get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        return getPage(index / PAGE_SIZE)[index % PAGE_SIZE];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,130 @@
+package org.graalvm.vm.trcview.net;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+
+/**
+ * Snapshot of a step which was transferred from a {@link Server}.
+ */
+class RemoteStepEvent extends StepEvent {
+    static final int CALL = 1;
+    static final int RETURN = 2;
+    static final int SYSCALL = 4;
+    static final int RETURN_FROM_SYSCALL = 8;
+
+    private final int handle;
+    private final long step;
+    private final long pc;
+    private final InstructionType type;
+    private final int flags;
+    private final byte[] machinecode;
+    private final String mnemonic;
+    private final String[] disassembly;
+    private final String[] symbolizedDisassembly;
+    private final StepFormat format;
+    private final int[] registerReads;
+    private final int[] registerWrites;
+    private CpuState state;
+
+    RemoteStepEvent(int handle, int tid, long step, long pc, InstructionType type, int flags, byte[] machinecode, String mnemonic, String[] disassembly, String[] symbolizedDisassembly,
+                    StepFormat format, int[] registerReads, int[] registerWrites) {
+        super(tid);
+        this.handle = handle;
+        this.step = step;
+        this.pc = pc;
+        this.type = type;
+        this.flags = flags;
+        this.machinecode = machinecode;
+        this.mnemonic = mnemonic;
+        this.disassembly = disassembly;
+        this.symbolizedDisassembly = symbolizedDisassembly;
+        this.format = format;
+        this.registerReads = registerReads;
+        this.registerWrites = registerWrites;
+    }
+
+    int getHandle() {
+        return handle;
+    }
+
+    void setState(CpuState state) {
+        this.state = state;
+    }
+
+    @Override
+    public byte[] getMachinecode() {
+        return machinecode;
+    }
+
+    @Override
+    public String[] getDisassemblyComponents() {
+        return disassembly;
+    }
+
+    @Override
+    public String[] getDisassemblyComponents(TraceAnalyzer trc) {
+        return symbolizedDisassembly;
+    }
+
+    @Override
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    @Override
+    public long getPC() {
+        return pc;
+    }
+
+    @Override
+    public boolean isCall() {
+        return (flags & CALL) != 0;
+    }
+
+    @Override
+    public boolean isReturn() {
+        return (flags & RETURN) != 0;
+    }
+
+    @Override
+    public boolean isSyscall() {
+        return (flags & SYSCALL) != 0;
+    }
+
+    @Override
+    public boolean isReturnFromSyscall() {
+        return (flags & RETURN_FROM_SYSCALL) != 0;
+    }
+
+    @Override
+    public InstructionType getType() {
+        return type;
+    }
+
+    @Override
+    public long getStep() {
+        return step;
+    }
+
+    @Override
+    public CpuState getState() {
+        return state;
+    }
+
+    @Override
+    public StepFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int[] getRegisterReads() {
+        return registerReads;
+    }
+
+    @Override
+    public int[] getRegisterWrites() {
+        return registerWrites;
+    }
+}
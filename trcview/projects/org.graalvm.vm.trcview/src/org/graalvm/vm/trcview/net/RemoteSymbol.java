@@ -0,0 +1,55 @@
+package org.graalvm.vm.trcview.net;
+
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+
+/**
+ * Mirror of a symbol of a {@link Server}. The visits are only transferred when they are needed.
+ */
+class RemoteSymbol extends ComputedSymbol {
+    private final Remote remote;
+    private int visitCount;
+    private long[] visits;
+
+    RemoteSymbol(Remote remote, String name, long address, Type type) {
+        super(name, address, type);
+        this.remote = remote;
+    }
+
+    synchronized void setVisitCount(int visitCount) {
+        if (this.visitCount != visitCount) {
+            visits = null;
+        }
+        this.visitCount = visitCount;
+    }
+
+    private synchronized long[] visits() {
+        if (visits == null) {
+            visits = remote.getVisits(address);
+        }
+        return visits;
+    }
+
+    @Override
+    public synchronized int getVisitCount() {
+        return visitCount;
+    }
+
+    @Override
+    public synchronized boolean hasVisits() {
+        return visitCount > 0;
+    }
+
+    @Override
+    public long getVisit(int i) {
+        long[] v = visits();
+        if (i < 0 || i >= v.length) {
+            throw new IndexOutOfBoundsException(Integer.toString(i));
+        }
+        return v[i];
+    }
+
+    @Override
+    public long[] getVisits() {
+        return visits().clone();
+    }
+}
@@ -0,0 +1,842 @@
+package org.graalvm.vm.trcview.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.Analysis;
+import org.graalvm.vm.trcview.analysis.Analyzer;
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.analysis.type.Prototype;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.io.TraceReader;
+import org.graalvm.vm.trcview.data.ChainTarget;
+import org.graalvm.vm.trcview.data.MemoryChainTarget;
+import org.graalvm.vm.trcview.data.RegisterChainTarget;
+import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.Parser;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.io.TraceParser;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Hosts a loaded trace for {@link Remote} clients.
+ *
+ * Every client connection is served by its own thread. Requests of all connections are executed
+ * one at a time on the hosted trace analyzer, since its state is not thread safe.
+ *
+ * The protocol has no authentication and clients can modify the symbols of the trace, so the
+ * server only listens on the loopback interface unless a bind address is given explicitly.
+ */
+public class Server implements Closeable {
+    private static final Logger log = Trace.create(Server.class);
+
+    // handles per connection; well above the node cache of the client
+    private static final int MAX_HANDLES = 256 * 1024;
+
+    private final TraceAnalyzer trc;
+    private final ServerSocket socket;
+    private final List<Connection> connections = new ArrayList<>();
+
+    public Server(TraceAnalyzer trc, int port) throws IOException {
+        this(trc, port, InetAddress.getLoopbackAddress());
+    }
+
+    public Server(TraceAnalyzer trc, int port, InetAddress bind) throws IOException {
+        this.trc = trc;
+        socket = new ServerSocket(port, 50, bind);
+        if (!socket.getInetAddress().isLoopbackAddress()) {
+            log.log(Levels.WARNING, "Listening on " + socket.getInetAddress() + ", every host which can reach this address can access and modify the trace");
+        }
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Accept connections in a background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::serve, "trace-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Accept connections until the server is closed.
+     */
+    public void serve() {
+        log.log(Levels.INFO, "Listening on port " + getPort());
+        while (!socket.isClosed()) {
+            Socket s;
+            try {
+                s = socket.accept();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.log(Levels.WARNING, "Accepting connection failed: " + e, e);
+                }
+                continue;
+            }
+            log.log(Levels.INFO, "Client connected: " + s.getRemoteSocketAddress());
+            Connection c = new Connection(s);
+            synchronized (connections) {
+                connections.add(c);
+            }
+            Thread thread = new Thread(c, "trace-server-" + s.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        synchronized (connections) {
+            for (Connection c : connections) {
+                c.close();
+            }
+            connections.clear();
+        }
+    }
+
+    private class Connection implements Runnable {
+        private final Socket socket;
+
+        // Nodes which were sent to the client. The client refers to them by their handle, since
+        // node ids are not unique: the head of a call block shares the id of another node. Only
+        // the most recently used handles are kept; handles are never reused, so an evicted handle
+        // is rejected instead of referring to another node.
+        private final Map<Node, Integer> handles = new IdentityHashMap<>();
+        private final Map<Integer, Node> nodes = new LinkedHashMap<Integer, Node>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+                if (size() > MAX_HANDLES) {
+                    handles.remove(eldest.getValue());
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+        private int nextHandle = 0;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+
+        @Override
+        public void run() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream()); OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+                ByteArrayOutputStream result = new ByteArrayOutputStream();
+                ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                WordInputStream request;
+                while ((request = Protocol.readFrame(in)) != null) {
+                    int id = request.read32bit();
+                    byte method = (byte) request.read8bit();
+
+                    result.reset();
+                    byte status = Protocol.OK;
+                    String error = null;
+                    try {
+                        synchronized (trc) {
+                            execute(method, request, new BEOutputStream(result));
+                        }
+                    } catch (MemoryNotMappedException e) {
+                        status = Protocol.NOT_MAPPED;
+                        error = e.getMessage();
+                    } catch (EvaluationException e) {
+                        status = Protocol.EVALUATION_FAILED;
+                        error = e.getMessage();
+                    } catch (UnsupportedOperationException e) {
+                        status = Protocol.UNSUPPORTED;
+                        error = e.getMessage();
+                    } catch (IllegalArgumentException e) {
+                        status = Protocol.ILLEGAL_ARGUMENT;
+                        error = e.getMessage();
+                    } catch (RuntimeException | ParseException e) {
+                        log.log(Levels.WARNING, "Request " + method + " failed: " + e, e);
+                        status = Protocol.ERROR;
+                        error = e.toString();
+                    }
+
+                    // the result must fit into a frame together with the id and status
+                    if (status == Protocol.OK && result.size() > Protocol.MAX_FRAME_SIZE - 5) {
+                        log.log(Levels.WARNING, "Result of request " + method + " is too large: " + result.size() + " bytes");
+                        status = Protocol.ERROR;
+                        error = "result too large: " + result.size() + " bytes";
+                    }
+
+                    frame.reset();
+                    WordOutputStream f = new BEOutputStream(frame);
+                    f.write32bit(id);
+                    f.write8bit(status);
+                    if (status == Protocol.OK) {
+                        result.writeTo(f);
+                    } else {
+                        IO.writeString(f, error);
+                    }
+                    Protocol.writeFrame(out, frame.toByteArray(), frame.size());
+
+                    // pipelined requests are answered in one go
+                    if (in.available() == 0) {
+                        out.flush();
+                    }
+                }
+            } catch (SocketException e) {
+                // connection closed
+            } catch (IOException e) {
+                log.log(Levels.WARNING, "Connection to " + socket.getRemoteSocketAddress() + " failed: " + e, e);
+            } finally {
+                synchronized (connections) {
+                    connections.remove(this);
+                }
+                log.log(Levels.INFO, "Client disconnected: " + socket.getRemoteSocketAddress());
+            }
+        }
+
+        private int handle(Node node) {
+            Integer handle = handles.get(node);
+            if (handle == null) {
+                handle = nextHandle++;
+                handles.put(node, handle);
+            }
+            // refresh the entry
+            nodes.put(handle, node);
+            return handle;
+        }
+
+        private Node node(int handle) {
+            Node node = nodes.get(handle);
+            if (node == null) {
+                throw new IllegalArgumentException("unknown node " + handle);
+            }
+            return node;
+        }
+
+        private StepEvent step(int handle) {
+            Node node = node(handle);
+            if (!(node instanceof StepEvent)) {
+                throw new IllegalArgumentException("node " + handle + " is not a step");
+            }
+            return (StepEvent) node;
+        }
+
+        private ComputedSymbol symbol(long pc) {
+            ComputedSymbol sym = trc.getComputedSymbol(pc);
+            if (sym == null) {
+                throw new IllegalArgumentException("no symbol at " + pc);
+            }
+            return sym;
+        }
+
+        private void execute(byte method, WordInputStream in, WordOutputStream out) throws IOException, MemoryNotMappedException, EvaluationException, ParseException {
+            switch (method) {
+                case Protocol.HELLO: {
+                    int version = in.read32bit();
+                    if (version != Protocol.VERSION) {
+                        throw new IllegalArgumentException("unsupported protocol version " + version);
+                    }
+                    out.write32bit(Protocol.VERSION);
+                    out.write16bit(trc.getArchitecture().getId());
+                    out.write64bit(trc.getInstructionCount());
+                    break;
+                }
+                case Protocol.GET_ROOT:
+                    writeNode(out, trc.getRoot());
+                    break;
+                case Protocol.GET_THREADS: {
+                    Map<Integer, Long> threads = trc.getThreadStarts();
+                    out.write32bit(threads.size());
+                    for (Entry<Integer, Long> entry : threads.entrySet()) {
+                        out.write32bit(entry.getKey());
+                        out.write64bit(entry.getValue());
+                    }
+                    break;
+                }
+                case Protocol.GET_CHILDREN: {
+                    Node node = node(in.read32bit());
+                    if (!(node instanceof BlockNode)) {
+                        throw new IllegalArgumentException("node is not a block");
+                    }
+                    BlockNode block = trc.getChildren((BlockNode) node);
+                    writeNodes(out, block.getNodes(), in.read32bit(), in.read32bit());
+                    break;
+                }
+                case Protocol.GET_PARENT:
+                    writeNode(out, trc.getParent(node(in.read32bit())));
+                    break;
+                case Protocol.GET_INSTRUCTION:
+                    writeNode(out, trc.getInstruction(in.read64bit()));
+                    break;
+                case Protocol.GET_NEXT_STEP:
+                    writeNode(out, trc.getNextStep(node(in.read32bit())));
+                    break;
+                case Protocol.GET_PREVIOUS_STEP:
+                    writeNode(out, trc.getPreviousStep(node(in.read32bit())));
+                    break;
+                case Protocol.GET_NEXT_PC: {
+                    Node node = node(in.read32bit());
+                    writeNode(out, trc.getNextPC(node, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_NEXT_STEP_WHERE: {
+                    Node node = node(in.read32bit());
+                    String condition = Protocol.readLongString(in);
+                    writeNode(out, trc.getNextStep(node, new Parser(condition).parseExpression()));
+                    break;
+                }
+                case Protocol.GET_SYSCALLS: {
+                    List<Node> syscalls = trc.getSyscalls();
+                    writeNodes(out, syscalls, in.read32bit(), in.read32bit());
+                    break;
+                }
+                case Protocol.GET_IO: {
+                    Map<Integer, List<IoEvent>> io = trc.getIo();
+                    out.write32bit(io.size());
+                    for (Entry<Integer, List<IoEvent>> entry : io.entrySet()) {
+                        out.write32bit(entry.getKey());
+                        out.write32bit(entry.getValue().size());
+                        for (IoEvent evt : entry.getValue()) {
+                            Protocol.writeIoEvent(out, evt);
+                        }
+                    }
+                    break;
+                }
+                case Protocol.GET_REGISTER: {
+                    CpuState state = step(in.read32bit()).getState();
+                    out.write64bit(state.get(IO.readString(in)));
+                    break;
+                }
+                case Protocol.GET_REGISTER_BY_ID: {
+                    CpuState state = step(in.read32bit()).getState();
+                    out.write64bit(state.getRegisterById(in.read32bit()));
+                    break;
+                }
+                case Protocol.GET_PAGE: {
+                    long addr = in.read64bit();
+                    long insn = in.read64bit();
+                    byte[] data = new byte[Protocol.PAGE_SIZE];
+                    long[] unmapped = new long[Protocol.PAGE_SIZE / 64];
+                    for (int i = 0; i < data.length; i++) {
+                        try {
+                            data[i] = trc.getI8(addr + i, insn);
+                        } catch (MemoryNotMappedException e) {
+                            unmapped[i / 64] |= 1L << (i % 64);
+                        }
+                    }
+                    out.write(data);
+                    Protocol.writeLongArray(out, unmapped);
+                    break;
+                }
+                case Protocol.GET_LAST_READ: {
+                    long addr = in.read64bit();
+                    writeRead(out, trc.getLastRead(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_NEXT_READ: {
+                    long addr = in.read64bit();
+                    writeRead(out, trc.getNextRead(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_LAST_WRITE: {
+                    long addr = in.read64bit();
+                    writeUpdate(out, trc.getLastWrite(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_NEXT_WRITE: {
+                    long addr = in.read64bit();
+                    writeUpdate(out, trc.getNextWrite(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_PREVIOUS_WRITES: {
+                    long addr = in.read64bit();
+                    long insn = in.read64bit();
+                    List<MemoryUpdate> updates = trc.getPreviousWrites(addr, insn, in.read64bit());
+                    out.write32bit(updates.size());
+                    for (MemoryUpdate update : updates) {
+                        writeUpdate(out, update);
+                    }
+                    break;
+                }
+                case Protocol.FIND_WRITES: {
+                    long value = in.read64bit();
+                    long mask = in.read64bit();
+                    int size = in.read32bit();
+                    long from = in.read64bit();
+                    long to = in.read64bit();
+                    List<MemoryUpdate> updates = trc.findWrites(value, mask, size, from, to, in.read32bit());
+                    out.write32bit(updates.size());
+                    for (MemoryUpdate update : updates) {
+                        writeUpdate(out, update);
+                    }
+                    break;
+                }
+                case Protocol.FIND_FIRST_WRITE: {
+                    long value = in.read64bit();
+                    long mask = in.read64bit();
+                    int size = in.read32bit();
+                    writeUpdate(out, trc.findFirstWrite(value, mask, size, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_MAP_NODE: {
+                    long addr = in.read64bit();
+                    writeNode(out, trc.getMapNode(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_SEGMENTS:
+                    Protocol.writeSegments(out, trc.getMemorySegments(in.read64bit()));
+                    break;
+                case Protocol.GET_READ_XREFS: {
+                    List<MemoryRead> reads = trc.getReadXrefs(in.read64bit());
+                    out.write32bit(reads.size());
+                    for (MemoryRead read : reads) {
+                        writeRead(out, read);
+                    }
+                    break;
+                }
+                case Protocol.GET_WRITE_XREFS: {
+                    List<MemoryUpdate> updates = trc.getWriteXrefs(in.read64bit());
+                    out.write32bit(updates.size());
+                    for (MemoryUpdate update : updates) {
+                        writeUpdate(out, update);
+                    }
+                    break;
+                }
+                case Protocol.GET_MAPPED_FILE: {
+                    long pc = in.read64bit();
+                    out.write64bit(trc.getBase(pc));
+                    out.write64bit(trc.getLoadBias(pc));
+                    out.write64bit(trc.getOffset(pc));
+                    out.write64bit(trc.getFileOffset(pc));
+                    IO.writeString(out, trc.getFilename(pc));
+                    break;
+                }
+                case Protocol.GET_SYMBOL:
+                    Protocol.writeSymbol(out, trc.getSymbol(in.read64bit()));
+                    break;
+                case Protocol.GET_TRACE_SYMBOLS: {
+                    NavigableMap<Long, org.graalvm.vm.posix.elf.Symbol> symbols = trc.getTraceSymbols();
+                    out.write32bit(symbols.size());
+                    for (Entry<Long, org.graalvm.vm.posix.elf.Symbol> entry : symbols.entrySet()) {
+                        out.write64bit(entry.getKey());
+                        Protocol.writeSymbol(out, entry.getValue());
+                    }
+                    break;
+                }
+                case Protocol.GET_SYMBOLS: {
+                    Collection<ComputedSymbol> symbols = trc.getSymbols();
+                    out.write32bit(symbols.size());
+                    for (ComputedSymbol sym : symbols) {
+                        writeComputedSymbol(out, sym);
+                    }
+                    break;
+                }
+                case Protocol.GET_VISITS:
+                    Protocol.writeLongArray(out, symbol(in.read64bit()).getVisits());
+                    break;
+                case Protocol.RENAME_SYMBOL: {
+                    ComputedSymbol sym = symbol(in.read64bit());
+                    trc.renameSymbol(sym, IO.readString(in));
+                    break;
+                }
+                case Protocol.SET_PROTOTYPE: {
+                    ComputedSymbol sym = symbol(in.read64bit());
+                    trc.setPrototype(sym, IO.readPrototype(in));
+                    break;
+                }
+                case Protocol.ADD_SUBROUTINE: {
+                    long pc = in.read64bit();
+                    String name = IO.readString(in);
+                    Prototype prototype = IO.readPrototype(in);
+                    trc.addSubroutine(pc, name, prototype);
+                    writeComputedSymbol(out, symbol(pc));
+                    break;
+                }
+                case Protocol.REANALYZE:
+                    trc.reanalyze();
+                    break;
+                case Protocol.GET_ANALYSES:
+                    out.write32bit((trc.hasTypeRecovery() ? Protocol.ANALYSIS_TYPE_RECOVERY : 0) | (trc.hasDefUseIndex() ? Protocol.ANALYSIS_DEF_USE : 0) |
+                                    (trc.hasTaintAnalysis() ? Protocol.ANALYSIS_TAINT : 0));
+                    break;
+                case Protocol.GET_PROFILE: {
+                    Profile profile = trc.getProfile();
+                    if (profile == null) {
+                        out.write8bit((byte) 0);
+                    } else {
+                        out.write8bit((byte) 1);
+                        profile.write(out);
+                    }
+                    break;
+                }
+                case Protocol.GET_HEATMAP_TILE: {
+                    int rowShift = in.read32bit();
+                    int columnShift = in.read32bit();
+                    int row = in.read32bit();
+                    int column = in.read32bit();
+                    int rows = in.read32bit();
+                    AccessHeatmap.Level tile = trc.getHeatmapTile(rowShift, columnShift, row, column, rows, in.read32bit());
+                    if (tile == null) {
+                        out.write8bit((byte) 0);
+                    } else {
+                        out.write8bit((byte) 1);
+                        tile.write(out);
+                    }
+                    break;
+                }
+                case Protocol.GET_REGISTER_TYPE: {
+                    long pc = in.read64bit();
+                    out.write64bit(trc.getRegisterType(pc, in.read32bit()));
+                    break;
+                }
+                case Protocol.GET_REGISTER_DATA_TYPE: {
+                    long pc = in.read64bit();
+                    out.write64bit(trc.getRegisterDataType(pc, in.read32bit()));
+                    break;
+                }
+                case Protocol.IS_REGISTER_LIVE: {
+                    long pc = in.read64bit();
+                    out.write8bit((byte) (trc.isRegisterLive(pc, in.read32bit()) ? 1 : 0));
+                    break;
+                }
+                case Protocol.GET_REGISTER_TYPE_CHAIN: {
+                    long pc = in.read64bit();
+                    List<ChainTarget> chain = trc.getRegisterTypeChain(pc, in.read32bit());
+                    out.write32bit(chain.size());
+                    for (ChainTarget target : chain) {
+                        writeChainTarget(out, target);
+                    }
+                    break;
+                }
+                case Protocol.GET_MEMORY_TYPE: {
+                    long addr = in.read64bit();
+                    out.write64bit(trc.getMemoryType(addr, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_CODE_STEP:
+                    writeNode(out, trc.getCodeStep(in.read64bit()));
+                    break;
+                case Protocol.GET_REGISTER_DEFINITION: {
+                    int tid = in.read32bit();
+                    int reg = in.read32bit();
+                    out.write64bit(trc.getRegisterDefinition(tid, reg, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_PRODUCERS:
+                    Protocol.writeLongArray(out, trc.getProducers(in.read64bit()));
+                    break;
+                case Protocol.GET_BACKWARD_SLICE:
+                    Protocol.writeLongArray(out, trc.getBackwardSlice(Protocol.readLongArray(in)));
+                    break;
+                case Protocol.GET_TAINT_INPUTS: {
+                    List<IoEvent> inputs = trc.getTaintInputs();
+                    out.write32bit(inputs.size());
+                    for (IoEvent evt : inputs) {
+                        Protocol.writeIoEvent(out, evt);
+                    }
+                    break;
+                }
+                case Protocol.GET_REGISTER_TAINT: {
+                    int tid = in.read32bit();
+                    int reg = in.read32bit();
+                    Protocol.writeIntArray(out, trc.getRegisterTaint(tid, reg, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_STEP_TAINT: {
+                    int tid = in.read32bit();
+                    Protocol.writeIntArray(out, trc.getStepTaint(tid, in.read64bit()));
+                    break;
+                }
+                case Protocol.GET_MEMORY_TAINT:
+                    Protocol.writeIntArray(out, trc.getMemoryTaint(in.read64bit()));
+                    break;
+                case Protocol.GET_TAINTED_PCS: {
+                    NavigableMap<Long, int[]> pcs = trc.getTaintedPCs();
+                    out.write32bit(pcs.size());
+                    for (Entry<Long, int[]> entry : pcs.entrySet()) {
+                        out.write64bit(entry.getKey());
+                        Protocol.writeIntArray(out, entry.getValue());
+                    }
+                    break;
+                }
+                default:
+                    throw new UnsupportedOperationException("unknown method " + method);
+            }
+        }
+
+        private void writeNodes(WordOutputStream out, List<Node> list, int start, int count) throws IOException {
+            int n = Math.max(0, Math.min(Math.min(count, Protocol.MAX_NODES), list.size() - start));
+            out.write32bit(list.size());
+            out.write32bit(n);
+            for (int i = 0; i < n; i++) {
+                writeNode(out, list.get(start + i));
+            }
+        }
+
+        private void writeNode(WordOutputStream out, Node node) throws IOException {
+            if (node instanceof StepEvent) {
+                out.write8bit(Protocol.NODE_STEP);
+                writeStep(out, (StepEvent) node);
+            } else if (node instanceof BlockNode) {
+                BlockNode block = (BlockNode) node;
+                out.write8bit(Protocol.NODE_BLOCK);
+                out.write32bit(handle(block));
+                out.write64bit(block.getId());
+                if (block.isInterrupt()) {
+                    out.write8bit((byte) 1);
+                    out.write32bit(block.getInterrupt().getTid());
+                } else {
+                    out.write8bit((byte) 0);
+                }
+                writeNode(out, block.getHead());
+                out.write32bit(block.size());
+            } else {
+                out.write8bit(Protocol.NODE_NULL);
+            }
+        }
+
+        private void writeStep(WordOutputStream out, StepEvent step) throws IOException {
+            out.write32bit(handle(step));
+            out.write64bit(step.getId());
+            out.write32bit(step.getTid());
+            out.write64bit(step.getStep());
+            out.write64bit(step.getPC());
+            out.write8bit((byte) step.getType().ordinal());
+            out.write8bit((byte) ((step.isCall() ? 1 : 0) | (step.isReturn() ? 2 : 0) | (step.isSyscall() ? 4 : 0) | (step.isReturnFromSyscall() ? 8 : 0)));
+            Protocol.writeBytes(out, step.getMachinecode());
+            IO.writeString(out, step.getMnemonic());
+            Protocol.writeStrings(out, step.getDisassemblyComponents());
+            Protocol.writeStrings(out, step.getDisassemblyComponents(trc));
+
+            CpuState state = step.getState();
+            out.write64bit(state.getStep());
+            out.write64bit(state.getPC());
+            out.write32bit(state.getTid());
+            Protocol.writeLongString(out, state.toString());
+
+            Protocol.writeIntArray(out, step.getRegisterReads());
+            Protocol.writeIntArray(out, step.getRegisterWrites());
+            writeMemoryEvents(out, step.getDataReads());
+            writeMemoryEvents(out, step.getDataWrites());
+        }
+
+        private void writeMemoryEvents(WordOutputStream out, List<MemoryEvent> events) throws IOException {
+            out.write32bit(events.size());
+            for (MemoryEvent evt : events) {
+                out.write32bit(evt.getTid());
+                out.write64bit(evt.getAddress());
+                out.write8bit((byte) evt.getSize());
+                out.write8bit((byte) ((evt.isBigEndian() ? 1 : 0) | (evt.isWrite() ? 2 : 0) | (evt.hasData() ? 4 : 0)));
+                if (evt.hasData()) {
+                    if (evt.getSize() == 16) {
+                        out.write64bit(evt.getVector().getI64(0));
+                        out.write64bit(evt.getVector().getI64(1));
+                    } else {
+                        out.write64bit(evt.getValue());
+                    }
+                }
+            }
+        }
+
+        private void writeRead(WordOutputStream out, MemoryRead read) throws IOException {
+            if (read == null) {
+                out.write8bit((byte) 0);
+                return;
+            }
+            out.write8bit((byte) 1);
+            out.write64bit(read.address);
+            out.write8bit(read.size);
+            out.write64bit(read.instructionCount);
+            writeNode(out, read.node);
+            writeNode(out, read.step);
+        }
+
+        private void writeUpdate(WordOutputStream out, MemoryUpdate update) throws IOException {
+            if (update == null) {
+                out.write8bit((byte) 0);
+                return;
+            }
+            out.write8bit((byte) 1);
+            out.write8bit((byte) (update.be ? 1 : 0));
+            out.write64bit(update.address);
+            out.write8bit(update.size);
+            out.write64bit(update.value);
+            out.write64bit(update.instructionCount);
+            writeNode(out, update.node);
+            writeNode(out, update.step);
+        }
+
+        private void writeChainTarget(WordOutputStream out, ChainTarget target) throws IOException {
+            if (target instanceof RegisterChainTarget) {
+                RegisterChainTarget tgt = (RegisterChainTarget) target;
+                out.write8bit(Protocol.CHAIN_REGISTER);
+                out.write32bit(tgt.register);
+                out.write64bit(tgt.map.getPC());
+                out.write64bit(tgt.map.getDirect(tgt.register));
+            } else if (target instanceof MemoryChainTarget) {
+                MemoryChainTarget tgt = (MemoryChainTarget) target;
+                out.write8bit(Protocol.CHAIN_MEMORY);
+                out.write64bit(tgt.address);
+                out.write64bit(tgt.step);
+            } else {
+                out.write8bit(Protocol.CHAIN_OTHER);
+            }
+        }
+
+        private void writeComputedSymbol(WordOutputStream out, ComputedSymbol sym) throws IOException {
+            out.write64bit(sym.address);
+            IO.writeString(out, sym.name);
+            out.write8bit((byte) sym.type.ordinal());
+            IO.writePrototype(out, sym.prototype);
+            out.write32bit(sym.getVisitCount());
+            Protocol.writeLongArray(out, sym.savedRegisters.toLongArray());
+            Protocol.writeLongArray(out, sym.destroyedRegisters.toLongArray());
+            out.write8bit((byte) (sym.hasUnusedRegisters() ? 1 : 0));
+        }
+    }
+
+    /**
+     * Load and analyze a whole trace so that it can be served.
+     */
+    public static Local load(InputStream in) throws IOException {
+        return load(in, false, false, false);
+    }
+
+    /**
+     * Load and analyze a whole trace so that it can be served, optionally with type recovery, the
+     * def-use index and the taint analysis.
+     */
+    public static Local load(InputStream in, boolean typeRecovery, boolean defUse, boolean taint) throws IOException {
+        TraceReader reader = new TraceFileReader(in);
+        List<Analyzer> analyzers = new ArrayList<>();
+        Analyzer analyzer = reader.getAnalyzer();
+        if (analyzer != null) {
+            analyzers.add(analyzer);
+        }
+        Analysis analysis = new Analysis(reader.getArchitecture(), analyzers, typeRecovery, true, defUse, taint);
+        analysis.start();
+        Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, null);
+        BlockNode root = null;
+        for (BlockNode block : threads.values()) {
+            if (root == null) {
+                root = block;
+            } else if (block.getStep() < root.getStep()) {
+                root = block;
+            }
+        }
+        analysis.finish(root);
+        if (root == null || root.getFirstStep() == null) {
+            throw new IOException("trace contains no steps");
+        }
+        return new Local(reader.getArchitecture(), root, threads, analysis);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Trace.setup();
+
+        int port = Protocol.DEFAULT_PORT;
+        InetAddress bind = InetAddress.getLoopbackAddress();
+        boolean typeRecovery = false;
+        boolean defUse = false;
+        boolean taint = false;
+        int i = 0;
+        while (args.length - i > 1) {
+            if (args[i].equals("-types")) {
+                typeRecovery = true;
+                i++;
+            } else if (args[i].equals("-slice")) {
+                defUse = true;
+                i++;
+            } else if (args[i].equals("-taint")) {
+                taint = true;
+                i++;
+            } else if (args[i].equals("-port") && args.length - i > 2) {
+                try {
+                    port = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid port: " + args[i + 1]);
+                    System.exit(1);
+                }
+                i += 2;
+            } else if (args[i].equals("-bind") && args.length - i > 2) {
+                try {
+                    bind = InetAddress.getByName(args[i + 1]);
+                } catch (IOException e) {
+                    System.out.println("Invalid bind address: " + args[i + 1]);
+                    System.exit(1);
+                }
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        if (args.length - i != 1) {
+            System.out.println("Usage: Server [-port N] [-bind ADDRESS] [-types] [-slice] [-taint] trace.trc");
+            System.exit(1);
+        }
+
+        File file = new File(args[i]);
+        try {
+            log.log(Levels.INFO, "Loading " + file + "...");
+            TraceAnalyzer trc;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                trc = load(in, typeRecovery, defUse, taint);
+            }
+            Server server = new Server(trc, port, bind);
+            log.log(Levels.INFO, "Serving " + file + " on port " + server.getPort());
+            server.serve();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+            log.log(Levels.ERROR, "Server failed: " + e, e);
+            System.exit(1);
+        }
+    }
+}
@@ -12,19 +12,25 @@ import org.graalvm.vm.posix.elf.Symbol;
 import org.graalvm.vm.trcview.analysis.ComputedSymbol;
 import org.graalvm.vm.trcview.analysis.SymbolRenameListener;
 import org.graalvm.vm.trcview.analysis.device.Device;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
 import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
 import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
 import org.graalvm.vm.trcview.analysis.type.Prototype;
 import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.io.CpuState;
 import org.graalvm.vm.trcview.arch.io.IoEvent;
-import org.graalvm.vm.trcview.data.DynamicTypePropagation;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.data.ChainTarget;
 import org.graalvm.vm.trcview.data.TypedMemory;
+import org.graalvm.vm.trcview.data.type.VariableType;
 import org.graalvm.vm.trcview.decode.ABI;
 import org.graalvm.vm.trcview.expression.EvaluationException;
+import org.graalvm.vm.trcview.expression.ExpressionSymbols;
+import org.graalvm.vm.trcview.expression.ast.Expression;
 import org.graalvm.vm.trcview.io.BlockNode;
 import org.graalvm.vm.trcview.io.Node;
 import org.graalvm.vm.trcview.ui.event.ChangeListener;
@@ -84,6 +90,9 @@ public interface TraceAnalyzer {
 
     Map<Integer, List<IoEvent>> getIo();
 
+    /**
+     * @return the devices or null if they are not available for this trace
+     */
     Map<Integer, Device> getDevices();
 
     // search
@@ -95,6 +104,8 @@ public interface TraceAnalyzer {
 
     Node getNextPC(Node node, long pc);
 
+    Node getNextStep(Node node, Expression condition) throws EvaluationException;
+
     // memory
     byte getI8(long address, long insn) throws MemoryNotMappedException;
 
@@ -114,6 +125,10 @@ public interface TraceAnalyzer {
 
     List<MemoryUpdate> getPreviousWrites(long address, long insn, long count) throws MemoryNotMappedException;
 
+    List<MemoryUpdate> findWrites(long value, long mask, int size, long from, long to, int limit);
+
+    MemoryUpdate findFirstWrite(long value, long mask, int size, long from);
+
     Node getMapNode(long address, long insn) throws MemoryNotMappedException;
 
     List<MemorySegment> getMemorySegments(long insn);
@@ -170,12 +185,100 @@ public interface TraceAnalyzer {
 
     TypedMemory getTypedMemory();
 
-    DynamicTypePropagation getTypeRecovery();
+    ExpressionSymbols getExpressionSymbols();
+
+    // analyses
+    /**
+     * @return the profile or null if it is not available for this trace
+     */
+    Profile getProfile();
+
+    /**
+     * Get a tile of the memory access heatmap: {@code rows} rows starting at {@code row} and
+     * {@code columns} columns starting at {@code column} of the level with the given shifts, see
+     * {@link AccessHeatmap#getLevel(int, int)} and {@link AccessHeatmap.Level#getTile}. A tile
+     * without rows and columns only describes the geometry of the level.
+     *
+     * @return the tile or null if no heatmap is available for this trace
+     */
+    AccessHeatmap.Level getHeatmapTile(int rowShift, int columnShift, int row, int column, int rows, int columns);
+
+    // type recovery, see DynamicTypePropagation; the other methods throw an
+    // UnsupportedOperationException if this is false
+    boolean hasTypeRecovery();
+
+    /**
+     * Get the resolved type flags (see {@link VariableType}) of register {@code reg} at {@code pc}.
+     */
+    long getRegisterType(long pc, int reg);
+
+    /**
+     * Get the type flags of the data which flows into register {@code reg} at {@code pc}.
+     */
+    long getRegisterDataType(long pc, int reg);
+
+    boolean isRegisterLive(long pc, int reg);
+
+    /**
+     * Get the registers and memory locations the type of register {@code reg} at {@code pc} was
+     * resolved from.
+     */
+    List<ChainTarget> getRegisterTypeChain(long pc, int reg);
+
+    /**
+     * Get the resolved type flags (see {@link VariableType}) of the memory at {@code addr} at step
+     * {@code step}.
+     */
+    long getMemoryType(long addr, long step);
+
+    /**
+     * @return a step which executed the instruction at {@code pc} or null
+     */
+    StepEvent getCodeStep(long pc);
+
+    // def-use index, see DefUseIndex; steps are referred to by DefUseIndex.ref(tid, step) and the
+    // other methods throw an UnsupportedOperationException if this is false
+    boolean hasDefUseIndex();
+
+    long getRegisterDefinition(int tid, int reg, long step);
+
+    long[] getProducers(long ref);
+
+    long[] getBackwardSlice(long... roots);
+
+    // taint analysis, see TaintAnalyzer; the other methods throw an UnsupportedOperationException
+    // if this is false
+    boolean hasTaintAnalysis();
+
+    /**
+     * Get the inputs of the taint analysis, the label of an input is its index.
+     */
+    List<IoEvent> getTaintInputs();
+
+    int[] getRegisterTaint(int tid, int reg, long step);
+
+    int[] getStepTaint(int tid, long step);
+
+    int[] getMemoryTaint(long addr);
+
+    NavigableMap<Long, int[]> getTaintedPCs();
 
     List<MemoryRead> getReadXrefs(long addr) throws MemoryNotMappedException;
 
     List<MemoryUpdate> getWriteXrefs(long addr) throws MemoryNotMappedException;
 
+    /**
+     * Get the reads which start between the addresses {@code start} and {@code end} (inclusive) in
+     * the steps {@code from} to {@code to}, ordered by step. Unmapped addresses are skipped.
+     */
+    List<MemoryRead> getReadXrefs(long start, long end, long from, long to);
+
+    /**
+     * Get the writes which start between the addresses {@code start} and {@code end} (inclusive)
+     * in the steps {@code from} to {@code to}, ordered by step. Unmapped addresses are skipped.
+     */
+    List<MemoryUpdate> getWriteXrefs(long start, long end, long from, long to);
+
     void setSymbolize(boolean symbolize);
 
     boolean isSymbolize();
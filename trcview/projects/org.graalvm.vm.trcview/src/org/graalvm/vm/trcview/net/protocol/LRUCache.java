@@ -0,0 +1,24 @@
+package org.graalvm.vm.trcview.net.protocol;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map which evicts the least recently used entry once it holds more than {@code capacity}
+ * entries. Not thread safe.
+ */
+public class LRUCache<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    public LRUCache(int capacity) {
+        super(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
@@ -0,0 +1,350 @@
+package org.graalvm.vm.trcview.net.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.analysis.memory.MemorySegment;
+import org.graalvm.vm.trcview.analysis.memory.Protection;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.TraceSymbol;
+import org.graalvm.vm.util.io.BEInputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+/**
+ * Binary protocol between {@link org.graalvm.vm.trcview.net.Server} and
+ * {@link org.graalvm.vm.trcview.net.Remote}.
+ *
+ * Every message is a frame consisting of its length (32bit) and the payload. A request payload
+ * starts with the request id (32bit) and the method (8bit), followed by the arguments. The server
+ * answers every request in order with a response which starts with the request id and a status
+ * (8bit); on success the result follows, otherwise an error message. Since requests carry an id,
+ * the client may send further requests before the previous responses arrived.
+ *
+ * Nodes are transferred as snapshots together with a handle. The handle is only valid on the
+ * connection which transferred the node and is used by the client to refer to the node in later
+ * requests.
+ */
+public class Protocol {
+    public static final int VERSION = 2;
+    public static final int DEFAULT_PORT = 40400;
+
+    /** Bytes per memory page which is transferred as a whole. */
+    public static final int PAGE_SIZE = 4096;
+    /** Maximum number of nodes which are transferred with one request. */
+    public static final int MAX_NODES = 500;
+    /** Maximum payload size of a frame, larger frames are rejected before they are allocated. */
+    public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    // methods
+    public static final byte HELLO = 0;
+    public static final byte GET_ROOT = 1;
+    public static final byte GET_THREADS = 2;
+    public static final byte GET_CHILDREN = 3;
+    public static final byte GET_PARENT = 4;
+    public static final byte GET_INSTRUCTION = 5;
+    public static final byte GET_NEXT_STEP = 6;
+    public static final byte GET_PREVIOUS_STEP = 7;
+    public static final byte GET_NEXT_PC = 8;
+    public static final byte GET_NEXT_STEP_WHERE = 9;
+    public static final byte GET_SYSCALLS = 10;
+    public static final byte GET_IO = 11;
+    public static final byte GET_REGISTER = 12;
+    public static final byte GET_REGISTER_BY_ID = 13;
+    public static final byte GET_PAGE = 14;
+    public static final byte GET_LAST_READ = 15;
+    public static final byte GET_NEXT_READ = 16;
+    public static final byte GET_LAST_WRITE = 17;
+    public static final byte GET_NEXT_WRITE = 18;
+    public static final byte GET_PREVIOUS_WRITES = 19;
+    public static final byte GET_MAP_NODE = 20;
+    public static final byte GET_SEGMENTS = 21;
+    public static final byte GET_READ_XREFS = 22;
+    public static final byte GET_WRITE_XREFS = 23;
+    public static final byte GET_MAPPED_FILE = 24;
+    public static final byte GET_SYMBOL = 25;
+    public static final byte GET_TRACE_SYMBOLS = 26;
+    public static final byte GET_SYMBOLS = 27;
+    public static final byte GET_VISITS = 28;
+    public static final byte RENAME_SYMBOL = 29;
+    public static final byte SET_PROTOTYPE = 30;
+    public static final byte ADD_SUBROUTINE = 31;
+    public static final byte REANALYZE = 32;
+    public static final byte FIND_WRITES = 33;
+    public static final byte FIND_FIRST_WRITE = 34;
+    public static final byte GET_ANALYSES = 35;
+    public static final byte GET_PROFILE = 36;
+    public static final byte GET_HEATMAP_TILE = 37;
+    public static final byte GET_REGISTER_TYPE = 38;
+    public static final byte GET_REGISTER_DATA_TYPE = 39;
+    public static final byte IS_REGISTER_LIVE = 40;
+    public static final byte GET_REGISTER_TYPE_CHAIN = 41;
+    public static final byte GET_MEMORY_TYPE = 42;
+    public static final byte GET_CODE_STEP = 43;
+    public static final byte GET_REGISTER_DEFINITION = 44;
+    public static final byte GET_PRODUCERS = 45;
+    public static final byte GET_BACKWARD_SLICE = 46;
+    public static final byte GET_TAINT_INPUTS = 47;
+    public static final byte GET_REGISTER_TAINT = 48;
+    public static final byte GET_STEP_TAINT = 49;
+    public static final byte GET_MEMORY_TAINT = 50;
+    public static final byte GET_TAINTED_PCS = 51;
+
+    // status
+    public static final byte OK = 0;
+    public static final byte NOT_MAPPED = 1;
+    public static final byte EVALUATION_FAILED = 2;
+    public static final byte UNSUPPORTED = 3;
+    public static final byte ILLEGAL_ARGUMENT = 4;
+    public static final byte ERROR = 5;
+
+    // node kinds
+    public static final byte NODE_NULL = 0;
+    public static final byte NODE_STEP = 1;
+    public static final byte NODE_BLOCK = 2;
+
+    // available analyses
+    public static final int ANALYSIS_TYPE_RECOVERY = 1;
+    public static final int ANALYSIS_DEF_USE = 2;
+    public static final int ANALYSIS_TAINT = 4;
+
+    // type chain targets
+    public static final byte CHAIN_OTHER = 0;
+    public static final byte CHAIN_REGISTER = 1;
+    public static final byte CHAIN_MEMORY = 2;
+
+    public static void writeFrame(OutputStream out, byte[] data, int length) throws IOException {
+        if (length > MAX_FRAME_SIZE) {
+            throw new IOException("frame too large: " + length + " bytes");
+        }
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Read one frame.
+     *
+     * @return the payload, or null at the end of the stream
+     */
+    public static WordInputStream readFrame(InputStream in) throws IOException {
+        int length = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b == -1) {
+                if (i == 0) {
+                    return null;
+                }
+                throw new EOFException();
+            }
+            length = (length << 8) | b;
+        }
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("invalid frame length " + length);
+        }
+        byte[] data = new byte[length];
+        int pos = 0;
+        while (pos < length) {
+            int n = in.read(data, pos, length - pos);
+            if (n == -1) {
+                throw new EOFException();
+            }
+            pos += n;
+        }
+        return new BEInputStream(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Check a length field against the remaining payload of the frame, so that a corrupt or
+     * malicious length cannot allocate more than the frame itself.
+     */
+    private static void checkLength(WordInputStream in, int length, int elementSize) throws IOException {
+        if (length < 0 || (long) length * elementSize > in.available()) {
+            throw new IOException("invalid length " + length);
+        }
+    }
+
+    public static final String readLongString(WordInputStream in) throws IOException {
+        int length = in.read32bit();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(in, length, 1);
+        byte[] data = new byte[length];
+        in.read(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    public static final void writeLongString(WordOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.write32bit(-1);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.write32bit(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static final byte[] readBytes(WordInputStream in) throws IOException {
+        int length = in.read32bit();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(in, length, 1);
+        byte[] data = new byte[length];
+        in.read(data);
+        return data;
+    }
+
+    public static final void writeBytes(WordOutputStream out, byte[] data) throws IOException {
+        if (data == null) {
+            out.write32bit(-1);
+        } else {
+            out.write32bit(data.length);
+            out.write(data);
+        }
+    }
+
+    public static final String[] readStrings(WordInputStream in) throws IOException {
+        int length = in.read32bit();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(in, length, 2);
+        String[] result = new String[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = IO.readString(in);
+        }
+        return result;
+    }
+
+    public static final void writeStrings(WordOutputStream out, String[] data) throws IOException {
+        if (data == null) {
+            out.write32bit(-1);
+            return;
+        }
+        out.write32bit(data.length);
+        for (String s : data) {
+            IO.writeString(out, s);
+        }
+    }
+
+    public static final long[] readLongArray(WordInputStream in) throws IOException {
+        int length = in.read32bit();
+        checkLength(in, length, 8);
+        long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = in.read64bit();
+        }
+        return result;
+    }
+
+    public static final void writeLongArray(WordOutputStream out, long[] data) throws IOException {
+        out.write32bit(data.length);
+        for (long value : data) {
+            out.write64bit(value);
+        }
+    }
+
+    public static final int[] readIntArray(WordInputStream in) throws IOException {
+        int length = in.read32bit();
+        checkLength(in, length, 4);
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = in.read32bit();
+        }
+        return result;
+    }
+
+    public static final void writeIntArray(WordOutputStream out, int[] data) throws IOException {
+        if (data == null) {
+            out.write32bit(0);
+            return;
+        }
+        out.write32bit(data.length);
+        for (int value : data) {
+            out.write32bit(value);
+        }
+    }
+
+    public static final Symbol readSymbol(WordInputStream in) throws IOException {
+        if (in.read8bit() == 0) {
+            return null;
+        }
+        String name = IO.readString(in);
+        long value = in.read64bit();
+        long size = in.read64bit();
+        int bind = in.read8bit();
+        int type = in.read8bit();
+        int visibility = in.read8bit();
+        short shndx = in.read16bit();
+        return new TraceSymbol(name, value, size, bind, type, visibility, shndx);
+    }
+
+    public static final void writeSymbol(WordOutputStream out, Symbol sym) throws IOException {
+        if (sym == null) {
+            out.write8bit((byte) 0);
+            return;
+        }
+        out.write8bit((byte) 1);
+        IO.writeString(out, sym.getName());
+        out.write64bit(sym.getValue());
+        out.write64bit(sym.getSize());
+        out.write8bit((byte) sym.getBind());
+        out.write8bit((byte) sym.getType());
+        out.write8bit((byte) sym.getVisibility());
+        out.write16bit(sym.getSectionIndex());
+    }
+
+    public static final List<MemorySegment> readSegments(WordInputStream in) throws IOException {
+        int count = in.read32bit();
+        List<MemorySegment> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = in.read64bit();
+            long end = in.read64bit();
+            int prot = in.read8bit();
+            String name = IO.readString(in);
+            result.add(new MemorySegment(start, end, new Protection((prot & 1) != 0, (prot & 2) != 0, (prot & 4) != 0), name));
+        }
+        return result;
+    }
+
+    public static final void writeSegments(WordOutputStream out, List<MemorySegment> segments) throws IOException {
+        out.write32bit(segments.size());
+        for (MemorySegment segment : segments) {
+            Protection prot = segment.getProtection();
+            out.write64bit(segment.getStart());
+            out.write64bit(segment.getEnd());
+            out.write8bit((byte) ((prot.r ? 1 : 0) | (prot.w ? 2 : 0) | (prot.x ? 4 : 0)));
+            IO.writeString(out, segment.getName());
+        }
+    }
+
+    public static final IoEvent readIoEvent(WordInputStream in) throws IOException {
+        int tid = in.read32bit();
+        long step = in.read64bit();
+        int channel = in.read32bit();
+        boolean input = in.read8bit() != 0;
+        String value = readLongString(in);
+        long[] buffers = readLongArray(in);
+        return new IoEvent(tid, step, channel, input, value, buffers);
+    }
+
+    public static final void writeIoEvent(WordOutputStream out, IoEvent evt) throws IOException {
+        out.write32bit(evt.getTid());
+        out.write64bit(evt.getStep());
+        out.write32bit(evt.getChannel());
+        out.write8bit((byte) (evt.isInput() ? 1 : 0));
+        writeLongString(out, evt.getValue());
+        writeLongArray(out, evt.getBuffers());
+    }
+}
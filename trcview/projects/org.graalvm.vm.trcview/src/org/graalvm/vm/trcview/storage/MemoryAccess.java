@@ -5,15 +5,19 @@ public class MemoryAccess {
     public final long step;
     public final long address;
     public final byte value;
+    public final long word;
     public final long base;
     public final int size;
+    public final boolean write;
 
-    public MemoryAccess(int tid, long step, long address, byte value, long base, int size) {
+    public MemoryAccess(int tid, long step, long address, byte value, long word, long base, int size, boolean write) {
         this.tid = tid;
         this.step = step;
         this.address = address;
         this.value = value;
+        this.word = word;
         this.base = base;
         this.size = size;
+        this.write = write;
     }
 }
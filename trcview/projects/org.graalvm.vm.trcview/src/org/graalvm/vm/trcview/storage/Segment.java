@@ -0,0 +1,55 @@
+package org.graalvm.vm.trcview.storage;
+
+import java.io.IOException;
+
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+/**
+ * Location and zone map of a compressed segment in a {@link TraceDatabase}. The key is the PC for
+ * step segments and the address for memory segments.
+ */
+class Segment {
+    final long offset;
+    final int length;
+    final int count;
+    final long minStep;
+    final long maxStep;
+    final long minKey;
+    final long maxKey;
+
+    Segment(long offset, int length, int count, long minStep, long maxStep, long minKey, long maxKey) {
+        this.offset = offset;
+        this.length = length;
+        this.count = count;
+        this.minStep = minStep;
+        this.maxStep = maxStep;
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+    }
+
+    boolean containsKey(long key) {
+        return Long.compareUnsigned(key, minKey) >= 0 && Long.compareUnsigned(key, maxKey) <= 0;
+    }
+
+    void write(WordOutputStream out) throws IOException {
+        out.write64bit(offset);
+        out.write32bit(length);
+        out.write32bit(count);
+        out.write64bit(minStep);
+        out.write64bit(maxStep);
+        out.write64bit(minKey);
+        out.write64bit(maxKey);
+    }
+
+    static Segment read(WordInputStream in) throws IOException {
+        long offset = in.read64bit();
+        int length = in.read32bit();
+        int count = in.read32bit();
+        long minStep = in.read64bit();
+        long maxStep = in.read64bit();
+        long minKey = in.read64bit();
+        long maxKey = in.read64bit();
+        return new Segment(offset, length, count, minStep, maxStep, minKey, maxKey);
+    }
+}
@@ -1,20 +1,32 @@
 package org.graalvm.vm.trcview.storage;
 
 import java.awt.Color;
+import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Logger;
 
 import org.graalvm.vm.posix.elf.Symbol;
 import org.graalvm.vm.trcview.analysis.ComputedSymbol;
 import org.graalvm.vm.trcview.analysis.ComputedSymbol.Type;
+import org.graalvm.vm.trcview.analysis.type.Function;
 import org.graalvm.vm.trcview.analysis.type.Prototype;
+import org.graalvm.vm.trcview.expression.Parser;
+import org.graalvm.vm.trcview.io.TextSerializer;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
 
 public abstract class SessionStorage implements Closeable {
+    private static final Logger log = Trace.create(SessionStorage.class);
+
     public abstract void setTrace(String trace);
 
     public abstract Symbol getSymbol(long pc);
@@ -53,6 +65,15 @@ public abstract class SessionStorage implements Closeable {
 
     public abstract void createComputedSymbol(ComputedSymbol sym);
 
+    /**
+     * Create or replace many symbols at once, e.g. when a symbol map is imported.
+     */
+    public void createComputedSymbols(Collection<ComputedSymbol> syms) {
+        for (ComputedSymbol sym : syms) {
+            createComputedSymbol(sym);
+        }
+    }
+
     public abstract void setCommentForPC(long pc, String comment);
 
     public abstract String getCommentForPC(long pc);
@@ -61,6 +82,73 @@ public abstract class SessionStorage implements Closeable {
 
     public abstract String getCommentForInsn(long insn);
 
+    /**
+     * Set or remove ({@code null}) many comments at once, e.g. when a session is imported.
+     */
+    public void setCommentsForPCs(Map<Long, String> comments) {
+        for (Map.Entry<Long, String> entry : comments.entrySet()) {
+            setCommentForPC(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Set or remove ({@code null}) many comments at once, e.g. when a session is imported.
+     */
+    public void setCommentsForInsns(Map<Long, String> comments) {
+        for (Map.Entry<Long, String> entry : comments.entrySet()) {
+            setCommentForInsn(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Import the symbols and comments of a symbol map / session file as written by the UI. The
+     * symbols and each kind of comment are stored with one batch each. Other entries are ignored.
+     *
+     * @return false if some lines could not be parsed
+     */
+    public boolean importSymbols(BufferedReader in) throws IOException {
+        boolean ok = true;
+        List<ComputedSymbol> symbols = new ArrayList<>();
+        Map<Long, String> pcComments = new LinkedHashMap<>();
+        Map<Long, String> insnComments = new LinkedHashMap<>();
+        String line;
+        int lineno = 0;
+        while ((line = in.readLine()) != null) {
+            lineno++;
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            int idx = line.indexOf('=');
+            if (idx <= 0) {
+                continue;
+            }
+            String address = line.substring(0, idx);
+            try {
+                String[] data = TextSerializer.tokenize(line.substring(idx + 1));
+                if (address.startsWith("COMMENTPC:") && data.length == 1) {
+                    pcComments.put(Long.parseUnsignedLong(address.substring(10), 16), data[0]);
+                } else if (address.startsWith("COMMENTINSN:") && data.length == 1) {
+                    insnComments.put(Long.parseUnsignedLong(address.substring(12), 16), data[0]);
+                } else if (address.matches("[0-9a-fA-F]+") && (data.length == 1 || data.length == 3)) {
+                    ComputedSymbol sym = new ComputedSymbol(data[0], Long.parseUnsignedLong(address, 16), Type.SUBROUTINE);
+                    if (data.length == 3) {
+                        Function fun = new Parser(data[1] + " f(" + data[2] + ")").parsePrototype();
+                        sym.prototype = fun.getPrototype();
+                    }
+                    symbols.add(sym);
+                }
+            } catch (IOException | ParseException | NumberFormatException e) {
+                log.log(Levels.INFO, "Syntax error in line " + lineno + ": " + e.getMessage());
+                ok = false;
+            }
+        }
+        createComputedSymbols(symbols);
+        setCommentsForPCs(pcComments);
+        setCommentsForInsns(insnComments);
+        return ok;
+    }
+
     public abstract Map<Long, String> getCommentsForInsns();
 
     public abstract Map<Long, String> getCommentsForPCs();
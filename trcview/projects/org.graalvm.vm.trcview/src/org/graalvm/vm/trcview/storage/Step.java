@@ -7,15 +7,23 @@ public class Step {
     public final long pc;
     public final int type;
     public final byte[] machinecode;
+    public final String mnemonic;
+    public final String[] disassembly;
     public final byte[] cpustate;
 
     public Step(int tid, long step, long parent, long pc, int type, byte[] machinecode, byte[] cpustate) {
+        this(tid, step, parent, pc, type, machinecode, null, null, cpustate);
+    }
+
+    public Step(int tid, long step, long parent, long pc, int type, byte[] machinecode, String mnemonic, String[] disassembly, byte[] cpustate) {
         this.tid = tid;
         this.step = step;
         this.parent = parent;
         this.pc = pc;
         this.type = type;
         this.machinecode = machinecode;
+        this.mnemonic = mnemonic;
+        this.disassembly = disassembly;
         this.cpustate = cpustate;
     }
 }
@@ -0,0 +1,69 @@
+package org.graalvm.vm.trcview.storage;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.util.io.Endianess;
+
+/**
+ * CPU state of a {@link TraceDatabase}: register {@code i} is the 64bit little endian value at offset
+ * {@code 8 * i} of the state data.
+ */
+public class StoredCpuState implements CpuState {
+    private final int tid;
+    private final long step;
+    private final long pc;
+    private final String[] registers;
+    private final byte[] data;
+
+    public StoredCpuState(int tid, long step, long pc, String[] registers, byte[] data) {
+        this.tid = tid;
+        this.step = step;
+        this.pc = pc;
+        this.registers = registers;
+        this.data = data;
+    }
+
+    @Override
+    public long getStep() {
+        return step;
+    }
+
+    @Override
+    public long getPC() {
+        return pc;
+    }
+
+    @Override
+    public int getTid() {
+        return tid;
+    }
+
+    @Override
+    public long get(String name) {
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i].equals(name)) {
+                return getRegisterById(i);
+            }
+        }
+        throw new IllegalArgumentException("unknown field " + name);
+    }
+
+    @Override
+    public long getRegisterById(int id) {
+        if (id < 0 || 8 * id + 8 > data.length) {
+            throw new IllegalArgumentException("unknown register " + id);
+        }
+        return Endianess.get64bitLE(data, 8 * id);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < registers.length && 8 * i + 8 <= data.length; i++) {
+            if (i > 0) {
+                buf.append(i % 4 == 0 ? '\n' : ' ');
+            }
+            buf.append(registers[i]).append('=').append(String.format("%016x", getRegisterById(i)));
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package org.graalvm.vm.trcview.storage;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+
+/**
+ * An event of a {@link TraceDatabase} which is neither a step nor a memory access, together with
+ * the step it belongs to, i.e. the last step before the event.
+ */
+public class StoredEvent {
+    public final long step;
+    public final Event event;
+
+    public StoredEvent(long step, Event event) {
+        this.step = step;
+        this.event = event;
+    }
+}
@@ -0,0 +1,72 @@
+package org.graalvm.vm.trcview.storage;
+
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+
+/**
+ * Step which was read from a {@link TraceDatabase}. The disassembly is the one which was stored by
+ * the {@link TraceLoader}.
+ */
+public class StoredStepEvent extends StepEvent {
+    private static final String[] NO_DISASSEMBLY = {"?"};
+
+    private final Step step;
+    private final CpuState state;
+    private final StepFormat format;
+
+    public StoredStepEvent(Step step, CpuState state, StepFormat format) {
+        super(step.tid);
+        this.step = step;
+        this.state = state;
+        this.format = format;
+    }
+
+    /**
+     * Get the call which executed this step, or -1 for the top level steps of a thread.
+     */
+    public long getParentStep() {
+        return step.parent;
+    }
+
+    @Override
+    public byte[] getMachinecode() {
+        return step.machinecode;
+    }
+
+    @Override
+    public String[] getDisassemblyComponents() {
+        return step.disassembly != null ? step.disassembly : NO_DISASSEMBLY;
+    }
+
+    @Override
+    public String getMnemonic() {
+        return step.mnemonic;
+    }
+
+    @Override
+    public long getPC() {
+        return step.pc;
+    }
+
+    @Override
+    public InstructionType getType() {
+        return InstructionType.values()[step.type];
+    }
+
+    @Override
+    public long getStep() {
+        return step.step;
+    }
+
+    @Override
+    public CpuState getState() {
+        return state;
+    }
+
+    @Override
+    public StepFormat getFormat() {
+        return format;
+    }
+}
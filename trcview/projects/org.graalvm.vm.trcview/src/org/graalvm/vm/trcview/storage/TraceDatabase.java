@@ -0,0 +1,708 @@
+package org.graalvm.vm.trcview.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.InflaterInputStream;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.io.BrkEvent;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.trcview.net.protocol.LRUCache;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.util.io.BEInputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+
+/**
+ * Read access to a trace which was stored by {@link TraceDatabaseWriter}. Only the index with the
+ * zone maps of the segments is kept in memory; segments are read and decoded when a query needs
+ * them and the most recently used ones are cached. Queries by step use binary search over the
+ * segments, queries by PC or address skip every segment whose zone map excludes the key. The call
+ * tree is reconstructed from the parent of every step, see {@link #getChildren(int, long)}.
+ *
+ * The other events, the syscall steps and the results of the analyses which were done while the
+ * trace was loaded are small compared to the steps; they are read completely when the database is
+ * opened.
+ */
+public class TraceDatabase implements Closeable {
+    public static final int CACHE_SIZE = 16;
+
+    private final TraceMetadata metadata;
+    private final String[] registers;
+    private final long memoryCount;
+    private final Map<Integer, Long> threads;
+    private final Segment[] stepSegments;
+    private final long[] stepMinParents;
+    private final Segment[] memorySegments;
+    // smallest step of all memory segments from the index on
+    private final long[] memoryMinSteps;
+
+    private final List<StoredEvent> events;
+    private final long[] syscalls;
+    private final AccessHeatmap heatmap;
+    private final Profile profile;
+
+    private final RandomAccessFile steps;
+    private final RandomAccessFile memory;
+
+    private final LRUCache<Integer, StepSegment> stepCache = new LRUCache<>(CACHE_SIZE);
+    private final LRUCache<Integer, MemorySegment> memoryCache = new LRUCache<>(CACHE_SIZE);
+
+    private static class StepSegment {
+        int[] tid;
+        long[] step;
+        long[] parent;
+        long[] pc;
+        byte[] type;
+        byte[][] code;
+        String[] mnemonic;
+        String[][] disassembly;
+        byte[][] state;
+
+        Step get(int i) {
+            return new Step(tid[i], step[i], parent[i], pc[i], type[i], code[i], mnemonic[i], disassembly[i], state[i]);
+        }
+    }
+
+    private static class MemorySegment {
+        int[] tid;
+        long[] step;
+        long[] address;
+        byte[] size;
+        boolean[] write;
+        long[] value;
+
+        boolean contains(int i, long addr) {
+            return Long.compareUnsigned(addr - address[i], size[i]) < 0;
+        }
+
+        MemoryAccess get(int i, long addr) {
+            int offset = (int) (addr - address[i]);
+            byte b = (byte) (value[i] >>> (8 * offset));
+            return new MemoryAccess(tid[i], step[i], addr, b, value[i], address[i], size[i], write[i]);
+        }
+    }
+
+    /**
+     * Filter for the value search, see {@link TraceDatabase#findWrites}.
+     */
+    @FunctionalInterface
+    public interface ValueFilter {
+        /**
+         * @param size the size of the write in bytes
+         * @param value the written bytes in address order, starting with the least significant
+         *            byte
+         */
+        boolean test(int size, long value);
+    }
+
+    private TraceDatabase(File dir, TraceMetadata metadata, String[] registers, long memoryCount, Map<Integer, Long> threads, Segment[] stepSegments, long[] stepMinParents,
+                    Segment[] memorySegments) throws IOException {
+        this.metadata = metadata;
+        this.registers = registers;
+        this.memoryCount = memoryCount;
+        this.threads = Collections.unmodifiableMap(threads);
+        this.stepSegments = stepSegments;
+        this.stepMinParents = stepMinParents;
+        this.memorySegments = memorySegments;
+        memoryMinSteps = new long[memorySegments.length];
+        long min = Long.MAX_VALUE;
+        for (int i = memorySegments.length - 1; i >= 0; i--) {
+            min = Math.min(min, memorySegments[i].minStep);
+            memoryMinSteps[i] = min;
+        }
+
+        byte[] data;
+        try (InputStream in = new InflaterInputStream(new FileInputStream(new File(dir, TraceDatabaseWriter.EVENTS)))) {
+            data = in.readAllBytes();
+        }
+        try (WordInputStream in = new BEInputStream(new ByteArrayInputStream(data))) {
+            events = Collections.unmodifiableList(readEvents(in));
+            syscalls = Protocol.readLongArray(in);
+            heatmap = AccessHeatmap.read(in);
+            if (in.read8bit() != 0) {
+                profile = Profile.read(in);
+            } else {
+                profile = null;
+            }
+        }
+
+        steps = new RandomAccessFile(new File(dir, TraceDatabaseWriter.STEPS), "r");
+        try {
+            memory = new RandomAccessFile(new File(dir, TraceDatabaseWriter.MEMORY), "r");
+        } catch (IOException e) {
+            steps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the database directory of {@code file}, which is either the directory itself or the index
+     * file in it.
+     *
+     * @return the directory or null if {@code file} does not belong to a database
+     */
+    public static File getDirectory(File file) {
+        File dir = file.isDirectory() ? file : file.getParentFile();
+        if (dir == null || !new File(dir, TraceDatabaseWriter.INDEX).isFile()) {
+            return null;
+        }
+        if (file.isDirectory() || file.getName().equals(TraceDatabaseWriter.INDEX)) {
+            return dir;
+        }
+        return null;
+    }
+
+    private static List<StoredEvent> readEvents(WordInputStream in) throws IOException {
+        List<StoredEvent> result = new ArrayList<>();
+        while (true) {
+            byte type = (byte) in.read8bit();
+            if (type == TraceDatabaseWriter.EVENT_END) {
+                return result;
+            }
+            int tid = in.read32bit();
+            long step = in.read64bit();
+            switch (type) {
+                case TraceDatabaseWriter.EVENT_MMAP: {
+                    long address = in.read64bit();
+                    long length = in.read64bit();
+                    int prot = in.read32bit();
+                    int flags = in.read32bit();
+                    int fd = in.read32bit();
+                    long offset = in.read64bit();
+                    String filename = IO.readString(in);
+                    long res = in.read64bit();
+                    result.add(new StoredEvent(step, new MmapEvent(tid, address, length, prot, flags, fd, offset, filename, res, null)));
+                    break;
+                }
+                case TraceDatabaseWriter.EVENT_BRK: {
+                    long brk = in.read64bit();
+                    long res = in.read64bit();
+                    result.add(new StoredEvent(step, new BrkEvent(tid, brk, res)));
+                    break;
+                }
+                case TraceDatabaseWriter.EVENT_SYMBOLS: {
+                    String filename = IO.readString(in);
+                    long loadBias = in.read64bit();
+                    long address = in.read64bit();
+                    long size = in.read64bit();
+                    int count = in.read32bit();
+                    NavigableMap<Long, Symbol> symbols = new TreeMap<>();
+                    for (int i = 0; i < count; i++) {
+                        long key = in.read64bit();
+                        symbols.put(key, Protocol.readSymbol(in));
+                    }
+                    result.add(new StoredEvent(step, new SymbolTableEvent(tid, symbols, filename, loadBias, address, size)));
+                    break;
+                }
+                case TraceDatabaseWriter.EVENT_IO:
+                    result.add(new StoredEvent(step, Protocol.readIoEvent(in)));
+                    break;
+                default:
+                    throw new IOException("unknown event type " + type);
+            }
+        }
+    }
+
+    public static TraceDatabase open(File dir) throws IOException {
+        try (WordInputStream in = new BEInputStream(new BufferedInputStream(new FileInputStream(new File(dir, TraceDatabaseWriter.INDEX))))) {
+            if (in.read64bit() != TraceDatabaseWriter.MAGIC) {
+                throw new IOException("not a trace database");
+            }
+            int version = in.read32bit();
+            if (version != TraceDatabaseWriter.VERSION) {
+                throw new IOException("unsupported version " + version);
+            }
+            String id = IO.readString(in);
+            String name = IO.readString(in);
+            short arch = in.read16bit();
+            long stepCount = in.read64bit();
+            long memoryCount = in.read64bit();
+            String[] registers = IO.readStringArray(in);
+            if (registers == null) {
+                registers = new String[0];
+            }
+            int threadCount = in.read32bit();
+            Map<Integer, Long> threads = new LinkedHashMap<>();
+            for (int i = 0; i < threadCount; i++) {
+                int tid = in.read32bit();
+                threads.put(tid, in.read64bit());
+            }
+            Segment[] stepSegments = new Segment[in.read32bit()];
+            long[] stepMinParents = new long[stepSegments.length];
+            for (int i = 0; i < stepSegments.length; i++) {
+                stepSegments[i] = Segment.read(in);
+                stepMinParents[i] = in.read64bit();
+            }
+            Segment[] memorySegments = new Segment[in.read32bit()];
+            for (int i = 0; i < memorySegments.length; i++) {
+                memorySegments[i] = Segment.read(in);
+            }
+            TraceMetadata metadata = new TraceMetadata(id, name, arch, stepCount);
+            return new TraceDatabase(dir, metadata, registers, memoryCount, threads, stepSegments, stepMinParents, memorySegments);
+        }
+    }
+
+    public TraceMetadata getMetadata() {
+        return metadata;
+    }
+
+    public long getStepCount() {
+        return metadata.steps;
+    }
+
+    public long getMemoryAccessCount() {
+        return memoryCount;
+    }
+
+    public String[] getRegisterNames() {
+        return registers;
+    }
+
+    /**
+     * Get the memory maps, brk, symbol tables and I/O events in the order they were stored.
+     */
+    public List<StoredEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Get the steps of all syscalls in ascending order.
+     */
+    public long[] getSyscalls() {
+        return syscalls;
+    }
+
+    public AccessHeatmap getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * Get the profile which was collected when the trace was loaded.
+     *
+     * @return the profile or null if none was stored
+     */
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Get the first step of every thread.
+     */
+    public Map<Integer, Long> getThreadStarts() {
+        return threads;
+    }
+
+    private static WordInputStream read(RandomAccessFile file, Segment segment) throws IOException {
+        byte[] data = new byte[segment.length];
+        synchronized (file) {
+            file.seek(segment.offset);
+            file.readFully(data);
+        }
+        return new BEInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private StepSegment getStepSegment(int n) throws IOException {
+        synchronized (stepCache) {
+            StepSegment cached = stepCache.get(n);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Segment segment = stepSegments[n];
+        int count = segment.count;
+        StepSegment result = new StepSegment();
+        result.tid = new int[count];
+        result.step = new long[count];
+        result.parent = new long[count];
+        result.pc = new long[count];
+        result.type = new byte[count];
+        result.code = new byte[count][];
+        result.mnemonic = new String[count];
+        result.disassembly = new String[count][];
+        result.state = new byte[count][];
+        try (WordInputStream in = read(steps, segment)) {
+            for (int i = 0; i < count; i++) {
+                result.tid[i] = in.read32bit();
+            }
+            for (int i = 0; i < count; i++) {
+                result.step[i] = in.read64bit();
+            }
+            for (int i = 0; i < count; i++) {
+                result.parent[i] = in.read64bit();
+            }
+            for (int i = 0; i < count; i++) {
+                result.pc[i] = in.read64bit();
+            }
+            in.read(result.type);
+            for (int i = 0; i < count; i++) {
+                result.code[i] = IO.readArray(in);
+            }
+            for (int i = 0; i < count; i++) {
+                result.mnemonic[i] = IO.readString(in);
+            }
+            for (int i = 0; i < count; i++) {
+                result.disassembly[i] = IO.readStringArray(in);
+            }
+            byte[] last = null;
+            for (int i = 0; i < count; i++) {
+                byte[] compressed = IO.readArray(in);
+                if (compressed == null) {
+                    last = null;
+                } else {
+                    last = DeltaCompressor.decompress(last, compressed);
+                }
+                result.state[i] = last;
+            }
+        }
+
+        synchronized (stepCache) {
+            stepCache.put(n, result);
+        }
+        return result;
+    }
+
+    private MemorySegment getMemorySegment(int n) throws IOException {
+        synchronized (memoryCache) {
+            MemorySegment cached = memoryCache.get(n);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Segment segment = memorySegments[n];
+        int count = segment.count;
+        MemorySegment result = new MemorySegment();
+        result.tid = new int[count];
+        result.step = new long[count];
+        result.address = new long[count];
+        result.size = new byte[count];
+        result.write = new boolean[count];
+        result.value = new long[count];
+        try (WordInputStream in = read(memory, segment)) {
+            for (int i = 0; i < count; i++) {
+                result.tid[i] = in.read32bit();
+            }
+            for (int i = 0; i < count; i++) {
+                result.step[i] = in.read64bit();
+            }
+            for (int i = 0; i < count; i++) {
+                result.address[i] = in.read64bit();
+            }
+            for (int i = 0; i < count; i++) {
+                byte size = (byte) in.read8bit();
+                result.write[i] = size < 0;
+                result.size[i] = (byte) Math.abs(size);
+            }
+            for (int i = 0; i < count; i++) {
+                result.value[i] = in.read64bit();
+            }
+        }
+
+        synchronized (memoryCache) {
+            memoryCache.put(n, result);
+        }
+        return result;
+    }
+
+    // index of the first step segment whose last step is >= step
+    private int findStepSegment(long step) {
+        int lo = 0;
+        int hi = stepSegments.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (stepSegments[mid].maxStep < step) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // index of the first element of the segment whose step is >= step
+    private static int lowerBound(long[] steps, long step) {
+        int lo = 0;
+        int hi = steps.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (steps[mid] < step) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Get a step by its step number.
+     *
+     * @return the step or null if there is no step with this number
+     */
+    public Step getStep(long step) throws IOException {
+        int n = findStepSegment(step);
+        if (n == stepSegments.length || stepSegments[n].minStep > step) {
+            return null;
+        }
+        StepSegment segment = getStepSegment(n);
+        int i = lowerBound(segment.step, step);
+        if (segment.step[i] != step) {
+            return null;
+        }
+        return segment.get(i);
+    }
+
+    /**
+     * Get all steps with a step number in {@code [from, to]}.
+     */
+    public List<Step> getSteps(long from, long to) throws IOException {
+        List<Step> result = new ArrayList<>();
+        for (int n = findStepSegment(from); n < stepSegments.length && stepSegments[n].minStep <= to; n++) {
+            StepSegment segment = getStepSegment(n);
+            for (int i = lowerBound(segment.step, from); i < segment.step.length && segment.step[i] <= to; i++) {
+                result.add(segment.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the first step at or after step {@code from} which executes the instruction at
+     * {@code pc}.
+     *
+     * @return the step or null if {@code pc} is not executed after {@code from}
+     */
+    public Step getNextPC(long pc, long from) throws IOException {
+        for (int n = findStepSegment(from); n < stepSegments.length; n++) {
+            if (!stepSegments[n].containsKey(pc)) {
+                continue;
+            }
+            StepSegment segment = getStepSegment(n);
+            for (int i = lowerBound(segment.step, from); i < segment.step.length; i++) {
+                if (segment.pc[i] == pc) {
+                    return segment.get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the steps of thread {@code tid} which were executed directly by the call at step
+     * {@code call}, in ascending order; the top level steps of a thread have the parent -1. The
+     * steps of a call end with the first step of the thread whose parent is before the call. Step
+     * segments which only contain steps of deeper calls are skipped without reading them.
+     */
+    public long[] getChildren(int tid, long call) throws IOException {
+        long[] result = new long[16];
+        int size = 0;
+        long from = call + 1;
+        for (int n = findStepSegment(from); n < stepSegments.length; n++) {
+            if (stepMinParents[n] > call) {
+                continue;
+            }
+            StepSegment segment = getStepSegment(n);
+            for (int i = lowerBound(segment.step, from); i < segment.step.length; i++) {
+                if (segment.tid[i] != tid) {
+                    continue;
+                }
+                long parent = segment.parent[i];
+                if (parent == call) {
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, size * 2);
+                    }
+                    result[size++] = segment.step[i];
+                } else if (parent < call) {
+                    return Arrays.copyOf(result, size);
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Get the CPU state after a step.
+     *
+     * @return the state or null if the step has no state
+     */
+    public CpuState getState(Step step) {
+        if (step.cpustate == null) {
+            return null;
+        }
+        return new StoredCpuState(step.tid, step.step, step.pc, registers, step.cpustate);
+    }
+
+    private MemoryAccess findPrevious(long address, long step, boolean write) throws IOException {
+        for (int n = memorySegments.length - 1; n >= 0; n--) {
+            Segment zone = memorySegments[n];
+            if (zone.minStep > step || !zone.containsKey(address)) {
+                continue;
+            }
+            MemorySegment segment = getMemorySegment(n);
+            for (int i = zone.count - 1; i >= 0; i--) {
+                if (segment.step[i] <= step && segment.write[i] == write && segment.contains(i, address)) {
+                    return segment.get(i, address);
+                }
+            }
+        }
+        return null;
+    }
+
+    private MemoryAccess findNext(long address, long step, boolean write) throws IOException {
+        for (int n = 0; n < memorySegments.length; n++) {
+            Segment zone = memorySegments[n];
+            if (zone.maxStep <= step || !zone.containsKey(address)) {
+                continue;
+            }
+            MemorySegment segment = getMemorySegment(n);
+            for (int i = 0; i < zone.count; i++) {
+                if (segment.step[i] > step && segment.write[i] == write && segment.contains(i, address)) {
+                    return segment.get(i, address);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the last write to the byte at {@code address} in a step up to and including
+     * {@code step}.
+     */
+    public MemoryAccess getLastWrite(long address, long step) throws IOException {
+        return findPrevious(address, step, true);
+    }
+
+    /**
+     * Find the first write to the byte at {@code address} in a step after {@code step}.
+     */
+    public MemoryAccess getNextWrite(long address, long step) throws IOException {
+        return findNext(address, step, true);
+    }
+
+    /**
+     * Find the last read of the byte at {@code address} in a step up to and including
+     * {@code step}.
+     */
+    public MemoryAccess getLastRead(long address, long step) throws IOException {
+        return findPrevious(address, step, false);
+    }
+
+    /**
+     * Find the first read of the byte at {@code address} in a step after {@code step}.
+     */
+    public MemoryAccess getNextRead(long address, long step) throws IOException {
+        return findNext(address, step, false);
+    }
+
+    /**
+     * Get all reads or writes of the byte at {@code address} in step order.
+     */
+    public List<MemoryAccess> getAccesses(long address, boolean write) throws IOException {
+        List<MemoryAccess> result = new ArrayList<>();
+        for (int n = 0; n < memorySegments.length; n++) {
+            Segment zone = memorySegments[n];
+            if (!zone.containsKey(address)) {
+                continue;
+            }
+            MemorySegment segment = getMemorySegment(n);
+            for (int i = 0; i < zone.count; i++) {
+                if (segment.write[i] == write && segment.contains(i, address)) {
+                    result.add(segment.get(i, address));
+                }
+            }
+        }
+        // the accesses of concurrent traces are not stored in step order
+        result.sort((x, y) -> Long.compare(x.step, y.step));
+        return result;
+    }
+
+    /**
+     * Get the reads or writes which start between the addresses {@code start} and {@code end} in
+     * the steps {@code from} to {@code to}, ordered by step.
+     */
+    public List<MemoryAccess> getAccesses(long start, long end, long from, long to, boolean write) throws IOException {
+        List<MemoryAccess> result = new ArrayList<>();
+        for (int n = 0; n < memorySegments.length; n++) {
+            Segment zone = memorySegments[n];
+            if (Long.compareUnsigned(zone.maxKey, start) < 0 || Long.compareUnsigned(zone.minKey, end) > 0 || zone.maxStep < from || zone.minStep > to) {
+                continue;
+            }
+            MemorySegment segment = getMemorySegment(n);
+            for (int i = 0; i < zone.count; i++) {
+                if (segment.write[i] == write && Long.compareUnsigned(segment.address[i] - start, end - start) <= 0 && segment.step[i] >= from && segment.step[i] <= to) {
+                    result.add(segment.get(i, segment.address[i]));
+                }
+            }
+        }
+        result.sort((x, y) -> Long.compare(x.step, y.step));
+        return result;
+    }
+
+    /**
+     * Find the writes in the steps {@code from} to {@code to} (inclusive) which are accepted by
+     * {@code filter}, ordered by step and address. The zone maps skip all segments outside of the
+     * step range; the search stops as soon as {@code limit} writes were found and no remaining
+     * segment can contain an earlier write.
+     */
+    public List<MemoryAccess> findWrites(long from, long to, int limit, ValueFilter filter) throws IOException {
+        List<MemoryAccess> result = new ArrayList<>();
+        if (limit <= 0 || from > to) {
+            return result;
+        }
+        for (int n = 0; n < memorySegments.length; n++) {
+            if (result.size() == limit && memoryMinSteps[n] > result.get(limit - 1).step) {
+                break;
+            }
+            Segment zone = memorySegments[n];
+            if (zone.maxStep < from || zone.minStep > to) {
+                continue;
+            }
+            MemorySegment segment = getMemorySegment(n);
+            int found = result.size();
+            for (int i = 0; i < zone.count; i++) {
+                if (segment.write[i] && segment.step[i] >= from && segment.step[i] <= to && filter.test(segment.size[i], segment.value[i])) {
+                    result.add(segment.get(i, segment.address[i]));
+                }
+            }
+            if (result.size() != found) {
+                result.sort((x, y) -> {
+                    int cmp = Long.compare(x.step, y.step);
+                    return cmp != 0 ? cmp : Long.compareUnsigned(x.address, y.address);
+                });
+                if (result.size() > limit) {
+                    result.subList(limit, result.size()).clear();
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            steps.close();
+        } finally {
+            memory.close();
+        }
+    }
+}
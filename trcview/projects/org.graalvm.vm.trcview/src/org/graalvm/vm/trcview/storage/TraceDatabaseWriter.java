@@ -0,0 +1,432 @@
+package org.graalvm.vm.trcview.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.DeflaterOutputStream;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.io.BrkEvent;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
+import org.graalvm.vm.trcview.arch.io.MmapEvent;
+import org.graalvm.vm.trcview.arch.io.SymbolTableEvent;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+/**
+ * Writes a {@link TraceDatabase}. Steps and memory accesses are collected in batches of
+ * {@link #STEP_SEGMENT_SIZE} and {@link #MEMORY_SEGMENT_SIZE} records; every batch is written as one
+ * deflate compressed segment whose columns are stored one after another. The first state of every
+ * step segment is a keyframe, the other states are delta compressed against their predecessor, so
+ * every segment can be decoded on its own. The index with the metadata, the first step of every
+ * thread and the zone maps of all segments is written by {@link #close()}. Besides step and PC, the
+ * zone map of a step segment contains the smallest parent, which lets the call tree skip segments
+ * that only contain steps of deeper calls.
+ *
+ * Memory maps, brk, symbol tables and I/O are written to a separate deflate compressed stream in
+ * the order they arrive, each with the step it belongs to. It ends with the steps of all syscalls,
+ * the access heatmap, which is collected from the memory accesses, and the profile, if the loader
+ * provided one with {@link #setProfile(Profile)}.
+ */
+public class TraceDatabaseWriter implements Closeable {
+    public static final int STEP_SEGMENT_SIZE = 4096;
+    public static final int MEMORY_SEGMENT_SIZE = 8192;
+
+    static final String INDEX = "trace.idx";
+    static final String STEPS = "steps.dat";
+    static final String MEMORY = "memory.dat";
+    static final String EVENTS = "events.dat";
+
+    static final long MAGIC = 0x5452434442000000L; // TRCDB\0\0\0
+    static final int VERSION = 3;
+
+    // event records
+    static final byte EVENT_END = 0;
+    static final byte EVENT_MMAP = 1;
+    static final byte EVENT_BRK = 2;
+    static final byte EVENT_SYMBOLS = 3;
+    static final byte EVENT_IO = 4;
+
+    // the bitmap of DeltaCompressor has at most 256 bytes
+    private static final int MAX_DELTA_STATE = 255 * 8;
+
+    private final File dir;
+    private final String id;
+    private final String name;
+    private final short arch;
+    private final String[] registers;
+
+    private final OutputStream steps;
+    private final OutputStream memory;
+    private final WordOutputStream events;
+    private long stepsOffset = 0;
+    private long memoryOffset = 0;
+
+    private final List<Segment> stepSegments = new ArrayList<>();
+    private final List<Segment> memorySegments = new ArrayList<>();
+    private final List<Long> stepMinParents = new ArrayList<>();
+    private final Map<Integer, Long> threads = new LinkedHashMap<>();
+    private long stepCount = 0;
+    private long memoryCount = 0;
+    private long lastStep = Long.MIN_VALUE;
+    private boolean closed = false;
+
+    private long[] syscalls = new long[16];
+    private int syscallCount = 0;
+    private final AccessHeatmap heatmap = new AccessHeatmap();
+    private Profile profile = null;
+
+    // current step batch
+    private final int[] stepTid = new int[STEP_SEGMENT_SIZE];
+    private final long[] stepStep = new long[STEP_SEGMENT_SIZE];
+    private final long[] stepParent = new long[STEP_SEGMENT_SIZE];
+    private final long[] stepPC = new long[STEP_SEGMENT_SIZE];
+    private final byte[] stepType = new byte[STEP_SEGMENT_SIZE];
+    private final byte[][] stepCode = new byte[STEP_SEGMENT_SIZE][];
+    private final String[] stepMnemonic = new String[STEP_SEGMENT_SIZE];
+    private final String[][] stepDisassembly = new String[STEP_SEGMENT_SIZE][];
+    private final byte[][] stepState = new byte[STEP_SEGMENT_SIZE][];
+    private int stepBatch = 0;
+
+    // current memory batch
+    private final int[] memTid = new int[MEMORY_SEGMENT_SIZE];
+    private final long[] memStep = new long[MEMORY_SEGMENT_SIZE];
+    private final long[] memAddress = new long[MEMORY_SEGMENT_SIZE];
+    private final byte[] memSize = new byte[MEMORY_SEGMENT_SIZE];
+    private final boolean[] memWrite = new boolean[MEMORY_SEGMENT_SIZE];
+    private final long[] memValue = new long[MEMORY_SEGMENT_SIZE];
+    private int memBatch = 0;
+
+    /**
+     * Create a new database in {@code dir}. The register names define the layout of the states:
+     * register {@code i} is stored as 64bit little endian value at offset {@code 8 * i}.
+     */
+    public TraceDatabaseWriter(File dir, String id, String name, short arch, String[] registers) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory " + dir);
+        }
+        this.dir = dir;
+        this.id = id;
+        this.name = name;
+        this.arch = arch;
+        this.registers = registers;
+        steps = new BufferedOutputStream(new FileOutputStream(new File(dir, STEPS)));
+        try {
+            memory = new BufferedOutputStream(new FileOutputStream(new File(dir, MEMORY)));
+        } catch (IOException e) {
+            steps.close();
+            throw e;
+        }
+        try {
+            events = new BEOutputStream(new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dir, EVENTS)))));
+        } catch (IOException e) {
+            steps.close();
+            memory.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Add a step. Steps have to be added in ascending order of their step number.
+     */
+    public void add(Step step) throws IOException {
+        if (step.step <= lastStep) {
+            throw new IllegalArgumentException("step " + step.step + " is not after step " + lastStep);
+        }
+        lastStep = step.step;
+        threads.putIfAbsent(step.tid, step.step);
+        stepTid[stepBatch] = step.tid;
+        stepStep[stepBatch] = step.step;
+        stepParent[stepBatch] = step.parent;
+        stepPC[stepBatch] = step.pc;
+        stepType[stepBatch] = (byte) step.type;
+        stepCode[stepBatch] = step.machinecode;
+        stepMnemonic[stepBatch] = step.mnemonic;
+        stepDisassembly[stepBatch] = step.disassembly;
+        stepState[stepBatch] = step.cpustate;
+        stepBatch++;
+        stepCount++;
+        if (step.type == InstructionType.SYSCALL.ordinal()) {
+            if (syscallCount == syscalls.length) {
+                syscalls = Arrays.copyOf(syscalls, syscallCount * 2);
+            }
+            syscalls[syscallCount++] = step.step;
+        }
+        if (stepBatch == STEP_SEGMENT_SIZE) {
+            flushSteps();
+        }
+    }
+
+    /**
+     * Add a memory access of at most 8 bytes. Byte {@code i} of the access is byte {@code i} of
+     * {@code value}, starting with the least significant byte.
+     */
+    public void add(int tid, long step, long address, int size, long value, boolean write) throws IOException {
+        if (size < 1 || size > 8) {
+            throw new IllegalArgumentException("invalid size: " + size);
+        }
+        memTid[memBatch] = tid;
+        memStep[memBatch] = step;
+        memAddress[memBatch] = address;
+        memSize[memBatch] = (byte) size;
+        memWrite[memBatch] = write;
+        memValue[memBatch] = value;
+        memBatch++;
+        memoryCount++;
+        if (write) {
+            heatmap.write(address, step);
+        } else {
+            heatmap.read(address, step);
+        }
+        if (memBatch == MEMORY_SEGMENT_SIZE) {
+            flushMemory();
+        }
+    }
+
+    /**
+     * Add an event which belongs to {@code step}. Memory maps are stored without their data, the
+     * contents of mapped memory are only known from the memory accesses.
+     *
+     * @return false if events of this type are not stored
+     */
+    public boolean add(long step, Event event) throws IOException {
+        if (event instanceof MmapEvent) {
+            MmapEvent mmap = (MmapEvent) event;
+            events.write8bit(EVENT_MMAP);
+            events.write32bit(event.getTid());
+            events.write64bit(step);
+            events.write64bit(mmap.getAddress());
+            events.write64bit(mmap.getLength());
+            events.write32bit(mmap.getProtection());
+            events.write32bit(mmap.getFlags());
+            events.write32bit(mmap.getFileDescriptor());
+            events.write64bit(mmap.getOffset());
+            IO.writeString(events, mmap.getFilename());
+            events.write64bit(mmap.getResult());
+        } else if (event instanceof BrkEvent) {
+            BrkEvent brk = (BrkEvent) event;
+            events.write8bit(EVENT_BRK);
+            events.write32bit(event.getTid());
+            events.write64bit(step);
+            events.write64bit(brk.getBrk());
+            events.write64bit(brk.getResult());
+        } else if (event instanceof SymbolTableEvent) {
+            SymbolTableEvent symtab = (SymbolTableEvent) event;
+            events.write8bit(EVENT_SYMBOLS);
+            events.write32bit(event.getTid());
+            events.write64bit(step);
+            IO.writeString(events, symtab.getFilename());
+            events.write64bit(symtab.getLoadBias());
+            events.write64bit(symtab.getAddress());
+            events.write64bit(symtab.getSize());
+            events.write32bit(symtab.getSymbols().size());
+            for (Entry<Long, Symbol> sym : symtab.getSymbols().entrySet()) {
+                events.write64bit(sym.getKey());
+                Protocol.writeSymbol(events, sym.getValue());
+            }
+        } else if (event instanceof IoEvent) {
+            events.write8bit(EVENT_IO);
+            events.write32bit(event.getTid());
+            events.write64bit(step);
+            Protocol.writeIoEvent(events, (IoEvent) event);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Store a profile of the trace. The profile has to be finished.
+     */
+    public void setProfile(Profile profile) {
+        this.profile = profile;
+    }
+
+    private static byte[] compress(byte[] last, byte[] state) {
+        if (last == null || state.length > MAX_DELTA_STATE) {
+            return DeltaCompressor.keyframe(state);
+        } else {
+            return DeltaCompressor.compress(last, state);
+        }
+    }
+
+    private void flushSteps() throws IOException {
+        if (stepBatch == 0) {
+            return;
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        long minPC = stepPC[0];
+        long maxPC = stepPC[0];
+        long minParent = stepParent[0];
+        try (WordOutputStream out = new BEOutputStream(new DeflaterOutputStream(buf))) {
+            for (int i = 0; i < stepBatch; i++) {
+                out.write32bit(stepTid[i]);
+            }
+            for (int i = 0; i < stepBatch; i++) {
+                out.write64bit(stepStep[i]);
+            }
+            for (int i = 0; i < stepBatch; i++) {
+                out.write64bit(stepParent[i]);
+                minParent = Math.min(minParent, stepParent[i]);
+            }
+            for (int i = 0; i < stepBatch; i++) {
+                out.write64bit(stepPC[i]);
+                if (Long.compareUnsigned(stepPC[i], minPC) < 0) {
+                    minPC = stepPC[i];
+                }
+                if (Long.compareUnsigned(stepPC[i], maxPC) > 0) {
+                    maxPC = stepPC[i];
+                }
+            }
+            out.write(stepType, 0, stepBatch);
+            for (int i = 0; i < stepBatch; i++) {
+                IO.writeArray(out, stepCode[i]);
+            }
+            for (int i = 0; i < stepBatch; i++) {
+                IO.writeString(out, stepMnemonic[i]);
+            }
+            for (int i = 0; i < stepBatch; i++) {
+                IO.writeStringArray(out, stepDisassembly[i]);
+            }
+            byte[] last = null;
+            for (int i = 0; i < stepBatch; i++) {
+                byte[] state = stepState[i];
+                if (state == null) {
+                    IO.writeArray(out, null);
+                    last = null;
+                } else {
+                    IO.writeArray(out, compress(last, state));
+                    last = state;
+                }
+            }
+        }
+        byte[] data = buf.toByteArray();
+        steps.write(data);
+        stepSegments.add(new Segment(stepsOffset, data.length, stepBatch, stepStep[0], stepStep[stepBatch - 1], minPC, maxPC));
+        stepMinParents.add(minParent);
+        stepsOffset += data.length;
+        for (int i = 0; i < stepBatch; i++) {
+            stepCode[i] = null;
+            stepMnemonic[i] = null;
+            stepDisassembly[i] = null;
+            stepState[i] = null;
+        }
+        stepBatch = 0;
+    }
+
+    private void flushMemory() throws IOException {
+        if (memBatch == 0) {
+            return;
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        long minStep = memStep[0];
+        long maxStep = memStep[0];
+        long minAddr = memAddress[0];
+        long maxAddr = memAddress[0] + memSize[0] - 1;
+        try (WordOutputStream out = new BEOutputStream(new DeflaterOutputStream(buf))) {
+            for (int i = 0; i < memBatch; i++) {
+                out.write32bit(memTid[i]);
+            }
+            for (int i = 0; i < memBatch; i++) {
+                out.write64bit(memStep[i]);
+                minStep = Math.min(minStep, memStep[i]);
+                maxStep = Math.max(maxStep, memStep[i]);
+            }
+            for (int i = 0; i < memBatch; i++) {
+                out.write64bit(memAddress[i]);
+                long end = memAddress[i] + memSize[i] - 1;
+                if (Long.compareUnsigned(memAddress[i], minAddr) < 0) {
+                    minAddr = memAddress[i];
+                }
+                if (Long.compareUnsigned(end, maxAddr) > 0) {
+                    maxAddr = end;
+                }
+            }
+            for (int i = 0; i < memBatch; i++) {
+                out.write8bit((byte) (memWrite[i] ? -memSize[i] : memSize[i]));
+            }
+            for (int i = 0; i < memBatch; i++) {
+                out.write64bit(memValue[i]);
+            }
+        }
+        byte[] data = buf.toByteArray();
+        memory.write(data);
+        memorySegments.add(new Segment(memoryOffset, data.length, memBatch, minStep, maxStep, minAddr, maxAddr));
+        memoryOffset += data.length;
+        memBatch = 0;
+    }
+
+    public TraceMetadata getMetadata() {
+        return new TraceMetadata(id, name, arch, stepCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushSteps();
+            flushMemory();
+        } finally {
+            steps.close();
+            memory.close();
+        }
+
+        try {
+            events.write8bit(EVENT_END);
+            Protocol.writeLongArray(events, Arrays.copyOf(syscalls, syscallCount));
+            heatmap.write(events);
+            if (profile != null) {
+                events.write8bit((byte) 1);
+                profile.write(events);
+            } else {
+                events.write8bit((byte) 0);
+            }
+        } finally {
+            events.close();
+        }
+
+        try (WordOutputStream out = new BEOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dir, INDEX))))) {
+            out.write64bit(MAGIC);
+            out.write32bit(VERSION);
+            IO.writeString(out, id);
+            IO.writeString(out, name);
+            out.write16bit(arch);
+            out.write64bit(stepCount);
+            out.write64bit(memoryCount);
+            IO.writeStringArray(out, registers);
+            out.write32bit(threads.size());
+            for (Entry<Integer, Long> thread : threads.entrySet()) {
+                out.write32bit(thread.getKey());
+                out.write64bit(thread.getValue());
+            }
+            out.write32bit(stepSegments.size());
+            for (int i = 0; i < stepSegments.size(); i++) {
+                stepSegments.get(i).write(out);
+                out.write64bit(stepMinParents.get(i));
+            }
+            out.write32bit(memorySegments.size());
+            for (Segment segment : memorySegments) {
+                segment.write(out);
+            }
+        }
+    }
+}
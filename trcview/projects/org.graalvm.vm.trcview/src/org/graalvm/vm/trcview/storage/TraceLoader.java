@@ -0,0 +1,191 @@
+package org.graalvm.vm.trcview.storage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.arch.Architecture;
+import org.graalvm.vm.trcview.arch.io.CpuDeltaState;
+import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.TraceFileReader;
+import org.graalvm.vm.trcview.arch.io.TraceReader;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.util.Vector128;
+import org.graalvm.vm.util.io.Endianess;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+
+/**
+ * Bulk loader which stores the steps and memory accesses of a trace in a {@link TraceDatabase}.
+ * The registers of every state are stored in the order of {@link Architecture#getRegisterNames()},
+ * or as {@code r0}, {@code r1}, ... for architectures which number their registers. The parent of a
+ * step is the call which was executed last and did not return yet in the same thread. Memory maps,
+ * brk, symbol tables and I/O are stored as events; a profile over this call tree is collected while
+ * loading. Other events, e.g. those of devices, are not stored.
+ *
+ * Usage: {@code TraceLoader trace.trc DIRECTORY}; the database can then be opened in the trace
+ * viewer like a trace file.
+ */
+public class TraceLoader {
+    private static final Logger log = Trace.create(TraceLoader.class);
+
+    private final TraceReader in;
+    private final String[] names;
+    private final String[] registers;
+    private final Map<Integer, Deque<BlockNode>> calls = new HashMap<>();
+    private final Profile profile = new Profile();
+    private long skipped = 0;
+
+    private CpuState lastState;
+    private StepEvent lastStep;
+
+    private TraceLoader(TraceReader in) {
+        this.in = in;
+        Architecture arch = in.getArchitecture();
+        names = arch.getRegisterNames();
+        if (names.length > 0) {
+            registers = names;
+        } else {
+            registers = new String[arch.getRegisterCount()];
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = "r" + i;
+            }
+        }
+    }
+
+    public static TraceMetadata load(TraceReader in, File dir, String name) throws IOException {
+        return new TraceLoader(in).load(dir, name);
+    }
+
+    private TraceMetadata load(File dir, String name) throws IOException {
+        short arch = in.getArchitecture().getId();
+        TraceMetadata metadata;
+        try (TraceDatabaseWriter out = new TraceDatabaseWriter(dir, UUID.randomUUID().toString(), name, arch, registers)) {
+            Event evt;
+            while ((evt = in.read()) != null) {
+                if (evt instanceof StepEvent) {
+                    out.add(getStep((StepEvent) evt));
+                } else if (evt instanceof MemoryEvent) {
+                    if (lastStep != null) {
+                        add(out, (MemoryEvent) evt, lastStep.getStep());
+                    }
+                } else if (!out.add(lastStep == null ? 0 : lastStep.getStep(), evt)) {
+                    skipped++;
+                }
+            }
+            profile.finish();
+            out.setProfile(profile);
+            metadata = out.getMetadata();
+        }
+        log.log(Levels.INFO, "Stored " + metadata.steps + " steps in " + dir);
+        if (skipped > 0) {
+            log.log(Levels.WARNING, skipped + " events are not supported by the database and were not stored");
+        }
+        return metadata;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private CpuState getState(StepEvent event) {
+        CpuState state = event.getState();
+        if (state instanceof CpuDeltaState) {
+            CpuDeltaState delta = (CpuDeltaState) state;
+            lastState = delta.resolve(lastState);
+        } else {
+            lastState = state;
+        }
+        return lastState;
+    }
+
+    private byte[] getRegisters(CpuState state) {
+        if (state == null) {
+            return null;
+        }
+        byte[] data = new byte[registers.length * 8];
+        for (int i = 0; i < registers.length; i++) {
+            long value = names.length > 0 ? state.get(names[i]) : state.getRegisterById(i);
+            Endianess.set64bitLE(data, 8 * i, value);
+        }
+        return data;
+    }
+
+    private Step getStep(StepEvent event) {
+        Deque<BlockNode> stack = calls.computeIfAbsent(event.getTid(), tid -> new ArrayDeque<>());
+        long parent = stack.isEmpty() ? -1 : stack.peek().getHead().getStep();
+        profile.step(event);
+        if (event.isCall()) {
+            BlockNode block = new BlockNode(event);
+            stack.push(block);
+            profile.call(event.getTid(), block);
+        } else if (event.isReturn() && !stack.isEmpty()) {
+            profile.ret(event.getTid(), stack.pop());
+        }
+        lastStep = event;
+        byte[] state = getRegisters(getState(event));
+        return new Step(event.getTid(), event.getStep(), parent, event.getPC(), event.getType().ordinal(), event.getMachinecode(), event.getMnemonic(), event.getDisassemblyComponents(),
+                        state);
+    }
+
+    private static long swap(long value, int size) {
+        return Long.reverseBytes(value) >>> (64 - 8 * size);
+    }
+
+    private static void add(TraceDatabaseWriter out, MemoryEvent evt, long step) throws IOException {
+        int tid = evt.getTid();
+        long addr = evt.getAddress();
+        int size = evt.getSize();
+        boolean be = evt.isBigEndian();
+        boolean write = evt.isWrite();
+        if (!evt.hasData()) {
+            if (size == 16) {
+                out.add(tid, step, addr, 8, 0, write);
+                out.add(tid, step, addr + 8, 8, 0, write);
+            } else {
+                out.add(tid, step, addr, size, 0, write);
+            }
+        } else if (size == 16) {
+            Vector128 value = evt.getVector();
+            if (be) {
+                out.add(tid, step, addr, 8, swap(value.getI64(0), 8), write);
+                out.add(tid, step, addr + 8, 8, swap(value.getI64(1), 8), write);
+            } else {
+                out.add(tid, step, addr, 8, value.getI64(1), write);
+                out.add(tid, step, addr + 8, 8, value.getI64(0), write);
+            }
+        } else {
+            out.add(tid, step, addr, size, be ? swap(evt.getValue(), size) : evt.getValue(), write);
+        }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Trace.setup();
+
+        if (args.length != 2) {
+            System.out.println("Usage: TraceLoader trace.trc DIRECTORY");
+            System.exit(1);
+        }
+
+        File file = new File(args[0]);
+        File dir = new File(args[1]);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            TraceMetadata metadata = load(new TraceFileReader(in), dir, file.getName());
+            System.out.println(metadata);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+            log.log(Levels.ERROR, "Loading failed: " + e, e);
+            System.exit(1);
+        }
+    }
+}
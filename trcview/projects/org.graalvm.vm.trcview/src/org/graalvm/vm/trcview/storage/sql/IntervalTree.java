@@ -0,0 +1,205 @@
+package org.graalvm.vm.trcview.storage.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Set of closed intervals {@code [start, end]} with attached values. The intervals are kept in a
+ * treap ordered by start and end where every node knows the largest end in its subtree, so the
+ * intervals containing a point are found without looking at intervals which end before the point
+ * or start after it. Intervals may overlap and the same interval may be stored with different
+ * values. Not thread safe.
+ */
+public class IntervalTree<T> {
+    private final Random random = new Random(0);
+
+    private Node<T> root;
+    private int size;
+
+    private static class Node<T> {
+        final long start;
+        final long end;
+        final T value;
+        final int priority;
+        long maxEnd;
+        Node<T> left;
+        Node<T> right;
+
+        Node(long start, long end, T value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.priority = priority;
+            maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+
+        int compare(long s, long e) {
+            if (s != start) {
+                return s < start ? -1 : 1;
+            } else if (e != end) {
+                return e < end ? -1 : 1;
+            } else {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public void put(long start, long end, T value) {
+        if (end < start) {
+            throw new IllegalArgumentException("end before start");
+        }
+        root = insert(root, new Node<>(start, end, value, random.nextInt()));
+        size++;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> n) {
+        if (node == null) {
+            return n;
+        }
+        if (node.compare(n.start, n.end) < 0) {
+            node.left = insert(node.left, n);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, n);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    /**
+     * Remove one interval {@code [start, end]} whose value equals {@code value}.
+     *
+     * @return true if an interval was removed
+     */
+    public boolean remove(long start, long end, T value) {
+        int oldSize = size;
+        root = remove(root, start, end, value);
+        return size != oldSize;
+    }
+
+    private Node<T> remove(Node<T> node, long start, long end, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = node.compare(start, end);
+        if (cmp == 0 && (node.value == null ? value == null : node.value.equals(value))) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        // equal intervals can end up on both sides of a node after rotations
+        int oldSize = size;
+        if (cmp <= 0) {
+            node.left = remove(node.left, start, end, value);
+        }
+        if (cmp >= 0 && size == oldSize) {
+            node.right = remove(node.right, start, end, value);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Get the values of all intervals which contain {@code point}, ordered by start.
+     */
+    public List<T> getAll(long point) {
+        List<T> result = new ArrayList<>();
+        collect(root, point, result);
+        return result;
+    }
+
+    private static <T> void collect(Node<T> node, long point, List<T> result) {
+        if (node == null || node.maxEnd < point) {
+            return;
+        }
+        collect(node.left, point, result);
+        if (node.start <= point) {
+            if (node.end >= point) {
+                result.add(node.value);
+            }
+            collect(node.right, point, result);
+        }
+    }
+
+    /**
+     * Get the value of the shortest interval which contains {@code point}.
+     *
+     * @return the value or null if no interval contains {@code point}
+     */
+    public T getSmallest(long point) {
+        Node<T> best = smallest(root, point, null);
+        return best == null ? null : best.value;
+    }
+
+    private static <T> Node<T> smallest(Node<T> node, long point, Node<T> best) {
+        if (node == null || node.maxEnd < point) {
+            return best;
+        }
+        Node<T> result = smallest(node.left, point, best);
+        if (node.start <= point) {
+            if (node.end >= point && (result == null || node.end - node.start < result.end - result.start)) {
+                result = node;
+            }
+            result = smallest(node.right, point, result);
+        }
+        return result;
+    }
+}
@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -96,11 +97,17 @@ public class SQLSessionStorage extends SessionStorage {
                     "    PRIMARY KEY (TRACE, PC)" +
                     ")",
     };
+
+    // the primary keys of SYMBOL and COMPUTEDSYMBOL already start with (TRACE, VALUE)
+    private static final String[] CREATE_INDEXES = {
+                    "CREATE INDEX COMPUTEDSYMBOL_TYPE ON COMPUTEDSYMBOL (TRACE, TYPE, VALUE)",
+    };
     // @formatter:on
 
     private final Connection con;
 
     private final PreparedStatement getSymbol;
+    private final PreparedStatement getSymbols;
     private final PreparedStatement getComputedSymbol;
     private final PreparedStatement getComputedSymbols;
     private final PreparedStatement getAllComputedSymbols;
@@ -128,6 +135,12 @@ public class SQLSessionStorage extends SessionStorage {
 
     private String trace;
 
+    // complete copy of the symbols of the current trace, loaded by setTrace
+    private IntervalTree<Symbol> symbolCache;
+    private IntervalTree<ComputedSymbol> computedSymbolCache;
+    private Map<Long, ComputedSymbol> computedSymbols;
+    private Map<Long, Long> computedSymbolSizes;
+
     public SQLSessionStorage() throws SQLException {
         this(null, DEFAULT_URL, null, null);
     }
@@ -172,11 +185,21 @@ public class SQLSessionStorage extends SessionStorage {
             log.info("Statement failed: " + e.getMessage());
         }
 
+        for (String sql : CREATE_INDEXES) {
+            try (Statement stmt = con.createStatement()) {
+                stmt.executeUpdate(sql);
+            } catch (SQLException e) {
+                // index probably exists already
+                log.info("Statement failed: " + e.getMessage());
+            }
+        }
+
         con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
         con.setAutoCommit(true);
 
-        getSymbol = con.prepareStatement("SELECT * FROM SYMBOL WHERE TRACE = ? AND ? BETWEEN VALUE AND (VALUE + SIZE) ORDER BY SIZE ASC FETCH FIRST ROW ONLY");
-        getComputedSymbol = con.prepareStatement("SELECT * FROM COMPUTEDSYMBOL WHERE TRACE = ? AND ? BETWEEN VALUE AND (VALUE + SIZE) ORDER BY SIZE ASC FETCH FIRST ROW ONLY");
+        getSymbol = con.prepareStatement("SELECT * FROM SYMBOL WHERE TRACE = ? AND VALUE <= ? AND VALUE + SIZE >= ? ORDER BY SIZE ASC FETCH FIRST ROW ONLY");
+        getSymbols = con.prepareStatement("SELECT * FROM SYMBOL WHERE TRACE = ?");
+        getComputedSymbol = con.prepareStatement("SELECT * FROM COMPUTEDSYMBOL WHERE TRACE = ? AND VALUE <= ? AND VALUE + SIZE >= ? ORDER BY SIZE ASC FETCH FIRST ROW ONLY");
         getComputedSymbols = con.prepareStatement("SELECT * FROM COMPUTEDSYMBOL WHERE TRACE = ? AND TYPE = ? ORDER BY VALUE ASC");
         getAllComputedSymbols = con.prepareStatement("SELECT * FROM COMPUTEDSYMBOL WHERE TRACE = ? ORDER BY VALUE ASC");
         createSymbol = con.prepareStatement("INSERT INTO COMPUTEDSYMBOL (TRACE, VALUE, SIZE, TYPE, NAME, PROTOTYPE) VALUES (?, ?, ?, ?, ?, ?)");
@@ -220,6 +243,66 @@ public class SQLSessionStorage extends SessionStorage {
     @Override
     public void setTrace(String trace) {
         this.trace = trace;
+        symbolCache = null;
+        computedSymbolCache = null;
+        computedSymbols = null;
+        computedSymbolSizes = null;
+        if (trace != null) {
+            prefetch();
+        }
+    }
+
+    /**
+     * Load all symbols of the current trace into the interval trees, afterwards symbol lookups do
+     * not query the database anymore. If this fails, lookups fall back to the database.
+     */
+    private void prefetch() {
+        IntervalTree<Symbol> symbols = new IntervalTree<>();
+        IntervalTree<ComputedSymbol> computed = new IntervalTree<>();
+        Map<Long, ComputedSymbol> byAddress = new HashMap<>();
+        Map<Long, Long> sizes = new HashMap<>();
+        try {
+            getSymbols.setString(1, trace);
+            try (ResultSet rs = getSymbols.executeQuery()) {
+                while (rs.next()) {
+                    Symbol sym = getSymbol(rs);
+                    symbols.put(sym.getValue(), sym.getValue() + sym.getSize(), sym);
+                }
+            }
+            getAllComputedSymbols.setString(1, trace);
+            try (ResultSet rs = getAllComputedSymbols.executeQuery()) {
+                while (rs.next()) {
+                    ComputedSymbol sym = getComputedSymbol(rs);
+                    long size = rs.getLong("SIZE");
+                    computed.put(sym.address, sym.address + size, sym);
+                    byAddress.put(sym.address, sym);
+                    if (size != 0) {
+                        sizes.put(sym.address, size);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.log(Levels.WARNING, "Error while loading symbols: " + e.getMessage(), e);
+            return;
+        }
+        symbolCache = symbols;
+        computedSymbolCache = computed;
+        computedSymbols = byAddress;
+        computedSymbolSizes = sizes;
+        log.log(Levels.INFO, "Loaded " + symbols.size() + " symbols and " + byAddress.size() + " computed symbols");
+    }
+
+    private void cache(ComputedSymbol sym) {
+        if (computedSymbols == null) {
+            return;
+        }
+        ComputedSymbol old = computedSymbols.put(sym.address, sym);
+        if (old != null) {
+            Long size = computedSymbolSizes.remove(old.address);
+            computedSymbolCache.remove(old.address, old.address + (size == null ? 0 : size), old);
+        }
+        // computed symbols are always stored with size 0
+        computedSymbolCache.put(sym.address, sym.address, sym);
     }
 
     private static Symbol getSymbol(ResultSet rs) throws SQLException {
@@ -238,9 +321,13 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        if (symbolCache != null) {
+            return symbolCache.getSmallest(pc);
+        }
         try {
             getSymbol.setString(1, trace);
             getSymbol.setLong(2, pc);
+            getSymbol.setLong(3, pc);
             try (ResultSet rs = getSymbol.executeQuery()) {
                 if (rs.next()) {
                     return getSymbol(rs);
@@ -287,9 +374,13 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        if (computedSymbolCache != null) {
+            return computedSymbolCache.getSmallest(pc);
+        }
         try {
             getComputedSymbol.setString(1, trace);
             getComputedSymbol.setLong(2, pc);
+            getComputedSymbol.setLong(3, pc);
             try (ResultSet rs = getComputedSymbol.executeQuery()) {
                 if (rs.next()) {
                     return getComputedSymbol(rs);
@@ -315,6 +406,8 @@ public class SQLSessionStorage extends SessionStorage {
             updateSymbolName.setLong(3, sym.address);
             if (updateSymbolName.executeUpdate() != 1) {
                 log.log(Levels.WARNING, "Failed to rename symbol at location 0x" + HexFormatter.tohex(sym.address));
+            } else if (computedSymbols != null && computedSymbols.containsKey(sym.address)) {
+                computedSymbols.get(sym.address).name = name;
             }
         } catch (SQLException e) {
             log.log(Levels.WARNING, "Error while executing updateSymbolName: " + e.getMessage(), e);
@@ -327,16 +420,15 @@ public class SQLSessionStorage extends SessionStorage {
             throw new IllegalStateException("No trace selected");
         }
         try {
-            if (prototype == null) {
-                updateSymbolPrototype.setString(1, null);
-            } else {
-                String str = prototype.returnType.toString() + " f(" + prototype.args.stream().map(Object::toString).collect(Collectors.joining(", ")) + ")";
-                updateSymbolPrototype.setString(1, str);
-            }
+            ComputedSymbol update = new ComputedSymbol(sym.name, sym.address, sym.type);
+            update.prototype = prototype;
+            updateSymbolPrototype.setString(1, getPrototype(update));
             updateSymbolPrototype.setString(2, trace);
             updateSymbolPrototype.setLong(3, sym.address);
             if (updateSymbolPrototype.executeUpdate() != 1) {
                 log.log(Levels.WARNING, "Failed to prototype of symbol at location 0x" + HexFormatter.tohex(sym.address));
+            } else if (computedSymbols != null && computedSymbols.containsKey(sym.address)) {
+                computedSymbols.get(sym.address).prototype = prototype;
             }
         } catch (SQLException e) {
             log.log(Levels.WARNING, "Error while executing updateSymbolPrototype: " + e.getMessage(), e);
@@ -348,6 +440,9 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        if (computedSymbols != null) {
+            return computedSymbols.values().stream().filter(sym -> sym.type == Type.SUBROUTINE).collect(Collectors.toSet());
+        }
         try {
             getComputedSymbols.setString(1, trace);
             getComputedSymbols.setInt(2, TYPE_SUBROUTINE);
@@ -369,6 +464,9 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        if (computedSymbols != null) {
+            return computedSymbols.values().stream().filter(sym -> sym.type == Type.LOCATION).collect(Collectors.toSet());
+        }
         try {
             getComputedSymbols.setString(1, trace);
             getComputedSymbols.setInt(2, TYPE_LOCATION);
@@ -390,6 +488,9 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        if (computedSymbols != null) {
+            return new HashSet<>(computedSymbols.values());
+        }
         try {
             getAllComputedSymbols.setString(1, trace);
             try (ResultSet rs = getAllComputedSymbols.executeQuery()) {
@@ -405,124 +506,127 @@ public class SQLSessionStorage extends SessionStorage {
         }
     }
 
+    private static int getType(ComputedSymbol sym) {
+        switch (sym.type) {
+            default:
+            case LOCATION:
+                return TYPE_LOCATION;
+            case SUBROUTINE:
+                return TYPE_SUBROUTINE;
+        }
+    }
+
+    private static String getPrototype(ComputedSymbol sym) {
+        if (sym.prototype == null) {
+            return null;
+        } else {
+            return sym.prototype.returnType.toString() + " f(" + sym.prototype.args.stream().map(Object::toString).collect(Collectors.joining(", ")) + ")";
+        }
+    }
+
+    // the symbol as it is read back from the database
+    private static ComputedSymbol getStoredSymbol(ComputedSymbol sym) {
+        ComputedSymbol result = new ComputedSymbol(sym.name, sym.address, getType(sym) == TYPE_SUBROUTINE ? Type.SUBROUTINE : Type.LOCATION);
+        result.prototype = sym.prototype;
+        return result;
+    }
+
+    private boolean exists(ComputedSymbol sym) {
+        if (computedSymbols != null) {
+            return computedSymbols.containsKey(sym.address);
+        }
+        ComputedSymbol oldsym = getComputedSymbol(sym.address);
+        return oldsym != null && oldsym.address == sym.address;
+    }
+
+    private void setInsert(ComputedSymbol sym) throws SQLException {
+        createSymbol.setString(1, trace);
+        createSymbol.setLong(2, sym.address);
+        createSymbol.setLong(3, 0); // size
+        createSymbol.setInt(4, getType(sym));
+        createSymbol.setString(5, sym.name);
+        createSymbol.setString(6, getPrototype(sym));
+    }
+
+    private void setUpdate(ComputedSymbol sym) throws SQLException {
+        updateSymbol.setLong(1, 0); // size
+        updateSymbol.setInt(2, getType(sym));
+        updateSymbol.setString(3, sym.name);
+        updateSymbol.setString(4, getPrototype(sym));
+        updateSymbol.setString(5, trace);
+        updateSymbol.setLong(6, sym.address);
+    }
+
     @Override
     public void createComputedSymbol(ComputedSymbol sym) {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        // a single statement, no transaction needed
         try {
-            con.setAutoCommit(false);
-            ComputedSymbol oldsym = getComputedSymbol(sym.address);
-            if (oldsym == null) {
-                createSymbol.setString(1, trace);
-                createSymbol.setLong(2, sym.address);
-                createSymbol.setLong(3, 0); // size
-                switch (sym.type) {
-                    default:
-                    case LOCATION:
-                        createSymbol.setInt(4, TYPE_LOCATION);
-                        break;
-                    case SUBROUTINE:
-                        createSymbol.setInt(4, TYPE_SUBROUTINE);
-                        break;
-                }
-                createSymbol.setString(5, sym.name);
-                if (sym.prototype == null) {
-                    createSymbol.setString(6, null);
-                } else {
-                    String str = sym.prototype.returnType.toString() + " f(" + sym.prototype.args.stream().map(Object::toString).collect(Collectors.joining(", ")) + ")";
-                    createSymbol.setString(6, str);
-                }
+            if (!exists(sym)) {
+                setInsert(sym);
                 if (createSymbol.executeUpdate() != 1) {
                     log.log(Levels.WARNING, "Failed to insert symbol " + sym.name + " at location 0x" + HexFormatter.tohex(sym.address));
+                    return;
                 }
             } else {
-                updateSymbol.setLong(1, 0); // size
-                switch (sym.type) {
-                    default:
-                    case LOCATION:
-                        updateSymbol.setInt(2, TYPE_LOCATION);
-                        break;
-                    case SUBROUTINE:
-                        updateSymbol.setInt(2, TYPE_SUBROUTINE);
-                        break;
-                }
-                updateSymbol.setString(3, sym.name);
-                if (sym.prototype == null) {
-                    updateSymbol.setString(4, null);
-                } else {
-                    String str = sym.prototype.returnType.toString() + " f(" + sym.prototype.args.stream().map(Object::toString).collect(Collectors.joining(", ")) + ")";
-                    updateSymbol.setString(4, str);
-                }
-                updateSymbol.setString(5, trace);
-                updateSymbol.setLong(6, sym.address);
+                setUpdate(sym);
                 if (updateSymbol.executeUpdate() != 1) {
                     log.log(Levels.WARNING, "Failed to update symbol " + sym.name + " at location 0x" + HexFormatter.tohex(sym.address));
+                    return;
                 }
             }
-            con.commit();
+            cache(getStoredSymbol(sym));
         } catch (SQLException e) {
             log.log(Levels.WARNING, "Error while executing createSymbol: " + e.getMessage(), e);
-        } finally {
-            try {
-                con.setAutoCommit(true);
-            } catch (SQLException e) {
-                log.log(Levels.WARNING, "Error while restoring autocommit: " + e.getMessage(), e);
-            }
         }
     }
 
     @Override
-    public void setCommentForPC(long pc, String comment) {
+    public void createComputedSymbols(Collection<ComputedSymbol> syms) {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
+        // later symbols at the same address replace earlier ones
+        Map<Long, ComputedSymbol> unique = new LinkedHashMap<>();
+        for (ComputedSymbol sym : syms) {
+            unique.put(sym.address, sym);
+        }
         try {
             con.setAutoCommit(false);
-            if (getCommentForPC(pc) == null) {
-                // insert
-                if (comment == null) {
-                    // nothing to insert
-                    return;
-                }
-                try {
-                    createCommentPC.setString(1, trace);
-                    createCommentPC.setLong(2, pc);
-                    createCommentPC.setString(3, comment);
-                    if (createCommentPC.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to create comment at location 0x" + HexFormatter.tohex(pc));
+            try {
+                int inserts = 0;
+                int updates = 0;
+                for (ComputedSymbol sym : unique.values()) {
+                    if (exists(sym)) {
+                        setUpdate(sym);
+                        updateSymbol.addBatch();
+                        updates++;
+                    } else {
+                        setInsert(sym);
+                        createSymbol.addBatch();
+                        inserts++;
                     }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing createCommentPC: " + e.getMessage(), e);
                 }
-            } else if (comment == null) {
-                // delete
-                try {
-                    deleteCommentPC.setString(1, trace);
-                    deleteCommentPC.setLong(2, pc);
-                    if (deleteCommentPC.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to delete comment at location 0x" + HexFormatter.tohex(pc));
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing deleteCommentPC: " + e.getMessage(), e);
+                if (inserts > 0) {
+                    createSymbol.executeBatch();
                 }
-            } else {
-                // update
-                try {
-                    updateCommentPC.setString(1, comment);
-                    updateCommentPC.setString(2, trace);
-                    updateCommentPC.setLong(3, pc);
-                    if (updateCommentPC.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to update comment at location 0x" + HexFormatter.tohex(pc));
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing updateCommentPC: " + e.getMessage(), e);
+                if (updates > 0) {
+                    updateSymbol.executeBatch();
                 }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                createSymbol.clearBatch();
+                updateSymbol.clearBatch();
+                throw e;
+            }
+            for (ComputedSymbol sym : unique.values()) {
+                cache(getStoredSymbol(sym));
             }
-            con.commit();
-            con.setAutoCommit(true);
         } catch (SQLException e) {
-            log.log(Levels.WARNING, "Error while executing commit: " + e.getMessage(), e);
+            log.log(Levels.WARNING, "Error while executing createSymbol batch: " + e.getMessage(), e);
         } finally {
             try {
                 con.setAutoCommit(true);
@@ -532,6 +636,54 @@ public class SQLSessionStorage extends SessionStorage {
         }
     }
 
+    @Override
+    public void setCommentForPC(long pc, String comment) {
+        if (trace == null) {
+            throw new IllegalStateException("No trace selected");
+        }
+        // single statements in autocommit mode, a transaction is only needed for batches
+        if (getCommentForPC(pc) == null) {
+            // insert
+            if (comment == null) {
+                // nothing to insert
+                return;
+            }
+            try {
+                createCommentPC.setString(1, trace);
+                createCommentPC.setLong(2, pc);
+                createCommentPC.setString(3, comment);
+                if (createCommentPC.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to create comment at location 0x" + HexFormatter.tohex(pc));
+                }
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing createCommentPC: " + e.getMessage(), e);
+            }
+        } else if (comment == null) {
+            // delete
+            try {
+                deleteCommentPC.setString(1, trace);
+                deleteCommentPC.setLong(2, pc);
+                if (deleteCommentPC.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to delete comment at location 0x" + HexFormatter.tohex(pc));
+                }
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing deleteCommentPC: " + e.getMessage(), e);
+            }
+        } else {
+            // update
+            try {
+                updateCommentPC.setString(1, comment);
+                updateCommentPC.setString(2, trace);
+                updateCommentPC.setLong(3, pc);
+                if (updateCommentPC.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to update comment at location 0x" + HexFormatter.tohex(pc));
+                }
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing updateCommentPC: " + e.getMessage(), e);
+            }
+        }
+    }
+
     @Override
     public String getCommentForPC(long pc) {
         if (trace == null) {
@@ -558,57 +710,44 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
-        try {
-            con.setAutoCommit(false);
-            if (getCommentForInsn(insn) == null) {
-                // insert
-                if (comment == null) {
-                    // nothing to insert
-                    return;
-                }
-                try {
-                    createCommentInsn.setString(1, trace);
-                    createCommentInsn.setLong(2, insn);
-                    createCommentInsn.setString(3, comment);
-                    if (createCommentInsn.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to create comment at insn #" + insn);
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing createCommentInsn: " + e.getMessage(), e);
-                }
-            } else if (comment == null) {
-                // delete
-                try {
-                    deleteCommentInsn.setString(1, trace);
-                    deleteCommentInsn.setLong(2, insn);
-                    if (deleteCommentInsn.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to delete comment at insn #" + insn);
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing deleteCommentInsn: " + e.getMessage(), e);
+        if (getCommentForInsn(insn) == null) {
+            // insert
+            if (comment == null) {
+                // nothing to insert
+                return;
+            }
+            try {
+                createCommentInsn.setString(1, trace);
+                createCommentInsn.setLong(2, insn);
+                createCommentInsn.setString(3, comment);
+                if (createCommentInsn.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to create comment at insn #" + insn);
                 }
-            } else {
-                // update
-                try {
-                    updateCommentInsn.setString(1, comment);
-                    updateCommentInsn.setString(2, trace);
-                    updateCommentInsn.setLong(3, insn);
-                    if (updateCommentInsn.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to update comment at insn #" + insn);
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing updateCommentInsn: " + e.getMessage(), e);
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing createCommentInsn: " + e.getMessage(), e);
+            }
+        } else if (comment == null) {
+            // delete
+            try {
+                deleteCommentInsn.setString(1, trace);
+                deleteCommentInsn.setLong(2, insn);
+                if (deleteCommentInsn.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to delete comment at insn #" + insn);
                 }
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing deleteCommentInsn: " + e.getMessage(), e);
             }
-            con.commit();
-            con.setAutoCommit(true);
-        } catch (SQLException e) {
-            log.log(Levels.WARNING, "Error while executing commit: " + e.getMessage(), e);
-        } finally {
+        } else {
+            // update
             try {
-                con.setAutoCommit(true);
+                updateCommentInsn.setString(1, comment);
+                updateCommentInsn.setString(2, trace);
+                updateCommentInsn.setLong(3, insn);
+                if (updateCommentInsn.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to update comment at insn #" + insn);
+                }
             } catch (SQLException e) {
-                log.log(Levels.WARNING, "Error while restoring autocommit: " + e.getMessage(), e);
+                log.log(Levels.WARNING, "Error while executing updateCommentInsn: " + e.getMessage(), e);
             }
         }
     }
@@ -678,6 +817,62 @@ public class SQLSessionStorage extends SessionStorage {
         }
     }
 
+    @Override
+    public void setCommentsForPCs(Map<Long, String> comments) {
+        setComments(comments, deleteCommentPC, createCommentPC, "COMMENTPC");
+    }
+
+    @Override
+    public void setCommentsForInsns(Map<Long, String> comments) {
+        setComments(comments, deleteCommentInsn, createCommentInsn, "COMMENTINSN");
+    }
+
+    // replace all given comments in one transaction: delete the old rows, insert the new ones
+    private void setComments(Map<Long, String> comments, PreparedStatement delete, PreparedStatement create, String table) {
+        if (trace == null) {
+            throw new IllegalStateException("No trace selected");
+        }
+        if (comments.isEmpty()) {
+            return;
+        }
+        try {
+            con.setAutoCommit(false);
+            try {
+                int inserts = 0;
+                for (Map.Entry<Long, String> entry : comments.entrySet()) {
+                    delete.setString(1, trace);
+                    delete.setLong(2, entry.getKey());
+                    delete.addBatch();
+                    if (entry.getValue() != null) {
+                        create.setString(1, trace);
+                        create.setLong(2, entry.getKey());
+                        create.setString(3, entry.getValue());
+                        create.addBatch();
+                        inserts++;
+                    }
+                }
+                delete.executeBatch();
+                if (inserts > 0) {
+                    create.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                delete.clearBatch();
+                create.clearBatch();
+                throw e;
+            }
+        } catch (SQLException e) {
+            log.log(Levels.WARNING, "Error while writing " + table + " batch: " + e.getMessage(), e);
+        } finally {
+            try {
+                con.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while restoring autocommit: " + e.getMessage(), e);
+            }
+        }
+    }
+
     @Override
     public void setExpression(long pc, String expression) {
         if (trace == null) {
@@ -722,60 +917,46 @@ public class SQLSessionStorage extends SessionStorage {
         if (trace == null) {
             throw new IllegalStateException("No trace selected");
         }
-        try {
-            con.setAutoCommit(false);
-            if (getColor(pc) == null) {
-                // insert
-                if (color == null) {
-                    // nothing to insert
-                    return;
-                }
-                try {
-                    createHighlight.setString(1, trace);
-                    createHighlight.setLong(2, pc);
-                    createHighlight.setString(3, getColor(color));
-                    if (createHighlight.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to create highlight at location 0x" + HexFormatter.tohex(pc));
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing createHighlight: " + e.getMessage(), e);
-                }
-            } else if (color == null) {
-                // delete
-                try {
-                    deleteHighlight.setString(1, trace);
-                    deleteHighlight.setLong(2, pc);
-                    if (deleteHighlight.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to delete highlight at location 0x" + HexFormatter.tohex(pc));
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing deleteHighlight: " + e.getMessage(), e);
+        if (getColor(pc) == null) {
+            // insert
+            if (color == null) {
+                // nothing to insert
+                return;
+            }
+            try {
+                createHighlight.setString(1, trace);
+                createHighlight.setLong(2, pc);
+                createHighlight.setString(3, getColor(color));
+                if (createHighlight.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to create highlight at location 0x" + HexFormatter.tohex(pc));
                 }
-            } else {
-                // update
-                try {
-                    updateHighlight.setString(1, getColor(color));
-                    updateHighlight.setString(2, trace);
-                    updateHighlight.setLong(3, pc);
-                    if (updateHighlight.executeUpdate() != 1) {
-                        log.log(Levels.WARNING, "Failed to update highlight at location 0x" + HexFormatter.tohex(pc));
-                    }
-                } catch (SQLException e) {
-                    log.log(Levels.WARNING, "Error while executing updateHighlight: " + e.getMessage(), e);
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing createHighlight: " + e.getMessage(), e);
+            }
+        } else if (color == null) {
+            // delete
+            try {
+                deleteHighlight.setString(1, trace);
+                deleteHighlight.setLong(2, pc);
+                if (deleteHighlight.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to delete highlight at location 0x" + HexFormatter.tohex(pc));
                 }
+            } catch (SQLException e) {
+                log.log(Levels.WARNING, "Error while executing deleteHighlight: " + e.getMessage(), e);
             }
-            con.commit();
-            con.setAutoCommit(true);
-        } catch (SQLException e) {
-            log.log(Levels.WARNING, "Error while executing commit: " + e.getMessage(), e);
-        } finally {
+        } else {
+            // update
             try {
-                con.setAutoCommit(true);
+                updateHighlight.setString(1, getColor(color));
+                updateHighlight.setString(2, trace);
+                updateHighlight.setLong(3, pc);
+                if (updateHighlight.executeUpdate() != 1) {
+                    log.log(Levels.WARNING, "Failed to update highlight at location 0x" + HexFormatter.tohex(pc));
+                }
             } catch (SQLException e) {
-                log.log(Levels.WARNING, "Error while restoring autocommit: " + e.getMessage(), e);
+                log.log(Levels.WARNING, "Error while executing updateHighlight: " + e.getMessage(), e);
             }
         }
-
     }
 
     @Override
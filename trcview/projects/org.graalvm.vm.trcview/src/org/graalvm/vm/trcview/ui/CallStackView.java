@@ -257,6 +257,18 @@ public class CallStackView extends JPanel {
         Collections.reverse(callStackBlocks);
     }
 
+    /**
+     * Called when the trace grew. The frames of the displayed call stack do not change, but their
+     * symbols might be known now.
+     */
+    public void traceUpdated() {
+        if (current == null) {
+            return;
+        }
+        computeCallTrace();
+        model.changed();
+    }
+
     public BlockNode get() {
         return current;
     }
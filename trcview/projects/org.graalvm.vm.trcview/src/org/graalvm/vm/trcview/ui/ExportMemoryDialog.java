@@ -30,6 +30,7 @@ import javax.swing.WindowConstants;
 
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.analysis.memory.VirtualMemorySnapshot;
+import org.graalvm.vm.trcview.io.TraceExporter;
 import org.graalvm.vm.util.HexFormatter;
 import org.graalvm.vm.util.log.Levels;
 import org.graalvm.vm.util.log.Trace;
@@ -286,19 +287,11 @@ public class ExportMemoryDialog extends JDialog {
         boolean ignore = ignoreUnmapped.isSelected();
         log.info(String.format("Dumping memory from 0x%x to 0x%x to file %s", start, end, filename));
         try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
-            for (long ptr = start; ptr < end; ptr++) {
-                byte b = 0;
-                try {
-                    b = memory.getI8(ptr);
-                } catch (MemoryNotMappedException e) {
-                    if (!ignore) {
-                        log.warning("Memory dump failed due to unmapped memory: " + e.getMessage());
-                        JOptionPane.showMessageDialog(this, e.getMessage(), "Memory not mapped", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                }
-                out.write(b);
-            }
+            TraceExporter.writeMemory(memory, start, end, ignore, out);
+        } catch (MemoryNotMappedException e) {
+            log.warning("Memory dump failed due to unmapped memory: " + e.getMessage());
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Memory not mapped", JOptionPane.ERROR_MESSAGE);
+            return;
         }
         log.info("Memory dump complete");
     }
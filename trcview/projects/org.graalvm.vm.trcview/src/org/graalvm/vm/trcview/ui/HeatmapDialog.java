@@ -0,0 +1,291 @@
+package org.graalvm.vm.trcview.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.KeyStroke;
+
+import org.graalvm.vm.trcview.analysis.memory.AccessHeatmap;
+import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.ui.event.JumpListener;
+
+/**
+ * Memory accesses over pages (vertical) and steps (horizontal). Writes are drawn red, reads green,
+ * the brightness is the logarithm of the number of accesses. The mouse wheel zooms, a click lists
+ * the accesses of the selected cell. Only the visible tile of the heatmap is requested from the
+ * trace analyzer, so that a remote trace does not transfer all of it.
+ */
+@SuppressWarnings("serial")
+public class HeatmapDialog extends JDialog {
+    // listing the accesses of a cell looks at every page of its row
+    private static final int MAX_PAGES = 16;
+    private static final int MAX_ACCESSES = 5000;
+
+    private final TraceAnalyzer trc;
+    private final JumpListener jump;
+    // geometry of the finest level
+    private final AccessHeatmap.Level base;
+    private final StepFormat format;
+    private final Heatmap view;
+    private final JLabel info;
+    private final JList<Access> accesses;
+
+    public HeatmapDialog(JFrame owner, TraceAnalyzer trc, JumpListener jump) {
+        super(owner, "Memory heatmap", false);
+        this.trc = trc;
+        this.jump = jump;
+        base = trc.getHeatmapTile(0, 0, 0, 0, 0, 0);
+        format = trc.getArchitecture().getFormat();
+
+        view = new Heatmap();
+        info = new JLabel(base.getRows() + " pages, " + base.getBucketSize() + " steps per column");
+
+        accesses = new JList<>();
+        accesses.setFont(MainWindow.FONT);
+        accesses.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    jump();
+                }
+            }
+        });
+
+        JButton ok = new JButton("Goto");
+        ok.addActionListener(e -> jump());
+
+        JButton reset = new JButton("Reset zoom");
+        reset.addActionListener(e -> view.reset());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout());
+        buttons.add(ok);
+        buttons.add(reset);
+        buttons.add(close);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, view, new JScrollPane(accesses));
+        split.setResizeWeight(0.75);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(BorderLayout.NORTH, info);
+        content.add(BorderLayout.CENTER, split);
+        content.add(BorderLayout.SOUTH, buttons);
+
+        KeyStroke esc = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0);
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(esc, esc);
+        content.getActionMap().put(esc, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setContentPane(content);
+
+        setSize(800, 640);
+        setLocationRelativeTo(owner);
+    }
+
+    private void jump() {
+        Access access = accesses.getSelectedValue();
+        if (access != null && access.step != null) {
+            jump.jump(access.step);
+        }
+    }
+
+    private void select(AccessHeatmap.Level level, int row, int column) {
+        long first = level.getStartStep(column);
+        long last = level.getEndStep(column);
+        long start = level.getStartAddress(row);
+        long end = level.getEndAddress(row);
+        long reads = level.getReads(row, column);
+        long writes = level.getWrites(row, column);
+        String cell = format.formatAddress(start) + "-" + format.formatAddress(end) + ", steps " + first + "-" + last + ": " + reads + " reads, " + writes + " writes";
+        info.setText(cell);
+
+        if (level.getPageCount(row) > MAX_PAGES || reads + writes > MAX_ACCESSES) {
+            info.setText(cell + " (zoom in to list the accesses)");
+            accesses.setListData(new Access[0]);
+            return;
+        }
+
+        List<Access> result = new ArrayList<>();
+        for (MemoryRead read : trc.getReadXrefs(start, end, first, last)) {
+            result.add(new Access(false, read.address, read.size, read.instructionCount, read.step));
+        }
+        for (MemoryUpdate write : trc.getWriteXrefs(start, end, first, last)) {
+            result.add(new Access(true, write.address, write.size, write.instructionCount, write.step));
+        }
+        result.sort((a, b) -> Long.compare(a.instructionCount, b.instructionCount));
+        accesses.setListData(result.toArray(new Access[result.size()]));
+    }
+
+    private class Access {
+        final boolean write;
+        final long address;
+        final int size;
+        final long instructionCount;
+        final StepEvent step;
+
+        Access(boolean write, long address, int size, long instructionCount, StepEvent step) {
+            this.write = write;
+            this.address = address;
+            this.size = size;
+            this.instructionCount = instructionCount;
+            this.step = step;
+        }
+
+        @Override
+        public String toString() {
+            String text = "[step " + instructionCount + "] " + (write ? "W " : "R ") + format.formatAddress(address) + " [" + size + " bytes]";
+            if (step != null) {
+                text += " <= " + format.formatAddress(step.getPC()) + ": " + step.getDisassembly().replace("\t", " ");
+            }
+            return text;
+        }
+    }
+
+    private class Heatmap extends JComponent {
+        // visible area in cells of the finest level
+        private int row0;
+        private int rows;
+        private int column0;
+        private int columns;
+
+        // the visible tile of the level which is shown
+        private AccessHeatmap.Level tile;
+        private int tileRow;
+        private int tileColumn;
+        private int tileRows;
+        private int tileColumns;
+
+        Heatmap() {
+            setPreferredSize(new Dimension(800, 400));
+            reset();
+            addMouseWheelListener(this::zoom);
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    AccessHeatmap.Level level = getLevel();
+                    int row = (row0 + (int) ((long) e.getY() * rows / getHeight())) >> level.getRowShift();
+                    int column = (column0 + (int) ((long) e.getX() * columns / getWidth())) >> level.getColumnShift();
+                    if (row < level.getRows() && column < level.getColumns()) {
+                        select(level, row, column);
+                    }
+                }
+            });
+        }
+
+        void reset() {
+            row0 = 0;
+            column0 = 0;
+            rows = Math.max(1, base.getRows());
+            columns = Math.max(1, base.getColumns());
+            repaint();
+        }
+
+        private void zoom(MouseWheelEvent e) {
+            int totalRows = Math.max(1, base.getRows());
+            int totalColumns = Math.max(1, base.getColumns());
+            double x = (double) e.getX() / getWidth();
+            double y = (double) e.getY() / getHeight();
+            int centerRow = row0 + (int) (y * rows);
+            int centerColumn = column0 + (int) (x * columns);
+            if (e.getWheelRotation() < 0) {
+                rows = Math.max(1, rows / 2);
+                columns = Math.max(1, columns / 2);
+            } else {
+                rows = Math.min(totalRows, rows * 2);
+                columns = Math.min(totalColumns, columns * 2);
+            }
+            row0 = Math.max(0, Math.min(totalRows - rows, centerRow - (int) (y * rows)));
+            column0 = Math.max(0, Math.min(totalColumns - columns, centerColumn - (int) (x * columns)));
+            repaint();
+        }
+
+        // visible part of the finest level with at most one cell per pixel in the visible area
+        private AccessHeatmap.Level getLevel() {
+            int rs = AccessHeatmap.fit(rows, getHeight());
+            int cs = AccessHeatmap.fit(columns, getWidth());
+            int row = row0 >> rs;
+            int column = column0 >> cs;
+            int rowCount = ((row0 + rows - 1) >> rs) - row + 1;
+            int columnCount = ((column0 + columns - 1) >> cs) - column + 1;
+            if (tile == null || tile.getRowShift() != rs || tile.getColumnShift() != cs || tileRow != row || tileColumn != column || tileRows != rowCount || tileColumns != columnCount) {
+                tile = trc.getHeatmapTile(rs, cs, row, column, rowCount, columnCount);
+                tileRow = row;
+                tileColumn = column;
+                tileRows = rowCount;
+                tileColumns = columnCount;
+            }
+            return tile;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int width = getWidth();
+            int height = getHeight();
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+            if (base.getRows() == 0) {
+                return;
+            }
+
+            AccessHeatmap.Level level = getLevel();
+            int rs = level.getRowShift();
+            int cs = level.getColumnShift();
+            double max = Math.log1p(level.getMaximum());
+            if (max == 0) {
+                return;
+            }
+            int firstRow = row0 >> rs;
+            int lastRow = Math.min((row0 + rows - 1) >> rs, level.getRows() - 1);
+            int firstColumn = column0 >> cs;
+            int lastColumn = Math.min((column0 + columns - 1) >> cs, level.getColumns() - 1);
+            for (int row = firstRow; row <= lastRow; row++) {
+                int y0 = (int) ((long) ((row << rs) - row0) * height / rows);
+                int y1 = (int) ((long) (((row + 1) << rs) - row0) * height / rows);
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    long reads = level.getReads(row, column);
+                    long writes = level.getWrites(row, column);
+                    if (reads == 0 && writes == 0) {
+                        continue;
+                    }
+                    double intensity = 0.2 + 0.8 * Math.log1p(reads + writes) / max;
+                    int red = (int) (255 * intensity * writes / (reads + writes));
+                    int green = (int) (255 * intensity * reads / (reads + writes));
+                    int x0 = (int) ((long) ((column << cs) - column0) * width / columns);
+                    int x1 = (int) ((long) (((column + 1) << cs) - column0) * width / columns);
+                    g.setColor(new Color(red, green, 0));
+                    g.fillRect(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+                }
+            }
+        }
+    }
+}
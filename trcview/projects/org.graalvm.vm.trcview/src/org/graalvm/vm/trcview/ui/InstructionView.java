@@ -415,6 +415,27 @@ public class InstructionView extends JPanel {
         insns.repaint();
     }
 
+    /**
+     * Called when the trace grew. New nodes of the displayed block are appended; if the last node
+     * was selected, the selection follows the end of the block.
+     */
+    public void traceUpdated() {
+        int selected = insns.getSelectedIndex();
+        boolean tail = selected != -1 && selected == model.getSize() - 1;
+        if (!model.grow()) {
+            return;
+        }
+        if (maxwidth == -1 && instructions.size() > 5000) {
+            maxwidth = 20 + tabSize;
+            insns.setPrototypeCellValue(StringUtils.repeat("x", maxwidth));
+        }
+        if (tail) {
+            int last = model.getSize() - 1;
+            insns.setSelectedIndex(last);
+            insns.ensureIndexIsVisible(last);
+        }
+    }
+
     public void select(Node node) {
         for (int n = 0; n < instructions.size(); n++) {
             if (instructions.get(n).getId() == node.getId()) {
@@ -580,6 +601,8 @@ public class InstructionView extends JPanel {
     }
 
     public class InstructionViewModel extends AbstractListModel<String> {
+        private int size = 0;
+
         @Override
         public String getElementAt(int i) {
             Node n = instructions.get(i);
@@ -698,11 +721,27 @@ public class InstructionView extends JPanel {
 
         @Override
         public int getSize() {
-            return instructions.size();
+            return size;
         }
 
         public void changed() {
+            size = instructions.size();
             fireContentsChanged(this, 0, getSize());
         }
+
+        public boolean grow() {
+            int old = size;
+            int now = instructions.size();
+            if (now <= old) {
+                return false;
+            }
+            size = now;
+            if (old > 0) {
+                // the last line depends on its successor
+                fireContentsChanged(this, old - 1, old - 1);
+            }
+            fireIntervalAdded(this, old, now - 1);
+            return true;
+        }
     }
 }
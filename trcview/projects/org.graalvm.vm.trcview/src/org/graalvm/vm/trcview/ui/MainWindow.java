@@ -50,6 +50,7 @@ import java.awt.event.KeyEvent;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
@@ -70,7 +71,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
@@ -83,14 +83,20 @@ import javax.swing.JPanel;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import org.graalvm.vm.posix.elf.ElfStrings;
 import org.graalvm.vm.trcview.analysis.Analysis;
 import org.graalvm.vm.trcview.analysis.Analyzer;
 import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.diff.Divergence;
+import org.graalvm.vm.trcview.analysis.diff.StepStream;
+import org.graalvm.vm.trcview.analysis.diff.TraceDiff;
+import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
 import org.graalvm.vm.trcview.analysis.memory.VirtualMemorySnapshot;
-import org.graalvm.vm.trcview.analysis.type.DataType;
-import org.graalvm.vm.trcview.analysis.type.Field;
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.analysis.taint.TaintAnalyzer;
 import org.graalvm.vm.trcview.analysis.type.Function;
 import org.graalvm.vm.trcview.analysis.type.NameAlreadyUsedException;
 import org.graalvm.vm.trcview.analysis.type.Struct;
@@ -99,6 +105,7 @@ import org.graalvm.vm.trcview.analysis.type.UserTypeDatabase;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.io.DerivedStepEvent;
 import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.IoEvent;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.trcview.arch.io.TraceFileReader;
@@ -108,15 +115,23 @@ import org.graalvm.vm.trcview.data.Variable;
 import org.graalvm.vm.trcview.decode.ABI;
 import org.graalvm.vm.trcview.decode.DecoderUtils;
 import org.graalvm.vm.trcview.decode.GenericABI;
+import org.graalvm.vm.trcview.expression.EvaluationException;
 import org.graalvm.vm.trcview.expression.Parser;
 import org.graalvm.vm.trcview.expression.ast.Expression;
 import org.graalvm.vm.trcview.io.ABISerializer;
 import org.graalvm.vm.trcview.io.BlockNode;
 import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.io.ProgressListener;
 import org.graalvm.vm.trcview.io.TextSerializer;
+import org.graalvm.vm.trcview.io.TraceExporter;
+import org.graalvm.vm.trcview.io.TraceFollower;
 import org.graalvm.vm.trcview.io.TraceParser;
 import org.graalvm.vm.trcview.net.Local;
+import org.graalvm.vm.trcview.net.LocalDatabase;
+import org.graalvm.vm.trcview.net.Remote;
 import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.net.protocol.Protocol;
+import org.graalvm.vm.trcview.storage.TraceDatabase;
 import org.graalvm.vm.trcview.ui.TraceView.ThreadID;
 import org.graalvm.vm.trcview.ui.Watches.Watch;
 import org.graalvm.vm.trcview.ui.call.ABIEditor;
@@ -136,6 +151,7 @@ import org.graalvm.vm.util.ui.MessageBox;
 @SuppressWarnings("serial")
 public class MainWindow extends JFrame implements TraceListenable {
     private static final String WINDOW_TITLE = "TRCView";
+    private static final int FOLLOW_INTERVAL = 100;
     private static final String ABOUT_TEXT = "<html><body><i>TRCView - Interactive Execution Trace Analyzer</i><br/><br/>" +
                     "Supported architectures:<br/>" +
                     "<ul>%s</ul>" +
@@ -152,10 +168,16 @@ public class MainWindow extends JFrame implements TraceListenable {
     private TraceView view;
 
     private JMenuItem open;
+    private JMenuItem follow;
+    private JMenuItem stopFollow;
+    private JMenuItem connect;
     private JMenuItem loadPrototypes;
     private JMenuItem loadMap;
     private JMenuItem loadIdaMap;
     private JMenuItem generateIDC;
+    private JMenuItem exportTaint;
+    private JMenuItem exportStacks;
+    private JMenuItem compareTrace;
     private JMenuItem loadSymbols;
     private JMenuItem saveSymbols;
     private JMenuItem loadSession;
@@ -170,14 +192,30 @@ public class MainWindow extends JFrame implements TraceListenable {
     private JMenuItem gotoPC;
     private JMenuItem gotoInsn;
     private JMenuItem gotoNext;
+    private JMenuItem findNext;
+    private JMenuItem backwardSlice;
+    private JMenuItem checkTaint;
+    private JMenuItem plotExpression;
     private JMenuItem exportMemory;
+    private JMenuItem profileWindow;
+    private JMenuItem heatmapWindow;
+    private JMenuItem deviceWindow;
     private JCheckBoxMenuItem typeRecovery;
     private JCheckBoxMenuItem codeAnalysis;
+    private JCheckBoxMenuItem defUseAnalysis;
+    private JCheckBoxMenuItem taintAnalysis;
     private JCheckBoxMenuItem useSymbols;
     private JCheckBoxMenuItem autoComment;
     private JMenu subviewMenu;
 
     private TraceAnalyzer trc;
+    private File traceFile;
+    private TraceFollower follower;
+    private Local followTrace;
+    private Timer followTimer;
+
+    private String lastCondition = "";
+    private String lastPlot = "";
 
     private UIPluginLoader pluginLoader;
 
@@ -193,9 +231,13 @@ public class MainWindow extends JFrame implements TraceListenable {
         traceListeners = new ArrayList<>();
 
         FileDialog load = new FileDialog(this, "Open...", FileDialog.LOAD);
+        FileDialog loadFollow = new FileDialog(this, "Follow...", FileDialog.LOAD);
         FileDialog loadSyms = new FileDialog(this, "Load symbols...", FileDialog.LOAD);
         FileDialog saveSyms = new FileDialog(this, "Save symbols...", FileDialog.SAVE);
         FileDialog genIDC = new FileDialog(this, "Generate IDC...", FileDialog.SAVE);
+        FileDialog saveTaint = new FileDialog(this, "Export tainted PCs...", FileDialog.SAVE);
+        FileDialog saveStacks = new FileDialog(this, "Export collapsed stacks...", FileDialog.SAVE);
+        FileDialog loadCompare = new FileDialog(this, "Compare with trace...", FileDialog.LOAD);
         FileDialog loadSess = new FileDialog(this, "Load session...", FileDialog.LOAD);
         FileDialog saveSess = new FileDialog(this, "Save session...", FileDialog.SAVE);
         ExportMemoryDialog exportMemoryDialog = new ExportMemoryDialog(this);
@@ -231,6 +273,44 @@ public class MainWindow extends JFrame implements TraceListenable {
             };
             worker.execute();
         });
+        follow = new JMenuItem("Follow...");
+        follow.setMnemonic('w');
+        follow.addActionListener(e -> {
+            loadFollow.setVisible(true);
+            if (loadFollow.getFile() == null) {
+                return;
+            }
+            String filename = loadFollow.getDirectory() + loadFollow.getFile();
+            try {
+                follow(new File(filename));
+            } catch (IOException ex) {
+                MessageBox.showError(MainWindow.this, ex);
+            }
+        });
+        stopFollow = new JMenuItem("Stop following");
+        stopFollow.setMnemonic('p');
+        stopFollow.addActionListener(e -> stopFollowing());
+        stopFollow.setEnabled(false);
+        connect = new JMenuItem("Connect...");
+        connect.setMnemonic('c');
+        connect.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog("Enter server (host[:port]):", "localhost:" + Protocol.DEFAULT_PORT);
+            if (input == null || input.trim().length() == 0) {
+                return;
+            }
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    try {
+                        connect(input.trim());
+                    } catch (IOException | RuntimeException ex) {
+                        MessageBox.showError(MainWindow.this, ex);
+                    }
+                    return null;
+                }
+            };
+            worker.execute();
+        });
         loadSession = new JMenuItem("Load session...");
         loadSession.setMnemonic('l');
         loadSession.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, MENU_SHORTCUT_MASK));
@@ -367,6 +447,72 @@ public class MainWindow extends JFrame implements TraceListenable {
             worker.execute();
         });
         generateIDC.setEnabled(false);
+        exportTaint = new JMenuItem("Export tainted PCs...");
+        exportTaint.setMnemonic('t');
+        exportTaint.addActionListener(e -> {
+            saveTaint.setVisible(true);
+            if (saveTaint.getFile() == null) {
+                return;
+            }
+            String filename = saveTaint.getDirectory() + saveTaint.getFile();
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    try {
+                        exportTaint(new File(filename));
+                    } catch (IOException ex) {
+                        MessageBox.showError(MainWindow.this, ex);
+                    }
+                    return null;
+                }
+            };
+            worker.execute();
+        });
+        exportTaint.setEnabled(false);
+        exportStacks = new JMenuItem("Export collapsed stacks...");
+        exportStacks.setMnemonic('k');
+        exportStacks.addActionListener(e -> {
+            saveStacks.setVisible(true);
+            if (saveStacks.getFile() == null) {
+                return;
+            }
+            String filename = saveStacks.getDirectory() + saveStacks.getFile();
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    try {
+                        exportStacks(new File(filename));
+                    } catch (IOException ex) {
+                        MessageBox.showError(MainWindow.this, ex);
+                    }
+                    return null;
+                }
+            };
+            worker.execute();
+        });
+        exportStacks.setEnabled(false);
+        compareTrace = new JMenuItem("Compare with trace...");
+        compareTrace.setMnemonic('c');
+        compareTrace.addActionListener(e -> {
+            loadCompare.setVisible(true);
+            if (loadCompare.getFile() == null) {
+                return;
+            }
+            String filename = loadCompare.getDirectory() + loadCompare.getFile();
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    try {
+                        compareTrace(new File(filename));
+                    } catch (IOException ex) {
+                        MessageBox.showError(MainWindow.this, ex);
+                    }
+                    return null;
+                }
+            };
+            worker.execute();
+        });
+        compareTrace.setEnabled(false);
         loadSymbols = new JMenuItem("Load symbols...");
         loadSymbols.setMnemonic('m');
         loadSymbols.addActionListener(e -> {
@@ -437,6 +583,9 @@ public class MainWindow extends JFrame implements TraceListenable {
 
         if (master == null) {
             fileMenu.add(open);
+            fileMenu.add(follow);
+            fileMenu.add(stopFollow);
+            fileMenu.add(connect);
             // fileMenu.add(openDatabase);
             fileMenu.addSeparator();
             fileMenu.add(loadSession);
@@ -450,6 +599,10 @@ public class MainWindow extends JFrame implements TraceListenable {
             fileMenu.add(loadIdaMap);
             fileMenu.addSeparator();
             fileMenu.add(generateIDC);
+            fileMenu.add(exportTaint);
+            fileMenu.add(exportStacks);
+            fileMenu.addSeparator();
+            fileMenu.add(compareTrace);
             fileMenu.addSeparator();
             fileMenu.add(refresh);
             fileMenu.addSeparator();
@@ -580,7 +733,7 @@ public class MainWindow extends JFrame implements TraceListenable {
 
         subviewMenu = new JMenu("Open subview");
         subviewMenu.setMnemonic('s');
-        JMenuItem deviceWindow = new JMenuItem("Devices");
+        deviceWindow = new JMenuItem("Devices");
         deviceWindow.setMnemonic('D');
         deviceWindow.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F6, KeyEvent.SHIFT_DOWN_MASK));
         deviceWindow.addActionListener(e -> {
@@ -608,6 +761,20 @@ public class MainWindow extends JFrame implements TraceListenable {
             DataDialog dlg = new DataDialog(this, trc, view, view, view::jump, this);
             dlg.setVisible(true);
         });
+        profileWindow = new JMenuItem("Profile");
+        profileWindow.setMnemonic('p');
+        profileWindow.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F7, KeyEvent.SHIFT_DOWN_MASK));
+        profileWindow.addActionListener(e -> {
+            ProfileDialog dlg = new ProfileDialog(this, trc, view::jump);
+            dlg.setVisible(true);
+        });
+        heatmapWindow = new JMenuItem("Memory Heatmap");
+        heatmapWindow.setMnemonic('h');
+        heatmapWindow.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F8, KeyEvent.SHIFT_DOWN_MASK));
+        heatmapWindow.addActionListener(e -> {
+            HeatmapDialog dlg = new HeatmapDialog(this, trc, view::jump);
+            dlg.setVisible(true);
+        });
         JMenuItem typeRecoveryWindow = new JMenuItem("Type Recovery");
         typeRecoveryWindow.setMnemonic('r');
         typeRecoveryWindow.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F10, KeyEvent.SHIFT_DOWN_MASK));
@@ -619,6 +786,8 @@ public class MainWindow extends JFrame implements TraceListenable {
         subviewMenu.add(abiWindow);
         subviewMenu.add(dataWindow);
         subviewMenu.add(deviceWindow);
+        subviewMenu.add(profileWindow);
+        subviewMenu.add(heatmapWindow);
         subviewMenu.add(typeRecoveryWindow);
         subviewMenu.setEnabled(false);
         viewMenu.add(subviewMenu);
@@ -721,6 +890,146 @@ public class MainWindow extends JFrame implements TraceListenable {
         });
         gotoNext.setEnabled(false);
         viewMenu.add(gotoNext);
+        findNext = new JMenuItem("Find next step where...");
+        findNext.setMnemonic('w');
+        findNext.setAccelerator(KeyStroke.getKeyStroke('f'));
+        findNext.addActionListener(e -> {
+            String input = JOptionPane.showInputDialog("Enter condition:", lastCondition);
+            if (input != null && input.trim().length() > 0) {
+                lastCondition = input.trim();
+                try {
+                    Expression condition = new Parser(lastCondition).parseExpression();
+                    Node start = view.getSelectedNode();
+                    if (start == null) {
+                        start = trc.getRoot();
+                    }
+                    Node n = trc.getNextStep(start, condition);
+                    if (n != null) {
+                        log.info("Jumping to next step where " + condition);
+                        view.jump(n);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Error: cannot find a next step where " + condition, "Find next step...", JOptionPane.ERROR_MESSAGE);
+                    }
+                } catch (ParseException ex) {
+                    JOptionPane.showMessageDialog(this, "Syntax error: " + ex.getMessage(), "Find next step...", JOptionPane.ERROR_MESSAGE);
+                } catch (EvaluationException ex) {
+                    JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Find next step...", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+        findNext.setEnabled(false);
+        viewMenu.add(findNext);
+        backwardSlice = new JMenuItem("Backward slice...");
+        backwardSlice.setMnemonic('b');
+        backwardSlice.addActionListener(e -> {
+            StepEvent step = view.getSelectedInstruction();
+            if (step == null || !trc.hasDefUseIndex()) {
+                JOptionPane.showMessageDialog(this, "Error: no def-use index available", "Backward slice...", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            String input = JOptionPane.showInputDialog("Enter register or address[:size]:");
+            if (input == null || input.trim().length() == 0) {
+                return;
+            }
+            input = input.trim();
+            long[] slice;
+            int reg = trc.getArchitecture().getRegisterId(input);
+            if (reg >= 0) {
+                slice = trc.getBackwardSlice(trc.getRegisterDefinition(step.getTid(), reg, step.getStep()));
+            } else {
+                try {
+                    String[] parts = input.split(":");
+                    long addr = Long.parseUnsignedLong(parts[0], 16);
+                    int size = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+                    long[] roots = new long[size];
+                    for (int i = 0; i < size; i++) {
+                        roots[i] = DefUseIndex.NONE;
+                        try {
+                            MemoryUpdate write = trc.getLastWrite(addr + i, step.getStep());
+                            if (write != null && write.step != null) {
+                                roots[i] = DefUseIndex.ref(write.step.getTid(), write.instructionCount);
+                            }
+                        } catch (MemoryNotMappedException ex) {
+                            // no producer for this byte
+                        }
+                    }
+                    slice = trc.getBackwardSlice(roots);
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(this, "Error: unknown register or invalid address", "Backward slice...", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
+            log.info("Backward slice of " + input + " at step " + step.getStep() + ": " + slice.length + " steps");
+            SliceDialog dlg = new SliceDialog(this, trc, input + " at step " + step.getStep(), slice, view::jump);
+            dlg.setVisible(true);
+        });
+        backwardSlice.setEnabled(false);
+        viewMenu.add(backwardSlice);
+        checkTaint = new JMenuItem("Check taint...");
+        checkTaint.setMnemonic('k');
+        checkTaint.addActionListener(e -> {
+            StepEvent step = view.getSelectedInstruction();
+            if (step == null || !trc.hasTaintAnalysis()) {
+                JOptionPane.showMessageDialog(this, "Error: no taint analysis available", "Check taint...", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            String input = JOptionPane.showInputDialog("Enter register (empty for the current step):");
+            if (input == null) {
+                return;
+            }
+            input = input.trim();
+            String what;
+            int[] labels;
+            if (input.length() == 0) {
+                what = "Step " + step.getStep();
+                labels = trc.getStepTaint(step.getTid(), step.getStep());
+            } else {
+                int reg = trc.getArchitecture().getRegisterId(input);
+                if (reg < 0) {
+                    JOptionPane.showMessageDialog(this, "Error: unknown register " + input, "Check taint...", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                what = input + " at step " + step.getStep();
+                labels = trc.getRegisterTaint(step.getTid(), reg, step.getStep());
+            }
+            StringBuilder buf = new StringBuilder();
+            if (labels.length == 0) {
+                buf.append(what).append(" is not tainted");
+            } else {
+                buf.append(what).append(" is tainted by:");
+                for (int label : labels) {
+                    IoEvent evt = trc.getTaintInputs().get(label);
+                    buf.append("\ninput ").append(label).append(" [step ").append(evt.getStep()).append(", tid ").append(evt.getTid()).append(", channel ").append(evt.getChannel()).append("]: ");
+                    buf.append(DecoderUtils.str(evt.getValue()));
+                }
+            }
+            JOptionPane.showMessageDialog(this, buf.toString(), "Check taint...", JOptionPane.INFORMATION_MESSAGE);
+        });
+        checkTaint.setEnabled(false);
+        viewMenu.add(checkTaint);
+        plotExpression = new JMenuItem("Plot expression...");
+        plotExpression.setMnemonic('e');
+        plotExpression.addActionListener(e -> {
+            StepEvent step = view.getSelectedInstruction();
+            if (step == null) {
+                JOptionPane.showMessageDialog(this, "Error: no step selected", "Plot expression...", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            String input = JOptionPane.showInputDialog("Enter expression:", lastPlot);
+            if (input == null || input.trim().length() == 0) {
+                return;
+            }
+            lastPlot = input.trim();
+            try {
+                Expression expr = new Parser(lastPlot).parseExpression();
+                TimelineDialog dlg = new TimelineDialog(this, trc, lastPlot, expr, step, view::jump);
+                dlg.setVisible(true);
+            } catch (ParseException ex) {
+                JOptionPane.showMessageDialog(this, "Syntax error: " + ex.getMessage(), "Plot expression...", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        plotExpression.setEnabled(false);
+        viewMenu.add(plotExpression);
         menu.add(viewMenu);
 
         JMenu toolsMenu = new JMenu("Tools");
@@ -736,6 +1045,16 @@ public class MainWindow extends JFrame implements TraceListenable {
         codeAnalysis.setSelected(true);
         toolsMenu.add(codeAnalysis);
 
+        defUseAnalysis = new JCheckBoxMenuItem("Build def-use index");
+        defUseAnalysis.setMnemonic('d');
+        defUseAnalysis.setSelected(false);
+        toolsMenu.add(defUseAnalysis);
+
+        taintAnalysis = new JCheckBoxMenuItem("Perform taint analysis");
+        taintAnalysis.setMnemonic('n');
+        taintAnalysis.setSelected(false);
+        toolsMenu.add(taintAnalysis);
+
         useSymbols = new JCheckBoxMenuItem("Use symbols/labels");
         useSymbols.setMnemonic('s');
         useSymbols.setSelected(false);
@@ -867,11 +1186,17 @@ public class MainWindow extends JFrame implements TraceListenable {
     }
 
     public void load(File file) throws IOException {
+        File database = TraceDatabase.getDirectory(file);
+        if (database != null) {
+            openDatabase(database);
+            return;
+        }
         log.info("Loading file " + file + "...");
         open.setEnabled(false);
         long start = System.currentTimeMillis();
         try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
             long size = file.length();
+            traceFile = file;
             load(new TraceFileReader(in), size, file.toString());
         } catch (Throwable t) {
             log.log(Level.INFO, "Loading failed: " + t, t);
@@ -886,6 +1211,13 @@ public class MainWindow extends JFrame implements TraceListenable {
     }
 
     private void setTrace(TraceAnalyzer trc) {
+        if (this.trc instanceof Closeable && this.trc != trc) {
+            try {
+                ((Closeable) this.trc).close();
+            } catch (IOException e) {
+                log.log(Levels.WARNING, "Cannot close trace: " + e, e);
+            }
+        }
         this.trc = trc;
         trc.setSymbolize(useSymbols.isSelected());
         view.setTraceAnalyzer(trc);
@@ -893,11 +1225,12 @@ public class MainWindow extends JFrame implements TraceListenable {
         loadMap.setEnabled(true);
         loadIdaMap.setEnabled(true);
         generateIDC.setEnabled(true);
+        compareTrace.setEnabled(traceFile != null);
         loadSymbols.setEnabled(true);
         saveSymbols.setEnabled(true);
         loadSession.setEnabled(true);
         saveSession.setEnabled(true);
-        refresh.setEnabled(false);
+        refresh.setEnabled(trc instanceof Remote);
         renameSymbol.setEnabled(true);
         setFunctionType.setEnabled(true);
         setCommentInsn.setEnabled(true);
@@ -907,28 +1240,208 @@ public class MainWindow extends JFrame implements TraceListenable {
         gotoPC.setEnabled(true);
         gotoInsn.setEnabled(true);
         gotoNext.setEnabled(true);
+        findNext.setEnabled(true);
+        setAnalysisEnabled(trc != followTrace);
         exportMemory.setEnabled(true);
+        heatmapWindow.setEnabled(trc.getHeatmapTile(0, 0, 0, 0, 0, 0) != null);
+        deviceWindow.setEnabled(trc.getDevices() != null);
         subviewMenu.setEnabled(true);
         pluginLoader.traceLoaded(trc);
 
         setTraceAnalyzer(trc);
     }
 
+    // analyses which need the whole trace are only available after a followed trace is complete
+    private void setAnalysisEnabled(boolean complete) {
+        exportTaint.setEnabled(complete && trc.hasTaintAnalysis());
+        exportStacks.setEnabled(complete && trc.getProfile() != null);
+        backwardSlice.setEnabled(complete && trc.hasDefUseIndex());
+        checkTaint.setEnabled(complete && trc.hasTaintAnalysis());
+        plotExpression.setEnabled(complete);
+        profileWindow.setEnabled(complete && trc.getProfile() != null);
+    }
+
+    private Analysis createAnalysis(TraceReader reader) {
+        List<Analyzer> analyzers = pluginLoader.getAnalyzers(reader.getArchitecture());
+        Analyzer analyzer = reader.getAnalyzer();
+        if (analyzer != null) {
+            analyzers.add(analyzer);
+        }
+        return new Analysis(reader.getArchitecture(), analyzers, typeRecovery.isSelected(), codeAnalysis.isSelected(), defUseAnalysis.isSelected(), taintAnalysis.isSelected());
+    }
+
+    /**
+     * Load a trace file which is still being written. New events are parsed periodically and the
+     * views are updated in place, until the end of the trace is reached or following is stopped.
+     */
+    public void follow(File file) throws IOException {
+        log.info("Following file " + file + "...");
+        TraceFollower f = new TraceFollower(file);
+        open.setEnabled(false);
+        follow.setEnabled(false);
+        stopFollow.setEnabled(true);
+        traceFile = null;
+        followTrace = null;
+        follower = f;
+        setStatus("Following " + file);
+        setPosition(-1);
+        f.start(this::createAnalysis);
+        followTimer = new Timer(FOLLOW_INTERVAL, e -> followStep());
+        followTimer.start();
+    }
+
+    /**
+     * Browse a trace which is hosted by a trace server.
+     *
+     * @param server host name of the server, optionally followed by a colon and the port
+     */
+    public void connect(String server) throws IOException {
+        String host = server;
+        int port = Protocol.DEFAULT_PORT;
+        int colon = server.lastIndexOf(':');
+        if (colon != -1) {
+            host = server.substring(0, colon);
+            try {
+                port = Integer.parseInt(server.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new IOException("invalid port: " + server.substring(colon + 1));
+            }
+        }
+        log.info("Connecting to " + host + ":" + port + "...");
+        setStatus("Connecting to " + host + ":" + port);
+        setPosition(-1);
+        Remote remote;
+        try {
+            remote = new Remote(host, port);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.INFO, "Connecting failed: " + e, e);
+            setStatus("Connecting failed: " + e);
+            throw e;
+        }
+        setStatus("Connected to " + host + ":" + port);
+        String title = host + ":" + port + " - " + WINDOW_TITLE;
+        EventQueue.invokeLater(() -> {
+            traceFile = null;
+            setTitle(title);
+            setTrace(remote);
+        });
+    }
+
+    /**
+     * Browse a trace which was stored with {@link org.graalvm.vm.trcview.storage.TraceLoader}.
+     *
+     * @param dir the directory of the trace database
+     */
+    public void openDatabase(File dir) throws IOException {
+        log.info("Opening database " + dir + "...");
+        setStatus("Opening " + dir);
+        setPosition(-1);
+        LocalDatabase db;
+        try {
+            db = LocalDatabase.open(dir);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.INFO, "Opening failed: " + e, e);
+            setStatus("Opening failed: " + e);
+            throw e;
+        }
+        setStatus("Trace loaded");
+        String title = dir + " - " + WINDOW_TITLE;
+        EventQueue.invokeLater(() -> {
+            traceFile = null;
+            setTitle(title);
+            setTrace(db);
+        });
+    }
+
+    public void stopFollowing() {
+        if (follower != null) {
+            log.info("Stop following " + follower.getFile());
+            stopFollow.setEnabled(false);
+            follower.stop();
+        }
+    }
+
+    private void followStep() {
+        TraceFollower f = follower;
+        if (!f.step()) {
+            return;
+        }
+
+        File file = f.getFile();
+        Analysis analysis = f.getAnalysis();
+        if (f.isFinished()) {
+            followTimer.stop();
+            followTimer = null;
+            follower = null;
+            open.setEnabled(true);
+            follow.setEnabled(true);
+            stopFollow.setEnabled(false);
+            if (f.getError() != null) {
+                setStatus("Loading failed: " + f.getError());
+                MessageBox.showError(this, f.getError());
+                followTrace = null;
+                return;
+            }
+        }
+
+        if (followTrace == null) {
+            BlockNode root = f.getRoot();
+            if (root == null) {
+                if (f.isFinished()) {
+                    setStatus("Loading failed");
+                }
+                return;
+            }
+            setTitle(file + " - " + WINDOW_TITLE);
+            followTrace = new Local(f.getArchitecture(), root, f.getThreads(), analysis, f.isFinished());
+            setTrace(followTrace);
+        } else {
+            if (f.isFinished()) {
+                followTrace.finish(analysis);
+            } else {
+                followTrace.update(analysis);
+            }
+            view.traceUpdated();
+            if (f.isFinished()) {
+                // symbols are renamed when the analysis finishes
+                view.update();
+            }
+        }
+
+        if (f.isFinished()) {
+            log.info("Finished following " + file + " [" + analysis.getStepCount() + " steps]");
+            setStatus("Trace loaded");
+            followTrace = null;
+            traceFile = file;
+            compareTrace.setEnabled(true);
+            setAnalysisEnabled(true);
+        } else {
+            setStatus("Following " + file + " (" + analysis.getStepCount() + " steps)");
+        }
+    }
+
+    /**
+     * Load a trace from a reader.
+     *
+     * @param size the value of {@link TraceReader#tell()} at the end of the trace, or 0 if unknown
+     */
     public void load(TraceReader reader, long size, String file) throws IOException {
         log.info("Loading file " + file + "...");
         open.setEnabled(false);
+        Analysis analysis = null;
         try {
             String text = "Loading " + file;
             setStatus(text);
             setPosition(-1);
-            List<Analyzer> analyzers = pluginLoader.getAnalyzers(reader.getArchitecture());
-            Analyzer analyzer = reader.getAnalyzer();
-            if (analyzer != null) {
-                analyzers.add(analyzer);
-            }
-            Analysis analysis = new Analysis(reader.getArchitecture(), analyzers, typeRecovery.isSelected(), codeAnalysis.isSelected());
+            analysis = createAnalysis(reader);
             analysis.start();
-            Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, pos -> setStatus(text + " (" + (pos * 100L / size) + "%)"));
+            ProgressListener progress;
+            if (size > 0) {
+                progress = pos -> setStatus(text + " (" + (pos * 100L / size) + "%)");
+            } else {
+                progress = pos -> setStatus(text + " (" + pos + " events)");
+            }
+            Map<Integer, BlockNode> threads = TraceParser.parse(reader, analysis, progress);
             BlockNode root = null;
             for (BlockNode block : threads.values()) {
                 if (root == null) {
@@ -947,13 +1460,17 @@ public class MainWindow extends JFrame implements TraceListenable {
             setTitle(file + " - " + WINDOW_TITLE);
 
             final BlockNode rootNode = root;
+            final Analysis result = analysis;
             EventQueue.invokeLater(() -> {
-                setTrace(new Local(reader.getArchitecture(), rootNode, threads, analysis));
-                // setTrace(new LocalDatabase(reader.getArchitecture(), root, analysis));
+                setTrace(new Local(reader.getArchitecture(), rootNode, threads, result));
             });
         } catch (Throwable t) {
             log.log(Level.INFO, "Loading failed: " + t, t);
             setStatus("Loading failed: " + t);
+            if (analysis != null) {
+                // analyzers which stream their results must not leave their readers waiting
+                analysis.abort(t);
+            }
             throw t;
         } finally {
             open.setEnabled(true);
@@ -1134,140 +1651,7 @@ public class MainWindow extends JFrame implements TraceListenable {
         setStatus("Generating IDC script " + file + "...");
         generateIDC.setEnabled(false);
         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
-            out.println("// This file was generated by TRCView");
-            out.println();
-            out.println("#include <idc.idc>\n\n" +
-                            "static main(void) {");
-            out.println("\t// functions");
-            Set<ComputedSymbol> symbols = trc.getSubroutines();
-            symbols.stream().sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(sym -> {
-                out.printf("\tadd_func(0x%x);\n", sym.address);
-                if (!sym.name.startsWith("sub_") && !sym.name.startsWith("j_sub_")) {
-                    out.printf("\tset_name(0x%x, %s, SN_NOWARN);\n", sym.address, DecoderUtils.str(sym.name));
-                }
-                if (sym.prototype != null) {
-                    out.printf("\tSetType(0x%x, \"%s __fastcall %s(%s);\");\n", sym.address, sym.prototype.returnType.toCType(), sym.name,
-                                    sym.prototype.args.stream().map(x -> x.toCType()).collect(Collectors.joining(", ")));
-                }
-            });
-            out.println();
-
-            out.println("\t// comments");
-            Map<Long, String> commentsPC = trc.getCommentsForPCs();
-            commentsPC.entrySet().stream().sorted((x, y) -> Long.compareUnsigned(x.getKey(), y.getKey())).forEach(comment -> {
-                out.printf("\tset_cmt(0x%x, %s, 0);\n", comment.getKey(), DecoderUtils.str(comment.getValue()));
-            });
-
-            out.println();
-            out.println("\t// data types");
-            UserTypeDatabase types = trc.getTypeDatabase();
-            if (!types.getTypes().isEmpty()) {
-                out.println("\tauto id;");
-                out.println("\tbegin_type_updating(UTP_STRUCT);");
-            }
-            for (UserDefinedType type : types.getTypes()) {
-                String name = type.getName();
-                if (type instanceof Struct) {
-                    Struct struct = (Struct) type;
-                    out.printf("\tid = add_struc(-1, %s, 0);\n", DecoderUtils.str(name));
-                    for (Field field : struct.getFields()) {
-                        String fieldname = field.getName();
-                        long offset = field.getOffset();
-                        long size = field.getSize();
-                        List<String> flagConstants = new ArrayList<>();
-                        String typeid = "-1";
-                        switch (field.getType().getType()) {
-                            case S8:
-                            case U8:
-                                flagConstants.add("FF_BYTE");
-                                break;
-                            case S16:
-                            case U16:
-                            case FX16:
-                                flagConstants.add("FF_WORD");
-                                break;
-                            case S32:
-                            case U32:
-                            case FX32:
-                                flagConstants.add("FF_DWORD");
-                                break;
-                            case S64:
-                            case U64:
-                                flagConstants.add("FF_QWORD");
-                                break;
-                            case F32:
-                                flagConstants.add("FF_FLOAT");
-                                break;
-                            case F64:
-                                flagConstants.add("FF_DOUBLE");
-                                break;
-                            case STRUCT:
-                                flagConstants.add("FF_STRUCT");
-                                typeid = "get_struc_id(" + DecoderUtils.str(field.getType().getStruct().getName()) + ")";
-                                break;
-                        }
-                        switch (field.getType().getRepresentation()) {
-                            case CHAR:
-                                flagConstants.add("FF_0CHAR");
-                                break;
-                            case DEC:
-                                flagConstants.add("FF_0NUMD");
-                                break;
-                            case HEX:
-                            case FX16:
-                            case FX32:
-                                flagConstants.add("FF_0NUMH");
-                                break;
-                            case OCT:
-                                flagConstants.add("FF_0NUMO");
-                                break;
-                            case FLOAT:
-                                flagConstants.add("FF_0FLT");
-                                break;
-                        }
-                        flagConstants.add("FF_DATA");
-                        String flags = String.join("|", flagConstants);
-                        out.printf("\tadd_struc_member(id, %s, 0x%x, %s, %s, %s);\n", DecoderUtils.str(fieldname), offset, flags, typeid, size);
-                    }
-                }
-            }
-            if (!types.getTypes().isEmpty()) {
-                out.println("\tend_type_updating(UTP_STRUCT);");
-
-                out.println();
-                out.println("\t// struct field types");
-                for (UserDefinedType type : types.getTypes()) {
-                    String name = type.getName();
-                    if (type instanceof Struct) {
-                        out.printf("\tid = get_struc_id(%s);\n", DecoderUtils.str(name));
-                        Struct struct = (Struct) type;
-                        for (Field field : struct.getFields()) {
-                            if (field.getType() != null && field.getType().getType() != DataType.CODE) {
-                                out.printf("\tSetType(get_member_id(id, 0x%x), %s);\n", field.getOffset(), DecoderUtils.str(field.getType().toCType()));
-                            }
-                        }
-                    }
-                }
-            }
-
-            out.println();
-            out.println("\t// variables");
-            TypedMemory mem = trc.getTypedMemory();
-            for (Variable var : mem.getAllTypes()) {
-                String name = var.getRawName();
-                if (name != null) {
-                    out.printf("\tset_name(0x%x, %s, SN_NOWARN);\n", var.getAddress(), DecoderUtils.str(name));
-                }
-
-                if (var.getType() != null && var.getType().getType() != DataType.CODE) {
-                    out.printf("\tSetType(0x%x, %s);\n", var.getAddress(), DecoderUtils.str(var.getType().toCType()));
-                } else if (var.getType() != null && var.getType().getType() == DataType.CODE) {
-                    out.printf("\tcreate_insn(0x%x);\n", var.getAddress());
-                }
-            }
-
-            out.println("}");
-
+            TraceExporter.writeIDC(trc, out);
             log.info("Finished generating IDC script " + file);
             setStatus("Finished generating IDC script " + file);
         } catch (Throwable t) {
@@ -1279,6 +1663,92 @@ public class MainWindow extends JFrame implements TraceListenable {
         }
     }
 
+    public void exportTaint(File file) throws IOException {
+        log.info("Exporting tainted PCs to " + file + "...");
+        setStatus("Exporting tainted PCs to " + file + "...");
+        exportTaint.setEnabled(false);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            TaintAnalyzer.writeTaintedPCs(out, trc.getTaintInputs(), trc.getTaintedPCs());
+            log.info("Finished exporting tainted PCs to " + file);
+            setStatus("Finished exporting tainted PCs to " + file);
+        } catch (Throwable t) {
+            log.log(Level.WARNING, "Exporting tainted PCs failed: " + t, t);
+            setStatus("Exporting tainted PCs failed: " + t);
+            throw t;
+        } finally {
+            exportTaint.setEnabled(true);
+        }
+    }
+
+    public void exportStacks(File file) throws IOException {
+        log.info("Exporting collapsed stacks to " + file + "...");
+        setStatus("Exporting collapsed stacks to " + file + "...");
+        exportStacks.setEnabled(false);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            TraceExporter.writeCollapsedStacks(trc, out);
+            log.info("Finished exporting collapsed stacks to " + file);
+            setStatus("Finished exporting collapsed stacks to " + file);
+        } catch (Throwable t) {
+            log.log(Level.WARNING, "Exporting collapsed stacks failed: " + t, t);
+            setStatus("Exporting collapsed stacks failed: " + t);
+            throw t;
+        } finally {
+            exportStacks.setEnabled(true);
+        }
+    }
+
+    public void compareTrace(File file) throws IOException {
+        log.info("Comparing trace with " + file + "...");
+        setStatus("Comparing trace with " + file + "...");
+        compareTrace.setEnabled(false);
+        try {
+            File reference = traceFile;
+            Divergence result = new TraceDiff(() -> StepStream.open(reference), () -> StepStream.open(file)).compare();
+            if (result == null) {
+                log.info("Traces are identical");
+                setStatus("Traces are identical");
+                return;
+            }
+            log.info("Traces diverge at " + result);
+            setStatus("Traces diverge at " + result);
+            EventQueue.invokeLater(() -> {
+                if (result.getStepA() != -1) {
+                    jump(result.getStepA());
+                }
+                openCompareWindow(file, result.getStepB());
+            });
+        } catch (Throwable t) {
+            log.log(Level.WARNING, "Comparing traces failed: " + t, t);
+            setStatus("Comparing traces failed: " + t);
+            throw t;
+        } finally {
+            compareTrace.setEnabled(true);
+        }
+    }
+
+    private void openCompareWindow(File file, long step) {
+        MainWindow window = new MainWindow(this);
+        window.setVisible(true);
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try {
+                    window.load(file);
+                    EventQueue.invokeLater(() -> {
+                        if (window.trc != null && step != -1) {
+                            window.jump(step);
+                        }
+                    });
+                } catch (IOException ex) {
+                    MessageBox.showError(window, ex);
+                    window.dispose();
+                }
+                return null;
+            }
+        };
+        worker.execute();
+    }
+
     public void loadSymbols(File file) throws IOException {
         log.info("Loading symbol file " + file + "...");
         setStatus("Loading symbol file " + file + "...");
@@ -1735,15 +2205,7 @@ public class MainWindow extends JFrame implements TraceListenable {
                     out.printf("TYPE:%s=%s\n", type.getName(), TextSerializer.encode(type.toString()));
                 }
             }
-            Set<ComputedSymbol> symbols = trc.getSubroutines();
-            symbols.stream().sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(sym -> {
-                if (sym.prototype != null) {
-                    out.printf("%x=%s\n", sym.address,
-                                    TextSerializer.encode(sym.name, sym.prototype.returnType.toString(), String.join(", ", sym.prototype.getArgumentsAsString())));
-                } else {
-                    out.printf("%x=%s\n", sym.address, TextSerializer.encode(sym.name));
-                }
-            });
+            TraceExporter.writeSymbols(trc, out);
             if (everything) {
                 List<Variable> vars = trc.getTypedMemory().getTypes();
                 for (Variable var : vars) {
@@ -12,15 +12,18 @@ import java.text.ParseException;
 import java.util.function.Consumer;
 
 import javax.swing.JButton;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 import org.graalvm.vm.trcview.analysis.memory.MemoryNotMappedException;
 import org.graalvm.vm.trcview.analysis.memory.MemoryRead;
 import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.memory.ValueQuery;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.trcview.expression.EvaluationException;
@@ -77,6 +80,8 @@ public class MemoryView extends JPanel {
     private JButton gotoLastUpdate;
     private JButton gotoNextUpdate;
     private JButton gotoNextRead;
+    private JButton findValue;
+    private String lastQuery = "";
     private StepFormat format = new StepFormat(StepFormat.NUMBERFMT_HEX, 16, 16, 1, false);
 
     private Consumer<String> status;
@@ -141,10 +146,32 @@ public class MemoryView extends JPanel {
             }
         });
 
-        JPanel gotoButtons = new JPanel(new GridLayout(1, 3));
+        findValue = new JButton("Find value...");
+        findValue.addActionListener(e -> {
+            if (trc == null) {
+                return;
+            }
+            String input = JOptionPane.showInputDialog(this, "Enter value[/mask][:size] (hex):", lastQuery);
+            if (input == null || input.trim().length() == 0) {
+                return;
+            }
+            ValueQuery query;
+            try {
+                query = ValueQuery.parse(input);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, "Error: invalid value", "Find value...", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            lastQuery = input.trim();
+            ValueSearchDialog dlg = new ValueSearchDialog(SwingUtilities.getWindowAncestor(this), trc, query, insn, jump);
+            dlg.setVisible(true);
+        });
+
+        JPanel gotoButtons = new JPanel(new GridLayout(1, 4));
         gotoButtons.add(gotoLastUpdate);
         gotoButtons.add(gotoNextUpdate);
         gotoButtons.add(gotoNextRead);
+        gotoButtons.add(findValue);
         add(BorderLayout.SOUTH, gotoButtons);
     }
 
@@ -0,0 +1,161 @@
+package org.graalvm.vm.trcview.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.KeyStroke;
+import javax.swing.table.AbstractTableModel;
+
+import org.graalvm.vm.trcview.analysis.ComputedSymbol;
+import org.graalvm.vm.trcview.analysis.profile.Profile;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.ui.event.JumpListener;
+
+@SuppressWarnings("serial")
+public class ProfileDialog extends JDialog {
+    private static final String[] COLUMN_NAMES = {"Address", "Function", "Calls", "Inclusive", "Exclusive", "Exclusive %"};
+
+    private final TraceAnalyzer trc;
+    private final JumpListener jump;
+    private final Profile profile;
+    private final long[] functions;
+    private final JTable table;
+
+    public ProfileDialog(JFrame owner, TraceAnalyzer trc, JumpListener jump) {
+        super(owner, "Profile", false);
+        this.trc = trc;
+        this.jump = jump;
+        profile = trc.getProfile();
+        functions = profile.getFunctions();
+
+        table = new JTable(new Model());
+        table.setFont(MainWindow.FONT);
+        table.setAutoCreateRowSorter(true);
+        table.getRowSorter().toggleSortOrder(4);
+        table.getRowSorter().toggleSortOrder(4);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    jump();
+                }
+            }
+        });
+
+        JButton ok = new JButton("Goto");
+        ok.addActionListener(e -> jump());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout());
+        buttons.add(ok);
+        buttons.add(close);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(BorderLayout.NORTH, new JLabel(functions.length + " functions, " + profile.getSteps() + " steps"));
+        content.add(BorderLayout.CENTER, new JScrollPane(table));
+        content.add(BorderLayout.SOUTH, buttons);
+
+        KeyStroke esc = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0);
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(esc, esc);
+        content.getActionMap().put(esc, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setContentPane(content);
+
+        setSize(800, 480);
+        setLocationRelativeTo(owner);
+    }
+
+    private void jump() {
+        int row = table.getSelectedRow();
+        if (row == -1) {
+            return;
+        }
+        long pc = functions[table.convertRowIndexToModel(row)];
+        ComputedSymbol sym = trc.getComputedSymbol(pc);
+        Node node;
+        if (sym != null && sym.hasVisits()) {
+            node = trc.getInstruction(sym.getVisit(0));
+        } else {
+            node = trc.getNextPC(trc.getRoot(), pc);
+        }
+        if (node != null) {
+            jump.jump(node);
+        }
+    }
+
+    private class Model extends AbstractTableModel {
+        @Override
+        public String getColumnName(int col) {
+            return COLUMN_NAMES[col];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int col) {
+            switch (col) {
+                case 0:
+                case 1:
+                    return String.class;
+                case 5:
+                    return Double.class;
+                default:
+                    return Long.class;
+            }
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public int getRowCount() {
+            return functions.length;
+        }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            long pc = functions[row];
+            switch (col) {
+                case 0:
+                    return trc.getArchitecture().getFormat().formatAddress(pc);
+                case 1: {
+                    ComputedSymbol sym = trc.getComputedSymbol(pc);
+                    return sym != null ? sym.name : "";
+                }
+                case 2:
+                    return profile.getCallCount(pc);
+                case 3:
+                    return profile.getInclusiveSteps(pc);
+                case 4:
+                    return profile.getExclusiveSteps(pc);
+                case 5: {
+                    long total = profile.getSteps();
+                    return total == 0 ? 0.0 : Math.round(profile.getExclusiveSteps(pc) * 10000.0 / total) / 100.0;
+                }
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.graalvm.vm.trcview.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+
+import org.graalvm.vm.trcview.analysis.slice.DefUseIndex;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.io.BlockNode;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.ui.event.JumpListener;
+import org.graalvm.vm.util.StringUtils;
+
+@SuppressWarnings("serial")
+public class SliceDialog extends JDialog {
+    private final TraceAnalyzer trc;
+    private final JumpListener jump;
+    private final JList<Entry> steps;
+    private final int stepwidth;
+
+    public SliceDialog(JFrame owner, TraceAnalyzer trc, String title, long[] slice, JumpListener jump) {
+        super(owner, "Backward slice of " + title, false);
+        this.trc = trc;
+        this.jump = jump;
+
+        Entry[] data = new Entry[slice.length];
+        long last = 1;
+        for (int i = 0; i < slice.length; i++) {
+            data[i] = new Entry(slice[i]);
+            last = Math.max(last, DefUseIndex.getStep(slice[i]));
+        }
+        stepwidth = Long.toString(last).length();
+
+        steps = new JList<>(data);
+        if (data.length > 1000) {
+            steps.setPrototypeCellValue(new Entry(DefUseIndex.NONE));
+        }
+        if (data.length > 0) {
+            steps.setSelectedIndex(data.length - 1);
+        }
+
+        steps.setFont(MainWindow.FONT);
+        steps.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    jump();
+                }
+            }
+        });
+
+        KeyStroke enter = KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0);
+        steps.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(enter, enter);
+        steps.getActionMap().put(enter, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                jump();
+            }
+        });
+
+        JButton ok = new JButton("Goto");
+        ok.addActionListener(e -> jump());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout());
+        buttons.add(ok);
+        buttons.add(close);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(BorderLayout.NORTH, new JLabel(slice.length + " steps"));
+        content.add(BorderLayout.CENTER, new JScrollPane(steps));
+        content.add(BorderLayout.SOUTH, buttons);
+
+        KeyStroke esc = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0);
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(esc, esc);
+        content.getActionMap().put(esc, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setContentPane(content);
+
+        setSize(640, 480);
+        setLocationRelativeTo(owner);
+
+        validate();
+
+        steps.ensureIndexIsVisible(steps.getSelectedIndex());
+    }
+
+    private void jump() {
+        Entry entry = steps.getSelectedValue();
+        if (entry == null) {
+            return;
+        }
+
+        Node node = entry.getNode();
+        if (node != null) {
+            jump.jump(node);
+        }
+    }
+
+    private class Entry {
+        private final long ref;
+        private Node node;
+        private String text;
+
+        Entry(long ref) {
+            this.ref = ref;
+        }
+
+        Node getNode() {
+            if (node == null) {
+                node = trc.getInstruction(DefUseIndex.getStep(ref));
+            }
+            return node;
+        }
+
+        private StepEvent getStep() {
+            Node n = getNode();
+            if (n instanceof StepEvent) {
+                return (StepEvent) n;
+            } else if (n instanceof BlockNode) {
+                BlockNode block = (BlockNode) n;
+                return block.getHead() != null ? block.getHead() : block.getFirstStep();
+            } else {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (ref == DefUseIndex.NONE) {
+                // special case: JList prototype value for component width
+                String stepcnt = StringUtils.repeat("0", stepwidth);
+                return trc.getArchitecture().getFormat().formatAddress(0) + " [step " + stepcnt + ", tid 0] => mov rax, rdi";
+            }
+
+            if (text == null) {
+                String stepcnt = Long.toString(DefUseIndex.getStep(ref));
+                if (stepcnt.length() < stepwidth) {
+                    stepcnt = StringUtils.repeat(" ", stepwidth - stepcnt.length()) + stepcnt;
+                }
+                StepEvent step = getStep();
+                if (step == null) {
+                    text = "(unknown) [step " + stepcnt + ", tid " + DefUseIndex.getTid(ref) + "]";
+                } else {
+                    String disasm = step.getDisassembly().replace("\t", " ");
+                    text = trc.getArchitecture().getFormat().formatAddress(step.getPC()) + " [step " + stepcnt + ", tid " + DefUseIndex.getTid(ref) + "] => " + disasm;
+                }
+            }
+            return text;
+        }
+    }
+}
@@ -94,6 +94,18 @@ public class StraceView extends JPanel {
         update();
     }
 
+    /**
+     * Called when the trace grew.
+     */
+    public void traceUpdated() {
+        int old = model.getSize();
+        if (model.grow()) {
+            // the decoded result of the last syscall depends on the next step
+            renderer.invalidate(old - 1);
+            update();
+        }
+    }
+
     public void refresh() {
         renderer.clear();
         repaint();
@@ -230,9 +242,15 @@ public class StraceView extends JPanel {
         public void clear() {
             cache.clear();
         }
+
+        public void invalidate(int index) {
+            cache.remove(index);
+        }
     }
 
     public class StraceModel extends AbstractListModel<Node> {
+        private int size = 0;
+
         @Override
         public Node getElementAt(int i) {
             return syscalls.get(i);
@@ -240,11 +258,23 @@ public class StraceView extends JPanel {
 
         @Override
         public int getSize() {
-            return syscalls.size();
+            return size;
         }
 
         public void changed() {
+            size = syscalls.size();
             fireContentsChanged(this, 0, getSize());
         }
+
+        public boolean grow() {
+            int old = size;
+            int now = syscalls.size();
+            if (now <= old) {
+                return false;
+            }
+            size = now;
+            fireIntervalAdded(this, old, now - 1);
+            return true;
+        }
     }
 }
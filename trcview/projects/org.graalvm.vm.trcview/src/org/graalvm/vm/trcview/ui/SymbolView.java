@@ -108,7 +108,7 @@ public class SymbolView extends JPanel {
                     }
                     ComputedSymbol sym = filteredSymbols.get(i);
                     log.info("jumping to first execution of " + sym.name);
-                    fireJumpEvent(trc.getNode(sym.visits.get(0)));
+                    fireJumpEvent(trc.getInstruction(sym.getVisit(0)));
                 }
             }
         });
@@ -184,7 +184,7 @@ public class SymbolView extends JPanel {
         if (len < 1) {
             len = 1;
         }
-        String cnt = Integer.toString(sym.visits.size());
+        String cnt = Integer.toString(sym.getVisitCount());
         if (cnt.length() < width) {
             cnt = StringUtils.repeat(" ", width - cnt.length()) + cnt;
         }
@@ -203,11 +203,11 @@ public class SymbolView extends JPanel {
     public void update() {
         List<ComputedSymbol> sym = new ArrayList<>();
         Collection<ComputedSymbol> subroutines = trc.getSubroutines();
-        OptionalInt max = subroutines.stream().mapToInt(s -> s.visits.size()).max();
+        OptionalInt max = subroutines.stream().mapToInt(ComputedSymbol::getVisitCount).max();
         if (max.isPresent()) {
             int m = max.getAsInt();
             width = (m == 0 ? 0 : (int) Math.ceil(Math.log10(m)));
-            subroutines.stream().filter(x -> !x.visits.isEmpty()).sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(s -> {
+            subroutines.stream().filter(ComputedSymbol::hasVisits).sorted((a, b) -> Long.compareUnsigned(a.address, b.address)).forEach(s -> {
                 sym.add(s);
             });
         }
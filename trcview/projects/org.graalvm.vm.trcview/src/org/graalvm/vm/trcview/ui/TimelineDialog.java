@@ -0,0 +1,268 @@
+package org.graalvm.vm.trcview.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import org.graalvm.vm.trcview.analysis.timeline.ExpressionTimeline;
+import org.graalvm.vm.trcview.arch.io.StepEvent;
+import org.graalvm.vm.trcview.expression.ast.Expression;
+import org.graalvm.vm.trcview.io.Node;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.ui.event.JumpListener;
+import org.graalvm.vm.util.log.Levels;
+import org.graalvm.vm.util.log.Trace;
+import org.graalvm.vm.util.ui.MessageBox;
+
+/**
+ * Plot of an expression over the steps of one thread. Every pixel column shows the range of values
+ * in its steps and a line connects the last values. The mouse wheel zooms into the step range under
+ * the cursor, a click jumps to the step with the minimum or maximum value of the column, whichever
+ * is closer to the cursor.
+ */
+@SuppressWarnings("serial")
+public class TimelineDialog extends JDialog {
+    private static final Logger log = Trace.create(TimelineDialog.class);
+
+    private final TraceAnalyzer trc;
+    private final JumpListener jump;
+    private final Node thread;
+    private final Expression expr;
+    private final long steps;
+    private final Plot plot;
+    private final JLabel info;
+
+    private ExpressionTimeline timeline;
+    private Worker worker;
+
+    public TimelineDialog(JFrame owner, TraceAnalyzer trc, String title, Expression expr, StepEvent step, JumpListener jump) {
+        super(owner, "Timeline of " + title + " [tid " + step.getTid() + "]", false);
+        this.trc = trc;
+        this.jump = jump;
+        this.thread = step;
+        this.expr = expr;
+        steps = Math.max(1, trc.getInstructionCount());
+
+        plot = new Plot();
+        info = new JLabel(" ");
+
+        JButton reset = new JButton("Reset zoom");
+        reset.addActionListener(e -> compute(0, steps - 1));
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout());
+        buttons.add(reset);
+        buttons.add(close);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(BorderLayout.NORTH, info);
+        content.add(BorderLayout.CENTER, plot);
+        content.add(BorderLayout.SOUTH, buttons);
+
+        KeyStroke esc = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0);
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(esc, esc);
+        content.getActionMap().put(esc, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setContentPane(content);
+
+        setSize(800, 480);
+        setLocationRelativeTo(owner);
+        validate();
+
+        compute(0, steps - 1);
+    }
+
+    @Override
+    public void dispose() {
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        super.dispose();
+    }
+
+    private void compute(long start, long end) {
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        int width = Math.max(plot.getWidth(), 100);
+        worker = new Worker(new ExpressionTimeline(start, end, width));
+        worker.execute();
+    }
+
+    private class Worker extends SwingWorker<Void, Void> {
+        private final ExpressionTimeline result;
+        private final Timer progress;
+
+        Worker(ExpressionTimeline result) {
+            this.result = result;
+            long total = result.getEnd() - result.getStart() + 1;
+            progress = new Timer(250, e -> info.setText("Evaluating steps " + result.getStart() + "-" + result.getEnd() + ": " + (result.getProgress() * 100 / total) + "%"));
+        }
+
+        @Override
+        protected Void doInBackground() {
+            progress.start();
+            result.compute(trc, thread, expr, ForkJoinPool.commonPool(), this::isCancelled);
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            progress.stop();
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+                timeline = result;
+                info.setText("Steps " + result.getStart() + "-" + result.getEnd() + ", " + ((result.getEnd() - result.getStart()) / result.getBuckets() + 1) + " steps per pixel");
+                plot.repaint();
+            } catch (InterruptedException | ExecutionException e) {
+                log.log(Levels.WARNING, "Error while evaluating " + expr + ": " + e.getMessage(), e);
+                MessageBox.showError(TimelineDialog.this, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+
+    private class Plot extends JComponent {
+        Plot() {
+            setPreferredSize(new Dimension(800, 400));
+            addMouseWheelListener(this::zoom);
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    select(e.getX(), e.getY());
+                }
+            });
+        }
+
+        private int bucket(int x) {
+            return (int) ((long) x * timeline.getBuckets() / Math.max(1, getWidth()));
+        }
+
+        private void zoom(MouseWheelEvent e) {
+            if (timeline == null) {
+                return;
+            }
+            long start = timeline.getStart();
+            long end = timeline.getEnd();
+            long span = end - start + 1;
+            long center = timeline.getBucketStart(Math.min(bucket(e.getX()), timeline.getBuckets() - 1));
+            double x = (double) e.getX() / Math.max(1, getWidth());
+            long newSpan = e.getWheelRotation() < 0 ? Math.max(2, span / 2) : Math.min(steps, span * 2);
+            long newStart = Math.max(0, center - (long) (x * newSpan));
+            long newEnd = Math.min(steps - 1, newStart + newSpan - 1);
+            newStart = Math.max(0, newEnd - newSpan + 1);
+            if (newStart != start || newEnd != end) {
+                compute(newStart, newEnd);
+            }
+        }
+
+        private void select(int x, int y) {
+            if (timeline == null) {
+                return;
+            }
+            int bucket = bucket(x);
+            if (bucket >= timeline.getBuckets() || timeline.getCount(bucket) == 0) {
+                return;
+            }
+            int ymin = y(timeline.getMin(bucket));
+            int ymax = y(timeline.getMax(bucket));
+            long insn = Math.abs(y - ymin) < Math.abs(y - ymax) ? timeline.getMinStep(bucket) : timeline.getMaxStep(bucket);
+            Node node = trc.getInstruction(insn);
+            if (node != null) {
+                jump.jump(node);
+            }
+        }
+
+        private long low;
+        private long high;
+
+        private int y(long value) {
+            if (high == low) {
+                return getHeight() / 2;
+            }
+            double pos = ((double) value - low) / ((double) high - low);
+            return (int) Math.round((getHeight() - 11) * (1.0 - pos)) + 5;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int width = getWidth();
+            int height = getHeight();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            if (timeline == null) {
+                return;
+            }
+
+            boolean any = false;
+            for (int i = 0; i < timeline.getBuckets(); i++) {
+                if (timeline.getCount(i) > 0) {
+                    if (!any || timeline.getMin(i) < low) {
+                        low = timeline.getMin(i);
+                    }
+                    if (!any || timeline.getMax(i) > high) {
+                        high = timeline.getMax(i);
+                    }
+                    any = true;
+                }
+            }
+            if (!any) {
+                return;
+            }
+
+            g.setColor(Color.GRAY);
+            g.drawString(Long.toString(high), 2, 12);
+            g.drawString(Long.toString(low), 2, height - 2);
+
+            int lastX = -1;
+            int lastY = -1;
+            for (int i = 0; i < timeline.getBuckets(); i++) {
+                if (timeline.getCount(i) == 0) {
+                    continue;
+                }
+                int x = (int) ((long) i * width / timeline.getBuckets());
+                g.setColor(Color.LIGHT_GRAY);
+                g.drawLine(x, y(timeline.getMin(i)), x, y(timeline.getMax(i)));
+                int y = y(timeline.getLast(i));
+                g.setColor(Color.BLUE);
+                if (lastX != -1) {
+                    g.drawLine(lastX, lastY, x, y);
+                } else {
+                    g.drawLine(x, y, x, y);
+                }
+                lastX = x;
+                lastY = y;
+            }
+        }
+    }
+}
@@ -46,9 +46,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
@@ -495,6 +497,30 @@ public class TraceView extends JPanel implements StepListenable, MemoryAddressLi
         }
     }
 
+    /**
+     * Called after new events of a trace which is still being parsed were processed.
+     */
+    public void traceUpdated() {
+        try {
+            ignoreThreadChange = true;
+            Set<Integer> known = new HashSet<>();
+            for (int i = 0; i < threadSelectorModel.getSize(); i++) {
+                known.add(threadSelectorModel.getElementAt(i).id);
+            }
+            Map<Integer, Long> starts = trc.getThreadStarts();
+            trc.getThreadIds().stream().filter(tid -> !known.contains(tid)).sorted().forEach(tid -> {
+                threadSelectorModel.addElement(new ThreadID(tid));
+                currentNodes.put(tid, trc.getInstruction(starts.get(tid)));
+            });
+        } finally {
+            ignoreThreadChange = false;
+        }
+
+        insns.traceUpdated();
+        strace.traceUpdated();
+        stack.traceUpdated();
+    }
+
     private void showRoot(BlockNode root) {
         stack.set(root);
         insns.set(root);
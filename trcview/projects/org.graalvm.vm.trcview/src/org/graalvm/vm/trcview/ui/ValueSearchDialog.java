@@ -0,0 +1,157 @@
+package org.graalvm.vm.trcview.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+
+import org.graalvm.vm.trcview.analysis.memory.MemoryUpdate;
+import org.graalvm.vm.trcview.analysis.memory.ValueQuery;
+import org.graalvm.vm.trcview.arch.io.StepFormat;
+import org.graalvm.vm.trcview.net.TraceAnalyzer;
+import org.graalvm.vm.trcview.ui.event.JumpListener;
+import org.graalvm.vm.util.StringUtils;
+
+@SuppressWarnings("serial")
+public class ValueSearchDialog extends JDialog {
+    public static final int MAX_RESULTS = 10000;
+
+    private final JumpListener jump;
+    private final JList<Entry> writes;
+    private final StepFormat format;
+    private final int stepwidth;
+
+    public ValueSearchDialog(Window owner, TraceAnalyzer trc, ValueQuery query, long insn, JumpListener jump) {
+        super(owner, "Writes of " + query, ModalityType.MODELESS);
+        this.jump = jump;
+        this.format = trc.getArchitecture().getFormat();
+
+        List<MemoryUpdate> result = trc.findWrites(query.value, query.mask, query.size, 0, Long.MAX_VALUE, MAX_RESULTS + 1);
+        int count = Math.min(result.size(), MAX_RESULTS);
+        Entry[] data = new Entry[count];
+        long last = 1;
+        int selected = -1;
+        for (int i = 0; i < count; i++) {
+            MemoryUpdate write = result.get(i);
+            data[i] = new Entry(write);
+            last = Math.max(last, write.instructionCount);
+            if (selected == -1 && write.instructionCount >= insn) {
+                selected = i;
+            }
+        }
+        stepwidth = Long.toString(last).length();
+
+        writes = new JList<>(data);
+        if (count > 0) {
+            writes.setSelectedIndex(selected == -1 ? count - 1 : selected);
+        }
+
+        writes.setFont(MainWindow.FONT);
+        writes.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    jump();
+                }
+            }
+        });
+
+        KeyStroke enter = KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0);
+        writes.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(enter, enter);
+        writes.getActionMap().put(enter, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                jump();
+            }
+        });
+
+        JButton ok = new JButton("Goto");
+        ok.addActionListener(e -> jump());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout());
+        buttons.add(ok);
+        buttons.add(close);
+
+        String summary;
+        if (result.size() > MAX_RESULTS) {
+            summary = "More than " + MAX_RESULTS + " writes, showing the first " + MAX_RESULTS;
+        } else {
+            summary = count + " writes";
+        }
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(BorderLayout.NORTH, new JLabel(summary));
+        content.add(BorderLayout.CENTER, new JScrollPane(writes));
+        content.add(BorderLayout.SOUTH, buttons);
+
+        KeyStroke esc = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0);
+        content.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(esc, esc);
+        content.getActionMap().put(esc, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        setContentPane(content);
+
+        setSize(640, 480);
+        setLocationRelativeTo(owner);
+
+        validate();
+
+        writes.ensureIndexIsVisible(writes.getSelectedIndex());
+    }
+
+    private void jump() {
+        Entry entry = writes.getSelectedValue();
+        if (entry != null && entry.write.step != null) {
+            jump.jump(entry.write.step);
+        }
+    }
+
+    private class Entry {
+        private final MemoryUpdate write;
+        private String text;
+
+        Entry(MemoryUpdate write) {
+            this.write = write;
+        }
+
+        @Override
+        public String toString() {
+            if (text == null) {
+                String stepcnt = Long.toString(write.instructionCount);
+                if (stepcnt.length() < stepwidth) {
+                    stepcnt = StringUtils.repeat(" ", stepwidth - stepcnt.length()) + stepcnt;
+                }
+                String value = "0x" + Long.toHexString(write.value) + " [" + write.size + " bytes]";
+                if (write.step == null) {
+                    text = format.formatAddress(write.address) + " [step " + stepcnt + "] = " + value;
+                } else {
+                    String disasm = write.step.getDisassembly().replace("\t", " ");
+                    text = format.formatAddress(write.address) + " [step " + stepcnt + ", tid " + write.step.getTid() + "] = " + value + " <= " +
+                                    format.formatAddress(write.step.getPC()) + ": " + disasm;
+                }
+            }
+            return text;
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package org.graalvm.vm.trcview.ui.data;
 
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 import org.graalvm.vm.trcview.analysis.type.DataType;
 import org.graalvm.vm.trcview.analysis.type.Representation;
@@ -11,7 +9,6 @@ import org.graalvm.vm.trcview.arch.Disassembler;
 import org.graalvm.vm.trcview.arch.TraceCodeReader;
 import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
-import org.graalvm.vm.trcview.data.DynamicTypePropagation;
 import org.graalvm.vm.trcview.disasm.AssemblerInstruction;
 import org.graalvm.vm.trcview.disasm.Operand;
 import org.graalvm.vm.trcview.disasm.Token;
@@ -53,18 +50,9 @@ public class CodeDataLine extends DataLine {
             boolean be = trc.getArchitecture().getFormat().be;
             disasm = disas.disassemble(new TraceCodeReader(trc, addr + offset, be, step));
         } else {
-            DynamicTypePropagation typeRecovery = trc.getTypeRecovery();
             StepEvent event = null;
-            if (typeRecovery != null) {
-                Set<StepEvent> steps = typeRecovery.getSemantics().getSteps(addr + offset);
-                Iterator<StepEvent> i = steps.iterator();
-                if (i.hasNext()) {
-                    event = i.next();
-                } else {
-                    event = null;
-                }
-            } else {
-                event = null;
+            if (trc.hasTypeRecovery()) {
+                event = trc.getCodeStep(addr + offset);
             }
 
             if (event != null) {
@@ -15,7 +15,6 @@ import javax.swing.JTextPane;
 
 import org.graalvm.vm.trcview.arch.io.StepEvent;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
-import org.graalvm.vm.trcview.data.Semantics;
 import org.graalvm.vm.trcview.data.type.VariableType;
 import org.graalvm.vm.trcview.expression.EvaluationException;
 import org.graalvm.vm.trcview.expression.ExpressionContext;
@@ -127,12 +126,7 @@ public class DynamicDataView extends JPanel implements StepListener {
             stepid = step.getStep();
         }
 
-        if (trc.getTypeRecovery() == null) {
-            return;
-        }
-
-        Semantics semantics = trc.getTypeRecovery().getSemantics();
-        if (semantics == null) {
+        if (!trc.hasTypeRecovery()) {
             return;
         }
 
@@ -143,7 +137,7 @@ public class DynamicDataView extends JPanel implements StepListener {
         for (int i = 0; i < 16;) {
             long addr = address + i;
 
-            long flags = semantics.resolveMemory(addr, stepid);
+            long flags = trc.getMemoryType(addr, stepid);
             if ((flags & VariableType.BIT_MASK) == 0) {
                 buf.append(format.formatAddress(addr)).append(": ???\n");
                 i++;
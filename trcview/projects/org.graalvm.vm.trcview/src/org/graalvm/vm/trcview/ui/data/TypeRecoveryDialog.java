@@ -35,6 +35,7 @@ import org.graalvm.vm.trcview.data.SemanticInfo;
 import org.graalvm.vm.trcview.data.Semantics;
 import org.graalvm.vm.trcview.data.ir.RegisterOperand;
 import org.graalvm.vm.trcview.data.type.VariableType;
+import org.graalvm.vm.trcview.net.Local;
 import org.graalvm.vm.trcview.net.TraceAnalyzer;
 import org.graalvm.vm.trcview.ui.MainWindow;
 import org.graalvm.vm.trcview.ui.Utils;
@@ -129,18 +130,17 @@ public class TypeRecoveryDialog extends JDialog implements StepListener {
         int regcount = trc.getArchitecture().getRegisterCount();
         long pc = step.getPC();
         StringBuilder buf = new StringBuilder();
-        if (trc.getTypeRecovery() == null) {
+        if (!trc.hasTypeRecovery()) {
             return;
         }
 
-        Semantics semantics = trc.getTypeRecovery().getSemantics();
         for (int i = 0; i < regcount; i++) {
-            long flags = semantics.resolve(pc, new RegisterOperand(i));
-            long flowflags = semantics.resolveData(pc, new RegisterOperand(i));
+            long flags = trc.getRegisterType(pc, i);
+            long flowflags = trc.getRegisterDataType(pc, i);
 
             flags &= ~VariableType.SOLVED.getMask();
 
-            boolean live = semantics.isLive(pc, i);
+            boolean live = trc.isRegisterLive(pc, i);
             for (int reg : step.getRegisterWrites()) {
                 if (reg == i) {
                     live = true;
@@ -217,129 +217,133 @@ public class TypeRecoveryDialog extends JDialog implements StepListener {
 
         buf.append('\n');
 
-        // memory accesses
-        buf.append("\n\nMEMORY:\n");
-        if (debug) {
-            buf.append(semantics.getSteps(pc).stream().sorted((a, b) -> Long.compareUnsigned(a.getStep(), b.getStep())).map(x -> Long.toUnsignedString(x.getStep())).collect(Collectors.joining(" ")));
-        }
-        buf.append("\n=> R: ");
-        buf.append(LongStream.of(semantics.getDataReads(pc)).sorted().mapToObj(HexFormatter::tohex).collect(Collectors.joining(" ")));
-        buf.append("\n=> W: ");
-        buf.append(LongStream.of(semantics.getDataWrites(pc)).sorted().mapToObj(HexFormatter::tohex).collect(Collectors.joining(" ")));
-        buf.append("\n\nARRAY: ");
-        buf.append(ArrayRecovery.recoverArray(semantics, pc, true));
-
-        // debugging feature: show data per position
-        buf.append("\n\nDEBUG:\n");
-        for (int i = 0; i < regcount; i++) {
-            long flags = semantics.getDirect(pc, new RegisterOperand(i));
-            buf.append("register ");
-            buf.append(String.format("%02d", i));
-            buf.append(":");
-            buf.append(" [");
-            if (BitTest.test(flags, VariableType.MUL_BIT)) {
-                buf.append('M');
-            } else {
-                buf.append('-');
-            }
-            if (BitTest.test(flags, VariableType.ADDSUB_BIT)) {
-                buf.append('A');
-            } else {
-                buf.append('-');
-            }
-            buf.append("]");
-            if (flags == 0) {
-                buf.append(" [ ] --\n");
-            } else if (flags == VariableType.CHAIN_BIT) {
-                buf.append(" [C] --\n");
-            } else {
-                if (BitTest.test(flags, VariableType.CHAIN_BIT)) {
-                    buf.append(" [C]");
-                } else {
-                    buf.append(" [ ]");
-                }
-                for (VariableType type : VariableType.getTypeConstraints()) {
-                    if (BitTest.test(flags, type.getMask())) {
-                        buf.append(' ');
-                        buf.append(type.getName());
-                    }
-                }
-                buf.append('\n');
-            }
-        }
-
-        if (debug) {
-            StepFormat fmt = trc.getArchitecture().getFormat();
-            buf.append("\nLinks:\n");
-            buf.append("Implicit: ").append(fmt.formatAddress(semantics.getChain(pc))).append('\n');
-            buf.append("Explicit:");
-            for (RegisterTypeMap map : semantics.getExtraChain(pc)) {
-                buf.append(' ');
-                buf.append(fmt.formatAddress(map.getPC()));
-            }
-            buf.append("\nForward:");
-            for (RegisterTypeMap map : semantics.getForwardChain(pc)) {
-                buf.append(' ');
-                buf.append(fmt.formatAddress(map.getPC()));
+        // the internal state of the analysis is only available for a local trace
+        Semantics semantics = trc instanceof Local ? ((Local) trc).getTypeRecovery().getSemantics() : null;
+        if (semantics != null) {
+            // memory accesses
+            buf.append("\n\nMEMORY:\n");
+            if (debug) {
+                buf.append(semantics.getSteps(pc).stream().sorted((a, b) -> Long.compareUnsigned(a.getStep(), b.getStep())).map(x -> Long.toUnsignedString(x.getStep())).collect(Collectors.joining(" ")));
             }
-            buf.append("\nClosure per register:\n");
-
+            buf.append("\n=> R: ");
+            buf.append(LongStream.of(semantics.getDataReads(pc)).sorted().mapToObj(HexFormatter::tohex).collect(Collectors.joining(" ")));
+            buf.append("\n=> W: ");
+            buf.append(LongStream.of(semantics.getDataWrites(pc)).sorted().mapToObj(HexFormatter::tohex).collect(Collectors.joining(" ")));
+            buf.append("\n\nARRAY: ");
+            buf.append(ArrayRecovery.recoverArray(semantics, pc, true));
+
+            // debugging feature: show data per position
+            buf.append("\n\nDEBUG:\n");
             for (int i = 0; i < regcount; i++) {
-                List<ChainTarget> set = new ArrayList<>();
-                semantics.resolve(pc, new RegisterOperand(i), set);
+                long flags = semantics.getDirect(pc, new RegisterOperand(i));
                 buf.append("register ");
                 buf.append(String.format("%02d", i));
                 buf.append(":");
-                set.stream().map(x -> {
-                    if (x instanceof RegisterChainTarget) {
-                        RegisterChainTarget tgt = (RegisterChainTarget) x;
-                        return fmt.formatAddress(tgt.map.getPC()) + "[r" + tgt.register + "]";
-                    } else if (x instanceof MemoryChainTarget) {
-                        MemoryChainTarget tgt = (MemoryChainTarget) x;
-                        return "[" + fmt.formatAddress(tgt.address) + "]";
+                buf.append(" [");
+                if (BitTest.test(flags, VariableType.MUL_BIT)) {
+                    buf.append('M');
+                } else {
+                    buf.append('-');
+                }
+                if (BitTest.test(flags, VariableType.ADDSUB_BIT)) {
+                    buf.append('A');
+                } else {
+                    buf.append('-');
+                }
+                buf.append("]");
+                if (flags == 0) {
+                    buf.append(" [ ] --\n");
+                } else if (flags == VariableType.CHAIN_BIT) {
+                    buf.append(" [C] --\n");
+                } else {
+                    if (BitTest.test(flags, VariableType.CHAIN_BIT)) {
+                        buf.append(" [C]");
                     } else {
-                        return "?";
+                        buf.append(" [ ]");
                     }
-                }).forEach(x -> buf.append(' ').append(x));
-                buf.append('\n');
+                    for (VariableType type : VariableType.getTypeConstraints()) {
+                        if (BitTest.test(flags, type.getMask())) {
+                            buf.append(' ');
+                            buf.append(type.getName());
+                        }
+                    }
+                    buf.append('\n');
+                }
             }
 
-            buf.append("\n\nLinks per register:\n");
-            CodeSemantics cs = (CodeSemantics) semantics;
-            for (int i = 0; i < regcount; i++) {
-                RegisterTypeMap map = cs.get(pc);
-                Set<ChainTarget> forward = map.getForwardChain(i);
-                Set<ChainTarget> reverse = map.getReverseChain(i);
-
-                buf.append("register ");
-                buf.append(String.format("%02d", i));
-                buf.append(":\n");
-                buf.append("forward = ");
-                buf.append(forward.stream().map(x -> {
-                    if (x instanceof RegisterChainTarget) {
-                        RegisterChainTarget t = (RegisterChainTarget) x;
-                        return fmt.formatAddress(t.map.getPC()) + "[r" + t.register + "]";
-                    } else if (x instanceof MemoryChainTarget) {
-                        MemoryChainTarget t = (MemoryChainTarget) x;
-                        return fmt.formatAddress(t.address) + "[step=" + t.step + "]";
-                    } else {
-                        return "???";
-                    }
-                }).sorted().collect(Collectors.joining(" ")));
-                buf.append("\nreverse = ");
-                buf.append(reverse.stream().map(x -> {
-                    if (x instanceof RegisterChainTarget) {
-                        RegisterChainTarget t = (RegisterChainTarget) x;
-                        return fmt.formatAddress(t.map.getPC()) + "[r" + t.register + "]";
-                    } else if (x instanceof MemoryChainTarget) {
-                        MemoryChainTarget t = (MemoryChainTarget) x;
-                        return fmt.formatAddress(t.address) + "[step=" + t.step + "]";
-                    } else {
-                        return "???";
-                    }
-                }).sorted().collect(Collectors.joining(" ")));
+            if (debug) {
+                StepFormat fmt = trc.getArchitecture().getFormat();
+                buf.append("\nLinks:\n");
+                buf.append("Implicit: ").append(fmt.formatAddress(semantics.getChain(pc))).append('\n');
+                buf.append("Explicit:");
+                for (RegisterTypeMap map : semantics.getExtraChain(pc)) {
+                    buf.append(' ');
+                    buf.append(fmt.formatAddress(map.getPC()));
+                }
+                buf.append("\nForward:");
+                for (RegisterTypeMap map : semantics.getForwardChain(pc)) {
+                    buf.append(' ');
+                    buf.append(fmt.formatAddress(map.getPC()));
+                }
+                buf.append("\nClosure per register:\n");
+
+                for (int i = 0; i < regcount; i++) {
+                    List<ChainTarget> set = new ArrayList<>();
+                    semantics.resolve(pc, new RegisterOperand(i), set);
+                    buf.append("register ");
+                    buf.append(String.format("%02d", i));
+                    buf.append(":");
+                    set.stream().map(x -> {
+                        if (x instanceof RegisterChainTarget) {
+                            RegisterChainTarget tgt = (RegisterChainTarget) x;
+                            return fmt.formatAddress(tgt.map.getPC()) + "[r" + tgt.register + "]";
+                        } else if (x instanceof MemoryChainTarget) {
+                            MemoryChainTarget tgt = (MemoryChainTarget) x;
+                            return "[" + fmt.formatAddress(tgt.address) + "]";
+                        } else {
+                            return "?";
+                        }
+                    }).forEach(x -> buf.append(' ').append(x));
+                    buf.append('\n');
+                }
 
-                buf.append("\n");
+                buf.append("\n\nLinks per register:\n");
+                CodeSemantics cs = (CodeSemantics) semantics;
+                for (int i = 0; i < regcount; i++) {
+                    RegisterTypeMap map = cs.get(pc);
+                    Set<ChainTarget> forward = map.getForwardChain(i);
+                    Set<ChainTarget> reverse = map.getReverseChain(i);
+
+                    buf.append("register ");
+                    buf.append(String.format("%02d", i));
+                    buf.append(":\n");
+                    buf.append("forward = ");
+                    buf.append(forward.stream().map(x -> {
+                        if (x instanceof RegisterChainTarget) {
+                            RegisterChainTarget t = (RegisterChainTarget) x;
+                            return fmt.formatAddress(t.map.getPC()) + "[r" + t.register + "]";
+                        } else if (x instanceof MemoryChainTarget) {
+                            MemoryChainTarget t = (MemoryChainTarget) x;
+                            return fmt.formatAddress(t.address) + "[step=" + t.step + "]";
+                        } else {
+                            return "???";
+                        }
+                    }).sorted().collect(Collectors.joining(" ")));
+                    buf.append("\nreverse = ");
+                    buf.append(reverse.stream().map(x -> {
+                        if (x instanceof RegisterChainTarget) {
+                            RegisterChainTarget t = (RegisterChainTarget) x;
+                            return fmt.formatAddress(t.map.getPC()) + "[r" + t.register + "]";
+                        } else if (x instanceof MemoryChainTarget) {
+                            MemoryChainTarget t = (MemoryChainTarget) x;
+                            return fmt.formatAddress(t.address) + "[step=" + t.step + "]";
+                        } else {
+                            return "???";
+                        }
+                    }).sorted().collect(Collectors.joining(" ")));
+
+                    buf.append("\n");
+                }
             }
         }
 
@@ -369,14 +373,11 @@ public class TypeRecoveryDialog extends JDialog implements StepListener {
         }
 
         long pc = step.getPC();
-        if (trc.getTypeRecovery() == null) {
+        if (!trc.hasTypeRecovery()) {
             return;
         }
 
-        Semantics semantics = trc.getTypeRecovery().getSemantics();
-
-        List<ChainTarget> list = new ArrayList<>();
-        semantics.resolve(pc, new RegisterOperand(reg), list);
+        List<ChainTarget> list = trc.getRegisterTypeChain(pc, reg);
 
         List<String> result = graph.getList();
         result.clear();
@@ -6,6 +6,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +95,10 @@ public class DeviceDialog extends JDialog {
 
     public void setTraceAnalyzer(TraceAnalyzer trc) {
         devices = trc.getDevices();
+        if (devices == null) {
+            // the trace has no device information
+            devices = Collections.emptyMap();
+        }
         buildTree();
     }
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.util.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.graalvm.vm.util.LongLongMap;
+import org.junit.Test;
+
+public class LongLongMapTest {
+    @Test
+    public void testPutGet() {
+        LongLongMap map = new LongLongMap();
+        assertTrue(map.isEmpty());
+        map.put(1, 10);
+        map.put(-1, 20);
+        map.put(0, 30);
+        assertEquals(3, map.size());
+        assertEquals(10, map.get(1, -1));
+        assertEquals(20, map.get(-1, -1));
+        assertEquals(30, map.get(0, -1));
+        assertEquals(-1, map.get(2, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+        map.put(1, 11);
+        assertEquals(11, map.get(1, -1));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testAdd() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(5, map.add(42, 5));
+        assertEquals(7, map.add(42, 2));
+        assertEquals(0, map.add(42, -7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testGrow() {
+        LongLongMap map = new LongLongMap(2);
+        for (long i = 0; i < 10000; i++) {
+            map.put(i << 12, i);
+        }
+        assertEquals(10000, map.size());
+        for (long i = 0; i < 10000; i++) {
+            assertEquals(i, map.get(i << 12, -1));
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(10000, keys.length);
+        assertEquals(9999L << 12, keys[9999]);
+
+        long[] sum = new long[1];
+        map.forEach((k, v) -> sum[0] += v);
+        assertEquals(9999L * 10000 / 2, sum[0]);
+    }
+
+    @Test
+    public void testClear() {
+        LongLongMap map = new LongLongMap();
+        map.put(1, 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+        assertArrayEquals(new long[0], map.keys());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of {@code long} values without boxing. Values cannot be removed, but
+ * the whole set can be cleared.
+ */
+public class LongSet {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long value);
+    }
+
+    public LongSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongSet(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        values = new long[cap];
+        used = new boolean[cap];
+        mask = cap - 1;
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long value) {
+        int idx = hash(value) & mask;
+        while (used[idx]) {
+            if (values[idx] == value) {
+                return idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return -idx - 1;
+    }
+
+    private void grow() {
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        values = new long[oldValues.length * 2];
+        used = new boolean[oldValues.length * 2];
+        mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldUsed[i]) {
+                int idx = -find(oldValues[i]) - 1;
+                used[idx] = true;
+                values[idx] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Add a value to the set.
+     *
+     * @return true if the value was not in the set before
+     */
+    public boolean add(long value) {
+        int idx = find(value);
+        if (idx >= 0) {
+            return false;
+        }
+        if ((size + 1) * 2 > values.length) {
+            grow();
+            idx = find(value);
+        }
+        idx = -idx - 1;
+        used[idx] = true;
+        values[idx] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return find(value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size != 0) {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (used[i]) {
+                result[n++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (used[i]) {
+                consumer.accept(values[i]);
+            }
+        }
+    }
+}
@@ -134,6 +134,16 @@ public abstract class VirtualMemory {
         enableAccessTrace = true;
     }
 
+    /**
+     * Switch the access logger on or off without replacing it. Returns the previous state.
+     */
+    public boolean setAccessTrace(boolean enable) {
+        CompilerAsserts.neverPartOfCompilation();
+        boolean old = enableAccessTrace;
+        enableAccessTrace = enable;
+        return old;
+    }
+
     public void set32bit() {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         mask = 0x00000000FFFFFFFFL;
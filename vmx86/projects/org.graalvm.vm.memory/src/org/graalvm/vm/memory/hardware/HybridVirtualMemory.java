@@ -78,6 +78,13 @@ public class HybridVirtualMemory extends VirtualMemory {
         nmem.setAccessLogger(logger);
     }
 
+    @Override
+    public boolean setAccessTrace(boolean enable) {
+        jmem.setAccessTrace(enable);
+        nmem.setAccessTrace(enable);
+        return super.setAccessTrace(enable);
+    }
+
     public NativeVirtualMemory getNativeVirtualMemory() {
         return nmem;
     }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.vm.memory.ByteMemory;
+import org.graalvm.vm.memory.JavaVirtualMemory;
+import org.graalvm.vm.memory.MemoryPage;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.x86.node.MemoryReadNode;
+import org.graalvm.vm.x86.node.MemoryWriteNode;
+import org.graalvm.vm.x86.substitution.intrinsics.FastMemory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FastMemoryTest {
+    // a single page, the memory after it is not mapped
+    private static final long ADDRESS = 0x7f0000000000L;
+    private static final int SIZE = 4096;
+
+    private VirtualMemory vm;
+    private FastMemory memory;
+
+    @Before
+    public void setup() {
+        vm = new JavaVirtualMemory();
+        vm.add(new MemoryPage(new ByteMemory(SIZE, false), ADDRESS, SIZE));
+        memory = new FastMemory(new MemoryReadNode(vm), new MemoryWriteNode(vm));
+        for (int i = 0; i < SIZE; i++) {
+            vm.setI8(ADDRESS + i, (byte) 'a');
+        }
+    }
+
+    @Test
+    public void findBeforeUnmappedPage() {
+        long last = ADDRESS + SIZE - 1;
+        vm.setI8(last, (byte) 'x');
+        for (long ptr = last - 16; ptr <= last; ptr++) {
+            // memchr may be called with a size beyond the end of the mapping if the byte is found
+            assertEquals(last, memory.find(ptr, (byte) 'x', 4096));
+            assertEquals(last, memory.find(ptr, (byte) 'x', -1));
+            assertEquals(0, memory.find(ptr, (byte) 'y', ADDRESS + SIZE - ptr));
+        }
+    }
+
+    @Test
+    public void findSize() {
+        vm.setI8(ADDRESS + 5, (byte) 'x');
+        assertEquals(0, memory.find(ADDRESS, (byte) 'x', 0));
+        assertEquals(0, memory.find(ADDRESS, (byte) 'x', 5));
+        assertEquals(ADDRESS + 5, memory.find(ADDRESS, (byte) 'x', 6));
+        assertEquals(ADDRESS + 5, memory.find(ADDRESS + 3, (byte) 'x', 3));
+        assertEquals(0, memory.find(ADDRESS + 3, (byte) 'x', 2));
+        assertEquals(0, memory.find(ADDRESS + 6, (byte) 'x', 100));
+    }
+
+    @Test
+    public void findIgnoresBytesBeforeStart() {
+        // a match right before the start must not make the next byte look like a match
+        vm.setI8(ADDRESS + 8, (byte) 'x');
+        vm.setI8(ADDRESS + 9, (byte) ('x' ^ 1));
+        vm.setI8(ADDRESS + 20, (byte) 'x');
+        assertEquals(0, memory.find(ADDRESS + 9, (byte) 'x', 1));
+        assertEquals(ADDRESS + 20, memory.find(ADDRESS + 9, (byte) 'x', 100));
+        assertEquals(ADDRESS + 8, memory.find(ADDRESS + 1, (byte) 'x', 100));
+    }
+
+    @Test
+    public void findZero() {
+        vm.setI8(ADDRESS + 100, (byte) 0);
+        vm.setI8(ADDRESS + 101, (byte) 1);
+        assertEquals(ADDRESS + 100, memory.find(ADDRESS + 3, (byte) 0, 1000));
+        assertEquals(0, memory.find(ADDRESS + 101, (byte) 0, SIZE - 101));
+    }
+
+    @Test
+    public void copyOverlapping() {
+        for (int i = 0; i < 32; i++) {
+            vm.setI8(ADDRESS + i, (byte) i);
+        }
+        memory.copy(ADDRESS + 3, ADDRESS, 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals((byte) i, vm.getI8(ADDRESS + 3 + i));
+        }
+        memory.copy(ADDRESS, ADDRESS + 3, 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals((byte) i, vm.getI8(ADDRESS + i));
+        }
+    }
+
+    @Test
+    public void compare() {
+        memory.fill(ADDRESS + 100, (byte) 'b', 30);
+        memory.copy(ADDRESS + 200, ADDRESS + 100, 30);
+        assertEquals(0, memory.compare(ADDRESS + 100, ADDRESS + 200, 30));
+        vm.setI8(ADDRESS + 219, (byte) 0xFF);
+        assertTrue(memory.compare(ADDRESS + 100, ADDRESS + 200, 30) < 0);
+        assertTrue(memory.compare(ADDRESS + 200, ADDRESS + 100, 30) > 0);
+        assertEquals(0, memory.compare(ADDRESS + 100, ADDRESS + 200, 19));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.memory.ByteMemory;
+import org.graalvm.vm.memory.JavaVirtualMemory;
+import org.graalvm.vm.memory.MemoryPage;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.x86.node.debug.trace.ExecutionTraceWriter;
+import org.graalvm.vm.x86.node.debug.trace.MemoryDumpTracker;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryDumpTrackerTest {
+    private static final long ADDRESS = 0x10000;
+    private static final int PAGE_SIZE = 4096;
+    private static final int PAGES = 4;
+
+    private static class Dump {
+        final long address;
+        final byte[] data;
+
+        Dump(long address, byte[] data) {
+            this.address = address;
+            this.data = data;
+        }
+    }
+
+    private VirtualMemory vm;
+    private List<Dump> dumps;
+    private MemoryDumpTracker tracker;
+
+    @Before
+    public void setup() throws IOException {
+        vm = new JavaVirtualMemory();
+        vm.add(new MemoryPage(new ByteMemory(PAGES * PAGE_SIZE, false), ADDRESS, PAGES * PAGE_SIZE));
+        dumps = new ArrayList<>();
+        ExecutionTraceWriter out = new ExecutionTraceWriter(new ByteArrayOutputStream()) {
+            @Override
+            public synchronized void memoryDump(long address, byte[] data) {
+                dumps.add(new Dump(address, data));
+            }
+        };
+        tracker = new MemoryDumpTracker(out);
+    }
+
+    private void dump() {
+        dumps.clear();
+        tracker.dump(vm);
+    }
+
+    @Test
+    public void firstDumpContainsEverything() {
+        vm.setI8(ADDRESS + 5, (byte) 42);
+        dump();
+        assertEquals(1, dumps.size());
+        assertEquals(ADDRESS, dumps.get(0).address);
+        assertEquals(PAGES * PAGE_SIZE, dumps.get(0).data.length);
+        assertEquals(42, dumps.get(0).data[5]);
+    }
+
+    @Test
+    public void unchangedMemory() {
+        dump();
+        dump();
+        assertEquals(0, dumps.size());
+    }
+
+    @Test
+    public void changedPages() {
+        dump();
+        vm.setI8(ADDRESS + PAGE_SIZE + 1, (byte) 1);
+        vm.setI64(ADDRESS + 3 * PAGE_SIZE + 8, -1);
+        dump();
+        assertEquals(2, dumps.size());
+        assertEquals(ADDRESS + PAGE_SIZE, dumps.get(0).address);
+        assertEquals(PAGE_SIZE, dumps.get(0).data.length);
+        assertEquals(1, dumps.get(0).data[1]);
+        assertEquals(ADDRESS + 3 * PAGE_SIZE, dumps.get(1).address);
+        assertEquals(PAGE_SIZE, dumps.get(1).data.length);
+        assertEquals(-1, dumps.get(1).data[8]);
+        assertEquals(-1, dumps.get(1).data[15]);
+    }
+
+    @Test
+    public void consecutiveChangedPages() {
+        dump();
+        vm.setI8(ADDRESS + PAGE_SIZE - 1, (byte) 1);
+        vm.setI8(ADDRESS + PAGE_SIZE, (byte) 2);
+        dump();
+        assertEquals(1, dumps.size());
+        assertEquals(ADDRESS, dumps.get(0).address);
+        assertEquals(2 * PAGE_SIZE, dumps.get(0).data.length);
+        assertEquals(1, dumps.get(0).data[PAGE_SIZE - 1]);
+        assertEquals(2, dumps.get(0).data[PAGE_SIZE]);
+    }
+
+    @Test
+    public void changedBack() {
+        // a page is compared with its last dump, not with its first one
+        dump();
+        vm.setI8(ADDRESS + 2 * PAGE_SIZE, (byte) 1);
+        dump();
+        assertEquals(1, dumps.size());
+        vm.setI8(ADDRESS + 2 * PAGE_SIZE, (byte) 0);
+        dump();
+        assertEquals(1, dumps.size());
+        assertEquals(ADDRESS + 2 * PAGE_SIZE, dumps.get(0).address);
+        assertEquals(0, dumps.get(0).data[0]);
+        dump();
+        assertEquals(0, dumps.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.graalvm.vm.memory.JavaVirtualMemory;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.memory.exception.SegmentationViolation;
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.x86.posix.PosixEnvironment;
+import org.graalvm.vm.x86.posix.Syscalls;
+import org.graalvm.vm.x86.replay.ReplayPlayer;
+import org.graalvm.vm.x86.replay.ReplayRecorder;
+import org.junit.Test;
+
+public class ReplayTest {
+    private static final long ADDRESS = 0x7f0000000000L;
+    private static final long PC = 0x401000;
+    private static final int FD = 3;
+
+    private static byte data(long off) {
+        return (byte) (off * 7 + (off >> 12));
+    }
+
+    @Test
+    public void readOnlyFileMapping() throws Exception {
+        // larger than one logged chunk and not a multiple of the page size
+        long length = 1024 * 1024 + 5000;
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        VirtualMemory vm = new JavaVirtualMemory();
+        PosixEnvironment posix = new PosixEnvironment(vm, "x86_64", null);
+        try (ReplayRecorder recorder = new ReplayRecorder(vm, posix, log)) {
+            long result = recorder.syscall(Syscalls.SYS_mmap, PC, 0, length, Mman.PROT_READ, Mman.MAP_PRIVATE, FD, 0, () -> {
+                // stands in for the file mapping of the original run
+                long addr = posix.mmap(ADDRESS, length, Mman.PROT_READ | Mman.PROT_WRITE, Mman.MAP_PRIVATE | Mman.MAP_ANONYMOUS | Mman.MAP_FIXED, -1, 0);
+                for (long off = 0; off < length; off++) {
+                    vm.setI8(addr + off, data(off));
+                }
+                return addr;
+            });
+            assertEquals(ADDRESS, result);
+        }
+
+        VirtualMemory replayed = new JavaVirtualMemory();
+        PosixEnvironment replayedPosix = new PosixEnvironment(replayed, "x86_64", null);
+        try (ReplayPlayer player = new ReplayPlayer(replayed, replayedPosix, new ByteArrayInputStream(log.toByteArray()))) {
+            long result = player.syscall(Syscalls.SYS_mmap, PC, 0, length, Mman.PROT_READ, Mman.MAP_PRIVATE, FD, 0, () -> {
+                throw new AssertionError("recorded syscall must not be executed");
+            });
+            assertEquals(ADDRESS, result);
+        }
+
+        for (long off = 0; off < length; off += 997) {
+            assertEquals(data(off), replayed.getI8(ADDRESS + off));
+        }
+        assertEquals(data(length - 1), replayed.getI8(ADDRESS + length - 1));
+
+        // the recorded protection is applied after the content is copied in
+        try {
+            replayed.setI8(ADDRESS, (byte) 0);
+            fail("replayed mapping is writable");
+        } catch (SegmentationViolation e) {
+            // expected
+        }
+    }
+}
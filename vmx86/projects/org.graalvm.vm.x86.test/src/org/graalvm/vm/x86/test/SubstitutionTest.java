@@ -40,6 +40,7 @@
  */
 package org.graalvm.vm.x86.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
@@ -160,4 +161,47 @@ public class SubstitutionTest {
         insn = exit0.createNode(reader.getPC(), reader);
         assertEquals("exit\t0", insn.getDisassembly());
     }
+
+    @Test
+    public void checkSignatureLongestMatch() throws Exception {
+        byte[] prefix = {(byte) 0xb8, 0x3c, 0x00};
+        boolean[] mask = {false, true, false};
+        Substitution short3 = new Substitution(prefix, mask) {
+            @Override
+            public AMD64Instruction createNode(long pc, CodeReader reader) {
+                throw new AssertionError("must not be used");
+            }
+        };
+
+        SubstitutionRegistry registry = new SubstitutionRegistry();
+        registry.register(short3);
+        registry.register(SUBSTITUTION_EXIT_0);
+
+        CodeReader reader = new CodeArrayReader(ASM_EXIT0, 0);
+        assertSame(SUBSTITUTION_EXIT_0, registry.getSubstitution(reader));
+
+        reader = new CodeArrayReader(new byte[]{(byte) 0xb8, 0x3d, 0x00, 0x00}, 0);
+        assertSame(short3, registry.getSubstitution(reader));
+        assertEquals(1, short3.getMatches());
+    }
+
+    @Test
+    public void checkSignatureMasked() throws Exception {
+        // mov eax,imm32 with a wildcard immediate
+        Signature signature = new Signature(new byte[]{(byte) 0xb8, 0x00, 0x00, 0x00, 0x00}, Signature.mask(5, 1, 2, 3, 4));
+        CodeReader reader = new CodeArrayReader(ASM_EXIT0, 0);
+        assertTrue(signature.match(reader));
+        assertArrayEquals(new byte[]{(byte) 0xb8, 0x3c, 0x00, 0x00, 0x00}, signature.check(reader));
+        assertEquals(5, reader.getPC());
+
+        reader = new CodeArrayReader(ASM_MOV_1_EAX, 0);
+        assertFalse(signature.match(reader));
+        String error = null;
+        try {
+            signature.check(reader);
+        } catch (AssertionError e) {
+            error = e.getMessage();
+        }
+        assertEquals("data mismatch at 0x0000000000000001", error);
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.graalvm.vm.posix.elf.DefaultSymbolResolver;
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.x86.node.debug.TraceWindow;
+import org.junit.Test;
+
+public class TraceWindowTest {
+    private static class TestSymbol implements Symbol {
+        private final String name;
+        private final long value;
+        private final long size;
+
+        TestSymbol(String name, long value, long size) {
+            this.name = name;
+            this.value = value;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBind() {
+            return GLOBAL;
+        }
+
+        public int getType() {
+            return FUNC;
+        }
+
+        public int getVisibility() {
+            return DEFAULT;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public short getSectionIndex() {
+            return SHN_ABS;
+        }
+
+        public Symbol offset(long off) {
+            return new TestSymbol(name, value + off, size);
+        }
+    }
+
+    @Test
+    public void stepRange() {
+        TraceWindow window = new TraceWindow(10, 20, null);
+        assertFalse(window.containsStep(9));
+        assertTrue(window.containsStep(10));
+        assertTrue(window.containsStep(19));
+        assertFalse(window.containsStep(20));
+        assertTrue(window.containsPC(0x401000));
+        assertTrue(window.contains(15, 0x401000));
+        assertFalse(window.contains(20, 0x401000));
+        assertEquals("steps [10, 20)", window.toString());
+    }
+
+    @Test
+    public void openEnd() {
+        TraceWindow window = new TraceWindow(5, -1, null);
+        assertFalse(window.containsStep(4));
+        assertTrue(window.containsStep(5));
+        assertTrue(window.containsStep(Long.MAX_VALUE - 1));
+        assertTrue(window.intersectsSteps(1000, Long.MAX_VALUE));
+        assertEquals("steps [5, inf)", window.toString());
+    }
+
+    @Test
+    public void pcRange() {
+        TraceWindow window = new TraceWindow(0, -1, "0x401000-0x402000");
+        assertFalse(window.containsPC(0x400fff));
+        assertTrue(window.containsPC(0x401000));
+        assertTrue(window.containsPC(0x401fff));
+        assertFalse(window.containsPC(0x402000));
+        assertTrue(window.contains(0, 0x401000));
+        assertEquals("steps [0, inf), code 0x401000-0x402000", window.toString());
+
+        window = new TraceWindow(0, -1, "4096 - 8192");
+        assertFalse(window.containsPC(4095));
+        assertTrue(window.containsPC(4096));
+        assertFalse(window.containsPC(8192));
+    }
+
+    @Test
+    public void pcRangeUnsigned() {
+        TraceWindow window = new TraceWindow(0, -1, "0xffffffffff600000-0xffffffffff601000");
+        assertTrue(window.containsPC(0xffffffffff600000L));
+        assertTrue(window.containsPC(0xffffffffff600fffL));
+        assertFalse(window.containsPC(0xffffffffff601000L));
+        assertFalse(window.containsPC(0x401000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPCRange() {
+        new TraceWindow(0, -1, "0x1000-0x2000-0x3000");
+    }
+
+    @Test
+    public void symbol() {
+        TraceWindow window = new TraceWindow(0, -1, "main");
+        // nothing is traced before the symbol is known
+        assertFalse(window.containsPC(0x401000));
+        assertFalse(window.intersectsPC(0, -1));
+
+        NavigableMap<Long, Symbol> symbols = new TreeMap<>();
+        window.resolve(new DefaultSymbolResolver(symbols));
+        assertFalse(window.containsPC(0x401000));
+
+        symbols.put(0x401000L, new TestSymbol("main", 0x401000, 0x20));
+        window.resolve(new DefaultSymbolResolver(symbols));
+        assertFalse(window.containsPC(0x400fff));
+        assertTrue(window.containsPC(0x401000));
+        assertTrue(window.containsPC(0x40101f));
+        assertFalse(window.containsPC(0x401020));
+        assertEquals("steps [0, inf), code main", window.toString());
+    }
+
+    @Test
+    public void intersects() {
+        TraceWindow window = new TraceWindow(10, 20, "0x1000-0x2000");
+        assertFalse(window.intersectsSteps(0, 9));
+        assertTrue(window.intersectsSteps(0, 10));
+        assertTrue(window.intersectsSteps(19, 30));
+        assertFalse(window.intersectsSteps(20, 30));
+        assertFalse(window.intersectsPC(0x800, 0xfff));
+        assertTrue(window.intersectsPC(0x800, 0x1000));
+        assertTrue(window.intersectsPC(0x1fff, 0x3000));
+        assertFalse(window.intersectsPC(0x2000, 0x3000));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.vm.x86.RegisterAccessFactory;
+import org.graalvm.vm.x86.el.ast.VariableNode;
+import org.graalvm.vm.x86.isa.Register;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+public class VariableNodeTest {
+    private int[] gpr;
+    private int instructionCount;
+    private RegisterAccessFactory regs;
+    private VirtualFrame frame;
+
+    @Before
+    public void setup() {
+        FrameDescriptor.Builder fd = FrameDescriptor.newBuilder();
+        gpr = new int[16];
+        for (int i = 0; i < gpr.length; i++) {
+            gpr[i] = fd.addSlot(FrameSlotKind.Long, "r" + i, null);
+        }
+        int[] flags = new int[12];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = fd.addSlot(FrameSlotKind.Long, "flag" + i, null);
+        }
+        instructionCount = fd.addSlot(FrameSlotKind.Long, "instructionCount", null);
+        int[] none = new int[0];
+        regs = new RegisterAccessFactory(gpr, none, none, none, none, none, flags[0], flags[1], flags[2], flags[3], flags[4], flags[5], flags[6], flags[7], flags[8], flags[9], flags[10],
+                        flags[11]);
+        frame = Truffle.getRuntime().createVirtualFrame(new Object[0], fd.build());
+        for (int slot : gpr) {
+            frame.setLong(slot, 0);
+        }
+    }
+
+    private long read(String name, long pc) {
+        return new VariableNode(name, regs, instructionCount).execute(frame, pc);
+    }
+
+    private long read(String name) {
+        return read(name, 0);
+    }
+
+    @Test
+    public void registerWidth() {
+        frame.setLong(gpr[Register.RAX.getID()], 0x123456789abcdef0L);
+        assertEquals(0x123456789abcdef0L, read("rax"));
+        // sign extended like all other reads in expressions
+        assertEquals(0xffffffff9abcdef0L, read("eax"));
+        assertEquals(0xffffffffffffdef0L, read("ax"));
+        assertEquals(0xfffffffffffffff0L, read("al"));
+        assertEquals(0xffffffffffffffdeL, read("ah"));
+    }
+
+    @Test
+    public void noTruncation() {
+        // 32/64bit registers used to be read as 16bit values
+        frame.setLong(gpr[Register.R8.getID()], 0x0000000100020003L);
+        assertEquals(0x0000000100020003L, read("r8"));
+        assertEquals(0x00020003L, read("r8d"));
+        assertEquals(0x0003L, read("r8w"));
+
+        frame.setLong(gpr[Register.RSP.getID()], 0x7ffffffde000L);
+        assertEquals(0x7ffffffde000L, read("rsp"));
+        assertEquals(0xfffde000L, read("esp") & 0xffffffffL);
+    }
+
+    @Test
+    public void instructionCount() {
+        frame.setLong(instructionCount, 1L << 40);
+        assertEquals(1L << 40, read("insncnt"));
+    }
+
+    @Test
+    public void programCounter() {
+        long pc = 0x7f0012345678L;
+        assertEquals(pc, read("rip", pc));
+        assertEquals(0x12345678L, read("eip", pc));
+        assertEquals(0x5678L, read("ip", pc));
+    }
+
+    @Test
+    public void usedRegisters() {
+        assertArrayEquals(new Register[]{Register.EBX}, new VariableNode("ebx", regs, instructionCount).getUsedGPRRead());
+        assertArrayEquals(new Register[0], new VariableNode("insncnt", regs, instructionCount).getUsedGPRRead());
+    }
+}
@@ -51,13 +51,17 @@ import org.graalvm.vm.posix.elf.Symbol;
 import org.graalvm.vm.posix.elf.SymbolResolver;
 import org.graalvm.vm.x86.el.ast.BooleanExpression;
 import org.graalvm.vm.x86.isa.CpuState;
+import org.graalvm.vm.x86.node.debug.TraceWindow;
 import org.graalvm.vm.x86.node.debug.trace.ExecutionTraceWriter;
 import org.graalvm.vm.x86.node.debug.trace.LogStreamHandler;
 import org.graalvm.vm.x86.node.debug.trace.MemoryAccessTracer;
+import org.graalvm.vm.x86.node.debug.trace.MemoryDumpTracker;
 import org.graalvm.vm.x86.node.debug.trace.TraceStatus;
 import org.graalvm.vm.x86.node.flow.TraceRegistry;
 import org.graalvm.vm.x86.posix.PosixEnvironment;
 import org.graalvm.vm.x86.posix.SyscallException;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
+import org.graalvm.vm.x86.replay.ReplayLog;
 import org.graalvm.vm.x86.substitution.SubstitutionRegistry;
 
 import com.oracle.truffle.api.Assumption;
@@ -111,6 +115,8 @@ public class AMD64Context implements TraceStatus {
     private static final int gprMask;
     private static final int avxMask;
 
+    private static final int profileState;
+
     private final ArchitecturalState state;
 
     private NavigableMap<Long, Symbol> symbols;
@@ -125,7 +131,10 @@ public class AMD64Context implements TraceStatus {
     private long callbacks;
 
     private final ExecutionTraceWriter traceWriter;
+    private final MemoryDumpTracker memoryDump;
     private final LogStreamHandler logHandler;
+    private final ReplayLog replayLog;
+    private final GuestProfiler profiler;
 
     private InteropCallback interopCallback;
     private InteropFunctionPointers interopPointers;
@@ -138,7 +147,10 @@ public class AMD64Context implements TraceStatus {
     @CompilationFinal private BooleanExpression tron;
     @CompilationFinal private BooleanExpression troff;
 
+    @CompilationFinal private TraceWindow traceWindow;
+
     private boolean traceStatus;
+    private Assumption traceInactive;
 
     static {
         FrameDescriptor.Builder fd = FrameDescriptor.newBuilder();
@@ -185,6 +197,8 @@ public class AMD64Context implements TraceStatus {
         gprMask = fd.addSlot(FrameSlotKind.Boolean, "gprmask", null);
         avxMask = fd.addSlot(FrameSlotKind.Boolean, "avxmask", null);
 
+        profileState = fd.addSlot(FrameSlotKind.Object, "profile", null);
+
         frameDescriptor = fd.build();
     }
 
@@ -197,17 +211,25 @@ public class AMD64Context implements TraceStatus {
         this.traceWriter = traceWriter;
         this.logHandler = logHandler;
         memory = VirtualMemory.create();
+        traceWindow = TraceWindow.create();
 
+        MemoryAccessTracer memoryTracer = null;
         if (traceWriter != null) {
-            MemoryAccessTracer memoryTracer = new MemoryAccessTracer(traceWriter, Options.getString(Options.EXEC_TRON) != null ? this : null);
+            boolean conditional = Options.getString(Options.EXEC_TRON) != null || traceWindow != null;
+            memoryTracer = new MemoryAccessTracer(traceWriter, conditional ? this : null);
             memory.setAccessLogger(memoryTracer);
+            memoryDump = new MemoryDumpTracker(traceWriter);
+        } else {
+            memoryDump = null;
         }
 
         posix = new PosixEnvironment(memory, ARCH_NAME, traceWriter);
+        replayLog = ReplayLog.create(memory, posix, memoryTracer);
         posix.setStandardIO(env.in(), env.out(), env.err());
         args = env.getApplicationArguments();
 
         singleThreadedAssumption = Truffle.getRuntime().createAssumption("single threaded");
+        profiler = GuestProfiler.create(this);
         traces = new TraceRegistry(language, frameDescriptor);
         substitutions = new SubstitutionRegistry();
         state = new ArchitecturalState(this);
@@ -215,6 +237,8 @@ public class AMD64Context implements TraceStatus {
         symbolResolver = new DefaultSymbolResolver(symbols);
         scratchMemory = 0;
         traceStatus = true;
+        traceInactive = Truffle.getRuntime().createAssumption("trace inactive");
+        traceInactive.invalidate();
     }
 
     public static ContextReference<AMD64Context> getContextReference() {
@@ -247,6 +271,9 @@ public class AMD64Context implements TraceStatus {
     public void setSymbols(NavigableMap<Long, Symbol> symbols) {
         this.symbols = symbols;
         this.symbolResolver = new DefaultSymbolResolver(symbols);
+        if (traceWindow != null) {
+            traceWindow.resolve(symbolResolver);
+        }
     }
 
     public NavigableMap<Long, Symbol> getSymbols() {
@@ -361,6 +388,10 @@ public class AMD64Context implements TraceStatus {
         return avxMask;
     }
 
+    public int getProfileState() {
+        return profileState;
+    }
+
     public ArchitecturalState getState() {
         return state;
     }
@@ -422,10 +453,22 @@ public class AMD64Context implements TraceStatus {
         return traceWriter;
     }
 
+    public MemoryDumpTracker getMemoryDump() {
+        return memoryDump;
+    }
+
     LogStreamHandler getLogHandler() {
         return logHandler;
     }
 
+    public ReplayLog getReplayLog() {
+        return replayLog;
+    }
+
+    public GuestProfiler getProfiler() {
+        return profiler;
+    }
+
     public void setInteropCallback(InteropCallback callback) {
         this.interopCallback = callback;
     }
@@ -493,6 +536,18 @@ public class AMD64Context implements TraceStatus {
         return troff;
     }
 
+    public TraceWindow getTraceWindow() {
+        return traceWindow;
+    }
+
+    /**
+     * Valid as long as tracing is switched off. Compiled code can rely on this to skip the trace
+     * state checks of every instruction.
+     */
+    public Assumption getTraceInactive() {
+        return traceInactive;
+    }
+
     public int getTrace() {
         return trace;
     }
@@ -504,6 +559,14 @@ public class AMD64Context implements TraceStatus {
 
     @Override
     public void setTraceStatus(boolean status) {
+        if (traceStatus == status) {
+            return;
+        }
         traceStatus = status;
+        if (status) {
+            traceInactive.invalidate();
+        } else {
+            traceInactive = Truffle.getRuntime().createAssumption("trace inactive");
+        }
     }
 }
@@ -57,6 +57,8 @@ import org.graalvm.vm.x86.node.InterpreterThreadRootNode;
 import org.graalvm.vm.x86.node.debug.trace.ExecutionTraceWriter;
 import org.graalvm.vm.x86.node.debug.trace.LogStreamHandler;
 import org.graalvm.vm.x86.node.init.InitializerNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
+import org.graalvm.vm.x86.replay.ReplayLog;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.TruffleLanguage;
@@ -168,7 +170,19 @@ public class AMD64Language extends TruffleLanguage<AMD64Context> {
     @Override
     protected void disposeContext(AMD64Context ctx) {
         ExecutionTraceWriter trace = ctx.getTraceWriter();
+        ReplayLog replay = ctx.getReplayLog();
+        GuestProfiler profiler = ctx.getProfiler();
         Logger.getLogger("").removeHandler(ctx.getLogHandler());
+        if (profiler != null) {
+            profiler.stop();
+        }
+        if (replay != null) {
+            try {
+                replay.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
         if (trace != null) {
             try {
                 trace.close();
@@ -55,6 +55,7 @@ public class ArchitecturalState {
     private final int cpuState;
     private final int trace;
     private final int isTrace;
+    private final int profileState;
     private final TraceRegistry traces;
     private final SubstitutionRegistry substitutions;
     private final Assumption singleThreaded;
@@ -71,6 +72,7 @@ public class ArchitecturalState {
         substitutions = context.getSubstitutionRegistry();
         singleThreaded = context.getSingleThreadedAssumption();
         isTrace = context.getTrace();
+        profileState = context.getProfileState();
     }
 
     public RegisterAccessFactory getRegisters() {
@@ -105,6 +107,10 @@ public class ArchitecturalState {
         return isTrace;
     }
 
+    public int getProfileState() {
+        return profileState;
+    }
+
     public TraceRegistry getTraceRegistry() {
         return traces;
     }
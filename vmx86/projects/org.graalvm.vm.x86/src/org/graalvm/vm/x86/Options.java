@@ -92,6 +92,17 @@ public class Options {
     public static final BooleanOption EXEC_TRACE = new BooleanOption("vmx86.exec.trace", false);
     public static final StringOption EXEC_TRON = new StringOption("vmx86.exec.tron", null);
     public static final StringOption EXEC_TROFF = new StringOption("vmx86.exec.troff", null);
+    public static final LongOption EXEC_TRACE_START = new LongOption("vmx86.exec.trace.start", 0);
+    public static final LongOption EXEC_TRACE_END = new LongOption("vmx86.exec.trace.end", -1);
+    public static final StringOption EXEC_TRACE_PC = new StringOption("vmx86.exec.trace.pc", null);
+
+    // record/replay
+    public static final StringOption RECORD = new StringOption("vmx86.record", null);
+    public static final StringOption REPLAY = new StringOption("vmx86.replay", null);
+
+    // profiler
+    public static final StringOption PROFILE = new StringOption("vmx86.profile", null);
+    public static final LongOption PROFILE_INTERVAL = new LongOption("vmx86.profile.interval", 1000); // us
 
     private static class BooleanOption {
         public final String name;
@@ -1,10 +1,15 @@
 package org.graalvm.vm.x86.el.ast;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import org.graalvm.vm.x86.isa.Register;
 import org.graalvm.vm.x86.node.AMD64Node;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
 
 public abstract class Expression extends AMD64Node {
     private Register[] registers = new Register[0];
@@ -21,7 +26,13 @@ public abstract class Expression extends AMD64Node {
 
     public Register[] getUsedGPRRead() {
         CompilerAsserts.neverPartOfCompilation();
-        return registers;
+        Set<Register> result = new LinkedHashSet<>(Arrays.asList(registers));
+        for (Node child : getChildren()) {
+            if (child instanceof Expression) {
+                result.addAll(Arrays.asList(((Expression) child).getUsedGPRRead()));
+            }
+        }
+        return result.toArray(new Register[result.size()]);
     }
 
     @Override
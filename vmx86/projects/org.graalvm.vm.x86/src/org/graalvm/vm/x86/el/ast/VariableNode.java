@@ -5,6 +5,7 @@ import org.graalvm.vm.x86.RegisterAccessFactory;
 import org.graalvm.vm.x86.isa.Register;
 import org.graalvm.vm.x86.node.ReadFlagsNode;
 import org.graalvm.vm.x86.node.ReadNode;
+import org.graalvm.vm.x86.node.RegisterReadNode;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -16,8 +17,12 @@ public class VariableNode extends Expression {
     @Child private ReadVariableNode read;
 
     public VariableNode(String name, ArchitecturalState state) {
+        this(name, state.getRegisters(), state.getInstructionCount());
+    }
+
+    public VariableNode(String name, RegisterAccessFactory regs, int instructionCount) {
         this.name = name;
-        read = create(name, state);
+        read = create(name, regs, instructionCount);
         if (read instanceof ReadRegister) {
             setGPRRead(((ReadRegister) read).getGPR());
         }
@@ -132,7 +137,7 @@ public class VariableNode extends Expression {
         }
     }
 
-    private static class ReadI32RegisterNode extends ReadI16VariableNode implements ReadRegister {
+    private static class ReadI32RegisterNode extends ReadI32VariableNode implements ReadRegister {
         private final Register reg;
 
         private ReadI32RegisterNode(RegisterAccessFactory regs, Register r) {
@@ -146,7 +151,7 @@ public class VariableNode extends Expression {
         }
     }
 
-    private static class ReadI64RegisterNode extends ReadI16VariableNode implements ReadRegister {
+    private static class ReadI64RegisterNode extends ReadI64VariableNode implements ReadRegister {
         private final Register reg;
 
         private ReadI64RegisterNode(RegisterAccessFactory regs, Register r) {
@@ -160,9 +165,8 @@ public class VariableNode extends Expression {
         }
     }
 
-    private static ReadVariableNode create(String name, ArchitecturalState state) {
+    private static ReadVariableNode create(String name, RegisterAccessFactory reg, int instructionCount) {
         CompilerAsserts.neverPartOfCompilation();
-        RegisterAccessFactory reg = state.getRegisters();
         switch (name) {
             case "al":
                 return new ReadI8RegisterNode(reg, Register.AL);
@@ -306,6 +310,8 @@ public class VariableNode extends Expression {
                 return new ReadI32VariableNode(new ReadFlagsNode());
             case "rflags":
                 return new ReadI64VariableNode(new ReadFlagsNode());
+            case "insncnt":
+                return new ReadI64VariableNode(new RegisterReadNode(instructionCount));
             case "ip":
                 return new ReadIPNode();
             case "eip":
@@ -44,6 +44,7 @@ import org.graalvm.vm.memory.vector.Vector128;
 import org.graalvm.vm.memory.vector.Vector512;
 import org.graalvm.vm.util.BitTest;
 import org.graalvm.vm.util.HexFormatter;
+import org.graalvm.vm.x86.profiler.ProfileState;
 
 /*-
     RAX=0000000000000000 RBX=0000000000000000 RCX=0000000000000000 RDX=0000000000000000
@@ -107,6 +108,9 @@ public class CpuState {
 
     public long instructionCount;
 
+    // profiler state of the thread this state belongs to
+    public ProfileState profile;
+
     private static final long RESERVED = bit(1, true) | bit(Flags.IF, true);
 
     private static long bit(long shift, boolean value) {
@@ -243,6 +247,7 @@ public class CpuState {
         state.ac = ac;
         state.id = id;
         state.instructionCount = instructionCount;
+        state.profile = profile;
         for (int i = 0; i < 16; i++) {
             if (xmm[i] != null) {
                 state.xmm[i] = xmm[i].clone();
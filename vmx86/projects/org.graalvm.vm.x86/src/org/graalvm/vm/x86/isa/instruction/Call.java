@@ -62,6 +62,7 @@ import org.graalvm.vm.x86.node.flow.CompiledTraceInterpreter;
 import org.graalvm.vm.x86.node.flow.TraceRegistry;
 import org.graalvm.vm.x86.node.init.CopyToCpuStateNode;
 import org.graalvm.vm.x86.node.init.InitializeFromCpuStateNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
 import org.graalvm.vm.x86.util.Debug;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -81,6 +82,7 @@ public abstract class Call extends AMD64Instruction {
     @Child private InitializeFromCpuStateNode writeState = new InitializeFromCpuStateNode();
 
     @CompilationFinal private TraceRegistry traces;
+    @CompilationFinal private GuestProfiler profiler;
 
     public static final boolean TRUFFLE_CALLS = getBoolean(Options.TRUFFLE_CALLS);
 
@@ -106,6 +108,9 @@ public abstract class Call extends AMD64Instruction {
         writeRSP = rsp.createWrite();
         writeMemory = state.createMemoryWrite();
         traces = state.getTraceRegistry();
+        if (GuestProfiler.ENABLED) {
+            profiler = ctx.getProfiler();
+        }
 
         TruffleLanguage<AMD64Context> language = AMD64Language.getCurrentLanguage(this);
         interpreter = insert(new CompiledTraceInterpreter(language, AMD64Context.getFrameDescriptor()));
@@ -168,6 +173,9 @@ public abstract class Call extends AMD64Instruction {
         rsp -= 8;
         writeMemory.executeI64(rsp, next());
         writeRSP.executeI64(frame, rsp);
+        if (GuestProfiler.ENABLED) {
+            profiler.getState(frame).call(target, rsp);
+        }
         if (TRUFFLE_CALLS) {
             if (DEBUG) {
                 Debug.printf("call to 0x%x\n", target);
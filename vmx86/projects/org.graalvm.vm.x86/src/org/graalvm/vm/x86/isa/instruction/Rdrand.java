@@ -8,7 +8,9 @@ import org.graalvm.vm.x86.isa.Operand;
 import org.graalvm.vm.x86.isa.OperandDecoder;
 import org.graalvm.vm.x86.node.WriteFlagNode;
 import org.graalvm.vm.x86.node.WriteNode;
+import org.graalvm.vm.x86.replay.ReplayLog;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
 public abstract class Rdrand extends AMD64Instruction {
@@ -17,6 +19,7 @@ public abstract class Rdrand extends AMD64Instruction {
     private final Operand dst;
     @Child protected WriteNode writeDst;
     @Child protected WriteFlagNode writeCF;
+    @CompilationFinal protected ReplayLog replay;
 
     protected Rdrand(long pc, byte[] instruction, Operand dst) {
         super(pc, instruction);
@@ -30,6 +33,15 @@ public abstract class Rdrand extends AMD64Instruction {
         ArchitecturalState state = getState();
         writeDst = dst.createWrite(state, next());
         writeCF = state.getRegisters().getCF().createWrite();
+        replay = getContext().getReplayLog();
+    }
+
+    protected long random(long value) {
+        if (replay != null) {
+            return replay.rdrand(value);
+        } else {
+            return value;
+        }
     }
 
     public static class Rdrandw extends Rdrand {
@@ -39,7 +51,7 @@ public abstract class Rdrand extends AMD64Instruction {
 
         @Override
         public long executeInstruction(VirtualFrame frame) {
-            short value = (short) rng.nextInt();
+            short value = (short) random(rng.nextInt());
             writeDst.executeI16(frame, value);
             writeCF.execute(frame, true);
             return next();
@@ -53,7 +65,7 @@ public abstract class Rdrand extends AMD64Instruction {
 
         @Override
         public long executeInstruction(VirtualFrame frame) {
-            int value = rng.nextInt();
+            int value = (int) random(rng.nextInt());
             writeDst.executeI32(frame, value);
             writeCF.execute(frame, true);
             return next();
@@ -67,7 +79,7 @@ public abstract class Rdrand extends AMD64Instruction {
 
         @Override
         public long executeInstruction(VirtualFrame frame) {
-            long value = rng.nextLong();
+            long value = random(rng.nextLong());
             writeDst.executeI64(frame, value);
             writeCF.execute(frame, true);
             return next();
@@ -48,6 +48,7 @@ import org.graalvm.vm.x86.isa.AMD64Instruction;
 import org.graalvm.vm.x86.isa.Register;
 import org.graalvm.vm.x86.isa.RegisterOperand;
 import org.graalvm.vm.x86.node.WriteNode;
+import org.graalvm.vm.x86.replay.ReplayLog;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -58,6 +59,7 @@ public class Rdtsc extends AMD64Instruction {
     @Child private WriteNode writeEDX;
 
     @CompilationFinal private int insncntslot;
+    @CompilationFinal private ReplayLog replay;
     private static final boolean useInstructionCount = getBoolean(Options.RDTSC_USE_INSTRUCTION_COUNT);
 
     public Rdtsc(long pc, byte[] instruction) {
@@ -74,6 +76,8 @@ public class Rdtsc extends AMD64Instruction {
 
         if (useInstructionCount) {
             insncntslot = state.getInstructionCount();
+        } else {
+            replay = getContext().getReplayLog();
         }
     }
 
@@ -89,6 +93,9 @@ public class Rdtsc extends AMD64Instruction {
             time = frame.getLong(insncntslot);
         } else {
             time = rdtsc();
+            if (replay != null) {
+                time = replay.rdtsc(time);
+            }
         }
         int high = (int) (time >> 32);
         int low = (int) time;
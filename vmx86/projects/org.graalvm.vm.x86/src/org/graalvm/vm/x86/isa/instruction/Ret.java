@@ -52,6 +52,7 @@ import org.graalvm.vm.x86.isa.ReturnException;
 import org.graalvm.vm.x86.node.MemoryReadNode;
 import org.graalvm.vm.x86.node.RegisterReadNode;
 import org.graalvm.vm.x86.node.RegisterWriteNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -61,6 +62,8 @@ public class Ret extends AMD64Instruction {
     @Child private RegisterWriteNode writeRSP;
     @Child private MemoryReadNode readMemory;
 
+    @CompilationFinal private GuestProfiler profiler;
+
     @CompilationFinal public static boolean TRUFFLE_CALLS = getBoolean(Options.TRUFFLE_CALLS);
 
     public Ret(long pc, byte[] instruction) {
@@ -77,6 +80,9 @@ public class Ret extends AMD64Instruction {
         readRSP = rsp.createRead();
         writeRSP = rsp.createWrite();
         readMemory = state.createMemoryRead();
+        if (GuestProfiler.ENABLED) {
+            profiler = getContext().getProfiler();
+        }
     }
 
     @Override
@@ -84,6 +90,9 @@ public class Ret extends AMD64Instruction {
         long rsp = readRSP.executeI64(frame);
         long npc = readMemory.executeI64(rsp);
         writeRSP.executeI64(frame, rsp + 8);
+        if (GuestProfiler.ENABLED) {
+            profiler.getState(frame).ret(rsp);
+        }
         if (TRUFFLE_CALLS) {
             throw new ReturnException(npc);
         } else {
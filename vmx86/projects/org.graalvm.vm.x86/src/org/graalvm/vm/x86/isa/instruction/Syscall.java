@@ -100,7 +100,7 @@ public class Syscall extends AMD64Instruction {
         RegisterAccessFactory reg = ctx.getState().getRegisters();
         PosixEnvironment posix = ctx.getPosixEnvironment();
         VirtualMemory memory = ctx.getMemory();
-        syscall = insert(new SyscallWrapper(posix, memory));
+        syscall = insert(new SyscallWrapper(posix, memory, ctx.getReplayLog()));
         readRAX = reg.getRegister(Register.RAX).createRead();
         readRDI = reg.getRegister(Register.RDI).createRead();
         readRSI = reg.getRegister(Register.RSI).createRead();
@@ -58,6 +58,7 @@ import org.graalvm.vm.x86.node.flow.InterTraceDispatchNode;
 import org.graalvm.vm.x86.node.flow.RetException;
 import org.graalvm.vm.x86.node.init.InitializeFromCpuStateNode;
 import org.graalvm.vm.x86.node.init.InitializerNode;
+import org.graalvm.vm.x86.substitution.SubstitutionRegistry;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -66,6 +67,9 @@ public class InterpreterRootNode extends AMD64Node {
     private static final Logger log = Trace.create(InterpreterRootNode.class);
 
     private static final boolean SIMPLE_DISPATCH = getBoolean(Options.SIMPLE_DISPATCH) || getBoolean(Options.DEBUG_EXEC);
+    private static final boolean TRACE_SUBSTITUTIONS = getBoolean(Options.ENABLE_SUBSTITUTIONS) && getBoolean(Options.TRACE_SUBSTITUTIONS);
+
+    private final SubstitutionRegistry substitutions;
 
     @Child private InitializerNode initializer;
     @Child private AbstractDispatchNode interpreter;
@@ -73,6 +77,7 @@ public class InterpreterRootNode extends AMD64Node {
 
     public InterpreterRootNode(ArchitecturalState state, String programName) {
         initializer = new InitializerNode(state, programName);
+        substitutions = state.getSubstitutions();
         if (SIMPLE_DISPATCH) {
             log.warning("Using old and slow dispatch node");
             interpreter = new DispatchNode(state);
@@ -93,6 +98,10 @@ public class InterpreterRootNode extends AMD64Node {
                 }
             }
         } catch (ProcessExitException e) {
+            if (TRACE_SUBSTITUTIONS) {
+                CompilerDirectives.transferToInterpreter();
+                substitutions.printStatistics(Trace.log);
+            }
             return e.getCode();
         } catch (CpuRuntimeException e) {
             CompilerDirectives.transferToInterpreter();
@@ -58,6 +58,7 @@ import org.graalvm.vm.x86.node.flow.InterTraceDispatchNode;
 import org.graalvm.vm.x86.node.flow.RetException;
 import org.graalvm.vm.x86.node.init.InitializeFromCpuStateNode;
 import org.graalvm.vm.x86.node.init.InitializerNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.TruffleLanguage;
@@ -73,8 +74,11 @@ public class InterpreterThreadRootNode extends AMD64RootNode {
     @Child private AbstractDispatchNode interpreter;
     @Child private InitializeFromCpuStateNode writeState = new InitializeFromCpuStateNode();
 
+    private final GuestProfiler profiler;
+
     public InterpreterThreadRootNode(TruffleLanguage<AMD64Context> language, FrameDescriptor fd, AMD64Context ctx) {
         super(language, fd);
+        profiler = ctx.getProfiler();
         ArchitecturalState state = ctx.getState();
         if (SIMPLE_DISPATCH) {
             log.warning("Using old and slow dispatch node");
@@ -89,6 +93,11 @@ public class InterpreterThreadRootNode extends AMD64RootNode {
         Object[] args = frame.getArguments();
         CpuState state = (CpuState) args[0];
 
+        if (profiler != null) {
+            // the state is a copy of the parent thread's state; this is the only lookup per thread
+            state.profile = profiler.createThreadState();
+        }
+
         writeState.execute(frame, state);
 
         try {
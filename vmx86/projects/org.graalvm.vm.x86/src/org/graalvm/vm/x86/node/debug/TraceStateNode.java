@@ -43,20 +43,21 @@ package org.graalvm.vm.x86.node.debug;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.graalvm.vm.memory.MemorySegment;
-import org.graalvm.vm.memory.VirtualMemory;
-import org.graalvm.vm.util.io.Endianess;
 import org.graalvm.vm.x86.AMD64Context;
 import org.graalvm.vm.x86.el.ast.BooleanExpression;
 import org.graalvm.vm.x86.isa.AMD64Instruction;
 import org.graalvm.vm.x86.isa.CpuState;
 import org.graalvm.vm.x86.isa.Register;
 import org.graalvm.vm.x86.node.AMD64Node;
+import org.graalvm.vm.x86.node.ReadNode;
+import org.graalvm.vm.x86.node.RegisterReadNode;
 import org.graalvm.vm.x86.node.debug.trace.ExecutionTraceWriter;
 import org.graalvm.vm.x86.node.init.CopyToCpuStateNode;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage.ContextReference;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -73,6 +74,10 @@ public class TraceStateNode extends AMD64Node {
     @Child private BooleanExpression tron;
     @Child private BooleanExpression troff;
 
+    private final TraceWindow window;
+    @Child private ReadNode readInstructionCount;
+    @CompilationFinal private Assumption traceInactive;
+
     private final ContextReference<AMD64Context> ctxref;
 
     public TraceStateNode(AMD64Context ctx) {
@@ -93,6 +98,14 @@ public class TraceStateNode extends AMD64Node {
         }
         trace = ctx.getTrace();
 
+        window = ctx.getTraceWindow();
+        if (window != null) {
+            readInstructionCount = new RegisterReadNode(ctx.getState().getInstructionCount());
+        } else {
+            readInstructionCount = null;
+        }
+        traceInactive = ctx.getTraceInactive();
+
         ctxref = getContextReference();
     }
 
@@ -142,30 +155,65 @@ public class TraceStateNode extends AMD64Node {
     private void dumpMemory() {
         CompilerAsserts.neverPartOfCompilation();
         AMD64Context ctx = ctxref.get(this);
-        VirtualMemory mem = ctx.getMemory();
-        ExecutionTraceWriter trc = ctx.getTraceWriter();
-        for (MemorySegment segment : mem.getSegments()) {
-            if (segment.permissions.isRead()) {
-                // dump complete segment
-                byte[] data = new byte[(int) segment.length];
-                for (long addr = segment.start, i = 0; Long.compareUnsigned(addr, segment.end) < 0; addr += 8, i += 8) {
-                    long value = mem.getI64(addr);
-                    Endianess.set64bitLE(data, (int) i, value);
-                }
-                trc.memoryDump(segment.start, data);
-            }
+        ctx.getMemoryDump().dump(ctx.getMemory());
+    }
+
+    /**
+     * Decide once per basic block whether any of its instructions can produce a trace step. This
+     * is only the case if tracing is currently active or the block (at address range [start, end]
+     * with n instructions) can enter the trace window. Without a window, tron decides per
+     * instruction and the block has to be checked.
+     */
+    public boolean mayTrace(VirtualFrame frame, long start, long end, int n) {
+        CompilerAsserts.partialEvaluationConstant(start);
+        CompilerAsserts.partialEvaluationConstant(end);
+        CompilerAsserts.partialEvaluationConstant(n);
+        if (window == null || tron != null) {
+            return true;
+        }
+        Assumption inactive = ctxref.get(this).getTraceInactive();
+        if (inactive != traceInactive) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            traceInactive = inactive;
         }
+        if (!traceInactive.isValid()) {
+            return true;
+        }
+        if (!window.intersectsPC(start, end)) {
+            return false;
+        }
+        long step = readInstructionCount.executeI64(frame);
+        return window.intersectsSteps(step, step + n - 1);
+    }
+
+    private void setTrace(VirtualFrame frame, boolean status) {
+        CompilerDirectives.transferToInterpreter();
+        if (status) {
+            dumpMemory();
+        }
+        frame.setBoolean(trace, status);
+        ctxref.get(this).setTraceStatus(status);
     }
 
     public void execute(VirtualFrame frame, long pc, AMD64Instruction insn) {
+        if (window != null) {
+            long step = readInstructionCount.executeI64(frame);
+            if (!window.contains(step, pc)) {
+                if (frame.getBoolean(trace)) {
+                    setTrace(frame, false);
+                }
+                return;
+            } else if (tron == null && !frame.getBoolean(trace)) {
+                setTrace(frame, true);
+            }
+        }
+
         boolean record = true;
         if (tron != null) {
             record = frame.getBoolean(trace);
             if (record) {
                 if (troff != null && troff.execute(frame, pc)) {
-                    CompilerDirectives.transferToInterpreter();
-                    frame.setBoolean(trace, false);
-                    ctxref.get(this).setTraceStatus(false);
+                    setTrace(frame, false);
                 }
             } else {
                 if (tron != null) {
@@ -174,10 +222,7 @@ public class TraceStateNode extends AMD64Node {
                     record = true;
                 }
                 if (record) {
-                    CompilerDirectives.transferToInterpreter();
-                    dumpMemory();
-                    frame.setBoolean(trace, true);
-                    ctxref.get(this).setTraceStatus(true);
+                    setTrace(frame, true);
                 }
             }
         }
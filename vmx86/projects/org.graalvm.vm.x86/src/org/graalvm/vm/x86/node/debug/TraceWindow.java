@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.node.debug;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.posix.elf.SymbolResolver;
+import org.graalvm.vm.x86.Options;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+/**
+ * Restricts execution tracing to a range of executed instructions and/or a range of code addresses.
+ * The code range is either given as "start-end" or as the name of a symbol, which is resolved once
+ * the symbol table is available.
+ */
+public class TraceWindow {
+    private final long start;
+    private final long end;
+    private final String code;
+
+    @CompilationFinal private boolean resolved;
+    @CompilationFinal private long pcStart;
+    @CompilationFinal private long pcEnd;
+
+    public TraceWindow(long start, long end, String code) {
+        this.start = start;
+        this.end = end < 0 ? Long.MAX_VALUE : end;
+        this.code = code;
+        if (code == null) {
+            pcStart = 0;
+            pcEnd = -1;
+            resolved = true;
+        } else if (code.indexOf('-') > 0) {
+            String[] parts = code.split("-");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("invalid code range: " + code);
+            }
+            pcStart = parseAddress(parts[0].trim());
+            pcEnd = parseAddress(parts[1].trim());
+            resolved = true;
+        } else {
+            resolved = false;
+        }
+    }
+
+    private static long parseAddress(String s) {
+        if (s.startsWith("0x")) {
+            return Long.parseUnsignedLong(s.substring(2), 16);
+        } else {
+            return Long.parseUnsignedLong(s);
+        }
+    }
+
+    public static TraceWindow create() {
+        long start = Options.getLong(Options.EXEC_TRACE_START);
+        long end = Options.getLong(Options.EXEC_TRACE_END);
+        String code = Options.getString(Options.EXEC_TRACE_PC);
+        if (start <= 0 && end < 0 && code == null) {
+            return null;
+        } else {
+            return new TraceWindow(start, end, code);
+        }
+    }
+
+    public void resolve(SymbolResolver resolver) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (resolved) {
+            return;
+        }
+        Symbol sym = resolver.getSymbol(code);
+        if (sym != null) {
+            pcStart = sym.getValue();
+            pcEnd = sym.getValue() + sym.getSize();
+            resolved = true;
+        }
+    }
+
+    public boolean containsStep(long step) {
+        return step >= start && step < end;
+    }
+
+    public boolean containsPC(long pc) {
+        return resolved && Long.compareUnsigned(pc, pcStart) >= 0 && Long.compareUnsigned(pc, pcEnd) < 0;
+    }
+
+    public boolean contains(long step, long pc) {
+        return containsStep(step) && containsPC(pc);
+    }
+
+    // can any of the steps [first, last] be inside the window?
+    public boolean intersectsSteps(long first, long last) {
+        return last >= start && first < end;
+    }
+
+    // can any of the code addresses [first, last] be inside the window?
+    public boolean intersectsPC(long first, long last) {
+        return resolved && Long.compareUnsigned(last, pcStart) >= 0 && Long.compareUnsigned(first, pcEnd) < 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("steps [");
+        buf.append(start).append(", ");
+        if (end == Long.MAX_VALUE) {
+            buf.append("inf");
+        } else {
+            buf.append(end);
+        }
+        buf.append(")");
+        if (code != null) {
+            buf.append(", code ").append(code);
+        }
+        return buf.toString();
+    }
+}
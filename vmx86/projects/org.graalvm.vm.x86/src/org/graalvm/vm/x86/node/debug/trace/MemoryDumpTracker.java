@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.node.debug.trace;
+
+import java.io.ByteArrayOutputStream;
+
+import org.graalvm.vm.memory.MemorySegment;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.util.LongLongMap;
+import org.graalvm.vm.util.io.Endianess;
+
+import com.oracle.truffle.api.CompilerAsserts;
+
+/**
+ * Writes the memory dumps which start a traced region. Tracing can be switched on many times per
+ * run, e.g. whenever execution enters a trace window again, so only the first dump contains all
+ * readable memory. Every later dump only contains the pages which changed since they were dumped
+ * last. Writes are not tracked while tracing is off (some of them do not even reach the access
+ * logger), instead a hash of every dumped page is kept and compared.
+ */
+public class MemoryDumpTracker {
+    private static final int PAGE_SIZE = 4096;
+
+    private final ExecutionTraceWriter out;
+    private final LongLongMap hashes = new LongLongMap();
+
+    public MemoryDumpTracker(ExecutionTraceWriter out) {
+        this.out = out;
+    }
+
+    public void dump(VirtualMemory mem) {
+        CompilerAsserts.neverPartOfCompilation();
+        byte[] page = new byte[PAGE_SIZE];
+        ByteArrayOutputStream run = new ByteArrayOutputStream();
+        for (MemorySegment segment : mem.getSegments()) {
+            if (!segment.permissions.isRead()) {
+                continue;
+            }
+            // consecutive changed pages are written as one dump
+            long runStart = segment.start;
+            for (long addr = segment.start; Long.compareUnsigned(addr, segment.end) < 0; addr += PAGE_SIZE) {
+                int size = (int) Math.min(PAGE_SIZE, segment.end - addr);
+                long hash = 0;
+                for (int i = 0; i < size; i += 8) {
+                    long value = mem.getI64(addr + i);
+                    Endianess.set64bitLE(page, i, value);
+                    hash = Long.rotateLeft((hash ^ value) * 0x9E3779B97F4A7C15L, 31);
+                }
+                if (hashes.containsKey(addr) && hashes.get(addr, 0) == hash) {
+                    flush(runStart, run);
+                    runStart = addr + size;
+                } else {
+                    hashes.put(addr, hash);
+                    run.write(page, 0, size);
+                }
+            }
+            flush(runStart, run);
+        }
+    }
+
+    private void flush(long address, ByteArrayOutputStream run) {
+        if (run.size() > 0) {
+            out.memoryDump(address, run.toByteArray());
+            run.reset();
+        }
+    }
+}
@@ -70,6 +70,7 @@ import org.graalvm.vm.x86.node.debug.TraceStateNode;
 import org.graalvm.vm.x86.node.debug.trace.ExecutionTraceWriter;
 import org.graalvm.vm.x86.node.init.CopyToCpuStateNode;
 import org.graalvm.vm.x86.posix.InteropException;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -85,11 +86,13 @@ public class AMD64BasicBlock extends AMD64Node {
     private static final boolean DEBUG = getBoolean(Options.DEBUG_EXEC);
     private static final boolean DEBUG_TRACE = getBoolean(Options.DEBUG_EXEC_TRACE);
     private static final boolean EXEC_TRACE = getBoolean(Options.EXEC_TRACE);
+    private static final boolean PROFILE = GuestProfiler.ENABLED;
 
     @CompilationFinal private static boolean DEBUG_COMPILER = false;
 
     @CompilationFinal private SymbolResolver symbolResolver;
     @CompilationFinal private ContextReference<AMD64Context> ctxref;
+    @CompilationFinal private GuestProfiler profiler;
 
     @CompilationFinal ExecutionTraceWriter traceWriter;
     @Child private CopyToCpuStateNode readCpuState;
@@ -158,6 +161,9 @@ public class AMD64BasicBlock extends AMD64Node {
         if (EXEC_TRACE) {
             traceState = new TraceStateNode(ctx);
         }
+        if (PROFILE) {
+            profiler = ctx.getProfiler();
+        }
     }
 
     public boolean isIndirect() {
@@ -294,16 +300,20 @@ public class AMD64BasicBlock extends AMD64Node {
         long pc = getAddress();
         long n = 0;
         CompilerAsserts.partialEvaluationConstant(pc);
+        if (PROFILE) {
+            profiler.getState(frame).enter(pc);
+        }
+        boolean traced = EXEC_TRACE && traceState.mayTrace(frame, pc, instructions[instructions.length - 1].getPC(), instructions.length);
         try {
             for (AMD64Instruction insn : instructions) {
-                if (DEBUG || EXEC_TRACE) {
+                if (DEBUG || traced) {
                     updateInstructionCount(frame, n);
                     n = 0;
                 }
                 if (DEBUG) {
                     debug(frame, pc, insn);
                 }
-                if (EXEC_TRACE) {
+                if (traced) {
                     traceState.execute(frame, pc, insn);
                 }
                 // rdtsc/call needs current instruction count
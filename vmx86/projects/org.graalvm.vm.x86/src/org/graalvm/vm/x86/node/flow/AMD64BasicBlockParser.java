@@ -53,6 +53,7 @@ import org.graalvm.vm.x86.isa.CodeReader;
 import org.graalvm.vm.x86.isa.SegmentationViolationInstruction;
 import org.graalvm.vm.x86.substitution.Substitution;
 import org.graalvm.vm.x86.substitution.SubstitutionRegistry;
+import org.graalvm.vm.x86.substitution.TracedSubstitution;
 
 public class AMD64BasicBlockParser {
     private static final Logger log = Trace.create(AMD64BasicBlockParser.class);
@@ -85,6 +86,7 @@ public class AMD64BasicBlockParser {
                             insn = substitution.createNode(pc, reader);
                             if (TRACE) {
                                 log.info(String.format("Substitution at 0x%016x: %s", pc, insn.getDisassembly()));
+                                insn = new TracedSubstitution(substitution, insn);
                             }
                         }
                     } catch (SegmentationViolation e) {
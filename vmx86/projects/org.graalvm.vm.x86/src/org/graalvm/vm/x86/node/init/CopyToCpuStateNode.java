@@ -47,6 +47,8 @@ import org.graalvm.vm.x86.isa.Register;
 import org.graalvm.vm.x86.node.AMD64Node;
 import org.graalvm.vm.x86.node.ReadFlagNode;
 import org.graalvm.vm.x86.node.ReadNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
+import org.graalvm.vm.x86.profiler.ProfileState;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -85,6 +87,7 @@ public class CopyToCpuStateNode extends AMD64Node {
     @Children private ReadNode[] readZMM;
 
     @CompilationFinal private int instructionCount;
+    @CompilationFinal private int profileState;
 
     @CompilationFinal private boolean initialized = false;
     private final Object lock = new Object();
@@ -132,6 +135,7 @@ public class CopyToCpuStateNode extends AMD64Node {
                     readZMM[i] = regs.getAVXRegister(i).createRead();
                 }
                 instructionCount = state.getInstructionCount();
+                profileState = state.getProfileState();
                 initialized = true;
             }
         }
@@ -173,6 +177,9 @@ public class CopyToCpuStateNode extends AMD64Node {
             state.xmm[i] = readZMM[i].executeI128(frame);
         }
         state.instructionCount = frame.getLong(instructionCount);
+        if (GuestProfiler.ENABLED) {
+            state.profile = (ProfileState) frame.getObject(profileState);
+        }
         return state;
     }
 
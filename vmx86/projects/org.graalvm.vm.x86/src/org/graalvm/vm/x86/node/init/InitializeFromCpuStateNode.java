@@ -49,6 +49,7 @@ import org.graalvm.vm.x86.node.AMD64Node;
 import org.graalvm.vm.x86.node.AVXRegisterWriteNode;
 import org.graalvm.vm.x86.node.RegisterWriteNode;
 import org.graalvm.vm.x86.node.WriteFlagNode;
+import org.graalvm.vm.x86.profiler.GuestProfiler;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -88,6 +89,7 @@ public class InitializeFromCpuStateNode extends AMD64Node {
     @Child private RegisterWriteNode pc;
 
     @CompilationFinal private int instructionCount;
+    @CompilationFinal private int profileState;
 
     @CompilationFinal private boolean initialized = false;
     private final Object lock = new Object();
@@ -141,6 +143,7 @@ public class InitializeFromCpuStateNode extends AMD64Node {
         }
         pc = regs.getPC().createWrite();
         instructionCount = state.getInstructionCount();
+        profileState = state.getProfileState();
     }
 
     @ExplodeLoop
@@ -179,6 +182,9 @@ public class InitializeFromCpuStateNode extends AMD64Node {
             zmm[i].executeI128(frame, state.xmm[i]);
         }
         frame.setLong(instructionCount, state.instructionCount);
+        if (GuestProfiler.ENABLED) {
+            frame.setObject(profileState, state.profile);
+        }
     }
 
     @ExplodeLoop
@@ -270,5 +276,8 @@ public class InitializeFromCpuStateNode extends AMD64Node {
             }
         }
         frame.setLong(instructionCount, state.instructionCount);
+        if (GuestProfiler.ENABLED) {
+            frame.setObject(profileState, state.profile);
+        }
     }
 }
@@ -100,6 +100,7 @@ public class InitializerNode extends AMD64Node {
 
     private final int instructionCount;
     private final int trace;
+    private final int profileState;
 
     public InitializerNode(ArchitecturalState state, String programName) {
         this(state, programName, null);
@@ -133,6 +134,7 @@ public class InitializerNode extends AMD64Node {
 
         instructionCount = state.getInstructionCount();
         trace = state.getTrace();
+        profileState = state.getProfileState();
         if (TRACE) {
             BooleanExpression expr = getContextReference().get(this).getTron();
             tron = expr != null ? expr.clone() : null;
@@ -164,8 +166,19 @@ public class InitializerNode extends AMD64Node {
 
         AMD64Context ctx = getContextReference().get(this);
 
+        if (ctx.getProfiler() != null) {
+            ctx.getProfiler().start();
+            frame.setObject(profileState, ctx.getProfiler().getMainState());
+        }
+
         if (TRACE) {
-            boolean trc = tron != null ? tron.execute(frame, 0) : true;
+            boolean trc;
+            if (ctx.getTraceWindow() != null) {
+                // switched on by the first instruction inside the window
+                trc = false;
+            } else {
+                trc = tron != null ? tron.execute(frame, 0) : true;
+            }
             frame.setBoolean(trace, trc);
             ctx.setTraceStatus(trc);
         }
@@ -63,6 +63,7 @@ import org.graalvm.vm.x86.node.AMD64Node;
 import org.graalvm.vm.x86.node.RegisterReadNode;
 import org.graalvm.vm.x86.node.RegisterWriteNode;
 import org.graalvm.vm.x86.posix.PosixEnvironment;
+import org.graalvm.vm.x86.replay.ReplayLog;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -190,12 +191,23 @@ public class LoaderNode extends AMD64Node {
         }
 
         writePC.executeI64(frame, loader.getPC());
-        writeSP.executeI64(frame, loader.getSP());
+        writeSP.executeI64(frame, getInitialSP(ctx, loader.getSP()));
         ctx.setSymbols(loader.getSymbols());
 
         return loader.isExecStack();
     }
 
+    @TruffleBoundary
+    private static long getInitialSP(AMD64Context ctx, long sp) {
+        ReplayLog replay = ctx.getReplayLog();
+        if (replay != null) {
+            // the initial stack content (arguments, environment, auxv) is part of the replay log
+            return replay.start(sp);
+        } else {
+            return sp;
+        }
+    }
+
     public Object executeELF(VirtualFrame frame, String execfn, String[] args, byte[] elf) {
         AMD64Context ctx = getContextReference().get(this);
         ElfLoader loader = new ElfLoader(ctx.getTraceWriter());
@@ -222,7 +234,7 @@ public class LoaderNode extends AMD64Node {
         }
 
         writePC.executeI64(frame, loader.getPC());
-        writeSP.executeI64(frame, loader.getSP());
+        writeSP.executeI64(frame, getInitialSP(ctx, loader.getSP()));
         ctx.setSymbols(loader.getSymbols());
 
         return loader.isExecStack();
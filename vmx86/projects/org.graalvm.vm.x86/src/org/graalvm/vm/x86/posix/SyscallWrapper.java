@@ -52,6 +52,7 @@ import org.graalvm.vm.posix.api.linux.Sched;
 import org.graalvm.vm.util.log.Levels;
 import org.graalvm.vm.util.log.Trace;
 import org.graalvm.vm.x86.node.AMD64Node;
+import org.graalvm.vm.x86.replay.ReplayLog;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -64,13 +65,19 @@ public class SyscallWrapper extends AMD64Node {
 
     private final PosixEnvironment posix;
     private final VirtualMemory memory;
+    private final ReplayLog replay;
 
     @Child private ArchPrctl prctl;
     @Child private Clone clone;
 
     public SyscallWrapper(PosixEnvironment posix, VirtualMemory memory) {
+        this(posix, memory, null);
+    }
+
+    public SyscallWrapper(PosixEnvironment posix, VirtualMemory memory, ReplayLog replay) {
         this.posix = posix;
         this.memory = memory;
+        this.replay = replay;
     }
 
     private long brk(long addr) {
@@ -155,6 +162,11 @@ public class SyscallWrapper extends AMD64Node {
         log.log(Level.INFO, "clone failed: " + Errno.toString(errno));
     }
 
+    @TruffleBoundary
+    private static void traceCloneReplay() {
+        log.log(Level.WARNING, "clone is not supported in record/replay mode");
+    }
+
     public long executeI64(VirtualFrame frame, int nr, long a1, long a2, long a3, long a4, long a5, long a6, long pc) throws SyscallException {
         switch (nr) {
             case Syscalls.SYS_arch_prctl:
@@ -181,6 +193,11 @@ public class SyscallWrapper extends AMD64Node {
                 if (posix.isStrace()) {
                     traceClone(a1, a2, a3, a4, a5);
                 }
+                if (replay != null) {
+                    // thread interleaving is not part of the replay log
+                    traceCloneReplay();
+                    throw new SyscallException(Errno.EAGAIN);
+                }
                 try {
                     return clone.execute(frame, a1, a2, a3, a4, a5, pc);
                 } catch (SyscallException e) {
@@ -190,7 +207,11 @@ public class SyscallWrapper extends AMD64Node {
                     throw e;
                 }
         }
-        return executeWrapper(nr, a1, a2, a3, a4, a5, a6);
+        if (replay != null) {
+            return replay.syscall(nr, pc, a1, a2, a3, a4, a5, a6, () -> executeWrapper(nr, a1, a2, a3, a4, a5, a6));
+        } else {
+            return executeWrapper(nr, a1, a2, a3, a4, a5, a6);
+        }
     }
 
     @TruffleBoundary
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.profiler;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.posix.elf.Symbol;
+import org.graalvm.vm.util.log.Trace;
+import org.graalvm.vm.x86.AMD64Context;
+import org.graalvm.vm.x86.Options;
+import org.graalvm.vm.x86.posix.PosixEnvironment;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+/**
+ * Sampling profiler for guest code. A sampler thread periodically reads the {@link ProfileState}
+ * of every guest thread and aggregates the shadow call stacks. Symbols are only resolved when the
+ * profile is written: the call stacks are written in collapsed stack format (as used by
+ * flamegraph.pl) and a list of the hottest functions and basic blocks is printed to the log.
+ */
+public class GuestProfiler {
+    private static final Logger log = Trace.create(GuestProfiler.class);
+
+    public static final boolean ENABLED = Options.getString(Options.PROFILE) != null;
+
+    private static final int HOT_COUNT = 25;
+
+    private final AMD64Context ctx;
+    private final Assumption singleThreaded;
+    private final String filename;
+    private final long interval;
+
+    private final int profileState;
+
+    private final ProfileState main;
+    private final List<ProfileState> states = new CopyOnWriteArrayList<>();
+
+    private final Map<StackKey, long[]> stacks = new HashMap<>();
+    private final Map<Long, long[]> blocks = new HashMap<>();
+    private long samples;
+
+    private Thread sampler;
+    private volatile boolean running;
+
+    private GuestProfiler(AMD64Context ctx, String filename, long interval) {
+        this.ctx = ctx;
+        this.filename = filename;
+        this.interval = interval;
+        singleThreaded = ctx.getSingleThreadedAssumption();
+        profileState = ctx.getProfileState();
+        main = new ProfileState(null);
+    }
+
+    public static GuestProfiler create(AMD64Context ctx) {
+        if (!ENABLED) {
+            return null;
+        }
+        String filename = Options.getString(Options.PROFILE);
+        long interval = Options.getLong(Options.PROFILE_INTERVAL);
+        return new GuestProfiler(ctx, filename, interval);
+    }
+
+    public ProfileState getMainState() {
+        return main;
+    }
+
+    /**
+     * Create the state of a new guest thread. This is called once when the thread starts, the state
+     * is then passed along with the {@link org.graalvm.vm.x86.isa.CpuState} and kept in a frame
+     * slot.
+     */
+    @TruffleBoundary
+    public ProfileState createThreadState() {
+        ProfileState state = new ProfileState(Thread.currentThread());
+        states.add(state);
+        return state;
+    }
+
+    /**
+     * Get the state of the current guest thread. As long as the guest is single threaded, this is
+     * a constant in compiled code, otherwise it is read from the frame.
+     */
+    public ProfileState getState(VirtualFrame frame) {
+        if (singleThreaded.isValid()) {
+            return main;
+        } else {
+            return (ProfileState) frame.getObject(profileState);
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        sampler = new Thread(this::run, "vmx86-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void run() {
+        long nanos = TimeUnit.MICROSECONDS.toNanos(interval);
+        while (running) {
+            LockSupport.parkNanos(nanos);
+            synchronized (this) {
+                sample(main);
+                for (ProfileState state : states) {
+                    if (state.thread.isAlive()) {
+                        sample(state);
+                    }
+                }
+            }
+        }
+    }
+
+    private void sample(ProfileState state) {
+        long pc = state.pc;
+        if (pc == 0) {
+            return;
+        }
+        int depth = Math.max(0, Math.min(state.depth, ProfileState.MAX_DEPTH));
+        long[] frames = Arrays.copyOf(state.targets, depth);
+        samples++;
+        blocks.computeIfAbsent(pc, x -> new long[1])[0]++;
+        stacks.computeIfAbsent(new StackKey(frames, pc), x -> new long[1])[0]++;
+    }
+
+    private String getName(long pc) {
+        Symbol sym = ctx.getSymbolResolver().getSymbol(pc);
+        if (sym != null) {
+            return sym.getName();
+        }
+        PosixEnvironment posix = ctx.getPosixEnvironment();
+        sym = posix.getSymbol(pc);
+        if (sym != null) {
+            return sym.getName();
+        }
+        String file = posix.getFilename(pc);
+        long base = posix.getBase(pc);
+        if (file != null && base != -1) {
+            return String.format("%s+0x%x", file.substring(file.lastIndexOf('/') + 1), pc - base);
+        }
+        return String.format("0x%x", pc);
+    }
+
+    private String getLocation(long pc) {
+        Symbol sym = ctx.getSymbolResolver().getSymbol(pc);
+        if (sym == null) {
+            sym = ctx.getPosixEnvironment().getSymbol(pc);
+        }
+        if (sym != null) {
+            return String.format("0x%016x <%s+0x%x>", pc, sym.getName(), pc - sym.getValue());
+        } else {
+            return String.format("0x%016x <%s>", pc, getName(pc));
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void stop() {
+        running = false;
+        if (sampler != null) {
+            sampler.interrupt();
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(filename))) {
+            writeCollapsed(out);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot write profile: " + e.getMessage(), e);
+        }
+        printHotList(Trace.log);
+    }
+
+    private void writeCollapsed(PrintStream out) {
+        Map<String, Long> collapsed = new HashMap<>();
+        for (Entry<StackKey, long[]> entry : stacks.entrySet()) {
+            StackKey key = entry.getKey();
+            StringBuilder buf = new StringBuilder();
+            String last = null;
+            for (long frame : key.frames) {
+                last = getName(frame);
+                if (buf.length() > 0) {
+                    buf.append(';');
+                }
+                buf.append(last);
+            }
+            String leaf = getName(key.pc);
+            if (!leaf.equals(last)) {
+                if (buf.length() > 0) {
+                    buf.append(';');
+                }
+                buf.append(leaf);
+            }
+            collapsed.merge(buf.toString(), entry.getValue()[0], Long::sum);
+        }
+        for (Entry<String, Long> entry : collapsed.entrySet()) {
+            out.println(entry.getKey() + " " + entry.getValue());
+        }
+    }
+
+    private static <T> List<Entry<T, Long>> top(Map<T, Long> counts) {
+        List<Entry<T, Long>> result = new ArrayList<>(counts.entrySet());
+        result.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return result.subList(0, Math.min(HOT_COUNT, result.size()));
+    }
+
+    private void printHotList(PrintStream out) {
+        Map<String, Long> functions = new HashMap<>();
+        Map<Long, Long> hotBlocks = new HashMap<>();
+        for (Entry<Long, long[]> entry : blocks.entrySet()) {
+            functions.merge(getName(entry.getKey()), entry.getValue()[0], Long::sum);
+            hotBlocks.put(entry.getKey(), entry.getValue()[0]);
+        }
+        out.printf("Profile: %d samples\n", samples);
+        if (samples == 0) {
+            return;
+        }
+        out.println("Hot functions (self):");
+        for (Entry<String, Long> entry : top(functions)) {
+            out.printf("%6.2f%% %10d %s\n", 100.0 * entry.getValue() / samples, entry.getValue(), entry.getKey());
+        }
+        out.println("Hot basic blocks:");
+        for (Entry<Long, Long> entry : top(hotBlocks)) {
+            out.printf("%6.2f%% %10d %s\n", 100.0 * entry.getValue() / samples, entry.getValue(), getLocation(entry.getKey()));
+        }
+    }
+
+    private static final class StackKey {
+        final long[] frames;
+        final long pc;
+        private final int hash;
+
+        StackKey(long[] frames, long pc) {
+            this.frames = frames;
+            this.pc = pc;
+            this.hash = Arrays.hashCode(frames) * 31 + Long.hashCode(pc);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StackKey)) {
+                return false;
+            }
+            StackKey k = (StackKey) o;
+            return k.pc == pc && Arrays.equals(k.frames, frames);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.profiler;
+
+/**
+ * Per thread state which is published for the sampler: the address of the current basic block and
+ * a shadow call stack maintained by call/ret. The fields are written without synchronization; the
+ * sampler may see a slightly outdated or torn state, which is acceptable for a statistical
+ * profile and keeps the cost on the guest side at a few plain stores.
+ */
+public final class ProfileState {
+    public static final int MAX_DEPTH = 256;
+
+    final Thread thread;
+
+    long pc;
+    int depth;
+    final long[] targets = new long[MAX_DEPTH];
+    final long[] sps = new long[MAX_DEPTH];
+
+    ProfileState(Thread thread) {
+        this.thread = thread;
+    }
+
+    public void enter(long address) {
+        pc = address;
+    }
+
+    public void call(long target, long sp) {
+        int d = depth;
+        if (d < MAX_DEPTH) {
+            targets[d] = target;
+            sps[d] = sp;
+        }
+        depth = d + 1;
+    }
+
+    public void ret(long sp) {
+        int d = depth;
+        if (d > MAX_DEPTH) {
+            depth = d - 1;
+            return;
+        }
+        // also drop frames which were left without ret (longjmp, exceptions)
+        while (d > 0 && Long.compareUnsigned(sps[d - 1], sp) <= 0) {
+            d--;
+        }
+        depth = d;
+    }
+}
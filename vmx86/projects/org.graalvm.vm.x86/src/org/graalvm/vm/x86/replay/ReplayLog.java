@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import org.graalvm.vm.memory.MemoryAccessListener;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.util.log.Trace;
+import org.graalvm.vm.x86.Options;
+import org.graalvm.vm.x86.posix.PosixEnvironment;
+import org.graalvm.vm.x86.posix.SyscallException;
+import org.graalvm.vm.x86.posix.Syscalls;
+
+/**
+ * Log of all nondeterministic inputs of a guest execution. In record mode, the results of
+ * syscalls, the guest memory written by them and the values returned by rdtsc/rdrand are written
+ * to the log. In replay mode, those events are taken from the log instead of the host, which
+ * reproduces the recorded execution without the original environment. This allows to run the guest
+ * at full speed and produce an execution trace afterwards.
+ *
+ * Only single threaded guests are supported. cpuid is not recorded since its results are fixed by
+ * the VM.
+ */
+public abstract class ReplayLog implements Closeable {
+    private static final Logger log = Trace.create(ReplayLog.class);
+
+    protected static final int MAGIC = 0x56585252; // VXRR
+    protected static final int VERSION = 1;
+
+    protected static final byte EVENT_EOF = 0;
+    protected static final byte EVENT_START = 1;
+    protected static final byte EVENT_SYSCALL = 2;
+    protected static final byte EVENT_RDTSC = 3;
+    protected static final byte EVENT_RDRAND = 4;
+
+    protected final VirtualMemory memory;
+    protected final PosixEnvironment posix;
+
+    public interface SyscallHandler {
+        long execute() throws SyscallException;
+    }
+
+    protected ReplayLog(VirtualMemory memory, PosixEnvironment posix) {
+        this.memory = memory;
+        this.posix = posix;
+    }
+
+    public static ReplayLog create(VirtualMemory memory, PosixEnvironment posix, MemoryAccessListener tracer) {
+        String record = Options.getString(Options.RECORD);
+        String replay = Options.getString(Options.REPLAY);
+        if (record != null && replay != null) {
+            throw new IllegalArgumentException("cannot record and replay at the same time");
+        }
+        try {
+            if (record != null) {
+                log.info("Recording nondeterministic events to " + record);
+                return new ReplayRecorder(memory, posix, new BufferedOutputStream(new FileOutputStream(record)), tracer);
+            } else if (replay != null) {
+                log.info("Replaying nondeterministic events from " + replay);
+                return new ReplayPlayer(memory, posix, new BufferedInputStream(new FileInputStream(replay)));
+            } else {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Syscalls which only operate on the state of the VM itself. Those are deterministic and are
+     * executed in both modes without being recorded.
+     */
+    protected static boolean isInternal(int nr, long flags) {
+        switch (nr) {
+            case Syscalls.SYS_mmap:
+                return (flags & Mman.MAP_ANONYMOUS) != 0;
+            case Syscalls.SYS_mprotect:
+            case Syscalls.SYS_munmap:
+            case Syscalls.SYS_brk:
+            case Syscalls.SYS_rt_sigaction:
+            case Syscalls.SYS_rt_sigprocmask:
+            case Syscalls.SYS_sigaltstack:
+            case Syscalls.SYS_set_tid_address:
+            case Syscalls.SYS_set_robust_list:
+            case Syscalls.SYS_exit:
+            case Syscalls.SYS_exit_group:
+            case Syscalls.SYS_tgkill:
+            case Syscalls.SYS_DEBUG:
+            case Syscalls.SYS_PRINTK:
+            case Syscalls.SYS_interop_init:
+            case Syscalls.SYS_interop_return:
+            case Syscalls.SYS_interop_error:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public abstract boolean isRecording();
+
+    /**
+     * Called once the initial process image is set up with the initial stack pointer. Returns the
+     * stack pointer which has to be used.
+     */
+    public abstract long start(long sp);
+
+    public abstract long syscall(int nr, long pc, long a1, long a2, long a3, long a4, long a5, long a6, SyscallHandler handler) throws SyscallException;
+
+    public abstract long rdtsc(long value);
+
+    public abstract long rdrand(long value);
+
+    protected void write(long address, byte[] data) {
+        long ptr = address;
+        int i = 0;
+        for (; i + 8 <= data.length; i += 8, ptr += 8) {
+            long value = 0;
+            for (int j = 7; j >= 0; j--) {
+                value = (value << 8) | Byte.toUnsignedLong(data[i + j]);
+            }
+            memory.setI64(ptr, value);
+        }
+        for (; i < data.length; i++, ptr++) {
+            memory.setI8(ptr, data[i]);
+        }
+    }
+
+    protected byte[] read(long address, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = memory.getI8X(address + i);
+        }
+        return data;
+    }
+
+    @Override
+    public abstract void close() throws IOException;
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.posix.api.Errno;
+import org.graalvm.vm.posix.api.PosixException;
+import org.graalvm.vm.posix.api.mem.Mman;
+import org.graalvm.vm.util.BitTest;
+import org.graalvm.vm.util.io.BEInputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.x86.posix.PosixEnvironment;
+import org.graalvm.vm.x86.posix.SyscallException;
+import org.graalvm.vm.x86.posix.SyscallNames;
+import org.graalvm.vm.x86.posix.Syscalls;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Reads the replay log and feeds the recorded events back into the guest. Memory written by
+ * recorded syscalls is written through the regular memory interface so that an execution trace
+ * written during replay contains the same memory events as a trace of the original run.
+ */
+public class ReplayPlayer extends ReplayLog {
+    private final WordInputStream in;
+
+    public ReplayPlayer(VirtualMemory memory, PosixEnvironment posix, InputStream in) throws IOException {
+        super(memory, posix);
+        this.in = new BEInputStream(in);
+        int magic = this.in.read32bit();
+        if (magic != MAGIC) {
+            throw new IOException("not a replay log");
+        }
+        int version = this.in.read32bit();
+        if (version != VERSION) {
+            throw new IOException("unsupported replay log version " + version);
+        }
+    }
+
+    @Override
+    public boolean isRecording() {
+        return false;
+    }
+
+    private void expect(byte type) throws IOException {
+        int event;
+        try {
+            event = in.read8bit();
+        } catch (EOFException e) {
+            event = EVENT_EOF;
+        }
+        if (event != type) {
+            throw new ReplayDivergenceException("expected event " + type + ", got " + event);
+        }
+    }
+
+    private byte[] readArray() throws IOException {
+        int length = in.read32bit();
+        byte[] data = new byte[length];
+        in.read(data);
+        return data;
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long start(long sp) {
+        try {
+            expect(EVENT_START);
+            long recordedSP = in.read64bit();
+            write(recordedSP, readArray());
+            return recordedSP;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long syscall(int nr, long pc, long a1, long a2, long a3, long a4, long a5, long a6, SyscallHandler handler) throws SyscallException {
+        if (isInternal(nr, a4)) {
+            return handler.execute();
+        }
+
+        try {
+            expect(EVENT_SYSCALL);
+            int recordedNr = in.read32bit();
+            long recordedPC = in.read64bit();
+            if (recordedNr != nr || recordedPC != pc) {
+                throw new ReplayDivergenceException(String.format("expected syscall %s at 0x%016x, got %s at 0x%016x", SyscallNames.getName(recordedNr), recordedPC, SyscallNames.getName(nr), pc));
+            }
+            boolean failed = in.read8bit() != 0;
+            long result = in.read64bit();
+
+            int prot = (int) a3;
+            if (nr == Syscalls.SYS_mmap && !failed) {
+                // map anonymous memory at the recorded address, the content is part of the log; the
+                // anonymous pages are created writable, the recorded protection is only passed on to
+                // the execution trace here and applied once the content is copied in
+                posix.mmap(result, a2, prot, (int) a4 | Mman.MAP_FIXED | Mman.MAP_ANONYMOUS, -1, 0);
+            }
+
+            int writes = in.read32bit();
+            for (int i = 0; i < writes; i++) {
+                long address = in.read64bit();
+                write(address, readArray());
+            }
+
+            if (nr == Syscalls.SYS_mmap && !failed) {
+                try {
+                    memory.mprotect(result, a2, BitTest.test(prot, Mman.PROT_READ), BitTest.test(prot, Mman.PROT_WRITE), BitTest.test(prot, Mman.PROT_EXEC));
+                } catch (PosixException e) {
+                    throw new ReplayDivergenceException(String.format("cannot protect replayed mapping at 0x%016x: %s", result, Errno.toString(e.getErrno())));
+                }
+            }
+
+            if (failed) {
+                throw new SyscallException(result);
+            } else {
+                return result;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long value(byte type) {
+        try {
+            expect(type);
+            return in.read64bit();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long rdtsc(long value) {
+        return value(EVENT_RDTSC);
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long rdrand(long value) {
+        return value(EVENT_RDRAND);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.memory.MemoryAccessListener;
+import org.graalvm.vm.memory.VirtualMemory;
+import org.graalvm.vm.memory.vector.Vector128;
+import org.graalvm.vm.memory.vector.Vector256;
+import org.graalvm.vm.memory.vector.Vector512;
+import org.graalvm.vm.util.io.BEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+import org.graalvm.vm.x86.AMD64;
+import org.graalvm.vm.x86.posix.PosixEnvironment;
+import org.graalvm.vm.x86.posix.SyscallException;
+import org.graalvm.vm.x86.posix.Syscalls;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Writes the replay log. Memory written by a syscall is captured through the access logger of the
+ * virtual memory, which is only switched on while a syscall executes (unless an execution trace is
+ * written at the same time, in which case all accesses are forwarded to the tracer).
+ */
+public class ReplayRecorder extends ReplayLog implements MemoryAccessListener {
+    // file mappings are logged in chunks, the length of a logged array is a 32bit value
+    private static final int MMAP_CHUNK = 1024 * 1024;
+
+    private final WordOutputStream out;
+    private final MemoryAccessListener tracer;
+
+    private boolean capture;
+    private final List<Long> writeAddresses = new ArrayList<>();
+    private final List<byte[]> writeData = new ArrayList<>();
+    private final ByteArrayOutputStream run = new ByteArrayOutputStream();
+    private long runStart;
+    private long runEnd;
+
+    public ReplayRecorder(VirtualMemory memory, PosixEnvironment posix, OutputStream out) throws IOException {
+        this(memory, posix, out, null);
+    }
+
+    public ReplayRecorder(VirtualMemory memory, PosixEnvironment posix, OutputStream out, MemoryAccessListener tracer) throws IOException {
+        super(memory, posix);
+        this.out = new BEOutputStream(out);
+        this.tracer = tracer;
+        this.out.write32bit(MAGIC);
+        this.out.write32bit(VERSION);
+        memory.setAccessLogger(this);
+        if (tracer == null) {
+            memory.setAccessTrace(false);
+        }
+    }
+
+    @Override
+    public boolean isRecording() {
+        return true;
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long start(long sp) {
+        try {
+            out.write8bit(EVENT_START);
+            out.write64bit(sp);
+            writeArray(read(sp, (int) (AMD64.STACK_ADDRESS - sp)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return sp;
+    }
+
+    private void writeArray(byte[] data) throws IOException {
+        out.write32bit(data.length);
+        out.write(data);
+    }
+
+    private void flushRun() {
+        if (run.size() > 0) {
+            writeAddresses.add(runStart);
+            writeData.add(run.toByteArray());
+            run.reset();
+        }
+    }
+
+    private void captureWrite(long address, int size, long value) {
+        if (run.size() == 0 || address != runEnd) {
+            flushRun();
+            runStart = address;
+        }
+        for (int i = 0; i < size; i++) {
+            run.write((byte) (value >> (8 * i)));
+        }
+        runEnd = address + size;
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long syscall(int nr, long pc, long a1, long a2, long a3, long a4, long a5, long a6, SyscallHandler handler) throws SyscallException {
+        if (isInternal(nr, a4)) {
+            return handler.execute();
+        }
+
+        writeAddresses.clear();
+        writeData.clear();
+        run.reset();
+
+        long result;
+        boolean failed = false;
+        boolean wasEnabled = memory.setAccessTrace(true);
+        capture = true;
+        try {
+            result = handler.execute();
+        } catch (SyscallException e) {
+            failed = true;
+            result = e.getValue();
+        } finally {
+            capture = false;
+            memory.setAccessTrace(wasEnabled);
+        }
+        flushRun();
+
+        if (nr == Syscalls.SYS_mmap && !failed) {
+            // file mapping: the content is not available during replay
+            for (long off = 0; off < a2; off += MMAP_CHUNK) {
+                writeAddresses.add(result + off);
+                writeData.add(read(result + off, (int) Math.min(a2 - off, MMAP_CHUNK)));
+            }
+        }
+
+        try {
+            out.write8bit(EVENT_SYSCALL);
+            out.write32bit(nr);
+            out.write64bit(pc);
+            out.write8bit((byte) (failed ? 1 : 0));
+            out.write64bit(result);
+            out.write32bit(writeAddresses.size());
+            for (int i = 0; i < writeAddresses.size(); i++) {
+                out.write64bit(writeAddresses.get(i));
+                writeArray(writeData.get(i));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (failed) {
+            throw new SyscallException(result);
+        } else {
+            return result;
+        }
+    }
+
+    private long value(byte type, long value) {
+        try {
+            out.write8bit(type);
+            out.write64bit(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return value;
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long rdtsc(long value) {
+        return value(EVENT_RDTSC, value);
+    }
+
+    @TruffleBoundary
+    @Override
+    public synchronized long rdrand(long value) {
+        return value(EVENT_RDRAND, value);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.write8bit(EVENT_EOF);
+        out.close();
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryRead(long address, int size) {
+        if (tracer != null) {
+            tracer.logMemoryRead(address, size);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryRead(long address, int size, long value) {
+        if (tracer != null) {
+            tracer.logMemoryRead(address, size, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryRead(long address, Vector128 value) {
+        if (tracer != null) {
+            tracer.logMemoryRead(address, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryRead(long address, Vector256 value) {
+        if (tracer != null) {
+            tracer.logMemoryRead(address, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryRead(long address, Vector512 value) {
+        if (tracer != null) {
+            tracer.logMemoryRead(address, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryWrite(long address, int size, long value) {
+        if (capture) {
+            captureWrite(address, size, value);
+        }
+        if (tracer != null) {
+            tracer.logMemoryWrite(address, size, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryWrite(long address, Vector128 value) {
+        if (capture) {
+            captureWrite(address, 8, value.getI64(1));
+            captureWrite(address + 8, 8, value.getI64(0));
+        }
+        if (tracer != null) {
+            tracer.logMemoryWrite(address, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryWrite(long address, Vector256 value) {
+        if (capture) {
+            for (int i = 0; i < 4; i++) {
+                captureWrite(address + 8 * i, 8, value.getI64(3 - i));
+            }
+        }
+        if (tracer != null) {
+            tracer.logMemoryWrite(address, value);
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public void logMemoryWrite(long address, Vector512 value) {
+        if (capture) {
+            for (int i = 0; i < 8; i++) {
+                captureWrite(address + 8 * i, 8, value.getI64(7 - i));
+            }
+        }
+        if (tracer != null) {
+            tracer.logMemoryWrite(address, value);
+        }
+    }
+}
@@ -41,6 +41,7 @@
 package org.graalvm.vm.x86.substitution;
 
 import org.graalvm.vm.memory.exception.SegmentationViolation;
+import org.graalvm.vm.util.HexFormatter;
 import org.graalvm.vm.x86.isa.CodeReader;
 
 public class Signature {
@@ -62,10 +63,26 @@ public class Signature {
         this.mask = mask;
     }
 
+    public static boolean[] mask(int length, int... wildcards) {
+        boolean[] mask = new boolean[length];
+        for (int offset : wildcards) {
+            mask[offset] = true;
+        }
+        return mask;
+    }
+
     public byte[] getSignature() {
         return signature;
     }
 
+    public int getLength() {
+        return signature.length;
+    }
+
+    public boolean isWildcard(int offset) {
+        return mask != null && mask[offset];
+    }
+
     public byte getFirstByte() {
         return signature[0];
     }
@@ -94,4 +111,16 @@ public class Signature {
             return false;
         }
     }
+
+    // consumes the signature; the result contains the actual code bytes at wildcard positions
+    public byte[] check(CodeReader reader) {
+        byte[] code = new byte[signature.length];
+        for (int i = 0; i < signature.length; i++) {
+            code[i] = reader.read8();
+            if (code[i] != signature[i] && !isWildcard(i)) {
+                throw new AssertionError("data mismatch at 0x" + HexFormatter.tohex(reader.getPC(), 16));
+            }
+        }
+        return code;
+    }
 }
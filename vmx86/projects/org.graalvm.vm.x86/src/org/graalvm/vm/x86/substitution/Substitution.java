@@ -40,11 +40,15 @@
  */
 package org.graalvm.vm.x86.substitution;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.graalvm.vm.x86.isa.AMD64Instruction;
 import org.graalvm.vm.x86.isa.CodeReader;
 
 public abstract class Substitution {
     private final Signature signature;
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
 
     protected Substitution(byte[] signature) {
         this(new Signature(signature));
@@ -62,5 +66,30 @@ public abstract class Substitution {
         return signature;
     }
 
+    public String getName() {
+        String name = getClass().getSimpleName();
+        if (name.isEmpty()) {
+            return getClass().getName();
+        } else {
+            return name;
+        }
+    }
+
+    public void match() {
+        matches.incrementAndGet();
+    }
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public long getMatches() {
+        return matches.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
     public abstract AMD64Instruction createNode(long pc, CodeReader reader);
 }
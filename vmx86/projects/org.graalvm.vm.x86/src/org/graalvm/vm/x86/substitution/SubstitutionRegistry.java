@@ -40,37 +40,123 @@
  */
 package org.graalvm.vm.x86.substitution;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.graalvm.vm.memory.exception.SegmentationViolation;
 import org.graalvm.vm.x86.isa.CodeReader;
 import org.graalvm.vm.x86.substitution.libc.Glibc228;
+import org.graalvm.vm.x86.substitution.libc.Glibc236;
 
 public class SubstitutionRegistry {
-    @SuppressWarnings("unchecked") private final List<Substitution>[] signatures = new ArrayList[256];
+    private final TrieNode root = new TrieNode();
+    private final List<Substitution> substitutions = new ArrayList<>();
 
     public SubstitutionRegistry() {
-        for (int i = 0; i < signatures.length; i++) {
-            signatures[i] = new ArrayList<>();
-        }
         Glibc228.register(this);
+        Glibc236.register(this);
     }
 
     public void register(Substitution substitution) {
-        signatures[Byte.toUnsignedInt(substitution.getSignature().getFirstByte())].add(substitution);
+        Signature signature = substitution.getSignature();
+        TrieNode node = root;
+        for (int i = 0; i < signature.getLength(); i++) {
+            if (signature.isWildcard(i)) {
+                node = node.getWildcard();
+            } else {
+                node = node.getChild(signature.getSignature()[i]);
+            }
+        }
+        // first registration wins, just like the old linear scan
+        if (node.substitution == null) {
+            node.substitution = substitution;
+        }
+        substitutions.add(substitution);
     }
 
-    public List<Substitution> getSubstitutions(byte initial) {
-        return signatures[Byte.toUnsignedInt(initial)];
+    public List<Substitution> getSubstitutions() {
+        return Collections.unmodifiableList(substitutions);
     }
 
     public Substitution getSubstitution(CodeReader reader) {
-        List<Substitution> candidates = getSubstitutions(reader.peek8(0));
-        for (Substitution candidate : candidates) {
-            if (candidate.getSignature().match(reader)) {
-                return candidate;
+        Substitution result = match(root, reader, 0);
+        if (result != null) {
+            result.match();
+        }
+        return result;
+    }
+
+    // returns the longest (most specific) signature which matches the code
+    private static Substitution match(TrieNode node, CodeReader reader, int offset) {
+        Substitution result = null;
+        if (node.keys.length > 0 || node.wildcard != null) {
+            byte b;
+            try {
+                b = reader.peek8(offset);
+            } catch (SegmentationViolation e) {
+                return node.substitution;
+            }
+            TrieNode child = node.findChild(b);
+            if (child != null) {
+                result = match(child, reader, offset + 1);
+            }
+            if (result == null && node.wildcard != null) {
+                result = match(node.wildcard, reader, offset + 1);
+            }
+        }
+        if (result != null) {
+            return result;
+        } else {
+            return node.substitution;
+        }
+    }
+
+    public void printStatistics(PrintStream out) {
+        out.println("Substitution statistics:");
+        for (Substitution substitution : substitutions) {
+            out.printf("%-40s %10d matches %16d calls\n", substitution.getName(), substitution.getMatches(), substitution.getHits());
+        }
+    }
+
+    private static class TrieNode {
+        private byte[] keys = new byte[0];
+        private TrieNode[] children = new TrieNode[0];
+        private TrieNode wildcard;
+        private Substitution substitution;
+
+        TrieNode findChild(byte key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        TrieNode getChild(byte key) {
+            TrieNode child = findChild(key);
+            if (child == null) {
+                int n = keys.length;
+                byte[] newKeys = new byte[n + 1];
+                TrieNode[] newChildren = new TrieNode[n + 1];
+                System.arraycopy(keys, 0, newKeys, 0, n);
+                System.arraycopy(children, 0, newChildren, 0, n);
+                child = new TrieNode();
+                newKeys[n] = key;
+                newChildren[n] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+            return child;
+        }
+
+        TrieNode getWildcard() {
+            if (wildcard == null) {
+                wildcard = new TrieNode();
             }
+            return wildcard;
         }
-        return null;
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.substitution;
+
+import org.graalvm.vm.x86.isa.AMD64Instruction;
+import org.graalvm.vm.x86.isa.Register;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+// counts the calls of a substituted function; only used with vmx86.exec.subst.trace
+public class TracedSubstitution extends AMD64Instruction {
+    private final Substitution substitution;
+
+    @Child private AMD64Instruction insn;
+
+    public TracedSubstitution(Substitution substitution, AMD64Instruction insn) {
+        super(insn.getPC(), insn.getBytes());
+        this.substitution = substitution;
+        this.insn = insn;
+    }
+
+    @Override
+    protected void createChildNodes() {
+        insn.createChildren();
+    }
+
+    @Override
+    public long executeInstruction(VirtualFrame frame) {
+        substitution.hit();
+        return insn.executeInstruction(frame);
+    }
+
+    @Override
+    public Register[] getUsedGPRRead() {
+        return insn.getUsedGPRRead();
+    }
+
+    @Override
+    public Register[] getUsedGPRWrite() {
+        return insn.getUsedGPRWrite();
+    }
+
+    @Override
+    public int[] getUsedAVXRead() {
+        return insn.getUsedAVXRead();
+    }
+
+    @Override
+    public int[] getUsedAVXWrite() {
+        return insn.getUsedAVXWrite();
+    }
+
+    @Override
+    public boolean isControlFlow() {
+        return insn.isControlFlow();
+    }
+
+    @Override
+    public long[] getBTA() {
+        return insn.getBTA();
+    }
+
+    @Override
+    protected String[] disassemble() {
+        return insn.getDisassemblyComponents();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.substitution.intrinsics;
+
+import org.graalvm.vm.x86.node.AMD64Node;
+import org.graalvm.vm.x86.node.MemoryReadNode;
+import org.graalvm.vm.x86.node.MemoryWriteNode;
+
+// bulk memory operations which work on 64bit words wherever possible
+public class FastMemory extends AMD64Node {
+    private static final long LOMAGIC = 0x0101010101010101L;
+    private static final long HIMAGIC = 0x8080808080808080L;
+
+    @Child private MemoryReadNode readMemory;
+    @Child private MemoryWriteNode writeMemory;
+
+    public FastMemory(MemoryReadNode readMemory, MemoryWriteNode writeMemory) {
+        this.readMemory = readMemory;
+        this.writeMemory = writeMemory;
+    }
+
+    // memmove semantics: overlapping regions are handled correctly
+    public void copy(long dst, long src, long n) {
+        if (Long.compareUnsigned(dst - src, n) >= 0) {
+            // no overlap or dst < src: forward copy
+            long i = 0;
+            for (; n - i >= 8; i += 8) {
+                writeMemory.executeI64(dst + i, readMemory.executeI64(src + i));
+            }
+            for (; i < n; i++) {
+                writeMemory.executeI8(dst + i, readMemory.executeI8(src + i));
+            }
+        } else {
+            // dst overlaps the end of src: backward copy
+            long i = n;
+            for (; i >= 8; i -= 8) {
+                writeMemory.executeI64(dst + i - 8, readMemory.executeI64(src + i - 8));
+            }
+            for (; i > 0; i--) {
+                writeMemory.executeI8(dst + i - 1, readMemory.executeI8(src + i - 1));
+            }
+        }
+    }
+
+    public void fill(long dst, byte value, long n) {
+        long pattern = Byte.toUnsignedLong(value) * LOMAGIC;
+        long i = 0;
+        for (; n - i >= 8; i += 8) {
+            writeMemory.executeI64(dst + i, pattern);
+        }
+        for (; i < n; i++) {
+            writeMemory.executeI8(dst + i, value);
+        }
+    }
+
+    // returns the difference of the first mismatching (unsigned) bytes or 0
+    public int compare(long s1, long s2, long n) {
+        long i = 0;
+        for (; n - i >= 8; i += 8) {
+            long a = readMemory.executeI64(s1 + i);
+            long b = readMemory.executeI64(s2 + i);
+            if (a != b) {
+                // little endian: the lowest differing byte is the first one in memory
+                int shift = Long.numberOfTrailingZeros(a ^ b) & ~7;
+                return (int) ((a >>> shift) & 0xFF) - (int) ((b >>> shift) & 0xFF);
+            }
+        }
+        for (; i < n; i++) {
+            int a = Byte.toUnsignedInt(readMemory.executeI8(s1 + i));
+            int b = Byte.toUnsignedInt(readMemory.executeI8(s2 + i));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    // returns the address of the first occurrence of value or 0
+    public long find(long ptr, byte value, long n) {
+        if (n == 0) {
+            return 0;
+        }
+        long pattern = Byte.toUnsignedLong(value) * LOMAGIC;
+        // Only aligned words are read: memory after the first match may be unmapped, but an aligned
+        // word never crosses a page. The bytes before ptr are set to 0xFF, which neither matches
+        // nor borrows into the next byte, so they cannot produce a false match.
+        long offset = -(ptr & 7);
+        long word = (readMemory.executeI64(ptr + offset) ^ pattern) | ((1L << (-offset << 3)) - 1);
+        while (true) {
+            long zero = (word - LOMAGIC) & ~word & HIMAGIC;
+            if (zero != 0) {
+                // the lowest flagged byte is always an exact match
+                long i = offset + (Long.numberOfTrailingZeros(zero) >>> 3);
+                return Long.compareUnsigned(i, n) < 0 ? ptr + i : 0;
+            }
+            offset += 8;
+            if (Long.compareUnsigned(offset, n) >= 0) {
+                return 0;
+            }
+            word = readMemory.executeI64(ptr + offset) ^ pattern;
+        }
+    }
+}
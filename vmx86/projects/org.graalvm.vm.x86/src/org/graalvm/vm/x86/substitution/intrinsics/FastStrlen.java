@@ -65,10 +65,10 @@ public class FastStrlen extends AMD64Node {
         long lomagic = 0x0101010101010101L;
 
         while (true) {
-            long longword = memory.executeI64(longwordPtr += 8);
+            long longword = memory.executeI64(longwordPtr);
 
             if (((longword - lomagic) & ~longword & himagic) != 0) {
-                long cp = (longwordPtr - 1);
+                long cp = longwordPtr;
 
                 if (memory.executeI8(cp + 0) == 0) {
                     return cp - str;
@@ -95,6 +95,8 @@ public class FastStrlen extends AMD64Node {
                     return cp - str + 7;
                 }
             }
+
+            longwordPtr += 8;
         }
     }
 }
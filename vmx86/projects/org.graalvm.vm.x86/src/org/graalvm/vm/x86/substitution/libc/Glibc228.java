@@ -42,11 +42,15 @@ package org.graalvm.vm.x86.substitution.libc;
 
 import org.graalvm.vm.x86.isa.AMD64Instruction;
 import org.graalvm.vm.x86.isa.CodeReader;
+import org.graalvm.vm.x86.substitution.Signature;
 import org.graalvm.vm.x86.substitution.Substitution;
 import org.graalvm.vm.x86.substitution.SubstitutionRegistry;
+import org.graalvm.vm.x86.substitution.intrinsics.Memchr;
 import org.graalvm.vm.x86.substitution.intrinsics.Strchrnul;
 import org.graalvm.vm.x86.substitution.intrinsics.Strcmp;
+import org.graalvm.vm.x86.substitution.intrinsics.Strcpy;
 import org.graalvm.vm.x86.substitution.intrinsics.Strlen;
+import org.graalvm.vm.x86.substitution.intrinsics.Strncmp;
 
 // glibc 2.28-5 on Archlinux
 public class Glibc228 {
@@ -382,9 +386,71 @@ public class Glibc228 {
         }
     }
 
+    // memchr.S, strcmp.S (as strncmp) and strcpy-sse2-unaligned.S are the same as in 2.36 apart from
+    // the endbr64 at the entry, so these signatures are the 2.36 code with all branch displacements
+    // as wildcards. They end before the first alignment padding. memmove, memset and memcmp were
+    // rewritten after 2.28 and have no signature for this version.
+    public static class Glibc228MemchrSse2 extends Substitution {
+        private static final byte[] SIGNATURE = {(byte) 0xf3, 0x0f, 0x1e, (byte) 0xfa, 0x66, 0x0f, 0x6e, (byte) 0xce, (byte) 0x89, (byte) 0xf9, 0x66, 0x0f, 0x60, (byte) 0xc9, 0x48, (byte) 0x85,
+                        (byte) 0xd2, 0x0f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x66, 0x0f, 0x60, (byte) 0xc9, (byte) 0x83, (byte) 0xe1, 0x3f, 0x66, 0x0f, 0x70, (byte) 0xc9, 0x00, (byte) 0x83,
+                        (byte) 0xf9, 0x30, 0x77, 0x00, (byte) 0xf3, 0x0f, 0x6f, 0x07, 0x66, 0x0f, 0x74, (byte) 0xc1, 0x66, 0x0f, (byte) 0xd7, (byte) 0xc0, (byte) 0x85, (byte) 0xc0, 0x0f, (byte) 0x85,
+                        0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xea, 0x10, 0x0f, (byte) 0x86, 0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xc7, 0x10, (byte) 0x83, (byte) 0xe1, 0x0f,
+                        0x48, (byte) 0x83, (byte) 0xe7, (byte) 0xf0, 0x48, 0x01, (byte) 0xca, 0x48, (byte) 0x83, (byte) 0xea, 0x40, 0x0f, (byte) 0x86, 0x00, 0x00, 0x00, 0x00, (byte) 0xeb, 0x00};
+        private static final int[] WILDCARDS = {19, 20, 21, 22, 39, 56, 57, 58, 59, 66, 67, 68, 69, 90, 91, 92, 93, 95};
+
+        public Glibc228MemchrSse2() {
+            super(SIGNATURE, Signature.mask(SIGNATURE.length, WILDCARDS));
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            return new Memchr(pc, getSignature().check(reader));
+        }
+    }
+
+    public static class Glibc228StrcpySse2Unaligned extends Substitution {
+        private static final byte[] SIGNATURE = {(byte) 0xf3, 0x0f, 0x1e, (byte) 0xfa, 0x48, (byte) 0x89, (byte) 0xf1, 0x48, (byte) 0x89, (byte) 0xf8, 0x48, (byte) 0x83, (byte) 0xe1, 0x3f, 0x48,
+                        (byte) 0x83, (byte) 0xf9, 0x20, 0x0f, (byte) 0x86, 0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xe6, (byte) 0xf0, 0x48, (byte) 0x83, (byte) 0xe1, 0x0f, 0x66, 0x0f,
+                        (byte) 0xef, (byte) 0xc0, 0x66, 0x0f, (byte) 0xef, (byte) 0xc9, 0x66, 0x0f, 0x74, 0x0e, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd1, 0x48, (byte) 0xd3, (byte) 0xea, 0x48, (byte) 0x85,
+                        (byte) 0xd2, 0x0f, (byte) 0x85, 0x00, 0x00, 0x00, 0x00, 0x66, 0x0f, 0x74, 0x46, 0x10, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd0, 0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x85,
+                        0x00, 0x00, 0x00, 0x00, (byte) 0xf3, 0x0f, 0x6f, 0x0c, 0x0e, (byte) 0xf3, 0x0f, 0x7f, 0x0f};
+        private static final int[] WILDCARDS = {20, 21, 22, 23, 56, 57, 58, 59, 74, 75, 76, 77};
+
+        public Glibc228StrcpySse2Unaligned() {
+            super(SIGNATURE, Signature.mask(SIGNATURE.length, WILDCARDS));
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            return new Strcpy(pc, getSignature().check(reader));
+        }
+    }
+
+    public static class Glibc228StrncmpSse2 extends Substitution {
+        private static final byte[] SIGNATURE = {(byte) 0xf3, 0x0f, 0x1e, (byte) 0xfa, 0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xfa, 0x01,
+                        0x0f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x49, (byte) 0x89, (byte) 0xd3, (byte) 0x89, (byte) 0xf1, (byte) 0x89, (byte) 0xf8, 0x48, (byte) 0x83, (byte) 0xe1, 0x3f, 0x48,
+                        (byte) 0x83, (byte) 0xe0, 0x3f, (byte) 0x83, (byte) 0xf9, 0x30, 0x77, 0x00, (byte) 0x83, (byte) 0xf8, 0x30, 0x77, 0x00, 0x66, 0x0f, 0x12, 0x0f, 0x66, 0x0f, 0x12, 0x16, 0x66,
+                        0x0f, 0x16, 0x4f, 0x08, 0x66, 0x0f, 0x16, 0x56, 0x08, 0x66, 0x0f, (byte) 0xef, (byte) 0xc0, 0x66, 0x0f, 0x74, (byte) 0xc1, 0x66, 0x0f, 0x74, (byte) 0xca, 0x66, 0x0f,
+                        (byte) 0xf8, (byte) 0xc8, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd1, (byte) 0x81, (byte) 0xea, (byte) 0xff, (byte) 0xff, 0x00, 0x00, 0x0f, (byte) 0x85, 0x00, 0x00, 0x00, 0x00, 0x49,
+                        (byte) 0x83, (byte) 0xeb, 0x10, 0x0f, (byte) 0x86, 0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xc6, 0x10, 0x48, (byte) 0x83, (byte) 0xc7, 0x10};
+        private static final int[] WILDCARDS = {9, 10, 11, 12, 19, 20, 21, 22, 42, 47, 94, 95, 96, 97, 104, 105, 106, 107};
+
+        public Glibc228StrncmpSse2() {
+            super(SIGNATURE, Signature.mask(SIGNATURE.length, WILDCARDS));
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            return new Strncmp(pc, getSignature().check(reader));
+        }
+    }
+
     public static void register(SubstitutionRegistry registry) {
         registry.register(new Glibc228StrlenSse2());
         registry.register(new Glibc228StrchrnulSse2());
         registry.register(new Glibc228StrcmpSse2());
+        registry.register(new Glibc228MemchrSse2());
+        registry.register(new Glibc228StrcpySse2Unaligned());
+        registry.register(new Glibc228StrncmpSse2());
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.vm.x86.substitution.libc;
+
+import org.graalvm.vm.x86.isa.AMD64Instruction;
+import org.graalvm.vm.x86.isa.CodeReader;
+import org.graalvm.vm.x86.substitution.Signature;
+import org.graalvm.vm.x86.substitution.Substitution;
+import org.graalvm.vm.x86.substitution.SubstitutionRegistry;
+import org.graalvm.vm.x86.substitution.intrinsics.Memchr;
+import org.graalvm.vm.x86.substitution.intrinsics.Memcmp;
+import org.graalvm.vm.x86.substitution.intrinsics.Memmove;
+import org.graalvm.vm.x86.substitution.intrinsics.Memset;
+import org.graalvm.vm.x86.substitution.intrinsics.Strcpy;
+import org.graalvm.vm.x86.substitution.intrinsics.Strncmp;
+
+// glibc 2.36-9 on Debian 12
+// The signatures are 72 to 147 bytes of each function from its entry on; all of them are unique
+// within libc.so.6 already after a fraction of that length. Where a signature reaches into a
+// neighboring entry point of the same object, the call to __chk_fail is a wildcard. __strcpy_sse2
+// and __stpcpy_sse2 share their entry and are therefore not substituted.
+// __memcpy_sse2_unaligned is an alias of __memmove_sse2_unaligned.
+public class Glibc236 {
+    public static class Glibc236MemmoveSse2Unaligned extends Substitution {
+        private static final byte[] SIGNATURE = {0x48, (byte) 0x89, (byte) 0xf8, 0x48, (byte) 0x83, (byte) 0xfa, 0x10, 0x0f, (byte) 0x82, (byte) 0xa3, 0x00, 0x00, 0x00, 0x0f, 0x10, 0x06, 0x48,
+                        (byte) 0x83, (byte) 0xfa, 0x20, 0x0f, (byte) 0x87, 0x03, 0x01, 0x00, 0x00, 0x0f, 0x10, 0x4c, 0x16, (byte) 0xf0, 0x0f, 0x11, 0x07, 0x0f, 0x11, 0x4c, 0x17, (byte) 0xf0,
+                        (byte) 0xc3, 0x0f, 0x1f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x00, 0x48, 0x39, (byte) 0xd1, 0x0f, (byte) 0x82, 0x00, 0x00, 0x00, 0x00, 0x0f, 0x1f, (byte) 0x80, 0x00, 0x00,
+                        0x00, 0x00, 0x48, (byte) 0x89, (byte) 0xf8, 0x48, 0x01, (byte) 0xd0, (byte) 0xeb, 0x4b};
+        private static final int[] WILDCARDS = {53, 54, 55, 56};
+
+        public Glibc236MemmoveSse2Unaligned() {
+            super(SIGNATURE, Signature.mask(SIGNATURE.length, WILDCARDS));
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            return new Memmove(pc, getSignature().check(reader));
+        }
+    }
+
+    public static class Glibc236MemsetSse2Unaligned extends Substitution {
+        private static final byte[] SIGNATURE = {0x66, 0x0f, 0x6e, (byte) 0xc6, 0x48, (byte) 0x89, (byte) 0xf8, 0x66, 0x0f, 0x60, (byte) 0xc0, 0x66, 0x0f, 0x61, (byte) 0xc0, 0x66, 0x0f, 0x70,
+                        (byte) 0xc0, 0x00, 0x48, (byte) 0x83, (byte) 0xfa, 0x10, 0x0f, (byte) 0x82, (byte) 0xe2, 0x00, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xfa, 0x20, 0x77, 0x65, 0x0f, 0x11, 0x44,
+                        0x17, (byte) 0xf0, 0x0f, 0x11, 0x07, (byte) 0xc3, 0x0f, 0x1f, 0x00, 0x48, 0x39, (byte) 0xd1, 0x0f, (byte) 0x82, 0x00, 0x00, 0x00, 0x00, 0x0f, 0x1f, (byte) 0x80, 0x00, 0x00,
+                        0x00, 0x00, 0x66, 0x0f, 0x6e, (byte) 0xc6, 0x48, (byte) 0x89, (byte) 0xf8, 0x66, 0x0f, 0x60, (byte) 0xc0, 0x66, 0x0f, 0x61, (byte) 0xc0, 0x66, 0x0f, 0x70, (byte) 0xc0, 0x00,
+                        0x48, (byte) 0x83, (byte) 0xfa, 0x10, 0x0f, (byte) 0x82, (byte) 0xa2, 0x00, 0x00, 0x00, 0x48, (byte) 0x83};
+        private static final int[] WILDCARDS = {53, 54, 55, 56};
+
+        public Glibc236MemsetSse2Unaligned() {
+            super(SIGNATURE, Signature.mask(SIGNATURE.length, WILDCARDS));
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            return new Memset(pc, getSignature().check(reader));
+        }
+    }
+
+    public static class Glibc236MemcmpSse2 extends Substitution {
+        private static final byte[] SIGNATURE = {0x48, (byte) 0x83, (byte) 0xfa, 0x10, 0x0f, (byte) 0x87, (byte) 0x96, 0x00, 0x00, 0x00, (byte) 0x83, (byte) 0xfa, 0x08, 0x77, 0x31, (byte) 0x83,
+                        (byte) 0xfa, 0x04, 0x72, 0x6c, (byte) 0x8b, 0x4c, 0x16, (byte) 0xfc, (byte) 0x8b, 0x44, 0x17, (byte) 0xfc, 0x48, (byte) 0xc1, (byte) 0xe1, 0x20, 0x48, (byte) 0xc1, (byte) 0xe0,
+                        0x20, (byte) 0x8b, 0x36, (byte) 0x8b, 0x3f, 0x48, 0x09, (byte) 0xf1, 0x48, 0x09, (byte) 0xf8, 0x48, 0x39, (byte) 0xc8, 0x75, 0x3d, 0x31, (byte) 0xc0, (byte) 0xc3, 0x66, 0x2e,
+                        0x0f, 0x1f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x00, 0x48, (byte) 0x8b, 0x0e, 0x48, (byte) 0x8b, 0x07, 0x48, 0x39, (byte) 0xc8, 0x75, 0x25, 0x48, (byte) 0x8b, 0x4c, 0x16,
+                        (byte) 0xf8, 0x48, (byte) 0x8b, 0x44, 0x17, (byte) 0xf8, 0x48, 0x39, (byte) 0xc8, 0x75, 0x16, 0x31, (byte) 0xc0, (byte) 0xc3, 0x0f, 0x1f, 0x00, 0x75, 0x09, 0x0f, (byte) 0xb6,
+                        0x07, 0x0f, (byte) 0xb6, 0x0e, 0x29, (byte) 0xc8, (byte) 0xc3, 0x31, (byte) 0xc0, (byte) 0xc3};
+
+        public Glibc236MemcmpSse2() {
+            super(SIGNATURE);
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            reader.check(SIGNATURE);
+            return new Memcmp(pc, SIGNATURE);
+        }
+    }
+
+    public static class Glibc236MemchrSse2 extends Substitution {
+        private static final byte[] SIGNATURE = {0x66, 0x0f, 0x6e, (byte) 0xce, (byte) 0x89, (byte) 0xf9, 0x66, 0x0f, 0x60, (byte) 0xc9, 0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x84, 0x0d, 0x03,
+                        0x00, 0x00, 0x66, 0x0f, 0x60, (byte) 0xc9, (byte) 0x83, (byte) 0xe1, 0x3f, 0x66, 0x0f, 0x70, (byte) 0xc9, 0x00, (byte) 0x83, (byte) 0xf9, 0x30, 0x77, 0x3c, (byte) 0xf3, 0x0f,
+                        0x6f, 0x07, 0x66, 0x0f, 0x74, (byte) 0xc1, 0x66, 0x0f, (byte) 0xd7, (byte) 0xc0, (byte) 0x85, (byte) 0xc0, 0x0f, (byte) 0x85, (byte) 0xa8, 0x02, 0x00, 0x00, 0x48, (byte) 0x83,
+                        (byte) 0xea, 0x10, 0x0f, (byte) 0x86, (byte) 0xde, 0x02, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xc7, 0x10, (byte) 0x83, (byte) 0xe1, 0x0f, 0x48, (byte) 0x83, (byte) 0xe7,
+                        (byte) 0xf0, 0x48, 0x01, (byte) 0xca, 0x48, (byte) 0x83, (byte) 0xea, 0x40, 0x0f, (byte) 0x86, (byte) 0xb6, 0x01, 0x00, 0x00, (byte) 0xeb, 0x54, 0x0f, 0x1f, 0x40, 0x00,
+                        (byte) 0x83, (byte) 0xe1, 0x0f, 0x48, (byte) 0x83, (byte) 0xe7, (byte) 0xf0, 0x66, 0x0f, 0x6f, 0x07, 0x66, 0x0f, 0x74, (byte) 0xc1, 0x66, 0x0f, (byte) 0xd7, (byte) 0xc0,
+                        (byte) 0xd3, (byte) 0xf8, (byte) 0x85, (byte) 0xc0, 0x74, 0x17, 0x0f, (byte) 0xbc, (byte) 0xc0, 0x48, 0x29, (byte) 0xc2, 0x0f, (byte) 0x86, (byte) 0x9b, 0x02, 0x00, 0x00, 0x48,
+                        0x01, (byte) 0xf8, 0x48, 0x01, (byte) 0xc8, (byte) 0xc3};
+
+        public Glibc236MemchrSse2() {
+            super(SIGNATURE);
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            reader.check(SIGNATURE);
+            return new Memchr(pc, SIGNATURE);
+        }
+    }
+
+    public static class Glibc236StrcpySse2Unaligned extends Substitution {
+        private static final byte[] SIGNATURE = {0x48, (byte) 0x89, (byte) 0xf1, 0x48, (byte) 0x89, (byte) 0xf8, 0x48, (byte) 0x83, (byte) 0xe1, 0x3f, 0x48, (byte) 0x83, (byte) 0xf9, 0x20, 0x0f,
+                        (byte) 0x86, 0x0f, 0x02, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xe6, (byte) 0xf0, 0x48, (byte) 0x83, (byte) 0xe1, 0x0f, 0x66, 0x0f, (byte) 0xef, (byte) 0xc0, 0x66, 0x0f,
+                        (byte) 0xef, (byte) 0xc9, 0x66, 0x0f, 0x74, 0x0e, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd1, 0x48, (byte) 0xd3, (byte) 0xea, 0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x85, 0x48,
+                        0x02, 0x00, 0x00, 0x66, 0x0f, 0x74, 0x46, 0x10, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd0, 0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x85, 0x76, 0x02, 0x00, 0x00, (byte) 0xf3,
+                        0x0f, 0x6f, 0x0c, 0x0e, (byte) 0xf3, 0x0f, 0x7f, 0x0f, 0x66, 0x66, 0x2e, 0x0f, 0x1f, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x00, 0x66, (byte) 0x90, 0x48, 0x29, (byte) 0xcf,
+                        0x48, (byte) 0xc7, (byte) 0xc1, 0x10, 0x00, 0x00, 0x00, 0x66, 0x0f, 0x6f, 0x0c, 0x0e, 0x0f, 0x28, 0x54, 0x0e, 0x10, (byte) 0xf3, 0x0f, 0x7f, 0x0c, 0x0f, 0x66, 0x0f, 0x74,
+                        (byte) 0xc2, 0x66, 0x0f, (byte) 0xd7, (byte) 0xd0, 0x48, (byte) 0x83, (byte) 0xc1, 0x10, 0x48, (byte) 0x85, (byte) 0xd2};
+
+        public Glibc236StrcpySse2Unaligned() {
+            super(SIGNATURE);
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            reader.check(SIGNATURE);
+            return new Strcpy(pc, SIGNATURE);
+        }
+    }
+
+    public static class Glibc236StrncmpSse2 extends Substitution {
+        private static final byte[] SIGNATURE = {0x48, (byte) 0x85, (byte) 0xd2, 0x0f, (byte) 0x84, 0x2b, 0x18, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xfa, 0x01, 0x0f, (byte) 0x84, 0x2d, 0x18, 0x00,
+                        0x00, 0x49, (byte) 0x89, (byte) 0xd3, (byte) 0x89, (byte) 0xf1, (byte) 0x89, (byte) 0xf8, 0x48, (byte) 0x83, (byte) 0xe1, 0x3f, 0x48, (byte) 0x83, (byte) 0xe0, 0x3f,
+                        (byte) 0x83, (byte) 0xf9, 0x30, 0x77, 0x49, (byte) 0x83, (byte) 0xf8, 0x30, 0x77, 0x44, 0x66, 0x0f, 0x12, 0x0f, 0x66, 0x0f, 0x12, 0x16, 0x66, 0x0f, 0x16, 0x4f, 0x08, 0x66,
+                        0x0f, 0x16, 0x56, 0x08, 0x66, 0x0f, (byte) 0xef, (byte) 0xc0, 0x66, 0x0f, 0x74, (byte) 0xc1, 0x66, 0x0f, 0x74, (byte) 0xca, 0x66, 0x0f, (byte) 0xf8, (byte) 0xc8, 0x66, 0x0f,
+                        (byte) 0xd7, (byte) 0xd1, (byte) 0x81, (byte) 0xea, (byte) 0xff, (byte) 0xff, 0x00, 0x00, 0x0f, (byte) 0x85, (byte) 0xc2, 0x17, 0x00, 0x00, 0x49, (byte) 0x83, (byte) 0xeb,
+                        0x10, 0x0f, (byte) 0x86, (byte) 0xcc, 0x17, 0x00, 0x00, 0x48, (byte) 0x83, (byte) 0xc6, 0x10, 0x48, (byte) 0x83, (byte) 0xc7, 0x10, 0x48, (byte) 0x83, (byte) 0xe6, (byte) 0xf0,
+                        0x48, (byte) 0x83, (byte) 0xe7, (byte) 0xf0, (byte) 0xba, (byte) 0xff, (byte) 0xff, 0x00, 0x00, 0x45, 0x31, (byte) 0xc0, (byte) 0x83, (byte) 0xe1, 0x0f, (byte) 0x83,
+                        (byte) 0xe0, 0x0f, 0x39, (byte) 0xc1, 0x74, 0x26, 0x77, 0x07, 0x41, (byte) 0x89, (byte) 0xd0, (byte) 0x91, 0x48, (byte) 0x87, (byte) 0xf7};
+
+        public Glibc236StrncmpSse2() {
+            super(SIGNATURE);
+        }
+
+        @Override
+        public AMD64Instruction createNode(long pc, CodeReader reader) {
+            reader.check(SIGNATURE);
+            return new Strncmp(pc, SIGNATURE);
+        }
+    }
+
+    public static void register(SubstitutionRegistry registry) {
+        registry.register(new Glibc236MemmoveSse2Unaligned());
+        registry.register(new Glibc236MemsetSse2Unaligned());
+        registry.register(new Glibc236MemcmpSse2());
+        registry.register(new Glibc236MemchrSse2());
+        registry.register(new Glibc236StrcpySse2Unaligned());
+        registry.register(new Glibc236StrncmpSse2());
+    }
+}